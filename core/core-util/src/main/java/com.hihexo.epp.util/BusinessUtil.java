@@ -1,6 +1,5 @@
 package com.hihexo.epp.util;
 
-import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.net.Inet4Address;
@@ -18,15 +17,33 @@ public class BusinessUtil {
 			}
 	 }
 
-	public static void writeInterfaceLog(String content) {
-		String path = "/mnt/logs/interfaceLog/";
-		File f = new File(path);
-		if (!f.exists()) {
-			f.mkdirs();
+	/**
+	 * 异步写入接口日志，记录在写线程中转换为字符串并写入当天的日志文件
+	 *
+	 * @param content
+	 *            日志记录
+	 */
+	public static void writeInterfaceLog(Object content) {
+		InterfaceLogHolder.writer.append(content);
+	}
+
+	/**
+	 * @return 接口日志写入器
+	 */
+	public static InterfaceLogWriter getInterfaceLogWriter() {
+		return InterfaceLogHolder.writer;
+	}
+
+	private static class InterfaceLogHolder {
+		private static final InterfaceLogWriter writer = new InterfaceLogWriter("/mnt/logs/interfaceLog/", "interface_");
+
+		static {
+			Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+				public void run() {
+					writer.close(5000);
+				}
+			}, "InterfaceLogWriter-shutdown"));
 		}
-		String nowDate=DateUtil.getNowYYYYMMDD();
-		path = path + "interface_"+nowDate + ".log";
-		writeFile(path, content);
 	}
 
 	public static void writeFile(String path, String content) {
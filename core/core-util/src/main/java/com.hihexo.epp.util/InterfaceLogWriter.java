@@ -0,0 +1,390 @@
+package com.hihexo.epp.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 接口日志异步写入器
+ * <p>
+ * 请求线程只把日志记录放入有界的无锁环形缓冲区，由单独的写线程取出记录，
+ * 批量写入按天滚动的 <code>FileChannel</code>（<code>interface_yyyy-MM-dd.log</code>）。
+ * 缓冲的数据超过 <code>batchSize</code> 字节或距上次写入超过
+ * <code>flushInterval</code> 毫秒时写入文件。记录的 <code>toString()</code>
+ * 在写线程中调用，因此请求线程上没有文件 I/O 和日志内容的拼接。
+ * <p>
+ * 缓冲区满时，请求线程唤醒写线程并短暂自旋等待（背压），
+ * 仍然没有空位时丢弃该记录并计数，丢弃的数量会写入下一批日志。
+ *
+ * @see BusinessUtil#writeInterfaceLog(Object)
+ */
+public class InterfaceLogWriter {
+
+	/** 默认的环形缓冲区容量（记录数） */
+	public static final int DEFAULT_CAPACITY = 8192;
+
+	/** 默认的批量写入字节数 */
+	public static final int DEFAULT_BATCH_SIZE = 64 * 1024;
+
+	/** 默认的写入间隔（毫秒） */
+	public static final long DEFAULT_FLUSH_INTERVAL = 1000;
+
+	/** 缓冲区满时请求线程的最大自旋次数 */
+	private static final int MAX_SPINS = 64;
+
+	private static final byte[] LINE_SEPARATOR = "\n".getBytes();
+
+	private final String dir;
+
+	private final String prefix;
+
+	private final Charset charset = Charset.defaultCharset();
+
+	private final int batchSize;
+
+	private final long flushInterval;
+
+	// 环形缓冲区，sequences[i] 表示槽位 i 的状态（多生产者，单消费者）
+	private final AtomicReferenceArray<Object> slots;
+
+	private final AtomicLongArray sequences;
+
+	private final int mask;
+
+	private final AtomicLong tail = new AtomicLong();
+
+	// 只由写线程访问
+	private long head = 0;
+
+	private final AtomicLong written = new AtomicLong();
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	private final AtomicLong backPressured = new AtomicLong();
+
+	private final AtomicLong errors = new AtomicLong();
+
+	private final Thread writer;
+
+	private volatile boolean running = true;
+
+	private volatile boolean parked = false;
+
+	// 以下字段只由写线程访问
+	private final ByteBuffer batch;
+
+	private FileChannel channel = null;
+
+	private long nextRollTime = 0;
+
+	private long lastFlushTime = System.currentTimeMillis();
+
+	private long reportedDropped = 0;
+
+	/**
+	 * 使用默认参数创建写入器
+	 *
+	 * @param dir
+	 *            日志目录
+	 * @param prefix
+	 *            日志文件名前缀
+	 */
+	public InterfaceLogWriter(String dir, String prefix) {
+		this(dir, prefix, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL);
+	}
+
+	/**
+	 * 创建写入器并启动写线程
+	 *
+	 * @param dir
+	 *            日志目录
+	 * @param prefix
+	 *            日志文件名前缀
+	 * @param capacity
+	 *            环形缓冲区容量，向上取整为 2 的幂
+	 * @param batchSize
+	 *            批量写入字节数
+	 * @param flushInterval
+	 *            写入间隔（毫秒）
+	 */
+	public InterfaceLogWriter(String dir, String prefix, int capacity, int batchSize, long flushInterval) {
+		if (capacity < 2 || batchSize < 1 || flushInterval < 1) {
+			throw new IllegalArgumentException("capacity = " + capacity + ", batchSize = " + batchSize
+					+ ", flushInterval = " + flushInterval);
+		}
+		this.dir = dir;
+		this.prefix = prefix;
+		this.batchSize = batchSize;
+		this.flushInterval = flushInterval;
+
+		int size = Integer.highestOneBit(capacity - 1) << 1;
+		this.slots = new AtomicReferenceArray<Object>(size);
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			this.sequences.set(i, i);
+		}
+		this.mask = size - 1;
+		this.batch = ByteBuffer.allocate(batchSize);
+
+		this.writer = new Thread(new Runnable() {
+			public void run() {
+				InterfaceLogWriter.this.run();
+			}
+		}, "InterfaceLogWriter-" + prefix);
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	/**
+	 * 添加一条日志记录，记录在写线程中转换为字符串
+	 *
+	 * @param record
+	 *            日志记录
+	 * @return 是否已放入缓冲区，<code>false</code> 表示已关闭或缓冲区满而被丢弃
+	 */
+	public boolean append(Object record) {
+		if (record == null) {
+			return true;
+		}
+		if (!this.running) {
+			this.dropped.incrementAndGet();
+			return false;
+		}
+
+		for (int spins = 0;; spins++) {
+			if (offer(record)) {
+				if (this.parked) {
+					LockSupport.unpark(this.writer);
+				}
+				return true;
+			}
+
+			// 缓冲区满，唤醒写线程后重试
+			if (spins == 0) {
+				this.backPressured.incrementAndGet();
+			}
+			if (spins >= MAX_SPINS) {
+				this.dropped.incrementAndGet();
+				return false;
+			}
+			LockSupport.unpark(this.writer);
+			Thread.yield();
+		}
+	}
+
+	private boolean offer(Object record) {
+		for (;;) {
+			long pos = this.tail.get();
+			int index = (int) pos & this.mask;
+			long diff = this.sequences.get(index) - pos;
+			if (diff == 0) {
+				if (this.tail.compareAndSet(pos, pos + 1)) {
+					this.slots.lazySet(index, record);
+					this.sequences.set(index, pos + 1);
+					return true;
+				}
+			}
+			else if (diff < 0) {
+				return false;
+			}
+		}
+	}
+
+	private Object poll() {
+		int index = (int) this.head & this.mask;
+		if (this.sequences.get(index) != this.head + 1) {
+			return null;
+		}
+		Object record = this.slots.get(index);
+		this.slots.lazySet(index, null);
+		this.sequences.lazySet(index, this.head + this.mask + 1);
+		this.head++;
+		return record;
+	}
+
+	private boolean isEmpty() {
+		return this.sequences.get((int) this.head & this.mask) != this.head + 1;
+	}
+
+	private void run() {
+		long parkNanos = TimeUnit.MILLISECONDS.toNanos(this.flushInterval);
+		while (this.running || !isEmpty()) {
+			Object record;
+			while ((record = poll()) != null) {
+				add(record);
+			}
+
+			if (this.batch.position() > 0 && System.currentTimeMillis() - this.lastFlushTime >= this.flushInterval) {
+				flush();
+			}
+
+			this.parked = true;
+			if (this.running && isEmpty()) {
+				LockSupport.parkNanos(this, this.batch.position() > 0 ? parkNanos : 10 * parkNanos);
+			}
+			this.parked = false;
+		}
+		flush();
+		closeChannel();
+	}
+
+	private void add(Object record) {
+		long count = this.dropped.get();
+		if (count != this.reportedDropped) {
+			write(("接口日志缓冲区已满，丢弃 " + (count - this.reportedDropped) + " 条记录").getBytes(this.charset));
+			this.reportedDropped = count;
+		}
+
+		byte[] content;
+		try {
+			content = String.valueOf(record).getBytes(this.charset);
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+			this.errors.incrementAndGet();
+			return;
+		}
+		write(content);
+		this.written.incrementAndGet();
+	}
+
+	private void write(byte[] content) {
+		if (this.batch.remaining() < content.length + LINE_SEPARATOR.length) {
+			flush();
+		}
+		if (this.batch.remaining() < content.length + LINE_SEPARATOR.length) {
+			// 超过批量大小的记录直接写入
+			writeChannel(ByteBuffer.wrap(content));
+			writeChannel(ByteBuffer.wrap(LINE_SEPARATOR));
+			return;
+		}
+		this.batch.put(content);
+		this.batch.put(LINE_SEPARATOR);
+		if (this.batch.position() >= this.batchSize) {
+			flush();
+		}
+	}
+
+	private void flush() {
+		this.lastFlushTime = System.currentTimeMillis();
+		if (this.batch.position() == 0) {
+			return;
+		}
+		this.batch.flip();
+		writeChannel(this.batch);
+		this.batch.clear();
+	}
+
+	private void writeChannel(ByteBuffer buffer) {
+		try {
+			FileChannel theChannel = getChannel();
+			while (buffer.hasRemaining()) {
+				theChannel.write(buffer);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			this.errors.incrementAndGet();
+			closeChannel();
+		}
+	}
+
+	/**
+	 * 获取当天的日志文件，跨天时滚动到新文件
+	 */
+	private FileChannel getChannel() throws IOException {
+		long now = System.currentTimeMillis();
+		if (this.channel != null && now < this.nextRollTime) {
+			return this.channel;
+		}
+		closeChannel();
+
+		File f = new File(this.dir);
+		if (!f.exists()) {
+			f.mkdirs();
+		}
+		File file = new File(f, this.prefix + DateUtil.getNowYYYYMMDD() + ".log");
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTimeInMillis(now);
+		calendar.set(Calendar.HOUR_OF_DAY, 0);
+		calendar.set(Calendar.MINUTE, 0);
+		calendar.set(Calendar.SECOND, 0);
+		calendar.set(Calendar.MILLISECOND, 0);
+		calendar.add(Calendar.DATE, 1);
+		this.nextRollTime = calendar.getTimeInMillis();
+		return this.channel;
+	}
+
+	private void closeChannel() {
+		if (this.channel != null) {
+			try {
+				this.channel.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			this.channel = null;
+		}
+	}
+
+	/**
+	 * 停止接收记录，等待写线程写完缓冲区中的记录后关闭文件
+	 *
+	 * @param timeout
+	 *            最长等待时间（毫秒）
+	 */
+	public void close(long timeout) {
+		this.running = false;
+		LockSupport.unpark(this.writer);
+		try {
+			this.writer.join(timeout);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return 已写入的记录数
+	 */
+	public long getWritten() {
+		return this.written.get();
+	}
+
+	/**
+	 * @return 因缓冲区满或已关闭而丢弃的记录数
+	 */
+	public long getDropped() {
+		return this.dropped.get();
+	}
+
+	/**
+	 * @return 添加记录时缓冲区已满的次数
+	 */
+	public long getBackPressured() {
+		return this.backPressured.get();
+	}
+
+	/**
+	 * @return 转换或写入失败的次数
+	 */
+	public long getErrors() {
+		return this.errors.get();
+	}
+
+	/**
+	 * @return 缓冲区中等待写入的记录数
+	 */
+	public int getPending() {
+		return (int) Math.max(0, this.tail.get() - this.head);
+	}
+
+}
@@ -0,0 +1,199 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.bench;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.verisign.epp.framework.EPPByteArrayAssembler;
+import com.verisign.epp.framework.EPPEvent;
+import com.verisign.epp.framework.EPPEventResponse;
+import com.verisign.epp.framework.EPPSerialByteArrayAssembler;
+import com.verisign.epp.framework.EPPXMLByteArrayAssembler;
+import com.verisign.epp.util.Environment;
+
+/**
+ * JMH benchmarks comparing the CPU and allocation per message of the XML
+ * assembler (<code>EPPXMLByteArrayAssembler</code>) with the binary assembler
+ * (<code>EPPSerialByteArrayAssembler</code>) for the messages of
+ * {@link EPPBenchMessages}. The benchmarks measure: <br>
+ * <br>
+ * <ul>
+ * <li><code>encode</code> - <code>EPPByteArrayAssembler.encode</code> of the
+ * message to a packet, including the 4 byte header.</li>
+ * <li><code>decode</code> - <code>EPPByteArrayAssembler.decode</code> of the
+ * packet body to a message.</li>
+ * </ul>
+ * <br>
+ * Each benchmark is run for every combination of the following parameters:
+ * <br>
+ * <br>
+ * <ul>
+ * <li><code>message</code> - Name of the message of
+ * {@link EPPBenchMessages}</li>
+ * <li><code>assembler</code> - <code>xml</code> for
+ * <code>EPPXMLByteArrayAssembler</code> or <code>serial</code> for
+ * <code>EPPSerialByteArrayAssembler</code></li>
+ * </ul>
+ * <br>
+ * The XML assembler is run without schema validation, since the binary
+ * assembler does not validate. The bytes per message of each trial are
+ * printed by the trial setup, as in
+ * <code>bytes/message: domainCheck serial 94</code>. The benchmarks are run
+ * as in: <br>
+ * <br>
+ * <code>java -cp "target/benchmarks.jar:../epp-src-1.10.0.3/lib/*" org.openjdk.jmh.Main EPPAssemblerBenchmark -prof gc -rf json</code>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EPPAssemblerBenchmark {
+
+	/** Value of the <code>assembler</code> parameter for the XML assembler */
+	public static final String ASSEMBLER_XML = "xml";
+
+	/** Value of the <code>assembler</code> parameter for the binary assembler */
+	public static final String ASSEMBLER_SERIAL = "serial";
+
+	/** Size of the packet header that is not passed to <code>decode</code> */
+	private static final int HEADER_SIZE = 4;
+
+	/** Name of the message to encode and decode */
+	@Param( { EPPBenchMessages.DOMAIN_CHECK, EPPBenchMessages.DOMAIN_INFO_RESP,
+			EPPBenchMessages.HOST_CREATE, EPPBenchMessages.CONTACT_CREATE,
+			EPPBenchMessages.FEE_V11_CHECK,
+			EPPBenchMessages.FEE_V11_CHECK_RESP,
+			EPPBenchMessages.LAUNCH_CREATE, EPPBenchMessages.SECDNS_CREATE })
+	public String message;
+
+	/** <code>xml</code> or <code>serial</code> */
+	@Param( { ASSEMBLER_XML, ASSEMBLER_SERIAL })
+	public String assembler;
+
+	/** Assembler used to encode and decode */
+	private EPPByteArrayAssembler byteArrayAssembler;
+
+	/** Response event of the message to encode */
+	private EPPEventResponse response;
+
+	/** Body of the encoded packet to decode */
+	private byte[] body;
+
+	/**
+	 * Initializes the SDK properties, factories and assembler for the
+	 * parameters of the trial, and encodes the message to decode.
+	 *
+	 * @throws Exception
+	 *             Error initializing the SDK or encoding the message
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		Logger.getRootLogger().setLevel(org.apache.log4j.Level.ERROR);
+
+		Properties theProps = new Properties();
+		theProps.setProperty("EPP.Validating", "false");
+		theProps.setProperty("EPP.FullSchemaChecking", "false");
+		Environment.setProperties(theProps);
+
+		EPPBenchMessages.initFactories();
+
+		if (ASSEMBLER_SERIAL.equals(this.assembler)) {
+			this.byteArrayAssembler = new EPPSerialByteArrayAssembler();
+		}
+		else {
+			this.byteArrayAssembler = new EPPXMLByteArrayAssembler();
+		}
+
+		this.response = new EPPEventResponse(EPPBenchMessages
+				.create(this.message));
+
+		byte[] thePacket = encode();
+		this.body = new byte[thePacket.length - HEADER_SIZE];
+		System.arraycopy(thePacket, HEADER_SIZE, this.body, 0,
+				this.body.length);
+
+		System.out.println("bytes/message: " + this.message + " "
+				+ this.assembler + " " + thePacket.length);
+	}
+
+	/**
+	 * Encodes the message to a packet.
+	 *
+	 * @return Encoded packet
+	 *
+	 * @throws Exception
+	 *             Error encoding the message
+	 */
+	@Benchmark
+	public byte[] encode() throws Exception {
+		return this.byteArrayAssembler.encode(this.response, null);
+	}
+
+	/**
+	 * Decodes the body of the encoded packet.
+	 *
+	 * @return Decoded event
+	 *
+	 * @throws Exception
+	 *             Error decoding the packet
+	 */
+	@Benchmark
+	public EPPEvent decode() throws Exception {
+		return this.byteArrayAssembler.decode(this.body, null);
+	}
+
+	/**
+	 * Runs all of the benchmarks with the GC profiler. JMH command line
+	 * options are passed to <code>org.openjdk.jmh.Main</code> instead.
+	 *
+	 * @param args
+	 *            Not used
+	 *
+	 * @throws Exception
+	 *             Error running the benchmarks
+	 */
+	public static void main(String[] args) throws Exception {
+		Options theOptions = new OptionsBuilder().include(
+				EPPAssemblerBenchmark.class.getSimpleName()).addProfiler("gc")
+				.build();
+		new Runner(theOptions).run();
+	}
+
+}
@@ -0,0 +1,572 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.bench;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Vector;
+
+import com.verisign.epp.codec.contact.EPPContactAddress;
+import com.verisign.epp.codec.contact.EPPContactCreateCmd;
+import com.verisign.epp.codec.contact.EPPContactPostalDefinition;
+import com.verisign.epp.codec.domain.EPPDomainCheckCmd;
+import com.verisign.epp.codec.domain.EPPDomainContact;
+import com.verisign.epp.codec.domain.EPPDomainCreateCmd;
+import com.verisign.epp.codec.domain.EPPDomainInfoResp;
+import com.verisign.epp.codec.domain.EPPDomainMapFactory;
+import com.verisign.epp.codec.domain.EPPDomainStatus;
+import com.verisign.epp.codec.gen.EPPAuthInfo;
+import com.verisign.epp.codec.gen.EPPFactory;
+import com.verisign.epp.codec.gen.EPPMessage;
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.codec.gen.EPPResult;
+import com.verisign.epp.codec.gen.EPPTransId;
+import com.verisign.epp.codec.host.EPPHostAddress;
+import com.verisign.epp.codec.host.EPPHostCreateCmd;
+import com.verisign.epp.codec.idntable.EPPIdnTableCheckCmd;
+import com.verisign.epp.codec.idntable.EPPIdnTableCheckDomain;
+import com.verisign.epp.codec.idntable.EPPIdnTableCheckResp;
+import com.verisign.epp.codec.idntable.EPPIdnTableDomainLabel;
+import com.verisign.epp.codec.launch.EPPLaunchCreate;
+import com.verisign.epp.codec.launch.EPPLaunchPhase;
+import com.verisign.epp.codec.registry.EPPRegistryCheckCmd;
+import com.verisign.epp.codec.registry.EPPRegistryCheckResp;
+import com.verisign.epp.codec.registry.EPPRegistryCheckResult;
+import com.verisign.epp.codec.secdnsext.v11.EPPSecDNSAlgorithm;
+import com.verisign.epp.codec.secdnsext.v11.EPPSecDNSExtCreate;
+import com.verisign.epp.codec.secdnsext.v11.EPPSecDNSExtDsData;
+import com.verisign.epp.codec.secdnsext.v11.EPPSecDNSExtKeyData;
+import com.verisign.epp.codec.suggestion.util.InvalidValueException;
+import com.verisign.epp.codec.suggestion.util.RandomHelper;
+
+/**
+ * Representative EPP messages used by the codec benchmarks. Each message is
+ * identified by a name that is used as a JMH <code>@Param</code> value, and
+ * {@link #create(String)} builds a new instance of the message. The messages
+ * are built the same way as in the unit tests of the mappings, so they are
+ * valid against the XML schemas. <br>
+ * <br>
+ * The suggestion messages are generated by <code>RandomHelper</code>, which
+ * is reset with a fixed seed so that every run encodes the same message.
+ */
+public class EPPBenchMessages {
+
+	/** Domain check command with five domain names */
+	public static final String DOMAIN_CHECK = "domainCheck";
+
+	/** Domain info response with statuses, name servers and contacts */
+	public static final String DOMAIN_INFO_RESP = "domainInfoResp";
+
+	/** Host create command with IPv4 and IPv6 addresses */
+	public static final String HOST_CREATE = "hostCreate";
+
+	/** Contact create command with postal info */
+	public static final String CONTACT_CREATE = "contactCreate";
+
+	/** Domain check command with a fee v06 extension */
+	public static final String FEE_V06_CHECK = "feeV06Check";
+
+	/** Domain check command with a fee v07 extension */
+	public static final String FEE_V07_CHECK = "feeV07Check";
+
+	/** Domain check command with a fee v08 extension */
+	public static final String FEE_V08_CHECK = "feeV08Check";
+
+	/** Domain check command with a fee v09 extension */
+	public static final String FEE_V09_CHECK = "feeV09Check";
+
+	/** Domain check command with a fee v11 extension */
+	public static final String FEE_V11_CHECK = "feeV11Check";
+
+	/** Domain check response with a fee v11 extension */
+	public static final String FEE_V11_CHECK_RESP = "feeV11CheckResp";
+
+	/** Domain create command with a launch extension */
+	public static final String LAUNCH_CREATE = "launchCreate";
+
+	/** Domain create command with a secDNS 1.1 extension */
+	public static final String SECDNS_CREATE = "secDNSCreate";
+
+	/** Registry check command */
+	public static final String REGISTRY_CHECK = "registryCheck";
+
+	/** Registry check response */
+	public static final String REGISTRY_CHECK_RESP = "registryCheckResp";
+
+	/** Suggestion info command */
+	public static final String SUGGESTION_INFO = "suggestionInfo";
+
+	/** Suggestion info response */
+	public static final String SUGGESTION_INFO_RESP = "suggestionInfoResp";
+
+	/** IDN table check command */
+	public static final String IDNTABLE_CHECK = "idnTableCheck";
+
+	/** IDN table check response */
+	public static final String IDNTABLE_CHECK_RESP = "idnTableCheckResp";
+
+	/** Seed used to reset <code>RandomHelper</code> */
+	private static final long SUGGESTION_SEED = 1234L;
+
+	/** Map factories registered by {@link #initFactories()} */
+	private static final String[] MAP_FACTORIES = {
+			"com.verisign.epp.codec.domain.EPPDomainMapFactory",
+			"com.verisign.epp.codec.host.EPPHostMapFactory",
+			"com.verisign.epp.codec.contact.EPPContactMapFactory",
+			"com.verisign.epp.codec.registry.EPPRegistryMapFactory",
+			"com.verisign.epp.codec.suggestion.EPPSuggestionMapFactory",
+			"com.verisign.epp.codec.idntable.EPPIdnTableMapFactory" };
+
+	/** Extension factories registered by {@link #initFactories()} */
+	private static final String[] EXT_FACTORIES = {
+			"com.verisign.epp.codec.fee.v06.EPPFeeExtFactory",
+			"com.verisign.epp.codec.fee.v07.EPPFeeExtFactory",
+			"com.verisign.epp.codec.fee.v08.EPPFeeExtFactory",
+			"com.verisign.epp.codec.fee.v09.EPPFeeExtFactory",
+			"com.verisign.epp.codec.fee.v11.EPPFeeExtFactory",
+			"com.verisign.epp.codec.launch.EPPLaunchExtFactory",
+			"com.verisign.epp.codec.secdnsext.v11.EPPSecDNSExtFactory" };
+
+	/**
+	 * Registers the map and extension factories of all of the benchmark
+	 * messages with <code>EPPFactory</code>.
+	 *
+	 * @throws Exception
+	 *             Error creating one of the factories
+	 */
+	public static void initFactories() throws Exception {
+		for (int i = 0; i < MAP_FACTORIES.length; i++) {
+			EPPFactory.getInstance().addMapFactory(MAP_FACTORIES[i]);
+		}
+		for (int i = 0; i < EXT_FACTORIES.length; i++) {
+			EPPFactory.getInstance().addExtFactory(EXT_FACTORIES[i]);
+		}
+	}
+
+	/**
+	 * Creates the message with the name <code>aName</code>.
+	 *
+	 * @param aName
+	 *            One of the message name constants
+	 *
+	 * @return New message instance
+	 *
+	 * @throws InvalidValueException
+	 *             Error generating a suggestion message
+	 * @throws IllegalArgumentException
+	 *             <code>aName</code> is not a known message name
+	 */
+	public static EPPMessage create(String aName) throws InvalidValueException {
+		if (DOMAIN_CHECK.equals(aName)) {
+			return domainCheck();
+		}
+		else if (DOMAIN_INFO_RESP.equals(aName)) {
+			return domainInfoResp();
+		}
+		else if (HOST_CREATE.equals(aName)) {
+			return hostCreate();
+		}
+		else if (CONTACT_CREATE.equals(aName)) {
+			return contactCreate();
+		}
+		else if (FEE_V06_CHECK.equals(aName)) {
+			return feeV06Check();
+		}
+		else if (FEE_V07_CHECK.equals(aName)) {
+			return feeV07Check();
+		}
+		else if (FEE_V08_CHECK.equals(aName)) {
+			return feeV08Check();
+		}
+		else if (FEE_V09_CHECK.equals(aName)) {
+			return feeV09Check();
+		}
+		else if (FEE_V11_CHECK.equals(aName)) {
+			return feeV11Check();
+		}
+		else if (FEE_V11_CHECK_RESP.equals(aName)) {
+			return feeV11CheckResp();
+		}
+		else if (LAUNCH_CREATE.equals(aName)) {
+			return launchCreate();
+		}
+		else if (SECDNS_CREATE.equals(aName)) {
+			return secDNSCreate();
+		}
+		else if (REGISTRY_CHECK.equals(aName)) {
+			return registryCheck();
+		}
+		else if (REGISTRY_CHECK_RESP.equals(aName)) {
+			return registryCheckResp();
+		}
+		else if (SUGGESTION_INFO.equals(aName)) {
+			RandomHelper.reset(SUGGESTION_SEED);
+			return RandomHelper.getCommand();
+		}
+		else if (SUGGESTION_INFO_RESP.equals(aName)) {
+			RandomHelper.reset(SUGGESTION_SEED);
+			return RandomHelper.getResponse("ABC-12345");
+		}
+		else if (IDNTABLE_CHECK.equals(aName)) {
+			return idnTableCheck();
+		}
+		else if (IDNTABLE_CHECK_RESP.equals(aName)) {
+			return idnTableCheckResp();
+		}
+		else {
+			throw new IllegalArgumentException("Unknown message " + aName);
+		}
+	}
+
+	/**
+	 * Creates a domain check command with five domain names.
+	 *
+	 * @return Domain check command
+	 */
+	private static EPPDomainCheckCmd domainCheck() {
+		Vector<String> theNames = new Vector<String>();
+		theNames.add("example1.com");
+		theNames.add("example2.com");
+		theNames.add("example3.com");
+		theNames.add("example4.com");
+		theNames.add("example5.com");
+
+		return new EPPDomainCheckCmd("ABC-12345", theNames);
+	}
+
+	/**
+	 * Creates a domain info response with statuses, name servers, hosts and
+	 * contacts.
+	 *
+	 * @return Domain info response
+	 */
+	private static EPPDomainInfoResp domainInfoResp() {
+		Vector<EPPDomainStatus> theStatuses = new Vector<EPPDomainStatus>();
+		theStatuses.add(new EPPDomainStatus(EPPDomainStatus.ELM_STATUS_OK));
+
+		EPPDomainInfoResp theResp = new EPPDomainInfoResp(new EPPTransId(
+				"ABC-12345", "54321-XYZ"), "EXAMPLE1-VRSN", "example.com",
+				"ClientX", theStatuses, "ClientY", new Date(), new EPPAuthInfo(
+						"2fooBAR"));
+		theResp.setResult(EPPResult.SUCCESS);
+
+		Vector<String> theNses = new Vector<String>();
+		theNses.add("ns1.example.com");
+		theNses.add("ns2.example.com");
+		theResp.setNses(theNses);
+
+		Vector<String> theHosts = new Vector<String>();
+		theHosts.add("ns1.example.com");
+		theHosts.add("ns2.example.com");
+		theResp.setHosts(theHosts);
+
+		Vector<EPPDomainContact> theContacts = new Vector<EPPDomainContact>();
+		theContacts.add(new EPPDomainContact("sh8013",
+				EPPDomainContact.TYPE_ADMINISTRATIVE));
+		theContacts.add(new EPPDomainContact("sh8013",
+				EPPDomainContact.TYPE_TECHNICAL));
+		theResp.setContacts(theContacts);
+		theResp.setRegistrant("jd1234");
+		theResp.setLastUpdatedBy("ClientX");
+		theResp.setLastUpdatedDate(new Date());
+		theResp.setExpirationDate(new Date());
+
+		return theResp;
+	}
+
+	/**
+	 * Creates a host create command with IPv4 and IPv6 addresses.
+	 *
+	 * @return Host create command
+	 */
+	private static EPPHostCreateCmd hostCreate() {
+		Vector<EPPHostAddress> theAddresses = new Vector<EPPHostAddress>();
+		theAddresses.add(new EPPHostAddress("192.1.2.3", EPPHostAddress.IPV4));
+		theAddresses.add(new EPPHostAddress("198.1.2.3", EPPHostAddress.IPV4));
+		theAddresses.add(new EPPHostAddress("1080:0:0:0:8:800:200C:417A",
+				EPPHostAddress.IPV6));
+
+		return new EPPHostCreateCmd("ABC-12345", "ns1.example.com",
+				theAddresses);
+	}
+
+	/**
+	 * Creates a contact create command with localized postal info.
+	 *
+	 * @return Contact create command
+	 */
+	private static EPPContactCreateCmd contactCreate() {
+		Vector<String> theStreets = new Vector<String>();
+		theStreets.add("123 Example Dr.");
+		theStreets.add("Suite 100");
+
+		EPPContactAddress theAddress = new EPPContactAddress(theStreets,
+				"Dulles", "VA", "20166-6503", "US");
+		EPPContactPostalDefinition thePostal = new EPPContactPostalDefinition(
+				"John Doe", "Example Inc.",
+				EPPContactPostalDefinition.ATTR_TYPE_LOC, theAddress);
+
+		EPPContactCreateCmd theCommand = new EPPContactCreateCmd("ABC-12345",
+				"sh8013", thePostal, "jdoe@example.com", new EPPAuthInfo(
+						"2fooBAR"));
+		theCommand.setVoice("+1.7035555555");
+		theCommand.setFax("+1.7035555556");
+
+		return theCommand;
+	}
+
+	/**
+	 * Creates a domain check command with a fee v06 extension.
+	 *
+	 * @return Domain check command
+	 */
+	private static EPPDomainCheckCmd feeV06Check() {
+		EPPDomainCheckCmd theCommand = domainCheck();
+
+		com.verisign.epp.codec.fee.v06.EPPFeeCheck theExt = new com.verisign.epp.codec.fee.v06.EPPFeeCheck();
+		theExt.addDomain(new com.verisign.epp.codec.fee.v06.EPPFeeDomain(
+				"example1.com", "USD",
+				new com.verisign.epp.codec.fee.v06.EPPFeeCommand("create",
+						com.verisign.epp.codec.fee.v06.EPPFeeCommand.PHASE_SUNRISE),
+				new com.verisign.epp.codec.fee.v06.EPPFeePeriod(1)));
+		theCommand.addExtension(theExt);
+
+		return theCommand;
+	}
+
+	/**
+	 * Creates a domain check command with a fee v07 extension.
+	 *
+	 * @return Domain check command
+	 */
+	private static EPPDomainCheckCmd feeV07Check() {
+		EPPDomainCheckCmd theCommand = domainCheck();
+
+		com.verisign.epp.codec.fee.v07.EPPFeeCheck theExt = new com.verisign.epp.codec.fee.v07.EPPFeeCheck();
+		theExt.addDomain(new com.verisign.epp.codec.fee.v07.EPPFeeDomain(
+				"example1.com", "USD",
+				new com.verisign.epp.codec.fee.v07.EPPFeeCommand("create",
+						com.verisign.epp.codec.fee.v07.EPPFeeCommand.PHASE_SUNRISE),
+				new com.verisign.epp.codec.fee.v07.EPPFeePeriod(1)));
+		theCommand.addExtension(theExt);
+
+		return theCommand;
+	}
+
+	/**
+	 * Creates a domain check command with a fee v08 extension.
+	 *
+	 * @return Domain check command
+	 */
+	private static EPPDomainCheckCmd feeV08Check() {
+		EPPDomainCheckCmd theCommand = domainCheck();
+
+		com.verisign.epp.codec.fee.v08.EPPFeeCheck theExt = new com.verisign.epp.codec.fee.v08.EPPFeeCheck();
+		theExt.addDomain(new com.verisign.epp.codec.fee.v08.EPPFeeDomain(
+				"example1.com", "USD",
+				new com.verisign.epp.codec.fee.v08.EPPFeeCommand("create",
+						com.verisign.epp.codec.fee.v08.EPPFeeCommand.PHASE_SUNRISE),
+				new com.verisign.epp.codec.fee.v08.EPPFeePeriod(1)));
+		theCommand.addExtension(theExt);
+
+		return theCommand;
+	}
+
+	/**
+	 * Creates a domain check command with a fee v09 extension.
+	 *
+	 * @return Domain check command
+	 */
+	private static EPPDomainCheckCmd feeV09Check() {
+		EPPDomainCheckCmd theCommand = domainCheck();
+
+		com.verisign.epp.codec.fee.v09.EPPFeeCheck theExt = new com.verisign.epp.codec.fee.v09.EPPFeeCheck();
+		theExt.addObject(new com.verisign.epp.codec.fee.v09.EPPFeeObject(
+				"example1.com", "USD",
+				new com.verisign.epp.codec.fee.v09.EPPFeeCommand("create",
+						com.verisign.epp.codec.fee.v09.EPPFeeCommand.PHASE_SUNRISE),
+				new com.verisign.epp.codec.fee.v09.EPPFeePeriod(1)));
+		theCommand.addExtension(theExt);
+
+		return theCommand;
+	}
+
+	/**
+	 * Creates a domain check command with a fee v11 extension.
+	 *
+	 * @return Domain check command
+	 */
+	private static EPPDomainCheckCmd feeV11Check() {
+		EPPDomainCheckCmd theCommand = domainCheck();
+
+		com.verisign.epp.codec.fee.v11.EPPFeeCheck theExt = new com.verisign.epp.codec.fee.v11.EPPFeeCheck(
+				new com.verisign.epp.codec.fee.v11.EPPFeeCommand("create"));
+		theExt.setCurrency("USD");
+		theCommand.addExtension(theExt);
+
+		return theCommand;
+	}
+
+	/**
+	 * Creates a domain check response with a fee v11 extension.
+	 *
+	 * @return Domain check response
+	 */
+	private static EPPResponse feeV11CheckResp() {
+		com.verisign.epp.codec.domain.EPPDomainCheckResp theResp = new com.verisign.epp.codec.domain.EPPDomainCheckResp(
+				new EPPTransId("ABC-12345", "54321-XYZ"),
+				new com.verisign.epp.codec.domain.EPPDomainCheckResult(
+						"example.com", true));
+		theResp.setResult(EPPResult.SUCCESS);
+
+		com.verisign.epp.codec.fee.v11.EPPFeeObjectResult theResult = new com.verisign.epp.codec.fee.v11.EPPFeeObjectResult(
+				EPPDomainMapFactory.NS, "domain:name", "example.com", "USD",
+				new com.verisign.epp.codec.fee.v11.EPPFeeCommand("create"));
+		theResult.setPeriod(new com.verisign.epp.codec.fee.v11.EPPFeePeriod(1));
+		theResult.addFee(new com.verisign.epp.codec.fee.v11.EPPFeeValue(
+				new BigDecimal("5.00"), "Registration Fee", true, "P5D", null));
+		theResp.addExtension(new com.verisign.epp.codec.fee.v11.EPPFeeChkData(
+				theResult));
+
+		return theResp;
+	}
+
+	/**
+	 * Creates a domain create command with a landrush application launch
+	 * extension.
+	 *
+	 * @return Domain create command
+	 */
+	private static EPPDomainCreateCmd launchCreate() {
+		EPPDomainCreateCmd theCommand = new EPPDomainCreateCmd("ABC-12345",
+				"example.tld", new EPPAuthInfo("2fooBAR"));
+		theCommand.addExtension(new EPPLaunchCreate(new EPPLaunchPhase(
+				EPPLaunchPhase.PHASE_LANDRUSH), EPPLaunchCreate.TYPE_APPLICATION));
+
+		return theCommand;
+	}
+
+	/**
+	 * Creates a domain create command with a secDNS 1.1 extension that
+	 * contains DS data with key data.
+	 *
+	 * @return Domain create command
+	 */
+	private static EPPDomainCreateCmd secDNSCreate() {
+		EPPDomainCreateCmd theCommand = new EPPDomainCreateCmd("ABC-12345",
+				"example.com", new EPPAuthInfo("2fooBAR"));
+
+		EPPSecDNSExtKeyData theKeyData = new EPPSecDNSExtKeyData(
+				EPPSecDNSExtKeyData.FLAGS_ZONE_KEY_SEP,
+				EPPSecDNSExtKeyData.DEFAULT_PROTOCOL,
+				EPPSecDNSAlgorithm.RSASHA1,
+				"AQPmsXk3Q1ngNSzsH1lrX63mRIhtwkkK+5Zj"
+						+ "vxykBCV1NYne83+8RXkBElGb/YJ1n4TacMUs"
+						+ "poZap7caJj7MdOaADKmzB2ci0vwpubNyW0t2"
+						+ "AnaQqpy1ce+07Y8RkbTC6xCeEw1UQZ73PzIO"
+						+ "OvJDdjwPxWaO9F7zSxnGpGt0WtuItQ==");
+
+		EPPSecDNSExtCreate theExt = new EPPSecDNSExtCreate();
+		theExt.setMaxSigLife(604800);
+		theExt.appendDsData(new EPPSecDNSExtDsData(10563,
+				EPPSecDNSAlgorithm.RSASHA1,
+				EPPSecDNSExtDsData.SHA1_DIGEST_TYPE,
+				"9C20674BFF957211D129B0DFE9410AF753559D4B", theKeyData));
+		theCommand.addExtension(theExt);
+
+		return theCommand;
+	}
+
+	/**
+	 * Creates a registry check command with three zone names.
+	 *
+	 * @return Registry check command
+	 */
+	private static EPPRegistryCheckCmd registryCheck() {
+		EPPRegistryCheckCmd theCommand = new EPPRegistryCheckCmd("ABC-12345",
+				"com");
+		theCommand.addName("net");
+		theCommand.addName("org");
+
+		return theCommand;
+	}
+
+	/**
+	 * Creates a registry check response with three zone results.
+	 *
+	 * @return Registry check response
+	 */
+	private static EPPRegistryCheckResp registryCheckResp() {
+		List<EPPRegistryCheckResult> theResults = new ArrayList<EPPRegistryCheckResult>();
+
+		EPPRegistryCheckResult theResult = new EPPRegistryCheckResult("com",
+				Boolean.FALSE);
+		theResult.setReason("Already taken");
+		theResults.add(theResult);
+		theResults.add(new EPPRegistryCheckResult("availabletld",
+				Boolean.TRUE));
+		theResults.add(new EPPRegistryCheckResult("net", Boolean.TRUE));
+
+		EPPRegistryCheckResp theResp = new EPPRegistryCheckResp(new EPPTransId(
+				"ABC-12345", "54321-XYZ"), theResults);
+		theResp.setResult(EPPResult.SUCCESS);
+
+		return theResp;
+	}
+
+	/**
+	 * Creates an IDN table check command with two domain labels.
+	 *
+	 * @return IDN table check command
+	 */
+	private static EPPIdnTableCheckCmd idnTableCheck() {
+		EPPIdnTableCheckCmd theCommand = new EPPIdnTableCheckCmd("ABC-12345");
+		theCommand.addDomain(new EPPIdnTableDomainLabel("idn1.example",
+				EPPIdnTableDomainLabel.Form.U_LABEL));
+		theCommand.addDomain(new EPPIdnTableDomainLabel(
+				"xn--idn2-example.example",
+				EPPIdnTableDomainLabel.Form.A_LABEL));
+
+		return theCommand;
+	}
+
+	/**
+	 * Creates an IDN table check response with a valid and an invalid domain.
+	 *
+	 * @return IDN table check response
+	 */
+	private static EPPIdnTableCheckResp idnTableCheckResp() {
+		EPPIdnTableCheckResp theResp = new EPPIdnTableCheckResp(new EPPTransId(
+				"ABC-12345", "54321-XYZ"));
+		theResp.setResult(EPPResult.SUCCESS);
+
+		EPPIdnTableCheckDomain theDomain = new EPPIdnTableCheckDomain(
+				"idn1.example", true);
+		theDomain.addTable("CHINESE");
+		theResp.addDomain(theDomain);
+		theResp.addDomain(new EPPIdnTableCheckDomain("idn2.example",
+				"Invalid code point"));
+
+		return theResp;
+	}
+
+}
@@ -0,0 +1,278 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.bench;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.w3c.dom.Document;
+
+import com.codestudio.util.GenericPoolMetaData;
+import com.verisign.epp.codec.gen.EPPCodec;
+import com.verisign.epp.codec.gen.EPPMessage;
+import com.verisign.epp.util.EPPParserPoolManager;
+import com.verisign.epp.util.EPPSchemaCachingParser;
+import com.verisign.epp.util.EPPTransformer;
+import com.verisign.epp.util.EPPXMLByteArray;
+import com.verisign.epp.util.Environment;
+
+/**
+ * JMH benchmarks of the <code>EPPCodec</code> and <code>EPPXMLByteArray</code>
+ * encode and decode paths for the messages of {@link EPPBenchMessages}. The
+ * benchmarks measure: <br>
+ * <br>
+ * <ul>
+ * <li><code>encode</code> - <code>EPPCodec.encode</code> of the message to a
+ * DOM <code>Document</code> followed by <code>EPPXMLByteArray.encode</code>
+ * to bytes.</li>
+ * <li><code>decode</code> - <code>EPPXMLByteArray.decode</code> of the bytes
+ * to a DOM <code>Document</code> followed by <code>EPPCodec.decode</code> to
+ * a message.</li>
+ * <li><code>roundTrip</code> - <code>encode</code> followed by
+ * <code>decode</code> of the encoded bytes.</li>
+ * </ul>
+ * <br>
+ * Each benchmark is run for every combination of the following parameters:
+ * <br>
+ * <br>
+ * <ul>
+ * <li><code>message</code> - Name of the message of
+ * {@link EPPBenchMessages}</li>
+ * <li><code>validating</code> - Value of the <code>EPP.Validating</code>
+ * property, which turns XML schema validation of the parser on or off</li>
+ * <li><code>pool</code> - <code>none</code> to create a new parser and
+ * transformer for each call like <code>new EPPXMLByteArray()</code>, or the
+ * <code>EPP.ParserPoolType</code> of the parser and transformer pools (
+ * <code>striped</code> or <code>threadlocal</code>)</li>
+ * </ul>
+ * <br>
+ * The benchmarks are run with the shaded <code>benchmarks.jar</code> and the
+ * system scoped jars of <code>epp-src</code>, and the allocation rates are
+ * reported with the JMH GC profiler, as in: <br>
+ * <br>
+ * <code>java -cp "target/benchmarks.jar:../epp-src-1.10.0.3/lib/*" org.openjdk.jmh.Main EPPCodecBenchmark -prof gc -rf json</code>
+ * <br>
+ * <br>
+ * A subset of the parameters is selected with the <code>-p</code> option, as
+ * in <code>-p message=domainCheck,feeV11Check -p pool=striped</code>. The
+ * JSON result of a run before a codec change is the baseline to compare the
+ * run after the change with.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EPPCodecBenchmark {
+
+	/** Value of the <code>pool</code> parameter for no parser pool */
+	public static final String POOL_NONE = "none";
+
+	/** Name of the message to encode and decode */
+	@Param( { EPPBenchMessages.DOMAIN_CHECK, EPPBenchMessages.DOMAIN_INFO_RESP,
+			EPPBenchMessages.HOST_CREATE, EPPBenchMessages.CONTACT_CREATE,
+			EPPBenchMessages.FEE_V06_CHECK, EPPBenchMessages.FEE_V07_CHECK,
+			EPPBenchMessages.FEE_V08_CHECK, EPPBenchMessages.FEE_V09_CHECK,
+			EPPBenchMessages.FEE_V11_CHECK,
+			EPPBenchMessages.FEE_V11_CHECK_RESP,
+			EPPBenchMessages.LAUNCH_CREATE, EPPBenchMessages.SECDNS_CREATE,
+			EPPBenchMessages.REGISTRY_CHECK,
+			EPPBenchMessages.REGISTRY_CHECK_RESP,
+			EPPBenchMessages.SUGGESTION_INFO,
+			EPPBenchMessages.SUGGESTION_INFO_RESP,
+			EPPBenchMessages.IDNTABLE_CHECK,
+			EPPBenchMessages.IDNTABLE_CHECK_RESP })
+	public String message;
+
+	/** Value of the <code>EPP.Validating</code> property */
+	@Param( { "true", "false" })
+	public String validating;
+
+	/** <code>none</code> or the <code>EPP.ParserPoolType</code> */
+	@Param( { POOL_NONE, EPPParserPoolManager.TYPE_STRIPED,
+			EPPParserPoolManager.TYPE_THREADLOCAL })
+	public String pool;
+
+	/** Message to encode */
+	private EPPMessage msg;
+
+	/** Encoded message to decode */
+	private byte[] packet;
+
+	/** Pooled or unpooled XML byte array used to encode and decode */
+	private EPPXMLByteArray byteArray;
+
+	/**
+	 * Initializes the SDK properties, factories and parser pools for the
+	 * parameters of the trial, and encodes the message to decode.
+	 *
+	 * @throws Exception
+	 *             Error initializing the SDK or encoding the message
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		Logger.getRootLogger().setLevel(org.apache.log4j.Level.ERROR);
+
+		Properties theProps = new Properties();
+		theProps.setProperty("EPP.Validating", this.validating);
+		theProps.setProperty("EPP.FullSchemaChecking", this.validating);
+		if (!POOL_NONE.equals(this.pool)) {
+			theProps.setProperty("EPP.ParserPoolType", this.pool);
+		}
+		Environment.setProperties(theProps);
+
+		EPPBenchMessages.initFactories();
+
+		if (POOL_NONE.equals(this.pool)) {
+			this.byteArray = new EPPXMLByteArray();
+		}
+		else {
+			EPPParserPoolManager.getInstance().createPool(
+					createPoolMeta(EPPSchemaCachingParser.POOL,
+							"com.verisign.epp.util.EPPSchemaCachingParser"));
+			EPPParserPoolManager.getInstance().createPool(
+					createPoolMeta(EPPTransformer.POOL,
+							"com.verisign.epp.util.EPPTransformer"));
+			this.byteArray = new EPPXMLByteArray(EPPSchemaCachingParser.POOL,
+					EPPTransformer.POOL);
+		}
+
+		this.msg = EPPBenchMessages.create(this.message);
+		this.packet = encode();
+	}
+
+	/**
+	 * Closes the parser pools created by {@link #setUp()}.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (!POOL_NONE.equals(this.pool)) {
+			EPPParserPoolManager.getInstance().removePool(
+					EPPSchemaCachingParser.POOL);
+			EPPParserPoolManager.getInstance().removePool(EPPTransformer.POOL);
+		}
+	}
+
+	/**
+	 * Encodes the message to bytes.
+	 *
+	 * @return Encoded message
+	 *
+	 * @throws Exception
+	 *             Error encoding the message
+	 */
+	@Benchmark
+	public byte[] encode() throws Exception {
+		Document theDoc = EPPCodec.getInstance().encode(this.msg);
+		return this.byteArray.encode(theDoc);
+	}
+
+	/**
+	 * Decodes the encoded message.
+	 *
+	 * @return Decoded message
+	 *
+	 * @throws Exception
+	 *             Error decoding the message
+	 */
+	@Benchmark
+	public EPPMessage decode() throws Exception {
+		Document theDoc = this.byteArray.decode(this.packet);
+		return EPPCodec.getInstance().decode(theDoc);
+	}
+
+	/**
+	 * Encodes the message to bytes and decodes the bytes back to a message.
+	 *
+	 * @return Decoded message
+	 *
+	 * @throws Exception
+	 *             Error encoding or decoding the message
+	 */
+	@Benchmark
+	public EPPMessage roundTrip() throws Exception {
+		byte[] thePacket = encode();
+		Document theDoc = this.byteArray.decode(thePacket);
+		return EPPCodec.getInstance().decode(theDoc);
+	}
+
+	/**
+	 * Creates the pool settings of a parser or transformer pool with one
+	 * object per benchmark thread.
+	 *
+	 * @param aName
+	 *            Pool name
+	 * @param aObjectType
+	 *            Class name of the pooled objects
+	 *
+	 * @return Pool settings
+	 */
+	private static GenericPoolMetaData createPoolMeta(String aName,
+			String aObjectType) {
+		GenericPoolMetaData theMeta = new GenericPoolMetaData();
+		theMeta.setName(aName);
+		theMeta.setObjectType(aObjectType);
+		theMeta.setInitialObjects(1);
+		theMeta.setMinimumSize(1);
+		theMeta.setMaximumSize(Runtime.getRuntime().availableProcessors());
+		theMeta.setMaximumSoft(true);
+		theMeta.setObjectTimeout(0);
+		theMeta.setUserTimeout(10);
+		theMeta.setSkimmerFrequency(60);
+		theMeta.setShrinkBy(1);
+		return theMeta;
+	}
+
+	/**
+	 * Runs all of the benchmarks with the GC profiler. JMH command line
+	 * options are passed to <code>org.openjdk.jmh.Main</code> instead.
+	 *
+	 * @param args
+	 *            Not used
+	 *
+	 * @throws Exception
+	 *             Error running the benchmarks
+	 */
+	public static void main(String[] args) throws Exception {
+		Options theOptions = new OptionsBuilder().include(
+				EPPCodecBenchmark.class.getSimpleName()).addProfiler("gc")
+				.build();
+		new Runner(theOptions).run();
+	}
+
+}
@@ -58,7 +58,8 @@ import com.verisign.epp.codec.gen.*;
  *
  * @see com.verisign.epp.codec.domain.EPPDomainCheckResp
  */
-public class EPPDomainCheckCmd extends EPPCheckCmd {
+public class EPPDomainCheckCmd extends EPPCheckCmd
+	implements EPPStreamEncodable {
 	/** Maximum number of domains to check at once. */
 	public static final int MAX_DOMAINS = 99;
 
@@ -264,6 +265,45 @@ public class EPPDomainCheckCmd extends EPPCheckCmd {
 
 	// End EPPDomainCheckCmd.doEncode(Document)
 
+	/**
+	 * Encode the attributes of the <code>EPPDomainCheckCmd</code> instance
+	 * to an <code>EPPXMLWriter</code>, which produces the same XML as
+	 * <code>doEncode(Document)</code>.
+	 *
+	 * @param aWriter Writer to encode the instance to.
+	 *
+	 * @exception EPPEncodeException Unable to encode
+	 * 			  <code>EPPDomainCheckCmd</code> instance.
+	 */
+	protected void doEncode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		if (names.size() == 0) {
+			throw new EPPEncodeException("No domains names specified in EPPDomainCheckCmd");
+		}
+
+		if (names.size() > MAX_DOMAINS) {
+			throw new EPPEncodeException(names.size()
+										 + " domain names is greater than the maximum of "
+										 + MAX_DOMAINS);
+		}
+
+		aWriter.startElement(EPPDomainMapFactory.NS, ELM_NAME);
+		aWriter.attribute("xmlns:domain", EPPDomainMapFactory.NS);
+		aWriter.attribute(
+						  EPPCodec.NS_XSI, "xsi:schemaLocation",
+						  EPPDomainMapFactory.NS_SCHEMA);
+
+		// Names
+		for (int i = 0; i < names.size(); i++) {
+			aWriter.element(
+							EPPDomainMapFactory.NS, ELM_DOMAIN_NAME,
+							(String) names.elementAt(i));
+		}
+
+		aWriter.endElement();
+	}
+
+	// End EPPDomainCheckCmd.doEncode(EPPXMLWriter)
+
 	/**
 	 * Decode the <code>EPPDomainCheckCmd</code> attributes from the aElement
 	 * DOM Element tree.
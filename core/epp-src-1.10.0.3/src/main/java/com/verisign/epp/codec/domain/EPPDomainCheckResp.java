@@ -72,7 +72,7 @@ import com.verisign.epp.codec.gen.*;
  * @see com.verisign.epp.codec.domain.EPPDomainCheckCmd
  * @see com.verisign.epp.codec.domain.EPPDomainCheckResult
  */
-public class EPPDomainCheckResp extends EPPResponse {
+public class EPPDomainCheckResp extends EPPResponse implements EPPStreamDecodable {
 	/** XML Element Name of <code>EPPDomainCheckResp</code> root element. */
 	final static String ELM_NAME = "domain:chkData";
 
@@ -302,4 +302,31 @@ public class EPPDomainCheckResp extends EPPResponse {
 									 EPPDomainCheckResult.class);
 	}
 
+
+	/**
+	 * Decode the <code>EPPDomainCheckResp</code> attributes from an
+	 * <code>EPPXMLReader</code> that is on the start tag of the response data
+	 * element.
+	 *
+	 * @param aReader Reader on the &ltdomain:chkData&gt start tag.
+	 *
+	 * @exception EPPDecodeException Unable to decode the response data
+	 */
+	protected void doDecode(EPPXMLReader aReader) throws EPPDecodeException {
+		// Results
+		this.results = new Vector();
+
+		while (aReader.nextElement()) {
+			if (aReader.isElement(EPPDomainMapFactory.NS,
+								  EPPDomainCheckResult.ELM_NAME)) {
+				EPPDomainCheckResult theResult = new EPPDomainCheckResult();
+				aReader.readComp(theResult);
+				this.results.addElement(theResult);
+			}
+			else {
+				aReader.skipElement();
+			}
+		}
+	}
+
 }
@@ -44,7 +44,7 @@ import com.verisign.epp.codec.gen.*;
  * 
  * @see com.verisign.epp.codec.domain.EPPDomainCheckResp
  */
-public class EPPDomainCheckResult implements EPPCodecComponent {
+public class EPPDomainCheckResult implements EPPCodecComponent, EPPStreamDecodable {
 	/** XML root tag name for <code>EPPDomainCheckResult</code>. */
 	final static String ELM_NAME = "domain:cd";
 
@@ -371,6 +371,58 @@ public class EPPDomainCheckResult implements EPPCodecComponent {
 
 	// End EPPDomainCheckResult.decode(Element)
 
+	/**
+	 * Decode the <code>EPPDomainCheckResult</code> attributes from an
+	 * <code>EPPXMLReader</code> that is on the start tag of the check result
+	 * element.
+	 *
+	 * @param aReader
+	 *            Reader on the check result start tag.
+	 *
+	 * @exception EPPDecodeException
+	 *                Unable to decode the check result.
+	 */
+	public void decode(EPPXMLReader aReader) throws EPPDecodeException {
+		boolean hasName = false;
+		boolean hasReason = false;
+
+		while (aReader.nextElement()) {
+			// Available
+			if (!hasName
+					&& aReader.isElement(EPPDomainMapFactory.NS, ELM_DOMAIN_NAME)) {
+				hasName = true;
+				this.available = aReader.getBooleanAttribute(ATTR_AVAIL);
+				this.name = aReader.getText();
+			}
+
+			// Domain Reason
+			else if (!hasReason
+					&& aReader.isElement(EPPDomainMapFactory.NS, ELM_DOMAIN_REASON)) {
+				hasReason = true;
+				String theLang = aReader.getAttribute(ATTR_LANG);
+
+				this.reason = aReader.getText();
+
+				if (theLang.length() > 0) {
+					if (!theLang.equals(VALUE_LANG)) {
+						setLanguage(theLang);
+					}
+				}
+			}
+			else {
+				aReader.skipElement();
+			}
+		}
+
+		if (!hasName) {
+			throw new EPPDecodeException(
+					"EPPDomainCheckResult.decode: Required element "
+							+ ELM_DOMAIN_NAME + " not found");
+		}
+	}
+
+	// End EPPDomainCheckResult.decode(EPPXMLReader)
+
 	/**
 	 * Compare an instance of <code>EPPDomainPingResp</code> with this instance.
 	 *
@@ -42,7 +42,8 @@ import com.verisign.epp.codec.gen.*;
  * @author $Author: jim $
  * @version $Revision: 1.2 $
  */
-public class EPPDomainContact implements EPPCodecComponent {
+public class EPPDomainContact implements EPPCodecComponent, EPPStreamEncodable,
+		EPPStreamDecodable {
 	/** Administrative Domain Contact */
 	public final static String TYPE_ADMINISTRATIVE = "admin";
 
@@ -174,6 +175,35 @@ public class EPPDomainContact implements EPPCodecComponent {
 
 	// End EPPDomainContact.encode(Document)
 
+	/**
+	 * Encode the attributes of the EPPDomainContact instance to an
+	 * <code>EPPXMLWriter</code>, which produces the same XML as
+	 * <code>encode(Document)</code>.
+	 *
+	 * @param aWriter - Writer to encode the instance to.
+	 *
+	 * @exception EPPEncodeException - Unable to encode EPPDomainContact
+	 * 			  instance.
+	 */
+	public void encode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		// Type
+		if (type == null) {
+			throw new EPPEncodeException("EPPDomainContact type is null on call to encode");
+		}
+
+		// Name
+		if (name == null) {
+			throw new EPPEncodeException("EPPDomainContact name is null on call to encode");
+		}
+
+		aWriter.startElement(EPPDomainMapFactory.NS, ELM_NAME);
+		aWriter.attribute(ATTR_TYPE, type);
+		aWriter.text(name);
+		aWriter.endElement();
+	}
+
+	// End EPPDomainContact.encode(EPPXMLWriter)
+
 	/**
 	 * Decode the EPPDomainContact attributes from the aElement DOM Element
 	 * tree.
@@ -192,6 +222,25 @@ public class EPPDomainContact implements EPPCodecComponent {
 
 	// End EPPDomainContact.decode(Element)
 
+	/**
+	 * Decode the EPPDomainContact attributes from an
+	 * <code>EPPXMLReader</code> that is on the start tag of the contact
+	 * element.
+	 *
+	 * @param aReader - Reader on the contact start tag.
+	 *
+	 * @exception EPPDecodeException - Unable to decode the contact.
+	 */
+	public void decode(EPPXMLReader aReader) throws EPPDecodeException {
+		// Type
+		type     = aReader.getAttribute(ATTR_TYPE);
+
+		// Name		
+		name = aReader.getText();
+	}
+
+	// End EPPDomainContact.decode(EPPXMLReader)
+
 	/**
 	 * implements a deep <code>EPPDomainContact</code> compare.
 	 *
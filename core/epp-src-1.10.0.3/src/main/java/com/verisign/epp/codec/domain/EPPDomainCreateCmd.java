@@ -29,12 +29,15 @@ import org.w3c.dom.Element;
 
 import com.verisign.epp.codec.gen.EPPAuthInfo;
 import com.verisign.epp.codec.gen.EPPCodec;
+import com.verisign.epp.codec.gen.EPPCodecComponent;
 import com.verisign.epp.codec.gen.EPPCodecException;
 import com.verisign.epp.codec.gen.EPPCreateCmd;
 import com.verisign.epp.codec.gen.EPPDecodeException;
 import com.verisign.epp.codec.gen.EPPEncodeException;
 import com.verisign.epp.codec.gen.EPPFactory;
+import com.verisign.epp.codec.gen.EPPStreamEncodable;
 import com.verisign.epp.codec.gen.EPPUtil;
+import com.verisign.epp.codec.gen.EPPXMLWriter;
 import com.verisign.epp.util.EPPCatFactory;
 
 
@@ -108,7 +111,8 @@ import com.verisign.epp.util.EPPCatFactory;
  *
  * @see com.verisign.epp.codec.domain.EPPDomainCreateResp
  */
-public class EPPDomainCreateCmd extends EPPCreateCmd {
+public class EPPDomainCreateCmd extends EPPCreateCmd
+	implements EPPStreamEncodable {
 	/** XML Element Name of <code>EPPDomainCreateCmd</code> root element. */
 	final static String ELM_NAME = "domain:create";
 
@@ -671,6 +675,95 @@ public class EPPDomainCreateCmd extends EPPCreateCmd {
 
 	// End EPPDomainCreateCmd.doEncode(Document)
 
+	/**
+	 * Encode the attributes of the EPPDomainCreateCmd instance to an
+	 * <code>EPPXMLWriter</code>, which produces the same XML as
+	 * <code>doEncode(Document)</code>.
+	 *
+	 * @param aWriter Writer to encode the instance to.
+	 *
+	 * @exception EPPEncodeException Unable to encode EPPDomainCreateCmd
+	 * 			  instance.
+	 */
+	protected void doEncode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		try {
+			//Validate States
+			validateState();
+		}
+		 catch (EPPCodecException e) {
+			cat.error("EPPDomainCreateCmd.doEncode(): Invalid state on encode: "
+					  + e);
+			throw new EPPEncodeException("EPPDomainCreateCmd invalid state: "
+										 + e);
+		}
+
+		if (
+			(contacts != null)
+				&& !EPPFactory.getInstance().hasService(EPPDomainMapFactory.NS_CONTACT)) {
+			throw new EPPEncodeException("Contacts specified when the Contact Mapping is not supported");
+		}
+
+		aWriter.startElement(EPPDomainMapFactory.NS, ELM_NAME);
+		aWriter.attribute("xmlns:domain", EPPDomainMapFactory.NS);
+		aWriter.attribute(
+						  EPPCodec.NS_XSI, "xsi:schemaLocation",
+						  EPPDomainMapFactory.NS_SCHEMA);
+
+		// Name
+		aWriter.element(EPPDomainMapFactory.NS, ELM_DOMAIN_NAME, name);
+
+		// Period with Attribute of Unit
+		if ((period != null) && !period.isPeriodUnspec()) {
+			aWriter.writeComp(period);
+		}
+
+		// Domain Name Servers
+		if ((this.servers != null) && (this.servers.size() > 0)) {
+			aWriter.startElement(EPPDomainMapFactory.NS, ELM_SERVER);
+
+			Object theNS = this.servers.get(0);
+
+			// Name Server Host objects?
+			if (theNS instanceof String) {
+				for (int i = 0; i < this.servers.size(); i++) {
+					aWriter.element(
+									EPPDomainMapFactory.NS, ELM_HOST_OBJ,
+									(String) this.servers.get(i));
+				}
+			}
+
+			// Name Server Host attributes?
+			else if (theNS instanceof EPPHostAttr) {
+				for (int i = 0; i < this.servers.size(); i++) {
+					aWriter.writeComp((EPPHostAttr) this.servers.get(i));
+				}
+			}
+			else {
+				throw new EPPEncodeException("EPPDomainCreateCmd.encode: Invalid NS server class "
+											 + theNS.getClass().getName());
+			}
+
+			aWriter.endElement();
+		}
+
+		// Registrant
+		aWriter.element(EPPDomainMapFactory.NS, ELM_REGISTRANT, registrant);
+
+		// Contacts
+		if (contacts != null) {
+			for (int i = 0; i < contacts.size(); i++) {
+				aWriter.writeComp((EPPCodecComponent) contacts.elementAt(i));
+			}
+		}
+
+		// authInfo
+		aWriter.writeComp(authInfo);
+
+		aWriter.endElement();
+	}
+
+	// End EPPDomainCreateCmd.doEncode(EPPXMLWriter)
+
 	/**
 	 * Decode the EPPDomainCreateCmd attributes from the aElement DOM Element
 	 * tree.
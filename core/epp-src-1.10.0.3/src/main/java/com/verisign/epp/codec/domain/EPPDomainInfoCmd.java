@@ -31,7 +31,9 @@ import com.verisign.epp.codec.gen.EPPCodec;
 import com.verisign.epp.codec.gen.EPPDecodeException;
 import com.verisign.epp.codec.gen.EPPEncodeException;
 import com.verisign.epp.codec.gen.EPPInfoCmd;
+import com.verisign.epp.codec.gen.EPPStreamEncodable;
 import com.verisign.epp.codec.gen.EPPUtil;
+import com.verisign.epp.codec.gen.EPPXMLWriter;
 import com.verisign.epp.util.EPPCatFactory;
 
 
@@ -63,7 +65,8 @@ import com.verisign.epp.util.EPPCatFactory;
  *
  * @see com.verisign.epp.codec.domain.EPPDomainInfoResp
  */
-public class EPPDomainInfoCmd extends EPPInfoCmd {
+public class EPPDomainInfoCmd extends EPPInfoCmd
+	implements EPPStreamEncodable {
 	/**
 	 * Constant on a call to <code>setHosts</code> to  get information on all
 	 * hosts (delegated and subordinate). This is the default settings.
@@ -233,6 +236,45 @@ public class EPPDomainInfoCmd extends EPPInfoCmd {
 	}
 
 
+	/**
+	 * Encode the attributes of the <code>EPPDomainInfoCmd</code> instance to
+	 * an <code>EPPXMLWriter</code>, which produces the same XML as
+	 * <code>doEncode(Document)</code>.
+	 *
+	 * @param aWriter Writer to encode the instance to.
+	 *
+	 * @exception EPPEncodeException Unable to encode
+	 * 			  <code>EPPDomainInfoCmd</code> instance.
+	 */
+	protected void doEncode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		// Validate state
+		if (name == null) {
+			throw new EPPEncodeException("required attribute name is not set");
+		}
+
+		aWriter.startElement(EPPDomainMapFactory.NS, ELM_NAME);
+		aWriter.attribute(
+						  EPPCodec.NS_XSI, "xsi:schemaLocation",
+						  EPPDomainMapFactory.NS_SCHEMA);
+
+		// Name
+		aWriter.startElement(EPPDomainMapFactory.NS, ELM_DOMAIN_NAME);
+
+		// Non-default hosts option specified?
+		if (hosts != null) {
+			aWriter.attribute(ATTR_HOSTS, hosts);
+		}
+
+		aWriter.text(name);
+		aWriter.endElement();
+
+		// Authorization Info
+		aWriter.writeComp(authInfo);
+
+		aWriter.endElement();
+	}
+
+
 	/**
 	 * Decode the <code>EPPDomainInfoCmd</code> attributes from the aElement
 	 * DOM Element tree.
@@ -43,8 +43,10 @@ import com.verisign.epp.codec.gen.EPPDecodeException;
 import com.verisign.epp.codec.gen.EPPEncodeException;
 import com.verisign.epp.codec.gen.EPPFactory;
 import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.codec.gen.EPPStreamDecodable;
 import com.verisign.epp.codec.gen.EPPTransId;
 import com.verisign.epp.codec.gen.EPPUtil;
+import com.verisign.epp.codec.gen.EPPXMLReader;
 import com.verisign.epp.util.EPPCatFactory;
 
 /**
@@ -122,7 +124,7 @@ import com.verisign.epp.util.EPPCatFactory;
  *
  * @see com.verisign.epp.codec.domain.EPPDomainInfoCmd
  */
-public class EPPDomainInfoResp extends EPPResponse {
+public class EPPDomainInfoResp extends EPPResponse implements EPPStreamDecodable {
 	/**
 	 *
 	 */
@@ -1090,6 +1092,195 @@ public class EPPDomainInfoResp extends EPPResponse {
 				EPPAuthInfo.class);
 	}
 
+	/**
+	 * Decode the <code>EPPDomainInfoResp</code> attributes from an
+	 * <code>EPPXMLReader</code> that is on the start tag of the response data
+	 * element. The attributes are set like in <code>doDecode(Element)</code>,
+	 * where the first of a single occurrence element is used.
+	 *
+	 * @param aReader
+	 *            Reader on the &ltdomain:infData&gt start tag.
+	 *
+	 * @exception EPPDecodeException
+	 *                Unable to decode the response data
+	 */
+	protected void doDecode(EPPXMLReader aReader) throws EPPDecodeException {
+		this.name = null;
+		this.roid = null;
+		this.statuses = new Vector();
+		this.registrant = null;
+		this.contacts = new Vector();
+		this.hosts = new Vector();
+		this.clientId = null;
+		this.createdBy = null;
+		this.createdDate = null;
+		this.expirationDate = null;
+		this.lastUpdatedBy = null;
+		this.lastUpdatedDate = null;
+		this.lastTransferDate = null;
+		this.authInfo = null;
+
+		boolean hasServers = false;
+
+		while (aReader.nextElement()) {
+			// Element of another namespace
+			if (!EPPDomainMapFactory.NS.equals(aReader.getNamespaceURI())) {
+				aReader.skipElement();
+			}
+
+			// Name
+			else if (this.name == null
+					&& aReader.isElement(EPPDomainMapFactory.NS, ELM_DOMAIN_NAME)) {
+				this.name = aReader.getText();
+			}
+
+			// roid
+			else if (this.roid == null
+					&& aReader.isElement(EPPDomainMapFactory.NS, ELM_ROID)) {
+				this.roid = aReader.getText();
+			}
+
+			// Statuses
+			else if (aReader.isElement(EPPDomainMapFactory.NS, ELM_STATUS)) {
+				EPPDomainStatus theStatus = new EPPDomainStatus();
+				aReader.readComp(theStatus);
+				this.statuses.addElement(theStatus);
+			}
+
+			// registant
+			else if (this.registrant == null
+					&& aReader.isElement(EPPDomainMapFactory.NS, ELM_REGISTRANT)) {
+				this.registrant = aReader.getText();
+			}
+
+			// Contacts
+			else if (aReader.isElement(EPPDomainMapFactory.NS, ELM_CONTACT)) {
+				EPPDomainContact theContact = new EPPDomainContact();
+				aReader.readComp(theContact);
+				this.contacts.addElement(theContact);
+			}
+
+			// name servers
+			else if (!hasServers
+					&& aReader.isElement(EPPDomainMapFactory.NS, ELM_NS)) {
+				hasServers = true;
+				decodeServers(aReader);
+			}
+
+			// Child Servers
+			else if (aReader.isElement(EPPDomainMapFactory.NS, ELM_HOST)) {
+				this.hosts.addElement(aReader.getText());
+			}
+
+			// Client Id
+			else if (this.clientId == null
+					&& aReader.isElement(EPPDomainMapFactory.NS, ELM_CLID)) {
+				this.clientId = aReader.getText();
+			}
+
+			// Created By
+			else if (this.createdBy == null
+					&& aReader.isElement(EPPDomainMapFactory.NS, ELM_CRID)) {
+				this.createdBy = aReader.getText();
+			}
+
+			// Created Date
+			else if (this.createdDate == null
+					&& aReader.isElement(EPPDomainMapFactory.NS, ELM_CRDATE)) {
+				this.createdDate = aReader.getTimeInstant();
+			}
+
+			// Expiration Date
+			else if (this.expirationDate == null
+					&& aReader.isElement(EPPDomainMapFactory.NS, ELM_EXDATE)) {
+				this.expirationDate = aReader.getTimeInstant();
+			}
+
+			// Last Updated By
+			else if (this.lastUpdatedBy == null
+					&& aReader.isElement(EPPDomainMapFactory.NS, ELM_UPID)) {
+				this.lastUpdatedBy = aReader.getText();
+			}
+
+			// Last Updated Date
+			else if (this.lastUpdatedDate == null
+					&& aReader.isElement(EPPDomainMapFactory.NS, ELM_UPDATE)) {
+				this.lastUpdatedDate = aReader.getTimeInstant();
+			}
+
+			// Last Transfer Date
+			else if (this.lastTransferDate == null
+					&& aReader.isElement(EPPDomainMapFactory.NS, ELM_TRDATE)) {
+				this.lastTransferDate = aReader.getTimeInstant();
+			}
+
+			// Authorization Info
+			else if (this.authInfo == null
+					&& aReader.isElement(EPPDomainMapFactory.NS,
+							EPPDomainMapFactory.ELM_DOMAIN_AUTHINFO)) {
+				this.authInfo = new EPPAuthInfo();
+				aReader.readComp(this.authInfo);
+			}
+			else {
+				aReader.skipElement();
+			}
+		}
+
+		if (this.contacts.size() == 0) {
+			this.contacts = null;
+		}
+	}
+
+	/**
+	 * Decode the name servers from an <code>EPPXMLReader</code> that is on the
+	 * &ltdomain:ns&gt start tag, which contains either host object names or
+	 * host attributes.
+	 *
+	 * @param aReader
+	 *            Reader on the &ltdomain:ns&gt start tag.
+	 *
+	 * @exception EPPDecodeException
+	 *                Unable to decode the name servers
+	 */
+	private void decodeServers(EPPXMLReader aReader) throws EPPDecodeException {
+		Vector theServers = null;
+		boolean isHostObj = false;
+
+		while (aReader.nextElement()) {
+			if (theServers == null) {
+				if (aReader.getLocalName()
+						.equals(EPPUtil.getLocalName(ELM_HOST_OBJ))) {
+					isHostObj = true;
+				}
+				else if (!aReader.getLocalName()
+						.equals(EPPUtil.getLocalName(ELM_HOST_ATTR))) {
+					throw new EPPDecodeException(
+							"EPPDomainInfoResp.doDecode: Invalid host child element "
+									+ aReader.getLocalName());
+				}
+				theServers = new Vector();
+			}
+
+			if (isHostObj
+					&& aReader.isElement(EPPDomainMapFactory.NS, ELM_HOST_OBJ)) {
+				theServers.addElement(aReader.getText());
+			}
+			else if (!isHostObj
+					&& aReader.isElement(EPPDomainMapFactory.NS, ELM_HOST_ATTR)) {
+				EPPHostAttr theHostAttr = new EPPHostAttr();
+				aReader.readComp(theHostAttr);
+				theServers.addElement(theHostAttr);
+			}
+			else {
+				aReader.skipElement();
+			}
+		}
+
+		if (theServers != null) {
+			this.nses = theServers;
+		}
+	}
+
 	/**
 	 * Validate the state of the <code>EPPDomainInfoResp</code> instance. A
 	 * valid state means that all of the required attributes have been set. If
@@ -48,7 +48,8 @@ import com.verisign.epp.codec.gen.*;
  * @version $Revision: 1.2 $
  */
 public class EPPDomainPeriod
-	implements com.verisign.epp.codec.gen.EPPCodecComponent {
+	implements com.verisign.epp.codec.gen.EPPCodecComponent,
+			   EPPStreamEncodable {
 	/** Period in Unit Month */
 	public final static java.lang.String PERIOD_UNIT_MONTH = "m";
 
@@ -203,6 +204,30 @@ public class EPPDomainPeriod
 
 	// End EPPDomainPeriod.encode(Document)
 
+	/**
+	 * Encode the attributes of the EPPDomainPeriod instance to an
+	 * <code>EPPXMLWriter</code>, which produces the same XML as
+	 * <code>encode(Document)</code>.
+	 *
+	 * @param aWriter - Writer to encode the instance to.
+	 *
+	 * @exception EPPEncodeException - Unable to encode EPPDomainPeriod
+	 * 			  instance.
+	 */
+	public void encode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		// Check the Period unit
+		if (pUnit == null) {
+			throw new EPPEncodeException("EPPDomainPeriod: Period Unit should not be null");
+		}
+
+		aWriter.startElement(EPPDomainMapFactory.NS, ELM_NAME);
+		aWriter.attribute(ELM_PERIOD_UNIT, pUnit);
+		aWriter.text(period + "");
+		aWriter.endElement();
+	}
+
+	// End EPPDomainPeriod.encode(EPPXMLWriter)
+
 	/**
 	 * implements a deep <code>EPPDomainPeriod</code> compare.
 	 *
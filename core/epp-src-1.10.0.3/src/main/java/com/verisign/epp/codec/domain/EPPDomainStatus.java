@@ -95,7 +95,8 @@ import com.verisign.epp.codec.gen.*;
  * </ul>
  */
 public class EPPDomainStatus
-	implements com.verisign.epp.codec.gen.EPPCodecComponent {
+	implements com.verisign.epp.codec.gen.EPPCodecComponent,
+			   EPPStreamDecodable {
 	/** Value of the OK status in domain mapping */
 	public final static java.lang.String ELM_STATUS_OK = "ok";
 
@@ -285,6 +286,36 @@ public class EPPDomainStatus
 
 	// End EPPDomainStatus.doDecode(Element)
 
+	/**
+	 * Decode the EPPDomainStatus attributes from an <code>EPPXMLReader</code>
+	 * that is on the start tag of the status element.
+	 *
+	 * @param aReader - Reader on the status start tag.
+	 *
+	 * @exception EPPDecodeException Unable to decode the status
+	 */
+	public void decode(EPPXMLReader aReader) throws EPPDecodeException {
+		// Status
+		status = aReader.getAttribute(ELM_STATUS);
+
+		String theLang = aReader.getAttribute(ELM_LANG);
+
+		// Description
+		String theDesc = aReader.getText();
+
+		if (theDesc.length() > 0) {
+			description     = theDesc;
+
+			// Description Language
+			if (theLang.equals(""))
+				lang = ELM_DEFAULT_LANG;
+			else
+				lang = theLang;
+		}
+	}
+
+	// End EPPDomainStatus.decode(EPPXMLReader)
+
 	/**
 	 * Encode a DOM Element tree from the attributes of the EPPDomainStatus
 	 * instance.
@@ -38,6 +38,7 @@ import com.verisign.epp.codec.gen.EPPCodecTst;
 import com.verisign.epp.codec.gen.EPPCommand;
 import com.verisign.epp.codec.gen.EPPEncodeDecodeStats;
 import com.verisign.epp.codec.gen.EPPFactory;
+import com.verisign.epp.codec.gen.EPPMsgQueue;
 import com.verisign.epp.codec.gen.EPPResponse;
 import com.verisign.epp.codec.gen.EPPResult;
 import com.verisign.epp.codec.gen.EPPTransId;
@@ -732,4 +733,78 @@ public class EPPDomainTst extends TestCase {
 	}
 
 	// End EPPDomainTst.testDomainCheck()
+
+	/**
+	 * Benchmark of the stream decoding with <code>EPPXMLReader</code> of the
+	 * high-volume responses <code>EPPDomainCheckResp</code>,
+	 * <code>EPPDomainInfoResp</code>, and the poll response with a message
+	 * queue, against the DOM decoding, with and without validation.<br>
+	 * This test will be invoked by JUNIT, since it is prefixed with "test"
+	 * and is a public method.
+	 */
+	public void testDomainStreamDecode() {
+		EPPCodecTst.printStart("testDomainStreamDecode");
+
+		EPPTransId respTransId = new EPPTransId("ABC-12345", "54321-XYZ");
+
+		// Domain Check Response
+		Vector domainResults = new Vector();
+		domainResults.addElement(new EPPDomainCheckResult("example1.com", true));
+
+		EPPDomainCheckResult domainResult =
+			new EPPDomainCheckResult("example2.com", false);
+		domainResult.setDomainReason("In Use");
+		domainResult.setLanguage("fr");
+		domainResults.addElement(domainResult);
+
+		domainResults.addElement(new EPPDomainCheckResult("example3.com", true));
+
+		EPPDomainCheckResp theCheckResponse =
+			new EPPDomainCheckResp(respTransId, domainResults);
+		theCheckResponse.setResult(EPPResult.SUCCESS);
+
+		EPPCodecTst.benchmarkDecode(theCheckResponse, 1000);
+
+		// Domain Info Response
+		Vector statuses = new Vector();
+		statuses.addElement(new EPPDomainStatus(EPPDomainStatus.ELM_STATUS_OK));
+
+		EPPDomainInfoResp theInfoResponse =
+			new EPPDomainInfoResp(
+								  respTransId, "EXAMPLE1-VRSN", "example.com",
+								  "ClientX", statuses, "ClientY", new Date(),
+								  new EPPAuthInfo("2fooBAR"));
+		theInfoResponse.setRegistrant("JD1234-VRSN");
+
+		Vector servers = new Vector();
+		servers.addElement("ns1.example.com");
+		servers.addElement("ns2.example.com");
+		theInfoResponse.setNses(servers);
+
+		Vector hosts = new Vector();
+		hosts.addElement("ns1.example.com");
+		hosts.addElement("ns2.example.com");
+		theInfoResponse.setHosts(hosts);
+
+		theInfoResponse.setLastUpdatedBy("ClientX");
+		theInfoResponse.setLastUpdatedDate(new Date());
+		theInfoResponse.setLastTransferDate(new Date());
+		theInfoResponse.setResult(EPPResult.SUCCESS);
+
+		EPPCodecTst.benchmarkDecode(theInfoResponse, 1000);
+
+		// Poll Response with message
+		EPPResponse thePollResponse = new EPPResponse(respTransId);
+		thePollResponse.setResult(EPPResult.SUCCESS_POLL_MSG);
+		thePollResponse.setMsgQueue(new EPPMsgQueue(
+													new Long(5), "12345",
+													new Date(),
+													"Transfer request pending"));
+
+		EPPCodecTst.benchmarkDecode(thePollResponse, 1000);
+
+		EPPCodecTst.printEnd("testDomainStreamDecode");
+	}
+
+	// End EPPDomainTst.testDomainStreamDecode()
 }
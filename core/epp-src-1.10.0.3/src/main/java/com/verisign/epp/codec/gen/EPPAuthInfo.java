@@ -40,7 +40,8 @@ import com.verisign.epp.util.EPPCatFactory;
  * structure is a direct mapping from the data type <code>authInfo</code> in
  * the EPP Shared Structure Schema (with the name space <code>eppcom</code>).
  */
-public class EPPAuthInfo implements com.verisign.epp.codec.gen.EPPCodecComponent {
+public class EPPAuthInfo implements com.verisign.epp.codec.gen.EPPCodecComponent,
+		EPPStreamEncodable, EPPStreamDecodable {
 	/** password auth info type */
 	public final static short TYPE_PW = 0;
 
@@ -381,6 +382,68 @@ public class EPPAuthInfo implements com.verisign.epp.codec.gen.EPPCodecComponent
 	}
 
 
+	/**
+	 * Decode the EPPAuthInfo attributes from an <code>EPPXMLReader</code>
+	 * that is on the start tag of the auth info element.
+	 *
+	 * @param aReader - Reader on the auth info start tag.
+	 *
+	 * @exception EPPDecodeException - Unable to decode the auth info.
+	 */
+	public void decode(EPPXMLReader aReader) throws EPPDecodeException {
+		// root name
+		this.setRootName(aReader.getNamespaceURI(), aReader.getName());
+
+		// password provided?
+		if (!aReader.nextElement()) {
+			throw new EPPDecodeException("EPPAuthInfo.decode could not find type child element");						
+		}
+		else if (aReader.getLocalName().equals(ELM_PW)) {
+			this.type = TYPE_PW;
+			
+			// Get roid
+			if (aReader.getAttribute(ATTR_ROID).equals("")) {
+				this.roid = null;
+			}
+			else {
+				this.roid = aReader.getAttribute(ATTR_ROID);
+			}
+
+			// Get password value
+			this.password = aReader.getText();
+		} // extension type
+		else if (aReader.getLocalName().equals(ELM_EXT)){
+			this.type = TYPE_EXT;
+			
+			if (!aReader.nextElement()) {
+				throw new EPPDecodeException("EPPAuthInfo.decode could not find authInfo extension element");
+			}
+
+			Element theExtElm = aReader.readElement();
+			
+			// Create extension 
+			try {
+				this.ext =
+					EPPFactory.getInstance().createExtension(theExtElm);
+			}
+			 catch (EPPCodecException e) {
+				throw new EPPDecodeException("EPPAuthInfo.decode unable to create authInfo extension object: "
+											 + e);
+			}
+			this.ext.decode(theExtElm);
+
+			aReader.skipElement();
+		}
+		else {
+			throw new EPPDecodeException("EPPAuthInfo.decode invalid type child element tag name of " + aReader.getName());						
+		}
+
+		aReader.skipElement();
+	}
+
+	// End EPPAuthInfo.decode(EPPXMLReader)
+
+
 	/**
 	 * Encode a DOM Element tree from the attributes of the EPPAuthInfo
 	 * instance.
@@ -445,6 +508,64 @@ public class EPPAuthInfo implements com.verisign.epp.codec.gen.EPPCodecComponent
 
 	// End EPPAuthInfo.encode(Document)
 
+	/**
+	 * Encode the attributes of the EPPAuthInfo instance to an
+	 * <code>EPPXMLWriter</code>, which produces the same XML as
+	 * <code>encode(Document)</code>.
+	 *
+	 * @param aWriter - Writer to encode the instance to.
+	 *
+	 * @exception EPPEncodeException - Unable to encode EPPAuthInfo instance.
+	 */
+	public void encode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		String nsPrefix = EPPUtil.getPrefix(this.rootName);
+		if (nsPrefix.length() != 0) {
+			nsPrefix = nsPrefix + ":";
+		}
+
+		switch (this.type) {
+			case TYPE_PW:
+
+				if (this.password == null) {
+					throw new EPPEncodeException("EPPAuthInfo: password is null on call to encode");
+				}
+
+				aWriter.startElement(this.rootNS, this.rootName);
+				aWriter.startElement(this.rootNS, nsPrefix + ELM_PW);
+
+				// roid
+				if (this.roid != null) {
+					aWriter.attribute(ATTR_ROID, this.roid);
+				}
+
+				aWriter.text(this.password);
+				aWriter.endElement();
+				aWriter.endElement();
+
+				break;
+
+			case TYPE_EXT:
+
+				if (this.ext == null) {
+					throw new EPPEncodeException("EPPAuthInfo: ext is null on call to encode");
+				}
+
+				aWriter.startElement(this.rootNS, this.rootName);
+				aWriter.startElement(this.rootNS, nsPrefix + ELM_EXT);
+				aWriter.writeComp(this.ext);
+				aWriter.endElement();
+				aWriter.endElement();
+
+				break;
+
+			default:
+				throw new EPPEncodeException("EPPAuthInfo: invalid type"
+											 + this.type);
+		}
+	}
+
+	// End EPPAuthInfo.encode(EPPXMLWriter)
+
 	/**
 	 * implements a deep <code>EPPAuthInfo</code> compare.
 	 *
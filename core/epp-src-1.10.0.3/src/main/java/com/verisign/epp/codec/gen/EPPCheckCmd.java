@@ -133,6 +133,28 @@ public abstract class EPPCheckCmd extends EPPCommand {
 
 	// End EPPCheckCmd.doGenEncode(Document)
 
+	/**
+	 * Encodes the general command element of the
+	 * <code>EPPCheckCmd</code> instance to an <code>EPPXMLWriter</code>, which is
+	 * the stream counterpart of <code>doGenEncode(Document)</code>.  The
+	 * command mapping is encoded with <code>doEncode(EPPXMLWriter)</code>.
+	 *
+	 * @param aWriter Writer to encode the command to
+	 *
+	 * @exception EPPEncodeException Unable to encode <code>EPPCheckCmd</code>
+	 * 			  instance.
+	 */
+	protected void doGenEncode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		aWriter.startElement(EPPCodec.NS, ELM_NAME);
+
+		// Command Mapping
+		doEncode(aWriter);
+
+		aWriter.endElement();
+	}
+
+	// End EPPCheckCmd.doGenEncode(EPPXMLWriter)
+
 	/**
 	 * Decodes the <code>EPPCheckCmd</code> attributes from the
 	 * <code>aElement</code> DOM Element tree.      This method is a member of
@@ -21,7 +21,9 @@ package com.verisign.epp.codec.gen;
 
 
 // Log4j Imports
+import java.util.Arrays;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 import org.apache.xerces.dom.DocumentImpl;
@@ -106,6 +108,18 @@ public class EPPCodec {
 	/** Name for the EPP root element. */
 	private final String ELM_EPP = "epp";
 
+	/**
+	 * Cache of whether an <code>EPPCodecComponent</code> class declares
+	 * <code>EPPStreamEncodable</code>.
+	 */
+	private final ConcurrentHashMap<Class, Boolean> streamEncodable = new ConcurrentHashMap<Class, Boolean>();
+
+	/**
+	 * Cache of whether an <code>EPPCodecComponent</code> class declares
+	 * <code>EPPStreamDecodable</code>.
+	 */
+	private final ConcurrentHashMap<Class, Boolean> streamDecodable = new ConcurrentHashMap<Class, Boolean>();
+
 
 	/**
 	 * allocates the Singleton <code>EPPCodec</code> instance.  The XML Parser
@@ -234,6 +248,101 @@ public class EPPCodec {
 	}
 
 
+	/**
+	 * Can the <code>EPPCodecComponent</code> be encoded with
+	 * <code>EPPStreamEncodable.encode(EPPXMLWriter)</code> without building
+	 * its DOM Element?  This is the case when the class of the component
+	 * declares <code>EPPStreamEncodable</code> itself, so a subclass that
+	 * only overrides the DOM encoding is not streamed.
+	 *
+	 * @param aComponent Concrete <code>EPPMessage</code> or other
+	 * 		  <code>EPPCodecComponent</code> to encode.
+	 *
+	 * @return <code>true</code> if the component is stream encodable;
+	 * 		   <code>false</code> otherwise.
+	 */
+	public boolean isStreamEncodable(EPPCodecComponent aComponent) {
+		if (!(aComponent instanceof EPPStreamEncodable)) {
+			return false;
+		}
+
+		Class theClass = aComponent.getClass();
+		Boolean theResult = this.streamEncodable.get(theClass);
+
+		if (theResult == null) {
+			theResult = Boolean.valueOf(Arrays.asList(theClass.getInterfaces())
+					.contains(EPPStreamEncodable.class));
+			this.streamEncodable.put(theClass, theResult);
+		}
+
+		return theResult.booleanValue();
+	}
+
+
+	/**
+	 * Can the <code>EPPCodecComponent</code> be decoded with
+	 * <code>EPPStreamDecodable.decode(EPPXMLReader)</code> without building
+	 * its DOM Element?  This is the case when the class of the component
+	 * declares <code>EPPStreamDecodable</code> itself, so a subclass that
+	 * only overrides the DOM decoding is not streamed.
+	 *
+	 * @param aComponent Concrete <code>EPPMessage</code> or other
+	 * 		  <code>EPPCodecComponent</code> to decode.
+	 *
+	 * @return <code>true</code> if the component is stream decodable;
+	 * 		   <code>false</code> otherwise.
+	 */
+	public boolean isStreamDecodable(EPPCodecComponent aComponent) {
+		if (!(aComponent instanceof EPPStreamDecodable)) {
+			return false;
+		}
+
+		Class theClass = aComponent.getClass();
+		Boolean theResult = this.streamDecodable.get(theClass);
+
+		if (theResult == null) {
+			theResult = Boolean.valueOf(Arrays.asList(theClass.getInterfaces())
+					.contains(EPPStreamDecodable.class));
+			this.streamDecodable.put(theClass, theResult);
+		}
+
+		return theResult.booleanValue();
+	}
+
+
+	/**
+	 * encodes a concrete <code>EPPMessage</code> as an XML document to
+	 * <code>aWriter</code>, which produces the same XML as serializing the
+	 * DOM Document of {@link #encode(EPPMessage)}.  A message that is not
+	 * {@link #isStreamEncodable(EPPCodecComponent)} is encoded to DOM and written
+	 * with <code>EPPXMLWriter.writeNode</code>.
+	 *
+	 * @param aMessage Concrete <code>EPPMessage</code> to encode.
+	 * @param aWriter Writer to encode the message to
+	 *
+	 * @exception EPPEncodeException Error encoding the
+	 * 			  <code>EPPMessage</code>.
+	 */
+	public void encode(EPPMessage aMessage, EPPXMLWriter aWriter)
+				throws EPPEncodeException {
+		aWriter.startDocument();
+
+		// Root EPP element
+		aWriter.startElement(EPPCodec.NS, ELM_EPP);
+		aWriter.attribute("xmlns:xsi", NS_XSI);
+		aWriter.attribute(NS_XSI, "xsi:schemaLocation", NS_SCHEMA);
+
+		if (isStreamEncodable(aMessage)) {
+			((EPPStreamEncodable) aMessage).encode(aWriter);
+		}
+		else {
+			aWriter.writeNode(aMessage.encode(new DocumentImpl()));
+		}
+
+		aWriter.endElement();
+	}
+
+
 	/**
 	 * decodes a DOM Document into a concrete <code>EPPMessage</code>.
 	 *
@@ -425,6 +534,51 @@ public class EPPCodec {
 	}
 
 
+	/**
+	 * decodes an XML document from <code>aReader</code> into a concrete
+	 * <code>EPPMessage</code>, which produces the same message as
+	 * {@link #decode(Element)}.  A response is decoded directly from the
+	 * reader with the <code>EPPStreamDecodable</code> components, and any
+	 * other message is read into DOM and decoded with
+	 * <code>decode(Element)</code>.  The reader does not validate the
+	 * document.
+	 *
+	 * @param aReader Reader positioned before the root element
+	 *
+	 * @return Decoded concrete <code>EPPMessage</code>.
+	 *
+	 * @exception EPPDecodeException Error decoding the document.
+	 * @exception EPPComponentNotFoundException A component could not be found which could be 
+	 * a command, response, or extension component.
+	 */
+	public EPPMessage decode(EPPXMLReader aReader) throws EPPDecodeException, EPPComponentNotFoundException {
+		// Validate root element attribute values
+		if (!aReader.nextElement() || !aReader.isElement(EPPCodec.NS, ELM_EPP)) {
+			throw new EPPDecodeException("Invalid root element NS = "
+					+ aReader.getNamespaceURI() + ", name = "
+					+ aReader.getLocalName());
+		}
+
+		// Handle Message Type
+		if (!aReader.nextElement()) {
+			throw new EPPDecodeException("No element child was found from the root node");
+		}
+
+		// Response?
+		if (aReader.isElement(EPPCodec.NS, EPPResponse.ELM_NAME)) {
+			return EPPResponse.decode(aReader, null);
+		}
+
+		// Other messages are decoded with DOM
+		Element messageType = aReader.readElement();
+		Element root = messageType.getOwnerDocument().createElementNS(
+				EPPCodec.NS, ELM_EPP);
+		root.appendChild(messageType);
+
+		return decode(root);
+	}
+
+
 	/**
 	 * utility method that will decode a DOM Document and return an
 	 * <code>EPPCommand</code> instance.     An
@@ -57,6 +57,7 @@ import org.w3c.dom.Text;
 import org.xml.sax.ErrorHandler;
 
 import com.verisign.epp.util.EPPSchemaCachingParser;
+import com.verisign.epp.util.EPPSchemaCachingValidator;
 import com.verisign.epp.util.Environment;
 import com.verisign.epp.util.TestErrorHandler;
 import com.verisign.epp.util.TestThread;
@@ -757,6 +758,10 @@ public class EPPCodecTst extends TestCase {
 				// EPPMessage's not equal?
 				assertEquals(aMessage, decodedMessage);
 
+				// Stream Decoding
+				assertEquals(aMessage, codec.decode(new EPPXMLReader(byteOut
+																	 .toByteArray())));
+
 				// Write format to stats
 				if (retStats.getXmlFormat() == null) {
 					retStats.setXmlFormat(byteOut.toByteArray());
@@ -800,6 +805,10 @@ public class EPPCodecTst extends TestCase {
 				// EPPMessage's not equal?
 				assertEquals(aMessage, decodedMessage);
 
+				// Stream Decoding
+				assertEquals(aMessage, codec.decode(new EPPXMLReader(byteOut
+																	 .toByteArray())));
+
 				// Write format to stats
 				if (retStats.getXmlFormat() == null) {
 					retStats.setXmlFormat(byteOut.toByteArray());
@@ -821,6 +830,32 @@ public class EPPCodecTst extends TestCase {
 							+ retStats.getName() + ": " + e);
 			}
 
+			// Stream Encoding
+			if (codec.isStreamEncodable(aMessage)) {
+				try {
+					// EPPMessage -> XML
+					EPPXMLWriter theWriter = new EPPXMLWriter();
+					theWriter.reset(0);
+					codec.encode(aMessage, theWriter);
+
+					// De-serialize XML
+					Document decodedDoc =
+						parser.parse(new ByteArrayInputStream(theWriter
+															  .toByteArray()));
+
+					// Document -> EPPMessage
+					EPPMessage decodedMessage = codec.decode(decodedDoc);
+
+					// EPPMessage's not equal?
+					assertEquals(aMessage, decodedMessage);
+				}
+				 catch (Exception e) {
+					e.printStackTrace();
+					Assert.fail("Stream encoding of " + retStats.getName()
+								+ ": " + e);
+				}
+			}
+
 			// Java Serialization
 			try {
 				retStats.startSerialTimer();
@@ -870,6 +905,83 @@ public class EPPCodecTst extends TestCase {
 		return retStats;
 	} // End EPPCodecTst.testEncodeDecode(EPPMessage)
 
+	/**
+	 * Benchmarks the decoding of the XML of <code>aMessage</code> with the
+	 * DOM path, which parses with <code>EPPSchemaCachingParser</code> and
+	 * decodes the DOM Document, against the stream decoding with
+	 * <code>EPPXMLReader</code>, both without validation and with the
+	 * <code>EPPSchemaCachingValidator</code> SAX validation that is used
+	 * when <code>EPP.Validating</code> is enabled.  The average time per
+	 * decode of each path is printed to standard out.
+	 *
+	 * @param aMessage EPP Message to decode
+	 * @param aIterations Number of decodes per path, which are preceded by
+	 * 		  the same number of warm up decodes
+	 */
+	public static void benchmarkDecode(EPPMessage aMessage, int aIterations) {
+		EPPCodec codec = EPPCodec.getInstance();
+
+		try {
+			byte[] theXml = EPPUtil.toStringNoIndent(codec.encode(aMessage)
+													 .getDocumentElement())
+											 .getBytes("UTF-8");
+
+			DocumentBuilder parser = new EPPSchemaCachingParser();
+			parser.setErrorHandler(xmlErrorHandler);
+			EPPSchemaCachingValidator validator =
+				new EPPSchemaCachingValidator();
+			EPPXMLReader reader = new EPPXMLReader();
+
+			long[] theTimes = new long[3];
+
+			for (int theRun = 0; theRun < 2; theRun++) {
+				for (int thePath = 0; thePath < 3; thePath++) {
+					long theStart = System.nanoTime();
+
+					for (int i = 0; i < aIterations; i++) {
+						EPPMessage decodedMessage;
+
+						if (thePath == 0) {
+							decodedMessage =
+								codec.decode(parser.parse(new ByteArrayInputStream(theXml)));
+						}
+						else {
+							if (thePath == 2) {
+								validator.validate(theXml, 0, theXml.length);
+							}
+
+							reader.setInput(theXml, 0, theXml.length);
+							decodedMessage = codec.decode(reader);
+						}
+
+						if (i == 0) {
+							assertEquals(aMessage, decodedMessage);
+						}
+					}
+
+					// Only time the second run
+					if (theRun == 1) {
+						theTimes[thePath] = System.nanoTime() - theStart;
+					}
+				}
+			}
+
+			System.out.println("Decode " + aMessage.getClass().getName()
+							   + ": DOM (validating = "
+							   + parser.isValidating() + ") = "
+							   + (theTimes[0] / aIterations)
+							   + " ns, Stream = "
+							   + (theTimes[1] / aIterations)
+							   + " ns, Stream with SAX validation = "
+							   + (theTimes[2] / aIterations) + " ns");
+		}
+		 catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("Benchmark of decoding " + aMessage.getClass().getName()
+						+ ": " + e);
+		}
+	} // End EPPCodecTst.benchmarkDecode(EPPMessage, int)
+
 	/**
 	 * Sets the number of iterations to run per test.
 	 *
@@ -979,6 +1091,62 @@ public class EPPCodecTst extends TestCase {
 		printEnd("testPoll");
 	} // End EPPCodecTst.testPoll()
 	
+	/**
+	 * Unit test of <code>EPPXMLWriter</code>, which checks the escaping of
+	 * text and attributes, the UTF-8 encoding of non-ASCII characters, the
+	 * namespace declarations, and that a DOM component written with
+	 * <code>writeNode</code> decodes to the same component.
+	 */
+	public void testXMLWriter() {
+		printStart("testXMLWriter");
+
+		EPPXMLWriter theWriter = new EPPXMLWriter();
+
+		try {
+			// Escaping and UTF-8
+			theWriter.reset(0);
+			theWriter.startElement(EPPCodec.NS, "epp");
+			theWriter.startElement(EPPCodec.NS, "test");
+			theWriter.attribute("value", "a<b&\"c\"");
+			theWriter.text("x<y&z>\u00e9\u4e2d\ud83d\ude00");
+			theWriter.endElement();
+			theWriter.startElement("urn:test", "t:empty");
+			theWriter.endElement();
+			theWriter.endElement();
+
+			String theXML = new String(theWriter.toByteArray(), "UTF-8");
+			System.out.println(theXML);
+
+			assertEquals("<epp xmlns=\"" + EPPCodec.NS + "\">"
+						 + "<test value=\"a&lt;b&amp;&quot;c&quot;\">"
+						 + "x&lt;y&amp;z&gt;\u00e9\u4e2d\ud83d\ude00</test>"
+						 + "<t:empty xmlns:t=\"urn:test\"/></epp>", theXML);
+
+			// DOM component written to the stream
+			EPPLogoutCmd theCommand = new EPPLogoutCmd("ABC-12345");
+			assertFalse(EPPCodec.getInstance().isStreamEncodable(theCommand));
+
+			theWriter.reset(0);
+			theWriter.startDocument();
+			theWriter.startElement(EPPCodec.NS, "epp");
+			theWriter.writeComp(theCommand);
+			theWriter.endElement();
+
+			DocumentBuilder parser = new EPPSchemaCachingParser();
+			parser.setErrorHandler(xmlErrorHandler);
+			Document theDoc =
+				parser.parse(new ByteArrayInputStream(theWriter.toByteArray()));
+
+			assertEquals(theCommand, EPPCodec.getInstance().decode(theDoc));
+		}
+		 catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("testXMLWriter(): " + e);
+		}
+
+		printEnd("testXMLWriter");
+	} // End EPPCodecTst.testXMLWriter()
+
 	/**
 	 * Test the encoding and decoding of the <code>timeInstantFormat</code>
 	 * supported by the {@link EPPUtil#encodeTimeInstant(Date)} and 
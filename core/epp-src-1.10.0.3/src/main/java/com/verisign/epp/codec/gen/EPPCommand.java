@@ -451,6 +451,57 @@ public abstract class EPPCommand implements EPPMessage {
 		return root;
 	} // End EPPCommand.encode(Document)
 
+	/**
+	 * encode <code>EPPCommand</code> to an <code>EPPXMLWriter</code>, which
+	 * writes the same XML as <code>encode(Document)</code>.  This method is a
+	 * <i>Template Method</i> in the Template Method Design Pattern, that is
+	 * used by the concrete commands that implement
+	 * <code>EPPStreamEncodable</code>.  The extensions that don't implement
+	 * <code>EPPStreamEncodable</code> are encoded with DOM.
+	 *
+	 * @param aWriter Writer to encode the command to
+	 *
+	 * @exception EPPEncodeException Error encoding the command.
+	 */
+	public void encode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		// Check pre-conditions
+		if (
+			(transId != null)
+				&& (
+					(transId.length() < EPPTransId.MIN_TRANSID_LEN)
+					|| (transId.length() > EPPTransId.MAX_TRANSID_LEN)
+				)) {
+			throw new EPPEncodeException("EPPCommand transaction id length of "
+										 + transId.length()
+										 + "is out of range, must be between "
+										 + EPPTransId.MIN_TRANSID_LEN + " and "
+										 + EPPTransId.MAX_TRANSID_LEN);
+		}
+
+		// <command>
+		aWriter.startElement(EPPCodec.NS, ELM_NAME);
+
+		// EPP General Command (e.g. EPPCreateCmd).
+		doGenEncode(aWriter);
+
+		// Extension Element
+		if (extensions != null) {
+			aWriter.startElement(EPPCodec.NS, ELM_EXTENSION);
+
+			Iterator theExtensions = extensions.iterator();
+			while (theExtensions.hasNext()) {
+				aWriter.writeComp((EPPCodecComponent) theExtensions.next());
+			}
+
+			aWriter.endElement();
+		}
+
+		// Transaction ID
+		aWriter.element(EPPCodec.NS, ELM_TRANS_ID, transId);
+
+		aWriter.endElement();
+	} // End EPPCommand.encode(EPPXMLWriter)
+
 	/**
 	 * decode <code>EPPCommand</code> from a DOM element tree.  The "command"
 	 * element needs to be the value of the <code>aElement</code> argument.
@@ -590,6 +641,39 @@ public abstract class EPPCommand implements EPPMessage {
 	protected abstract Element doGenEncode(Document aDocument)
 									throws EPPEncodeException;
 
+	/**
+	 * Encodes a general extension of <code>EPPCommand</code> to an
+	 * <code>EPPXMLWriter</code>.  This is the stream counterpart of
+	 * <code>doGenEncode(Document)</code>, which is overridden by the general
+	 * commands that support <code>encode(EPPXMLWriter)</code>.
+	 *
+	 * @param aWriter Writer to encode the general command to
+	 *
+	 * @exception EPPEncodeException The command does not support stream
+	 * 			  encoding or error encoding the command.
+	 */
+	protected void doGenEncode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		throw new EPPEncodeException(getClass().getName()
+									 + " does not support stream encoding");
+	}
+
+	/**
+	 * Encodes the command mapping of a concrete <code>EPPCommand</code> to an
+	 * <code>EPPXMLWriter</code>.  This is the stream counterpart of
+	 * <code>doEncode(Document)</code> of the general commands, which is
+	 * overridden by the concrete commands that implement
+	 * <code>EPPStreamEncodable</code>.
+	 *
+	 * @param aWriter Writer to encode the command mapping to
+	 *
+	 * @exception EPPEncodeException The command does not support stream
+	 * 			  encoding or error encoding the command.
+	 */
+	protected void doEncode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		throw new EPPEncodeException(getClass().getName()
+									 + " does not support stream encoding");
+	}
+
 	/**
 	 * Decodes the atributes of a general extension of <code>EPPCommand</code>.
 	 * An example of a     general extension is <code>EPPCreateCmd</code>.
@@ -141,6 +141,28 @@ public abstract class EPPCreateCmd extends EPPCommand {
 
 	// End EPPCreateCmd.doGenEncode(Document)
 
+	/**
+	 * Encodes the general command element of the
+	 * <code>EPPCreateCmd</code> instance to an <code>EPPXMLWriter</code>, which is
+	 * the stream counterpart of <code>doGenEncode(Document)</code>.  The
+	 * command mapping is encoded with <code>doEncode(EPPXMLWriter)</code>.
+	 *
+	 * @param aWriter Writer to encode the command to
+	 *
+	 * @exception EPPEncodeException Unable to encode <code>EPPCreateCmd</code>
+	 * 			  instance.
+	 */
+	protected void doGenEncode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		aWriter.startElement(EPPCodec.NS, ELM_NAME);
+
+		// Command Mapping
+		doEncode(aWriter);
+
+		aWriter.endElement();
+	}
+
+	// End EPPCreateCmd.doGenEncode(EPPXMLWriter)
+
 	/**
 	 * Decodes the <code>EPPCreateCmd</code> attributes from the
 	 * <code>aElement</code> DOM Element tree.      This method is a member of
@@ -32,6 +32,8 @@ import org.apache.log4j.Logger;
 import org.w3c.dom.Element;
 
 import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPEnv;
+import com.verisign.epp.util.EPPStartup;
 
 
 /**
@@ -393,6 +395,9 @@ public class EPPFactory {
 	 * theExtFactories.addElement("com.verisign.epp.codec.pricing.EPPPricingExtFactory");
 	 * EPPFactory.getInstance().init(theMapFactories, theExtFactories);
 	 * </pre>
+	 * The factory classes are first loaded in parallel with up to
+	 * <code>EPP.StartupParallelism</code> threads, and are then added in the
+	 * order of the <code>Vector</code>'s.
 	 *
 	 * @param someFactories a <code>Vector</code> of concrete
 	 * 		  <code>EPPMapFactory</code> fully qualified class names.
@@ -405,6 +410,12 @@ public class EPPFactory {
 			  throws EPPCodecException {
 		cat.debug("init(Vector, Vector): enter");
 
+		// Load the factory classes in parallel, and add them in order below
+		Vector theClassNames = new Vector(someFactories);
+		theClassNames.addAll(someExtFactories);
+		EPPStartup.loadClasses(EPPFactory.class.getClassLoader(),
+							   theClassNames, EPPEnv.getStartupParallelism());
+
 		// Initialize the EPPMapFactory's
 		init(someFactories);
 
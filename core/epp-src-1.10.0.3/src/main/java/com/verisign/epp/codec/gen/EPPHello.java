@@ -51,7 +51,7 @@ import org.w3c.dom.Element;
  *
  * @see com.verisign.epp.codec.gen.EPPGreeting
  */
-public class EPPHello implements EPPMessage {
+public class EPPHello implements EPPMessage, EPPStreamEncodable {
 	/** XML root tag name for <code>EPPHello</code>. */
 	final static String ELM_NAME = "hello";
 
@@ -95,6 +95,21 @@ public class EPPHello implements EPPMessage {
 
 	// End EPPHello.encode(Document)
 
+	/**
+	 * encode <code>EPPHello</code> to an <code>EPPXMLWriter</code> as an
+	 * empty &lthello&gt element.
+	 *
+	 * @param aWriter Writer to encode the hello to
+	 *
+	 * @exception EPPEncodeException Error encoding the hello.
+	 */
+	public void encode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		aWriter.startElement(EPPCodec.NS, ELM_NAME);
+		aWriter.endElement();
+	}
+
+	// End EPPHello.encode(EPPXMLWriter)
+
 	/**
 	 * decode <code>EPPHello</code> from a DOM element tree.  The "hello"
 	 * element needs to be the value of the <code>aElement</code> argument.
@@ -135,6 +135,28 @@ public abstract class EPPInfoCmd extends EPPCommand {
 
 	// End EPPInfoCmd.doGenEncode(Document)
 
+	/**
+	 * Encodes the general command element of the
+	 * <code>EPPInfoCmd</code> instance to an <code>EPPXMLWriter</code>, which is
+	 * the stream counterpart of <code>doGenEncode(Document)</code>.  The
+	 * command mapping is encoded with <code>doEncode(EPPXMLWriter)</code>.
+	 *
+	 * @param aWriter Writer to encode the command to
+	 *
+	 * @exception EPPEncodeException Unable to encode <code>EPPInfoCmd</code>
+	 * 			  instance.
+	 */
+	protected void doGenEncode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		aWriter.startElement(EPPCodec.NS, ELM_NAME);
+
+		// Command Mapping
+		doEncode(aWriter);
+
+		aWriter.endElement();
+	}
+
+	// End EPPInfoCmd.doGenEncode(EPPXMLWriter)
+
 	/**
 	 * Decodes the <code>EPPInfoCmd</code> attributes from the
 	 * <code>aElement</code> DOM Element tree.      This method is a member of
@@ -71,7 +71,7 @@ import com.verisign.epp.util.EPPCatFactory;
  * </li>
  * </ul>
  */
-public class EPPMsgQueue implements EPPCodecComponent {
+public class EPPMsgQueue implements EPPCodecComponent, EPPStreamDecodable {
 	/** The default language of the reason "en". */
 	public static final String DEFAULT_LANG = "en";
 
@@ -410,46 +410,105 @@ public class EPPMsgQueue implements EPPCodecComponent {
 		Element theMsgElm = EPPUtil.getElementByTagNameNS(aElement, EPPCodec.NS, ELM_MSG);
 		
 		if (theMsgElm != null) {
-			
-			NodeList theMsgNodes = theMsgElm.getChildNodes();
-			
-			// Is it mixed XML content?
-			if (theMsgNodes.getLength() > 1 || 
-					(theMsgNodes.getLength() == 1 && theMsgNodes.item(0).getNodeType() != Node.TEXT_NODE)) {
-				this.msg = null;
-				
-				// Clear empty Text Nodes
-				Node theCurrNode = theMsgNodes.item(0);
-				while (theCurrNode != null) {
-					Node theNextNode = theCurrNode.getNextSibling();
-					if (theCurrNode.getNodeType() == Node.TEXT_NODE && 
-							theCurrNode.getNodeValue().trim().length() == 0) {
-						theCurrNode.getParentNode().removeChild(theCurrNode);
-					}
-					theCurrNode = theNextNode;
-				}
-				this.msgNodeList = theMsgNodes;
+			this.decodeMsg(theMsgElm);
+		}
+		else {
+			this.msg	  = null;
+			this.msgNodeList = null;
+			this.lang  = DEFAULT_LANG;
+		}
+	}
+
+	// End EPPMsgQueue.decode(Element)
+
+	/**
+	 * decode <code>EPPMsgQueue</code> from an <code>EPPXMLReader</code> that
+	 * is on the "msgQ" start tag.  The "msg" element is read into DOM since it
+	 * can contain mixed XML content.
+	 *
+	 * @param aReader Reader on the "msgQ" start tag.
+	 *
+	 * @exception EPPDecodeException Error decoding the message queue.
+	 */
+	public void decode(EPPXMLReader aReader) throws EPPDecodeException {
+		// Count 
+		try {
+			this.count     = new Long(aReader.getAttribute(ATTR_COUNT));
+		}
+		catch (NumberFormatException ex) {
+			throw new EPPDecodeException("Invalid EPPMsgQueue " + ATTR_COUNT
+					+ " attribute: " + ex);
+		}
+
+		// Id
+		this.id     = aReader.getAttribute(ATTR_ID);
+
+		this.qDate = null;
+		this.msg	  = null;
+		this.msgNodeList = null;
+		this.lang  = DEFAULT_LANG;
+
+		boolean hasMsg = false;
+
+		while (aReader.nextElement()) {
+			// QDate
+			if (this.qDate == null && aReader.isElement(EPPCodec.NS, ELM_QDATE)) {
+				this.qDate = aReader.getTimeInstant();
 			}
-			else if (theMsgNodes.getLength() == 1 && theMsgNodes.item(0).getNodeType() == Node.TEXT_NODE) {
-				this.msgNodeList = null;
-				this.msg = ((Text) theMsgNodes.item(0)).getNodeValue();	
+
+			// Msg
+			else if (!hasMsg && aReader.isElement(EPPCodec.NS, ELM_MSG)) {
+				hasMsg = true;
+				this.decodeMsg(aReader.readElement());
 			}
 			else {
-				this.msg = "";
-				this.msgNodeList = null;
+				aReader.skipElement();
 			}
+		}
+	}
+
+	// End EPPMsgQueue.decode(EPPXMLReader)
+
+	/**
+	 * Decodes the "msg" element, which contains either text or mixed XML
+	 * content, along with its language.
+	 *
+	 * @param aMsgElm The "msg" XML element.
+	 */
+	private void decodeMsg(Element aMsgElm) {
+		NodeList theMsgNodes = aMsgElm.getChildNodes();
+		
+		// Is it mixed XML content?
+		if (theMsgNodes.getLength() > 1 || 
+				(theMsgNodes.getLength() == 1 && theMsgNodes.item(0).getNodeType() != Node.TEXT_NODE)) {
+			this.msg = null;
 			
-			// Lang
-			this.setLang(theMsgElm.getAttribute(ATTR_LANG));
+			// Clear empty Text Nodes
+			Node theCurrNode = theMsgNodes.item(0);
+			while (theCurrNode != null) {
+				Node theNextNode = theCurrNode.getNextSibling();
+				if (theCurrNode.getNodeType() == Node.TEXT_NODE && 
+						theCurrNode.getNodeValue().trim().length() == 0) {
+					theCurrNode.getParentNode().removeChild(theCurrNode);
+				}
+				theCurrNode = theNextNode;
+			}
+			this.msgNodeList = theMsgNodes;
+		}
+		else if (theMsgNodes.getLength() == 1 && theMsgNodes.item(0).getNodeType() == Node.TEXT_NODE) {
+			this.msgNodeList = null;
+			this.msg = ((Text) theMsgNodes.item(0)).getNodeValue();	
 		}
 		else {
-			this.msg	  = null;
+			this.msg = "";
 			this.msgNodeList = null;
-			this.lang  = DEFAULT_LANG;
 		}
+		
+		// Lang
+		this.setLang(aMsgElm.getAttribute(ATTR_LANG));
 	}
 
-	// End EPPMsgQueue.decode(Element)
+	// End EPPMsgQueue.decodeMsg(Element)
 
 	/**
 	 * implements a deep <code>EPPMsgQueue</code> compare.
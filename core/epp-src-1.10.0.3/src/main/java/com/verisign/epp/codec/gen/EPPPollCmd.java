@@ -62,7 +62,7 @@ import org.w3c.dom.Element;
  * @author $Author: jim $
  * @version $Revision: 1.3 $
  */
-public class EPPPollCmd extends EPPCommand {
+public class EPPPollCmd extends EPPCommand implements EPPStreamEncodable {
 	/**
 	 * Poll operation type indicating that the client is requesting information
 	 * from the server.
@@ -253,6 +253,49 @@ public class EPPPollCmd extends EPPCommand {
 
 	// End EPPPollCmd.doGenEncode(Document)
 
+	/**
+	 * Encodes the &ltpoll&gt element of the <code>EPPPollCmd</code> instance
+	 * to an <code>EPPXMLWriter</code>, which is the stream counterpart of
+	 * <code>doGenEncode(Document)</code>.
+	 *
+	 * @param aWriter Writer to encode the command to
+	 *
+	 * @exception EPPEncodeException Unable to encode <code>EPPPollCmd</code>
+	 * 			  instance.
+	 */
+	protected void doGenEncode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		// Check preconditions
+		if (op == null) {
+			throw new EPPEncodeException("EPPPollCmd op attribute is null");
+		}
+
+		if (!op.equals(OP_ACK) && !op.equals(OP_REQ)) {
+			throw new EPPEncodeException("EPPPollCmd invalid operation type of "
+										 + op);
+		}
+
+		if (op.equals(OP_ACK) && (msgID == null)) {
+			throw new EPPEncodeException("EPPPollCmd msgId attribute is null for ACK operation");
+		}
+
+		// <poll> Element
+		aWriter.startElement(EPPCodec.NS, ELM_NAME);
+
+		aWriter.attribute(ATTR_OP, op);
+
+		// Message Id
+		if (msgID != null) {
+			aWriter.attribute(ATTR_MSGID, msgID);
+		}
+
+		// Command Mapping
+		doEncode(aWriter);
+
+		aWriter.endElement();
+	}
+
+	// End EPPPollCmd.doGenEncode(EPPXMLWriter)
+
 	/**
 	 * Decodes the <code>EPPPollCmd</code> attributes from the
 	 * <code>aElement</code> DOM Element tree.      This method is a member of
@@ -324,6 +367,18 @@ public class EPPPollCmd extends EPPCommand {
 		return null;
 	}
 
+	/**
+	 * Stream counterpart of <code>doEncode(Document)</code>, which encodes
+	 * nothing since <code>EPPPollCmd</code> has no command mapping.
+	 *
+	 * @param aWriter Writer to encode the command mapping to
+	 *
+	 * @exception EPPEncodeException Unable to encode EPPPollCmd extension
+	 * 			  instance.
+	 */
+	protected void doEncode(EPPXMLWriter aWriter) throws EPPEncodeException {
+	}
+
 	/**
 	 * Must be defined by <code>EPPPollCmd</code> extensions (Command Mappings)
 	 * to decode     the attributes to a DOM Element tree.
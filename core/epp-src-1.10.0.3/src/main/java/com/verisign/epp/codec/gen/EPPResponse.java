@@ -833,6 +833,156 @@ public class EPPResponse implements EPPMessage {
 											EPPTransId.class);
 	} // End EPPResponse.encode(Element)
 
+	/**
+	 * decode <code>EPPResponse</code> from an <code>EPPXMLReader</code> that
+	 * is on the start tag of the "response" element, which produces the same
+	 * attributes as <code>decode(Element)</code>.  The response data is
+	 * decoded with <code>doDecode(EPPXMLReader)</code> of this instance, so
+	 * use {@link EPPCodec#decode(EPPXMLReader)} to create the concrete
+	 * response from the response data element.
+	 *
+	 * @param aReader Reader on the &ltresponse&gt start tag.
+	 *
+	 * @exception EPPDecodeException Error decoding the response.
+	 * @exception EPPComponentNotFoundException An extension component could not be found
+	 */
+	public void decode(EPPXMLReader aReader) throws EPPDecodeException, EPPComponentNotFoundException {
+		decode(aReader, this);
+	} // End EPPResponse.decode(EPPXMLReader)
+
+	/**
+	 * Decodes an <code>EPPResponse</code> from an <code>EPPXMLReader</code>
+	 * that is on the start tag of the "response" element.  The results and
+	 * message queue are read before the response data, so when
+	 * <code>aResponse</code> is <code>null</code> the concrete response is
+	 * created from the response data element with
+	 * <code>EPPFactory.createResponse</code> once it is read.  The response
+	 * data of a concrete response that doesn't declare
+	 * <code>EPPStreamDecodable</code> and the extensions are decoded with
+	 * DOM.
+	 *
+	 * @param aReader Reader on the &ltresponse&gt start tag.
+	 * @param aResponse Response to decode to or <code>null</code> to create
+	 * 		  the concrete response
+	 *
+	 * @return Decoded response
+	 *
+	 * @exception EPPDecodeException Error decoding the response.
+	 * @exception EPPComponentNotFoundException A concrete response or
+	 * 			  extension component could not be found
+	 */
+	static EPPResponse decode(EPPXMLReader aReader, EPPResponse aResponse)
+							   throws EPPDecodeException, EPPComponentNotFoundException {
+		EPPResponse theResponse = aResponse;
+		Vector theResults = new Vector();
+		EPPMsgQueue theMsgQueue = null;
+		EPPTransId theTransId = null;
+		Vector theExtensions = null;
+
+		while (aReader.nextElement()) {
+			// Results
+			if (aReader.isElement(EPPCodec.NS, EPPResult.ELM_NAME)) {
+				EPPResult theResult = new EPPResult();
+				aReader.readComp(theResult);
+				theResults.addElement(theResult);
+			}
+
+			// Message Queue
+			else if (aReader.isElement(EPPCodec.NS, EPPMsgQueue.ELM_NAME)) {
+				theMsgQueue = new EPPMsgQueue();
+				aReader.readComp(theMsgQueue);
+			}
+
+			// Response Data
+			else if (aReader.isElement(EPPCodec.NS, ELM_RESPONSE_DATA)) {
+				if (!aReader.nextElement()) {
+					throw new EPPDecodeException("No child element found for "
+												 + ELM_RESPONSE_DATA);
+				}
+
+				// Create Concrete Response
+				if (theResponse == null) {
+					try {
+						theResponse =
+							EPPFactory.getInstance().createResponse(aReader
+																	.createElement());
+					}
+					 catch (EPPCodecException e) {
+						throw new EPPComponentNotFoundException(
+								EPPComponentNotFoundException.RESPONSE, 
+								"Unable to create concrete response: "
+													 + e);
+					}
+				}
+
+				// Decode Concrete Response
+				if (EPPCodec.getInstance().isStreamDecodable(theResponse)) {
+					theResponse.doDecode(aReader);
+				}
+				else {
+					theResponse.doDecode(aReader.readElement());
+				}
+
+				// Only the first child element is decoded
+				while (aReader.nextElement()) {
+					aReader.skipElement();
+				}
+			}
+
+			// Extension Element
+			else if (aReader.isElement(EPPCodec.NS, ELM_EXTENSION)) {
+				theExtensions = new Vector();
+
+				while (aReader.nextElement()) {
+					Element currExtension = aReader.readElement();
+
+					// Decode the extension
+					EPPCodecComponent theExtension = null;
+
+					try {
+						theExtension =
+							EPPFactory.getInstance().createExtension(currExtension);
+					}
+					 catch (EPPCodecException e) {
+						throw new EPPComponentNotFoundException(
+								EPPComponentNotFoundException.EXTENSION, 
+								"EPPResponse.decode unable to create extension object: "
+													 + e);
+					}
+					theExtension.decode(currExtension);
+
+					theExtensions.addElement(theExtension);
+				}
+			}
+
+			// Transaction ID
+			else if (aReader.isElement(EPPCodec.NS, EPPTransId.ELM_NAME)) {
+				theTransId = new EPPTransId();
+				aReader.readComp(theTransId);
+			}
+			else {
+				aReader.skipElement();
+			}
+		}
+
+		if (theResponse == null) {
+			theResponse = new EPPResponse();
+		}
+
+		theResponse.results		   = theResults;
+		theResponse.msgQueue	   = theMsgQueue;
+		theResponse.transId		   = theTransId;
+
+		if (theExtensions != null) {
+			for (int i = 0; i < theExtensions.size(); i++) {
+				theResponse.addExtension((EPPCodecComponent) theExtensions
+										 .elementAt(i));
+			}
+		}
+
+		return theResponse;
+	} // End EPPResponse.decode(EPPXMLReader, EPPResponse)
+
 	/**
 	 * implements a deep <code>EPPResponse</code> compare.
 	 *
@@ -963,4 +1113,22 @@ public class EPPResponse implements EPPMessage {
 	protected void doDecode(Element aElement) throws EPPDecodeException {
 		// Do nothing since EPPReponse can be concrete.
 	} // End EPPResponse.doDecode(Element)
+
+	/**
+	 * Decodes the response data of the concrete <code>EPPResponse</code> from
+	 * an <code>EPPXMLReader</code> that is on the start tag of the response
+	 * data element, and must leave the reader on its end tag.  This is the
+	 * stream counterpart of <code>doDecode(Element)</code>, which is
+	 * overridden by the concrete responses that declare
+	 * <code>EPPStreamDecodable</code>.  The default implementation reads the
+	 * response data element into DOM and calls
+	 * <code>doDecode(Element)</code>.
+	 *
+	 * @param aReader Reader on the response data start tag
+	 *
+	 * @exception EPPDecodeException Error decoding the response data.
+	 */
+	protected void doDecode(EPPXMLReader aReader) throws EPPDecodeException {
+		doDecode(aReader.readElement());
+	} // End EPPResponse.doDecode(EPPXMLReader)
 }
@@ -75,7 +75,7 @@ import com.verisign.epp.util.EPPCatFactory;
  * </li>
  * </ul>
  */
-public class EPPResult implements EPPCodecComponent {
+public class EPPResult implements EPPCodecComponent, EPPStreamDecodable {
 	/** The default language of the result message "en". */
 	public static final String DEFAULT_LANG = "en";
 
@@ -860,6 +860,82 @@ public class EPPResult implements EPPCodecComponent {
 
 	// End EPPResult.decode(Element)
 
+	/**
+	 * decode <code>EPPResult</code> from an <code>EPPXMLReader</code> that is
+	 * on the &ltresult&gt start tag.  The &ltmsg&gt element is read directly,
+	 * and the less common &ltvalue&gt and &ltextValue&gt elements are read
+	 * into DOM and decoded like in <code>decode(Element)</code>.
+	 *
+	 * @param aReader Reader on the &ltresult&gt start tag.
+	 *
+	 * @exception EPPDecodeException Error decoding the result.
+	 */
+	public void decode(EPPXMLReader aReader) throws EPPDecodeException {
+		Element theValuesElm = null;
+
+		// Code
+		try {
+			code = Integer.parseInt(aReader.getAttribute(ATTR_CODE));
+		}
+		 catch (NumberFormatException ex) {
+			throw new EPPDecodeException("Invalid EPPResult " + ATTR_CODE
+										 + " attribute: " + ex);
+		}
+
+		message = null;
+
+		while (aReader.nextElement()) {
+			// Message
+			if ((message == null) && aReader.isElement(EPPCodec.NS, ELM_MSG)) {
+				// Lang
+				setLang(aReader.getAttribute(ATTR_LANG));
+
+				message = aReader.getText();
+			}
+
+			// Values, ExtValues, and Data
+			else {
+				if (theValuesElm == null) {
+					theValuesElm = aReader.createElement();
+				}
+
+				theValuesElm.appendChild(aReader.readElement());
+			}
+		}
+
+		if ((message == null) || (message.length() == 0)) {
+			throw new EPPDecodeException("Required message value of EPPResult element "
+										 + ELM_MSG + " not found");
+		}
+
+		this.values		   = null;
+		this.extValues     = null;
+
+		if (theValuesElm != null) {
+			// Values
+			this.values =
+				EPPUtil.decodeCompVector(
+										 theValuesElm, EPPCodec.NS,
+										 EPPValue.ELM_NAME, EPPValue.class);
+
+			if (this.values.size() == 0) {
+				this.values = null;
+			}
+
+			// ExtValues
+			this.extValues =
+				EPPUtil.decodeCompVector(
+										 theValuesElm, EPPCodec.NS,
+										 EPPExtValue.ELM_NAME, EPPExtValue.class);
+
+			if (this.extValues.size() == 0) {
+				this.extValues = null;
+			}
+		}
+	}
+
+	// End EPPResult.decode(EPPXMLReader)
+
 	/**
 	 * encode <code>EPPResult</code> into a DOM element tree. The result     is
 	 * created and the attribute nodes are     appended as children.
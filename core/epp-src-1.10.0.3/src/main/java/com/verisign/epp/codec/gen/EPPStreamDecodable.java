@@ -0,0 +1,54 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.codec.gen;
+
+/**
+ * Implemented by an <code>EPPCodecComponent</code> that can decode itself
+ * directly from an <code>EPPXMLReader</code> in addition to
+ * <code>decode(Element)</code>. Both decodings must produce the same
+ * component. A concrete <code>EPPResponse</code> implements it by
+ * overriding <code>doDecode(EPPXMLReader)</code>.
+ * <br>
+ * <br>
+ * <code>EPPXMLReader.readComp</code> and <code>EPPCodec</code> only stream
+ * decode a component whose class declares <code>EPPStreamDecodable</code>
+ * itself, so a subclass of a streamed component that overrides the DOM
+ * decoding is decoded with DOM until it also declares
+ * <code>EPPStreamDecodable</code>.
+ *
+ * @see EPPXMLReader
+ * @see EPPCodec#isStreamDecodable(EPPCodecComponent)
+ */
+public interface EPPStreamDecodable {
+
+	/**
+	 * Decodes the component from <code>aReader</code>, which is on the start
+	 * tag of the component element. The reader must be on the end tag of the
+	 * component element when the method returns.
+	 *
+	 * @param aReader
+	 *            Reader to decode the component from
+	 *
+	 * @exception EPPDecodeException
+	 *                Error decoding the component
+	 */
+	public void decode(EPPXMLReader aReader) throws EPPDecodeException;
+
+} // End interface EPPStreamDecodable
@@ -0,0 +1,49 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.codec.gen;
+
+/**
+ * Implemented by an <code>EPPCodecComponent</code> that can encode itself
+ * directly to an <code>EPPXMLWriter</code> in addition to
+ * <code>encode(Document)</code>. Both encodings must produce the same XML.
+ * <br>
+ * <br>
+ * <code>EPPCodec</code> and <code>EPPXMLWriter.writeComp</code> only stream
+ * a component whose class declares <code>EPPStreamEncodable</code> itself,
+ * so a subclass of a streamed component that overrides the DOM encoding is
+ * encoded with DOM until it also declares <code>EPPStreamEncodable</code>.
+ *
+ * @see EPPXMLWriter
+ * @see EPPCodec#isStreamEncodable(EPPCodecComponent)
+ */
+public interface EPPStreamEncodable {
+
+	/**
+	 * Encodes the component to <code>aWriter</code>.
+	 *
+	 * @param aWriter
+	 *            Writer to encode the component to
+	 *
+	 * @exception EPPEncodeException
+	 *                Error encoding the component
+	 */
+	public void encode(EPPXMLWriter aWriter) throws EPPEncodeException;
+
+} // End interface EPPStreamEncodable
@@ -54,7 +54,7 @@ import com.verisign.epp.util.EPPCatFactory;
  * @author $Author: jim $
  * @version $Revision: 1.4 $
  */
-public class EPPTransId implements EPPCodecComponent {
+public class EPPTransId implements EPPCodecComponent, EPPStreamDecodable {
 	/** Minimum transaction id length. */
 	public final static int MIN_TRANSID_LEN = 3;
 
@@ -308,6 +308,41 @@ public class EPPTransId implements EPPCodecComponent {
 				ELM_SERVER_TRANSID);
 	}
 
+	/**
+	 * decode <code>EPPTransId</code> from an <code>EPPXMLReader</code> that is
+	 * on the "trID" start tag, or the start tag of an element that conforms to
+	 * the XML structure of "trID".
+	 * 
+	 * @param aReader
+	 *            Reader on the "trID" start tag.
+	 * 
+	 * @exception EPPDecodeException
+	 *                Error decoding the transaction id.
+	 */
+	public void decode(EPPXMLReader aReader) throws EPPDecodeException {
+		this.setRootName(aReader.getNamespaceURI(), aReader.getName());
+
+		clientTransId = null;
+		serverTransId = null;
+
+		while (aReader.nextElement()) {
+			// Client Transaction Id
+			if (clientTransId == null
+					&& aReader.isElement(EPPCodec.NS, ELM_CLIENT_TRANSID)) {
+				clientTransId = aReader.getText();
+			}
+
+			// Server Transaction Id
+			else if (serverTransId == null
+					&& aReader.isElement(EPPCodec.NS, ELM_SERVER_TRANSID)) {
+				serverTransId = aReader.getText();
+			}
+			else {
+				aReader.skipElement();
+			}
+		}
+	}
+
 	/**
 	 * implements a deep <code>EPPTransId</code> compare.
 	 * 
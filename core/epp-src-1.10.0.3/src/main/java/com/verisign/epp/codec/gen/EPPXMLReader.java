@@ -0,0 +1,504 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.codec.gen;
+
+import java.nio.ByteBuffer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.xerces.dom.DocumentImpl;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.verisign.epp.util.EPPByteBufferInputStream;
+
+/**
+ * Pull XML reader used by the <code>EPPStreamDecodable</code> components to
+ * decode an EPP message directly from the packet bytes with a StAX
+ * <code>XMLStreamReader</code>, without building a DOM tree. This is the
+ * decode counterpart of <code>EPPXMLWriter</code>. <br>
+ * <br>
+ * The reader is positioned on one event at a time. A component's
+ * <code>decode(EPPXMLReader)</code> is called with the reader on the start
+ * tag of the component element, reads the child elements with
+ * {@link #nextElement()}, and returns with the reader on the end tag of the
+ * component element. Child elements that are not handled must be skipped
+ * with {@link #skipElement()}. Components that don't implement
+ * <code>EPPStreamDecodable</code> are read into a DOM element and decoded
+ * with <code>decode(Element)</code> by
+ * {@link #readComp(EPPCodecComponent)}. <br>
+ * <br>
+ * The reader does not validate the XML against the XML schemas, so a
+ * validating client validates the packet before it is decoded. An
+ * <code>EPPXMLReader</code> is not thread-safe, but can be reused for
+ * multiple packets with {@link #setInput(byte[], int, int)} or
+ * {@link #setInput(ByteBuffer)}, which read the packet in place.
+ *
+ * @see EPPStreamDecodable
+ * @see EPPCodec#decode(EPPXMLReader)
+ */
+public class EPPXMLReader {
+
+	/**
+	 * StAX factory that is configured once. DTDs and external entities are
+	 * disabled, like in <code>EPPSchemaCachingParser</code>.
+	 */
+	private static final XMLInputFactory factory;
+
+	static {
+		factory = XMLInputFactory.newFactory();
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(
+				XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+	}
+
+	/** Reusable input stream of the current packet */
+	private final EPPByteBufferInputStream input = new EPPByteBufferInputStream();
+
+	/** StAX reader of the current packet */
+	private XMLStreamReader reader = null;
+
+	/**
+	 * Document used to read components that don't implement
+	 * <code>EPPStreamDecodable</code>, created on first use.
+	 */
+	private Document document = null;
+
+	/**
+	 * Creates a reader without input. {@link #setInput(byte[], int, int)}
+	 * must be called before reading.
+	 */
+	public EPPXMLReader() {
+	}
+
+	/**
+	 * Creates a reader of a packet.
+	 *
+	 * @param aPacket
+	 *            Packet bytes
+	 *
+	 * @throws EPPDecodeException
+	 *             Error reading the start of the packet
+	 */
+	public EPPXMLReader(byte[] aPacket) throws EPPDecodeException {
+		setInput(aPacket, 0, aPacket.length);
+	}
+
+	/**
+	 * Sets the packet to read, which closes the reader of the previous
+	 * packet. The packet bytes must not change while they are read.
+	 *
+	 * @param aPacket
+	 *            Buffer with the packet bytes
+	 * @param aOffset
+	 *            Offset of the packet in <code>aPacket</code>
+	 * @param aLength
+	 *            Length of the packet
+	 *
+	 * @throws EPPDecodeException
+	 *             Error reading the start of the packet
+	 */
+	public void setInput(byte[] aPacket, int aOffset, int aLength)
+			throws EPPDecodeException {
+		close();
+		this.input.setInput(aPacket, aOffset, aLength);
+		this.open();
+	}
+
+	/**
+	 * Sets the packet to read to the bytes between the position and the
+	 * limit of a heap or direct buffer, which closes the reader of the
+	 * previous packet. The packet is read in place and the buffer must not
+	 * change while it is read. The position of the buffer is restored by
+	 * {@link #close()}.
+	 *
+	 * @param aPacket
+	 *            Buffer with the packet bytes
+	 *
+	 * @throws EPPDecodeException
+	 *             Error reading the start of the packet
+	 */
+	public void setInput(ByteBuffer aPacket) throws EPPDecodeException {
+		close();
+		this.input.setInput(aPacket);
+		this.open();
+	}
+
+	/**
+	 * Opens the StAX reader on the input stream.
+	 *
+	 * @throws EPPDecodeException
+	 *             Error reading the start of the packet
+	 */
+	private void open() throws EPPDecodeException {
+		try {
+			this.reader = factory.createXMLStreamReader(this.input);
+		}
+		catch (XMLStreamException ex) {
+			this.input.close();
+			throw new EPPDecodeException("EPPXMLReader.setInput(): " + ex);
+		}
+	}
+
+	/**
+	 * Closes the reader of the current packet.
+	 */
+	public void close() {
+		if (this.reader != null) {
+			try {
+				this.reader.close();
+			}
+			catch (XMLStreamException ex) {
+				// Nothing to release for an in-memory packet
+			}
+			this.reader = null;
+		}
+		this.input.close();
+		this.document = null;
+	}
+
+	/**
+	 * Moves to the next child element of the current element, skipping text,
+	 * comments and processing instructions. Before the root element is read,
+	 * the root element is the next child element.
+	 *
+	 * @return <code>true</code> if the reader is on the start tag of the
+	 *         next child element; <code>false</code> if the reader is on the
+	 *         end tag of the current element.
+	 *
+	 * @throws EPPDecodeException
+	 *             XML error reading the packet
+	 */
+	public boolean nextElement() throws EPPDecodeException {
+		try {
+			while (this.reader.hasNext()) {
+				switch (this.reader.next()) {
+					case XMLStreamConstants.START_ELEMENT:
+						return true;
+
+					case XMLStreamConstants.END_ELEMENT:
+					case XMLStreamConstants.END_DOCUMENT:
+						return false;
+
+					default:
+						break;
+				}
+			}
+			return false;
+		}
+		catch (XMLStreamException ex) {
+			throw new EPPDecodeException("EPPXMLReader.nextElement(): " + ex);
+		}
+	}
+
+	/**
+	 * Gets the namespace URI of the current element.
+	 *
+	 * @return Namespace URI if set; <code>null</code> otherwise.
+	 */
+	public String getNamespaceURI() {
+		return this.reader.getNamespaceURI();
+	}
+
+	/**
+	 * Gets the local name of the current element.
+	 *
+	 * @return Local name of the current element
+	 */
+	public String getLocalName() {
+		return this.reader.getLocalName();
+	}
+
+	/**
+	 * Gets the qualified name of the current element, including the prefix
+	 * used in the packet.
+	 *
+	 * @return Qualified name of the current element
+	 */
+	public String getName() {
+		return qualifiedName(this.reader.getPrefix(), this.reader
+				.getLocalName());
+	}
+
+	/**
+	 * Is the current element the element with the namespace URI and name?
+	 *
+	 * @param aNS
+	 *            Namespace URI of the element
+	 * @param aName
+	 *            Local or qualified name of the element, where the prefix of
+	 *            a qualified name is ignored
+	 *
+	 * @return <code>true</code> if the current element matches;
+	 *         <code>false</code> otherwise.
+	 */
+	public boolean isElement(String aNS, String aName) {
+		return aNS.equals(this.reader.getNamespaceURI())
+				&& EPPUtil.getLocalName(aName).equals(
+						this.reader.getLocalName());
+	}
+
+	/**
+	 * Gets an attribute without a namespace of the current element.
+	 *
+	 * @param aName
+	 *            Attribute name
+	 *
+	 * @return Attribute value if set; &quot;&quot; otherwise, like
+	 *         <code>Element.getAttribute</code>.
+	 */
+	public String getAttribute(String aName) {
+		String theValue = this.reader.getAttributeValue(null, aName);
+
+		if (theValue == null) {
+			return "";
+		}
+		return theValue;
+	}
+
+	/**
+	 * Gets a boolean attribute of the current element, like
+	 * <code>EPPUtil.decodeBooleanAttr</code>.
+	 *
+	 * @param aName
+	 *            Attribute name
+	 *
+	 * @return Boolean attribute value
+	 *
+	 * @throws EPPDecodeException
+	 *             The attribute is not set or is not a boolean value
+	 */
+	public boolean getBooleanAttribute(String aName) throws EPPDecodeException {
+		String theValue = this.reader.getAttributeValue(null, aName);
+
+		if (theValue == null || theValue.length() == 0) {
+			throw new EPPDecodeException(
+					"EPPXMLReader.getBooleanAttribute: Could not find attr \""
+							+ aName + "\"");
+		}
+
+		if (theValue.equals("1") || theValue.equals("true")) {
+			return true;
+		}
+		else if (theValue.equals("0") || theValue.equals("false")) {
+			return false;
+		}
+		else {
+			throw new EPPDecodeException(
+					"EPPXMLReader.getBooleanAttribute: Invalid boolean attr \""
+							+ aName + "\" value of <" + theValue + ">");
+		}
+	}
+
+	/**
+	 * Reads the text of the current element, which must not have child
+	 * elements. The reader is on the end tag of the element afterwards.
+	 *
+	 * @return Text of the element, which is &quot;&quot; for an empty
+	 *         element.
+	 *
+	 * @throws EPPDecodeException
+	 *             XML error or the element has child elements
+	 */
+	public String getText() throws EPPDecodeException {
+		try {
+			return this.reader.getElementText();
+		}
+		catch (XMLStreamException ex) {
+			throw new EPPDecodeException("EPPXMLReader.getText(): "
+					+ this.reader.getLocalName() + ": " + ex);
+		}
+	}
+
+	/**
+	 * Reads the text of the current element as an XML schema
+	 * <code>dateTime</code>, like <code>EPPUtil.decodeTimeInstant</code>.
+	 *
+	 * @return Date if the format is valid; <code>null</code> otherwise.
+	 *
+	 * @throws EPPDecodeException
+	 *             XML error or the element has child elements
+	 */
+	public java.util.Date getTimeInstant() throws EPPDecodeException {
+		return EPPUtil.decodeTimeInstant(getText());
+	}
+
+	/**
+	 * Skips the current element with its children. The reader is on the end
+	 * tag of the element afterwards.
+	 *
+	 * @throws EPPDecodeException
+	 *             XML error reading the packet
+	 */
+	public void skipElement() throws EPPDecodeException {
+		while (nextElement()) {
+			skipElement();
+		}
+	}
+
+	/**
+	 * Reads a component from the current element. A component whose class
+	 * declares <code>EPPStreamDecodable</code> is read directly, and any
+	 * other component is decoded from the DOM element returned by
+	 * {@link #readElement()}.
+	 *
+	 * @param aComponent
+	 *            Component to decode
+	 *
+	 * @throws EPPDecodeException
+	 *             Error decoding the component
+	 */
+	public void readComp(EPPCodecComponent aComponent)
+			throws EPPDecodeException {
+		if (EPPCodec.getInstance().isStreamDecodable(aComponent)) {
+			((EPPStreamDecodable) aComponent).decode(this);
+		}
+		else {
+			aComponent.decode(readElement());
+		}
+	}
+
+	/**
+	 * Creates an empty DOM element with the namespace URI and qualified name
+	 * of the current element, which can be passed to the
+	 * <code>EPPFactory</code> methods that only use the element name to
+	 * create the concrete component. The reader doesn't move.
+	 *
+	 * @return Empty DOM element
+	 */
+	public Element createElement() {
+		if (this.document == null) {
+			this.document = new DocumentImpl();
+		}
+
+		return this.document.createElementNS(this.reader.getNamespaceURI(),
+				getName());
+	}
+
+	/**
+	 * Reads the current element with its children into a DOM element,
+	 * including the namespace declarations of the element. Whitespace-only
+	 * text is skipped, like ignorable whitespace is by
+	 * <code>EPPSchemaCachingParser</code>. The reader is on the end tag of
+	 * the element afterwards.
+	 *
+	 * @return DOM element of the current element
+	 *
+	 * @throws EPPDecodeException
+	 *             XML error reading the packet
+	 */
+	public Element readElement() throws EPPDecodeException {
+		if (this.document == null) {
+			this.document = new DocumentImpl();
+		}
+
+		try {
+			return readElement(this.document);
+		}
+		catch (XMLStreamException ex) {
+			throw new EPPDecodeException("EPPXMLReader.readElement(): " + ex);
+		}
+	}
+
+	/**
+	 * Reads the current element with its children into a DOM element.
+	 *
+	 * @param aDocument
+	 *            Document used as the element factory
+	 *
+	 * @return DOM element of the current element
+	 *
+	 * @throws XMLStreamException
+	 *             XML error reading the packet
+	 */
+	private Element readElement(Document aDocument) throws XMLStreamException {
+		Element theElement = aDocument.createElementNS(this.reader
+				.getNamespaceURI(), qualifiedName(this.reader.getPrefix(),
+				this.reader.getLocalName()));
+
+		// Namespace declarations
+		for (int i = 0; i < this.reader.getNamespaceCount(); i++) {
+			String thePrefix = this.reader.getNamespacePrefix(i);
+			theElement.setAttributeNS("http://www.w3.org/2000/xmlns/",
+					thePrefix == null || thePrefix.length() == 0 ? "xmlns"
+							: "xmlns:" + thePrefix, this.reader
+							.getNamespaceURI(i));
+		}
+
+		// Attributes
+		for (int i = 0; i < this.reader.getAttributeCount(); i++) {
+			String theNS = this.reader.getAttributeNamespace(i);
+			if (theNS != null && theNS.length() == 0) {
+				theNS = null;
+			}
+			theElement.setAttributeNS(theNS, qualifiedName(this.reader
+					.getAttributePrefix(i), this.reader.getAttributeLocalName(i)),
+					this.reader.getAttributeValue(i));
+		}
+
+		// Children
+		while (this.reader.hasNext()) {
+			switch (this.reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					theElement.appendChild(readElement(aDocument));
+					break;
+
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+					if (!this.reader.isWhiteSpace()) {
+						theElement.appendChild(aDocument
+								.createTextNode(this.reader.getText()));
+					}
+					break;
+
+				case XMLStreamConstants.END_ELEMENT:
+					return theElement;
+
+				default:
+					break;
+			}
+		}
+
+		return theElement;
+	}
+
+	/**
+	 * Gets the qualified name of a prefix and local name.
+	 *
+	 * @param aPrefix
+	 *            Prefix, which may be <code>null</code> or empty
+	 * @param aLocalName
+	 *            Local name
+	 *
+	 * @return Qualified name
+	 */
+	private static String qualifiedName(String aPrefix, String aLocalName) {
+		if (aPrefix == null || aPrefix.length() == 0) {
+			return aLocalName;
+		}
+		return aPrefix + ":" + aLocalName;
+	}
+
+} // End class EPPXMLReader
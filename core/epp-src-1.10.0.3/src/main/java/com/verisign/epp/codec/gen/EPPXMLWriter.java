@@ -0,0 +1,653 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.codec.gen;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.xerces.dom.DocumentImpl;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Streaming XML writer used by the <code>EPPStreamEncodable</code>
+ * components to encode an EPP message directly to UTF-8 bytes, without
+ * building a DOM tree and serializing it with a <code>Transformer</code>.
+ * The bytes are written into a buffer that is reused across messages with
+ * {@link #reset(int)}, and space can be reserved at the start of the buffer
+ * for the EPP frame header. <br>
+ * <br>
+ * The writer keeps track of the namespace declarations in scope. Like the
+ * DOM serializer, a namespace declaration is written for the prefix of an
+ * element or attribute name when the prefix is not yet bound to the
+ * namespace, so components only have to pass the namespace URI of each
+ * element. Components that don't implement <code>EPPStreamEncodable</code>
+ * are encoded to DOM and written with {@link #writeComp(EPPCodecComponent)}.
+ * <br>
+ * <br>
+ * An <code>EPPXMLWriter</code> is not thread-safe.
+ *
+ * @see EPPStreamEncodable
+ * @see EPPCodec#encode(EPPMessage, EPPXMLWriter)
+ */
+public class EPPXMLWriter {
+
+	/** Initial size of the buffer in bytes */
+	public static final int INITIAL_BUFFER_SIZE = 1024;
+
+	/**
+	 * Largest buffer in bytes that is kept by {@link #reset(int)}, so that
+	 * one large message does not pin a large buffer.
+	 */
+	public static final int MAX_RETAINED_BUFFER_SIZE = 65536;
+
+	/** XML declaration written by {@link #startDocument()} */
+	private static final byte[] XML_DECL = toBytes("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>");
+
+	/** Buffer with the encoded bytes */
+	private byte[] buffer;
+
+	/** Number of bytes in <code>buffer</code> */
+	private int count = 0;
+
+	/** Names of the open elements */
+	private String[] elements = new String[16];
+
+	/**
+	 * Number of namespace declarations in scope when each open element was
+	 * started.
+	 */
+	private int[] nsMarks = new int[16];
+
+	/** Number of open elements */
+	private int depth = 0;
+
+	/** Prefixes of the namespace declarations in scope */
+	private String[] nsPrefixes = new String[16];
+
+	/** URIs of the namespace declarations in scope */
+	private String[] nsURIs = new String[16];
+
+	/** Number of namespace declarations in scope */
+	private int nsCount = 0;
+
+	/** Is the start tag of the current element still open for attributes? */
+	private boolean startTagOpen = false;
+
+	/**
+	 * Document used to encode components that don't implement
+	 * <code>EPPStreamEncodable</code>, created on first use.
+	 */
+	private Document document = null;
+
+	/**
+	 * Creates a writer with a buffer of <code>INITIAL_BUFFER_SIZE</code>
+	 * bytes.
+	 */
+	public EPPXMLWriter() {
+		this.buffer = new byte[INITIAL_BUFFER_SIZE];
+	}
+
+	/**
+	 * Resets the writer to write a new message, keeping the buffer unless it
+	 * grew beyond <code>MAX_RETAINED_BUFFER_SIZE</code>.
+	 *
+	 * @param aReserved
+	 *            Number of bytes to reserve at the start of the buffer, like
+	 *            the EPP frame header, that are filled in by the caller.
+	 */
+	public void reset(int aReserved) {
+		if (this.buffer.length > MAX_RETAINED_BUFFER_SIZE) {
+			this.buffer = new byte[INITIAL_BUFFER_SIZE];
+		}
+		ensureCapacity(aReserved);
+		this.count = aReserved;
+		this.depth = 0;
+		this.nsCount = 0;
+		this.startTagOpen = false;
+		this.document = null;
+	}
+
+	/**
+	 * Gets the buffer with the encoded bytes, which is valid until the next
+	 * call to {@link #reset(int)}.
+	 *
+	 * @return Buffer where the first {@link #size()} bytes are used
+	 */
+	public byte[] getBuffer() {
+		return this.buffer;
+	}
+
+	/**
+	 * Gets the number of bytes in the buffer, including the reserved bytes.
+	 *
+	 * @return Number of bytes
+	 */
+	public int size() {
+		return this.count;
+	}
+
+	/**
+	 * Copies the bytes written so far, including the reserved bytes.
+	 *
+	 * @return Copy of the buffer
+	 */
+	public byte[] toByteArray() {
+		byte[] theBytes = new byte[this.count];
+		System.arraycopy(this.buffer, 0, theBytes, 0, this.count);
+		return theBytes;
+	}
+
+	/**
+	 * Writes the bytes written so far, including the reserved bytes, to an
+	 * output stream.
+	 *
+	 * @param aOutput
+	 *            Output stream to write to
+	 *
+	 * @throws IOException
+	 *             Error writing to <code>aOutput</code>
+	 */
+	public void writeTo(OutputStream aOutput) throws IOException {
+		aOutput.write(this.buffer, 0, this.count);
+	}
+
+	/**
+	 * Writes the XML declaration.
+	 */
+	public void startDocument() {
+		write(XML_DECL);
+	}
+
+	/**
+	 * Starts an element. A namespace declaration is written for the prefix of
+	 * <code>aName</code> when it is not bound to <code>aNS</code>.
+	 *
+	 * @param aNS
+	 *            Namespace URI of the element
+	 * @param aName
+	 *            Qualified name of the element, like "domain:name"
+	 */
+	public void startElement(String aNS, String aName) {
+		closeStartTag();
+
+		if (this.depth == this.elements.length) {
+			String[] theElements = new String[this.depth * 2];
+			System.arraycopy(this.elements, 0, theElements, 0, this.depth);
+			this.elements = theElements;
+
+			int[] theMarks = new int[this.depth * 2];
+			System.arraycopy(this.nsMarks, 0, theMarks, 0, this.depth);
+			this.nsMarks = theMarks;
+		}
+		this.elements[this.depth] = aName;
+		this.nsMarks[this.depth] = this.nsCount;
+		this.depth++;
+
+		write('<');
+		writeASCII(aName);
+		this.startTagOpen = true;
+
+		if (aNS != null) {
+			namespace(EPPUtil.getPrefix(aName), aNS);
+		}
+	}
+
+	/**
+	 * Writes a namespace declaration on the current element if
+	 * <code>aPrefix</code> is not bound to <code>aNS</code>.
+	 *
+	 * @param aPrefix
+	 *            Namespace prefix, where an empty <code>String</code> is the
+	 *            default namespace
+	 * @param aNS
+	 *            Namespace URI
+	 */
+	public void namespace(String aPrefix, String aNS) {
+		if (aNS.equals(lookupNamespace(aPrefix))) {
+			return;
+		}
+
+		if (!this.startTagOpen) {
+			throw new IllegalStateException(
+					"EPPXMLWriter: namespace declaration outside of a start tag");
+		}
+
+		if (this.nsCount == this.nsPrefixes.length) {
+			String[] thePrefixes = new String[this.nsCount * 2];
+			System.arraycopy(this.nsPrefixes, 0, thePrefixes, 0, this.nsCount);
+			this.nsPrefixes = thePrefixes;
+
+			String[] theURIs = new String[this.nsCount * 2];
+			System.arraycopy(this.nsURIs, 0, theURIs, 0, this.nsCount);
+			this.nsURIs = theURIs;
+		}
+		this.nsPrefixes[this.nsCount] = aPrefix;
+		this.nsURIs[this.nsCount] = aNS;
+		this.nsCount++;
+
+		if (aPrefix.length() == 0) {
+			writeAttribute("xmlns", aNS);
+		}
+		else {
+			writeAttribute("xmlns:" + aPrefix, aNS);
+		}
+	}
+
+	/**
+	 * Writes an attribute on the current element. An attribute named
+	 * "xmlns" or "xmlns:prefix" is written as a namespace declaration with
+	 * {@link #namespace(String, String)}.
+	 *
+	 * @param aName
+	 *            Qualified name of the attribute
+	 * @param aValue
+	 *            Attribute value
+	 */
+	public void attribute(String aName, String aValue) {
+		if (aName.equals("xmlns")) {
+			namespace("", aValue);
+		}
+		else if (aName.startsWith("xmlns:")) {
+			namespace(aName.substring(6), aValue);
+		}
+		else {
+			writeAttribute(aName, aValue);
+		}
+	}
+
+	/**
+	 * Writes a namespace qualified attribute on the current element, with a
+	 * namespace declaration for the prefix of <code>aName</code> when it is
+	 * not bound to <code>aNS</code>.
+	 *
+	 * @param aNS
+	 *            Namespace URI of the attribute
+	 * @param aName
+	 *            Qualified name of the attribute, like
+	 *            "xsi:schemaLocation"
+	 * @param aValue
+	 *            Attribute value
+	 */
+	public void attribute(String aNS, String aName, String aValue) {
+		if (aNS != null) {
+			namespace(EPPUtil.getPrefix(aName), aNS);
+		}
+		writeAttribute(aName, aValue);
+	}
+
+	/**
+	 * Writes escaped character data in the current element.
+	 *
+	 * @param aText
+	 *            Text to write
+	 */
+	public void text(String aText) {
+		closeStartTag();
+
+		int theLength = aText.length();
+		for (int i = 0; i < theLength; i++) {
+			char theChar = aText.charAt(i);
+			switch (theChar) {
+				case '&':
+					writeASCII("&amp;");
+					break;
+				case '<':
+					writeASCII("&lt;");
+					break;
+				case '>':
+					writeASCII("&gt;");
+					break;
+				case '\r':
+					writeASCII("&#13;");
+					break;
+				default:
+					i = writeChar(aText, i);
+			}
+		}
+	}
+
+	/**
+	 * Ends the current element, either with an empty element tag or with an
+	 * end tag.
+	 */
+	public void endElement() {
+		if (this.depth == 0) {
+			throw new IllegalStateException("EPPXMLWriter: no open element");
+		}
+
+		this.depth--;
+		this.nsCount = this.nsMarks[this.depth];
+
+		if (this.startTagOpen) {
+			write('/');
+			write('>');
+			this.startTagOpen = false;
+		}
+		else {
+			write('<');
+			write('/');
+			writeASCII(this.elements[this.depth]);
+			write('>');
+		}
+		this.elements[this.depth] = null;
+	}
+
+	/**
+	 * Writes an element with text content if <code>aValue</code> is not
+	 * <code>null</code>, like <code>EPPUtil.encodeString</code>.
+	 *
+	 * @param aNS
+	 *            Namespace URI of the element
+	 * @param aName
+	 *            Qualified name of the element
+	 * @param aValue
+	 *            Text content, where nothing is written if
+	 *            <code>null</code>
+	 */
+	public void element(String aNS, String aName, String aValue) {
+		if (aValue != null) {
+			startElement(aNS, aName);
+			text(aValue);
+			endElement();
+		}
+	}
+
+	/**
+	 * Writes a component. A component whose class declares
+	 * <code>EPPStreamEncodable</code> is written directly, and any other
+	 * component is encoded to a DOM element that is written with
+	 * {@link #writeNode(Node)}.
+	 *
+	 * @param aComponent
+	 *            Component to write, where nothing is written if
+	 *            <code>null</code>
+	 *
+	 * @throws EPPEncodeException
+	 *             Error encoding the component
+	 */
+	public void writeComp(EPPCodecComponent aComponent)
+			throws EPPEncodeException {
+		if (aComponent == null) {
+			return;
+		}
+
+		if (EPPCodec.getInstance().isStreamEncodable(aComponent)) {
+			((EPPStreamEncodable) aComponent).encode(this);
+		}
+		else {
+			if (this.document == null) {
+				this.document = new DocumentImpl();
+			}
+			writeNode(aComponent.encode(this.document));
+		}
+	}
+
+	/**
+	 * Writes a DOM node with its children. Namespace declarations are
+	 * written for element and attribute prefixes that are not bound, like the
+	 * DOM serializer does. Comments and processing instructions are skipped.
+	 *
+	 * @param aNode
+	 *            Element or text node to write
+	 */
+	public void writeNode(Node aNode) {
+		switch (aNode.getNodeType()) {
+			case Node.ELEMENT_NODE:
+				Element theElement = (Element) aNode;
+				startElement(theElement.getNamespaceURI(), theElement
+						.getNodeName());
+
+				NamedNodeMap theAttrs = theElement.getAttributes();
+				for (int i = 0; i < theAttrs.getLength(); i++) {
+					Attr theAttr = (Attr) theAttrs.item(i);
+					String theName = theAttr.getName();
+					if (theName.equals("xmlns") || theName.startsWith("xmlns:")) {
+						attribute(theName, theAttr.getValue());
+					}
+				}
+				for (int i = 0; i < theAttrs.getLength(); i++) {
+					Attr theAttr = (Attr) theAttrs.item(i);
+					String theName = theAttr.getName();
+					if (!theName.equals("xmlns") && !theName.startsWith("xmlns:")) {
+						attribute(theAttr.getNamespaceURI(), theName, theAttr
+								.getValue());
+					}
+				}
+
+				for (Node theChild = theElement.getFirstChild(); theChild != null; theChild = theChild
+						.getNextSibling()) {
+					writeNode(theChild);
+				}
+
+				endElement();
+				break;
+
+			case Node.TEXT_NODE:
+			case Node.CDATA_SECTION_NODE:
+				text(aNode.getNodeValue());
+				break;
+
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Gets the namespace URI bound to a prefix.
+	 *
+	 * @param aPrefix
+	 *            Namespace prefix
+	 *
+	 * @return Namespace URI if bound; <code>null</code> otherwise.
+	 */
+	private String lookupNamespace(String aPrefix) {
+		for (int i = this.nsCount - 1; i >= 0; i--) {
+			if (this.nsPrefixes[i].equals(aPrefix)) {
+				return this.nsURIs[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Writes an escaped attribute on the open start tag.
+	 *
+	 * @param aName
+	 *            Qualified attribute name
+	 * @param aValue
+	 *            Attribute value
+	 */
+	private void writeAttribute(String aName, String aValue) {
+		if (!this.startTagOpen) {
+			throw new IllegalStateException("EPPXMLWriter: attribute " + aName
+					+ " outside of a start tag");
+		}
+
+		write(' ');
+		writeASCII(aName);
+		write('=');
+		write('"');
+
+		int theLength = aValue.length();
+		for (int i = 0; i < theLength; i++) {
+			char theChar = aValue.charAt(i);
+			switch (theChar) {
+				case '&':
+					writeASCII("&amp;");
+					break;
+				case '<':
+					writeASCII("&lt;");
+					break;
+				case '"':
+					writeASCII("&quot;");
+					break;
+				case '\t':
+					writeASCII("&#9;");
+					break;
+				case '\n':
+					writeASCII("&#10;");
+					break;
+				case '\r':
+					writeASCII("&#13;");
+					break;
+				default:
+					i = writeChar(aValue, i);
+			}
+		}
+
+		write('"');
+	}
+
+	/**
+	 * Closes the open start tag, if any.
+	 */
+	private void closeStartTag() {
+		if (this.startTagOpen) {
+			write('>');
+			this.startTagOpen = false;
+		}
+	}
+
+	/**
+	 * Writes the character at <code>aIndex</code> of <code>aText</code> in
+	 * UTF-8. A surrogate pair is written as one 4 byte character, and an
+	 * unpaired surrogate as '?'.
+	 *
+	 * @param aText
+	 *            Text to write from
+	 * @param aIndex
+	 *            Index of the character to write
+	 *
+	 * @return Index of the last character written
+	 */
+	private int writeChar(String aText, int aIndex) {
+		char theChar = aText.charAt(aIndex);
+
+		if (theChar < 0x80) {
+			write(theChar);
+		}
+		else if (theChar < 0x800) {
+			ensureCapacity(this.count + 2);
+			this.buffer[this.count++] = (byte) (0xC0 | (theChar >> 6));
+			this.buffer[this.count++] = (byte) (0x80 | (theChar & 0x3F));
+		}
+		else if (Character.isHighSurrogate(theChar)
+				&& aIndex + 1 < aText.length()
+				&& Character.isLowSurrogate(aText.charAt(aIndex + 1))) {
+			int theCodePoint = Character.toCodePoint(theChar, aText
+					.charAt(aIndex + 1));
+			ensureCapacity(this.count + 4);
+			this.buffer[this.count++] = (byte) (0xF0 | (theCodePoint >> 18));
+			this.buffer[this.count++] = (byte) (0x80 | ((theCodePoint >> 12) & 0x3F));
+			this.buffer[this.count++] = (byte) (0x80 | ((theCodePoint >> 6) & 0x3F));
+			this.buffer[this.count++] = (byte) (0x80 | (theCodePoint & 0x3F));
+			return aIndex + 1;
+		}
+		else if (Character.isSurrogate(theChar)) {
+			write('?');
+		}
+		else {
+			ensureCapacity(this.count + 3);
+			this.buffer[this.count++] = (byte) (0xE0 | (theChar >> 12));
+			this.buffer[this.count++] = (byte) (0x80 | ((theChar >> 6) & 0x3F));
+			this.buffer[this.count++] = (byte) (0x80 | (theChar & 0x3F));
+		}
+
+		return aIndex;
+	}
+
+	/**
+	 * Writes a name or markup that only contains ASCII characters.
+	 *
+	 * @param aText
+	 *            ASCII text to write
+	 */
+	private void writeASCII(String aText) {
+		int theLength = aText.length();
+		ensureCapacity(this.count + theLength);
+		for (int i = 0; i < theLength; i++) {
+			char theChar = aText.charAt(i);
+			if (theChar < 0x80) {
+				this.buffer[this.count++] = (byte) theChar;
+			}
+			else {
+				i = writeChar(aText, i);
+			}
+		}
+	}
+
+	/**
+	 * Writes a single ASCII character.
+	 *
+	 * @param aChar
+	 *            Character to write
+	 */
+	private void write(int aChar) {
+		ensureCapacity(this.count + 1);
+		this.buffer[this.count++] = (byte) aChar;
+	}
+
+	/**
+	 * Writes bytes.
+	 *
+	 * @param aBytes
+	 *            Bytes to write
+	 */
+	private void write(byte[] aBytes) {
+		ensureCapacity(this.count + aBytes.length);
+		System.arraycopy(aBytes, 0, this.buffer, this.count, aBytes.length);
+		this.count += aBytes.length;
+	}
+
+	/**
+	 * Grows the buffer to hold at least <code>aSize</code> bytes.
+	 *
+	 * @param aSize
+	 *            Required buffer size
+	 */
+	private void ensureCapacity(int aSize) {
+		if (aSize > this.buffer.length) {
+			byte[] theBuffer = new byte[Math.max(aSize, this.buffer.length * 2)];
+			System.arraycopy(this.buffer, 0, theBuffer, 0, this.count);
+			this.buffer = theBuffer;
+		}
+	}
+
+	/**
+	 * Converts ASCII text to bytes.
+	 *
+	 * @param aText
+	 *            ASCII text
+	 *
+	 * @return Bytes of <code>aText</code>
+	 */
+	private static byte[] toBytes(String aText) {
+		byte[] theBytes = new byte[aText.length()];
+		for (int i = 0; i < theBytes.length; i++) {
+			theBytes[i] = (byte) aText.charAt(i);
+		}
+		return theBytes;
+	}
+
+} // End class EPPXMLWriter
@@ -26,6 +26,7 @@ import com.verisign.epp.codec.signedMark.EPPIssuer;
 import com.verisign.epp.codec.signedMark.EPPSignedMark;
 import com.verisign.epp.codec.signedMark.SMDRevocationList;
 import com.verisign.epp.exception.EPPException;
+import com.verisign.epp.util.EPPCertPathValidationService;
 import com.verisign.epp.util.TestThread;
 import junit.framework.Assert;
 import junit.framework.Test;
@@ -34,11 +35,13 @@ import junit.framework.TestSuite;
 import org.apache.commons.codec.binary.Base64;
 
 import java.io.*;
+import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.cert.*;
 import java.util.*;
+import java.util.function.Predicate;
 
 /**
  * Is a unit test of the com.verisign.epp.codec.launch package. The unit test
@@ -113,6 +116,17 @@ public class EPPLaunchTst extends TestCase {
 	 */
 	private static final String TRUSTSTORE_FILENAME = "signedMarkTrust.jks";
 
+	/**
+	 * Keystore containing a private key and a certificate that is not issued
+	 * by a CA of <code>TRUSTSTORE_FILENAME</code>.
+	 */
+	private static final String UNTRUSTED_KEYSTORE_FILENAME = "verificationCode.jks";
+
+	/**
+	 * Alias for PrivateKeyEntry of <code>UNTRUSTED_KEYSTORE_FILENAME</code>.
+	 */
+	private static final String UNTRUSTED_KEYSTORE_KEY_ALIAS = "verificationcode";
+
 	/**
 	 * Root directory containing the sample Signed Mark Data (SMD)'s.
 	 */
@@ -1919,6 +1933,175 @@ public class EPPLaunchTst extends TestCase {
 		EPPCodecTst.printEnd("testRevokedSMDs");
 	}
 
+	/**
+	 * Tests validating the certificate chains of the test keystores with an
+	 * <code>EPPCertPathValidationService</code>. The tests include the
+	 * following:<br>
+	 * <br>
+	 * <ol>
+	 * <li>Test validating a valid chain and validating it again from the
+	 * cache
+	 * <li>Test that a chain not issued by a trust anchor is not validated
+	 * <li>Test that a chain with a certificate revoked by the CRL is not
+	 * validated, and is validated when revocation checking is disabled
+	 * <li>Test the batch validation results are in the order of the chains
+	 * </ol>
+	 * The certificates of the test keystores have expired, so the chains are
+	 * validated at a date when the certificates and the CRLs were valid.
+	 */
+	public void testCertPathValidationService() {
+		EPPCodecTst.printStart("testCertPathValidationService");
+
+		PKIXParameters theParams = (PKIXParameters) pkixParameters.clone();
+		theParams.setDate(new GregorianCalendar(2015, 5, 1).getTime());
+
+		final EPPCertPathValidationService theService;
+		List<X509Certificate> theUntrustedChain = null;
+		List<X509Certificate> theRevokedChain = null;
+		try {
+			theService = new EPPCertPathValidationService(theParams);
+
+			theUntrustedChain = toX509List(loadPrivateKeyEntry(
+					UNTRUSTED_KEYSTORE_FILENAME, UNTRUSTED_KEYSTORE_KEY_ALIAS,
+					KEYSTORE_PASSWORD).getCertificateChain());
+			theRevokedChain = toX509List(loadPrivateKeyEntry(
+					KEYSTORE_REVOKED_FILENAME, KEYSTORE_KEY_ALIAS,
+					KEYSTORE_PASSWORD).getCertificateChain());
+		}
+		catch (Exception ex) {
+			Assert.fail("testCertPathValidationService(): Error initializing test: "
+					+ ex);
+			return;
+		}
+		List<X509Certificate> theValidChain = toX509List(certChain);
+
+		/**
+		 * [1] Test validating a valid chain and validating it again from the
+		 * cache
+		 */
+		try {
+			theService.validate(theValidChain);
+		}
+		catch (GeneralSecurityException ex) {
+			Assert.fail("testCertPathValidationService(): [1] Error validating valid chain: "
+					+ ex);
+		}
+		Assert.assertEquals(1, theService.getMisses());
+		Assert.assertEquals(0, theService.getHits());
+		Assert.assertEquals(1, theService.getCacheSize());
+
+		for (int i = 0; i < numIterations; i++) {
+			try {
+				theService.validate(toX509List(certChain));
+			}
+			catch (GeneralSecurityException ex) {
+				Assert.fail("testCertPathValidationService(): [1] Error validating cached chain: "
+						+ ex);
+			}
+		}
+		Assert.assertEquals(1, theService.getMisses());
+		Assert.assertEquals(numIterations, theService.getHits());
+
+		System.out.println("testCertPathValidationService(): [1] Success");
+
+		/**
+		 * [2] Test that a chain not issued by a trust anchor is not validated
+		 */
+		try {
+			theService.validate(theUntrustedChain);
+			Assert.fail("testCertPathValidationService(): [2] Untrusted chain incorrectly validated");
+		}
+		catch (GeneralSecurityException ex) {
+			System.out.println("testCertPathValidationService(): [2] Expected exception: "
+					+ ex);
+		}
+		Assert.assertEquals(1, theService.getCacheSize());
+
+		System.out.println("testCertPathValidationService(): [2] Success");
+
+		/**
+		 * [3] Test that a chain with a revoked certificate is not validated
+		 */
+		if (!theParams.isRevocationEnabled()) {
+			Assert.fail("testCertPathValidationService(): [3] CRLs not loaded");
+		}
+		try {
+			theService.validate(theRevokedChain);
+			Assert.fail("testCertPathValidationService(): [3] Revoked chain incorrectly validated");
+		}
+		catch (GeneralSecurityException ex) {
+			System.out.println("testCertPathValidationService(): [3] Expected exception: "
+					+ ex);
+		}
+		Assert.assertEquals(1, theService.getCacheSize());
+
+		// Revoked chain is otherwise valid?
+		PKIXParameters theNoCrlParams = (PKIXParameters) theParams.clone();
+		theNoCrlParams.setRevocationEnabled(false);
+		try {
+			new EPPCertPathValidationService(theNoCrlParams)
+					.validate(theRevokedChain);
+		}
+		catch (GeneralSecurityException ex) {
+			Assert.fail("testCertPathValidationService(): [3] Error validating revoked chain without revocation checking: "
+					+ ex);
+		}
+
+		System.out.println("testCertPathValidationService(): [3] Success");
+
+		/**
+		 * [4] Test the batch validation results are in the order of the chains
+		 */
+		List<List<X509Certificate>> theBatch = new ArrayList<List<X509Certificate>>();
+		theBatch.add(theRevokedChain);
+		theBatch.add(theValidChain);
+		theBatch.add(theUntrustedChain);
+		theBatch.add(toX509List(certChain));
+		theBatch.add(theRevokedChain);
+
+		boolean[] theResults = theService.validateAll(theBatch,
+				new Predicate<List<X509Certificate>>() {
+					public boolean test(List<X509Certificate> aChain) {
+						try {
+							theService.validate(aChain);
+							return true;
+						}
+						catch (GeneralSecurityException ex) {
+							return false;
+						}
+					}
+				});
+
+		boolean[] theExpected = { false, true, false, true, false };
+		if (!Arrays.equals(theExpected, theResults)) {
+			Assert.fail("testCertPathValidationService(): [4] Batch results "
+					+ Arrays.toString(theResults) + " != "
+					+ Arrays.toString(theExpected));
+		}
+
+		System.out.println("testCertPathValidationService(): [4] Success");
+
+		EPPCodecTst.printEnd("testCertPathValidationService");
+	}
+
+	/**
+	 * Converts a keystore certificate chain to a list of
+	 * <code>X509Certificate</code> instances.
+	 * 
+	 * @param aCertChain
+	 *            Certificate chain
+	 * 
+	 * @return List of <code>X509Certificate</code> instances in the order of
+	 *         <code>aCertChain</code>
+	 */
+	private static List<X509Certificate> toX509List(Certificate[] aCertChain) {
+		List<X509Certificate> theList = new ArrayList<X509Certificate>();
+		for (Certificate theCert : aCertChain) {
+			theList.add((X509Certificate) theCert);
+		}
+		return theList;
+	}
+
 	/**
 	 * JUNIT <code>setUp</code> method, which sets the default client Id to
 	 * "theRegistrar" and initializes the <code>EPPDomainMapFactory</code> with
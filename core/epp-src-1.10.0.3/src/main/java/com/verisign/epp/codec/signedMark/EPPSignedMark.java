@@ -34,6 +34,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Predicate;
 
 import javax.xml.crypto.XMLStructure;
 import javax.xml.crypto.dom.DOMStructure;
@@ -74,6 +75,7 @@ import com.verisign.epp.codec.gen.EPPUtil;
 import com.verisign.epp.codec.mark.EPPMark;
 import com.verisign.epp.exception.EPPException;
 import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPCertPathValidationService;
 import com.verisign.epp.util.EPPXMLErrorHandler;
 import com.verisign.epp.util.EPPXMLSignatureParserPool;
 import com.verisign.epp.util.EqualityUtil;
@@ -693,6 +695,55 @@ public class EPPSignedMark implements EPPCodecComponent {
 	 */
 	public boolean validate ( PKIXParameters aPKIXParameters,
 			boolean aSynchronizePKIXParameters ) {
+		return this.validate( aPKIXParameters, aSynchronizePKIXParameters, null );
+	}
+
+
+	/**
+	 * Validate the signature attribute against the signed mark attributes like
+	 * {@link #validate(PKIXParameters, boolean)}, but validating the
+	 * certificate chain with an {@link EPPCertPathValidationService}, which
+	 * caches the successful chain validations and does not synchronize the
+	 * PKIX parameters.
+	 * 
+	 * @param aService
+	 *        Service used to validate the certificate chain
+	 * @return <code>true</code> if valid; <code>false</code> otherwise.
+	 */
+	public boolean validate ( EPPCertPathValidationService aService ) {
+		return this.validate( null, false, aService );
+	}
+
+
+	/**
+	 * Validate a batch of signed marks in parallel on the pool of an
+	 * {@link EPPCertPathValidationService}.
+	 * 
+	 * @param aSignedMarks
+	 *        Signed marks to validate
+	 * @param aService
+	 *        Service used to validate the certificate chains
+	 * @return Result of {@link #validate(EPPCertPathValidationService)} for
+	 *         each signed mark, in the order of <code>aSignedMarks</code>.
+	 */
+	public static boolean[] validate ( List<? extends EPPSignedMark> aSignedMarks,
+			final EPPCertPathValidationService aService ) {
+		return aService.validateAll( aSignedMarks, new Predicate<EPPSignedMark>() {
+			public boolean test ( EPPSignedMark aSignedMark ) {
+				return aSignedMark.validate( aService );
+			}
+		} );
+	}
+
+
+	/**
+	 * Validate the signature attribute against the signed mark attributes,
+	 * validating the certificate chain with <code>aService</code> if not
+	 * <code>null</code>, or with <code>aPKIXParameters</code> otherwise.
+	 */
+	private boolean validate ( PKIXParameters aPKIXParameters,
+			boolean aSynchronizePKIXParameters,
+			EPPCertPathValidationService aService ) {
 
 		cat.debug( "validate(PKIXParameters): enter" );
 
@@ -752,6 +803,12 @@ public class EPPSignedMark implements EPPCodecComponent {
 					throw new Exception( "No certificates found in Signature" );
 				}
 
+				// Validate certificate path with the cache of the service
+				if ( aService != null ) {
+					aService.validate( certificates );
+					continue;
+				}
+
 				CertificateFactory certFactory =
 						CertificateFactory.getInstance( "X.509" );
 				CertPath certPath = certFactory.generateCertPath( certificates );
@@ -886,7 +943,7 @@ public class EPPSignedMark implements EPPCodecComponent {
 			is = new ByteArrayInputStream( aSignedMarkArray );
 
 			parser = (DocumentBuilder) EPPXMLSignatureParserPool.getInstance()
-					.getPool().requestObject();
+					.getParserPool().borrowObject();
 			
 			if (aIgnoreParsingError) {
 				// Disable error handler
@@ -929,7 +986,7 @@ public class EPPSignedMark implements EPPCodecComponent {
 					parser.setErrorHandler(new EPPXMLErrorHandler());
 				}
 				
-				EPPXMLSignatureParserPool.getInstance().getPool()
+				EPPXMLSignatureParserPool.getInstance().getParserPool()
 						.returnObject(parser);
 			}
 		}
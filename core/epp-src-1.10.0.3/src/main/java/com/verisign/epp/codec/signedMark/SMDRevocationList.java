@@ -26,6 +26,7 @@ import com.verisign.epp.codec.gen.EPPDecodeException;
 import com.verisign.epp.codec.gen.EPPEncodeException;
 import com.verisign.epp.codec.gen.EPPUtil;
 import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPRevocationIndex;
 import com.verisign.epp.util.EqualityUtil;
 
 /**
@@ -37,7 +38,13 @@ import com.verisign.epp.util.EqualityUtil;
  * <li>Decode the SMD Revocation List from a <code>String</code> or an
  * <code>InputStream</code>.
  * <li>Check if a specific {@link EPPSignedMark} is revoked.
+ * <li>Update the SMD Revocation List with the SMD's revoked in a newer SMD
+ * Revocation List.
  * </ol>
+ * The revoked SMD's are held in an immutable {@link EPPRevocationIndex}, which
+ * is replaced as a whole when the list is decoded, updated, or changed. The
+ * changes synchronize on the list, but {@link #isRevoked(EPPSignedMark)} is a
+ * hash lookup on the current index that never waits on a refresh in progress.
  */
 public class SMDRevocationList {
 
@@ -60,17 +67,17 @@ public class SMDRevocationList {
 	/**
 	 * Version of the SMD Revocation List format.
 	 */
-	private int version = DEFAULT_VERSION;
+	private volatile int version = DEFAULT_VERSION;
 
 	/**
 	 * Datetime in UTC that the SMD Revocation List was created.
 	 */
-	private Date createdDate;
+	private volatile Date createdDate;
 
 	/**
-	 * List of revoked SMD's
+	 * Index of revoked SMD's
 	 */
-	private List<RevokedSMD> revokedSMDs = new ArrayList<RevokedSMD>();
+	private volatile EPPRevocationIndex revokedSMDs = EPPRevocationIndex.EMPTY;
 
 	/**
 	 * Default constructor. The createdDate must be set prior to calling the
@@ -103,7 +110,7 @@ public class SMDRevocationList {
 	 */
 	public SMDRevocationList(Date aCreatedDate, List<RevokedSMD> aRevokedSMDs) {
 		this.createdDate = aCreatedDate;
-		this.setRevokedSMDs(revokedSMDs);
+		this.setRevokedSMDs(aRevokedSMDs);
 	}
 
 	/**
@@ -146,12 +153,19 @@ public class SMDRevocationList {
 	}
 
 	/**
-	 * Gets the list of revoked SMD's.
+	 * Gets the list of revoked SMD's. The list is created from the index of
+	 * revoked SMD's, so changes to it are not applied to the SMD Revocation
+	 * List.
 	 * 
 	 * @return List of revoked SMD's
 	 */
 	public List<RevokedSMD> getRevokedSMDs() {
-		return this.revokedSMDs;
+		EPPRevocationIndex theIndex = this.revokedSMDs;
+		List<RevokedSMD> theList = new ArrayList<RevokedSMD>(theIndex.size());
+		for (int i = 0; i < theIndex.size(); i++) {
+			theList.add(new RevokedSMD(theIndex.getId(i), theIndex.getDate(i)));
+		}
+		return theList;
 	}
 
 	/**
@@ -161,22 +175,45 @@ public class SMDRevocationList {
 	 *            List of revoked SMD's
 	 */
 	public void setRevokedSMDs(List<RevokedSMD> aRevokedSMDs) {
-		if (aRevokedSMDs == null) {
-			this.revokedSMDs = new ArrayList<RevokedSMD>();
+		EPPRevocationIndex.Builder theBuilder = new EPPRevocationIndex.Builder();
+		if (aRevokedSMDs != null) {
+			for (RevokedSMD currRevokedSMD : aRevokedSMDs) {
+				theBuilder.add(currRevokedSMD.getId(),
+						currRevokedSMD.getRevokedDate());
+			}
 		}
-		else {
-			this.revokedSMDs = aRevokedSMDs;
+
+		synchronized (this) {
+			this.revokedSMDs = theBuilder.build();
 		}
 	}
 
 	/**
-	 * Adds a revoked SMD to the list of revoked SMD's.
+	 * Adds a revoked SMD to the list of revoked SMD's. The index is copied
+	 * on each call, so use {@link #setRevokedSMDs(List)} or
+	 * {@link #update(InputStream)} to add many SMD's.
 	 * 
 	 * @param aRevokedSMD
 	 *            Revoked SMD to add to the list of revoked SMD's
 	 */
 	public void addRevokedSMD(RevokedSMD aRevokedSMD) {
-		this.revokedSMDs.add(aRevokedSMD);
+		synchronized (this) {
+			EPPRevocationIndex.Builder theBuilder = this.revokedSMDs
+					.toBuilder();
+			if (theBuilder.add(aRevokedSMD.getId(),
+					aRevokedSMD.getRevokedDate())) {
+				this.revokedSMDs = theBuilder.build();
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of revoked SMD's.
+	 * 
+	 * @return Number of revoked SMD's
+	 */
+	public int getNumRevokedSMDs() {
+		return this.revokedSMDs.size();
 	}
 
 	/**
@@ -193,14 +230,11 @@ public class SMDRevocationList {
 
 		String signedMarkId = aSignedMark.getId();
 
-		for (RevokedSMD currSMD : this.revokedSMDs) {
-
-			if (currSMD.getId().equals(signedMarkId)) {
-				cat.debug("isRevoked(EPPSignedMark): Signed Mark Id = "
-						+ signedMarkId + " is revoked");
-				cat.debug("isRevoked(EPPSignedMark): exit");
-				return true;
-			}
+		if (this.revokedSMDs.contains(signedMarkId)) {
+			cat.debug("isRevoked(EPPSignedMark): Signed Mark Id = "
+					+ signedMarkId + " is revoked");
+			cat.debug("isRevoked(EPPSignedMark): exit");
+			return true;
 		}
 
 		cat.debug("isRevoked(EPPSignedMark): Signed Mark Id = " + signedMarkId
@@ -237,8 +271,10 @@ public class SMDRevocationList {
 		strBuffer.append(HEADER_LINE);
 		strBuffer.append('\n');
 
-		for (RevokedSMD currRevokedSMD : this.revokedSMDs) {
-			strBuffer.append(currRevokedSMD.encode());
+		EPPRevocationIndex theIndex = this.revokedSMDs;
+		for (int i = 0; i < theIndex.size(); i++) {
+			strBuffer.append(new RevokedSMD(theIndex.getId(i), theIndex
+					.getDate(i)).encode());
 			strBuffer.append('\n');
 		}
 
@@ -260,7 +296,8 @@ public class SMDRevocationList {
 	}
 
 	/**
-	 * Decodes the SMD Revocation List from an <code>InputStream</code>.
+	 * Decodes the SMD Revocation List from an <code>InputStream</code>,
+	 * replacing the revoked SMD's of the list.
 	 * 
 	 * @param aSMDRevocationListStream
 	 *            <code>InputStream</code> containing the full SMD Revocation
@@ -273,9 +310,85 @@ public class SMDRevocationList {
 			throws EPPDecodeException {
 		cat.debug("decode(InputStream): enter");
 
+		this.decode(aSMDRevocationListStream,
+				new EPPRevocationIndex.Builder(), null);
+
+		cat.debug("decode(String): exit");
+	}
+
+	/**
+	 * Updates the SMD Revocation List from a <code>String</code>.
+	 * 
+	 * @param aSMDRevocationListStr
+	 *            String containing a newer SMD Revocation List.
+	 * 
+	 * @return Number of SMD's added to the list
+	 * 
+	 * @throws EPPDecodeException
+	 *             Error decoding the SMD Revocation List
+	 * @see #update(InputStream)
+	 */
+	public int update(String aSMDRevocationListStr) throws EPPDecodeException {
+		return this.update(new ByteArrayInputStream(aSMDRevocationListStr
+				.getBytes()));
+	}
+
+	/**
+	 * Updates the SMD Revocation List with a newer SMD Revocation List, which
+	 * may be the full list or only hold the SMD's revoked since this list was
+	 * created. The SMD's that are not already revoked are added to a copy of
+	 * the index, which replaces the current index once the newer list is
+	 * decoded, so {@link #isRevoked(EPPSignedMark)} keeps using the current
+	 * index during the update. SMD's are never removed from a revocation list,
+	 * so the SMD's missing from the newer list are kept.
+	 * <br>
+	 * <br>
+	 * The newer list is decoded without holding the lock of this list, which
+	 * is only held to replace the index. A list created before this list is
+	 * ignored, so an older list that is fetched late does not roll back the
+	 * version and created date, and <code>0</code> is returned.
+	 * 
+	 * @param aSMDRevocationListStream
+	 *            <code>InputStream</code> containing a newer SMD Revocation
+	 *            List.
+	 * 
+	 * @return Number of SMD's added to the list
+	 * 
+	 * @throws EPPDecodeException
+	 *             Error decoding the SMD Revocation List
+	 */
+	public int update(InputStream aSMDRevocationListStream)
+			throws EPPDecodeException {
+		cat.debug("update(InputStream): enter");
+
+		EPPRevocationIndex theIndex = this.revokedSMDs;
+		int theCount = this.decode(aSMDRevocationListStream,
+				theIndex.toBuilder(), theIndex);
+
+		cat.debug("update(InputStream): added " + theCount
+				+ " revoked SMD's, exit");
+		return theCount;
+	}
+
+	/**
+	 * Decodes an SMD Revocation List into a builder and replaces the index of
+	 * revoked SMD's with the built index. When <code>aBase</code> is not
+	 * <code>null</code>, the list is an update of the index
+	 * <code>aBase</code> that was copied into the builder: an update created
+	 * before this list is ignored, and the SMD's added to the index since
+	 * <code>aBase</code> are added to the builder before the index is
+	 * replaced.
+	 * 
+	 * @return Number of revoked SMD's added to the index
+	 */
+	private int decode(InputStream aSMDRevocationListStream,
+			EPPRevocationIndex.Builder aBuilder, EPPRevocationIndex aBase)
+			throws EPPDecodeException {
 		BufferedReader bufferedReader = new BufferedReader(
 				new InputStreamReader(aSMDRevocationListStream));
 		String currLine;
+		int theVersion;
+		Date theCreatedDate;
 
 		try {
 			// Read version and created date line
@@ -296,11 +409,11 @@ public class SMDRevocationList {
 
 			// Version
 			String versionStr = currLine.substring(0, sepIndex);
-			this.version = Integer.parseInt(versionStr);
+			theVersion = Integer.parseInt(versionStr);
 
 			// Created Date
 			String createdDateStr = currLine.substring(sepIndex + 1);
-			this.createdDate = EPPUtil.decodeTimeInstant(createdDateStr);
+			theCreatedDate = EPPUtil.decodeTimeInstant(createdDateStr);
 
 			// Read header line
 			currLine = bufferedReader.readLine();
@@ -317,20 +430,46 @@ public class SMDRevocationList {
 			}
 
 			// Read the revoked SMD's
+			RevokedSMD revokedSMD = new RevokedSMD();
 
 			while ((currLine = bufferedReader.readLine()) != null) {
-				RevokedSMD revokedSMD = new RevokedSMD();
-
 				revokedSMD.decode(currLine);
 
-				this.addRevokedSMD(revokedSMD);
+				aBuilder.add(revokedSMD.getId(), revokedSMD.getRevokedDate());
 			}
 		}
 		catch (IOException e) {
 			throw new EPPDecodeException("Error reading SMD: " + e);
 		}
 
-		cat.debug("decode(String): exit");
+		synchronized (this) {
+			EPPRevocationIndex theCurrent = this.revokedSMDs;
+			int theCount = aBuilder.size();
+
+			if (aBase != null) {
+				// Update older than this list?
+				if (this.createdDate != null
+						&& theCreatedDate.before(this.createdDate)) {
+					cat.warn("decode(InputStream): Ignoring list created at "
+							+ theCreatedDate + " before " + this.createdDate);
+					return 0;
+				}
+
+				// Revoked SMD's added while decoding?
+				if (theCurrent != aBase) {
+					for (int i = 0; i < theCurrent.size(); i++) {
+						aBuilder.add(theCurrent.getId(i), theCurrent.getDate(i));
+					}
+				}
+
+				theCount = aBuilder.size() - theCurrent.size();
+			}
+
+			this.version = theVersion;
+			this.createdDate = theCreatedDate;
+			this.revokedSMDs = aBuilder.build();
+			return theCount;
+		}
 	}
 
 	/**
@@ -376,7 +515,7 @@ public class SMDRevocationList {
 		}
 
 		// Revoked SMD's
-		if (!EqualityUtil.equals(this.revokedSMDs, other.revokedSMDs)) {
+		if (!EqualityUtil.equals(this.getRevokedSMDs(), other.getRevokedSMDs())) {
 			cat.error("EPPMark.equals(): revokedSMDs not equal");
 			return false;
 		}
@@ -35,6 +35,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Predicate;
 
 import javax.xml.crypto.XMLStructure;
 import javax.xml.crypto.dom.DOMStructure;
@@ -74,6 +75,7 @@ import com.verisign.epp.codec.gen.EPPEncodeException;
 import com.verisign.epp.codec.gen.EPPUtil;
 import com.verisign.epp.exception.EPPException;
 import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPCertPathValidationService;
 import com.verisign.epp.util.EPPXMLErrorHandler;
 import com.verisign.epp.util.EPPXMLSignatureParserPool;
 import com.verisign.epp.util.EqualityUtil;
@@ -572,6 +574,52 @@ public class EPPSignedCode implements EPPCodecComponent {
 	 */
 	public boolean validate(PKIXParameters aPKIXParameters,
 			boolean aSynchronizePKIXParameters) {
+		return this.validate(aPKIXParameters, aSynchronizePKIXParameters, null);
+	}
+
+	/**
+	 * Validate the signature attribute against the signed code attributes
+	 * like {@link #validate(PKIXParameters, boolean)}, but validating the
+	 * certificate chain with an {@link EPPCertPathValidationService}, which
+	 * caches the successful chain validations and does not synchronize the
+	 * PKIX parameters.
+	 * 
+	 * @param aService
+	 *            Service used to validate the certificate chain
+	 * @return <code>true</code> if valid; <code>false</code> otherwise.
+	 */
+	public boolean validate(EPPCertPathValidationService aService) {
+		return this.validate(null, false, aService);
+	}
+
+	/**
+	 * Validate a batch of signed codes in parallel on the pool of an
+	 * {@link EPPCertPathValidationService}.
+	 * 
+	 * @param aSignedCodes
+	 *            Signed codes to validate
+	 * @param aService
+	 *            Service used to validate the certificate chains
+	 * @return Result of {@link #validate(EPPCertPathValidationService)} for
+	 *         each signed code, in the order of <code>aSignedCodes</code>.
+	 */
+	public static boolean[] validate(List<? extends EPPSignedCode> aSignedCodes,
+			final EPPCertPathValidationService aService) {
+		return aService.validateAll(aSignedCodes, new Predicate<EPPSignedCode>() {
+			public boolean test(EPPSignedCode aSignedCode) {
+				return aSignedCode.validate(aService);
+			}
+		});
+	}
+
+	/**
+	 * Validate the signature attribute against the signed code attributes,
+	 * validating the certificate chain with <code>aService</code> if not
+	 * <code>null</code>, or with <code>aPKIXParameters</code> otherwise.
+	 */
+	private boolean validate(PKIXParameters aPKIXParameters,
+			boolean aSynchronizePKIXParameters,
+			EPPCertPathValidationService aService) {
 
 		cat.debug("validate(PKIXParameters): enter");
 
@@ -632,6 +680,13 @@ public class EPPSignedCode implements EPPCodecComponent {
 					throw new Exception("No certificates found in Signature");
 				}
 
+				// Validate certificate path with the cache of the service
+				if (aService != null) {
+					this.trustAnchor = aService.validate(certificates)
+							.getTrustAnchor();
+					continue;
+				}
+
 				CertificateFactory certFactory = CertificateFactory
 						.getInstance("X.509");
 				CertPath certPath = certFactory.generateCertPath(certificates);
@@ -766,7 +821,7 @@ public class EPPSignedCode implements EPPCodecComponent {
 			is = new ByteArrayInputStream(aSignedCodeArray);
 
 			parser = (DocumentBuilder) EPPXMLSignatureParserPool.getInstance()
-					.getPool().requestObject();
+					.getParserPool().borrowObject();
 
 			if (aIgnoreParsingError) {
 				// Disable error handler
@@ -817,7 +872,7 @@ public class EPPSignedCode implements EPPCodecComponent {
 					parser.setErrorHandler(new EPPXMLErrorHandler());
 				}
 
-				EPPXMLSignatureParserPool.getInstance().getPool()
+				EPPXMLSignatureParserPool.getInstance().getParserPool()
 						.returnObject(parser);
 			}
 		}
@@ -35,8 +35,11 @@ import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.cert.Certificate;
 import java.security.cert.PKIXParameters;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.List;
 import java.util.Vector;
 
 import org.apache.commons.codec.binary.Base64;
@@ -59,6 +62,7 @@ import com.verisign.epp.codec.gen.EPPEncodeException;
 import com.verisign.epp.codec.gen.EPPFactory;
 import com.verisign.epp.codec.gen.EPPTransId;
 import com.verisign.epp.exception.EPPException;
+import com.verisign.epp.util.EPPCertPathValidationService;
 import com.verisign.epp.util.TestThread;
 
 /**
@@ -136,6 +140,23 @@ public class EPPVerificationCodeTst extends TestCase {
 	 */
 	private static final String TRUSTSTORE_FILENAME = "verificationCode.jks";
 
+	/**
+	 * Trust store that does not contain the VSP certificate of
+	 * <code>KEYSTORE_FILENAME</code>.
+	 */
+	private static final String UNTRUSTED_TRUSTSTORE_FILENAME = "signedMarkTrust.jks";
+
+	/**
+	 * Keystore containing a private key and certificate not issued by a trust
+	 * anchor of <code>TRUSTSTORE_FILENAME</code>.
+	 */
+	private static final String UNTRUSTED_KEYSTORE_FILENAME = "signedMark.jks";
+
+	/**
+	 * Alias for the PrivateKeyEntry of <code>UNTRUSTED_KEYSTORE_FILENAME</code>.
+	 */
+	private static final String UNTRUSTED_KEYSTORE_KEY_ALIAS = "signedMark";
+
 	/**
 	 * Creates a new EPPVerificationCodeTst object.
 	 *
@@ -782,6 +803,99 @@ public class EPPVerificationCodeTst extends TestCase {
 		EPPCodecTst.printEnd("testEncodedSignedCode");
 	}
 
+	/**
+	 * Tests validating signed codes with an
+	 * <code>EPPCertPathValidationService</code>. The tests include the
+	 * following:<br>
+	 * <br>
+	 * <ol>
+	 * <li>Test validating a valid signed code and validating it again from the
+	 * cache
+	 * <li>Test that a signed code is not validated with a service that does
+	 * not trust its VSP certificate
+	 * <li>Test the batch validation results are in the order of the signed
+	 * codes
+	 * </ol>
+	 */
+	public void testCertPathValidationService() {
+		EPPCodecTst.printStart("testCertPathValidationService");
+
+		try {
+			EPPCertPathValidationService theService = new EPPCertPathValidationService(
+					pkixParameters);
+
+			// [1] Valid signed code, validated again from the cache
+			EPPEncodedSignedCodeValue theValidCode = new EPPEncodedSignedCodeValue(
+					"0-abc555", "domain");
+			theValidCode.sign(privateKey, certChain);
+
+			if (!theValidCode.validate(theService)) {
+				Assert.fail("Encoded signed code validation error using service");
+			}
+			Assert.assertEquals(1, theService.getMisses());
+			Assert.assertEquals(0, theService.getHits());
+
+			for (int i = 0; i < numIterations; i++) {
+				if (!theValidCode.validate(theService)) {
+					Assert.fail("Encoded signed code validation error using service cache");
+				}
+			}
+			Assert.assertEquals(1, theService.getMisses());
+			Assert.assertEquals(numIterations, theService.getHits());
+			Assert.assertEquals(1, theService.getCacheSize());
+
+			// [2] Untrusted VSP certificate
+			EPPCertPathValidationService theUntrustedService = new EPPCertPathValidationService(
+					loadPKIXParameters(UNTRUSTED_TRUSTSTORE_FILENAME));
+			if (theValidCode.validate(theUntrustedService)) {
+				Assert.fail("Incorrectly validated signed code with untrusted VSP certificate");
+			}
+			Assert.assertEquals(0, theUntrustedService.getCacheSize());
+
+			// [3] Batch of valid and untrusted signed codes
+			KeyStore.PrivateKeyEntry theUntrustedEntry = loadPrivateKeyEntry(
+					UNTRUSTED_KEYSTORE_FILENAME, UNTRUSTED_KEYSTORE_KEY_ALIAS,
+					KEYSTORE_PASSWORD);
+			EPPEncodedSignedCodeValue theUntrustedCode = new EPPEncodedSignedCodeValue(
+					"0-abc666", "domain");
+			theUntrustedCode.sign(theUntrustedEntry.getPrivateKey(),
+					theUntrustedEntry.getCertificateChain());
+
+			EPPEncodedSignedCodeValue theRealNameCode = new EPPEncodedSignedCodeValue(
+					"0-rnvc777", "real-name");
+			theRealNameCode.sign(privateKey, certChain);
+
+			List<EPPSignedCode> theBatch = new ArrayList<EPPSignedCode>();
+			theBatch.add(theUntrustedCode);
+			theBatch.add(theValidCode);
+			theBatch.add(theUntrustedCode);
+			theBatch.add(theRealNameCode);
+
+			boolean[] theResults = EPPSignedCode.validate(theBatch, theService);
+
+			boolean[] theExpected = { false, true, false, true };
+			if (!Arrays.equals(theExpected, theResults)) {
+				Assert.fail("Batch results " + Arrays.toString(theResults)
+						+ " != " + Arrays.toString(theExpected));
+			}
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("Exception: " + e);
+		}
+		finally {
+			// Restore the verification code validator of the trust store
+			try {
+				loadPKIXParameters(TRUSTSTORE_FILENAME);
+			}
+			catch (Exception e) {
+				Assert.fail("Error reloading trust store: " + e);
+			}
+		}
+
+		EPPCodecTst.printEnd("testCertPathValidationService");
+	}
+
 	/**
 	 * JUNIT <code>setUp</code> method.
 	 */
@@ -20,6 +20,9 @@ package com.verisign.epp.codec.verificationcode;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 
@@ -35,7 +38,9 @@ import com.verisign.epp.util.EPPCatFactory;
  * <li>Code type
  * </ol>
  * The encoding of the trust anchor aliases is defined by
- * {@link TrustAnchorVerificationData}.
+ * {@link TrustAnchorVerificationData}. The decoded alias of each trust anchor
+ * is cached, so the trust store is only searched the first time a trust
+ * anchor is used.
  */
 public class TrustAnchorVerificationCodeValidator implements
 		EPPVerificationCodeValidator {
@@ -52,6 +57,11 @@ public class TrustAnchorVerificationCodeValidator implements
 	 */
 	private KeyStore trustStore;
 
+	/**
+	 * Decoded trust anchor aliases by trusted certificate.
+	 */
+	private Map<X509Certificate, TrustAnchorVerificationData> trustAnchorData = new ConcurrentHashMap<X509Certificate, TrustAnchorVerificationData>();
+
 	/**
 	 * Constructor of <code>TrustAnchorVerificationCodeValidator</code> that
 	 * takes the trust store containing the verification code trust anchors with
@@ -102,19 +112,33 @@ public class TrustAnchorVerificationCodeValidator implements
 		}
 
 		TrustAnchor theTrustAnchor = (TrustAnchor) aData;
+		X509Certificate theTrustedCert = theTrustAnchor.getTrustedCert();
 		String theTrustAnchorAlias = "";
 
 		// Get the trust anchor alias for the signed code
 		try {
-			theTrustAnchorAlias = this.trustStore
-					.getCertificateAlias(theTrustAnchor.getTrustedCert());
+			TrustAnchorVerificationData trustAnchorData = null;
+			if (theTrustedCert != null) {
+				trustAnchorData = this.trustAnchorData.get(theTrustedCert);
+			}
 
-			cat.debug("TrustAnchorVerificationCodeValidator.validate:"
-					+ "theTrustAnchorAlias = " + theTrustAnchorAlias);
+			if (trustAnchorData == null) {
+				theTrustAnchorAlias = this.trustStore
+						.getCertificateAlias(theTrustedCert);
 
-			// Parse trust anchor alias
-			TrustAnchorVerificationData trustAnchorData = new TrustAnchorVerificationData(
-					theTrustAnchorAlias);
+				cat.debug("TrustAnchorVerificationCodeValidator.validate:"
+						+ "theTrustAnchorAlias = " + theTrustAnchorAlias);
+
+				// Parse trust anchor alias
+				trustAnchorData = new TrustAnchorVerificationData(
+						theTrustAnchorAlias);
+				if (theTrustedCert != null) {
+					this.trustAnchorData.put(theTrustedCert, trustAnchorData);
+				}
+			}
+			else if (cat.isDebugEnabled()) {
+				theTrustAnchorAlias = trustAnchorData.encode();
+			}
 
 			// Validate the verification code against the trust anchor data
 
@@ -26,6 +26,7 @@ import com.verisign.epp.codec.gen.EPPDecodeException;
 import com.verisign.epp.codec.gen.EPPEncodeException;
 import com.verisign.epp.codec.gen.EPPUtil;
 import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPRevocationIndex;
 import com.verisign.epp.util.EqualityUtil;
 
 /**
@@ -37,7 +38,14 @@ import com.verisign.epp.util.EqualityUtil;
  * <li>Decode the Verification Code Revocation List from a <code>String</code>
  * or an <code>InputStream</code>.
  * <li>Check if a specific {@link EPPSignedCode} is revoked.
+ * <li>Update the Verification Code Revocation List with the Verification
+ * Code's revoked in a newer Verification Code Revocation List.
  * </ol>
+ * The revoked Verification Code's are held in an immutable
+ * {@link EPPRevocationIndex}, which is replaced as a whole when the list is
+ * decoded, updated, or changed. The changes synchronize on the list, but
+ * {@link #isRevoked(EPPSignedCode)} is a hash lookup on the current index that
+ * never waits on a refresh in progress.
  */
 public class VerificationCodeRevocationList {
 
@@ -61,17 +69,17 @@ public class VerificationCodeRevocationList {
 	/**
 	 * Version of the Verification Code Revocation List format.
 	 */
-	private int version = DEFAULT_VERSION;
+	private volatile int version = DEFAULT_VERSION;
 
 	/**
 	 * Datetime in UTC that the Verification Code Revocation List was created.
 	 */
-	private Date createdDate;
+	private volatile Date createdDate;
 
 	/**
-	 * List of revoked Verification Code's
+	 * Index of revoked Verification Code's
 	 */
-	private List<RevokedVerificationCode> revokedVerificationCodes = new ArrayList<RevokedVerificationCode>();
+	private volatile EPPRevocationIndex revokedVerificationCodes = EPPRevocationIndex.EMPTY;
 
 	/**
 	 * Default constructor. The createdDate must be set prior to calling the
@@ -107,7 +115,7 @@ public class VerificationCodeRevocationList {
 	public VerificationCodeRevocationList(Date aCreatedDate,
 			List<RevokedVerificationCode> aRevokedVerificationCodes) {
 		this.createdDate = aCreatedDate;
-		this.setRevokedVerificationCodes(revokedVerificationCodes);
+		this.setRevokedVerificationCodes(aRevokedVerificationCodes);
 	}
 
 	/**
@@ -154,12 +162,21 @@ public class VerificationCodeRevocationList {
 	}
 
 	/**
-	 * Gets the list of revoked <code>VerificationCode</code>'s.
+	 * Gets the list of revoked <code>VerificationCode</code>'s. The list is
+	 * created from the index of revoked <code>VerificationCode</code>'s, so
+	 * changes to it are not applied to the Verification Code Revocation List.
 	 * 
 	 * @return List of revoked <code>VerificationCode</code>'s
 	 */
 	public List<RevokedVerificationCode> getRevokedVerificationCodes() {
-		return this.revokedVerificationCodes;
+		EPPRevocationIndex theIndex = this.revokedVerificationCodes;
+		List<RevokedVerificationCode> theList = new ArrayList<RevokedVerificationCode>(
+				theIndex.size());
+		for (int i = 0; i < theIndex.size(); i++) {
+			theList.add(new RevokedVerificationCode(theIndex.getId(i), theIndex
+					.getDate(i)));
+		}
+		return theList;
 	}
 
 	/**
@@ -170,16 +187,24 @@ public class VerificationCodeRevocationList {
 	 */
 	public void setRevokedVerificationCodes(
 			List<RevokedVerificationCode> aRevokedVerificationCodes) {
-		if (aRevokedVerificationCodes == null) {
-			this.revokedVerificationCodes = new ArrayList<RevokedVerificationCode>();
+		EPPRevocationIndex.Builder theBuilder = new EPPRevocationIndex.Builder();
+		if (aRevokedVerificationCodes != null) {
+			for (RevokedVerificationCode currRevokedVerificationCode : aRevokedVerificationCodes) {
+				theBuilder.add(currRevokedVerificationCode.getCode(),
+						currRevokedVerificationCode.getRevokedDate());
+			}
 		}
-		else {
-			this.revokedVerificationCodes = aRevokedVerificationCodes;
+
+		synchronized (this) {
+			this.revokedVerificationCodes = theBuilder.build();
 		}
 	}
 
 	/**
 	 * Adds a revoked <code>VerificationCode</code> to the list of revoked
+	 * <code>VerificationCode</code>'s. The index is copied on each call, so
+	 * use {@link #setRevokedVerificationCodes(List)} or
+	 * {@link #update(InputStream)} to add many
 	 * <code>VerificationCode</code>'s.
 	 * 
 	 * @param aRevokedVerificationCode
@@ -188,7 +213,23 @@ public class VerificationCodeRevocationList {
 	 */
 	public void addRevokedVerificationCode(
 			RevokedVerificationCode aRevokedVerificationCode) {
-		this.revokedVerificationCodes.add(aRevokedVerificationCode);
+		synchronized (this) {
+			EPPRevocationIndex.Builder theBuilder = this.revokedVerificationCodes
+					.toBuilder();
+			if (theBuilder.add(aRevokedVerificationCode.getCode(),
+					aRevokedVerificationCode.getRevokedDate())) {
+				this.revokedVerificationCodes = theBuilder.build();
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of revoked <code>VerificationCode</code>'s.
+	 * 
+	 * @return Number of revoked <code>VerificationCode</code>'s
+	 */
+	public int getNumRevokedVerificationCodes() {
+		return this.revokedVerificationCodes.size();
 	}
 
 	/**
@@ -205,14 +246,11 @@ public class VerificationCodeRevocationList {
 
 		String verificationCode = aVerificationCode.getCode().getCode();
 
-		for (RevokedVerificationCode currVerificationCode : this.revokedVerificationCodes) {
-
-			if (currVerificationCode.getCode().equals(verificationCode)) {
-				cat.debug("isRevoked(EPPSignedCode): Verification Code = "
-						+ verificationCode + " is revoked");
-				cat.debug("isRevoked(EPPSignedCode): exit");
-				return true;
-			}
+		if (this.revokedVerificationCodes.contains(verificationCode)) {
+			cat.debug("isRevoked(EPPSignedCode): Verification Code = "
+					+ verificationCode + " is revoked");
+			cat.debug("isRevoked(EPPSignedCode): exit");
+			return true;
 		}
 
 		cat.debug("isRevoked(EPPSignedCode): Verification Code = "
@@ -249,8 +287,10 @@ public class VerificationCodeRevocationList {
 		strBuffer.append(HEADER_LINE);
 		strBuffer.append('\n');
 
-		for (RevokedVerificationCode currRevokedVerificationCode : this.revokedVerificationCodes) {
-			strBuffer.append(currRevokedVerificationCode.encode());
+		EPPRevocationIndex theIndex = this.revokedVerificationCodes;
+		for (int i = 0; i < theIndex.size(); i++) {
+			strBuffer.append(new RevokedVerificationCode(theIndex.getId(i),
+					theIndex.getDate(i)).encode());
 			strBuffer.append('\n');
 		}
 
@@ -275,7 +315,8 @@ public class VerificationCodeRevocationList {
 
 	/**
 	 * Decodes the Verification Code Revocation List from an
-	 * <code>InputStream</code>.
+	 * <code>InputStream</code>, replacing the revoked Verification Code's of
+	 * the list.
 	 * 
 	 * @param aVerificationCodeRevocationListStream
 	 *            <code>InputStream</code> containing the full Verification Code
@@ -288,9 +329,88 @@ public class VerificationCodeRevocationList {
 			throws EPPDecodeException {
 		cat.debug("decode(InputStream): enter");
 
+		this.decode(aVerificationCodeRevocationListStream,
+				new EPPRevocationIndex.Builder(), null);
+
+		cat.debug("decode(String): exit");
+	}
+
+	/**
+	 * Updates the Verification Code Revocation List from a <code>String</code>.
+	 * 
+	 * @param aVerificationCodeRevocationListStr
+	 *            String containing a newer Verification Code Revocation List.
+	 * 
+	 * @return Number of Verification Code's added to the list
+	 * 
+	 * @throws EPPDecodeException
+	 *             Error decoding the Verification Code Revocation List
+	 * @see #update(InputStream)
+	 */
+	public int update(String aVerificationCodeRevocationListStr)
+			throws EPPDecodeException {
+		return this.update(new ByteArrayInputStream(
+				aVerificationCodeRevocationListStr.getBytes()));
+	}
+
+	/**
+	 * Updates the Verification Code Revocation List with a newer Verification
+	 * Code Revocation List, which may be the full list or only hold the
+	 * Verification Code's revoked since this list was created. The
+	 * Verification Code's that are not already revoked are added to a copy of
+	 * the index, which replaces the current index once the newer list is
+	 * decoded, so {@link #isRevoked(EPPSignedCode)} keeps using the current
+	 * index during the update. Verification Code's are never removed from a
+	 * revocation list, so the Verification Code's missing from the newer list
+	 * are kept.
+	 * <br>
+	 * <br>
+	 * The newer list is decoded without holding the lock of this list, which
+	 * is only held to replace the index. A list created before this list is
+	 * ignored, so an older list that is fetched late does not roll back the
+	 * version and created date, and <code>0</code> is returned.
+	 * 
+	 * @param aVerificationCodeRevocationListStream
+	 *            <code>InputStream</code> containing a newer Verification Code
+	 *            Revocation List.
+	 * 
+	 * @return Number of Verification Code's added to the list
+	 * 
+	 * @throws EPPDecodeException
+	 *             Error decoding the Verification Code Revocation List
+	 */
+	public int update(InputStream aVerificationCodeRevocationListStream)
+			throws EPPDecodeException {
+		cat.debug("update(InputStream): enter");
+
+		EPPRevocationIndex theIndex = this.revokedVerificationCodes;
+		int theCount = this.decode(aVerificationCodeRevocationListStream,
+				theIndex.toBuilder(), theIndex);
+
+		cat.debug("update(InputStream): added " + theCount
+				+ " revoked Verification Code's, exit");
+		return theCount;
+	}
+
+	/**
+	 * Decodes a Verification Code Revocation List into a builder and replaces
+	 * the index of revoked Verification Code's with the built index. When
+	 * <code>aBase</code> is not <code>null</code>, the list is an update of
+	 * the index <code>aBase</code> that was copied into the builder: an
+	 * update created before this list is ignored, and the Verification Code's
+	 * added to the index since <code>aBase</code> are added to the builder
+	 * before the index is replaced.
+	 * 
+	 * @return Number of revoked Verification Code's added to the index
+	 */
+	private int decode(InputStream aVerificationCodeRevocationListStream,
+			EPPRevocationIndex.Builder aBuilder, EPPRevocationIndex aBase)
+			throws EPPDecodeException {
 		BufferedReader bufferedReader = new BufferedReader(
 				new InputStreamReader(aVerificationCodeRevocationListStream));
 		String currLine;
+		int theVersion;
+		Date theCreatedDate;
 
 		try {
 			// Read version and created date line
@@ -311,11 +431,11 @@ public class VerificationCodeRevocationList {
 
 			// Version
 			String versionStr = currLine.substring(0, sepIndex);
-			this.version = Integer.parseInt(versionStr);
+			theVersion = Integer.parseInt(versionStr);
 
 			// Created Date
 			String createdDateStr = currLine.substring(sepIndex + 1);
-			this.createdDate = EPPUtil.decodeTimeInstant(createdDateStr);
+			theCreatedDate = EPPUtil.decodeTimeInstant(createdDateStr);
 
 			// Read header line
 			currLine = bufferedReader.readLine();
@@ -332,12 +452,13 @@ public class VerificationCodeRevocationList {
 			}
 
 			// Read the revoked Verification Code's
-			while ((currLine = bufferedReader.readLine()) != null) {
-				RevokedVerificationCode revokedVerificationCode = new RevokedVerificationCode();
+			RevokedVerificationCode revokedVerificationCode = new RevokedVerificationCode();
 
+			while ((currLine = bufferedReader.readLine()) != null) {
 				revokedVerificationCode.decode(currLine);
 
-				this.addRevokedVerificationCode(revokedVerificationCode);
+				aBuilder.add(revokedVerificationCode.getCode(),
+						revokedVerificationCode.getRevokedDate());
 			}
 		}
 		catch (IOException e) {
@@ -345,7 +466,34 @@ public class VerificationCodeRevocationList {
 					+ e);
 		}
 
-		cat.debug("decode(String): exit");
+		synchronized (this) {
+			EPPRevocationIndex theCurrent = this.revokedVerificationCodes;
+			int theCount = aBuilder.size();
+
+			if (aBase != null) {
+				// Update older than this list?
+				if (this.createdDate != null
+						&& theCreatedDate.before(this.createdDate)) {
+					cat.warn("decode(InputStream): Ignoring list created at "
+							+ theCreatedDate + " before " + this.createdDate);
+					return 0;
+				}
+
+				// Revoked Verification Code's added while decoding?
+				if (theCurrent != aBase) {
+					for (int i = 0; i < theCurrent.size(); i++) {
+						aBuilder.add(theCurrent.getId(i), theCurrent.getDate(i));
+					}
+				}
+
+				theCount = aBuilder.size() - theCurrent.size();
+			}
+
+			this.version = theVersion;
+			this.createdDate = theCreatedDate;
+			this.revokedVerificationCodes = aBuilder.build();
+			return theCount;
+		}
 	}
 
 	/**
@@ -393,8 +541,8 @@ public class VerificationCodeRevocationList {
 		}
 
 		// Revoked VerificationCode's
-		if (!EqualityUtil.equals(this.revokedVerificationCodes,
-				other.revokedVerificationCodes)) {
+		if (!EqualityUtil.equals(this.getRevokedVerificationCodes(),
+				other.getRevokedVerificationCodes())) {
 			cat.error("EPPMark.equals(): revokedVerificationCodes not equal");
 			return false;
 		}
@@ -62,6 +62,9 @@ public class EPPByteArrayDispatcher {
 	 */
 	private EPPByteArrayAssembler theAssembler;
 
+	/** connectionHandler receives notifications of new connections. */
+	private EPPConnectionHandler connectionHandler;
+
 	/**
 	 * Creates the EPPByteArrayDispatcher.
 	 */
@@ -88,6 +91,48 @@ public class EPPByteArrayDispatcher {
 		this.theAssembler = aByteArrayAssembler;
 	}
 
+	/**
+	 * Notifies the registered <code>EPPConnectionHandler</code> of a new
+	 * connection and returns the encoded response, like the greeting, as a
+	 * <code>byte</code> array.
+	 * 
+	 * @param aData
+	 *            Any additional data that may be required by the
+	 *            EPPConnectionHandler
+	 * @return Encoded response of the connection handler or
+	 *         <code>null</code> if there is no connection handler or the
+	 *         connection handler returned no response
+	 * @exception EPPAssemblerException
+	 *                Exception encoding the response of the connection
+	 *                handler
+	 */
+	public byte[] processConnection(Object aData)
+			throws EPPAssemblerException {
+		LOG.debug("processConnection(Object): Enter");
+
+		if (this.theAssembler == null) {
+			throw new EPPAssemblerException(
+					"No Assembler registered with EPPByteArrayDispatcher",
+					EPPAssemblerException.FATAL);
+		}
+
+		byte[] responseBytes = null;
+		if (this.connectionHandler != null) {
+			EPPEventResponse greeting = this.connectionHandler
+					.handleConnection(aData);
+			if (greeting != null && greeting.getResponse() != null) {
+				responseBytes = this.theAssembler.encode(greeting, aData);
+			}
+		}
+		else {
+			LOG.debug("processConnection(Object): No connection handler registered");
+		}
+
+		LOG.debug("processConnection(Object): Return");
+
+		return responseBytes;
+	}
+
 	/**
 	 * Creates an <code>EPPMessage</code>, sends the message to the appropriate
 	 * <code>EPPEventHandler</code>, and then returns the response as a
@@ -171,6 +216,18 @@ public class EPPByteArrayDispatcher {
 		this.eventHandlers.put(aHandler.getNamespace(), aHandler);
 	}
 
+	/**
+	 * Registers an <code>EPPConnectionHandler</code> for notification of new
+	 * connections.
+	 * 
+	 * @param aConnectionHandler
+	 *            The connection handler to register
+	 */
+	public void registerConnectionHandler(
+			EPPConnectionHandler aConnectionHandler) {
+		this.connectionHandler = aConnectionHandler;
+	}
+
 	/**
 	 * Encodes an EPP message to a <code>byte</code> array.
 	 * 
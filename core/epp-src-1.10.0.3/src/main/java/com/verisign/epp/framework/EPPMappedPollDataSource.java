@@ -0,0 +1,1320 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.framework;
+
+//----------------------------------------------
+//
+// imports...
+//
+//----------------------------------------------
+// Java Core Imports
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.Logger;
+import org.w3c.dom.Document;
+
+// EPP Imports
+import com.verisign.epp.codec.gen.EPPCodec;
+import com.verisign.epp.codec.gen.EPPMessage;
+import com.verisign.epp.exception.EPPException;
+import com.verisign.epp.util.EPPBinaryXML;
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPExecutors;
+
+/**
+ * Persistent <code>EPPPollDataSource</code> that appends the poll messages to
+ * memory-mapped segment files and keeps a queue of message locations per
+ * recipient, so the queued messages survive restarts and are not held on
+ * the heap. <br>
+ * <br>
+ * The recipient queues are keyed by <code>aRecp.toString()</code>, with a
+ * <code>null</code> recipient using a shared queue. The message identifiers
+ * are increasing numbers that are unique across the recipients. The message
+ * data is stored with <code>EPPCodec</code> and <code>EPPBinaryXML</code>
+ * when it is an <code>EPPMessage</code>, like the responses queued by the
+ * Stub Server, and with Java serialization when it is
+ * <code>Serializable</code>. <br>
+ * <br>
+ * {@link #get(Object, Object)} reads the head of the recipient queue and an
+ * ack of any message of the queue with
+ * {@link #delete(Object, String, Object)} is a constant time operation. An
+ * ack marks the message in its segment, so no separate log of acks is
+ * needed to restore the queues. A background task deletes the segments
+ * without unacknowledged messages, and moves the unacknowledged messages of
+ * sparse segments to the active segment so that a few old messages don't
+ * keep large segments on disk. <br>
+ * <br>
+ * The writes to the mapped segments survive a crash of the process. Use
+ * <code>aSync</code> of
+ * {@link #EPPMappedPollDataSource(File, int, long, boolean)} to force every
+ * change to the disk to survive a crash of the host. <br>
+ * <br>
+ * Each segment starts with a 4 byte magic and a 4 byte version, followed by
+ * the records, where each record is: <br>
+ * <br>
+ * <ul>
+ * <li><code>int</code> - Total record length, which is written last, so a
+ * <code>0</code> marks the end of the records.</li>
+ * <li><code>byte</code> - Status of <code>LIVE</code>, <code>ACKED</code>
+ * or <code>MOVED</code>.</li>
+ * <li><code>long</code> - Message identifier.</li>
+ * <li><code>long</code> - Queue date in milliseconds.</li>
+ * <li><code>short</code> length and UTF-8 bytes of the recipient.</li>
+ * <li><code>short</code> length and UTF-8 bytes of the kind.</li>
+ * <li><code>byte</code> - Data encoding.</li>
+ * <li><code>int</code> length and bytes of the data.</li>
+ * </ul>
+ */
+public class EPPMappedPollDataSource implements EPPPollDataSource {
+
+	/** Default size of a segment file in bytes (64 MB) */
+	public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+	/** Default interval of the segment compaction in milliseconds */
+	public static final long DEFAULT_COMPACT_INTERVAL = 60 * 1000;
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(
+			EPPMappedPollDataSource.class.getName(), EPPCatFactory
+					.getInstance().getFactory());
+
+	/** Segment magic ("EPQS") */
+	private static final int MAGIC = 0x45505153;
+
+	/** Segment format version */
+	private static final int VERSION = 1;
+
+	/** Size of the segment header */
+	private static final int SEGMENT_HEADER_SIZE = 8;
+
+	/** Offset of the status from the start of a record */
+	private static final int STATUS_OFFSET = 4;
+
+	/** Size of the fixed fields of a record */
+	private static final int RECORD_FIXED_SIZE = 4 + 1 + 8 + 8 + 2 + 2 + 1 + 4;
+
+	/** Status of an unacknowledged message */
+	private static final byte STATUS_LIVE = 0;
+
+	/** Status of an acknowledged message */
+	private static final byte STATUS_ACKED = 1;
+
+	/** Status of a message moved to another segment by the compaction */
+	private static final byte STATUS_MOVED = 2;
+
+	/** Data encoded with <code>EPPCodec</code> and <code>EPPBinaryXML</code> */
+	private static final byte DATA_EPP = 1;
+
+	/** Data encoded with Java serialization */
+	private static final byte DATA_SERIALIZED = 2;
+
+	/** Data is <code>null</code> */
+	private static final byte DATA_NULL = 3;
+
+	/** Prefix of the segment file names */
+	private static final String SEGMENT_PREFIX = "poll-";
+
+	/** Suffix of the segment file names */
+	private static final String SEGMENT_SUFFIX = ".seg";
+
+	/** Queue key of the <code>null</code> recipient */
+	private static final String NULL_RECIPIENT = "";
+
+	/**
+	 * Segments with less than <code>1 / COMPACT_RATIO</code> of their
+	 * messages unacknowledged are compacted.
+	 */
+	private static final int COMPACT_RATIO = 4;
+
+	/**
+	 * Memory-mapped segment file.
+	 */
+	private static class Segment {
+
+		/** Sequence number of the segment */
+		final int seq;
+
+		/** Segment file */
+		final File file;
+
+		/** Channel of the segment file */
+		final FileChannel channel;
+
+		/** Mapped segment file */
+		final MappedByteBuffer buffer;
+
+		/** Offset to append the next record at */
+		int writePos = SEGMENT_HEADER_SIZE;
+
+		/** Number of records */
+		int total = 0;
+
+		/** Number of unacknowledged records */
+		int live = 0;
+
+		/**
+		 * Opens or creates a segment file.
+		 *
+		 * @param aSeq
+		 *            Sequence number of the segment
+		 * @param aFile
+		 *            Segment file
+		 * @param aSize
+		 *            Size of a new segment file
+		 *
+		 * @throws IOException
+		 *             Error opening or mapping the file
+		 */
+		Segment(int aSeq, File aFile, int aSize) throws IOException {
+			this.seq = aSeq;
+			this.file = aFile;
+
+			boolean theNew = !aFile.exists();
+			RandomAccessFile theFile = new RandomAccessFile(aFile, "rw");
+			try {
+				if (theNew) {
+					theFile.setLength(aSize);
+				}
+				this.channel = theFile.getChannel();
+				this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE,
+						0, theFile.length());
+			}
+			catch (IOException ex) {
+				theFile.close();
+				throw ex;
+			}
+
+			if (theNew) {
+				this.buffer.putInt(0, MAGIC);
+				this.buffer.putInt(4, VERSION);
+			}
+			else if (this.buffer.getInt(0) != MAGIC
+					|| this.buffer.getInt(4) != VERSION) {
+				this.channel.close();
+				throw new IOException("Invalid poll segment " + aFile);
+			}
+		}
+
+		/**
+		 * Closes the segment file.
+		 */
+		void close() {
+			try {
+				this.channel.close();
+			}
+			catch (IOException ex) {
+				cat.error("Segment.close(): Error closing " + this.file + ": "
+						+ ex);
+			}
+		}
+	}
+
+	/**
+	 * Queue of message locations of a recipient in message identifier order.
+	 * The message identifiers and locations are kept in two primitive arrays
+	 * from the head to the tail index, sorted by message identifier. A new
+	 * message has the highest identifier, so it is appended at the tail. An
+	 * ack of the head only advances the head index, and an ack of another
+	 * message, found with a binary search, leaves a tombstone location that
+	 * the head index skips. The tombstones are dropped when the arrays are
+	 * full.
+	 */
+	private static class RecipientQueue {
+
+		/** Location of an acknowledged message */
+		private static final long TOMBSTONE = -1;
+
+		/** Initial capacity of the arrays */
+		private static final int INITIAL_CAPACITY = 16;
+
+		/** Message identifiers in ascending order */
+		private long[] ids = new long[INITIAL_CAPACITY];
+
+		/**
+		 * Locations of the messages of <code>ids</code>, with the segment
+		 * sequence number in the upper and the record offset in the lower 32
+		 * bits, or <code>TOMBSTONE</code>
+		 */
+		private long[] locs = new long[INITIAL_CAPACITY];
+
+		/** Index of the oldest unacknowledged message */
+		private int head = 0;
+
+		/** Index after the newest message */
+		private int tail = 0;
+
+		/** Number of unacknowledged messages */
+		private int size = 0;
+
+		/**
+		 * Adds a message in message identifier order, or replaces the
+		 * location of a message already in the queue. A message restored
+		 * out of order is inserted by shifting the newer messages.
+		 *
+		 * @param aId
+		 *            Message identifier
+		 * @param aLoc
+		 *            Message location
+		 *
+		 * @return Previous location of the message; <code>-1</code>
+		 *         otherwise.
+		 */
+		long put(long aId, long aLoc) {
+			if (this.tail == this.ids.length) {
+				this.compact();
+			}
+
+			int theIdx = this.indexOf(aId);
+			if (theIdx >= 0) {
+				long thePrev = this.locs[theIdx];
+				this.locs[theIdx] = aLoc;
+				if (thePrev == TOMBSTONE) {
+					this.size++;
+				}
+				return thePrev;
+			}
+
+			theIdx = -(theIdx + 1);
+			System.arraycopy(this.ids, theIdx, this.ids, theIdx + 1, this.tail
+					- theIdx);
+			System.arraycopy(this.locs, theIdx, this.locs, theIdx + 1,
+					this.tail - theIdx);
+			this.ids[theIdx] = aId;
+			this.locs[theIdx] = aLoc;
+			this.tail++;
+			this.size++;
+			return -1;
+		}
+
+		/**
+		 * Gets the location of a message.
+		 *
+		 * @param aId
+		 *            Message identifier
+		 *
+		 * @return Location of the unacknowledged message; <code>-1</code>
+		 *         otherwise.
+		 */
+		long getLoc(long aId) {
+			int theIdx = this.indexOf(aId);
+			return (theIdx < 0 ? -1 : this.locs[theIdx]);
+		}
+
+		/**
+		 * Gets the location of the head.
+		 *
+		 * @return Location of the oldest unacknowledged message
+		 */
+		long getHeadLoc() {
+			return this.locs[this.head];
+		}
+
+		/**
+		 * Removes a message.
+		 *
+		 * @param aId
+		 *            Message identifier
+		 *
+		 * @return Location of the removed message; <code>-1</code> if it was
+		 *         not in the queue.
+		 */
+		long remove(long aId) {
+			int theIdx = this.indexOf(aId);
+			if (theIdx < 0 || this.locs[theIdx] == TOMBSTONE) {
+				return -1;
+			}
+
+			long theLoc = this.locs[theIdx];
+			this.locs[theIdx] = TOMBSTONE;
+			this.size--;
+
+			if (this.size == 0) {
+				this.head = 0;
+				this.tail = 0;
+			}
+			else {
+				while (this.locs[this.head] == TOMBSTONE) {
+					this.head++;
+				}
+			}
+			return theLoc;
+		}
+
+		/**
+		 * Gets the number of unacknowledged messages.
+		 *
+		 * @return Size of the queue
+		 */
+		int size() {
+			return this.size;
+		}
+
+		/**
+		 * Finds the index of a message, checking the head and the tail before
+		 * doing a binary search.
+		 *
+		 * @param aId
+		 *            Message identifier
+		 *
+		 * @return Index of the message, which may have a
+		 *         <code>TOMBSTONE</code> location, if found; otherwise
+		 *         <code>(-(insertion point) - 1)</code> like
+		 *         <code>Arrays.binarySearch</code>.
+		 */
+		private int indexOf(long aId) {
+			if (this.head == this.tail || this.ids[this.tail - 1] < aId) {
+				return -(this.tail + 1);
+			}
+			if (this.ids[this.head] == aId) {
+				return this.head;
+			}
+			return Arrays.binarySearch(this.ids, this.head, this.tail, aId);
+		}
+
+		/**
+		 * Moves the unacknowledged messages to the start of the arrays,
+		 * dropping the tombstones, and doubles the arrays when more than half
+		 * of them is still used.
+		 */
+		private void compact() {
+			long[] theIds = this.ids;
+			long[] theLocs = this.locs;
+			if (this.size >= this.ids.length / 2) {
+				theIds = new long[this.ids.length * 2];
+				theLocs = new long[this.locs.length * 2];
+			}
+
+			int theCount = 0;
+			for (int i = this.head; i < this.tail; i++) {
+				if (this.locs[i] != TOMBSTONE) {
+					theIds[theCount] = this.ids[i];
+					theLocs[theCount] = this.locs[i];
+					theCount++;
+				}
+			}
+
+			this.ids = theIds;
+			this.locs = theLocs;
+			this.head = 0;
+			this.tail = theCount;
+		}
+	}
+
+	/** Directory of the segment files */
+	private final File directory;
+
+	/** Size of a new segment file */
+	private final int segmentSize;
+
+	/** Force every change to the disk? */
+	private final boolean sync;
+
+	/** Segments by sequence number */
+	private final TreeMap<Integer, Segment> segments = new TreeMap<Integer, Segment>();
+
+	/** Segment that records are appended to */
+	private Segment active = null;
+
+	/** Queues by recipient */
+	private final Map<String, RecipientQueue> queues = new HashMap<String, RecipientQueue>();
+
+	/** Last message identifier */
+	private long lastMsgId = 0;
+
+	/** Encoder and decoder of <code>EPPMessage</code> data */
+	private final EPPBinaryXML binaryXML = new EPPBinaryXML();
+
+	/** Runs the segment compaction */
+	private ScheduledExecutorService compactor = null;
+
+	/**
+	 * Guards all of the state. A lock is used instead of
+	 * <code>synchronized</code> methods, so that virtual threads don't pin
+	 * their carrier thread while waiting on the queue.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * Opens the poll data source in a directory with the default segment
+	 * size and compaction interval.
+	 *
+	 * @param aDirectory
+	 *            Directory of the segment files, which is created if it
+	 *            doesn't exist
+	 *
+	 * @exception EPPPollQueueException
+	 *                Error opening the segment files
+	 */
+	public EPPMappedPollDataSource(File aDirectory)
+			throws EPPPollQueueException {
+		this(aDirectory, DEFAULT_SEGMENT_SIZE, DEFAULT_COMPACT_INTERVAL, false);
+	}
+
+	/**
+	 * Opens the poll data source in a directory and restores the recipient
+	 * queues from the segment files.
+	 *
+	 * @param aDirectory
+	 *            Directory of the segment files, which is created if it
+	 *            doesn't exist
+	 * @param aSegmentSize
+	 *            Size of a new segment file in bytes, which limits the size
+	 *            of a message
+	 * @param aCompactInterval
+	 *            Interval of the segment compaction in milliseconds, where
+	 *            <code>0</code> disables the background compaction
+	 * @param aSync
+	 *            <code>true</code> to force every change to the disk
+	 *
+	 * @exception EPPPollQueueException
+	 *                Error opening the segment files
+	 */
+	public EPPMappedPollDataSource(File aDirectory, int aSegmentSize,
+			long aCompactInterval, boolean aSync) throws EPPPollQueueException {
+		if (aSegmentSize <= SEGMENT_HEADER_SIZE + RECORD_FIXED_SIZE) {
+			throw new IllegalArgumentException("Segment size " + aSegmentSize
+					+ " is too small");
+		}
+
+		this.directory = aDirectory;
+		this.segmentSize = aSegmentSize;
+		this.sync = aSync;
+
+		if (!aDirectory.isDirectory() && !aDirectory.mkdirs()) {
+			throw new EPPPollQueueException("Unable to create directory "
+					+ aDirectory);
+		}
+
+		this.lock.lock();
+		try {
+			this.restore();
+		}
+		catch (IOException ex) {
+			this.closeSegments();
+			cat.error("EPPMappedPollDataSource(): Error restoring "
+					+ aDirectory + ": " + ex);
+			throw new EPPPollQueueException("Error restoring " + aDirectory
+					+ ": " + ex);
+		}
+		finally {
+			this.lock.unlock();
+		}
+
+		if (aCompactInterval > 0) {
+			this.compactor = Executors
+					.newSingleThreadScheduledExecutor(EPPExecutors
+							.newThreadFactory("EPPMappedPollDataSource-"
+									+ aDirectory.getName()));
+			this.compactor.scheduleWithFixedDelay(new Runnable() {
+
+				public void run() {
+					try {
+						compact();
+					}
+					catch (Throwable ex) {
+						cat.error("compact(): Error compacting segments: "
+								+ ex, ex);
+					}
+				}
+			}, aCompactInterval, aCompactInterval, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Opens the segment files and restores the recipient queues from their
+	 * unacknowledged records.
+	 *
+	 * @throws IOException
+	 *             Error opening a segment file
+	 */
+	private void restore() throws IOException {
+		File[] theFiles = this.directory.listFiles();
+		for (int i = 0; theFiles != null && i < theFiles.length; i++) {
+			String theName = theFiles[i].getName();
+			if (theName.startsWith(SEGMENT_PREFIX)
+					&& theName.endsWith(SEGMENT_SUFFIX)) {
+				int theSeq;
+				try {
+					theSeq = Integer.parseInt(theName.substring(SEGMENT_PREFIX
+							.length(), theName.length()
+							- SEGMENT_SUFFIX.length()));
+				}
+				catch (NumberFormatException ex) {
+					continue;
+				}
+				this.segments.put(new Integer(theSeq), new Segment(theSeq,
+						theFiles[i], this.segmentSize));
+			}
+		}
+
+		Iterator<Segment> theIter = this.segments.values().iterator();
+		while (theIter.hasNext()) {
+			Segment theSegment = theIter.next();
+			MappedByteBuffer theBuffer = theSegment.buffer;
+			int thePos = SEGMENT_HEADER_SIZE;
+
+			while (thePos + RECORD_FIXED_SIZE <= theBuffer.capacity()) {
+				int theLength = theBuffer.getInt(thePos);
+				if (theLength < RECORD_FIXED_SIZE
+						|| thePos + theLength > theBuffer.capacity()) {
+					break;
+				}
+
+				long theMsgId = theBuffer.getLong(thePos + 5);
+				this.lastMsgId = Math.max(this.lastMsgId, theMsgId);
+				theSegment.total++;
+
+				if (theBuffer.get(thePos + STATUS_OFFSET) == STATUS_LIVE) {
+					String theRecp = readString(theBuffer, thePos + 21);
+					long thePrev = this.getQueue(theRecp).put(theMsgId,
+							toLoc(theSegment.seq, thePos));
+					theSegment.live++;
+
+					// Copy of a message moved before a crash?
+					if (thePrev >= 0) {
+						this.dropCopy(thePrev);
+					}
+				}
+
+				thePos += theLength;
+			}
+
+			theSegment.writePos = thePos;
+			this.active = theSegment;
+		}
+
+		cat.info("restore(): Restored " + this.segments.size()
+				+ " segments and " + this.queues.size()
+				+ " recipient queues from " + this.directory);
+	}
+
+	/**
+	 * Marks the older copy of a message found in more than one segment as
+	 * moved. The segments are restored in sequence order and the compaction
+	 * only appends to the newest segment, so the copy found first is the
+	 * older one. Marking it on disk keeps a later {@link #moveLive(Segment)}
+	 * of its segment from copying the message again.
+	 *
+	 * @param aLoc
+	 *            Location of the older copy
+	 */
+	private void dropCopy(long aLoc) {
+		Segment theSegment = this.getSegment(aLoc);
+		theSegment.buffer.put(toOffset(aLoc) + STATUS_OFFSET, STATUS_MOVED);
+		theSegment.live--;
+		if (this.sync) {
+			theSegment.buffer.force();
+		}
+	}
+
+	/**
+	 * Gets the next poll data record of a recipient, which is the head of
+	 * its queue.
+	 *
+	 * @param aRecp
+	 *            Recipient of the poll message
+	 * @param aContextData
+	 *            Not used
+	 *
+	 * @return Next poll data record with the size of the recipient queue
+	 *
+	 * @exception EPPPollQueueException
+	 *                Empty queue or error reading the record
+	 */
+	public EPPPollDataRecord get(Object aRecp, Object aContextData)
+			throws EPPPollQueueException {
+		this.lock.lock();
+		try {
+			RecipientQueue theQueue = this.queues.get(toKey(aRecp));
+			if (theQueue == null || theQueue.size() == 0) {
+				throw new EPPPollQueueException(
+						EPPPollQueueException.TYPE_QUEUE_EMPTY,
+						"EPPMappedPollDataSource.get(), Empty queue");
+			}
+
+			EPPPollDataRecord theRecord = this.readRecord(theQueue
+					.getHeadLoc());
+			theRecord.setSize(theQueue.size());
+			return theRecord;
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Appends a message to the queue of a recipient.
+	 *
+	 * @param aRecp
+	 *            Recipient of the poll message
+	 * @param aKind
+	 *            Kind of the poll message
+	 * @param aData
+	 *            <code>EPPMessage</code>, <code>Serializable</code> or
+	 *            <code>null</code> message data
+	 * @param aContextData
+	 *            Not used
+	 *
+	 * @exception EPPPollQueueException
+	 *                Error encoding the data or writing the record
+	 */
+	public void put(Object aRecp, String aKind, Object aData,
+			Object aContextData) throws EPPPollQueueException {
+		byte theType;
+		byte[] theData;
+		if (aData == null) {
+			theType = DATA_NULL;
+			theData = new byte[0];
+		}
+		else if (aData instanceof EPPMessage) {
+			theType = DATA_EPP;
+			theData = this.encodeMessage((EPPMessage) aData);
+		}
+		else if (aData instanceof Serializable) {
+			theType = DATA_SERIALIZED;
+			theData = serialize((Serializable) aData);
+		}
+		else {
+			throw new EPPPollQueueException("Unable to store data of class "
+					+ aData.getClass().getName());
+		}
+
+		String theRecp = toKey(aRecp);
+
+		this.lock.lock();
+		try {
+			long theMsgId = ++this.lastMsgId;
+			long theLoc = this.append(STATUS_LIVE, theMsgId, System
+					.currentTimeMillis(), toUTF8(theRecp), toUTF8(aKind),
+					theType, theData);
+			this.getQueue(theRecp).put(theMsgId, theLoc);
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Acknowledges a message of the queue of a recipient.
+	 *
+	 * @param aRecp
+	 *            Recipient queue
+	 * @param aMsgId
+	 *            Identifier of the message to acknowledge
+	 * @param aContextData
+	 *            Not used
+	 *
+	 * @return Number of messages left in the queue
+	 *
+	 * @exception EPPPollQueueException
+	 *                Message not found in the recipient queue
+	 */
+	public int delete(Object aRecp, String aMsgId, Object aContextData)
+			throws EPPPollQueueException {
+		long theMsgId;
+		try {
+			theMsgId = Long.parseLong(aMsgId);
+		}
+		catch (NumberFormatException ex) {
+			throw new EPPPollQueueException(
+					EPPPollQueueException.TYPE_MSGID_NOT_FOUND,
+					"Invalid message identifier " + aMsgId);
+		}
+
+		this.lock.lock();
+		try {
+			RecipientQueue theQueue = this.queues.get(toKey(aRecp));
+			long theLoc = (theQueue == null ? -1 : theQueue.remove(theMsgId));
+			if (theLoc < 0) {
+				throw new EPPPollQueueException(
+						EPPPollQueueException.TYPE_MSGID_NOT_FOUND,
+						"Message " + aMsgId + " not found");
+			}
+
+			Segment theSegment = this.getSegment(theLoc);
+			theSegment.buffer.put(toOffset(theLoc) + STATUS_OFFSET,
+					STATUS_ACKED);
+			theSegment.live--;
+			if (this.sync) {
+				theSegment.buffer.force();
+			}
+
+			return theQueue.size();
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of unacknowledged messages of a recipient.
+	 *
+	 * @param aRecp
+	 *            Recipient queue
+	 *
+	 * @return Number of messages in the queue
+	 */
+	public int size(Object aRecp) {
+		this.lock.lock();
+		try {
+			RecipientQueue theQueue = this.queues.get(toKey(aRecp));
+			return (theQueue == null ? 0 : theQueue.size());
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of segment files.
+	 *
+	 * @return Number of segment files
+	 */
+	public int getSegmentCount() {
+		this.lock.lock();
+		try {
+			return this.segments.size();
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Deletes the segments without unacknowledged messages and moves the
+	 * unacknowledged messages of sparse segments to the active segment. This
+	 * is run in the background every compaction interval, and can be called
+	 * directly. The active segment is never compacted.
+	 *
+	 * @exception EPPPollQueueException
+	 *                Error moving a message
+	 */
+	public void compact() throws EPPPollQueueException {
+		Integer[] theSeqs;
+		this.lock.lock();
+		try {
+			theSeqs = this.segments.keySet().toArray(
+					new Integer[this.segments.size()]);
+		}
+		finally {
+			this.lock.unlock();
+		}
+
+		for (int i = 0; i < theSeqs.length; i++) {
+			this.lock.lock();
+			try {
+				Segment theSegment = this.segments.get(theSeqs[i]);
+				if (theSegment == null || theSegment == this.active) {
+					continue;
+				}
+
+				if (theSegment.live > 0
+						&& theSegment.live * COMPACT_RATIO < theSegment.total) {
+					this.moveLive(theSegment);
+				}
+
+				if (theSegment.live == 0) {
+					this.segments.remove(theSeqs[i]);
+					theSegment.close();
+					if (!theSegment.file.delete()) {
+						cat.error("compact(): Unable to delete "
+								+ theSegment.file);
+					}
+					cat.debug("compact(): Deleted segment " + theSegment.file);
+				}
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Moves the unacknowledged messages of a segment to the active segment.
+	 * The copies are written before the originals are marked as moved, and
+	 * {@link #restore()} drops the older copy of messages found twice.
+	 *
+	 * @param aSegment
+	 *            Segment to move the messages from
+	 *
+	 * @exception EPPPollQueueException
+	 *                Error appending a message
+	 */
+	private void moveLive(Segment aSegment) throws EPPPollQueueException {
+		MappedByteBuffer theBuffer = aSegment.buffer;
+		int thePos = SEGMENT_HEADER_SIZE;
+
+		while (thePos < aSegment.writePos) {
+			int theLength = theBuffer.getInt(thePos);
+
+			if (theBuffer.get(thePos + STATUS_OFFSET) == STATUS_LIVE) {
+				long theMsgId = theBuffer.getLong(thePos + 5);
+				long theQDate = theBuffer.getLong(thePos + 13);
+				int theFieldPos = thePos + 21;
+				byte[] theRecp = readBytes(theBuffer, theFieldPos);
+				theFieldPos += 2 + theRecp.length;
+
+				// Skip a record the queue doesn't refer to, which is a
+				// stale copy that must not be delivered again
+				RecipientQueue theQueue = this.queues.get(fromUTF8(theRecp));
+				if (theQueue == null
+						|| theQueue.getLoc(theMsgId) != toLoc(aSegment.seq,
+								thePos)) {
+					cat.warn("moveLive(): Skipping stale copy of message "
+							+ theMsgId + " in " + aSegment.file);
+					theBuffer.put(thePos + STATUS_OFFSET, STATUS_MOVED);
+					thePos += theLength;
+					continue;
+				}
+
+				byte[] theKind = readBytes(theBuffer, theFieldPos);
+				theFieldPos += 2 + theKind.length;
+				byte theType = theBuffer.get(theFieldPos);
+				byte[] theData = new byte[theBuffer.getInt(theFieldPos + 1)];
+				readFully(theBuffer, theFieldPos + 5, theData);
+
+				long theLoc = this.append(STATUS_LIVE, theMsgId, theQDate,
+						theRecp, theKind, theType, theData);
+				theQueue.put(theMsgId, theLoc);
+
+				theBuffer.put(thePos + STATUS_OFFSET, STATUS_MOVED);
+				aSegment.live--;
+			}
+
+			thePos += theLength;
+		}
+
+		if (this.sync) {
+			theBuffer.force();
+		}
+	}
+
+	/**
+	 * Stops the background compaction and closes the segment files.
+	 */
+	public void close() {
+		if (this.compactor != null) {
+			this.compactor.shutdown();
+			this.compactor = null;
+		}
+
+		this.lock.lock();
+		try {
+			Iterator<Segment> theIter = this.segments.values().iterator();
+			while (theIter.hasNext()) {
+				theIter.next().buffer.force();
+			}
+			this.closeSegments();
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Closes and forgets the segment files.
+	 */
+	private void closeSegments() {
+		Iterator<Segment> theIter = this.segments.values().iterator();
+		while (theIter.hasNext()) {
+			theIter.next().close();
+		}
+		this.segments.clear();
+		this.queues.clear();
+		this.active = null;
+	}
+
+	/**
+	 * Appends a record to the active segment, and creates a new active
+	 * segment when the record doesn't fit.
+	 *
+	 * @return Location of the record
+	 *
+	 * @exception EPPPollQueueException
+	 *                Record is larger than a segment or error creating a
+	 *                segment
+	 */
+	private long append(byte aStatus, long aMsgId, long aQDate,
+			byte[] aRecp, byte[] aKind, byte aType, byte[] aData)
+			throws EPPPollQueueException {
+		int theLength = RECORD_FIXED_SIZE + aRecp.length + aKind.length
+				+ aData.length;
+		if (SEGMENT_HEADER_SIZE + theLength > this.segmentSize) {
+			throw new EPPPollQueueException("Poll message of " + theLength
+					+ " bytes is larger than the segment size "
+					+ this.segmentSize);
+		}
+		if (aRecp.length > Short.MAX_VALUE || aKind.length > Short.MAX_VALUE) {
+			throw new EPPPollQueueException("Recipient or kind is too long");
+		}
+
+		if (this.active == null
+				|| this.active.writePos + theLength > this.active.buffer
+						.capacity()) {
+			this.newSegment();
+		}
+
+		Segment theSegment = this.active;
+		MappedByteBuffer theBuffer = theSegment.buffer;
+		int thePos = theSegment.writePos;
+
+		theBuffer.put(thePos + STATUS_OFFSET, aStatus);
+		theBuffer.putLong(thePos + 5, aMsgId);
+		theBuffer.putLong(thePos + 13, aQDate);
+		int theFieldPos = thePos + 21;
+		theBuffer.putShort(theFieldPos, (short) aRecp.length);
+		writeFully(theBuffer, theFieldPos + 2, aRecp);
+		theFieldPos += 2 + aRecp.length;
+		theBuffer.putShort(theFieldPos, (short) aKind.length);
+		writeFully(theBuffer, theFieldPos + 2, aKind);
+		theFieldPos += 2 + aKind.length;
+		theBuffer.put(theFieldPos, aType);
+		theBuffer.putInt(theFieldPos + 1, aData.length);
+		writeFully(theBuffer, theFieldPos + 5, aData);
+
+		// The length is written last to commit the record
+		theBuffer.putInt(thePos, theLength);
+		if (this.sync) {
+			theBuffer.force();
+		}
+
+		theSegment.writePos += theLength;
+		theSegment.total++;
+		theSegment.live++;
+
+		return toLoc(theSegment.seq, thePos);
+	}
+
+	/**
+	 * Creates a new active segment.
+	 *
+	 * @exception EPPPollQueueException
+	 *                Error creating the segment file
+	 */
+	private void newSegment() throws EPPPollQueueException {
+		int theSeq = (this.segments.isEmpty() ? 1 : this.segments.lastKey()
+				.intValue() + 1);
+		File theFile = new File(this.directory, SEGMENT_PREFIX
+				+ String.format("%010d", new Integer(theSeq)) + SEGMENT_SUFFIX);
+		try {
+			Segment theSegment = new Segment(theSeq, theFile, this.segmentSize);
+			this.segments.put(new Integer(theSeq), theSegment);
+			this.active = theSegment;
+			cat.debug("newSegment(): Created segment " + theFile);
+		}
+		catch (IOException ex) {
+			cat.error("newSegment(): Error creating " + theFile + ": " + ex);
+			throw new EPPPollQueueException("Error creating " + theFile + ": "
+					+ ex);
+		}
+	}
+
+	/**
+	 * Reads the poll data record at a location.
+	 *
+	 * @param aLoc
+	 *            Location of the record
+	 *
+	 * @return Poll data record
+	 *
+	 * @exception EPPPollQueueException
+	 *                Error decoding the data
+	 */
+	private EPPPollDataRecord readRecord(long aLoc)
+			throws EPPPollQueueException {
+		MappedByteBuffer theBuffer = this.getSegment(aLoc).buffer;
+		int thePos = toOffset(aLoc);
+
+		long theMsgId = theBuffer.getLong(thePos + 5);
+		long theQDate = theBuffer.getLong(thePos + 13);
+		int theFieldPos = thePos + 21;
+		theFieldPos += 2 + theBuffer.getShort(theFieldPos);
+		byte[] theKind = readBytes(theBuffer, theFieldPos);
+		theFieldPos += 2 + theKind.length;
+		byte theType = theBuffer.get(theFieldPos);
+		byte[] theBytes = new byte[theBuffer.getInt(theFieldPos + 1)];
+		readFully(theBuffer, theFieldPos + 5, theBytes);
+
+		Object theData;
+		if (theType == DATA_EPP) {
+			theData = this.decodeMessage(theBytes);
+		}
+		else if (theType == DATA_SERIALIZED) {
+			theData = deserialize(theBytes);
+		}
+		else {
+			theData = null;
+		}
+
+		return new EPPPollDataRecord(fromUTF8(theKind), theData, String
+				.valueOf(theMsgId), new Date(theQDate),
+				EPPPollDataRecord.UNDEFINED);
+	}
+
+	/**
+	 * Encodes an <code>EPPMessage</code> with <code>EPPCodec</code> and
+	 * <code>EPPBinaryXML</code>.
+	 *
+	 * @param aMessage
+	 *            Message to encode
+	 *
+	 * @return Encoded message without the packet header
+	 *
+	 * @exception EPPPollQueueException
+	 *                Error encoding the message
+	 */
+	private byte[] encodeMessage(EPPMessage aMessage)
+			throws EPPPollQueueException {
+		try {
+			Document theDoc = EPPCodec.getInstance().encode(aMessage);
+			byte[] thePacket;
+			synchronized (this.binaryXML) {
+				thePacket = this.binaryXML.encode(theDoc);
+			}
+			byte[] theBody = new byte[thePacket.length - 4];
+			System.arraycopy(thePacket, 4, theBody, 0, theBody.length);
+			return theBody;
+		}
+		catch (EPPException ex) {
+			cat.error("encodeMessage(): Error encoding " + aMessage + ": "
+					+ ex);
+			throw new EPPPollQueueException("Error encoding poll message: "
+					+ ex);
+		}
+	}
+
+	/**
+	 * Decodes an <code>EPPMessage</code> encoded by
+	 * {@link #encodeMessage(EPPMessage)}.
+	 *
+	 * @param aBytes
+	 *            Encoded message
+	 *
+	 * @return Decoded message
+	 *
+	 * @exception EPPPollQueueException
+	 *                Error decoding the message
+	 */
+	private EPPMessage decodeMessage(byte[] aBytes)
+			throws EPPPollQueueException {
+		try {
+			Document theDoc;
+			synchronized (this.binaryXML) {
+				theDoc = this.binaryXML.decode(aBytes);
+			}
+			return EPPCodec.getInstance().decode(theDoc);
+		}
+		catch (EPPException ex) {
+			cat.error("decodeMessage(): Error decoding poll message: " + ex);
+			throw new EPPPollQueueException("Error decoding poll message: "
+					+ ex);
+		}
+	}
+
+	/**
+	 * Serializes data with Java serialization.
+	 *
+	 * @param aData
+	 *            Data to serialize
+	 *
+	 * @return Serialized data
+	 *
+	 * @exception EPPPollQueueException
+	 *                Error serializing the data
+	 */
+	private static byte[] serialize(Serializable aData)
+			throws EPPPollQueueException {
+		try {
+			ByteArrayOutputStream theBytes = new ByteArrayOutputStream();
+			ObjectOutputStream theStream = new ObjectOutputStream(theBytes);
+			theStream.writeObject(aData);
+			theStream.close();
+			return theBytes.toByteArray();
+		}
+		catch (IOException ex) {
+			throw new EPPPollQueueException("Error serializing poll message: "
+					+ ex);
+		}
+	}
+
+	/**
+	 * Deserializes data serialized by {@link #serialize(Serializable)}.
+	 *
+	 * @param aBytes
+	 *            Serialized data
+	 *
+	 * @return Deserialized data
+	 *
+	 * @exception EPPPollQueueException
+	 *                Error deserializing the data
+	 */
+	private static Object deserialize(byte[] aBytes)
+			throws EPPPollQueueException {
+		try {
+			ObjectInputStream theStream = new ObjectInputStream(
+					new ByteArrayInputStream(aBytes));
+			try {
+				return theStream.readObject();
+			}
+			finally {
+				theStream.close();
+			}
+		}
+		catch (IOException ex) {
+			throw new EPPPollQueueException(
+					"Error deserializing poll message: " + ex);
+		}
+		catch (ClassNotFoundException ex) {
+			throw new EPPPollQueueException(
+					"Error deserializing poll message: " + ex);
+		}
+	}
+
+	/**
+	 * Gets the queue of a recipient, which is created if it doesn't exist.
+	 *
+	 * @param aRecp
+	 *            Recipient key
+	 *
+	 * @return Recipient queue
+	 */
+	private RecipientQueue getQueue(String aRecp) {
+		RecipientQueue theQueue = this.queues.get(aRecp);
+		if (theQueue == null) {
+			theQueue = new RecipientQueue();
+			this.queues.put(aRecp, theQueue);
+		}
+		return theQueue;
+	}
+
+	/**
+	 * Gets the segment of a location.
+	 *
+	 * @param aLoc
+	 *            Record location
+	 *
+	 * @return Segment of the record
+	 */
+	private Segment getSegment(long aLoc) {
+		return this.segments.get(new Integer((int) (aLoc >>> 32)));
+	}
+
+	/**
+	 * Packs a segment sequence number and record offset into a location.
+	 */
+	private static long toLoc(int aSeq, int aOffset) {
+		return ((long) aSeq << 32) | (aOffset & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Gets the record offset of a location.
+	 */
+	private static int toOffset(long aLoc) {
+		return (int) aLoc;
+	}
+
+	/**
+	 * Gets the queue key of a recipient.
+	 */
+	private static String toKey(Object aRecp) {
+		return (aRecp == null ? NULL_RECIPIENT : aRecp.toString());
+	}
+
+	/**
+	 * Reads a string with a <code>short</code> length.
+	 */
+	private static String readString(MappedByteBuffer aBuffer, int aPos) {
+		return fromUTF8(readBytes(aBuffer, aPos));
+	}
+
+	/**
+	 * Reads bytes with a <code>short</code> length.
+	 */
+	private static byte[] readBytes(MappedByteBuffer aBuffer, int aPos) {
+		byte[] theBytes = new byte[aBuffer.getShort(aPos)];
+		readFully(aBuffer, aPos + 2, theBytes);
+		return theBytes;
+	}
+
+	/**
+	 * Reads bytes at an absolute position of a buffer.
+	 */
+	private static void readFully(MappedByteBuffer aBuffer, int aPos,
+			byte[] aBytes) {
+		ByteBuffer theBuffer = aBuffer.duplicate();
+		theBuffer.position(aPos);
+		theBuffer.get(aBytes);
+	}
+
+	/**
+	 * Writes bytes at an absolute position of a buffer.
+	 */
+	private static void writeFully(MappedByteBuffer aBuffer, int aPos,
+			byte[] aBytes) {
+		ByteBuffer theBuffer = aBuffer.duplicate();
+		theBuffer.position(aPos);
+		theBuffer.put(aBytes);
+	}
+
+	/**
+	 * Encodes a string to UTF-8.
+	 */
+	private static byte[] toUTF8(String aValue) {
+		try {
+			return (aValue == null ? new byte[0] : aValue.getBytes("UTF-8"));
+		}
+		catch (UnsupportedEncodingException ex) {
+			throw new IllegalStateException(ex.toString());
+		}
+	}
+
+	/**
+	 * Decodes a UTF-8 string.
+	 */
+	private static String fromUTF8(byte[] aBytes) {
+		try {
+			return new String(aBytes, "UTF-8");
+		}
+		catch (UnsupportedEncodingException ex) {
+			throw new IllegalStateException(ex.toString());
+		}
+	}
+}
@@ -0,0 +1,564 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.framework;
+
+//----------------------------------------------
+//
+// imports...
+//
+//----------------------------------------------
+
+// Java Core Imports
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Date;
+
+// JUNIT Imports
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import com.verisign.epp.codec.domain.EPPDomainMapFactory;
+import com.verisign.epp.codec.domain.EPPDomainTransferResp;
+import com.verisign.epp.codec.gen.EPPFactory;
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.codec.gen.EPPResult;
+import com.verisign.epp.codec.gen.EPPTransId;
+
+/**
+ * Is a unit test of <code>EPPMappedPollDataSource</code>. The tests put,
+ * get and acknowledge poll messages of multiple recipients, restore the
+ * queues after reopening the segment files, and compact the segments.
+ */
+public class EPPMappedPollDataSourceTst extends TestCase {
+
+	/**
+	 * Number of unit test iterations to run. This is set with the
+	 * <code>iterations</code> system property.
+	 */
+	static private long numIterations = 1;
+
+	/** Segment size of the tests, which fits a few messages per segment */
+	private static final int SEGMENT_SIZE = 4096;
+
+	/** Request and action date of the poll messages */
+	private static final Date MSG_DATE = new Date(1500000000000L);
+
+	/** Directory of the segment files of a test */
+	private File directory;
+
+	/**
+	 * Allocates a new instance of <code>EPPMappedPollDataSourceTst</code>.
+	 *
+	 * @param name
+	 *            Name of test
+	 */
+	public EPPMappedPollDataSourceTst(String name) {
+		super(name);
+	}
+
+	/**
+	 * Creates an empty directory for the segment files.
+	 */
+	protected void setUp() {
+		this.directory = new File(System.getProperty("java.io.tmpdir"),
+				"EPPMappedPollDataSourceTst-" + System.nanoTime());
+	}
+
+	/**
+	 * Deletes the segment files.
+	 */
+	protected void tearDown() {
+		File[] theFiles = this.directory.listFiles();
+		for (int i = 0; theFiles != null && i < theFiles.length; i++) {
+			theFiles[i].delete();
+		}
+		this.directory.delete();
+	}
+
+	/**
+	 * Opens the data source of the test directory without background
+	 * compaction.
+	 *
+	 * @return Data source
+	 *
+	 * @throws EPPPollQueueException
+	 *             Error opening the data source
+	 */
+	private EPPMappedPollDataSource open() throws EPPPollQueueException {
+		return new EPPMappedPollDataSource(this.directory, SEGMENT_SIZE, 0,
+				false);
+	}
+
+	/**
+	 * Creates a domain transfer poll message.
+	 *
+	 * @param aName
+	 *            Domain name
+	 *
+	 * @return Poll message
+	 */
+	private static EPPDomainTransferResp createMsg(String aName) {
+		EPPDomainTransferResp theMsg = new EPPDomainTransferResp(
+				new EPPTransId("ABC-12345", "54321-XYZ"), aName);
+		theMsg.setTransferStatus(EPPResponse.TRANSFER_PENDING);
+		theMsg.setRequestClient("ClientX");
+		theMsg.setRequestDate(MSG_DATE);
+		theMsg.setActionClient("ClientY");
+		theMsg.setActionDate(MSG_DATE);
+		theMsg.setResult(EPPResult.SUCCESS);
+		return theMsg;
+	}
+
+	/**
+	 * Puts messages for two recipients and verifies the order, sizes and
+	 * acknowledgements of the queues.
+	 */
+	public void testQueue() {
+		try {
+			EPPMappedPollDataSource theSource = this.open();
+			try {
+				for (int i = 0; i < numIterations; i++) {
+					theSource.put("ClientX", EPPDomainMapFactory.NS,
+							createMsg("x1.com"), null);
+					theSource.put("ClientY", EPPDomainMapFactory.NS,
+							createMsg("y1.com"), null);
+					theSource.put("ClientX", "text", "Low balance", null);
+					theSource.put("ClientX", EPPDomainMapFactory.NS,
+							createMsg("x3.com"), null);
+
+					Assert.assertEquals(3, theSource.size("ClientX"));
+					Assert.assertEquals(1, theSource.size("ClientY"));
+
+					// Head of ClientX
+					EPPPollDataRecord theRecord = theSource.get("ClientX",
+							null);
+					Assert.assertEquals(3, theRecord.getSize());
+					Assert.assertEquals(createMsg("x1.com"), theRecord
+							.getData());
+
+					// Ack of another recipient's message fails
+					EPPPollDataRecord theOther = theSource.get("ClientY",
+							null);
+					try {
+						theSource.delete("ClientX", theOther.getMsgId(), null);
+						Assert.fail("Expected TYPE_MSGID_NOT_FOUND");
+					}
+					catch (EPPPollQueueException ex) {
+						Assert.assertEquals(
+								EPPPollQueueException.TYPE_MSGID_NOT_FOUND, ex
+										.getType());
+					}
+
+					// Ack of a message after the head
+					EPPPollDataRecord theHead = theRecord;
+					theSource.delete("ClientX", theHead.getMsgId(), null);
+					theRecord = theSource.get("ClientX", null);
+					Assert.assertEquals("text", theRecord.getKind());
+					Assert.assertEquals("Low balance", theRecord.getData());
+					String theSecond = theRecord.getMsgId();
+					theSource.put("ClientX", "text", "After", null);
+					Assert.assertEquals(3, theSource.size("ClientX"));
+
+					// Ack the last, then the head
+					String theLast = String.valueOf(Long.parseLong(theSecond) + 2);
+					Assert.assertEquals(2, theSource.delete("ClientX",
+							theLast, null));
+					Assert.assertEquals(1, theSource.delete("ClientX",
+							theSecond, null));
+					Assert.assertEquals(createMsg("x3.com"), theSource.get(
+							"ClientX", null).getData());
+
+					// Ack twice fails
+					try {
+						theSource.delete("ClientX", theSecond, null);
+						Assert.fail("Expected TYPE_MSGID_NOT_FOUND");
+					}
+					catch (EPPPollQueueException ex) {
+						Assert.assertEquals(
+								EPPPollQueueException.TYPE_MSGID_NOT_FOUND, ex
+										.getType());
+					}
+
+					// Drain the queues
+					drain(theSource, "ClientX");
+					drain(theSource, "ClientY");
+					try {
+						theSource.get("ClientX", null);
+						Assert.fail("Expected TYPE_QUEUE_EMPTY");
+					}
+					catch (EPPPollQueueException ex) {
+						Assert.assertEquals(
+								EPPPollQueueException.TYPE_QUEUE_EMPTY, ex
+										.getType());
+					}
+				}
+			}
+			finally {
+				theSource.close();
+			}
+		}
+		catch (EPPPollQueueException ex) {
+			ex.printStackTrace();
+			Assert.fail("testQueue(): " + ex);
+		}
+	}
+
+	/**
+	 * Verifies that the queues and message identifiers are restored after
+	 * reopening the segment files.
+	 */
+	public void testRestore() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			// Start each iteration with an empty directory
+			if (iteration > 0) {
+				this.tearDown();
+				this.setUp();
+			}
+
+			try {
+				EPPMappedPollDataSource theSource = this.open();
+				for (int i = 0; i < 20; i++) {
+					theSource.put("ClientX", EPPDomainMapFactory.NS,
+							createMsg("x" + i + ".com"), null);
+					theSource.put(null, "text", "Message " + i, null);
+				}
+
+				// Ack the even messages of ClientX, which have the odd
+				// identifiers
+				for (int i = 0; i < 20; i += 2) {
+					theSource.delete("ClientX", String.valueOf(1 + 2 * i), null);
+				}
+				int theSegments = theSource.getSegmentCount();
+				Assert.assertTrue("Expected multiple segments", theSegments > 1);
+				theSource.close();
+
+				theSource = this.open();
+				try {
+					Assert.assertEquals(theSegments, theSource.getSegmentCount());
+					Assert.assertEquals(10, theSource.size("ClientX"));
+					Assert.assertEquals(20, theSource.size(null));
+					Assert.assertEquals(createMsg("x1.com"), theSource.get(
+							"ClientX", null).getData());
+					Assert.assertEquals("Message 0", theSource.get(null, null)
+							.getData());
+
+					// New identifiers follow the restored identifiers
+					theSource.put("ClientZ", "text", "New", null);
+					Assert.assertEquals("41", theSource.get("ClientZ", null)
+							.getMsgId());
+				}
+				finally {
+					theSource.close();
+				}
+			}
+			catch (EPPPollQueueException ex) {
+				ex.printStackTrace();
+				Assert.fail("testRestore(): " + ex);
+			}
+		}
+	}
+
+	/**
+	 * Verifies that the compaction deletes the acknowledged segments and
+	 * moves the messages of sparse segments, and that the queues are
+	 * restored after the compaction.
+	 */
+	public void testCompact() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			// Start each iteration with an empty directory
+			if (iteration > 0) {
+				this.tearDown();
+				this.setUp();
+			}
+
+			try {
+				EPPMappedPollDataSource theSource = this.open();
+				for (int i = 0; i < 200; i++) {
+					theSource.put("ClientX", EPPDomainMapFactory.NS,
+							createMsg("x" + i + ".com"), null);
+				}
+				int theSegments = theSource.getSegmentCount();
+
+				// Keep the first message and ack the others
+				String theFirst = theSource.get("ClientX", null).getMsgId();
+				for (int i = 1; i < 200; i++) {
+					theSource.delete("ClientX", String.valueOf(Long
+							.parseLong(theFirst)
+							+ i), null);
+				}
+				Assert.assertEquals(1, theSource.size("ClientX"));
+
+				theSource.compact();
+				Assert.assertTrue("Expected fewer segments", theSource
+						.getSegmentCount() < theSegments);
+				Assert.assertTrue(theSource.getSegmentCount() <= 2);
+				Assert.assertEquals(theFirst, theSource.get("ClientX", null)
+						.getMsgId());
+				theSource.close();
+
+				theSource = this.open();
+				try {
+					Assert.assertEquals(1, theSource.size("ClientX"));
+					EPPPollDataRecord theRecord = theSource.get("ClientX", null);
+					Assert.assertEquals(theFirst, theRecord.getMsgId());
+					Assert.assertEquals(createMsg("x0.com"), theRecord.getData());
+					Assert.assertEquals(0, theSource.delete("ClientX", theFirst,
+							null));
+				}
+				finally {
+					theSource.close();
+				}
+			}
+			catch (EPPPollQueueException ex) {
+				ex.printStackTrace();
+				Assert.fail("testCompact(): " + ex);
+			}
+		}
+	}
+
+	/**
+	 * Verifies the restore after a crash in the middle of a compaction, where
+	 * the first message was copied to the active segment and the second was
+	 * not, and the original segment was not yet updated. The stale copy of
+	 * the first message must not be moved or delivered again.
+	 */
+	public void testCrashedCompact() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			// Start each iteration with an empty directory
+			if (iteration > 0) {
+				this.tearDown();
+				this.setUp();
+			}
+
+			try {
+				EPPMappedPollDataSource theSource = this.open();
+				for (int i = 0; i < 200; i++) {
+					theSource.put("ClientX", EPPDomainMapFactory.NS,
+							createMsg("x" + i + ".com"), null);
+				}
+
+				// Keep the first two messages and ack the others
+				long theFirst = Long.parseLong(theSource.get("ClientX", null)
+						.getMsgId());
+				for (int i = 2; i < 200; i++) {
+					theSource.delete("ClientX", String.valueOf(theFirst + i), null);
+				}
+
+				File theOld = new File(this.directory, "poll-0000000001.seg");
+				byte[] theOldBytes = readFile(theOld);
+
+				theSource.compact();
+				theSource.close();
+
+				// Put back the first segment and drop the copy of the second
+				// message from the active segment
+				writeFile(theOld, theOldBytes);
+				File[] theFiles = this.directory.listFiles();
+				File theActive = theFiles[0];
+				for (int i = 1; i < theFiles.length; i++) {
+					if (theFiles[i].getName().compareTo(theActive.getName()) > 0) {
+						theActive = theFiles[i];
+					}
+				}
+				uncommitLast(theActive);
+
+				theSource = this.open();
+				Assert.assertEquals(2, theSource.size("ClientX"));
+				Assert.assertEquals(String.valueOf(theFirst), theSource.get(
+						"ClientX", null).getMsgId());
+				Assert.assertEquals(1, theSource.delete("ClientX", String
+						.valueOf(theFirst), null));
+
+				theSource.compact();
+				Assert.assertEquals(1, theSource.size("ClientX"));
+				Assert.assertEquals(String.valueOf(theFirst + 1), theSource.get(
+						"ClientX", null).getMsgId());
+				theSource.close();
+
+				theSource = this.open();
+				try {
+					Assert.assertEquals(1, theSource.size("ClientX"));
+					EPPPollDataRecord theRecord = theSource.get("ClientX", null);
+					Assert.assertEquals(String.valueOf(theFirst + 1), theRecord
+							.getMsgId());
+					Assert.assertEquals(createMsg("x1.com"), theRecord.getData());
+					Assert.assertEquals(0, theSource.delete("ClientX", theRecord
+							.getMsgId(), null));
+				}
+				finally {
+					theSource.close();
+				}
+			}
+			catch (Exception ex) {
+				ex.printStackTrace();
+				Assert.fail("testCrashedCompact(): " + ex);
+			}
+		}
+	}
+
+	/**
+	 * Reads a file.
+	 *
+	 * @param aFile
+	 *            File to read
+	 *
+	 * @return Contents of the file
+	 *
+	 * @throws IOException
+	 *             Error reading the file
+	 */
+	private static byte[] readFile(File aFile) throws IOException {
+		RandomAccessFile theFile = new RandomAccessFile(aFile, "r");
+		try {
+			byte[] theBytes = new byte[(int) theFile.length()];
+			theFile.readFully(theBytes);
+			return theBytes;
+		}
+		finally {
+			theFile.close();
+		}
+	}
+
+	/**
+	 * Writes a file.
+	 *
+	 * @param aFile
+	 *            File to write
+	 * @param aBytes
+	 *            Contents of the file
+	 *
+	 * @throws IOException
+	 *             Error writing the file
+	 */
+	private static void writeFile(File aFile, byte[] aBytes)
+			throws IOException {
+		RandomAccessFile theFile = new RandomAccessFile(aFile, "rw");
+		try {
+			theFile.setLength(aBytes.length);
+			theFile.write(aBytes);
+		}
+		finally {
+			theFile.close();
+		}
+	}
+
+	/**
+	 * Clears the length of the last record of a segment file, as if the
+	 * process crashed before committing the record.
+	 *
+	 * @param aFile
+	 *            Segment file
+	 *
+	 * @throws IOException
+	 *             Error updating the file
+	 */
+	private static void uncommitLast(File aFile) throws IOException {
+		RandomAccessFile theFile = new RandomAccessFile(aFile, "rw");
+		try {
+			long theLast = -1;
+			long thePos = 8;
+			int theLength;
+			theFile.seek(thePos);
+			while ((theLength = theFile.readInt()) > 0) {
+				theLast = thePos;
+				thePos += theLength;
+				theFile.seek(thePos);
+			}
+			theFile.seek(theLast);
+			theFile.writeInt(0);
+		}
+		finally {
+			theFile.close();
+		}
+	}
+
+	/**
+	 * Acknowledges all of the messages of a recipient.
+	 *
+	 * @param aSource
+	 *            Data source
+	 * @param aRecp
+	 *            Recipient
+	 *
+	 * @throws EPPPollQueueException
+	 *             Error acknowledging a message
+	 */
+	private static void drain(EPPMappedPollDataSource aSource, Object aRecp)
+			throws EPPPollQueueException {
+		while (aSource.size(aRecp) > 0) {
+			aSource.delete(aRecp, aSource.get(aRecp, null).getMsgId(), null);
+		}
+	}
+
+	/**
+	 * JUNIT <code>suite</code> static method, which returns the tests
+	 * associated with <code>EPPMappedPollDataSourceTst</code>.
+	 *
+	 * @return Test suite
+	 */
+	public static Test suite() {
+		TestSuite suite = new TestSuite(EPPMappedPollDataSourceTst.class);
+
+		try {
+			EPPFactory.getInstance().addMapFactory(
+					"com.verisign.epp.codec.domain.EPPDomainMapFactory");
+		}
+		catch (Exception ex) {
+			Assert.fail("Error adding the map factories: " + ex);
+		}
+
+		// iterations Property
+		String numIterProp = System.getProperty("iterations");
+
+		if (numIterProp != null) {
+			numIterations = Integer.parseInt(numIterProp);
+		}
+
+		return suite;
+	}
+
+	/**
+	 * Unit test main, which accepts the following system property options:<br>
+	 *
+	 * <ul>
+	 * <li>iterations Number of unit test iterations to run</li>
+	 * </ul>
+	 *
+	 * @param args
+	 *            Not used
+	 */
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(EPPMappedPollDataSourceTst.suite());
+	}
+
+	/**
+	 * Sets the number of iterations to run per test.
+	 *
+	 * @param aNumIterations
+	 *            number of iterations to run per test
+	 */
+	public static void setNumIterations(long aNumIterations) {
+		numIterations = aNumIterations;
+	}
+
+}
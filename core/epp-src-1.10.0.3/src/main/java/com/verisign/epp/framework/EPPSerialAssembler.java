@@ -19,56 +19,123 @@ http://www.verisign.com/nds/naming/namestore/techdocs.html
 ***********************************************************/
 package com.verisign.epp.framework;
 
-import java.io.InputStream;
-
 // Core Java Imports
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 
+import org.apache.log4j.Logger;
+import org.w3c.dom.Document;
+
 // EPP imports
+import com.verisign.epp.codec.gen.EPPCodec;
+import com.verisign.epp.codec.gen.EPPComponentNotFoundException;
+import com.verisign.epp.codec.gen.EPPDecodeException;
+import com.verisign.epp.codec.gen.EPPEncodeException;
 import com.verisign.epp.codec.gen.EPPMessage;
+import com.verisign.epp.exception.EPPException;
+import com.verisign.epp.util.EPPBinaryXML;
+import com.verisign.epp.util.EPPCatFactory;
 
 
 /**
  * The <code>EPPSerialAssembler</code> class provides an implementation of
  * EPPAssembler that can assemble/disassemble <code>EPPMessage</code>s and
  * <code>EPPEventResponse</code>s from standard java Input and Outputstreams
- * using java serialization.     <br><br>
+ * using the compact binary format of <code>EPPBinaryXML</code> instead of
+ * XML.  The messages are encoded and decoded with <code>EPPCodec</code>, so
+ * all of the mappings and extensions are supported, but the packets are not
+ * validated against the XML schemas, so the assembler should only be used
+ * between trusted peers, like an internal web tier and EPP gateway.  Java
+ * serialization is not used.     <br><br>
  *
  * @author $Author: jim $
  * @version $Revision: 1.3 $
  *
  * @see EPPAssembler
+ * @see EPPBinaryXML
  */
 public class EPPSerialAssembler implements EPPAssembler {
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPSerialAssembler.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/**
+	 * <code>EPPBinaryXML</code> per server thread, so that the encode buffer
+	 * is reused across the messages of a connection.
+	 */
+	private static final ThreadLocal<EPPBinaryXML> binaryXMLs = new ThreadLocal<EPPBinaryXML>() {
+
+		protected EPPBinaryXML initialValue() {
+			return new EPPBinaryXML();
+		}
+	};
+
+	/**
+	 * An EPPCodec is delegated to to do the conversion between the
+	 * <code>EPPMessage</code>s and the DOM Documents.
+	 */
+	private EPPCodec codec;
+
 	/**
 	 * Construct and instance of an <code>EPPSerialAssembler</code>
 	 */
 	public EPPSerialAssembler() {
+		codec = EPPCodec.getInstance();
 	}
 
 	/**
-	 * Takes an <code> EPPEventResponse </code> and serializes it to an
-	 * <code>OutputStream </code> using java serialization.
+	 * Takes an <code> EPPEventResponse </code> and writes it to an
+	 * <code>OutputStream </code> as a binary packet.
 	 *
-	 * @param aMessage The response that will be serialized
+	 * @param aResponse The response that will be serialized
 	 * @param aOutputStream The OutputStream that the response will be
 	 * 		  serialized to.
-	 * @param aData DOCUMENT ME!
+	 * @param aData Not used
 	 *
 	 * @exception EPPAssemblerException Error serializing the
 	 * 			  <code>EPPEventResponse</code>
 	 */
 	public void toStream(
-						 EPPEventResponse aMessage, OutputStream aOutputStream,
+						 EPPEventResponse aResponse, OutputStream aOutputStream,
 						 Object aData) throws EPPAssemblerException {
+		cat.debug("toStream(EPPEventResponse, OutputStream): Enter");
+
+		try {
+			EPPMessage response = aResponse.getResponse();
+			Document domDocument = codec.encode(response);
+
+			byte[] thePacket = binaryXMLs.get().encode(domDocument);
+
+			aOutputStream.write(thePacket);
+			aOutputStream.flush();
+		}
+		catch (EPPEncodeException e) {
+			cat.error("toStream(EPPEventResponse, OutputStream)", e);
+			throw new EPPAssemblerException(e.getMessage(),
+											EPPAssemblerException.MISSINGPARAMETER);
+		}
+		catch (EPPException e) {
+			cat.error("toStream(EPPEventResponse, OutputStream)", e);
+			throw new EPPAssemblerException(e.getMessage(),
+											EPPAssemblerException.FATAL);
+		}
+		catch (IOException e) {
+			cat.error("toStream(EPPEventResponse, OutputStream)", e);
+			throw new EPPAssemblerException(e.getMessage(),
+											EPPAssemblerException.CLOSECON);
+		}
+
+		cat.debug("toStream(EPPEventResponse, OutputStream): Return");
 	}
 
 	/**
-	 * Takes an <code>InputStream</code> and uses java serialization to create
-	 * an <code>EPPEvent</code>
+	 * Takes an <code>InputStream</code> and reads a binary packet from it to
+	 * create an <code>EPPEvent</code>
 	 *
 	 * @param aStream The InputStream to read data from.
-	 * @param aData DOCUMENT ME!
+	 * @param aData Not used
 	 *
 	 * @return EPPEvent The <code> EPPEvent </code> that is created from the
 	 * 		   InputStream
@@ -78,6 +145,55 @@ public class EPPSerialAssembler implements EPPAssembler {
 	 */
 	public EPPEvent toEvent(InputStream aStream, Object aData)
 					 throws EPPAssemblerException {
-		return null;
+		cat.debug("toEvent(InputStream): Enter");
+
+		EPPMessage message = null;
+
+		try {
+			EPPBinaryXML binaryXML = binaryXMLs.get();
+
+			byte[] thePacket = binaryXML.readPacket(aStream);
+			Document domDocument = binaryXML.decode(thePacket);
+			message = codec.decode(domDocument);
+		}
+		catch (EPPComponentNotFoundException e) {
+			cat.error("toEvent(InputStream):", e);
+
+			switch (e.getKind()) {
+				case EPPComponentNotFoundException.COMMAND:
+					throw new EPPAssemblerException(e.getMessage(),
+													EPPAssemblerException.COMMANDNOTFOUND);
+				case EPPComponentNotFoundException.EXTENSION:
+					throw new EPPAssemblerException(e.getMessage(),
+													EPPAssemblerException.EXTENSIONNOTFOUND);
+				case EPPComponentNotFoundException.RESPONSE:
+					throw new EPPAssemblerException(e.getMessage(),
+													EPPAssemblerException.RESPONSENOTFOUND);
+			}
+		}
+		catch (EPPDecodeException e) {
+			cat.error("toEvent(InputStream):", e);
+			throw new EPPAssemblerException(e.getMessage(),
+											EPPAssemblerException.MISSINGPARAMETER);
+		}
+		catch (EPPException e) {
+			cat.error("toEvent(InputStream):", e);
+			throw new EPPAssemblerException(e.getMessage(),
+											EPPAssemblerException.XML);
+		}
+		catch (InterruptedIOException e) {
+			cat.debug("toEvent(InputStream):", e);
+			throw new EPPAssemblerException(e.getMessage(),
+											EPPAssemblerException.INTRUPTEDIO);
+		}
+		catch (IOException e) {
+			cat.error("toEvent(InputStream):", e);
+			throw new EPPAssemblerException(e.getMessage(),
+											EPPAssemblerException.CLOSECON);
+		}
+
+		cat.debug("toEvent(InputStream): Return");
+
+		return new EPPEvent(message);
 	}
 }
@@ -0,0 +1,172 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+
+package com.verisign.epp.framework;
+
+import org.apache.log4j.Logger;
+import org.w3c.dom.Document;
+
+import com.verisign.epp.codec.gen.EPPCodec;
+import com.verisign.epp.codec.gen.EPPComponentNotFoundException;
+import com.verisign.epp.codec.gen.EPPDecodeException;
+import com.verisign.epp.codec.gen.EPPEncodeException;
+import com.verisign.epp.codec.gen.EPPMessage;
+import com.verisign.epp.exception.EPPException;
+import com.verisign.epp.util.EPPBinaryXML;
+import com.verisign.epp.util.EPPCatFactory;
+
+/**
+ * The <code>EPPSerialByteArrayAssembler</code> class provides an
+ * implementation of <code>EPPByteArrayAssembler</code> that can
+ * assemble/disassemble <code>EPPMessage</code>s and
+ * <code>EPPEventResponse</code>s to and from <code>byte</code> arrays that
+ * contain the compact binary format of <code>EPPBinaryXML</code>. It is the
+ * <code>byte</code> array counterpart of <code>EPPSerialAssembler</code>
+ * for the <code>EPPByteArrayDispatcher</code>, and like it should only be
+ * used between trusted peers since the packets are not validated against
+ * the XML schemas. <br>
+ * <br>
+ * 
+ * @see EPPByteArrayAssembler
+ * @see EPPSerialAssembler
+ * @see EPPBinaryXML
+ */
+public class EPPSerialByteArrayAssembler implements EPPByteArrayAssembler {
+	/** Log4j category for logging */
+	private static Logger LOG = Logger.getLogger(
+			EPPSerialByteArrayAssembler.class.getName(), EPPCatFactory
+					.getInstance().getFactory());
+
+	/**
+	 * <code>EPPBinaryXML</code> per server thread, so that the encode buffer
+	 * is reused across the messages.
+	 */
+	private static final ThreadLocal<EPPBinaryXML> binaryXMLs = new ThreadLocal<EPPBinaryXML>() {
+
+		protected EPPBinaryXML initialValue() {
+			return new EPPBinaryXML();
+		}
+	};
+
+	/**
+	 * An EPPCodec is delegated to to do the conversion between the
+	 * <code>EPPMessage</code>s and the DOM Documents.
+	 */
+	private EPPCodec codec;
+
+	/**
+	 * Construct and instance of an <code>EPPSerialByteArrayAssembler</code>
+	 */
+	public EPPSerialByteArrayAssembler() {
+		this.codec = EPPCodec.getInstance();
+	}
+
+	/**
+	 * Takes an input <code>byte</code> array containing a binary packet
+	 * without the 4 byte network header and creates an <code>EPPEvent</code>
+	 * 
+	 * @param aBytes
+	 *            The byte array to read data from.
+	 * @param aData
+	 *            Not used
+	 * @return EPPEvent The <code> EPPEvent </code> that is created from the
+	 *         input bytes
+	 * @exception EPPAssemblerException
+	 *                Error creating the <code>EPPEvent</code>
+	 */
+	public EPPEvent decode(byte[] aBytes, Object aData)
+			throws EPPAssemblerException {
+		LOG.debug("decode(): Enter");
+
+		EPPMessage message = null;
+		try {
+			Document domDocument = binaryXMLs.get().decode(aBytes);
+			message = this.codec.decode(domDocument);
+		}
+		catch (EPPComponentNotFoundException e) {
+			LOG.debug("decode():", e);
+			switch (e.getKind()) {
+				case EPPComponentNotFoundException.COMMAND:
+					throw new EPPAssemblerException(e.getMessage(),
+							EPPAssemblerException.COMMANDNOTFOUND);
+				case EPPComponentNotFoundException.EXTENSION:
+					throw new EPPAssemblerException(e.getMessage(),
+							EPPAssemblerException.EXTENSIONNOTFOUND);
+				case EPPComponentNotFoundException.RESPONSE:
+					throw new EPPAssemblerException(e.getMessage(),
+							EPPAssemblerException.RESPONSENOTFOUND);
+			}
+		}
+		catch (EPPDecodeException e) {
+			LOG.debug("decode():", e);
+			throw new EPPAssemblerException(e.getMessage(),
+					EPPAssemblerException.MISSINGPARAMETER);
+		}
+		catch (EPPException e) {
+			LOG.debug("decode():", e);
+			throw new EPPAssemblerException(e.getMessage(),
+					EPPAssemblerException.XML);
+		}
+
+		LOG.debug("decode(): Return");
+
+		return new EPPEvent(message);
+	}
+
+	/**
+	 * Takes an <code> EPPEventResponse </code> and encodes it to a
+	 * <code>byte</code> array containing a binary packet, including the 4
+	 * byte network header.
+	 * 
+	 * @param aResponse
+	 *            The response that will be serialized
+	 * @param aData
+	 *            Not used
+	 * @exception EPPAssemblerException
+	 *                Error serializing the <code>EPPEventResponse</code>
+	 */
+	public byte[] encode(EPPEventResponse aResponse, Object aData)
+			throws EPPAssemblerException {
+		LOG.debug("encode(): Enter");
+
+		byte[] responseBytes = null;
+		try {
+			EPPMessage response = aResponse.getResponse();
+			Document domDocument = this.codec.encode(response);
+
+			responseBytes = binaryXMLs.get().encode(domDocument);
+		}
+		catch (EPPEncodeException e) {
+			LOG.debug("encode()", e);
+			throw new EPPAssemblerException(e.getMessage(),
+					EPPAssemblerException.MISSINGPARAMETER);
+		}
+		catch (EPPException e) {
+			LOG.debug("encode()", e);
+			throw new EPPAssemblerException(e.getMessage(),
+					EPPAssemblerException.FATAL);
+		}
+
+		LOG.debug("encode(): Return");
+
+		return responseBytes;
+	}
+
+} // End class EPPSerialByteArrayAssembler
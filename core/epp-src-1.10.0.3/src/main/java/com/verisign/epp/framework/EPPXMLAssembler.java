@@ -24,12 +24,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import org.apache.log4j.Logger;
 import org.w3c.dom.Document;
 
-import com.codestudio.util.GenericPool;
-import com.codestudio.util.GenericPoolManager;
 import com.codestudio.util.GenericPoolMetaData;
 import com.verisign.epp.codec.gen.EPPCodec;
 import com.verisign.epp.codec.gen.EPPComponentNotFoundException;
@@ -40,7 +39,10 @@ import com.verisign.epp.exception.EPPException;
 import com.verisign.epp.serverstub.SessionData;
 import com.verisign.epp.util.EPPCatFactory;
 import com.verisign.epp.util.EPPEnv;
+import com.verisign.epp.util.EPPParserException;
+import com.verisign.epp.util.EPPParserPoolManager;
 import com.verisign.epp.util.EPPSchemaCachingParser;
+import com.verisign.epp.util.EPPSchemaGrammarPool;
 import com.verisign.epp.util.EPPTransformer;
 import com.verisign.epp.util.EPPXMLStream;
 
@@ -63,6 +65,18 @@ public class EPPXMLAssembler implements EPPAssembler {
 	/** Has the XML parser been initialized? */
 	private static boolean _parserInitialized = false;
 
+	/**
+	 * <code>EPPXMLStream</code> per server thread, so that the frame buffers
+	 * of the stream are reused across the messages of a connection.
+	 */
+	private static final ThreadLocal<EPPXMLStream> xmlStreams = new ThreadLocal<EPPXMLStream>() {
+
+		protected EPPXMLStream initialValue() {
+			return new EPPXMLStream(EPPSchemaCachingParser.POOL,
+					EPPTransformer.POOL);
+		}
+	};
+
 	/**
 	 * An EPPCodec is delegated to to do the real work.
 	 * <code>EPPXMLAssemler</code> just wraps it to provide the EPPAssembler
@@ -107,9 +121,7 @@ public class EPPXMLAssembler implements EPPAssembler {
 			Document domDocument = codec.encode(response);
 
 			/** Now, serialize the DOM Document through the output stream */
-			EPPXMLStream xmlStream = new EPPXMLStream(
-					EPPSchemaCachingParser.POOL,
-					EPPTransformer.POOL);
+			EPPXMLStream xmlStream = xmlStreams.get();
 			xmlStream.write(domDocument, aOutputStream);
 		}
 		catch (EPPEncodeException e) {
@@ -152,23 +164,21 @@ public class EPPXMLAssembler implements EPPAssembler {
 		 * First, take an XML input stream and convert it to a DOM Document
 		 */
 		try {
-			/** Declare an instance of the EPPXMLStream class */
-			EPPXMLStream xmlStream = new EPPXMLStream(
-					EPPSchemaCachingParser.POOL,
-					EPPTransformer.POOL);
+			/** Get the EPPXMLStream of the current server thread */
+			EPPXMLStream xmlStream = xmlStreams.get();
 
 			/**
-			 * Take the DOM Document and convert it to an EPPMessage using the
-			 * EPPCodec
+			 * Parse the packet in place from the frame buffer of the stream
+			 * and convert the DOM Document to an EPPMessage using the EPPCodec
 			 */
-			byte[] thePacket = xmlStream.readPacket(aStream);
+			ByteBuffer thePacket = xmlStream.readPacketBuffer(aStream);
 			Document domDocument = xmlStream.decodePacket(thePacket);
 			message = codec.decode(domDocument);
 			
-			// Store the original XML packet in the session data for future use.
+			// Reference the original XML packet in the session data for future use.
 			if ((aData != null) && (aData instanceof SessionData)) {
 				SessionData sessionData = (SessionData) aData;
-				sessionData.setAttribute("PACKET", thePacket);
+				sessionData.setPacket(thePacket);
 			}
 		}
 		catch (EPPComponentNotFoundException e) {
@@ -243,6 +253,15 @@ public class EPPXMLAssembler implements EPPAssembler {
 	private void initParserPool() {
 		// Pool does not exist?
 		if (!_parserInitialized) {
+			// Compile the XML schemas once into the shared grammar pool
+			try {
+				EPPSchemaGrammarPool.getInstance().init();
+			}
+			catch (EPPParserException e) {
+				cat.error("initParserPool(): Error compiling the shared grammar pool, "
+						+ "parsers will compile the XML schemas: " + e);
+			}
+
 			// Create parser pool
 			GenericPoolMetaData parserMeta = new GenericPoolMetaData();
 
@@ -259,9 +278,7 @@ public class EPPXMLAssembler implements EPPAssembler {
 			parserMeta.setLogFile( EPPEnv.getServerParserLogFile() );
 			parserMeta.setDebugging( EPPEnv.getServerParserDebug() );
 
-			GenericPool parserPool = new GenericPool( parserMeta );
-			GenericPoolManager.getInstance().addPool( EPPSchemaCachingParser.POOL,
-					parserPool );
+			EPPParserPoolManager.getInstance().createPool( parserMeta );
 			
 			// Create transformer pool
 			GenericPoolMetaData transformerMeta = new GenericPoolMetaData();
@@ -279,9 +296,7 @@ public class EPPXMLAssembler implements EPPAssembler {
 			transformerMeta.setLogFile( EPPEnv.getServerParserLogFile() );
 			transformerMeta.setDebugging( EPPEnv.getServerParserDebug() );
 
-			GenericPool transformerPool = new GenericPool( transformerMeta );
-			GenericPoolManager.getInstance().addPool( EPPTransformer.POOL,
-					transformerPool );
+			EPPParserPoolManager.getInstance().createPool( transformerMeta );
 
 			_parserInitialized = true;
 		}
@@ -26,8 +26,6 @@ import java.io.InterruptedIOException;
 import org.apache.log4j.Logger;
 import org.w3c.dom.Document;
 
-import com.codestudio.util.GenericPool;
-import com.codestudio.util.GenericPoolManager;
 import com.codestudio.util.GenericPoolMetaData;
 import com.verisign.epp.codec.gen.EPPCodec;
 import com.verisign.epp.codec.gen.EPPComponentNotFoundException;
@@ -37,7 +35,10 @@ import com.verisign.epp.codec.gen.EPPMessage;
 import com.verisign.epp.exception.EPPException;
 import com.verisign.epp.util.EPPCatFactory;
 import com.verisign.epp.util.EPPEnv;
+import com.verisign.epp.util.EPPParserException;
+import com.verisign.epp.util.EPPParserPoolManager;
 import com.verisign.epp.util.EPPSchemaCachingParser;
+import com.verisign.epp.util.EPPSchemaGrammarPool;
 import com.verisign.epp.util.EPPTransformer;
 import com.verisign.epp.util.EPPXMLByteArray;
 
@@ -120,6 +121,15 @@ public class EPPXMLByteArrayAssembler implements EPPByteArrayAssembler {
 	private void initParserPool() {
 		// Pool does not exist?
 		if (!_parserInitialized) {
+			// Compile the XML schemas once into the shared grammar pool
+			try {
+				EPPSchemaGrammarPool.getInstance().init();
+			}
+			catch (EPPParserException e) {
+				LOG.error("initParserPool(): Error compiling the shared grammar pool, "
+						+ "parsers will compile the XML schemas: " + e);
+			}
+
 			LOG.debug("EPPXMLByteArray.initParserPool(): Creating parser pool");
 			
 			// Create parser pool
@@ -139,9 +149,7 @@ public class EPPXMLByteArrayAssembler implements EPPByteArrayAssembler {
 			parserMeta.setLogFile(EPPEnv.getServerParserLogFile());
 			parserMeta.setDebugging(EPPEnv.getServerParserDebug());
 
-			GenericPool parserPool = new GenericPool(parserMeta);
-			GenericPoolManager.getInstance().addPool(
-					EPPSchemaCachingParser.POOL, parserPool);
+			EPPParserPoolManager.getInstance().createPool(parserMeta);
 
 			// Create transformer pool
 			LOG.debug("EPPXMLByteArray.initParserPool(): Creating transformer pool");
@@ -163,9 +171,7 @@ public class EPPXMLByteArrayAssembler implements EPPByteArrayAssembler {
 			transformerMeta.setLogFile(EPPEnv.getServerParserLogFile());
 			transformerMeta.setDebugging(EPPEnv.getServerParserDebug());
 
-			GenericPool transformerPool = new GenericPool(transformerMeta);
-			GenericPoolManager.getInstance().addPool(EPPTransformer.POOL,
-					transformerPool);
+			EPPParserPoolManager.getInstance().createPool(transformerMeta);
 
 			_parserInitialized = true;
 		}
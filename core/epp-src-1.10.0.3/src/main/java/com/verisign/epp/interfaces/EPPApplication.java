@@ -31,15 +31,17 @@ import org.apache.log4j.Logger;
 import org.apache.log4j.PatternLayout;
 import org.apache.log4j.xml.DOMConfigurator;
 
-import com.codestudio.util.GenericPool;
-import com.codestudio.util.GenericPoolManager;
 import com.codestudio.util.GenericPoolMetaData;
 import com.verisign.epp.codec.gen.EPPCodec;
 import com.verisign.epp.codec.gen.EPPCodecException;
 import com.verisign.epp.util.EPPEnv;
 import com.verisign.epp.util.EPPEnvException;
 import com.verisign.epp.util.EPPEnvSingle;
+import com.verisign.epp.util.EPPParserException;
+import com.verisign.epp.util.EPPParserPoolManager;
 import com.verisign.epp.util.EPPSchemaCachingParser;
+import com.verisign.epp.util.EPPSchemaGrammarPool;
+import com.verisign.epp.util.EPPStartup;
 import com.verisign.epp.util.EPPTransformer;
 
 
@@ -65,6 +67,9 @@ public class EPPApplication {
 	 */
 	public void initialize(String myConfigFile) throws EPPCommandException {
 		
+		// Time each startup phase
+		EPPStartup theStartup = new EPPStartup("EPPApplication");
+		
 		/** Initialize the Env */
 		EPPEnvSingle env = EPPEnvSingle.getInstance();
 
@@ -78,6 +83,7 @@ public class EPPApplication {
 			throw new EPPCommandException("EPPEnvException is thrown :"
 										  + e.getMessage());
 		}
+		theStartup.endPhase("environment");
 
 		/**
 		 * Initialize the Logger
@@ -165,6 +171,7 @@ public class EPPApplication {
 			throw new EPPCommandException("EPPApplication.initialze():  When initializing Log "
 										  + e);
 		}
+		theStartup.endPhase("logging");
 
 
 		/**
@@ -230,10 +237,23 @@ public class EPPApplication {
 			throw new EPPCommandException("EPPApplication.initialze():  when initializing EPPCodec: "
 										  + e);
 		}
+		theStartup.endPhase("codec");
 		 
+		// Compile the XML schemas once into the shared grammar pool
+		try {
+			EPPSchemaGrammarPool.getInstance().init();
+		}
+		 catch (EPPParserException e) {
+			throw new EPPCommandException("EPPApplication.initialze():  when compiling the XML schemas: "
+										  + e);
+		}
+		theStartup.endPhase("schemas");
+
 		// Initialize the Parser Pool
 		initParserPool();
-		 
+		theStartup.endPhase("parsers");
+		
+		theStartup.report();
 	}
 
 	/**
@@ -297,9 +317,7 @@ public class EPPApplication {
 			parserMeta.setLogFile( EPPEnv.getClientParserLogFile() );
 			parserMeta.setDebugging( EPPEnv.getClientParserDebug() );
 
-			GenericPool parserPool = new GenericPool( parserMeta );
-			GenericPoolManager.getInstance().addPool( EPPSchemaCachingParser.POOL,
-					parserPool );
+			EPPParserPoolManager.getInstance().createPool( parserMeta );
 			
 			// Create transformer pool
 			GenericPoolMetaData transformerMeta = new GenericPoolMetaData();
@@ -317,9 +335,7 @@ public class EPPApplication {
 			transformerMeta.setLogFile( EPPEnv.getClientParserLogFile() );
 			transformerMeta.setDebugging( EPPEnv.getClientParserDebug() );
 
-			GenericPool transformerPool = new GenericPool( transformerMeta );
-			GenericPoolManager.getInstance().addPool( EPPTransformer.POOL,
-					transformerPool );
+			EPPParserPoolManager.getInstance().createPool( transformerMeta );
 
 			_parserInitialized = true;
 		}
@@ -635,7 +635,14 @@ public class EPPContact {
 		resetContact();
 
 		// process the command and response
-		return this.session.processDocument(theCommand, EPPResponse.class);
+		try {
+			return this.session.processDocument(theCommand, EPPResponse.class);
+		}
+		finally {
+			// Invalidate the cached responses of the contact
+			EPPResponseCache.invalidateObject(EPPResponseCache.TYPE_CONTACT,
+					theCommand.getId());
+		}
 	}
 
 	/**
@@ -714,6 +721,11 @@ public class EPPContact {
 	 * </ul>
 	 *
 	 *
+	 * The response is taken from the <code>EPPResponseCache</code> when it is
+	 * enabled with the <code>EPP.ResponseCache</code> property and the command
+	 * has no extensions other than the ones that are part of the cache key,
+	 * like the <code>namestoreExt</code> sub-product.
+	 *
 	 * @return <code>EPPContactInfoResp</code> containing the contact
 	 *         information.
 	 *
@@ -742,12 +754,41 @@ public class EPPContact {
 		// Set command extension
 		theCommand.setExtensions(this.extensions);
 
+		EPPResponseCache theCache = EPPResponseCache
+				.getInstance(this.extensions);
+		String theAttrs = EPPResponseCache.getAttrs(this.authString,
+				this.extensions);
+
 		// Reset contact attributes
 		resetContact();
 
+		// Response cache not enabled?
+		if (theCache == null) {
+			return (EPPContactInfoResp) this.session.processDocument(
+					theCommand, EPPContactInfoResp.class);
+		}
+
+		// Response cached?
+		EPPContactInfoResp theResponse = (EPPContactInfoResp) theCache
+				.getInfo(EPPResponseCache.TYPE_CONTACT, theCommand.getId(),
+						this.session.getClientID(), theAttrs,
+						theCommand.getTransId());
+
+		if (theResponse != null) {
+			this.session.setResponse(theResponse);
+			return theResponse;
+		}
+
 		// process the command and response
-		return (EPPContactInfoResp) this.session.processDocument(theCommand,
-				EPPContactInfoResp.class);
+		long theGeneration = theCache.getGeneration();
+		theResponse = (EPPContactInfoResp) this.session.processDocument(
+				theCommand, EPPContactInfoResp.class);
+
+		theCache.putInfo(theGeneration, EPPResponseCache.TYPE_CONTACT,
+				theCommand.getId(), this.session.getClientID(), theAttrs,
+				theResponse);
+
+		return theResponse;
 	}
 
 	/**
@@ -840,7 +881,14 @@ public class EPPContact {
 		resetContact();
 
 		// process the command and response
-		return this.session.processDocument(theCommand, EPPResponse.class);
+		try {
+			return this.session.processDocument(theCommand, EPPResponse.class);
+		}
+		finally {
+			// Invalidate the cached responses of the contact
+			EPPResponseCache.invalidateObject(EPPResponseCache.TYPE_CONTACT,
+					theCommand.getId());
+		}
 	}
 
 	/**
@@ -907,8 +955,15 @@ public class EPPContact {
 		resetContact();
 
 		// process the command and response
-		return (EPPContactTransferResp) this.session.processDocument(theCommand,
-				EPPContactTransferResp.class);
+		try {
+			return (EPPContactTransferResp) this.session.processDocument(
+					theCommand, EPPContactTransferResp.class);
+		}
+		finally {
+			// Invalidate the cached responses of the contact
+			EPPResponseCache.invalidateObject(EPPResponseCache.TYPE_CONTACT,
+					theCommand.getId());
+		}
 	}
 
 	/**
@@ -960,7 +1015,14 @@ public class EPPContact {
 		resetContact();
 
 		// process the command and response
-		return this.session.processDocument(theCommand, EPPResponse.class);
+		try {
+			return this.session.processDocument(theCommand, EPPResponse.class);
+		}
+		finally {
+			// Invalidate the cached responses of the contact
+			EPPResponseCache.invalidateObject(EPPResponseCache.TYPE_CONTACT,
+					theCommand.getId());
+		}
 	}
 
 	/**
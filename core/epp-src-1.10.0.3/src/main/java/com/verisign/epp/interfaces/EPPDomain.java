@@ -22,6 +22,7 @@ package com.verisign.epp.interfaces;
 
 // W3C Imports
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Vector;
 
 import org.w3c.dom.Document;
@@ -29,6 +30,7 @@ import org.w3c.dom.Document;
 import com.verisign.epp.codec.domain.EPPDomainAddRemove;
 import com.verisign.epp.codec.domain.EPPDomainCheckCmd;
 import com.verisign.epp.codec.domain.EPPDomainCheckResp;
+import com.verisign.epp.codec.domain.EPPDomainCheckResult;
 import com.verisign.epp.codec.domain.EPPDomainContact;
 import com.verisign.epp.codec.domain.EPPDomainCreateCmd;
 import com.verisign.epp.codec.domain.EPPDomainCreateResp;
@@ -49,6 +51,7 @@ import com.verisign.epp.codec.gen.EPPCodecComponent;
 import com.verisign.epp.codec.gen.EPPCommand;
 import com.verisign.epp.codec.gen.EPPFactory;
 import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.codec.gen.EPPTransId;
 
 
 /**
@@ -636,7 +639,14 @@ public class EPPDomain {
 		resetDomain();
 
 		// process the command and response
-		return (EPPDomainCreateResp) this.session.processDocument(theCommand, EPPDomainCreateResp.class);
+		try {
+			return (EPPDomainCreateResp) this.session.processDocument(theCommand, EPPDomainCreateResp.class);
+		}
+		finally {
+			// Invalidate the cached responses of the domain
+			EPPResponseCache.invalidateObject(EPPResponseCache.TYPE_DOMAIN,
+					theCommand.getName());
+		}
 	}
 
 	// End EPPDomain.sendCreate()
@@ -793,7 +803,14 @@ public class EPPDomain {
 		resetDomain();
 
 		// process the command and response
-		return this.session.processDocument(theCommand, EPPResponse.class);
+		try {
+			return this.session.processDocument(theCommand, EPPResponse.class);
+		}
+		finally {
+			// Invalidate the cached responses of the domain
+			EPPResponseCache.invalidateObject(EPPResponseCache.TYPE_DOMAIN,
+					theCommand.getName());
+		}
 	}
 
 	// End EPPDomain.sendUpdate()
@@ -898,7 +915,14 @@ public class EPPDomain {
 		resetDomain();
 
 		// process the command and response
-		return (EPPDomainTransferResp) this.session.processDocument(theCommand, EPPDomainTransferResp.class);
+		try {
+			return (EPPDomainTransferResp) this.session.processDocument(theCommand, EPPDomainTransferResp.class);
+		}
+		finally {
+			// Invalidate the cached responses of the domain
+			EPPResponseCache.invalidateObject(EPPResponseCache.TYPE_DOMAIN,
+					theCommand.getName());
+		}
 	}
 
 	// End EPPDomain.sendTransfer()
@@ -978,7 +1002,14 @@ public class EPPDomain {
 		resetDomain();
 
 		// process the command and response
-		return (EPPDomainRenewResp) this.session.processDocument(theCommand, EPPDomainRenewResp.class);
+		try {
+			return (EPPDomainRenewResp) this.session.processDocument(theCommand, EPPDomainRenewResp.class);
+		}
+		finally {
+			// Invalidate the cached responses of the domain
+			EPPResponseCache.invalidateObject(EPPResponseCache.TYPE_DOMAIN,
+					theCommand.getName());
+		}
 	}
 
 	// End EPPDomain.sendRenew()
@@ -1015,6 +1046,11 @@ public class EPPDomain {
 	 * </ul>
 	 * 
 	 *
+	 * The response is taken from the <code>EPPResponseCache</code> when it is
+	 * enabled with the <code>EPP.ResponseCache</code> property and the command
+	 * has no extensions other than the ones that are part of the cache key,
+	 * like the <code>namestoreExt</code> sub-product.
+	 *
 	 * @return <code>EPPDomainInfoResp</code> containing the Domain
 	 * 		   information.
 	 *
@@ -1054,11 +1090,47 @@ public class EPPDomain {
 		// Set command extension
 		theCommand.setExtensions(this.extensions);
 
+		EPPResponseCache theCache =
+			EPPResponseCache.getInstance(this.extensions);
+		String theAttrs =
+			EPPResponseCache.getAttrs(
+									  this.hosts + '\u0000' + this.authString
+									  + '\u0000' + this.authRoid,
+									  this.extensions);
+
 		// Reset domain attributes
 		resetDomain();
 
+		// Response cache not enabled?
+		if (theCache == null) {
+			return (EPPDomainInfoResp) this.session.processDocument(theCommand, EPPDomainInfoResp.class);
+		}
+
+		// Response cached?
+		EPPDomainInfoResp theResponse =
+			(EPPDomainInfoResp) theCache.getInfo(
+												 EPPResponseCache.TYPE_DOMAIN,
+												 theCommand.getName(),
+												 this.session.getClientID(),
+												 theAttrs,
+												 theCommand.getTransId());
+
+		if (theResponse != null) {
+			this.session.setResponse(theResponse);
+			return theResponse;
+		}
+
 		// process the command and response
-		return (EPPDomainInfoResp) this.session.processDocument(theCommand, EPPDomainInfoResp.class);
+		long theGeneration = theCache.getGeneration();
+		theResponse =
+			(EPPDomainInfoResp) this.session.processDocument(theCommand, EPPDomainInfoResp.class);
+
+		theCache.putInfo(
+						 theGeneration, EPPResponseCache.TYPE_DOMAIN,
+						 theCommand.getName(), this.session.getClientID(),
+						 theAttrs, theResponse);
+
+		return theResponse;
 	}
 
 	// End EPPDomain.sendInfo()
@@ -1086,6 +1158,11 @@ public class EPPDomain {
 	 * </ul>
 	 * 
 	 *
+	 * The results are taken from the <code>EPPResponseCache</code> when it is
+	 * enabled with the <code>EPP.ResponseCache</code> property and the command
+	 * has no extensions other than the ones that are part of the cache key,
+	 * like the <code>namestoreExt</code> sub-product.
+	 *
 	 * @return <code>EPPDomainCheckResp</code> containing the Domain check
 	 * 		   information.
 	 *
@@ -1102,11 +1179,112 @@ public class EPPDomain {
 
 		theCommand.setExtensions(this.extensions);
 
+		EPPResponseCache theCache =
+			EPPResponseCache.getInstance(this.extensions);
+		String theAttrs = EPPResponseCache.getAttrs(null, this.extensions);
+		Vector theNames = this.domainList;
+
 		// Reset domain attributes
 		resetDomain();
 
-		// process the command and response
-		return (EPPDomainCheckResp) this.session.processDocument(theCommand, EPPDomainCheckResp.class);
+		// Response cache not enabled?
+		if (theCache == null) {
+			return (EPPDomainCheckResp) this.session.processDocument(theCommand, EPPDomainCheckResp.class);
+		}
+
+		String theClientId = this.session.getClientID();
+
+		// Get the cached results and the names to send to the server
+		Vector theResults = new Vector();
+		Vector theMissing = new Vector();
+		String theServerTransId = null;
+
+		for (int i = 0; i < theNames.size(); i++) {
+			String theName = (String) theNames.elementAt(i);
+			EPPDomainCheckResult theResult =
+				(EPPDomainCheckResult) theCache.getCheck(
+														 EPPResponseCache.TYPE_DOMAIN,
+														 theName, theClientId,
+														 theAttrs);
+
+			if (theResult == null) {
+				theMissing.addElement(theName);
+			}
+			else if (theServerTransId == null) {
+				theServerTransId =
+					theCache.getCheckServerTransId(
+												   EPPResponseCache.TYPE_DOMAIN,
+												   theName, theClientId,
+												   theAttrs);
+			}
+
+			theResults.addElement(theResult);
+		}
+
+		// All of the results cached?
+		if (theMissing.isEmpty() && !theNames.isEmpty()) {
+			EPPDomainCheckResp theResponse =
+				new EPPDomainCheckResp(
+									   new EPPTransId(
+													  theCommand.getTransId(),
+													  theServerTransId),
+									   theResults);
+			this.session.setResponse(theResponse);
+			return theResponse;
+		}
+
+		// process the command and response for the names not cached
+		theCommand.setNames(theMissing);
+
+		long theGeneration = theCache.getGeneration();
+		EPPDomainCheckResp theResponse =
+			(EPPDomainCheckResp) this.session.processDocument(theCommand, EPPDomainCheckResp.class);
+
+		String theRespServerTransId = null;
+
+		if (theResponse.getTransId() != null) {
+			theRespServerTransId =
+				theResponse.getTransId().getServerTransId();
+		}
+
+		Vector theRespResults = theResponse.getCheckResults();
+		HashMap theRespResultMap = new HashMap();
+
+		for (int i = 0; (theRespResults != null) && (i < theRespResults.size()); i++) {
+			EPPDomainCheckResult theResult =
+				(EPPDomainCheckResult) theRespResults.elementAt(i);
+
+			theCache.putCheck(
+							  theGeneration, EPPResponseCache.TYPE_DOMAIN,
+							  theResult.getName(), theClientId, theAttrs,
+							  theResult,
+							  theResult.isAvailable(), theRespServerTransId);
+
+			if (theResult.getName() != null) {
+				theRespResultMap.put(theResult.getName().toLowerCase(), theResult);
+			}
+		}
+
+		// Merge the server results with the cached results in request order
+		if (theMissing.size() != theNames.size()) {
+			for (int i = theResults.size() - 1; i >= 0; i--) {
+				if (theResults.elementAt(i) == null) {
+					Object theResult =
+						theRespResultMap.get(((String) theNames.elementAt(i)).toLowerCase());
+
+					if (theResult != null) {
+						theResults.setElementAt(theResult, i);
+					}
+					else {
+						theResults.removeElementAt(i);
+					}
+				}
+			}
+
+			theResponse.setCheckResults(theResults);
+		}
+
+		return theResponse;
 	}
 
 	// End EPPDomain.sendCheck()
@@ -1160,7 +1338,14 @@ public class EPPDomain {
 		resetDomain();
 
 		// process the command and response
-		return this.session.processDocument(theCommand, EPPResponse.class);
+		try {
+			return this.session.processDocument(theCommand, EPPResponse.class);
+		}
+		finally {
+			// Invalidate the cached responses of the domain
+			EPPResponseCache.invalidateObject(EPPResponseCache.TYPE_DOMAIN,
+					theCommand.getName());
+		}
 	}
 
 	// End EPPDomain.sendDelete()
@@ -418,7 +418,14 @@ public class EPPHost {
 		resetHost();
 
 		// process the command and response
-		return this.session.processDocument(theCommand, EPPResponse.class);
+		try {
+			return this.session.processDocument(theCommand, EPPResponse.class);
+		}
+		finally {
+			// Invalidate the cached responses of the host
+			EPPResponseCache.invalidateObject(EPPResponseCache.TYPE_HOST,
+					theCommand.getName());
+		}
 	}
 
 	// End EPPHost.sendCreate()
@@ -498,6 +505,11 @@ public class EPPHost {
 	 * </ul>
 	 * 
 	 *
+	 * The response is taken from the <code>EPPResponseCache</code> when it is
+	 * enabled with the <code>EPP.ResponseCache</code> property and the command
+	 * has no extensions other than the ones that are part of the cache key,
+	 * like the <code>namestoreExt</code> sub-product.
+	 *
 	 * @return <code>EPPHostInfoResp</code> containing the Host information.
 	 *
 	 * @exception EPPCommandException Error executing the info command.  Use
@@ -518,11 +530,42 @@ public class EPPHost {
 		// Set command extension
 		theCommand.setExtensions(this.extensions);
 
+		EPPResponseCache theCache =
+			EPPResponseCache.getInstance(this.extensions);
+		String theAttrs = EPPResponseCache.getAttrs(null, this.extensions);
+
 		// Reset contact attributes 
 		resetHost();
 
+		// Response cache not enabled?
+		if (theCache == null) {
+			return (EPPHostInfoResp) this.session.processDocument(theCommand, EPPHostInfoResp.class);
+		}
+
+		// Response cached?
+		EPPHostInfoResp theResponse =
+			(EPPHostInfoResp) theCache.getInfo(
+											   EPPResponseCache.TYPE_HOST,
+											   theCommand.getName(),
+											   this.session.getClientID(),
+											   theAttrs, theCommand.getTransId());
+
+		if (theResponse != null) {
+			this.session.setResponse(theResponse);
+			return theResponse;
+		}
+
 		// process the command and response
-		return (EPPHostInfoResp) this.session.processDocument(theCommand, EPPHostInfoResp.class);
+		long theGeneration = theCache.getGeneration();
+		theResponse =
+			(EPPHostInfoResp) this.session.processDocument(theCommand, EPPHostInfoResp.class);
+
+		theCache.putInfo(
+						 theGeneration, EPPResponseCache.TYPE_HOST,
+						 theCommand.getName(), this.session.getClientID(),
+						 theAttrs, theResponse);
+
+		return theResponse;
 	}
 
 	// End EPPHost.sendInfo()
@@ -621,7 +664,18 @@ public class EPPHost {
 		resetHost();
 
 		// process the command and response
-		return this.session.processDocument(theCommand, EPPResponse.class);
+		try {
+			return this.session.processDocument(theCommand, EPPResponse.class);
+		}
+		finally {
+			// Invalidate the cached responses of the host
+			EPPResponseCache.invalidateObject(EPPResponseCache.TYPE_HOST,
+					theCommand.getName());
+			if (theCommand.getChange() != null) {
+				EPPResponseCache.invalidateObject(EPPResponseCache.TYPE_HOST,
+						theCommand.getChange().getName());
+			}
+		}
 	}
 
 	// End EPPHost.sendUpdate()
@@ -675,7 +729,14 @@ public class EPPHost {
 		resetHost();
 
 		// process the command and response
-		return this.session.processDocument(theCommand, EPPResponse.class);
+		try {
+			return this.session.processDocument(theCommand, EPPResponse.class);
+		}
+		finally {
+			// Invalidate the cached responses of the host
+			EPPResponseCache.invalidateObject(EPPResponseCache.TYPE_HOST,
+					theCommand.getName());
+		}
 	}
 
 	// End EPPHost.sendDelete()
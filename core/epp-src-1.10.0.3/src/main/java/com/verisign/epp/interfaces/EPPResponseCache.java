@@ -0,0 +1,634 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.interfaces;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Vector;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.codec.gen.EPPCodecComponent;
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.codec.gen.EPPTransId;
+import com.verisign.epp.codec.namestoreext.EPPNamestoreExtNamestoreExt;
+import com.verisign.epp.codec.whois.EPPWhoisInf;
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPEnv;
+
+/**
+ * Size and TTL bounded cache of the info responses and check results
+ * returned by <code>EPPDomain</code>, <code>EPPContact</code> and
+ * <code>EPPHost</code>, so that repeated queries for the same object within
+ * the TTL don't go to the server.  The cache is opt-in with the
+ * <code>EPP.ResponseCache</code> property and is shared by all of the
+ * sessions in the process.<br>
+ * <br>
+ * Entries are keyed by the object type and the lower case object name, and
+ * within that by the client identifier of the session and the attributes of
+ * the command that change the response, like the authorization information
+ * and the sub-product of the <code>namestoreExt</code> extension.
+ * The least recently used objects are evicted once
+ * <code>EPP.ResponseCache.MaxEntries</code> is reached.  A check result that
+ * says the object is available is cached for the shorter
+ * <code>EPP.ResponseCache.NegativeCheckTTL</code>, since another client can
+ * create the object at any time.<br>
+ * <br>
+ * Any create, update, delete, renew or transfer of an object sent through
+ * the SDK calls {@link #invalidate(String, String)} for it.  A response that
+ * was read while an invalidation happened is not cached, since it may
+ * predate the change, which is tracked with the generation returned by
+ * {@link #getGeneration()}.  Changes made outside of the process are only
+ * seen once the entry expires.
+ */
+public class EPPResponseCache {
+
+	/** Object type of domain entries */
+	public static final String TYPE_DOMAIN = "domain";
+
+	/** Object type of contact entries */
+	public static final String TYPE_CONTACT = "contact";
+
+	/** Object type of host entries */
+	public static final String TYPE_HOST = "host";
+
+	/** Kind of the info response entries */
+	private static final String KIND_INFO = "info";
+
+	/** Kind of the check result entries */
+	private static final String KIND_CHECK = "check";
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPResponseCache.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/** Cache shared by the process, created on first use */
+	private static volatile EPPResponseCache instance = null;
+
+	/** Was the shared instance initialized from the properties? */
+	private static volatile boolean initialized = false;
+
+	/** Maximum number of objects to cache */
+	private int maxEntries;
+
+	/** Time to live of the info responses in milliseconds */
+	private long infoTTL;
+
+	/** Time to live of the unavailable check results in milliseconds */
+	private long checkTTL;
+
+	/** Time to live of the available check results in milliseconds */
+	private long negativeCheckTTL;
+
+	/**
+	 * Objects in least recently used order, with the entries of each object
+	 * keyed by kind, client identifier and command attributes.
+	 */
+	private LinkedHashMap objects;
+
+	/** Incremented on every invalidation */
+	private long generation = 0;
+
+	/** Number of cache hits */
+	private long hits = 0;
+
+	/** Number of cache misses */
+	private long misses = 0;
+
+	/**
+	 * Cached response or check result.
+	 */
+	private static class Entry {
+
+		/** Cached value that is cloned when returned */
+		private EPPCodecComponent value;
+
+		/** Server transaction identifier of the response */
+		private String serverTransId;
+
+		/** Expiration time in milliseconds */
+		private long expires;
+	}
+
+	/**
+	 * Creates a cache with the given bounds.
+	 *
+	 * @param aMaxEntries Maximum number of objects to cache
+	 * @param aInfoTTL Time to live of the info responses in milliseconds
+	 * @param aCheckTTL Time to live of the check results that say the
+	 *        object is unavailable in milliseconds
+	 * @param aNegativeCheckTTL Time to live of the check results that say
+	 *        the object is available in milliseconds
+	 */
+	public EPPResponseCache(int aMaxEntries, long aInfoTTL, long aCheckTTL,
+			long aNegativeCheckTTL) {
+		this.maxEntries = aMaxEntries;
+		this.infoTTL = aInfoTTL;
+		this.checkTTL = aCheckTTL;
+		this.negativeCheckTTL = aNegativeCheckTTL;
+
+		this.objects = new LinkedHashMap(16, 0.75f, true) {
+
+			protected boolean removeEldestEntry(Map.Entry aEldest) {
+				return size() > EPPResponseCache.this.maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Gets the cache shared by the process, which is created from the
+	 * <code>EPP.ResponseCache</code> properties on first use.
+	 *
+	 * @return Shared cache if enabled; <code>null</code> otherwise.
+	 */
+	public static EPPResponseCache getInstance() {
+		if (!initialized) {
+			synchronized (EPPResponseCache.class) {
+				if (!initialized) {
+					if (EPPEnv.getResponseCache()) {
+						EPPResponseCache theCache = new EPPResponseCache(
+								EPPEnv.getResponseCacheMaxEntries(),
+								EPPEnv.getResponseCacheInfoTTL(),
+								EPPEnv.getResponseCacheCheckTTL(),
+								EPPEnv.getResponseCacheNegativeCheckTTL());
+						cat.info("getInstance(): Response cache enabled, maxEntries = "
+								+ theCache.maxEntries + ", infoTTL = "
+								+ theCache.infoTTL + ", checkTTL = "
+								+ theCache.checkTTL + ", negativeCheckTTL = "
+								+ theCache.negativeCheckTTL);
+						instance = theCache;
+					}
+					initialized = true;
+				}
+			}
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Gets the shared cache for a command.  The cache is not used for
+	 * commands with extensions that can change the response in a way that
+	 * the cache key doesn't capture.  The extensions that only select the
+	 * response, like the sub-product of the <code>namestoreExt</code> and the
+	 * flag of the <code>whoisInf</code> extension, are part of the key with
+	 * {@link #getAttrs(String, Vector)}.
+	 *
+	 * @param aExtensions Extensions of the command
+	 *
+	 * @return Shared cache if enabled and the command has only key
+	 *         extensions; <code>null</code> otherwise.
+	 */
+	static EPPResponseCache getInstance(Vector aExtensions) {
+		for (int i = 0; (aExtensions != null) && (i < aExtensions.size()); i++) {
+			if (getExtensionKey(aExtensions.elementAt(i)) == null) {
+				return null;
+			}
+		}
+
+		return getInstance();
+	}
+
+	/**
+	 * Gets the command attributes of a cache key, which are the attributes
+	 * of the command followed by the keys of its extensions.
+	 *
+	 * @param aAttrs Attributes of the command, which may be
+	 *        <code>null</code>
+	 * @param aExtensions Extensions of the command that are accepted by
+	 *        {@link #getInstance(Vector)}
+	 *
+	 * @return <code>aAttrs</code> if the command has no extensions; the
+	 *         attributes and extension keys otherwise.
+	 */
+	static String getAttrs(String aAttrs, Vector aExtensions) {
+		if ((aExtensions == null) || aExtensions.isEmpty()) {
+			return aAttrs;
+		}
+
+		StringBuffer theAttrs = new StringBuffer();
+		theAttrs.append(aAttrs);
+
+		for (int i = 0; i < aExtensions.size(); i++) {
+			theAttrs.append('\u0000');
+			theAttrs.append(getExtensionKey(aExtensions.elementAt(i)));
+		}
+
+		return theAttrs.toString();
+	}
+
+	/**
+	 * Gets the cache key of a command extension.
+	 *
+	 * @param aExtension Command extension
+	 *
+	 * @return Key of the extension if the cached responses can be keyed by
+	 *         it; <code>null</code> otherwise.
+	 */
+	private static String getExtensionKey(Object aExtension) {
+		if (aExtension instanceof EPPNamestoreExtNamestoreExt) {
+			return EPPNamestoreExtNamestoreExt.ELM_NAME + '='
+					+ ((EPPNamestoreExtNamestoreExt) aExtension)
+							.getSubProductID();
+		}
+		else if (aExtension instanceof EPPWhoisInf) {
+			return EPPWhoisInf.ELM_NAME + '='
+					+ ((EPPWhoisInf) aExtension).getFlag();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Invalidates an object in the shared cache if it is enabled.
+	 *
+	 * @param aType Object type using one of the <code>TYPE_</code> constants
+	 * @param aName Object name or identifier
+	 */
+	static void invalidateObject(String aType, String aName) {
+		EPPResponseCache theCache = getInstance();
+
+		if (theCache != null) {
+			theCache.invalidate(aType, aName);
+		}
+	}
+
+	/**
+	 * Sets the cache shared by the process, which overrides the
+	 * <code>EPP.ResponseCache</code> properties.
+	 *
+	 * @param aCache Cache to use or <code>null</code> to disable caching
+	 */
+	public static void setInstance(EPPResponseCache aCache) {
+		synchronized (EPPResponseCache.class) {
+			instance = aCache;
+			initialized = true;
+		}
+	}
+
+	/**
+	 * Gets the current generation, which must be read before sending the
+	 * command whose response is put in the cache.
+	 *
+	 * @return Current generation
+	 */
+	public synchronized long getGeneration() {
+		return this.generation;
+	}
+
+	/**
+	 * Gets a clone of a cached info response.
+	 *
+	 * @param aType Object type using one of the <code>TYPE_</code> constants
+	 * @param aName Object name or identifier
+	 * @param aClientId Client identifier of the session
+	 * @param aAttrs Command attributes that change the response
+	 * @param aClientTransId Client transaction identifier to set in the
+	 *        returned response
+	 *
+	 * @return Clone of the cached response if found; <code>null</code>
+	 *         otherwise.
+	 */
+	public EPPResponse getInfo(String aType, String aName, String aClientId,
+			String aAttrs, String aClientTransId) {
+		EPPResponse theResponse = (EPPResponse) this.get(aType, aName,
+				KIND_INFO, aClientId, aAttrs);
+
+		if ((theResponse != null) && (theResponse.getTransId() != null)) {
+			theResponse.setTransId(new EPPTransId(aClientTransId, theResponse
+					.getTransId().getServerTransId()));
+		}
+
+		return theResponse;
+	}
+
+	/**
+	 * Puts an info response in the cache.
+	 *
+	 * @param aGeneration Generation read before sending the command
+	 * @param aType Object type using one of the <code>TYPE_</code> constants
+	 * @param aName Object name or identifier
+	 * @param aClientId Client identifier of the session
+	 * @param aAttrs Command attributes that change the response
+	 * @param aResponse Response to cache
+	 */
+	public void putInfo(long aGeneration, String aType, String aName,
+			String aClientId, String aAttrs, EPPResponse aResponse) {
+		this.put(aGeneration, aType, aName, KIND_INFO, aClientId, aAttrs,
+				aResponse, null, this.infoTTL);
+	}
+
+	/**
+	 * Gets a clone of a cached check result.
+	 *
+	 * @param aType Object type using one of the <code>TYPE_</code> constants
+	 * @param aName Object name or identifier
+	 * @param aClientId Client identifier of the session
+	 *
+	 * @return Clone of the cached check result if found; <code>null</code>
+	 *         otherwise.
+	 */
+	public EPPCodecComponent getCheck(String aType, String aName,
+			String aClientId) {
+		return this.getCheck(aType, aName, aClientId, null);
+	}
+
+	/**
+	 * Gets a clone of a cached check result of a command with attributes.
+	 *
+	 * @param aType Object type using one of the <code>TYPE_</code> constants
+	 * @param aName Object name or identifier
+	 * @param aClientId Client identifier of the session
+	 * @param aAttrs Command attributes that change the result
+	 *
+	 * @return Clone of the cached check result if found; <code>null</code>
+	 *         otherwise.
+	 */
+	public EPPCodecComponent getCheck(String aType, String aName,
+			String aClientId, String aAttrs) {
+		return this.get(aType, aName, KIND_CHECK, aClientId, aAttrs);
+	}
+
+	/**
+	 * Gets the server transaction identifier of the response that a cached
+	 * check result was read from.
+	 *
+	 * @param aType Object type using one of the <code>TYPE_</code> constants
+	 * @param aName Object name or identifier
+	 * @param aClientId Client identifier of the session
+	 *
+	 * @return Server transaction identifier if found; <code>null</code>
+	 *         otherwise.
+	 */
+	public String getCheckServerTransId(String aType, String aName,
+			String aClientId) {
+		return this.getCheckServerTransId(aType, aName, aClientId, null);
+	}
+
+	/**
+	 * Gets the server transaction identifier of the response that a cached
+	 * check result of a command with attributes was read from.
+	 *
+	 * @param aType Object type using one of the <code>TYPE_</code> constants
+	 * @param aName Object name or identifier
+	 * @param aClientId Client identifier of the session
+	 * @param aAttrs Command attributes that change the result
+	 *
+	 * @return Server transaction identifier if found; <code>null</code>
+	 *         otherwise.
+	 */
+	public synchronized String getCheckServerTransId(String aType,
+			String aName, String aClientId, String aAttrs) {
+		Entry theEntry = this.getEntry(aType, aName, KIND_CHECK, aClientId,
+				aAttrs);
+
+		if (theEntry == null) {
+			return null;
+		}
+
+		return theEntry.serverTransId;
+	}
+
+	/**
+	 * Puts a check result in the cache.
+	 *
+	 * @param aGeneration Generation read before sending the command
+	 * @param aType Object type using one of the <code>TYPE_</code> constants
+	 * @param aName Object name or identifier
+	 * @param aClientId Client identifier of the session
+	 * @param aResult Check result to cache
+	 * @param aAvailable Does the result say that the object is available?
+	 * @param aServerTransId Server transaction identifier of the response
+	 */
+	public void putCheck(long aGeneration, String aType, String aName,
+			String aClientId, EPPCodecComponent aResult, boolean aAvailable,
+			String aServerTransId) {
+		this.putCheck(aGeneration, aType, aName, aClientId, null, aResult,
+				aAvailable, aServerTransId);
+	}
+
+	/**
+	 * Puts a check result of a command with attributes in the cache.
+	 *
+	 * @param aGeneration Generation read before sending the command
+	 * @param aType Object type using one of the <code>TYPE_</code> constants
+	 * @param aName Object name or identifier
+	 * @param aClientId Client identifier of the session
+	 * @param aAttrs Command attributes that change the result
+	 * @param aResult Check result to cache
+	 * @param aAvailable Does the result say that the object is available?
+	 * @param aServerTransId Server transaction identifier of the response
+	 */
+	public void putCheck(long aGeneration, String aType, String aName,
+			String aClientId, String aAttrs, EPPCodecComponent aResult,
+			boolean aAvailable, String aServerTransId) {
+		this.put(aGeneration, aType, aName, KIND_CHECK, aClientId, aAttrs,
+				aResult, aServerTransId, aAvailable ? this.negativeCheckTTL
+						: this.checkTTL);
+	}
+
+	/**
+	 * Removes all of the cached entries of an object and prevents responses
+	 * that are in flight from being cached.
+	 *
+	 * @param aType Object type using one of the <code>TYPE_</code> constants
+	 * @param aName Object name or identifier
+	 */
+	public synchronized void invalidate(String aType, String aName) {
+		this.generation++;
+
+		if (aName != null) {
+			this.objects.remove(this.objectKey(aType, aName));
+		}
+	}
+
+	/**
+	 * Removes all of the cached entries.
+	 */
+	public synchronized void clear() {
+		this.generation++;
+		this.objects.clear();
+	}
+
+	/**
+	 * Gets the number of cached objects, which may include expired entries
+	 * that have not been removed yet.
+	 *
+	 * @return Number of cached objects
+	 */
+	public synchronized int size() {
+		return this.objects.size();
+	}
+
+	/**
+	 * Gets the number of lookups that found an entry.
+	 *
+	 * @return Number of cache hits
+	 */
+	public synchronized long getHitCount() {
+		return this.hits;
+	}
+
+	/**
+	 * Gets the number of lookups that did not find an entry.
+	 *
+	 * @return Number of cache misses
+	 */
+	public synchronized long getMissCount() {
+		return this.misses;
+	}
+
+	/**
+	 * Gets a clone of a cached value.
+	 */
+	private EPPCodecComponent get(String aType, String aName, String aKind,
+			String aClientId, String aAttrs) {
+		EPPCodecComponent theValue;
+
+		synchronized (this) {
+			Entry theEntry = this.getEntry(aType, aName, aKind, aClientId,
+					aAttrs);
+
+			if (theEntry == null) {
+				this.misses++;
+				return null;
+			}
+
+			this.hits++;
+			theValue = theEntry.value;
+		}
+
+		try {
+			return (EPPCodecComponent) theValue.clone();
+		}
+		catch (CloneNotSupportedException ex) {
+			cat.error("get(): Error cloning cached " + aType + " " + aName
+					+ ": " + ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Gets an entry that has not expired, removing it if it has.
+	 */
+	private Entry getEntry(String aType, String aName, String aKind,
+			String aClientId, String aAttrs) {
+		String theObjectKey = this.objectKey(aType, aName);
+		HashMap theEntries = (HashMap) this.objects.get(theObjectKey);
+
+		if (theEntries == null) {
+			return null;
+		}
+
+		String theEntryKey = this.entryKey(aKind, aClientId, aAttrs);
+		Entry theEntry = (Entry) theEntries.get(theEntryKey);
+
+		if (theEntry == null) {
+			return null;
+		}
+
+		long theNow = System.currentTimeMillis();
+
+		if (theEntry.expires <= theNow) {
+			theEntries.remove(theEntryKey);
+
+			// Drop the expired entries of the object
+			Iterator theIter = theEntries.values().iterator();
+			while (theIter.hasNext()) {
+				if (((Entry) theIter.next()).expires <= theNow) {
+					theIter.remove();
+				}
+			}
+
+			if (theEntries.isEmpty()) {
+				this.objects.remove(theObjectKey);
+			}
+
+			return null;
+		}
+
+		return theEntry;
+	}
+
+	/**
+	 * Puts a value in the cache if no invalidation happened since
+	 * <code>aGeneration</code>.
+	 */
+	private void put(long aGeneration, String aType, String aName,
+			String aKind, String aClientId, String aAttrs,
+			EPPCodecComponent aValue, String aServerTransId, long aTTL) {
+		if ((aName == null) || (aValue == null) || (aTTL <= 0)) {
+			return;
+		}
+
+		Entry theEntry = new Entry();
+		try {
+			theEntry.value = (EPPCodecComponent) aValue.clone();
+		}
+		catch (CloneNotSupportedException ex) {
+			cat.error("put(): Error cloning " + aType + " " + aName + ": "
+					+ ex);
+			return;
+		}
+		theEntry.serverTransId = aServerTransId;
+		theEntry.expires = System.currentTimeMillis() + aTTL;
+
+		synchronized (this) {
+			if (aGeneration != this.generation) {
+				cat.debug("put(): Not caching " + aType + " " + aName
+						+ " that was read during an invalidation");
+				return;
+			}
+
+			String theObjectKey = this.objectKey(aType, aName);
+			HashMap theEntries = (HashMap) this.objects.get(theObjectKey);
+
+			if (theEntries == null) {
+				theEntries = new HashMap();
+				this.objects.put(theObjectKey, theEntries);
+			}
+
+			theEntries.put(this.entryKey(aKind, aClientId, aAttrs), theEntry);
+		}
+	}
+
+	/**
+	 * Gets the key of an object.
+	 */
+	private String objectKey(String aType, String aName) {
+		return aType + ':' + aName.toLowerCase();
+	}
+
+	/**
+	 * Gets the key of an entry within an object.
+	 */
+	private String entryKey(String aKind, String aClientId, String aAttrs) {
+		StringBuffer theKey = new StringBuffer(aKind);
+		theKey.append('\u0000');
+		theKey.append(aClientId);
+		theKey.append('\u0000');
+		theKey.append(aAttrs);
+
+		return theKey.toString();
+	}
+
+}
@@ -0,0 +1,350 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.interfaces;
+
+//----------------------------------------------
+//
+// imports...
+//
+//----------------------------------------------
+
+// Java Core Imports
+import java.util.Vector;
+
+// JUNIT Imports
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+// EPP Imports
+import com.verisign.epp.codec.domain.EPPDomainCheckResult;
+import com.verisign.epp.codec.domain.EPPDomainInfoResp;
+import com.verisign.epp.codec.gen.EPPTransId;
+import com.verisign.epp.codec.namestoreext.EPPNamestoreExtNamestoreExt;
+import com.verisign.epp.codec.premiumdomain.EPPPremiumDomainCheck;
+
+/**
+ * Is a unit test of <code>EPPResponseCache</code>, which does not require a
+ * server since the cache is populated directly.
+ */
+public class EPPResponseCacheTst extends TestCase {
+
+	/**
+	 * Number of unit test iterations to run. This is set with the
+	 * <code>iterations</code> system property.
+	 */
+	static private long numIterations = 1;
+
+	/** Client identifier used for the cache entries */
+	private static final String CLIENT_ID = "ClientX";
+
+	/**
+	 * Allocates a new instance of <code>EPPResponseCacheTst</code>.
+	 *
+	 * @param name
+	 *            Name of test
+	 */
+	public EPPResponseCacheTst(String name) {
+		super(name);
+	}
+
+	/**
+	 * Puts an info response and verifies that a clone is returned with the
+	 * client transaction identifier of the new command, and that the entry
+	 * is keyed by client identifier and command attributes.
+	 */
+	public void testInfo() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			EPPResponseCache theCache = new EPPResponseCache(10, 60000,
+					60000, 60000);
+
+			EPPDomainInfoResp theResponse = this.createInfoResp("example.com");
+			theCache.putInfo(theCache.getGeneration(),
+					EPPResponseCache.TYPE_DOMAIN, "example.com", CLIENT_ID,
+					"all", theResponse);
+
+			EPPDomainInfoResp theCached = (EPPDomainInfoResp) theCache
+					.getInfo(EPPResponseCache.TYPE_DOMAIN, "EXAMPLE.COM",
+							CLIENT_ID, "all", "ABC-2");
+
+			Assert.assertNotNull(theCached);
+			Assert.assertNotSame(theResponse, theCached);
+			Assert.assertEquals("example.com", theCached.getName());
+			Assert.assertEquals("ABC-2", theCached.getTransId()
+					.getClientTransId());
+			Assert.assertEquals("54321-XYZ", theCached.getTransId()
+					.getServerTransId());
+
+			Assert.assertNull(theCache.getInfo(EPPResponseCache.TYPE_DOMAIN,
+					"example.com", "ClientY", "all", "ABC-3"));
+			Assert.assertNull(theCache.getInfo(EPPResponseCache.TYPE_DOMAIN,
+					"example.com", CLIENT_ID, "none", "ABC-4"));
+			Assert.assertNull(theCache.getInfo(EPPResponseCache.TYPE_HOST,
+					"example.com", CLIENT_ID, "all", "ABC-5"));
+
+			Assert.assertEquals(1, theCache.getHitCount());
+			Assert.assertEquals(3, theCache.getMissCount());
+		}
+	}
+
+	/**
+	 * Verifies that the available check results use the negative check TTL
+	 * and that the entries expire.
+	 */
+	public void testCheckTTL() throws InterruptedException {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			EPPResponseCache theCache = new EPPResponseCache(10, 60000,
+					60000, 50);
+
+			long theGeneration = theCache.getGeneration();
+			theCache.putCheck(theGeneration, EPPResponseCache.TYPE_DOMAIN,
+					"avail.com", CLIENT_ID, new EPPDomainCheckResult(
+							"avail.com", true), true, "54321-XYZ");
+			theCache.putCheck(theGeneration, EPPResponseCache.TYPE_DOMAIN,
+					"taken.com", CLIENT_ID, new EPPDomainCheckResult(
+							"taken.com", false), false, "54321-XYZ");
+
+			Assert.assertNotNull(theCache.getCheck(
+					EPPResponseCache.TYPE_DOMAIN, "avail.com", CLIENT_ID));
+			Assert.assertEquals("54321-XYZ", theCache.getCheckServerTransId(
+					EPPResponseCache.TYPE_DOMAIN, "avail.com", CLIENT_ID));
+
+			Thread.sleep(100);
+
+			Assert.assertNull(theCache.getCheck(EPPResponseCache.TYPE_DOMAIN,
+					"avail.com", CLIENT_ID));
+			Assert.assertEquals(1, theCache.size());
+
+			EPPDomainCheckResult theResult = (EPPDomainCheckResult) theCache
+					.getCheck(EPPResponseCache.TYPE_DOMAIN, "taken.com",
+							CLIENT_ID);
+			Assert.assertNotNull(theResult);
+			Assert.assertFalse(theResult.isAvailable());
+		}
+	}
+
+	/**
+	 * Verifies that the commands with the <code>namestoreExt</code> extension
+	 * use the cache with the sub-product in the key, and that the commands
+	 * with other extensions bypass the cache.
+	 */
+	public void testKeyExtensions() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			EPPResponseCache theShared = EPPResponseCache.getInstance();
+			EPPResponseCache theCache = new EPPResponseCache(10, 60000,
+					60000, 60000);
+			EPPResponseCache.setInstance(theCache);
+
+			try {
+				Vector theDotCom = new Vector();
+				theDotCom.addElement(new EPPNamestoreExtNamestoreExt("dotCOM"));
+				Vector theDotNet = new Vector();
+				theDotNet.addElement(new EPPNamestoreExtNamestoreExt("dotNET"));
+				Vector thePremium = new Vector();
+				thePremium.addElement(new EPPNamestoreExtNamestoreExt("dotCOM"));
+				thePremium.addElement(new EPPPremiumDomainCheck(true));
+
+				Assert.assertSame(theCache, EPPResponseCache
+						.getInstance(theDotCom));
+				Assert.assertNull(EPPResponseCache.getInstance(thePremium));
+
+				// Check result of a command with the extension
+				theCache.putCheck(theCache.getGeneration(),
+						EPPResponseCache.TYPE_DOMAIN, "example.com",
+						CLIENT_ID, EPPResponseCache.getAttrs(null, theDotCom),
+						new EPPDomainCheckResult("example.com", false), false,
+						"54321-XYZ");
+
+				Vector theSameExt = new Vector();
+				theSameExt.addElement(new EPPNamestoreExtNamestoreExt("dotCOM"));
+				Assert.assertNotNull(theCache.getCheck(
+						EPPResponseCache.TYPE_DOMAIN, "example.com", CLIENT_ID,
+						EPPResponseCache.getAttrs(null, theSameExt)));
+				Assert.assertEquals("54321-XYZ", theCache
+						.getCheckServerTransId(EPPResponseCache.TYPE_DOMAIN,
+								"example.com", CLIENT_ID, EPPResponseCache
+										.getAttrs(null, theSameExt)));
+				Assert.assertNull(theCache.getCheck(
+						EPPResponseCache.TYPE_DOMAIN, "example.com", CLIENT_ID,
+						EPPResponseCache.getAttrs(null, theDotNet)));
+				Assert.assertNull(theCache.getCheck(
+						EPPResponseCache.TYPE_DOMAIN, "example.com", CLIENT_ID));
+
+				// Info response of a command with the extension
+				theCache.putInfo(theCache.getGeneration(),
+						EPPResponseCache.TYPE_DOMAIN, "example.com",
+						CLIENT_ID, EPPResponseCache.getAttrs("all", theDotCom),
+						this.createInfoResp("example.com"));
+
+				Assert.assertNotNull(theCache.getInfo(
+						EPPResponseCache.TYPE_DOMAIN, "example.com", CLIENT_ID,
+						EPPResponseCache.getAttrs("all", theSameExt), "ABC-2"));
+				Assert.assertNull(theCache.getInfo(
+						EPPResponseCache.TYPE_DOMAIN, "example.com", CLIENT_ID,
+						"all", "ABC-3"));
+
+				Assert.assertEquals(2, theCache.getHitCount());
+				Assert.assertEquals(3, theCache.getMissCount());
+			}
+			finally {
+				EPPResponseCache.setInstance(theShared);
+			}
+		}
+	}
+
+	/**
+	 * Verifies that an invalidation removes all of the entries of the object
+	 * and that a response read during the invalidation is not cached.
+	 */
+	public void testInvalidate() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			EPPResponseCache theCache = new EPPResponseCache(10, 60000,
+					60000, 60000);
+
+			theCache.putInfo(theCache.getGeneration(),
+					EPPResponseCache.TYPE_DOMAIN, "example.com", CLIENT_ID,
+					"all", this.createInfoResp("example.com"));
+			theCache.putCheck(theCache.getGeneration(),
+					EPPResponseCache.TYPE_DOMAIN, "example.com", CLIENT_ID,
+					new EPPDomainCheckResult("example.com", false), false,
+					"54321-XYZ");
+
+			long theGeneration = theCache.getGeneration();
+			theCache.invalidate(EPPResponseCache.TYPE_DOMAIN, "Example.COM");
+
+			Assert.assertNull(theCache.getInfo(EPPResponseCache.TYPE_DOMAIN,
+					"example.com", CLIENT_ID, "all", "ABC-2"));
+			Assert.assertNull(theCache.getCheck(EPPResponseCache.TYPE_DOMAIN,
+					"example.com", CLIENT_ID));
+
+			// Response read before the invalidation
+			theCache.putInfo(theGeneration, EPPResponseCache.TYPE_DOMAIN,
+					"example.com", CLIENT_ID, "all", this
+							.createInfoResp("example.com"));
+			Assert.assertEquals(0, theCache.size());
+
+			// Response read after the invalidation
+			theCache.putInfo(theCache.getGeneration(),
+					EPPResponseCache.TYPE_DOMAIN, "example.com", CLIENT_ID,
+					"all", this.createInfoResp("example.com"));
+			Assert.assertEquals(1, theCache.size());
+		}
+	}
+
+	/**
+	 * Verifies that the least recently used object is evicted once the
+	 * maximum number of objects is reached.
+	 */
+	public void testEviction() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			EPPResponseCache theCache = new EPPResponseCache(2, 60000,
+					60000, 60000);
+
+			theCache.putInfo(theCache.getGeneration(),
+					EPPResponseCache.TYPE_DOMAIN, "a.com", CLIENT_ID, null,
+					this.createInfoResp("a.com"));
+			theCache.putInfo(theCache.getGeneration(),
+					EPPResponseCache.TYPE_DOMAIN, "b.com", CLIENT_ID, null,
+					this.createInfoResp("b.com"));
+
+			// Use a.com so that b.com is the least recently used
+			Assert.assertNotNull(theCache.getInfo(
+					EPPResponseCache.TYPE_DOMAIN, "a.com", CLIENT_ID, null,
+					"ABC-2"));
+
+			theCache.putInfo(theCache.getGeneration(),
+					EPPResponseCache.TYPE_DOMAIN, "c.com", CLIENT_ID, null,
+					this.createInfoResp("c.com"));
+
+			Assert.assertEquals(2, theCache.size());
+			Assert.assertNotNull(theCache.getInfo(
+					EPPResponseCache.TYPE_DOMAIN, "a.com", CLIENT_ID, null,
+					"ABC-3"));
+			Assert.assertNull(theCache.getInfo(EPPResponseCache.TYPE_DOMAIN,
+					"b.com", CLIENT_ID, null, "ABC-4"));
+			Assert.assertNotNull(theCache.getInfo(
+					EPPResponseCache.TYPE_DOMAIN, "c.com", CLIENT_ID, null,
+					"ABC-5"));
+		}
+	}
+
+	/**
+	 * Creates a domain info response for a domain.
+	 *
+	 * @param aName
+	 *            Domain name
+	 *
+	 * @return Domain info response
+	 */
+	private EPPDomainInfoResp createInfoResp(String aName) {
+		EPPDomainInfoResp theResponse = new EPPDomainInfoResp();
+		theResponse.setTransId(new EPPTransId("ABC-1", "54321-XYZ"));
+		theResponse.setName(aName);
+		theResponse.setRoid("EXAMPLE1-REP");
+		theResponse.setClientId(CLIENT_ID);
+
+		return theResponse;
+	}
+
+	/**
+	 * JUNIT <code>suite</code> static method, which returns the tests
+	 * associated with <code>EPPResponseCacheTst</code>.
+	 *
+	 * @return Test suite
+	 */
+	public static Test suite() {
+		TestSuite suite = new TestSuite(EPPResponseCacheTst.class);
+
+		// iterations Property
+		String numIterProp = System.getProperty("iterations");
+
+		if (numIterProp != null) {
+			numIterations = Integer.parseInt(numIterProp);
+		}
+
+		return suite;
+	}
+
+	/**
+	 * Unit test main, which accepts the following system property options:<br>
+	 *
+	 * <ul>
+	 * <li>iterations Number of unit test iterations to run</li>
+	 * </ul>
+	 *
+	 * @param args
+	 *            Not used
+	 */
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(EPPResponseCacheTst.suite());
+	}
+
+	/**
+	 * Sets the number of iterations to run per test.
+	 *
+	 * @param aNumIterations
+	 *            number of iterations to run per test
+	 */
+	public static void setNumIterations(long aNumIterations) {
+		numIterations = aNumIterations;
+	}
+
+} // End class EPPResponseCacheTst
@@ -24,6 +24,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import org.apache.log4j.Logger;
 import org.w3c.dom.Document;
@@ -47,6 +49,9 @@ import com.verisign.epp.transport.EPPConException;
 import com.verisign.epp.transport.EPPConFactorySingle;
 import com.verisign.epp.transport.client.EPPSSLContext;
 import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPEnv;
+import com.verisign.epp.util.EPPMetrics;
+import com.verisign.epp.util.EPPMetricsManager;
 import com.verisign.epp.util.EPPSchemaCachingParser;
 import com.verisign.epp.util.EPPXMLStream;
 
@@ -105,6 +110,26 @@ public class EPPSession {
 	 */
 	public static final int MODE_ASYNC = 1;
 
+	/**
+	 * Pipelined mode constant in processing commands/responses, where many
+	 * commands can be in flight on the connection at once. Commands are sent
+	 * with {@link #processDocumentAsync(EPPCommand, Class)} and a dedicated
+	 * reader completes the returned future by matching the client transaction
+	 * identifier of each response. {@link #processDocument(EPPCommand, Class)}
+	 * can still be called, from any number of threads, and will block for its
+	 * own response. The mode must be set with {@link #setMode(int)} after
+	 * {@link #initSession()}.
+	 *
+	 * @see EPPSessionPipeline
+	 */
+	public static final int MODE_PIPELINED = 2;
+
+	/**
+	 * Maximum time in milliseconds to wait for the in-flight commands when
+	 * leaving {@link #MODE_PIPELINED}.
+	 */
+	private static final long PIPELINE_CLOSE_TIMEOUT = 60000;
+
 	/** EPP Codec used to encode and decode EPP messages */
 	protected EPPCodec myCodec = EPPCodec.getInstance();
 
@@ -169,6 +194,40 @@ public class EPPSession {
 	 */
 	private int mode = MODE_SYNC;
 
+	/**
+	 * Pipeline used when the mode is {@link #MODE_PIPELINED};
+	 * <code>null</code> otherwise.
+	 */
+	private EPPSessionPipeline pipeline = null;
+
+	/**
+	 * Encode the messages that support it directly to the frame buffer with
+	 * <code>EPPXMLWriter</code> instead of with DOM? Defaults to
+	 * <code>EPP.StreamEncode</code>.
+	 */
+	private boolean streamEncode = EPPEnv.getStreamEncode();
+
+	/**
+	 * Decode the responses directly from the packet with
+	 * <code>EPPXMLReader</code> instead of parsing them to DOM? Defaults to
+	 * <code>EPP.StreamDecode</code>.
+	 */
+	private boolean streamDecode = EPPEnv.getStreamDecode();
+
+	/**
+	 * Time in milliseconds that a command or hello was last sent with the
+	 * session, which is used by the session pool to only send keep alives to
+	 * sessions that are idle.
+	 */
+	private volatile long lastUsedTime = System.currentTimeMillis();
+
+	/**
+	 * Nanoseconds spent decoding the last response read with
+	 * {@link #readResponse()}, which is recorded as the
+	 * <code>EPPMetrics.PHASE_DECODE</code> of the command.
+	 */
+	private long responseDecodeNanos = 0;
+
 	/**
 	 * Construct and initialize a new instance of EPPSession using the host name
 	 * and port number defined in <code>EPPEnv</code>.
@@ -638,6 +697,8 @@ public class EPPSession {
 	public EPPGreeting hello() throws EPPCommandException {
 		cat.debug("hello(): enter");
 
+		this.lastUsedTime = System.currentTimeMillis();
+
 		Document myDoc = null;
 		EPPHello myHello = null;
 		EPPGreeting myGreeting = null;
@@ -648,20 +709,26 @@ public class EPPSession {
 		myHello = new EPPHello();
 
 		/**
-		 * now we need to send the message (doc --> CommandObject)
+		 * Stream the Hello Command into the Stream when supported.
 		 */
-		try {
-			myDoc = myCodec.encode(myHello);
-		}
-		catch (EPPEncodeException myException) {
-			throw new EPPCommandException(
-					"EPPSession.Hello() decode : " + myException.getMessage());
-		}
+		if (!this.streamMessage(myHello, "EPPSession.Hello() decode : ")) {
 
-		/**
-		 * Write the Hello Command into the Stream.
-		 */
-		sendDocument(myDoc);
+			/**
+			 * now we need to send the message (doc --> CommandObject)
+			 */
+			try {
+				myDoc = myCodec.encode(myHello);
+			}
+			catch (EPPEncodeException myException) {
+				throw new EPPCommandException(
+						"EPPSession.Hello() decode : " + myException.getMessage());
+			}
+
+			/**
+			 * Write the Hello Command into the Stream.
+			 */
+			sendDocument(myDoc);
+		}
 
 		/**
 		 * Read the Response
@@ -712,6 +779,30 @@ public class EPPSession {
 		return processDocument(myCommand, EPPResponse.class);
 	}
 
+	/**
+	 * Sends the poll command of {@link #sendPoll()} without waiting for the
+	 * response, with {@link #processDocumentAsync(EPPCommand, Class)}. In
+	 * {@link #MODE_PIPELINED}, this allows the ack of a message to be sent
+	 * together with the request for the next message.
+	 *
+	 * @return Future of the response from the Command
+	 *
+	 * @exception EPPCommandException
+	 *                Error sending the command
+	 */
+	public CompletableFuture<EPPResponse> sendPollAsync()
+			throws EPPCommandException {
+		cat.debug("sendPollAsync(): enter");
+		EPPPollCmd myCommand = new EPPPollCmd(myTransId, myPollOp);
+
+		if (myPollOp.equals(EPPPollCmd.OP_ACK)) {
+			myCommand.setMsgID(msgID);
+		}
+
+		cat.debug("sendPollAsync(): exit");
+		return processDocumentAsync(myCommand, EPPResponse.class);
+	}
+
 	/**
 	 * logout from the session.
 	 *
@@ -720,6 +811,13 @@ public class EPPSession {
 	protected void logout() throws EPPCommandException {
 		cat.debug("logout(): enter");
 
+		// Drain the pipeline, since logout reads its response directly
+		if (!this.closePipeline()) {
+			cat.error("logout(): Pipeline failed, connection closed");
+			throw new EPPCommandException(
+					"EPPSession.logout() : connection closed by failed pipeline");
+		}
+
 		Document myDoc = null;
 		EPPLogoutCmd myCommand = null;
 
@@ -878,6 +976,12 @@ public class EPPSession {
 	 */
 	public void sendMessage(EPPMessage aMessage) throws EPPCommandException {
 
+		// Stream EPP Message to server when supported
+		if (this.streamMessage(aMessage,
+				"EPPSession.sendMessage: Error sending message: ")) {
+			return;
+		}
+
 		Document theDoc = null;
 
 		// Encode EPP Message to DOM Document (theDoc)
@@ -894,6 +998,48 @@ public class EPPSession {
 		this.sendDocument(theDoc);
 	}
 
+	/**
+	 * Encodes and writes an EPP Message directly to the session output stream
+	 * with {@link EPPXMLStream#write(EPPMessage, OutputStream)} when stream
+	 * encoding is enabled and the message supports it, which avoids building
+	 * and serializing a DOM Document.
+	 *
+	 * @param aMessage
+	 *            EPP Message to send to the session output stream
+	 * @param aEncodeError
+	 *            Prefix of the <code>EPPCommandException</code> message when
+	 *            the message can't be encoded
+	 *
+	 * @return <code>true</code> if the message was sent; <code>false</code>
+	 *         if the message must be encoded with DOM.
+	 *
+	 * @exception EPPCommandException
+	 *                Error encoding or sending EPP message to the session
+	 *                output stream
+	 */
+	protected boolean streamMessage(EPPMessage aMessage, String aEncodeError)
+			throws EPPCommandException {
+		if (!this.streamEncode || !myCodec.isStreamEncodable(aMessage)) {
+			return false;
+		}
+
+		try {
+			myXMLStream.write(aMessage, myOutputStream);
+		}
+		catch (EPPEncodeException myException) {
+			throw new EPPCommandException(aEncodeError
+					+ myException.getMessage());
+		}
+		catch (EPPException myException) {
+			cat.error("streamMessage(): Exception writing to stream: "
+					+ myException);
+			throw new EPPCommandException(
+					"EPPSession.sendDocument() : " + myException.getMessage());
+		}
+
+		return true;
+	}
+
 	/**
 	 * Sends an EPP DOM Document to the session output stream.
 	 *
@@ -960,6 +1106,39 @@ public class EPPSession {
 		return processDocument(aCommand, null);
 	}
 
+	/**
+	 * Reads and decodes an EPP message from the session input stream with
+	 * <code>EPPXMLReader</code>, without parsing it to a DOM Document. The
+	 * packet is validated first when validation is enabled.
+	 *
+	 * @return Concrete <code>EPPMessage</code> instance read from stream
+	 *
+	 * @exception EPPCommandException
+	 *                Error reading or decoding message from stream
+	 */
+	public EPPMessage recMessage() throws EPPCommandException {
+		EPPMessage theMessage;
+
+		// Read and decode the incoming message
+		try {
+			theMessage = myXMLStream.readMessage(myInputStream);
+		}
+		catch (EPPException myException) {
+			cat.error("recMessage(): Exception reading from stream: "
+					+ myException);
+			throw new EPPCommandException(
+					"EPPCommand.recMessage : " + myException.getMessage());
+		}
+		catch (IOException myException) {
+			cat.error("recMessage(): Exception reading from stream: "
+					+ myException);
+			throw new EPPCommandException(
+					"EPPCommand.recMessage : " + myException.getMessage());
+		}
+
+		return theMessage;
+	}
+
 	/**
 	 * Reads a response from the server. This method does no post-processing of
 	 * the response, but simply reads the response from the connection, decodes
@@ -977,6 +1156,22 @@ public class EPPSession {
 		// Reset response to null
 		this.myResponse = null;
 
+		// Read response from server and decode it without DOM
+		if (this.streamDecode) {
+			EPPMessage theMessage = recMessage();
+
+			if (!(theMessage instanceof EPPResponse)) {
+				throw new EPPCommandException(
+						"EPPSession.readResponse: On Response "
+								+ "Decoded message is not an EPPResponse");
+			}
+
+			this.myResponse = (EPPResponse) theMessage;
+			this.responseDecodeNanos = myXMLStream.getLastDecodeNanos();
+
+			return this.myResponse;
+		}
+
 		Document theDoc = null;
 
 		// Read response from server and parse the XML to DOM Document
@@ -984,7 +1179,9 @@ public class EPPSession {
 
 		// Decode DOM Document to <code>EPPResponse</code> instance
 		try {
+			long theStart = System.nanoTime();
 			myResponse = myCodec.decodeResponse(theDoc);
+			this.responseDecodeNanos = System.nanoTime() - theStart;
 		}
 		catch (EPPDecodeException myException) {
 			throw new EPPCommandException(
@@ -1021,20 +1218,40 @@ public class EPPSession {
 	 */
 	public EPPResponse processDocument(EPPCommand aCommand,
 			Class aExpectedResponse) throws EPPCommandException {
-		Document theDoc = null;
 
-		// Encode aCommand to DOM Document (theDoc)
-		try {
-			theDoc = myCodec.encode(aCommand);
+		this.lastUsedTime = System.currentTimeMillis();
+
+		// Pipelined mode?
+		if (this.mode == MODE_PIPELINED) {
+			return this.waitForResponse(this.processDocumentAsync(aCommand,
+					aExpectedResponse));
 		}
-		catch (Exception myException) {
-			throw new EPPCommandException(
-					"EPPSession.processDocument: On Command "
-							+ myException.getMessage());
+
+		// Stream command to server when supported
+		long theEncodeNanos = 0;
+		if (!this.streamMessage(aCommand,
+				"EPPSession.processDocument: On Command ")) {
+			Document theDoc = null;
+
+			// Encode aCommand to DOM Document (theDoc)
+			try {
+				long theStart = System.nanoTime();
+				theDoc = myCodec.encode(aCommand);
+				theEncodeNanos = System.nanoTime() - theStart;
+			}
+			catch (Exception myException) {
+				throw new EPPCommandException(
+						"EPPSession.processDocument: On Command "
+								+ myException.getMessage());
+			}
+
+			// Send command to server
+			this.sendDocument(theDoc);
 		}
 
-		// Send command to server
-		this.sendDocument(theDoc);
+		this.recordCommand(aCommand, theEncodeNanos
+				+ myXMLStream.getLastEncodeNanos(), myXMLStream
+				.getLastWriteNanos());
 
 		// Asynchronous mode?
 		if (this.mode == MODE_ASYNC) {
@@ -1045,6 +1262,10 @@ public class EPPSession {
 		// Response response from server
 		EPPResponse theResponse = this.readResponse();
 
+		this.recordResponse(aCommand, theResponse, myXMLStream
+				.getLastWaitNanos(), myXMLStream.getLastParseNanos(),
+				this.responseDecodeNanos);
+
 		// Error response?
 		if (!theResponse.isSuccess()) {
 			throw new EPPCommandException(
@@ -1066,6 +1287,181 @@ public class EPPSession {
 		return theResponse;
 	}
 
+	/**
+	 * Records the encode and write latency of a command with the
+	 * <code>EPPMetrics</code> of the SDK.
+	 * 
+	 * @param aCommand
+	 *            Command that was sent
+	 * @param aEncodeNanos
+	 *            Nanoseconds spent encoding the command
+	 * @param aWriteNanos
+	 *            Nanoseconds spent writing the command
+	 */
+	void recordCommand(EPPCommand aCommand, long aEncodeNanos,
+			long aWriteNanos) {
+		EPPMetrics theMetrics = EPPMetricsManager.getMetrics();
+		String theType = aCommand.getType();
+		String theNamespace = aCommand.getNamespace();
+
+		theMetrics.recordCommand(theType, theNamespace,
+				EPPMetrics.PHASE_ENCODE, aEncodeNanos);
+		theMetrics.recordCommand(theType, theNamespace,
+				EPPMetrics.PHASE_WRITE, aWriteNanos);
+	}
+
+	/**
+	 * Records the wait, parse and decode latency and the result code of the
+	 * response to a command with the <code>EPPMetrics</code> of the SDK.
+	 * 
+	 * @param aCommand
+	 *            Command that was sent
+	 * @param aResponse
+	 *            Response to the command
+	 * @param aWaitNanos
+	 *            Nanoseconds spent waiting for the response
+	 * @param aParseNanos
+	 *            Nanoseconds spent parsing the response
+	 * @param aDecodeNanos
+	 *            Nanoseconds spent decoding the response
+	 */
+	void recordResponse(EPPCommand aCommand, EPPResponse aResponse,
+			long aWaitNanos, long aParseNanos, long aDecodeNanos) {
+		EPPMetrics theMetrics = EPPMetricsManager.getMetrics();
+		String theType = aCommand.getType();
+		String theNamespace = aCommand.getNamespace();
+
+		theMetrics.recordCommand(theType, theNamespace, EPPMetrics.PHASE_WAIT,
+				aWaitNanos);
+		theMetrics.recordCommand(theType, theNamespace,
+				EPPMetrics.PHASE_PARSE, aParseNanos);
+		theMetrics.recordCommand(theType, theNamespace,
+				EPPMetrics.PHASE_DECODE, aDecodeNanos);
+
+		if (aResponse.getResult() != null) {
+			theMetrics.recordResult(theType, theNamespace, aResponse
+					.getResult().getCode());
+		}
+	}
+
+	/**
+	 * Process an <code>EPPCommand</code> instance without waiting for the
+	 * response. In {@link #MODE_PIPELINED} the command is written as soon as
+	 * the in-flight window allows, and the returned future is completed by the
+	 * pipeline reader when the response with the matching client transaction
+	 * identifier is read. In the other modes the command is processed
+	 * synchronously with {@link #processDocument(EPPCommand, Class)} and an
+	 * already completed future is returned.
+	 *
+	 * @param aCommand
+	 *            Command to write to output stream
+	 * @param aExpectedResponse
+	 *            Expected type of <code>EPPResponse</code>. If
+	 *            <code>aExpectedResponse</code> is non-<code>null</code> and
+	 *            the response is not of the specified type, than the future
+	 *            is completed with an <code>EPPCommandException</code>.
+	 *
+	 * @return Future of the response. The future is completed exceptionally
+	 *         with an <code>EPPCommandException</code> on a server specified
+	 *         error or an error reading the response.
+	 *
+	 * @exception EPPCommandException
+	 *                error encoding or sending the command
+	 */
+	public CompletableFuture<EPPResponse> processDocumentAsync(
+			EPPCommand aCommand, Class aExpectedResponse)
+			throws EPPCommandException {
+		if (this.mode == MODE_PIPELINED) {
+			this.lastUsedTime = System.currentTimeMillis();
+			return this.pipeline.send(aCommand, aExpectedResponse);
+		}
+
+		CompletableFuture<EPPResponse> theFuture = new CompletableFuture<EPPResponse>();
+		int thePrevMode = this.mode;
+		this.mode = MODE_SYNC;
+		try {
+			theFuture.complete(this.processDocument(aCommand,
+					aExpectedResponse));
+		}
+		catch (EPPCommandException ex) {
+			theFuture.completeExceptionally(ex);
+		}
+		finally {
+			this.mode = thePrevMode;
+		}
+
+		return theFuture;
+	}
+
+	/**
+	 * Waits for the response of a pipelined command and unwraps the
+	 * <code>EPPCommandException</code> of a failed future.
+	 *
+	 * @param aFuture
+	 *            Future returned by the pipeline
+	 *
+	 * @return Response of the command
+	 *
+	 * @exception EPPCommandException
+	 *                Error response or error processing the command
+	 */
+	private EPPResponse waitForResponse(CompletableFuture<EPPResponse> aFuture)
+			throws EPPCommandException {
+		try {
+			EPPResponse theResponse = aFuture.get();
+			this.myResponse = theResponse;
+			return theResponse;
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new EPPCommandException(
+					"EPPSession.processDocument: interrupted waiting for response");
+		}
+		catch (ExecutionException ex) {
+			if (ex.getCause() instanceof EPPCommandException) {
+				EPPCommandException theCause = (EPPCommandException) ex
+						.getCause();
+				if (theCause.hasResponse()) {
+					this.myResponse = theCause.getResponse();
+				}
+				throw theCause;
+			}
+			throw new EPPCommandException("EPPSession.processDocument: "
+					+ ex.getCause());
+		}
+	}
+
+	/**
+	 * Stops the pipeline if one is running, waiting for the in-flight
+	 * commands to complete. The connection is closed when the pipeline
+	 * failed.
+	 * 
+	 * @return <code>true</code> if the connection can still be used;
+	 *         <code>false</code> if the pipeline failed and closed the
+	 *         connection.
+	 */
+	private boolean closePipeline() {
+		if (this.pipeline != null) {
+			EPPSessionPipeline thePipeline = this.pipeline;
+			this.pipeline = null;
+			this.mode = MODE_SYNC;
+			thePipeline.close(PIPELINE_CLOSE_TIMEOUT);
+			return !thePipeline.isFailed();
+		}
+
+		return true;
+	}
+
+	/**
+	 * Gets the pipeline used in {@link #MODE_PIPELINED}.
+	 *
+	 * @return Pipeline if the session is in {@link #MODE_PIPELINED};
+	 *         <code>null</code> otherwise.
+	 */
+	public EPPSessionPipeline getPipeline() {
+		return this.pipeline;
+	}
+
 	/**
 	 * Ends a session by logging out from the server and closing the connection
 	 * with the server.
@@ -1099,6 +1495,14 @@ public class EPPSession {
 	public void endConnection() throws EPPCommandException {
 		cat.debug("endConnection(): enter");
 
+		// Fail anything still in flight, since the connection is going away
+		if (this.pipeline != null) {
+			EPPSessionPipeline thePipeline = this.pipeline;
+			this.pipeline = null;
+			this.mode = MODE_SYNC;
+			thePipeline.close(0);
+		}
+
 		try {
 			if (myInputStream != null) {
 				myInputStream.close();
@@ -1258,6 +1662,17 @@ public class EPPSession {
 		return myResponse;
 	}
 
+	/**
+	 * Sets the response returned by {@link #getResponse()} when the response
+	 * of a command was taken from the <code>EPPResponseCache</code> instead
+	 * of the server.
+	 *
+	 * @param aResponse Cached response
+	 */
+	void setResponse(EPPResponse aResponse) {
+		myResponse = aResponse;
+	}
+
 	/**
 	 * Gets the session input stream.
 	 *
@@ -1609,22 +2024,88 @@ public class EPPSession {
 		msgID = aMsgID;
 	}
 
+	/**
+	 * Are the messages that support it encoded directly to the frame buffer
+	 * with <code>EPPXMLWriter</code> instead of with DOM? The default is
+	 * defined by the <code>EPP.StreamEncode</code> property.
+	 * 
+	 * @return <code>true</code> if stream encoding is enabled;
+	 *         <code>false</code> otherwise.
+	 */
+	public boolean isStreamEncode() {
+		return this.streamEncode;
+	}
+
+	/**
+	 * Sets whether the messages that support it are encoded directly to the
+	 * frame buffer with <code>EPPXMLWriter</code> instead of with DOM.
+	 * 
+	 * @param aStreamEncode
+	 *            <code>true</code> to enable stream encoding;
+	 *            <code>false</code> to always encode with DOM.
+	 */
+	public void setStreamEncode(boolean aStreamEncode) {
+		this.streamEncode = aStreamEncode;
+	}
+
+	/**
+	 * Are the responses decoded directly from the packet with
+	 * <code>EPPXMLReader</code> instead of parsing them to DOM? The default is
+	 * defined by the <code>EPP.StreamDecode</code> property.
+	 * 
+	 * @return <code>true</code> if stream decoding is enabled;
+	 *         <code>false</code> otherwise.
+	 */
+	public boolean isStreamDecode() {
+		return this.streamDecode;
+	}
+
+	/**
+	 * Sets whether the responses are decoded directly from the packet with
+	 * <code>EPPXMLReader</code> instead of parsing them to DOM. The
+	 * responses that don't support it are still decoded with DOM.
+	 * 
+	 * @param aStreamDecode
+	 *            <code>true</code> to enable stream decoding;
+	 *            <code>false</code> to always decode with DOM.
+	 */
+	public void setStreamDecode(boolean aStreamDecode) {
+		this.streamDecode = aStreamDecode;
+	}
+
+	/**
+	 * Gets the time that a command or hello was last sent with the session
+	 * by {@link #processDocument(EPPCommand, Class)},
+	 * {@link #processDocumentAsync(EPPCommand, Class)}, or {@link #hello()}.
+	 * The time is initially the time the session was created.
+	 * 
+	 * @return Epoch time in milliseconds of the last use
+	 */
+	public long getLastUsedTime() {
+		return this.lastUsedTime;
+	}
+
 	/**
 	 * Gets the command/response processing mode, which should be either
-	 * {@link #MODE_SYNC} or {@link #MODE_ASYNC}.
+	 * {@link #MODE_SYNC}, {@link #MODE_ASYNC}, or {@link #MODE_PIPELINED}.
 	 * 
-	 * @return {@link #MODE_SYNC} or {@link #MODE_ASYNC}
+	 * @return {@link #MODE_SYNC}, {@link #MODE_ASYNC}, or
+	 *         {@link #MODE_PIPELINED}
 	 */
 	public int getMode() {
 		return this.mode;
 	}
 
 	/**
-	 * Sets the command/response processing mode to either {@link #MODE_SYNC} or
-	 * {@link #MODE_ASYNC}.
+	 * Sets the command/response processing mode to either {@link #MODE_SYNC},
+	 * {@link #MODE_ASYNC}, or {@link #MODE_PIPELINED}. Setting
+	 * {@link #MODE_PIPELINED} starts the pipeline reader, so it must be done
+	 * after the session is logged in. Leaving {@link #MODE_PIPELINED} waits for
+	 * the in-flight commands to complete.
 	 * 
 	 * @param aMode
-	 *            {@link #MODE_SYNC} or {@link #MODE_ASYNC}
+	 *            {@link #MODE_SYNC}, {@link #MODE_ASYNC}, or
+	 *            {@link #MODE_PIPELINED}
 	 * 
 	 * @return Previous mode
 	 */
@@ -1632,6 +2113,16 @@ public class EPPSession {
 		// Is specified mode supported?
 		if (isModeSupported(aMode)) {
 			int thePrevMode = this.mode;
+
+			if (thePrevMode == MODE_PIPELINED && aMode != MODE_PIPELINED) {
+				this.closePipeline();
+			}
+			else if (thePrevMode != MODE_PIPELINED
+					&& aMode == MODE_PIPELINED) {
+				this.pipeline = new EPPSessionPipeline(this);
+				this.pipeline.start();
+			}
+
 			this.mode = aMode;
 			return thePrevMode;
 		}
@@ -1644,17 +2135,20 @@ public class EPPSession {
 	}
 
 	/**
-	 * Does the session support the specified mode {@link #MODE_SYNC} or
-	 * {@link #MODE_ASYNC}? A derived class of <code>EPPSession</code> could
-	 * support a subset of the modes, so this method is provide to provide the
-	 * client with the ability to check whether a mode is supported.
+	 * Does the session support the specified mode {@link #MODE_SYNC},
+	 * {@link #MODE_ASYNC}, or {@link #MODE_PIPELINED}? A derived class of
+	 * <code>EPPSession</code> could support a subset of the modes, so this
+	 * method is provide to provide the client with the ability to check
+	 * whether a mode is supported.
 	 * 
 	 * @param aMode
-	 *            {@link #MODE_SYNC} or {@link #MODE_ASYNC}
+	 *            {@link #MODE_SYNC}, {@link #MODE_ASYNC}, or
+	 *            {@link #MODE_PIPELINED}
 	 * @return <code>true</code> if supported; <code>false</code> otherwise.
 	 */
 	public boolean isModeSupported(int aMode) {
-		if (aMode == MODE_SYNC || aMode == MODE_ASYNC) {
+		if (aMode == MODE_SYNC || aMode == MODE_ASYNC
+				|| aMode == MODE_PIPELINED) {
 			return true;
 		}
 		else {
@@ -0,0 +1,812 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+ ***********************************************************/
+package com.verisign.epp.interfaces;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.Logger;
+import org.w3c.dom.Document;
+
+import com.verisign.epp.codec.gen.EPPCommand;
+import com.verisign.epp.codec.gen.EPPDecodeException;
+import com.verisign.epp.codec.gen.EPPMessage;
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.codec.gen.EPPXMLWriter;
+import com.verisign.epp.exception.EPPException;
+import com.verisign.epp.transport.EPPConException;
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPExecutors;
+import com.verisign.epp.util.EPPSchemaCachingParser;
+import com.verisign.epp.util.EPPXMLStream;
+import com.verisign.epp.util.Environment;
+
+/**
+ * Pipelines commands over a single logged-in <code>EPPSession</code>
+ * connection. Commands are written to the session output stream as soon as a
+ * slot in the in-flight window is available, and a dedicated reader thread
+ * decodes each response and completes the <code>CompletableFuture</code>
+ * registered for the client transaction identifier of the command. <br>
+ * <br>
+ * The reader thread only reads from the connection while there is at least
+ * one command in flight, so the pipeline can be stopped cleanly with
+ * {@link #close(long)} without having to break a blocking socket read. The
+ * reader uses its own <code>EPPXMLStream</code>, since the session
+ * <code>EPPXMLStream</code> is used by the threads writing commands. Once the
+ * pipeline fails, the reader stops for good, and {@link #close(long)} closes
+ * the connection when a response may still be unread, so a late response
+ * can't be read as the response of a later synchronous command. <br>
+ * <br>
+ * The in-flight window defaults to {@link #DEFAULT_MAX_IN_FLIGHT} and can be
+ * overridden with the &quot;EPP.Pipeline.maxInFlight&quot; configuration
+ * property or explicitly with {@link #EPPSessionPipeline(EPPSession, int)}.
+ * Commands without a client transaction identifier are assigned one using
+ * the &quot;EPP.Pipeline.transIdPrefix&quot; configuration property
+ * (default &quot;PIPE&quot;) followed by a sequence number.
+ *
+ * @see EPPSession#MODE_PIPELINED
+ * @see EPPSession#processDocumentAsync(EPPCommand, Class)
+ */
+public class EPPSessionPipeline implements Runnable {
+
+	/**
+	 * Default maximum number of commands in flight on the connection.
+	 */
+	public static final int DEFAULT_MAX_IN_FLIGHT = 10;
+
+	/**
+	 * Default prefix of generated client transaction identifiers.
+	 */
+	public static final String DEFAULT_TRANS_ID_PREFIX = "PIPE";
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(
+			EPPSessionPipeline.class.getName(),
+			EPPCatFactory.getInstance().getFactory());
+
+	/**
+	 * Sequence used for naming the reader threads.
+	 */
+	private static final AtomicLong readerSeq = new AtomicLong();
+
+	/**
+	 * Response read by the reader thread along with the timings of reading
+	 * it, so that the metrics recorded for a command are the ones of its own
+	 * response.
+	 */
+	private static class ReadResponse {
+
+		/** Decoded response */
+		EPPResponse response;
+
+		/** <code>System.nanoTime()</code> when the response packet was read */
+		long readNanos;
+
+		/** Nanoseconds spent parsing or validating the response */
+		long parseNanos;
+
+		/** Nanoseconds spent decoding the response */
+		long decodeNanos;
+	}
+
+	/**
+	 * Command sent over the pipeline that is waiting for its response.
+	 */
+	private static class PendingCommand {
+
+		/** Command sent to the server */
+		EPPCommand command;
+
+		/** Expected response type or <code>null</code> for any type */
+		Class expectedResponse;
+
+		/** Future completed by the reader thread */
+		CompletableFuture<EPPResponse> future = new CompletableFuture<EPPResponse>();
+
+		/** <code>System.nanoTime()</code> when the write of the command started */
+		long writeStartNanos;
+
+		/**
+		 * <code>System.nanoTime()</code> when the command was written, or
+		 * <code>0</code> while the command is being written
+		 */
+		volatile long writeEndNanos;
+
+		/** Was the window slot of the command released? */
+		AtomicBoolean released = new AtomicBoolean();
+
+		PendingCommand(EPPCommand aCommand, Class aExpectedResponse) {
+			this.command = aCommand;
+			this.expectedResponse = aExpectedResponse;
+		}
+	}
+
+	/**
+	 * Session that owns the connection.
+	 */
+	private EPPSession session;
+
+	/**
+	 * Maximum number of commands in flight.
+	 */
+	private int maxInFlight;
+
+	/**
+	 * Permits for sending commands, which enforces the in-flight window.
+	 */
+	private Semaphore window;
+
+	/**
+	 * Pending commands by client transaction identifier.
+	 */
+	private ConcurrentMap<String, PendingCommand> pending = new ConcurrentHashMap<String, PendingCommand>();
+
+	/**
+	 * Pending commands in the order they were written, used to match
+	 * responses that don't include a client transaction identifier.
+	 */
+	private ConcurrentLinkedQueue<PendingCommand> sendOrder = new ConcurrentLinkedQueue<PendingCommand>();
+
+	/**
+	 * Serializes writes to the session output stream.
+	 */
+	private ReentrantLock writeLock = new ReentrantLock();
+
+	/**
+	 * Guards {@link #inFlight} and signals the reader thread.
+	 */
+	private ReentrantLock stateLock = new ReentrantLock();
+
+	/**
+	 * Signaled when a command is written or when the pipeline is closed.
+	 */
+	private Condition stateChanged = stateLock.newCondition();
+
+	/**
+	 * Number of commands written for which no response has been read.
+	 */
+	private int inFlight = 0;
+
+	/**
+	 * Is the pipeline accepting commands?
+	 */
+	private volatile boolean open = false;
+
+	/**
+	 * Has the pipeline failed? The reader thread exits once the pipeline
+	 * failed, even if it was reading a response.
+	 */
+	private volatile boolean failed = false;
+
+	/**
+	 * Used by the reader thread to read the responses from the session
+	 * input stream.
+	 */
+	private EPPXMLStream readStream;
+
+	/**
+	 * Reader thread
+	 */
+	private Thread reader = null;
+
+	/**
+	 * Prefix of generated client transaction identifiers.
+	 */
+	private String transIdPrefix;
+
+	/**
+	 * Sequence of generated client transaction identifiers.
+	 */
+	private AtomicLong transIdSeq = new AtomicLong();
+
+	/**
+	 * Creates a pipeline over a logged-in session using the configured
+	 * in-flight window.
+	 *
+	 * @param aSession
+	 *            Logged-in session
+	 */
+	public EPPSessionPipeline(EPPSession aSession) {
+		this(aSession, getConfiguredMaxInFlight());
+	}
+
+	/**
+	 * Creates a pipeline over a logged-in session with an explicit in-flight
+	 * window.
+	 *
+	 * @param aSession
+	 *            Logged-in session
+	 * @param aMaxInFlight
+	 *            Maximum number of commands in flight. Must be greater than 0.
+	 */
+	public EPPSessionPipeline(EPPSession aSession, int aMaxInFlight) {
+		if (aSession == null) {
+			throw new IllegalArgumentException("EPPSessionPipeline: null session");
+		}
+		if (aMaxInFlight <= 0) {
+			throw new IllegalArgumentException(
+					"EPPSessionPipeline: maxInFlight must be > 0, got "
+							+ aMaxInFlight);
+		}
+
+		this.session = aSession;
+		this.maxInFlight = aMaxInFlight;
+		this.window = new Semaphore(aMaxInFlight, true);
+		this.readStream = new EPPXMLStream(EPPSchemaCachingParser.POOL);
+		this.transIdPrefix = Environment.getProperty(
+				"EPP.Pipeline.transIdPrefix", DEFAULT_TRANS_ID_PREFIX);
+	}
+
+	/**
+	 * Gets the maximum number of commands in flight defined by the
+	 * &quot;EPP.Pipeline.maxInFlight&quot; property.
+	 *
+	 * @return Configured value if defined and valid;
+	 *         {@link #DEFAULT_MAX_IN_FLIGHT} otherwise.
+	 */
+	public static int getConfiguredMaxInFlight() {
+		String theValue = Environment.getOption("EPP.Pipeline.maxInFlight");
+
+		if (theValue != null) {
+			try {
+				int theMax = Integer.parseInt(theValue);
+				if (theMax > 0) {
+					return theMax;
+				}
+			}
+			catch (NumberFormatException ex) {
+				cat.error("getConfiguredMaxInFlight(): EPP.Pipeline.maxInFlight format error: "
+						+ ex);
+			}
+		}
+
+		return DEFAULT_MAX_IN_FLIGHT;
+	}
+
+	/**
+	 * Starts the reader thread. Must be called after the session is logged
+	 * in and before any command is sent.
+	 */
+	public void start() {
+		cat.debug("start(): enter");
+		this.open = true;
+		this.reader = EPPExecutors.newThread(this, "EPPSessionPipeline-"
+				+ readerSeq.incrementAndGet());
+		this.reader.start();
+		cat.debug("start(): exit");
+	}
+
+	/**
+	 * Sends a command over the pipeline. The call blocks while the in-flight
+	 * window is full and returns as soon as the command is written.
+	 *
+	 * @param aCommand
+	 *            Command to send
+	 * @param aExpectedResponse
+	 *            Expected type of <code>EPPResponse</code> or
+	 *            <code>null</code> for any type
+	 *
+	 * @return Future completed with the response, or completed exceptionally
+	 *         with an <code>EPPCommandException</code> for an error response,
+	 *         an unexpected response type, or a connection failure.
+	 *
+	 * @exception EPPCommandException
+	 *                The pipeline is closed, the thread was interrupted
+	 *                waiting for a window slot, or the command could not be
+	 *                encoded or written.
+	 */
+	public CompletableFuture<EPPResponse> send(EPPCommand aCommand,
+			Class aExpectedResponse) throws EPPCommandException {
+		if (!this.open) {
+			throw new EPPCommandException(
+					"EPPSessionPipeline.send(): pipeline is closed");
+		}
+
+		// Ensure that the command can be correlated with its response
+		if (aCommand.getTransId() == null) {
+			aCommand.setTransId(this.transIdPrefix + "-"
+					+ this.transIdSeq.incrementAndGet());
+		}
+
+		PendingCommand thePending = new PendingCommand(aCommand,
+				aExpectedResponse);
+
+		// Encode outside of the write lock
+		Document theDoc = null;
+		byte[] thePacket = null;
+		long theStart = System.nanoTime();
+		try {
+			if (this.session.isStreamEncode()
+					&& this.session.myCodec.isStreamEncodable(aCommand)) {
+				EPPXMLWriter theWriter = new EPPXMLWriter();
+				theWriter.reset(0);
+				this.session.myCodec.encode(aCommand, theWriter);
+				thePacket = theWriter.toByteArray();
+			}
+			else {
+				theDoc = this.session.myCodec.encode(aCommand);
+			}
+		}
+		catch (Exception ex) {
+			throw new EPPCommandException(
+					"EPPSessionPipeline.send(): On Command " + ex.getMessage());
+		}
+		long theEncodeNanos = System.nanoTime() - theStart;
+		long theWriteNanos;
+
+		// Wait for a slot in the window
+		try {
+			this.window.acquire();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new EPPCommandException(
+					"EPPSessionPipeline.send(): interrupted waiting for window");
+		}
+
+		this.writeLock.lock();
+		try {
+			if (!this.open) {
+				this.window.release();
+				throw new EPPCommandException(
+						"EPPSessionPipeline.send(): pipeline is closed");
+			}
+
+			// Register before writing so that a fast response is matched
+			thePending.writeStartNanos = System.nanoTime();
+			if (this.pending.putIfAbsent(aCommand.getTransId(), thePending) != null) {
+				this.window.release();
+				throw new EPPCommandException(
+						"EPPSessionPipeline.send(): client transaction id "
+								+ aCommand.getTransId() + " already in flight");
+			}
+			this.sendOrder.add(thePending);
+
+			try {
+				if (thePacket != null) {
+					this.session.sendPacket(thePacket);
+				}
+				else {
+					this.session.sendDocument(theDoc);
+				}
+				thePending.writeEndNanos = System.nanoTime();
+				theEncodeNanos += this.session.myXMLStream.getLastEncodeNanos();
+				theWriteNanos = this.session.myXMLStream.getLastWriteNanos();
+			}
+			catch (EPPCommandException ex) {
+				this.release(thePending);
+				this.fail(ex);
+				throw ex;
+			}
+
+			this.stateLock.lock();
+			try {
+				this.inFlight++;
+				this.stateChanged.signalAll();
+			}
+			finally {
+				this.stateLock.unlock();
+			}
+		}
+		finally {
+			this.writeLock.unlock();
+		}
+
+		this.session.recordCommand(aCommand, theEncodeNanos, theWriteNanos);
+
+		return thePending.future;
+	}
+
+	/**
+	 * Reader loop that reads a response for each command in flight and
+	 * completes the associated future.
+	 */
+	public void run() {
+		cat.debug("run(): enter");
+
+		while (true) {
+			// Wait for a command in flight or the pipeline to close
+			this.stateLock.lock();
+			try {
+				while (this.inFlight == 0 && this.open && !this.failed) {
+					this.stateChanged.awaitUninterruptibly();
+				}
+
+				if (this.inFlight == 0 || this.failed) {
+					break;
+				}
+			}
+			finally {
+				this.stateLock.unlock();
+			}
+
+			ReadResponse theRead;
+			try {
+				theRead = this.readResponse();
+			}
+			catch (EPPCommandException ex) {
+				if (!this.failed) {
+					cat.error("run(): Exception reading response, failing pipeline: "
+							+ ex);
+					this.fail(ex);
+				}
+				break;
+			}
+
+			// Commands failed while reading?
+			if (this.failed) {
+				cat.debug("run(): Pipeline failed, dropping response "
+						+ theRead.response);
+				break;
+			}
+
+			this.stateLock.lock();
+			try {
+				if (this.inFlight > 0) {
+					this.inFlight--;
+				}
+				this.stateChanged.signalAll();
+			}
+			finally {
+				this.stateLock.unlock();
+			}
+
+			this.dispatch(theRead);
+		}
+
+		cat.debug("run(): exit");
+	}
+
+	/**
+	 * Reads and decodes the next response from the session input stream with
+	 * {@link #readStream}.
+	 *
+	 * @return Decoded response with the timings of reading it
+	 *
+	 * @exception EPPCommandException
+	 *                Error reading or decoding the response
+	 */
+	private ReadResponse readResponse() throws EPPCommandException {
+		ReadResponse theResult = new ReadResponse();
+
+		// Decode without DOM?
+		if (this.session.isStreamDecode()) {
+			EPPMessage theMessage;
+			try {
+				theMessage = this.readStream
+						.readMessage(this.session.myInputStream);
+			}
+			catch (EPPException ex) {
+				throw new EPPCommandException(
+						"EPPSessionPipeline.readResponse: " + ex.getMessage());
+			}
+			catch (IOException ex) {
+				throw new EPPCommandException(
+						"EPPSessionPipeline.readResponse: " + ex.getMessage());
+			}
+			theResult.parseNanos = this.readStream.getLastParseNanos();
+			theResult.decodeNanos = this.readStream.getLastDecodeNanos();
+			theResult.readNanos = System.nanoTime() - theResult.parseNanos
+					- theResult.decodeNanos;
+
+			if (!(theMessage instanceof EPPResponse)) {
+				throw new EPPCommandException(
+						"EPPSessionPipeline.readResponse: On Response "
+								+ "Decoded message is not an EPPResponse");
+			}
+
+			theResult.response = (EPPResponse) theMessage;
+			return theResult;
+		}
+
+		Document theDoc;
+		try {
+			theDoc = this.readStream.read(this.session.myInputStream);
+		}
+		catch (EPPException ex) {
+			throw new EPPCommandException("EPPSessionPipeline.readResponse: "
+					+ ex.getMessage());
+		}
+		catch (IOException ex) {
+			throw new EPPCommandException("EPPSessionPipeline.readResponse: "
+					+ ex.getMessage());
+		}
+		theResult.parseNanos = this.readStream.getLastParseNanos();
+
+		try {
+			long theStart = System.nanoTime();
+			theResult.response = this.session.myCodec.decodeResponse(theDoc);
+			theResult.decodeNanos = System.nanoTime() - theStart;
+			theResult.readNanos = theStart - theResult.parseNanos;
+			return theResult;
+		}
+		catch (EPPDecodeException ex) {
+			throw new EPPCommandException(
+					"EPPSessionPipeline.readResponse: On Response "
+							+ ex.getMessage());
+		}
+	}
+
+	/**
+	 * Completes the pending command that matches the response and records
+	 * the response metrics of the command.
+	 *
+	 * @param aRead
+	 *            Response read from the connection with its timings
+	 */
+	private void dispatch(ReadResponse aRead) {
+		EPPResponse theResponse = aRead.response;
+		String theTransId = null;
+		if (theResponse.getTransId() != null) {
+			theTransId = theResponse.getTransId().getClientTransId();
+		}
+
+		PendingCommand thePending = null;
+		if (theTransId != null) {
+			thePending = this.pending.get(theTransId);
+		}
+
+		// Command already failed?
+		if (thePending != null && !this.release(thePending)) {
+			cat.debug("dispatch(): Command of response " + theTransId
+					+ " already completed");
+			return;
+		}
+
+		// No client transaction id echoed, so match the oldest command
+		while (thePending == null) {
+			thePending = this.sendOrder.poll();
+			if (thePending == null) {
+				cat.error("dispatch(): No pending command for response "
+						+ theResponse);
+				return;
+			}
+			if (!this.release(thePending)) {
+				thePending = null;
+			}
+		}
+
+		// Wait from the end of the write, or from the start of the write if
+		// the response was read before the writer recorded the end
+		long theWriteEnd = thePending.writeEndNanos;
+		if (theWriteEnd == 0) {
+			theWriteEnd = thePending.writeStartNanos;
+		}
+		this.session.recordResponse(thePending.command, theResponse, Math.max(0,
+				aRead.readNanos - theWriteEnd), aRead.parseNanos,
+				aRead.decodeNanos);
+
+		if (!theResponse.isSuccess()) {
+			thePending.future.completeExceptionally(new EPPCommandException(
+					"EPPSession.processDocument() : Error in response from Server",
+					theResponse));
+		}
+		else if ((thePending.expectedResponse != null)
+				&& !thePending.expectedResponse.isInstance(theResponse)) {
+			thePending.future.completeExceptionally(new EPPCommandException(
+					"Unexpected response type of "
+							+ theResponse.getClass().getName() + ", expecting "
+							+ thePending.expectedResponse));
+		}
+		else if (theTransId != null
+				&& !theTransId.equals(thePending.command.getTransId())) {
+			thePending.future.completeExceptionally(new EPPCommandException(
+					"Response trans id of [" + theTransId
+							+ "] != Command trans id of ["
+							+ thePending.command.getTransId() + "]",
+					theResponse));
+		}
+		else {
+			thePending.future.complete(theResponse);
+		}
+	}
+
+	/**
+	 * Removes a pending command and releases its window slot. A response
+	 * and a failure can race for the same command, so only the first call
+	 * for a command releases the slot.
+	 *
+	 * @param aPending
+	 *            Pending command
+	 *
+	 * @return <code>true</code> if the slot was released by this call;
+	 *         <code>false</code> if it was already released.
+	 */
+	private boolean release(PendingCommand aPending) {
+		if (!aPending.released.compareAndSet(false, true)) {
+			return false;
+		}
+
+		this.pending.remove(aPending.command.getTransId(), aPending);
+		this.sendOrder.remove(aPending);
+		this.window.release();
+		return true;
+	}
+
+	/**
+	 * Closes the pipeline, stops the reader thread for good and completes all
+	 * of the pending futures exceptionally.
+	 *
+	 * @param aCause
+	 *            Cause of the failure
+	 */
+	private void fail(EPPCommandException aCause) {
+		this.failed = true;
+		this.open = false;
+
+		Iterator<PendingCommand> theIter = this.pending.values().iterator();
+		while (theIter.hasNext()) {
+			PendingCommand thePending = theIter.next();
+			if (this.release(thePending)) {
+				thePending.future.completeExceptionally(aCause);
+			}
+		}
+
+		this.stateLock.lock();
+		try {
+			this.inFlight = 0;
+			this.stateChanged.signalAll();
+		}
+		finally {
+			this.stateLock.unlock();
+		}
+	}
+
+	/**
+	 * Stops accepting commands and waits for the in-flight commands to
+	 * complete and the reader thread to exit. Commands still in flight after
+	 * <code>aTimeout</code> milliseconds are completed exceptionally. When the
+	 * pipeline failed, the reader thread may be blocked reading a response
+	 * that will not be dispatched, so the session connection is closed before
+	 * waiting for the reader thread. The session must not read from or write
+	 * to the connection after a failed pipeline is closed.
+	 *
+	 * @param aTimeout
+	 *            Maximum time in milliseconds to wait for the in-flight
+	 *            commands
+	 */
+	public void close(long aTimeout) {
+		cat.debug("close(long): enter");
+
+		this.writeLock.lock();
+		try {
+			this.open = false;
+		}
+		finally {
+			this.writeLock.unlock();
+		}
+
+		long theDeadline = System.currentTimeMillis() + aTimeout;
+
+		this.stateLock.lock();
+		try {
+			this.stateChanged.signalAll();
+			long theRemaining = aTimeout;
+			while (this.inFlight > 0 && theRemaining > 0) {
+				try {
+					this.stateChanged.await(theRemaining, TimeUnit.MILLISECONDS);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+				theRemaining = theDeadline - System.currentTimeMillis();
+			}
+		}
+		finally {
+			this.stateLock.unlock();
+		}
+
+		if (!this.pending.isEmpty()) {
+			cat.error("close(long): " + this.pending.size()
+					+ " commands still in flight after " + aTimeout + " ms");
+			this.fail(new EPPCommandException(
+					"EPPSessionPipeline.close(): pipeline closed with command in flight"));
+		}
+
+		if (this.failed) {
+			this.closeConnection();
+		}
+
+		// Wait until the reader no longer uses the session input stream
+		if (this.reader != null && this.reader != Thread.currentThread()) {
+			boolean theInterrupted = false;
+			while (this.reader.isAlive()) {
+				try {
+					this.reader.join();
+				}
+				catch (InterruptedException ex) {
+					theInterrupted = true;
+				}
+			}
+			if (theInterrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		cat.debug("close(long): exit");
+	}
+
+	/**
+	 * Closes the session connection, which breaks a blocking read of the
+	 * reader thread.
+	 */
+	private void closeConnection() {
+		if (this.session.myConnection == null) {
+			return;
+		}
+
+		cat.error("closeConnection(): Closing connection of failed pipeline");
+		try {
+			this.session.myConnection.close();
+		}
+		catch (EPPConException ex) {
+			cat.error("closeConnection(): Exception closing connection: " + ex);
+		}
+	}
+
+	/**
+	 * Is the pipeline accepting commands?
+	 *
+	 * @return <code>true</code> if open; <code>false</code> otherwise.
+	 */
+	public boolean isOpen() {
+		return this.open;
+	}
+
+	/**
+	 * Has the pipeline failed? The connection of a failed pipeline is closed
+	 * by {@link #close(long)}.
+	 *
+	 * @return <code>true</code> if failed; <code>false</code> otherwise.
+	 */
+	public boolean isFailed() {
+		return this.failed;
+	}
+
+	/**
+	 * Gets the maximum number of commands in flight.
+	 *
+	 * @return Maximum number of commands in flight
+	 */
+	public int getMaxInFlight() {
+		return this.maxInFlight;
+	}
+
+	/**
+	 * Gets the number of commands currently waiting for a response.
+	 *
+	 * @return Number of commands in flight
+	 */
+	public int getInFlight() {
+		return this.pending.size();
+	}
+
+}
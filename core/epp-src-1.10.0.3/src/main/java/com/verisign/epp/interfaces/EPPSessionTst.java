@@ -20,6 +20,9 @@ http://www.verisign.com/nds/naming/namestore/techdocs.html
 package com.verisign.epp.interfaces;
 
 import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
@@ -34,6 +37,7 @@ import com.verisign.epp.codec.gen.EPPCodec;
 import com.verisign.epp.codec.gen.EPPDecodeException;
 import com.verisign.epp.codec.gen.EPPGreeting;
 import com.verisign.epp.codec.gen.EPPMessage;
+import com.verisign.epp.codec.gen.EPPPollCmd;
 import com.verisign.epp.codec.gen.EPPResponse;
 import com.verisign.epp.util.EPPCatFactory;
 import com.verisign.epp.util.Environment;
@@ -112,6 +116,7 @@ public class EPPSessionTst extends TestCase {
 		doHello();
 		doPoll();
 		doAsyncPoll();
+		doPipelinedPoll();
 		doSendPacket();
 		doSendInvalidRequest();
 		endSession();
@@ -370,6 +375,59 @@ public class EPPSessionTst extends TestCase {
 		printEnd("doAsyncPoll");
 	}
 
+	/**
+	 * Unit test of pipelining poll commands with {@link EPPSession#MODE_PIPELINED}.
+	 * Multiple poll requests are put in flight before any response is read, and
+	 * each future must be completed with the response that echoes the client
+	 * transaction identifier of its command.
+	 */
+	private void doPipelinedPoll() {
+		printStart("doPipelinedPoll");
+
+		if (!session.isModeSupported(EPPSession.MODE_PIPELINED)) {
+			System.out.println(
+					"doPipelinedPoll: Session " + session.getClass().getName()
+							+ " does not support MODE_PIPELINED, skipping test");
+			printEnd("doPipelinedPoll (skipped)");
+			return;
+		}
+		int previousSessionMode = session.setMode(EPPSession.MODE_PIPELINED);
+
+		try {
+			List<String> theTransIds = new ArrayList<String>();
+			List<CompletableFuture<EPPResponse>> theFutures = new ArrayList<CompletableFuture<EPPResponse>>();
+
+			for (int i = 0; i < 5; i++) {
+				String theClientTransId = "PIPE-CMD-" + i + "-"
+						+ System.currentTimeMillis();
+				theTransIds.add(theClientTransId);
+				theFutures.add(session.processDocumentAsync(
+						new EPPPollCmd(theClientTransId, EPPSession.OP_REQ),
+						EPPResponse.class));
+			}
+
+			for (int i = 0; i < theFutures.size(); i++) {
+				EPPResponse theResponse = theFutures.get(i).get();
+
+				Assert.assertEquals(
+						"doPipelinedPoll: clientTransId's don't Match (command and response)",
+						theTransIds.get(i),
+						theResponse.getTransId().getClientTransId());
+			}
+		}
+		catch (EPPCommandException e) {
+			handleException(e);
+		}
+		catch (Exception e) {
+			Assert.fail("doPipelinedPoll(); General exception: " + e);
+		}
+		finally {
+			session.setMode(previousSessionMode);
+		}
+
+		printEnd("doPipelinedPoll");
+	}
+
 	/**
 	 * Unit test of <code>EPPSession.endSession</code>. The session with the EPP
 	 * Server will be terminated.
@@ -0,0 +1,806 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.load;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.pool.impl.GenericObjectPool;
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.interfaces.EPPApplicationSingle;
+import com.verisign.epp.interfaces.EPPCommandException;
+import com.verisign.epp.interfaces.EPPSession;
+import com.verisign.epp.pool.EPPSessionPool;
+import com.verisign.epp.pool.EPPSessionPoolException;
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPExecutors;
+import com.verisign.epp.util.Environment;
+
+/**
+ * Load generator that sends a weighted mix of commands through the
+ * <code>EPPSessionPool</code> to measure the throughput and the latency
+ * percentiles of a server, like the Stub Server with
+ * <code>EPP.Repository.Enabled</code>. The load generator runs in one of two
+ * modes:<br>
+ * <br>
+ * <ul>
+ * <li>Closed loop (<code>rate</code> of <code>0</code>) - Each of the
+ * <code>threads</code> threads sends the next command as soon as the
+ * previous one completes, which measures the maximum throughput.</li>
+ * <li>Open loop (<code>rate</code> greater than <code>0</code>) - Commands
+ * are started at a fixed rate independent of the response times, with up to
+ * <code>threads</code> commands in flight. The latency is measured from the
+ * time the command should have been started, so a slow server is not
+ * hidden by fewer commands being sent, and a command that can not be started
+ * because too many are in flight is counted as dropped.</li>
+ * </ul>
+ * <br>
+ * The statistics are reset after the <code>warmup</code> time and the
+ * measurement runs for <code>duration</code> milliseconds, with the
+ * throughput and latency percentiles logged every
+ * <code>reportInterval</code> milliseconds. When <code>output</code> is
+ * set, the statistics are written to <code>&lt;output&gt;.csv</code> and
+ * <code>&lt;output&gt;.json</code>. In soak mode an
+ * <code>EPPSoakMonitor</code> samples the heap, the threads, and the
+ * session pool every <code>soakInterval</code> milliseconds, which are
+ * written to <code>&lt;output&gt;-soak.csv</code>. <br>
+ * <br>
+ * The settings are read by {@link #init()} from the
+ * <code>EPP.LoadGen.&lt;setting&gt;</code> properties, and the load
+ * generator can be run from the command line with the configuration file
+ * as the argument: <br>
+ * <br>
+ * <code>java com.verisign.epp.load.EPPLoadGenerator epp.config</code>
+ */
+public class EPPLoadGenerator {
+
+	/**
+	 * Prefix of the load generator properties.
+	 */
+	public static final String PROP_PREFIX = "EPP.LoadGen";
+
+	/**
+	 * Default number of threads or maximum commands in flight.
+	 */
+	public static final int DEFAULT_THREADS = 10;
+
+	/**
+	 * Default duration of the measurement in milliseconds.
+	 */
+	public static final long DEFAULT_DURATION = 60000;
+
+	/**
+	 * Default interval of the reports in milliseconds.
+	 */
+	public static final long DEFAULT_REPORT_INTERVAL = 10000;
+
+	/**
+	 * Default interval of the soak samples in milliseconds.
+	 */
+	public static final long DEFAULT_SOAK_INTERVAL = 60000;
+
+	/**
+	 * Default top level domain of the domain names.
+	 */
+	public static final String DEFAULT_TLD = "com";
+
+	/** Number of nanoseconds per second */
+	private static final long NANOS_PER_SECOND = 1000000000L;
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPLoadGenerator.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/**
+	 * Session pool of the sessions.
+	 */
+	private final EPPSessionPool pool;
+
+	/**
+	 * System session pool, <code>null</code> for the default pool.
+	 */
+	private final String system;
+
+	/**
+	 * Number of closed loop threads or maximum open loop commands in flight.
+	 */
+	private int threads = DEFAULT_THREADS;
+
+	/**
+	 * Open loop rate in commands per second, <code>0</code> for a closed
+	 * loop.
+	 */
+	private double rate = 0;
+
+	/**
+	 * Duration of the measurement in milliseconds.
+	 */
+	private long duration = DEFAULT_DURATION;
+
+	/**
+	 * Warm up time before the measurement in milliseconds.
+	 */
+	private long warmup = 0;
+
+	/**
+	 * Interval of the reports in milliseconds, <code>0</code> for none.
+	 */
+	private long reportInterval = DEFAULT_REPORT_INTERVAL;
+
+	/**
+	 * Specification of the mix used when no mix is set.
+	 */
+	private String mixSpec = EPPLoadMix.DEFAULT_MIX;
+
+	/**
+	 * Mix of the operations, <code>null</code> to create it from
+	 * {@link #mixSpec}.
+	 */
+	private EPPLoadMix mix = null;
+
+	/**
+	 * Prefix of the domain names, which is unique per run by default.
+	 */
+	private String prefix = "load" + Long.toString(System.currentTimeMillis(), 36)
+			+ "-";
+
+	/**
+	 * Top level domain of the domain names.
+	 */
+	private String tld = DEFAULT_TLD;
+
+	/**
+	 * Registrant of the created domains, <code>null</code> for none.
+	 */
+	private String registrant = null;
+
+	/**
+	 * Base path of the output files, <code>null</code> for no files.
+	 */
+	private String output = null;
+
+	/**
+	 * Run the soak monitor?
+	 */
+	private boolean soak = false;
+
+	/**
+	 * Interval of the soak samples in milliseconds.
+	 */
+	private long soakInterval = DEFAULT_SOAK_INTERVAL;
+
+	/**
+	 * Sequence of the operations.
+	 */
+	private final AtomicLong seq = new AtomicLong();
+
+	/**
+	 * Creates a load generator.
+	 *
+	 * @param aPool
+	 *            Initialized session pool
+	 * @param aSystem
+	 *            System session pool to use, or <code>null</code> for the
+	 *            default pool
+	 */
+	public EPPLoadGenerator(EPPSessionPool aPool, String aSystem) {
+		this.pool = aPool;
+		this.system = aSystem;
+	}
+
+	/**
+	 * Initializes the settings from the <code>EPP.LoadGen</code> properties,
+	 * which are <code>threads</code>, <code>rate</code>,
+	 * <code>duration</code>, <code>warmup</code>, <code>reportInterval</code>,
+	 * <code>mix</code>, <code>prefix</code>, <code>tld</code>,
+	 * <code>registrant</code>, <code>output</code>, <code>soak</code>, and
+	 * <code>soakInterval</code>. The settings of the undefined properties
+	 * are not changed.
+	 *
+	 * @exception IllegalArgumentException
+	 *                Invalid property value
+	 */
+	public void init() {
+		String theValue;
+
+		try {
+			theValue = this.getProperty("threads");
+			if (theValue != null) {
+				this.setThreads(Integer.parseInt(theValue));
+			}
+
+			theValue = this.getProperty("rate");
+			if (theValue != null) {
+				this.setRate(Double.parseDouble(theValue));
+			}
+
+			theValue = this.getProperty("duration");
+			if (theValue != null) {
+				this.setDuration(Long.parseLong(theValue));
+			}
+
+			theValue = this.getProperty("warmup");
+			if (theValue != null) {
+				this.setWarmup(Long.parseLong(theValue));
+			}
+
+			theValue = this.getProperty("reportInterval");
+			if (theValue != null) {
+				this.setReportInterval(Long.parseLong(theValue));
+			}
+
+			theValue = this.getProperty("soakInterval");
+			if (theValue != null) {
+				this.setSoakInterval(Long.parseLong(theValue));
+			}
+		}
+		catch (NumberFormatException ex) {
+			throw new IllegalArgumentException("Invalid number property: "
+					+ ex);
+		}
+
+		theValue = this.getProperty("mix");
+		if (theValue != null) {
+			this.mixSpec = theValue;
+		}
+
+		theValue = this.getProperty("prefix");
+		if (theValue != null) {
+			this.setPrefix(theValue);
+		}
+
+		theValue = this.getProperty("tld");
+		if (theValue != null) {
+			this.setTld(theValue);
+		}
+
+		this.registrant = this.getProperty("registrant");
+		this.output = this.getProperty("output");
+
+		theValue = this.getProperty("soak");
+		if (theValue != null) {
+			this.setSoak(Boolean.valueOf(theValue).booleanValue());
+		}
+
+		cat.info("init(): threads = " + this.threads + ", rate = "
+				+ this.rate + ", duration = " + this.duration
+				+ " ms, warmup = " + this.warmup + " ms, mix = "
+				+ this.mixSpec + ", soak = " + this.soak);
+	}
+
+	/**
+	 * Gets a load generator property.
+	 *
+	 * @param aProperty
+	 *            Property name without the <code>EPP.LoadGen</code> prefix
+	 *
+	 * @return Property value if defined; <code>null</code> otherwise.
+	 */
+	private String getProperty(String aProperty) {
+		return Environment.getProperty(PROP_PREFIX + "." + aProperty);
+	}
+
+	/**
+	 * Runs the load for the warm up time and the duration, and writes the
+	 * output files when <code>output</code> is set.
+	 *
+	 * @return Statistics of the measurement
+	 *
+	 * @exception EPPSessionPoolException
+	 *                The system session pool does not exist
+	 * @exception IOException
+	 *                Error writing the output files
+	 */
+	public EPPLoadStats run() throws EPPSessionPoolException, IOException {
+		if (this.mix == null) {
+			this.mix = new EPPLoadMix(this.mixSpec, new EPPLoadOperations(
+					this.prefix, this.tld, this.registrant));
+		}
+
+		final EPPLoadStats theStats = new EPPLoadStats(this.mix
+				.getOperations());
+
+		GenericObjectPool theGenericPool = this.system == null ? this.pool
+				.getGenericObjectPool() : this.pool
+				.getGenericObjectPool(this.system);
+
+		Writer theSoakWriter = null;
+		EPPSoakMonitor theMonitor = null;
+		if (this.soak) {
+			if (this.output != null) {
+				theSoakWriter = new BufferedWriter(new FileWriter(this.output
+						+ "-soak.csv"));
+			}
+			theMonitor = new EPPSoakMonitor(theGenericPool, theStats,
+					this.soakInterval, theSoakWriter);
+			theMonitor.start();
+		}
+
+		ScheduledExecutorService theReporter = Executors
+				.newSingleThreadScheduledExecutor(EPPExecutors
+						.newThreadFactory("EPPLoadGenerator-report"));
+		try {
+			if (this.warmup > 0) {
+				theReporter.schedule(new Runnable() {
+
+					public void run() {
+						cat.info("run(): Warm up done, starting measurement");
+						theStats.reset();
+					}
+				}, this.warmup, TimeUnit.MILLISECONDS);
+			}
+
+			if (this.reportInterval > 0) {
+				theReporter.scheduleWithFixedDelay(new Runnable() {
+
+					private long lastCount = 0;
+
+					private long lastNanos = System.nanoTime();
+
+					public void run() {
+						long theCount = theStats.getTotal().getCount();
+						long theNanos = System.nanoTime();
+						double theRate = (theCount - this.lastCount)
+								* (double) NANOS_PER_SECOND
+								/ (theNanos - this.lastNanos);
+						this.lastCount = theCount;
+						this.lastNanos = theNanos;
+
+						cat.info("run(): interval ops/s = "
+								+ EPPLoadStats.format(theRate) + "\n"
+								+ theStats);
+					}
+				}, this.reportInterval, this.reportInterval,
+						TimeUnit.MILLISECONDS);
+			}
+
+			long theEndNanos = System.nanoTime()
+					+ (this.warmup + this.duration) * 1000000L;
+
+			if (this.rate > 0) {
+				this.runOpenLoop(theStats, theEndNanos);
+			}
+			else {
+				this.runClosedLoop(theStats, theEndNanos);
+			}
+		}
+		finally {
+			theReporter.shutdownNow();
+
+			if (theMonitor != null) {
+				theMonitor.stop();
+			}
+			if (theSoakWriter != null) {
+				theSoakWriter.close();
+			}
+		}
+
+		cat.info("run(): Done\n" + theStats);
+
+		if (this.output != null) {
+			this.writeOutput(theStats);
+		}
+
+		return theStats;
+	}
+
+	/**
+	 * Runs the closed loop, where each thread sends the next command when
+	 * the previous one completes.
+	 *
+	 * @param aStats
+	 *            Statistics to record to
+	 * @param aEndNanos
+	 *            Time to stop starting commands
+	 */
+	private void runClosedLoop(final EPPLoadStats aStats, final long aEndNanos) {
+		Thread[] theThreads = new Thread[this.threads];
+
+		for (int i = 0; i < theThreads.length; i++) {
+			theThreads[i] = EPPExecutors.newThread(new Runnable() {
+
+				public void run() {
+					Random theRandom = ThreadLocalRandom.current();
+					while (System.nanoTime() < aEndNanos) {
+						execute(mix.next(theRandom), System.nanoTime(), aStats);
+					}
+				}
+			}, "EPPLoadGenerator-" + i);
+			theThreads[i].start();
+		}
+
+		for (int i = 0; i < theThreads.length; i++) {
+			try {
+				theThreads[i].join();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Runs the open loop, where the commands are started at the fixed rate
+	 * with up to <code>threads</code> commands in flight.
+	 *
+	 * @param aStats
+	 *            Statistics to record to
+	 * @param aEndNanos
+	 *            Time to stop starting commands
+	 */
+	private void runOpenLoop(final EPPLoadStats aStats, long aEndNanos) {
+		final Semaphore theInFlight = new Semaphore(this.threads);
+		ExecutorService theExecutor = EPPExecutors.newExecutor(
+				"EPPLoadGenerator", this.threads, this.threads);
+
+		Random theRandom = new Random();
+		double theIntervalNanos = NANOS_PER_SECOND / this.rate;
+		long theStartNanos = System.nanoTime();
+
+		try {
+			for (long i = 0;; i++) {
+				final long theIntendedNanos = theStartNanos
+						+ (long) (i * theIntervalNanos);
+				if (theIntendedNanos >= aEndNanos) {
+					break;
+				}
+
+				long theWait = theIntendedNanos - System.nanoTime();
+				if (theWait > 0) {
+					LockSupport.parkNanos(theWait);
+				}
+				if (Thread.currentThread().isInterrupted()) {
+					break;
+				}
+
+				if (!theInFlight.tryAcquire()) {
+					aStats.recordDropped();
+					continue;
+				}
+
+				final EPPLoadOperation theOperation = this.mix.next(theRandom);
+				try {
+					theExecutor.execute(new Runnable() {
+
+						public void run() {
+							try {
+								execute(theOperation, theIntendedNanos, aStats);
+							}
+							finally {
+								theInFlight.release();
+							}
+						}
+					});
+				}
+				catch (RejectedExecutionException ex) {
+					theInFlight.release();
+					aStats.recordDropped();
+				}
+			}
+		}
+		finally {
+			theExecutor.shutdown();
+			try {
+				theExecutor.awaitTermination(this.duration,
+						TimeUnit.MILLISECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Executes an operation with a borrowed session and records the latency
+	 * and the outcome. The session is invalidated when the operation fails
+	 * without a response.
+	 *
+	 * @param aOperation
+	 *            Operation to execute
+	 * @param aStartNanos
+	 *            Time the latency is measured from
+	 * @param aStats
+	 *            Statistics to record to
+	 */
+	void execute(EPPLoadOperation aOperation, long aStartNanos,
+			EPPLoadStats aStats) {
+		EPPSession theSession;
+		try {
+			theSession = this.system == null ? this.pool.borrowObject()
+					: this.pool.borrowObject(this.system);
+		}
+		catch (EPPSessionPoolException ex) {
+			cat.debug("execute(): Error borrowing session: " + ex);
+			aStats.record(aOperation.getName(), System.nanoTime()
+					- aStartNanos, EPPLoadStats.FAILURE);
+			return;
+		}
+
+		int theOutcome = EPPLoadStats.SUCCESS;
+		try {
+			aOperation.execute(theSession, this.seq.incrementAndGet());
+		}
+		catch (EPPCommandException ex) {
+			if (ex.hasResponse()) {
+				theOutcome = EPPLoadStats.ERROR;
+			}
+			else {
+				cat.debug("execute(): " + aOperation.getName() + " failed: "
+						+ ex);
+				theOutcome = EPPLoadStats.FAILURE;
+			}
+		}
+		catch (RuntimeException ex) {
+			cat.error("execute(): " + aOperation.getName() + " failed: " + ex,
+					ex);
+			theOutcome = EPPLoadStats.FAILURE;
+		}
+
+		aStats.record(aOperation.getName(), System.nanoTime() - aStartNanos,
+				theOutcome);
+
+		try {
+			if (theOutcome == EPPLoadStats.FAILURE) {
+				if (this.system == null) {
+					this.pool.invalidateObject(theSession);
+				}
+				else {
+					this.pool.invalidateObject(this.system, theSession);
+				}
+			}
+			else if (this.system == null) {
+				this.pool.returnObject(theSession);
+			}
+			else {
+				this.pool.returnObject(this.system, theSession);
+			}
+		}
+		catch (EPPSessionPoolException ex) {
+			cat.error("execute(): Error releasing session: " + ex);
+		}
+	}
+
+	/**
+	 * Writes the statistics to <code>&lt;output&gt;.csv</code> and
+	 * <code>&lt;output&gt;.json</code>.
+	 *
+	 * @param aStats
+	 *            Statistics to write
+	 *
+	 * @exception IOException
+	 *                Error writing the files
+	 */
+	private void writeOutput(EPPLoadStats aStats) throws IOException {
+		Writer theWriter = new BufferedWriter(new FileWriter(this.output
+				+ ".csv"));
+		try {
+			aStats.writeCsv(theWriter);
+		}
+		finally {
+			theWriter.close();
+		}
+
+		theWriter = new BufferedWriter(new FileWriter(this.output + ".json"));
+		try {
+			aStats.writeJson(theWriter);
+		}
+		finally {
+			theWriter.close();
+		}
+
+		cat.info("writeOutput(): Wrote " + this.output + ".csv and "
+				+ this.output + ".json");
+	}
+
+	/**
+	 * Sets the number of closed loop threads or the maximum number of open
+	 * loop commands in flight.
+	 *
+	 * @param aThreads
+	 *            Number of threads, which must be greater than
+	 *            <code>0</code>
+	 */
+	public void setThreads(int aThreads) {
+		if (aThreads <= 0) {
+			throw new IllegalArgumentException("threads " + aThreads
+					+ " must be greater than 0");
+		}
+		this.threads = aThreads;
+	}
+
+	/**
+	 * Sets the open loop rate.
+	 *
+	 * @param aRate
+	 *            Commands per second, or <code>0</code> for a closed loop
+	 */
+	public void setRate(double aRate) {
+		if (aRate < 0) {
+			throw new IllegalArgumentException("rate " + aRate
+					+ " must not be negative");
+		}
+		this.rate = aRate;
+	}
+
+	/**
+	 * Sets the duration of the measurement.
+	 *
+	 * @param aDuration
+	 *            Duration in milliseconds
+	 */
+	public void setDuration(long aDuration) {
+		this.duration = aDuration;
+	}
+
+	/**
+	 * Sets the warm up time before the measurement.
+	 *
+	 * @param aWarmup
+	 *            Warm up time in milliseconds
+	 */
+	public void setWarmup(long aWarmup) {
+		this.warmup = aWarmup;
+	}
+
+	/**
+	 * Sets the interval of the reports.
+	 *
+	 * @param aReportInterval
+	 *            Interval in milliseconds, or <code>0</code> for no reports
+	 */
+	public void setReportInterval(long aReportInterval) {
+		this.reportInterval = aReportInterval;
+	}
+
+	/**
+	 * Sets the mix of the operations, which replaces the <code>mix</code>
+	 * property.
+	 *
+	 * @param aMix
+	 *            Mix of the operations
+	 */
+	public void setMix(EPPLoadMix aMix) {
+		this.mix = aMix;
+	}
+
+	/**
+	 * Sets the prefix of the domain names of the standard operations.
+	 *
+	 * @param aPrefix
+	 *            Prefix of the domain names
+	 */
+	public void setPrefix(String aPrefix) {
+		this.prefix = aPrefix;
+	}
+
+	/**
+	 * Sets the top level domain of the domain names of the standard
+	 * operations.
+	 *
+	 * @param aTld
+	 *            Top level domain like <code>com</code>
+	 */
+	public void setTld(String aTld) {
+		this.tld = aTld;
+	}
+
+	/**
+	 * Sets the registrant of the domains created by the standard operations.
+	 *
+	 * @param aRegistrant
+	 *            Registrant, or <code>null</code> for none
+	 */
+	public void setRegistrant(String aRegistrant) {
+		this.registrant = aRegistrant;
+	}
+
+	/**
+	 * Sets the base path of the output files.
+	 *
+	 * @param aOutput
+	 *            Base path, or <code>null</code> for no files
+	 */
+	public void setOutput(String aOutput) {
+		this.output = aOutput;
+	}
+
+	/**
+	 * Sets whether the soak monitor is run.
+	 *
+	 * @param aSoak
+	 *            <code>true</code> to run the soak monitor
+	 */
+	public void setSoak(boolean aSoak) {
+		this.soak = aSoak;
+	}
+
+	/**
+	 * Sets the interval of the soak samples.
+	 *
+	 * @param aSoakInterval
+	 *            Interval in milliseconds
+	 */
+	public void setSoakInterval(long aSoakInterval) {
+		if (aSoakInterval <= 0) {
+			throw new IllegalArgumentException("soakInterval "
+					+ aSoakInterval + " must be greater than 0");
+		}
+		this.soakInterval = aSoakInterval;
+	}
+
+	/**
+	 * Runs the load generator with the settings of a configuration file and
+	 * prints the statistics.
+	 *
+	 * @param args
+	 *            Configuration file name (default = epp.config) and optional
+	 *            system session pool name
+	 */
+	public static void main(String args[]) {
+		String theConfigFileName = args.length > 0 ? args[0] : "epp.config";
+		String theSystem = args.length > 1 ? args[1] : null;
+
+		EPPApplicationSingle theApp = EPPApplicationSingle.getInstance();
+		EPPSessionPool thePool = EPPSessionPool.getInstance();
+		int theStatus = 0;
+
+		try {
+			theApp.initialize(theConfigFileName);
+			thePool.init();
+
+			EPPLoadGenerator theGenerator = new EPPLoadGenerator(thePool,
+					theSystem);
+			theGenerator.init();
+
+			EPPLoadStats theStats = theGenerator.run();
+			System.out.println(theStats);
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			theStatus = 1;
+		}
+		finally {
+			thePool.close();
+			try {
+				theApp.endApplication();
+			}
+			catch (EPPCommandException ex) {
+				// ignore
+			}
+		}
+
+		System.exit(theStatus);
+	}
+
+}
@@ -0,0 +1,204 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.StringTokenizer;
+
+/**
+ * Weighted mix of the operations of the <code>EPPLoadGenerator</code>. Each
+ * operation is selected with a probability of its weight divided by the sum
+ * of the weights. A mix is defined by a specification like
+ * <code>check:40,info:40,create:10,update:5,poll:5</code> with the standard
+ * operations of <code>EPPLoadOperations</code>, and other operations can be
+ * added with {@link #add(EPPLoadOperation, int)}. A mix is not changed
+ * once the load generator is started.
+ */
+public class EPPLoadMix {
+
+	/**
+	 * Default mix specification.
+	 */
+	public static final String DEFAULT_MIX = "check:40,info:40,create:10,update:5,poll:5";
+
+	/**
+	 * Operations of the mix.
+	 */
+	private final List<EPPLoadOperation> operations = new ArrayList<EPPLoadOperation>();
+
+	/**
+	 * Cumulative weights of the operations.
+	 */
+	private final List<Integer> cumulativeWeights = new ArrayList<Integer>();
+
+	/**
+	 * Sum of the weights.
+	 */
+	private int totalWeight = 0;
+
+	/**
+	 * Creates an empty mix.
+	 */
+	public EPPLoadMix() {
+	}
+
+	/**
+	 * Creates a mix from a specification.
+	 *
+	 * @param aSpec
+	 *            Comma separated list of <code>&lt;name&gt;:&lt;weight&gt;</code>
+	 *            pairs, where the name is one of
+	 *            <code>EPPLoadOperations.NAMES</code>
+	 * @param aOperations
+	 *            Standard operations
+	 *
+	 * @exception IllegalArgumentException
+	 *                Invalid specification
+	 */
+	public EPPLoadMix(String aSpec, EPPLoadOperations aOperations) {
+		StringTokenizer theTokens = new StringTokenizer(aSpec, ",");
+		while (theTokens.hasMoreTokens()) {
+			String theToken = theTokens.nextToken().trim();
+
+			int theSep = theToken.indexOf(':');
+			if (theSep <= 0) {
+				throw new IllegalArgumentException("Invalid load mix entry "
+						+ theToken + ", expected <name>:<weight>");
+			}
+
+			int theWeight;
+			try {
+				theWeight = Integer.parseInt(theToken.substring(theSep + 1)
+						.trim());
+			}
+			catch (NumberFormatException ex) {
+				throw new IllegalArgumentException("Invalid weight in load mix entry "
+						+ theToken);
+			}
+
+			this.add(aOperations.getOperation(theToken.substring(0, theSep)
+					.trim()), theWeight);
+		}
+	}
+
+	/**
+	 * Adds an operation to the mix.
+	 *
+	 * @param aOperation
+	 *            Operation
+	 * @param aWeight
+	 *            Relative weight, where <code>0</code> disables the operation
+	 *
+	 * @exception IllegalArgumentException
+	 *                Negative weight
+	 */
+	public void add(EPPLoadOperation aOperation, int aWeight) {
+		if (aWeight < 0) {
+			throw new IllegalArgumentException("Negative weight " + aWeight
+					+ " of load operation " + aOperation.getName());
+		}
+		if (aWeight == 0) {
+			return;
+		}
+
+		this.totalWeight += aWeight;
+		this.operations.add(aOperation);
+		this.cumulativeWeights.add(Integer.valueOf(this.totalWeight));
+	}
+
+	/**
+	 * Selects the next operation.
+	 *
+	 * @param aRandom
+	 *            Random number generator
+	 *
+	 * @return Operation
+	 *
+	 * @exception IllegalStateException
+	 *                The mix is empty
+	 */
+	public EPPLoadOperation next(Random aRandom) {
+		if (this.totalWeight == 0) {
+			throw new IllegalStateException("Load mix is empty");
+		}
+
+		int theValue = aRandom.nextInt(this.totalWeight);
+		for (int i = 0; i < this.operations.size(); i++) {
+			if (theValue < this.cumulativeWeights.get(i).intValue()) {
+				return this.operations.get(i);
+			}
+		}
+
+		return this.operations.get(this.operations.size() - 1);
+	}
+
+	/**
+	 * Gets the operations of the mix.
+	 *
+	 * @return Operations in the order they were added
+	 */
+	public List<EPPLoadOperation> getOperations() {
+		return this.operations;
+	}
+
+	/**
+	 * Gets the weight of an operation.
+	 *
+	 * @param aIndex
+	 *            Index in {@link #getOperations()}
+	 *
+	 * @return Weight of the operation
+	 */
+	public int getWeight(int aIndex) {
+		int thePrevious = aIndex == 0 ? 0 : this.cumulativeWeights.get(
+				aIndex - 1).intValue();
+		return this.cumulativeWeights.get(aIndex).intValue() - thePrevious;
+	}
+
+	/**
+	 * Is the mix empty?
+	 *
+	 * @return <code>true</code> if no operation was added;
+	 *         <code>false</code> otherwise.
+	 */
+	public boolean isEmpty() {
+		return this.totalWeight == 0;
+	}
+
+	/**
+	 * Implementation of <code>Object.toString</code>.
+	 *
+	 * @return Mix specification
+	 */
+	public String toString() {
+		StringBuffer theBuf = new StringBuffer();
+		for (int i = 0; i < this.operations.size(); i++) {
+			if (i > 0) {
+				theBuf.append(',');
+			}
+			theBuf.append(this.operations.get(i).getName()).append(':')
+					.append(this.getWeight(i));
+		}
+		return theBuf.toString();
+	}
+
+}
@@ -0,0 +1,59 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.load;
+
+import com.verisign.epp.interfaces.EPPCommandException;
+import com.verisign.epp.interfaces.EPPSession;
+
+/**
+ * Command sent by the <code>EPPLoadGenerator</code>. An operation is shared
+ * by all of the load generator threads, so it must be thread safe. The
+ * standard operations are created by <code>EPPLoadOperations</code>, and
+ * other operations can be added to an <code>EPPLoadMix</code>.
+ *
+ * @see EPPLoadOperations
+ * @see EPPLoadMix
+ */
+public interface EPPLoadOperation {
+
+	/**
+	 * Gets the name of the operation, which is used in the mix and the
+	 * reports.
+	 *
+	 * @return Operation name
+	 */
+	String getName();
+
+	/**
+	 * Sends the command of the operation with a borrowed session.
+	 *
+	 * @param aSession
+	 *            Logged in session borrowed from the session pool
+	 * @param aSeq
+	 *            Unique sequence number of the operation, which can be used
+	 *            in the client transaction identifier and object names
+	 *
+	 * @exception EPPCommandException
+	 *                Error response from the server, or error sending the
+	 *                command if the exception has no response
+	 */
+	void execute(EPPSession aSession, long aSeq) throws EPPCommandException;
+
+}
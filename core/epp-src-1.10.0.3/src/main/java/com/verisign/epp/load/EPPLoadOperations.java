@@ -0,0 +1,325 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.load;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.verisign.epp.codec.domain.EPPDomainStatus;
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.interfaces.EPPCommandException;
+import com.verisign.epp.interfaces.EPPDomain;
+import com.verisign.epp.interfaces.EPPSession;
+
+/**
+ * Creates the standard operations of the <code>EPPLoadGenerator</code>,
+ * which are:<br>
+ * <br>
+ * <ul>
+ * <li>{@link #CHECK} - Domain check of a created or an unused domain name</li>
+ * <li>{@link #INFO} - Domain info of a created domain</li>
+ * <li>{@link #CREATE} - Domain create of a new domain</li>
+ * <li>{@link #UPDATE} - Domain update of a created domain, which adds or
+ * removes the <code>clientTransferProhibited</code> status</li>
+ * <li>{@link #POLL} - Poll request, which acknowledges the returned message
+ * </li>
+ * </ul>
+ * <br>
+ * The domain names are <code>&lt;prefix&gt;&lt;n&gt;.&lt;tld&gt;</code>,
+ * where <code>n</code> counts the creates, so the info and update commands
+ * are sent for domains created by the same run. The prefix should be unique
+ * per run when the server keeps the domains, like the Stub Server with
+ * <code>EPP.Repository.Enabled</code>.
+ */
+public class EPPLoadOperations {
+
+	/**
+	 * Name of the domain check operation.
+	 */
+	public static final String CHECK = "check";
+
+	/**
+	 * Name of the domain info operation.
+	 */
+	public static final String INFO = "info";
+
+	/**
+	 * Name of the domain create operation.
+	 */
+	public static final String CREATE = "create";
+
+	/**
+	 * Name of the domain update operation.
+	 */
+	public static final String UPDATE = "update";
+
+	/**
+	 * Name of the poll operation.
+	 */
+	public static final String POLL = "poll";
+
+	/**
+	 * Names of the standard operations.
+	 */
+	public static final String[] NAMES = { CHECK, INFO, CREATE, UPDATE, POLL };
+
+	/**
+	 * Authorization information of the created domains.
+	 */
+	private static final String AUTH_INFO = "2fooBAR";
+
+	/**
+	 * Prefix of the domain names.
+	 */
+	private final String prefix;
+
+	/**
+	 * Top level domain of the domain names.
+	 */
+	private final String tld;
+
+	/**
+	 * Registrant of the created domains, <code>null</code> for none.
+	 */
+	private final String registrant;
+
+	/**
+	 * Number of started domain creates.
+	 */
+	private final AtomicLong created = new AtomicLong();
+
+	/**
+	 * Creates the standard operations.
+	 *
+	 * @param aPrefix
+	 *            Prefix of the domain names
+	 * @param aTld
+	 *            Top level domain of the domain names like <code>com</code>
+	 * @param aRegistrant
+	 *            Registrant of the created domains, which is required by a
+	 *            thick registry, or <code>null</code> for none
+	 */
+	public EPPLoadOperations(String aPrefix, String aTld, String aRegistrant) {
+		this.prefix = aPrefix;
+		this.tld = aTld;
+		this.registrant = aRegistrant;
+	}
+
+	/**
+	 * Gets a standard operation.
+	 *
+	 * @param aName
+	 *            One of the names in {@link #NAMES}
+	 *
+	 * @return Operation
+	 *
+	 * @exception IllegalArgumentException
+	 *                Unknown operation name
+	 */
+	public EPPLoadOperation getOperation(String aName) {
+		if (aName.equals(CHECK)) {
+			return new CheckOperation();
+		}
+		else if (aName.equals(INFO)) {
+			return new InfoOperation();
+		}
+		else if (aName.equals(CREATE)) {
+			return new CreateOperation();
+		}
+		else if (aName.equals(UPDATE)) {
+			return new UpdateOperation();
+		}
+		else if (aName.equals(POLL)) {
+			return new PollOperation();
+		}
+
+		throw new IllegalArgumentException("Unknown load operation " + aName);
+	}
+
+	/**
+	 * Gets the number of started domain creates.
+	 *
+	 * @return Number of creates
+	 */
+	public long getCreatedCount() {
+		return this.created.get();
+	}
+
+	/**
+	 * Gets the domain name with an index.
+	 *
+	 * @param aIndex
+	 *            Index of the domain
+	 *
+	 * @return Domain name
+	 */
+	String getDomainName(long aIndex) {
+		return this.prefix + aIndex + "." + this.tld;
+	}
+
+	/**
+	 * Gets the name of a random created domain.
+	 *
+	 * @param aRandom
+	 *            Random number generator
+	 *
+	 * @return Name of a created domain, or of the first domain if none was
+	 *         created
+	 */
+	String getCreatedDomainName(Random aRandom) {
+		long theCreated = this.created.get();
+		if (theCreated <= 1) {
+			return this.getDomainName(1);
+		}
+		return this.getDomainName(1 + (long) (aRandom.nextDouble() * theCreated));
+	}
+
+	/**
+	 * Gets the client transaction identifier of an operation.
+	 *
+	 * @param aName
+	 *            Operation name
+	 * @param aSeq
+	 *            Sequence number of the operation
+	 *
+	 * @return Client transaction identifier
+	 */
+	private static String transId(String aName, long aSeq) {
+		return "LOAD-" + aName + "-" + aSeq;
+	}
+
+	/**
+	 * Domain check of a created domain or of the next domain that is not
+	 * created yet, with equal probability.
+	 */
+	private class CheckOperation implements EPPLoadOperation {
+
+		public String getName() {
+			return CHECK;
+		}
+
+		public void execute(EPPSession aSession, long aSeq)
+				throws EPPCommandException {
+			Random theRandom = ThreadLocalRandom.current();
+
+			EPPDomain theDomain = new EPPDomain(aSession);
+			theDomain.setTransId(transId(CHECK, aSeq));
+			if (theRandom.nextBoolean()) {
+				theDomain.addDomainName(getCreatedDomainName(theRandom));
+			}
+			else {
+				theDomain.addDomainName(getDomainName(created.get() + 1));
+			}
+			theDomain.sendCheck();
+		}
+	}
+
+	/**
+	 * Domain info of a created domain.
+	 */
+	private class InfoOperation implements EPPLoadOperation {
+
+		public String getName() {
+			return INFO;
+		}
+
+		public void execute(EPPSession aSession, long aSeq)
+				throws EPPCommandException {
+			EPPDomain theDomain = new EPPDomain(aSession);
+			theDomain.setTransId(transId(INFO, aSeq));
+			theDomain.addDomainName(getCreatedDomainName(ThreadLocalRandom
+					.current()));
+			theDomain.sendInfo();
+		}
+	}
+
+	/**
+	 * Domain create of the next domain.
+	 */
+	private class CreateOperation implements EPPLoadOperation {
+
+		public String getName() {
+			return CREATE;
+		}
+
+		public void execute(EPPSession aSession, long aSeq)
+				throws EPPCommandException {
+			EPPDomain theDomain = new EPPDomain(aSession);
+			theDomain.setTransId(transId(CREATE, aSeq));
+			theDomain.addDomainName(getDomainName(created.incrementAndGet()));
+			theDomain.setAuthString(AUTH_INFO);
+			if (registrant != null) {
+				theDomain.setRegistrant(registrant);
+			}
+			theDomain.sendCreate();
+		}
+	}
+
+	/**
+	 * Domain update of a created domain, which adds or removes the
+	 * <code>clientTransferProhibited</code> status.
+	 */
+	private class UpdateOperation implements EPPLoadOperation {
+
+		public String getName() {
+			return UPDATE;
+		}
+
+		public void execute(EPPSession aSession, long aSeq)
+				throws EPPCommandException {
+			Random theRandom = ThreadLocalRandom.current();
+
+			EPPDomain theDomain = new EPPDomain(aSession);
+			theDomain.setTransId(transId(UPDATE, aSeq));
+			theDomain.addDomainName(getCreatedDomainName(theRandom));
+			theDomain.setUpdateAttrib(EPPDomain.STATUS, new EPPDomainStatus(
+					EPPDomainStatus.ELM_STATUS_CLIENT_TRANSFER_PROHIBITED),
+					theRandom.nextBoolean() ? EPPDomain.ADD : EPPDomain.REMOVE);
+			theDomain.sendUpdate();
+		}
+	}
+
+	/**
+	 * Poll request, which acknowledges the returned message.
+	 */
+	private static class PollOperation implements EPPLoadOperation {
+
+		public String getName() {
+			return POLL;
+		}
+
+		public void execute(EPPSession aSession, long aSeq)
+				throws EPPCommandException {
+			aSession.setTransId(transId(POLL, aSeq));
+			aSession.setPollOp(EPPSession.OP_REQ);
+			EPPResponse theResponse = aSession.sendPoll();
+
+			if (theResponse.getMsgQueue() != null
+					&& theResponse.getMsgQueue().getId() != null) {
+				aSession.setTransId(transId(POLL, aSeq));
+				aSession.setPollOp(EPPSession.OP_ACK);
+				aSession.setMsgID(theResponse.getMsgQueue().getId());
+				aSession.sendPoll();
+			}
+		}
+	}
+
+}
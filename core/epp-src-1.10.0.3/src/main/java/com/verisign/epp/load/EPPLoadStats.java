@@ -0,0 +1,490 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.load;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.verisign.epp.util.EPPHistogram;
+
+/**
+ * Statistics of a run of the <code>EPPLoadGenerator</code>, with the
+ * latency histogram and the outcome counts of each operation and of all
+ * operations. The latencies are recorded in an <code>EPPHistogram</code>,
+ * so recording does not lock or allocate and the percentiles are accurate
+ * to within <code>EPPHistogram.PRECISION</code>. The statistics can be
+ * written as CSV or JSON.
+ */
+public class EPPLoadStats {
+
+	/**
+	 * The operation got a successful response.
+	 */
+	public static final int SUCCESS = 0;
+
+	/**
+	 * The operation got an error response from the server.
+	 */
+	public static final int ERROR = 1;
+
+	/**
+	 * The operation failed without a response, like an I/O error or a
+	 * timeout, and the session was invalidated.
+	 */
+	public static final int FAILURE = 2;
+
+	/**
+	 * Name of the statistics of all operations.
+	 */
+	public static final String TOTAL = "total";
+
+	/**
+	 * CSV header of {@link #writeCsv(Writer)}.
+	 */
+	public static final String CSV_HEADER = "operation,count,success,error,failure,throughput,"
+			+ "mean_us,p50_us,p90_us,p99_us,p999_us,max_us";
+
+	/**
+	 * Statistics of one operation.
+	 */
+	public static class OperationStats {
+
+		/**
+		 * Operation name.
+		 */
+		private final String name;
+
+		/**
+		 * Latencies of the completed operations.
+		 */
+		private final EPPHistogram latency = new EPPHistogram();
+
+		/**
+		 * Counts of the outcomes, indexed by {@link EPPLoadStats#SUCCESS},
+		 * {@link EPPLoadStats#ERROR}, and {@link EPPLoadStats#FAILURE}.
+		 */
+		private final AtomicLong[] outcomes = { new AtomicLong(),
+				new AtomicLong(), new AtomicLong() };
+
+		/**
+		 * Creates the statistics of an operation.
+		 *
+		 * @param aName
+		 *            Operation name
+		 */
+		OperationStats(String aName) {
+			this.name = aName;
+		}
+
+		/**
+		 * Records a completed operation.
+		 *
+		 * @param aNanos
+		 *            Latency in nanoseconds
+		 * @param aOutcome
+		 *            {@link EPPLoadStats#SUCCESS},
+		 *            {@link EPPLoadStats#ERROR}, or
+		 *            {@link EPPLoadStats#FAILURE}
+		 */
+		void record(long aNanos, int aOutcome) {
+			this.latency.record(aNanos);
+			this.outcomes[aOutcome].incrementAndGet();
+		}
+
+		/**
+		 * Resets the statistics.
+		 */
+		void reset() {
+			this.latency.reset();
+			for (int i = 0; i < this.outcomes.length; i++) {
+				this.outcomes[i].set(0);
+			}
+		}
+
+		/**
+		 * Gets the operation name.
+		 *
+		 * @return Operation name
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * Gets the latency histogram.
+		 *
+		 * @return Latencies of the completed operations
+		 */
+		public EPPHistogram getLatency() {
+			return this.latency;
+		}
+
+		/**
+		 * Gets the number of completed operations.
+		 *
+		 * @return Number of operations
+		 */
+		public long getCount() {
+			return this.getSuccessCount() + this.getErrorCount()
+					+ this.getFailureCount();
+		}
+
+		/**
+		 * Gets the number of operations with a successful response.
+		 *
+		 * @return Number of successful operations
+		 */
+		public long getSuccessCount() {
+			return this.outcomes[SUCCESS].get();
+		}
+
+		/**
+		 * Gets the number of operations with an error response.
+		 *
+		 * @return Number of error responses
+		 */
+		public long getErrorCount() {
+			return this.outcomes[ERROR].get();
+		}
+
+		/**
+		 * Gets the number of operations that failed without a response.
+		 *
+		 * @return Number of failed operations
+		 */
+		public long getFailureCount() {
+			return this.outcomes[FAILURE].get();
+		}
+	}
+
+	/**
+	 * Statistics of each operation by name.
+	 */
+	private final Map<String, OperationStats> operations = new LinkedHashMap<String, OperationStats>();
+
+	/**
+	 * Statistics of all operations.
+	 */
+	private final OperationStats total = new OperationStats(TOTAL);
+
+	/**
+	 * Number of operations of an open loop run that were not started,
+	 * because too many operations were in flight.
+	 */
+	private final AtomicLong dropped = new AtomicLong();
+
+	/**
+	 * Start time of the measurement in nanoseconds.
+	 */
+	private volatile long startNanos = System.nanoTime();
+
+	/**
+	 * Creates the statistics of the operations of a mix.
+	 *
+	 * @param aOperations
+	 *            Operations of the mix
+	 */
+	public EPPLoadStats(List<EPPLoadOperation> aOperations) {
+		for (int i = 0; i < aOperations.size(); i++) {
+			String theName = aOperations.get(i).getName();
+			if (!this.operations.containsKey(theName)) {
+				this.operations.put(theName, new OperationStats(theName));
+			}
+		}
+	}
+
+	/**
+	 * Records a completed operation.
+	 *
+	 * @param aName
+	 *            Operation name
+	 * @param aNanos
+	 *            Latency in nanoseconds
+	 * @param aOutcome
+	 *            {@link #SUCCESS}, {@link #ERROR}, or {@link #FAILURE}
+	 */
+	public void record(String aName, long aNanos, int aOutcome) {
+		this.operations.get(aName).record(aNanos, aOutcome);
+		this.total.record(aNanos, aOutcome);
+	}
+
+	/**
+	 * Records an operation that was not started.
+	 */
+	public void recordDropped() {
+		this.dropped.incrementAndGet();
+	}
+
+	/**
+	 * Resets the statistics and restarts the measurement, which is done
+	 * after the warm up.
+	 */
+	public void reset() {
+		Iterator<OperationStats> theIter = this.operations.values().iterator();
+		while (theIter.hasNext()) {
+			theIter.next().reset();
+		}
+		this.total.reset();
+		this.dropped.set(0);
+		this.startNanos = System.nanoTime();
+	}
+
+	/**
+	 * Gets the statistics of an operation.
+	 *
+	 * @param aName
+	 *            Operation name
+	 *
+	 * @return Statistics of the operation if in the mix; <code>null</code>
+	 *         otherwise.
+	 */
+	public OperationStats getOperationStats(String aName) {
+		return this.operations.get(aName);
+	}
+
+	/**
+	 * Gets the statistics of each operation.
+	 *
+	 * @return Statistics of the operations in the order of the mix
+	 */
+	public Collection<OperationStats> getOperationStats() {
+		return this.operations.values();
+	}
+
+	/**
+	 * Gets the statistics of all operations.
+	 *
+	 * @return Statistics of all operations
+	 */
+	public OperationStats getTotal() {
+		return this.total;
+	}
+
+	/**
+	 * Gets the number of operations that were not started.
+	 *
+	 * @return Number of dropped operations
+	 */
+	public long getDroppedCount() {
+		return this.dropped.get();
+	}
+
+	/**
+	 * Gets the time since the start of the measurement.
+	 *
+	 * @return Elapsed time in milliseconds
+	 */
+	public long getElapsedMillis() {
+		return (System.nanoTime() - this.startNanos) / 1000000L;
+	}
+
+	/**
+	 * Gets the throughput of an operation since the start of the
+	 * measurement.
+	 *
+	 * @param aStats
+	 *            Statistics of the operation
+	 *
+	 * @return Completed operations per second
+	 */
+	public double getThroughput(OperationStats aStats) {
+		long theElapsed = this.getElapsedMillis();
+		if (theElapsed <= 0) {
+			return 0;
+		}
+		return aStats.getCount() * 1000.0 / theElapsed;
+	}
+
+	/**
+	 * Writes the statistics as CSV with the {@link #CSV_HEADER} header, a
+	 * row per operation, and a {@link #TOTAL} row. The latencies are in
+	 * microseconds.
+	 *
+	 * @param aWriter
+	 *            Writer to write to
+	 *
+	 * @exception IOException
+	 *                Error writing
+	 */
+	public void writeCsv(Writer aWriter) throws IOException {
+		aWriter.write(CSV_HEADER);
+		aWriter.write('\n');
+
+		Iterator<OperationStats> theIter = this.operations.values().iterator();
+		while (theIter.hasNext()) {
+			this.writeCsvRow(aWriter, theIter.next());
+		}
+		this.writeCsvRow(aWriter, this.total);
+
+		aWriter.flush();
+	}
+
+	/**
+	 * Writes the CSV row of an operation.
+	 *
+	 * @param aWriter
+	 *            Writer to write to
+	 * @param aStats
+	 *            Statistics of the operation
+	 *
+	 * @exception IOException
+	 *                Error writing
+	 */
+	private void writeCsvRow(Writer aWriter, OperationStats aStats)
+			throws IOException {
+		EPPHistogram theLatency = aStats.getLatency();
+
+		aWriter.write(aStats.getName() + "," + aStats.getCount() + ","
+				+ aStats.getSuccessCount() + "," + aStats.getErrorCount() + ","
+				+ aStats.getFailureCount() + ","
+				+ format(this.getThroughput(aStats)) + ","
+				+ format(theLatency.getMeanMicros()) + ","
+				+ format(theLatency.get50thPercentileMicros()) + ","
+				+ format(theLatency.get90thPercentileMicros()) + ","
+				+ format(theLatency.get99thPercentileMicros()) + ","
+				+ format(theLatency.get999thPercentileMicros()) + ","
+				+ format(theLatency.getMaxMicros()));
+		aWriter.write('\n');
+	}
+
+	/**
+	 * Writes the statistics as a JSON object with the elapsed time, the
+	 * number of dropped operations, an <code>operations</code> array, and
+	 * a {@link #TOTAL} object. The latencies are in microseconds.
+	 *
+	 * @param aWriter
+	 *            Writer to write to
+	 *
+	 * @exception IOException
+	 *                Error writing
+	 */
+	public void writeJson(Writer aWriter) throws IOException {
+		aWriter.write("{\n  \"elapsedMillis\": " + this.getElapsedMillis()
+				+ ",\n  \"dropped\": " + this.getDroppedCount()
+				+ ",\n  \"operations\": [");
+
+		Iterator<OperationStats> theIter = this.operations.values().iterator();
+		while (theIter.hasNext()) {
+			aWriter.write("\n    ");
+			this.writeJsonObject(aWriter, theIter.next());
+			if (theIter.hasNext()) {
+				aWriter.write(',');
+			}
+		}
+
+		aWriter.write("\n  ],\n  \"" + TOTAL + "\": ");
+		this.writeJsonObject(aWriter, this.total);
+		aWriter.write("\n}\n");
+
+		aWriter.flush();
+	}
+
+	/**
+	 * Writes the JSON object of an operation.
+	 *
+	 * @param aWriter
+	 *            Writer to write to
+	 * @param aStats
+	 *            Statistics of the operation
+	 *
+	 * @exception IOException
+	 *                Error writing
+	 */
+	private void writeJsonObject(Writer aWriter, OperationStats aStats)
+			throws IOException {
+		EPPHistogram theLatency = aStats.getLatency();
+
+		aWriter.write("{\"operation\": \"" + aStats.getName()
+				+ "\", \"count\": " + aStats.getCount() + ", \"success\": "
+				+ aStats.getSuccessCount() + ", \"error\": "
+				+ aStats.getErrorCount() + ", \"failure\": "
+				+ aStats.getFailureCount() + ", \"throughput\": "
+				+ format(this.getThroughput(aStats)) + ", \"meanMicros\": "
+				+ format(theLatency.getMeanMicros()) + ", \"p50Micros\": "
+				+ format(theLatency.get50thPercentileMicros())
+				+ ", \"p90Micros\": "
+				+ format(theLatency.get90thPercentileMicros())
+				+ ", \"p99Micros\": "
+				+ format(theLatency.get99thPercentileMicros())
+				+ ", \"p999Micros\": "
+				+ format(theLatency.get999thPercentileMicros())
+				+ ", \"maxMicros\": " + format(theLatency.getMaxMicros()) + "}");
+	}
+
+	/**
+	 * Formats a number with two decimals, independent of the default
+	 * locale.
+	 *
+	 * @param aValue
+	 *            Value
+	 *
+	 * @return Formatted value
+	 */
+	static String format(double aValue) {
+		return String.format(Locale.ROOT, "%.2f", Double.valueOf(aValue));
+	}
+
+	/**
+	 * Implementation of <code>Object.toString</code>.
+	 *
+	 * @return One line summary of each operation
+	 */
+	public String toString() {
+		StringBuffer theBuf = new StringBuffer();
+
+		Iterator<OperationStats> theIter = this.operations.values().iterator();
+		while (theIter.hasNext()) {
+			this.appendSummary(theBuf, theIter.next());
+		}
+		this.appendSummary(theBuf, this.total);
+		theBuf.append("dropped = " + this.getDroppedCount());
+
+		return theBuf.toString();
+	}
+
+	/**
+	 * Appends the one line summary of an operation.
+	 *
+	 * @param aBuf
+	 *            Buffer to append to
+	 * @param aStats
+	 *            Statistics of the operation
+	 */
+	private void appendSummary(StringBuffer aBuf, OperationStats aStats) {
+		EPPHistogram theLatency = aStats.getLatency();
+
+		aBuf.append(aStats.getName() + ": count = " + aStats.getCount()
+				+ ", errors = " + aStats.getErrorCount() + ", failures = "
+				+ aStats.getFailureCount() + ", ops/s = "
+				+ format(this.getThroughput(aStats)) + ", p50 = "
+				+ format(theLatency.get50thPercentileMicros()) + "us, p99 = "
+				+ format(theLatency.get99thPercentileMicros())
+				+ "us, p999 = "
+				+ format(theLatency.get999thPercentileMicros()) + "us\n");
+	}
+
+}
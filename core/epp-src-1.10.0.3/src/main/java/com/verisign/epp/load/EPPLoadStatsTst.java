@@ -0,0 +1,223 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.load;
+
+//----------------------------------------------
+//
+// imports...
+//
+//----------------------------------------------
+
+// Java Core Imports
+import java.io.StringWriter;
+import java.util.Random;
+
+// JUNIT Imports
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import com.verisign.epp.util.EPPHistogram;
+
+/**
+ * Is a unit test of <code>EPPLoadMix</code> and <code>EPPLoadStats</code>,
+ * which verifies the selection of the operations and the recorded
+ * statistics without an EPP server.
+ */
+public class EPPLoadStatsTst extends TestCase {
+
+	/**
+	 * Number of unit test iterations to run. This is set with the
+	 * <code>iterations</code> system property.
+	 */
+	static private long numIterations = 1;
+
+	/**
+	 * Allocates a new instance of <code>EPPLoadStatsTst</code>.
+	 *
+	 * @param name
+	 *            Name of test
+	 */
+	public EPPLoadStatsTst(String name) {
+		super(name);
+	}
+
+	/**
+	 * Creates a mix of the standard operations.
+	 *
+	 * @param aSpec
+	 *            Mix specification
+	 *
+	 * @return Mix
+	 */
+	private static EPPLoadMix newMix(String aSpec) {
+		return new EPPLoadMix(aSpec, new EPPLoadOperations("load-", "com",
+				null));
+	}
+
+	/**
+	 * Verifies the parsing of a mix specification and that the operations
+	 * are selected according to their weights.
+	 */
+	public void testMix() {
+		EPPLoadMix theMix = newMix(EPPLoadMix.DEFAULT_MIX);
+		Assert.assertEquals(EPPLoadMix.DEFAULT_MIX, theMix.toString());
+		Assert.assertEquals(EPPLoadOperations.NAMES.length, theMix
+				.getOperations().size());
+
+		theMix = newMix("check:3, info:1, poll:0");
+		Assert.assertEquals("check:3,info:1", theMix.toString());
+
+		Random theRandom = new Random(1234);
+		for (int i = 0; i < numIterations; i++) {
+			int theChecks = 0;
+			for (int j = 0; j < 10000; j++) {
+				if (theMix.next(theRandom).getName().equals(
+						EPPLoadOperations.CHECK)) {
+					theChecks++;
+				}
+			}
+			Assert.assertTrue("checks = " + theChecks, theChecks > 7000
+					&& theChecks < 8000);
+		}
+
+		try {
+			newMix("check:3,renew:1");
+			Assert.fail("Expected IllegalArgumentException for renew");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected
+		}
+
+		try {
+			newMix("check");
+			Assert.fail("Expected IllegalArgumentException for missing weight");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+	/**
+	 * Verifies the counts, the percentiles, and the CSV and JSON output of
+	 * the statistics.
+	 *
+	 * @throws Exception
+	 *             Error writing the statistics
+	 */
+	public void testStats() throws Exception {
+		EPPLoadStats theStats = new EPPLoadStats(newMix("check:1,info:1")
+				.getOperations());
+
+		for (int i = 0; i < numIterations; i++) {
+			theStats.reset();
+
+			for (int j = 1; j <= 1000; j++) {
+				theStats.record(EPPLoadOperations.CHECK, j * 1000L,
+						EPPLoadStats.SUCCESS);
+			}
+			theStats.record(EPPLoadOperations.INFO, 5000000L,
+					EPPLoadStats.ERROR);
+			theStats.record(EPPLoadOperations.INFO, 7000000L,
+					EPPLoadStats.FAILURE);
+			theStats.recordDropped();
+
+			EPPLoadStats.OperationStats theCheck = theStats
+					.getOperationStats(EPPLoadOperations.CHECK);
+			Assert.assertEquals(1000, theCheck.getCount());
+			Assert.assertEquals(1000, theCheck.getSuccessCount());
+			double theP50 = theCheck.getLatency().get50thPercentileMicros();
+			Assert.assertTrue("p50 = " + theP50, Math.abs(theP50 - 500) <= 500
+					* EPPHistogram.PRECISION);
+
+			EPPLoadStats.OperationStats theTotal = theStats.getTotal();
+			Assert.assertEquals(1002, theTotal.getCount());
+			Assert.assertEquals(1, theTotal.getErrorCount());
+			Assert.assertEquals(1, theTotal.getFailureCount());
+			Assert.assertEquals(1, theStats.getDroppedCount());
+			Assert.assertEquals(7000.0, theTotal.getLatency().getMaxMicros(),
+					0.001);
+
+			StringWriter theCsv = new StringWriter();
+			theStats.writeCsv(theCsv);
+			String[] theLines = theCsv.toString().split("\n");
+			Assert.assertEquals(4, theLines.length);
+			Assert.assertEquals(EPPLoadStats.CSV_HEADER, theLines[0]);
+			Assert.assertTrue(theLines[1], theLines[1]
+					.startsWith("check,1000,1000,0,0,"));
+			Assert.assertTrue(theLines[2], theLines[2]
+					.startsWith("info,2,0,1,1,"));
+			Assert.assertTrue(theLines[3], theLines[3]
+					.startsWith("total,1002,1000,1,1,"));
+
+			StringWriter theJson = new StringWriter();
+			theStats.writeJson(theJson);
+			Assert.assertTrue(theJson.toString(), theJson.toString().indexOf(
+					"\"dropped\": 1") > 0);
+			Assert.assertTrue(theJson.toString(), theJson.toString().indexOf(
+					"{\"operation\": \"info\", \"count\": 2") > 0);
+			Assert.assertTrue(theJson.toString(), theJson.toString().indexOf(
+					"\"maxMicros\": 7000.00}") > 0);
+		}
+	}
+
+	/**
+	 * JUNIT <code>suite</code> static method, which returns the tests
+	 * associated with <code>EPPLoadStatsTst</code>.
+	 *
+	 * @return Test suite
+	 */
+	public static Test suite() {
+		TestSuite suite = new TestSuite(EPPLoadStatsTst.class);
+
+		String numIterProp = System.getProperty("iterations");
+		if (numIterProp != null) {
+			numIterations = Integer.parseInt(numIterProp);
+		}
+
+		return suite;
+	}
+
+	/**
+	 * Unit test main, which accepts the following system property options:
+	 * <br>
+	 * <ul>
+	 * <li>iterations Number of unit test iterations to run</li>
+	 * </ul>
+	 *
+	 * @param args
+	 *            Command line arguments
+	 */
+	public static void main(String args[]) {
+		junit.textui.TestRunner.run(suite());
+	}
+
+	/**
+	 * Sets the number of iterations to run per test.
+	 *
+	 * @param aNumIterations
+	 *            number of iterations to run per test
+	 */
+	public static void setNumIterations(long aNumIterations) {
+		numIterations = aNumIterations;
+	}
+
+}
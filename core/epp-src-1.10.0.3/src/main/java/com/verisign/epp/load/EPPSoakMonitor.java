@@ -0,0 +1,396 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.load;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.pool.impl.GenericObjectPool;
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPExecutors;
+
+/**
+ * Monitor of a long running soak test of the <code>EPPLoadGenerator</code>,
+ * which samples the heap, the number of live threads, the session pool,
+ * and the load statistics at a fixed interval. Each sample is written as a
+ * CSV row, so a soak of hours can be plotted, and the monitor logs a warning
+ * when the heap is nearly full, the session pool is exhausted, or the
+ * number of threads keeps growing, which are the typical signs of a leak.
+ */
+public class EPPSoakMonitor {
+
+	/**
+	 * CSV header of the samples.
+	 */
+	public static final String CSV_HEADER = "elapsed_ms,heap_used,heap_committed,heap_max,"
+			+ "threads,pool_active,pool_idle,count,errors,failures,dropped";
+
+	/**
+	 * Fraction of the maximum heap above which a warning is logged.
+	 */
+	public static final double HEAP_WARNING = 0.9;
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPSoakMonitor.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/**
+	 * Sample of the monitor.
+	 */
+	public static class Sample {
+
+		/** Time since the start of the monitor in milliseconds */
+		final long elapsedMillis;
+
+		/** Used heap in bytes */
+		final long heapUsed;
+
+		/** Committed heap in bytes */
+		final long heapCommitted;
+
+		/** Maximum heap in bytes, or <code>-1</code> if undefined */
+		final long heapMax;
+
+		/** Number of live threads */
+		final int threads;
+
+		/** Number of borrowed sessions */
+		final int poolActive;
+
+		/** Number of idle sessions */
+		final int poolIdle;
+
+		/** Number of completed operations */
+		final long count;
+
+		/** Number of error responses */
+		final long errors;
+
+		/** Number of failed operations */
+		final long failures;
+
+		/** Number of dropped operations */
+		final long dropped;
+
+		/**
+		 * Creates a sample.
+		 *
+		 * @param aElapsedMillis
+		 *            Time since the start of the monitor
+		 * @param aHeap
+		 *            Heap usage
+		 * @param aThreads
+		 *            Number of live threads
+		 * @param aPool
+		 *            Session pool
+		 * @param aStats
+		 *            Load statistics
+		 */
+		Sample(long aElapsedMillis, MemoryUsage aHeap, int aThreads,
+				GenericObjectPool aPool, EPPLoadStats aStats) {
+			this.elapsedMillis = aElapsedMillis;
+			this.heapUsed = aHeap.getUsed();
+			this.heapCommitted = aHeap.getCommitted();
+			this.heapMax = aHeap.getMax();
+			this.threads = aThreads;
+			this.poolActive = aPool.getNumActive();
+			this.poolIdle = aPool.getNumIdle();
+			this.count = aStats.getTotal().getCount();
+			this.errors = aStats.getTotal().getErrorCount();
+			this.failures = aStats.getTotal().getFailureCount();
+			this.dropped = aStats.getDroppedCount();
+		}
+
+		/**
+		 * Gets the used heap.
+		 *
+		 * @return Used heap in bytes
+		 */
+		public long getHeapUsed() {
+			return this.heapUsed;
+		}
+
+		/**
+		 * Gets the number of live threads.
+		 *
+		 * @return Number of threads
+		 */
+		public int getThreads() {
+			return this.threads;
+		}
+
+		/**
+		 * Gets the number of borrowed sessions.
+		 *
+		 * @return Number of active sessions
+		 */
+		public int getPoolActive() {
+			return this.poolActive;
+		}
+
+		/**
+		 * Gets the CSV row of the sample.
+		 *
+		 * @return Row matching {@link EPPSoakMonitor#CSV_HEADER}
+		 */
+		public String toCsv() {
+			return this.elapsedMillis + "," + this.heapUsed + ","
+					+ this.heapCommitted + "," + this.heapMax + ","
+					+ this.threads + "," + this.poolActive + ","
+					+ this.poolIdle + "," + this.count + "," + this.errors
+					+ "," + this.failures + "," + this.dropped;
+		}
+	}
+
+	/**
+	 * Session pool that is monitored.
+	 */
+	private final GenericObjectPool pool;
+
+	/**
+	 * Load statistics that are monitored.
+	 */
+	private final EPPLoadStats stats;
+
+	/**
+	 * Interval of the samples in milliseconds.
+	 */
+	private final long interval;
+
+	/**
+	 * Writer of the CSV rows, <code>null</code> if not written.
+	 */
+	private final Writer writer;
+
+	/**
+	 * Lock of the scheduler, the samples, and the writer.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * Samples taken so far.
+	 */
+	private final List<Sample> samples = new ArrayList<Sample>();
+
+	/**
+	 * Start time of the monitor in milliseconds.
+	 */
+	private long startMillis;
+
+	/**
+	 * Number of consecutive samples with more threads than the previous
+	 * sample.
+	 */
+	private int threadGrowth = 0;
+
+	/**
+	 * Scheduler of the samples, <code>null</code> if not started.
+	 */
+	private ScheduledExecutorService sampler = null;
+
+	/**
+	 * Creates a soak monitor.
+	 *
+	 * @param aPool
+	 *            Session pool used by the load generator
+	 * @param aStats
+	 *            Statistics of the load generator
+	 * @param aInterval
+	 *            Interval of the samples in milliseconds
+	 * @param aWriter
+	 *            Writer of the CSV rows, or <code>null</code> to only keep
+	 *            the samples in memory
+	 */
+	public EPPSoakMonitor(GenericObjectPool aPool, EPPLoadStats aStats,
+			long aInterval, Writer aWriter) {
+		this.pool = aPool;
+		this.stats = aStats;
+		this.interval = aInterval;
+		this.writer = aWriter;
+	}
+
+	/**
+	 * Starts sampling.
+	 *
+	 * @exception IOException
+	 *                Error writing the CSV header
+	 */
+	public void start() throws IOException {
+		this.lock.lock();
+		try {
+			if (this.sampler != null) {
+				return;
+			}
+
+			if (this.writer != null) {
+				this.writer.write(CSV_HEADER);
+				this.writer.write('\n');
+				this.writer.flush();
+			}
+
+			this.startMillis = System.currentTimeMillis();
+
+			this.sampler = Executors
+					.newSingleThreadScheduledExecutor(EPPExecutors
+							.newThreadFactory("EPPSoakMonitor"));
+			this.sampler.scheduleWithFixedDelay(new Runnable() {
+
+				public void run() {
+					try {
+						sample();
+					}
+					catch (Throwable ex) {
+						cat.error("sample(): Error sampling: " + ex, ex);
+					}
+				}
+			}, this.interval, this.interval, TimeUnit.MILLISECONDS);
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Stops sampling after a last sample.
+	 */
+	public void stop() {
+		ScheduledExecutorService theSampler;
+		this.lock.lock();
+		try {
+			theSampler = this.sampler;
+			this.sampler = null;
+		}
+		finally {
+			this.lock.unlock();
+		}
+
+		if (theSampler == null) {
+			return;
+		}
+
+		theSampler.shutdown();
+		try {
+			theSampler.awaitTermination(this.interval, TimeUnit.MILLISECONDS);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+
+		this.sample();
+	}
+
+	/**
+	 * Takes a sample, writes it, and logs the warnings.
+	 *
+	 * @return Sample
+	 */
+	public Sample sample() {
+		Sample theSample = new Sample(System.currentTimeMillis()
+				- this.startMillis, ManagementFactory.getMemoryMXBean()
+				.getHeapMemoryUsage(), ManagementFactory.getThreadMXBean()
+				.getThreadCount(), this.pool, this.stats);
+
+		Sample thePrevious = null;
+		this.lock.lock();
+		try {
+			thePrevious = this.samples.isEmpty() ? null : this.samples
+					.get(this.samples.size() - 1);
+			this.samples.add(theSample);
+
+			if (this.writer != null) {
+				this.writer.write(theSample.toCsv());
+				this.writer.write('\n');
+				this.writer.flush();
+			}
+		}
+		catch (IOException ex) {
+			cat.error("sample(): Error writing sample: " + ex);
+		}
+		finally {
+			this.lock.unlock();
+		}
+
+		this.checkHealth(theSample, thePrevious);
+
+		return theSample;
+	}
+
+	/**
+	 * Logs a warning for a nearly full heap, an exhausted session pool, and a
+	 * number of threads that grew in the last three samples.
+	 *
+	 * @param aSample
+	 *            Current sample
+	 * @param aPrevious
+	 *            Previous sample, or <code>null</code>
+	 */
+	private void checkHealth(Sample aSample, Sample aPrevious) {
+		if (aSample.heapMax > 0
+				&& aSample.heapUsed > aSample.heapMax * HEAP_WARNING) {
+			cat.warn("checkHealth(): Heap used " + aSample.heapUsed
+					+ " of max " + aSample.heapMax);
+		}
+
+		if (aSample.poolIdle == 0 && this.pool.getMaxActive() > 0
+				&& aSample.poolActive >= this.pool.getMaxActive()) {
+			cat.warn("checkHealth(): Session pool exhausted with "
+					+ aSample.poolActive + " active sessions");
+		}
+
+		if (aPrevious != null && aSample.threads > aPrevious.threads) {
+			this.threadGrowth++;
+			if (this.threadGrowth >= 3) {
+				cat.warn("checkHealth(): Number of threads grew for "
+						+ this.threadGrowth + " samples to " + aSample.threads);
+			}
+		}
+		else {
+			this.threadGrowth = 0;
+		}
+
+		cat.info("sample(): " + aSample.toCsv());
+	}
+
+	/**
+	 * Gets the samples taken so far.
+	 *
+	 * @return Copy of the samples
+	 */
+	public List<Sample> getSamples() {
+		this.lock.lock();
+		try {
+			return new ArrayList<Sample>(this.samples);
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+}
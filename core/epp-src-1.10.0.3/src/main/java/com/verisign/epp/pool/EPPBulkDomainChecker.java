@@ -0,0 +1,694 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.pool;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.codec.domain.EPPDomainCheckResp;
+import com.verisign.epp.codec.domain.EPPDomainCheckResult;
+import com.verisign.epp.interfaces.EPPCommandException;
+import com.verisign.epp.interfaces.EPPDomain;
+import com.verisign.epp.interfaces.EPPSession;
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPExecutors;
+import com.verisign.epp.util.InvalidateSessionException;
+
+/**
+ * Checks the availability of a large number of domain names with the
+ * sessions of an {@link EPPSessionPool}. The domain names are grouped into
+ * domain check commands of up to {@link #getMaxDomainsPerCheck()} names,
+ * which is the per-command limit of the registry, and the commands are sent
+ * concurrently over up to {@link #getMaxConcurrent()} borrowed sessions.
+ * The check results are passed to a {@link Listener} as the responses
+ * arrive. <br>
+ * <br>
+ * Each domain name is routed to a system session pool by its TLD with
+ * {@link #setSystem(String, String)}, and the domain names of a TLD without
+ * a system are checked with the {@link #getDefaultSystem()} pool, which is
+ * the default pool of <code>EPPSessionPool</code> unless it is changed. A
+ * command only contains domain names of the same system. <br>
+ * <br>
+ * The domain names are read from the <code>Iterator</code> only as fast as
+ * the commands can be sent, so the names can be streamed from a file or a
+ * database cursor. The commands sent with a session can be limited with
+ * {@link #setMaxChecksPerSecond(int)}. When a command fails because of a
+ * session problem, the session is invalidated in the pool and the command is
+ * retried with another session up to {@link #getRetries()} times. <br>
+ * <br>
+ * An <code>EPPBulkDomainChecker</code> can be shared by threads once it is
+ * configured.
+ */
+public class EPPBulkDomainChecker {
+
+	/**
+	 * Callback of {@link EPPBulkDomainChecker#check(Iterator, Listener)},
+	 * which is called concurrently by the threads that send the check
+	 * commands, so the implementation must be thread-safe.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called with the check result of a domain name.
+		 *
+		 * @param aResult
+		 *            Check result of the domain name
+		 */
+		public void result(EPPDomainCheckResult aResult);
+
+		/**
+		 * Called when the domain names of a check command could not be
+		 * checked, or when {@link #result(EPPDomainCheckResult)} threw a
+		 * <code>RuntimeException</code> for one of them.
+		 *
+		 * @param aDomains
+		 *            Domain names that were not checked
+		 * @param aException
+		 *            Last exception checking the domain names
+		 */
+		public void error(List<String> aDomains, Exception aException);
+	}
+
+	/**
+	 * Default maximum number of domain names per check command.
+	 */
+	public static final int DEFAULT_MAX_DOMAINS_PER_CHECK = 5;
+
+	/**
+	 * Default maximum number of check commands sent concurrently.
+	 */
+	public static final int DEFAULT_MAX_CONCURRENT = 10;
+
+	/**
+	 * Default number of retries of a check command with another session.
+	 */
+	public static final int DEFAULT_RETRIES = 2;
+
+	/** Log4j category for logging */
+	private static Logger log = Logger.getLogger(EPPBulkDomainChecker.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/**
+	 * Session pool used to borrow the sessions.
+	 */
+	private final EPPSessionPool pool;
+
+	/**
+	 * Maximum number of domain names per check command.
+	 */
+	private int maxDomainsPerCheck = DEFAULT_MAX_DOMAINS_PER_CHECK;
+
+	/**
+	 * Maximum number of check commands sent concurrently.
+	 */
+	private int maxConcurrent = DEFAULT_MAX_CONCURRENT;
+
+	/**
+	 * Maximum number of check commands per second per session, where
+	 * <code>0</code> is unlimited.
+	 */
+	private int maxChecksPerSecond = 0;
+
+	/**
+	 * Number of retries of a check command with another session.
+	 */
+	private int retries = DEFAULT_RETRIES;
+
+	/**
+	 * System session pool of the domain names of a TLD without a system.
+	 */
+	private String defaultSystem = EPPSessionPool.DEFAULT;
+
+	/**
+	 * System session pool by lower case TLD.
+	 */
+	private final Map<String, String> systems = Collections
+			.synchronizedMap(new HashMap<String, String>());
+
+	/**
+	 * Earliest <code>System.nanoTime()</code> to send the next check command
+	 * with a session, which is only used with {@link #maxChecksPerSecond}.
+	 * Sessions that are no longer referenced by the pool are removed.
+	 */
+	private final Map<EPPSession, Long> nextCheckTimes = new WeakHashMap<EPPSession, Long>();
+
+	/**
+	 * Generator of the client transaction identifiers of the check commands.
+	 */
+	private EPPClientTransIdGenerator transIdGenerator = new ClientTransIdGenerator(
+			"BULKCHK");
+
+	/**
+	 * Creates a checker that uses the sessions of <code>aPool</code>, which
+	 * must be initialized.
+	 *
+	 * @param aPool
+	 *            Session pool to borrow the sessions from
+	 */
+	public EPPBulkDomainChecker(EPPSessionPool aPool) {
+		this.pool = aPool;
+	}
+
+	/**
+	 * Checks the domain names of <code>aDomains</code> and passes the check
+	 * results to <code>aListener</code> as the responses arrive. The method
+	 * returns when all of the domain names were checked or passed to
+	 * {@link Listener#error(List, Exception)}.
+	 *
+	 * @param aDomains
+	 *            Domain names to check
+	 * @param aListener
+	 *            Listener of the check results
+	 *
+	 * @return Number of domain names that were checked
+	 *
+	 * @throws InterruptedException
+	 *             Interrupted waiting to send a check command. The check
+	 *             commands that were already sent complete in the
+	 *             background.
+	 */
+	public long check(Iterator<String> aDomains, Listener aListener)
+			throws InterruptedException {
+		final Listener theListener = aListener;
+		final AtomicLong theNumChecked = new AtomicLong();
+		final Semaphore theInFlight = new Semaphore(this.maxConcurrent);
+
+		ExecutorService theExecutor = EPPExecutors.newExecutor(
+				"EPPBulkDomainChecker", this.maxConcurrent, 0);
+
+		try {
+			Map<String, List<String>> theBatches = new HashMap<String, List<String>>();
+
+			while (aDomains.hasNext()) {
+				String theDomain = aDomains.next();
+				String theSystem = this.getSystemForDomain(theDomain);
+
+				List<String> theBatch = theBatches.get(theSystem);
+				if (theBatch == null) {
+					theBatch = new ArrayList<String>(this.maxDomainsPerCheck);
+					theBatches.put(theSystem, theBatch);
+				}
+
+				theBatch.add(theDomain);
+
+				// Full check command?
+				if (theBatch.size() >= this.maxDomainsPerCheck) {
+					theBatches.remove(theSystem);
+					this.submit(theExecutor, theInFlight, theSystem, theBatch,
+							theListener, theNumChecked);
+				}
+			}
+
+			// Partial check commands
+			Iterator<Map.Entry<String, List<String>>> theIter = theBatches
+					.entrySet().iterator();
+			while (theIter.hasNext()) {
+				Map.Entry<String, List<String>> theEntry = theIter.next();
+				this.submit(theExecutor, theInFlight, theEntry.getKey(),
+						theEntry.getValue(), theListener, theNumChecked);
+			}
+
+			// Wait for the check commands to complete
+			theInFlight.acquire(this.maxConcurrent);
+			theInFlight.release(this.maxConcurrent);
+		}
+		finally {
+			theExecutor.shutdown();
+		}
+
+		return theNumChecked.get();
+	}
+
+	/**
+	 * Checks the domain names of <code>aDomains</code> and returns the check
+	 * results.
+	 *
+	 * @param aDomains
+	 *            Domain names to check
+	 *
+	 * @return Check results in the order the responses arrived
+	 *
+	 * @throws EPPCommandException
+	 *             Error checking some of the domain names, which is the first
+	 *             error that occurred
+	 * @throws InterruptedException
+	 *             Interrupted waiting to send a check command
+	 */
+	public List<EPPDomainCheckResult> check(Collection<String> aDomains)
+			throws EPPCommandException, InterruptedException {
+		final List<EPPDomainCheckResult> theResults = Collections
+				.synchronizedList(new ArrayList<EPPDomainCheckResult>(aDomains
+						.size()));
+		final List<Exception> theErrors = Collections
+				.synchronizedList(new ArrayList<Exception>());
+
+		this.check(aDomains.iterator(), new Listener() {
+
+			public void result(EPPDomainCheckResult aResult) {
+				theResults.add(aResult);
+			}
+
+			public void error(List<String> aErrorDomains, Exception aException) {
+				theErrors.add(aException);
+			}
+		});
+
+		if (!theErrors.isEmpty()) {
+			Exception theError = theErrors.get(0);
+
+			if (theError instanceof EPPCommandException) {
+				throw (EPPCommandException) theError;
+			}
+
+			throw new EPPCommandException("EPPBulkDomainChecker.check(): "
+					+ theErrors.size() + " check commands failed: " + theError);
+		}
+
+		return theResults;
+	}
+
+	/**
+	 * Submits a check command to the executor once one of the
+	 * <code>aInFlight</code> permits is available.
+	 *
+	 * @param aExecutor
+	 *            Executor to send the check command with
+	 * @param aInFlight
+	 *            Permits of the check commands sent concurrently
+	 * @param aSystem
+	 *            System session pool to use
+	 * @param aDomains
+	 *            Domain names of the check command
+	 * @param aListener
+	 *            Listener of the check results
+	 * @param aNumChecked
+	 *            Number of domain names that were checked
+	 *
+	 * @throws InterruptedException
+	 *             Interrupted waiting for a permit
+	 */
+	private void submit(ExecutorService aExecutor, final Semaphore aInFlight,
+			final String aSystem, final List<String> aDomains,
+			final Listener aListener, final AtomicLong aNumChecked)
+			throws InterruptedException {
+		aInFlight.acquire();
+
+		try {
+			aExecutor.execute(new Runnable() {
+
+				public void run() {
+					try {
+						aNumChecked.addAndGet(sendCheck(aSystem, aDomains,
+								aListener));
+					}
+					catch (RuntimeException ex) {
+						log.error("submit(" + aSystem
+								+ "): Error handling check results of "
+								+ aDomains + ": " + ex, ex);
+						try {
+							aListener.error(aDomains, ex);
+						}
+						catch (RuntimeException ex1) {
+							log.error("submit(" + aSystem
+									+ "): Error reporting the error: " + ex1,
+									ex1);
+						}
+					}
+					finally {
+						aInFlight.release();
+					}
+				}
+			});
+		}
+		catch (RuntimeException ex) {
+			aInFlight.release();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Sends a check command with a session of <code>aSystem</code>, which is
+	 * retried with another session after a session error.
+	 *
+	 * @param aSystem
+	 *            System session pool to use
+	 * @param aDomains
+	 *            Domain names of the check command
+	 * @param aListener
+	 *            Listener of the check results
+	 *
+	 * @return Number of domain names that were checked
+	 */
+	private int sendCheck(String aSystem, List<String> aDomains,
+			Listener aListener) {
+		Exception theError = null;
+
+		for (int theAttempt = 0; theAttempt <= this.retries; theAttempt++) {
+			EPPSession theSession = null;
+
+			try {
+				theSession = this.pool.borrowObject(aSystem);
+
+				EPPDomainCheckResp theResponse = this.sendCheck(theSession,
+						aDomains);
+
+				Vector theResults = theResponse.getCheckResults();
+				for (int i = 0; i < theResults.size(); i++) {
+					aListener.result((EPPDomainCheckResult) theResults
+							.elementAt(i));
+				}
+
+				return theResults.size();
+			}
+			catch (InvalidateSessionException ex) {
+				log.debug("sendCheck(" + aSystem + "): Invalidating session "
+						+ "after attempt " + theAttempt + ": " + ex);
+				theError = ex;
+
+				try {
+					this.pool.invalidateObject(aSystem, theSession);
+				}
+				catch (EPPSessionPoolException e) {
+					log.error("sendCheck(" + aSystem
+							+ "): Error invalidating session: " + e);
+				}
+				theSession = null;
+			}
+			catch (EPPSessionPoolException ex) {
+				log.error("sendCheck(" + aSystem + "): Error borrowing session: "
+						+ ex);
+				theError = ex;
+				break;
+			}
+			catch (EPPCommandException ex) {
+				log.error("sendCheck(" + aSystem + "): Error response: " + ex);
+				theError = ex;
+				break;
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				theError = ex;
+				break;
+			}
+			finally {
+				if (theSession != null) {
+					try {
+						this.pool.returnObject(aSystem, theSession);
+					}
+					catch (EPPSessionPoolException e) {
+						log.error("sendCheck(" + aSystem
+								+ "): Error returning session: " + e);
+					}
+				}
+			}
+		}
+
+		aListener.error(aDomains, theError);
+
+		return 0;
+	}
+
+	/**
+	 * Sends a check command with <code>aSession</code> after waiting for the
+	 * rate limit of the session.
+	 *
+	 * @param aSession
+	 *            Session to send the check command with
+	 * @param aDomains
+	 *            Domain names of the check command
+	 *
+	 * @return Check response
+	 *
+	 * @throws InvalidateSessionException
+	 *             The session should be invalidated, since the server
+	 *             response indicates that the session should be closed or
+	 *             the command failed without a response
+	 * @throws EPPCommandException
+	 *             Error response from the server
+	 * @throws InterruptedException
+	 *             Interrupted waiting for the rate limit
+	 */
+	private EPPDomainCheckResp sendCheck(EPPSession aSession,
+			List<String> aDomains) throws InvalidateSessionException,
+			EPPCommandException, InterruptedException {
+		this.waitForRateLimit(aSession);
+
+		EPPDomain theDomain = new EPPDomain(aSession);
+		for (int i = 0; i < aDomains.size(); i++) {
+			theDomain.addDomainName(aDomains.get(i));
+		}
+		theDomain.setTransId(this.transIdGenerator.genClientTransId());
+
+		try {
+			return theDomain.sendCheck();
+		}
+		catch (EPPCommandException ex) {
+			// Server specified error?
+			if (ex.hasResponse()) {
+				if (ex.getResponse().getResult().shouldCloseSession()) {
+					throw new InvalidateSessionException(aSession,
+							"Server response indicates that the session should be closed",
+							ex);
+				}
+
+				throw ex;
+			}
+
+			throw new InvalidateSessionException(aSession,
+					"General exception that could be a session issue", ex);
+		}
+	}
+
+	/**
+	 * Waits until the next check command can be sent with
+	 * <code>aSession</code> based on {@link #maxChecksPerSecond}.
+	 *
+	 * @param aSession
+	 *            Borrowed session
+	 *
+	 * @throws InterruptedException
+	 *             Interrupted while waiting
+	 */
+	private void waitForRateLimit(EPPSession aSession)
+			throws InterruptedException {
+		int theMaxChecksPerSecond = this.maxChecksPerSecond;
+
+		if (theMaxChecksPerSecond <= 0) {
+			return;
+		}
+
+		long theInterval = TimeUnit.SECONDS.toNanos(1) / theMaxChecksPerSecond;
+		long theNow = System.nanoTime();
+		long theSendTime;
+
+		synchronized (this.nextCheckTimes) {
+			Long theNextTime = this.nextCheckTimes.get(aSession);
+
+			if (theNextTime == null || theNextTime.longValue() - theNow < 0) {
+				theSendTime = theNow;
+			}
+			else {
+				theSendTime = theNextTime.longValue();
+			}
+
+			this.nextCheckTimes.put(aSession, Long.valueOf(theSendTime
+					+ theInterval));
+		}
+
+		long theWait = theSendTime - theNow;
+		if (theWait > 0) {
+			TimeUnit.NANOSECONDS.sleep(theWait);
+		}
+	}
+
+	/**
+	 * Gets the system session pool of a domain name based on its TLD.
+	 *
+	 * @param aDomain
+	 *            Domain name
+	 *
+	 * @return System set for the TLD with {@link #setSystem(String, String)}
+	 *         if set; {@link #getDefaultSystem()} otherwise.
+	 */
+	public String getSystemForDomain(String aDomain) {
+		String theTld = aDomain;
+
+		int theDot = aDomain.lastIndexOf('.');
+		if (theDot >= 0) {
+			theTld = aDomain.substring(theDot + 1);
+		}
+
+		String theSystem = this.systems.get(theTld.toLowerCase());
+
+		if (theSystem == null) {
+			return this.defaultSystem;
+		}
+
+		return theSystem;
+	}
+
+	/**
+	 * Sets the system session pool used to check the domain names of a TLD.
+	 *
+	 * @param aTld
+	 *            TLD without the leading dot like &quot;com&quot;
+	 * @param aSystem
+	 *            System session pool name of <code>EPPSessionPool</code>
+	 */
+	public void setSystem(String aTld, String aSystem) {
+		this.systems.put(aTld.toLowerCase(), aSystem);
+	}
+
+	/**
+	 * Gets the system session pool used for the TLDs without a system.
+	 *
+	 * @return System session pool name, which defaults to
+	 *         <code>EPPSessionPool.DEFAULT</code>
+	 */
+	public String getDefaultSystem() {
+		return this.defaultSystem;
+	}
+
+	/**
+	 * Sets the system session pool used for the TLDs without a system.
+	 *
+	 * @param aDefaultSystem
+	 *            System session pool name
+	 */
+	public void setDefaultSystem(String aDefaultSystem) {
+		this.defaultSystem = aDefaultSystem;
+	}
+
+	/**
+	 * Gets the maximum number of domain names per check command.
+	 *
+	 * @return Maximum number of domain names per check command
+	 */
+	public int getMaxDomainsPerCheck() {
+		return this.maxDomainsPerCheck;
+	}
+
+	/**
+	 * Sets the maximum number of domain names per check command, which should
+	 * be set to the limit of the registry.
+	 *
+	 * @param aMaxDomainsPerCheck
+	 *            Maximum number of domain names, which must be greater than
+	 *            <code>0</code>
+	 */
+	public void setMaxDomainsPerCheck(int aMaxDomainsPerCheck) {
+		if (aMaxDomainsPerCheck <= 0) {
+			throw new IllegalArgumentException(
+					"maxDomainsPerCheck must be greater than 0");
+		}
+		this.maxDomainsPerCheck = aMaxDomainsPerCheck;
+	}
+
+	/**
+	 * Gets the maximum number of check commands sent concurrently.
+	 *
+	 * @return Maximum number of concurrent check commands
+	 */
+	public int getMaxConcurrent() {
+		return this.maxConcurrent;
+	}
+
+	/**
+	 * Sets the maximum number of check commands sent concurrently, which
+	 * should not be greater than the <code>maxActive</code> sessions of the
+	 * pools.
+	 *
+	 * @param aMaxConcurrent
+	 *            Maximum number of concurrent check commands, which must be
+	 *            greater than <code>0</code>
+	 */
+	public void setMaxConcurrent(int aMaxConcurrent) {
+		if (aMaxConcurrent <= 0) {
+			throw new IllegalArgumentException(
+					"maxConcurrent must be greater than 0");
+		}
+		this.maxConcurrent = aMaxConcurrent;
+	}
+
+	/**
+	 * Gets the maximum number of check commands per second per session.
+	 *
+	 * @return Maximum number of check commands per second, where
+	 *         <code>0</code> is unlimited
+	 */
+	public int getMaxChecksPerSecond() {
+		return this.maxChecksPerSecond;
+	}
+
+	/**
+	 * Sets the maximum number of check commands per second per session.
+	 *
+	 * @param aMaxChecksPerSecond
+	 *            Maximum number of check commands per second, where
+	 *            <code>0</code> is unlimited
+	 */
+	public void setMaxChecksPerSecond(int aMaxChecksPerSecond) {
+		this.maxChecksPerSecond = aMaxChecksPerSecond;
+	}
+
+	/**
+	 * Gets the number of retries of a check command with another session.
+	 *
+	 * @return Number of retries
+	 */
+	public int getRetries() {
+		return this.retries;
+	}
+
+	/**
+	 * Sets the number of retries of a check command with another session
+	 * after the session was invalidated.
+	 *
+	 * @param aRetries
+	 *            Number of retries
+	 */
+	public void setRetries(int aRetries) {
+		this.retries = aRetries;
+	}
+
+	/**
+	 * Sets the generator of the client transaction identifiers of the check
+	 * commands.
+	 *
+	 * @param aTransIdGenerator
+	 *            Client transaction identifier generator
+	 */
+	public void setTransIdGenerator(EPPClientTransIdGenerator aTransIdGenerator) {
+		this.transIdGenerator = aTransIdGenerator;
+	}
+}
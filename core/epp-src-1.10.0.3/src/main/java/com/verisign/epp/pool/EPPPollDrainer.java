@@ -0,0 +1,1056 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.pool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.codec.gen.EPPPollCmd;
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.codec.gen.EPPResult;
+import com.verisign.epp.interfaces.EPPCommandException;
+import com.verisign.epp.interfaces.EPPSession;
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPExecutors;
+import com.verisign.epp.util.Environment;
+import com.verisign.epp.util.InvalidateSessionException;
+
+/**
+ * Drains the poll message queues of a set of registrar accounts in the
+ * background. Each account is a system session pool of an
+ * {@link EPPSessionPool}, and a dedicated session is borrowed for each
+ * system and kept by a drain thread, so polling does not compete with the
+ * other commands for the pooled sessions. <br>
+ * <br>
+ * The drain thread sends a poll request and, while the response has a
+ * message (result code {@link EPPResult#SUCCESS_POLL_MSG}), puts the message
+ * on a bounded queue and waits for the dispatch thread to pass it to its
+ * handler. It then sends the poll ack of the message together with the poll
+ * request of the next message with {@link EPPSession#sendPollAsync()}. When
+ * the session is in {@link EPPSession#MODE_PIPELINED} (see
+ * {@link #setPipelined(boolean)}), this saves a round trip per message. The
+ * poll request of the next message is not sent after the last message of the
+ * queue based on the <code>EPPMsgQueue</code> count. A message is only
+ * acknowledged after its handler returns, so the messages are delivered at
+ * least once: a message is dispatched again if the process ends before its
+ * ack or the ack fails, and the handlers should tolerate duplicates. <br>
+ * <br>
+ * The messages are taken from the queue by a dispatch thread and passed to
+ * the {@link Handler} registered with {@link #addHandler(Class, Handler)}
+ * for the most specific class of the message, like
+ * <code>EPPDomainTransferResp</code>, <code>EPPLowBalancePollResponse</code>,
+ * <code>EPPRgpPollResponse</code>, or <code>EPPDomainPendActionMsg</code>.
+ * A handler registered for <code>EPPResponse</code> receives the messages
+ * without a more specific handler. When the queue is full, the drain
+ * threads wait for the handlers to catch up. <br>
+ * <br>
+ * The queue of a system is polled again after {@link #getMinInterval()}
+ * when messages were drained, and otherwise the interval is doubled up to
+ * {@link #getMaxInterval()}, so idle accounts are polled rarely.
+ * {@link #pollNow()} polls all of the systems immediately. The dedicated
+ * session is invalidated on a session error and replaced after
+ * {@link #getMaxSessionAge()}.
+ */
+public class EPPPollDrainer {
+
+	/**
+	 * Handler of the poll messages of a message class, which is called by
+	 * the dispatch thread.
+	 */
+	public interface Handler {
+
+		/**
+		 * Handles a poll message.
+		 *
+		 * @param aSystem
+		 *            System session pool that the message was polled from
+		 * @param aMessage
+		 *            Poll message, which is the response of the poll request
+		 */
+		public void handle(String aSystem, EPPResponse aMessage);
+	}
+
+	/**
+	 * Default size of the message queue.
+	 */
+	public static final int DEFAULT_QUEUE_SIZE = 1000;
+
+	/**
+	 * Default minimum interval in milliseconds between polls of a system.
+	 */
+	public static final long DEFAULT_MIN_INTERVAL = 1000;
+
+	/**
+	 * Default maximum interval in milliseconds between polls of a system.
+	 */
+	public static final long DEFAULT_MAX_INTERVAL = 60000;
+
+	/**
+	 * Default maximum age in milliseconds of a dedicated session.
+	 */
+	public static final long DEFAULT_MAX_SESSION_AGE = 3600000;
+
+	/**
+	 * Prefix of the drainer properties.
+	 */
+	private final static String PROP_PREFIX = "EPP.PollDrainer";
+
+	/** Log4j category for logging */
+	private static Logger log = Logger.getLogger(EPPPollDrainer.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/**
+	 * Message put on the queue to end the dispatch thread.
+	 */
+	private static final Message STOP = new Message(null, null);
+
+	/**
+	 * Poll message on the queue.
+	 */
+	private static class Message {
+
+		/**
+		 * System that the message was polled from.
+		 */
+		final String system;
+
+		/**
+		 * Poll message.
+		 */
+		final EPPResponse response;
+
+		/**
+		 * Counted down once the message was passed to its handler.
+		 */
+		final CountDownLatch dispatched = new CountDownLatch(1);
+
+		/**
+		 * Creates a queued message.
+		 *
+		 * @param aSystem
+		 *            System that the message was polled from
+		 * @param aResponse
+		 *            Poll message
+		 */
+		Message(String aSystem, EPPResponse aResponse) {
+			this.system = aSystem;
+			this.response = aResponse;
+		}
+	}
+
+	/**
+	 * Session pool used to borrow the dedicated sessions.
+	 */
+	private final EPPSessionPool pool;
+
+	/**
+	 * Systems that are drained.
+	 */
+	private final String[] systems;
+
+	/**
+	 * Handlers by message class.
+	 */
+	private final Map<Class, Handler> handlers = new ConcurrentHashMap<Class, Handler>();
+
+	/**
+	 * Last message queue count by system.
+	 */
+	private final Map<String, Long> queueCounts = new ConcurrentHashMap<String, Long>();
+
+	/**
+	 * Size of the message queue.
+	 */
+	private int queueSize = DEFAULT_QUEUE_SIZE;
+
+	/**
+	 * Minimum interval in milliseconds between polls of a system.
+	 */
+	private long minInterval = DEFAULT_MIN_INTERVAL;
+
+	/**
+	 * Maximum interval in milliseconds between polls of a system.
+	 */
+	private long maxInterval = DEFAULT_MAX_INTERVAL;
+
+	/**
+	 * Maximum age in milliseconds of a dedicated session.
+	 */
+	private long maxSessionAge = DEFAULT_MAX_SESSION_AGE;
+
+	/**
+	 * Pipeline the poll commands of the dedicated sessions?
+	 */
+	private boolean pipelined = true;
+
+	/**
+	 * Client transaction identifier generator of the poll commands.
+	 */
+	private EPPClientTransIdGenerator transIdGenerator = new ClientTransIdGenerator(
+			"POLL");
+
+	/**
+	 * Queue of the messages to dispatch.
+	 */
+	private BlockingQueue<Message> queue;
+
+	/**
+	 * Drain and dispatch threads.
+	 */
+	private final List<Thread> threads = new ArrayList<Thread>();
+
+	/**
+	 * Dispatch thread.
+	 */
+	private Thread dispatcher;
+
+	/**
+	 * Is the drainer running?
+	 */
+	private volatile boolean running = false;
+
+	/**
+	 * Lock of {@link #wakeup} and {@link #wakeups}.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * Signalled by {@link #pollNow()} and {@link #stop(long)}.
+	 */
+	private final Condition wakeup = this.lock.newCondition();
+
+	/**
+	 * Number of calls to {@link #pollNow()}, so that a drain thread does not
+	 * miss a call made while it is polling.
+	 */
+	private long wakeups = 0;
+
+	/**
+	 * Number of messages that were drained.
+	 */
+	private final AtomicLong drainedCount = new AtomicLong();
+
+	/**
+	 * Number of messages that were dispatched to a handler.
+	 */
+	private final AtomicLong dispatchedCount = new AtomicLong();
+
+	/**
+	 * Number of poll errors and handler errors.
+	 */
+	private final AtomicLong errorCount = new AtomicLong();
+
+	/**
+	 * Creates a drainer of the poll message queues of <code>aSystems</code>.
+	 *
+	 * @param aPool
+	 *            Session pool used to borrow the dedicated sessions
+	 * @param aSystems
+	 *            System session pools of the registrar accounts, where
+	 *            {@link EPPSessionPool#DEFAULT} is the default pool
+	 */
+	public EPPPollDrainer(EPPSessionPool aPool, String[] aSystems) {
+		if (aPool == null) {
+			throw new IllegalArgumentException("Session pool is null");
+		}
+		if (aSystems == null || aSystems.length == 0) {
+			throw new IllegalArgumentException("No systems to drain");
+		}
+
+		this.pool = aPool;
+		this.systems = aSystems.clone();
+	}
+
+	/**
+	 * Initializes the settings from the <code>EPP.PollDrainer</code>
+	 * properties, which are <code>queueSize</code>,
+	 * <code>minInterval</code>, <code>maxInterval</code>,
+	 * <code>maxSessionAge</code>, and <code>pipelined</code>.
+	 *
+	 * @throws EPPSessionPoolException
+	 *             Invalid property value
+	 */
+	public void init() throws EPPSessionPoolException {
+		String theValue;
+
+		try {
+			theValue = this.getProperty("queueSize");
+			if (theValue != null) {
+				this.setQueueSize(Integer.parseInt(theValue));
+			}
+			log.info("init(): queue size = " + this.queueSize);
+
+			theValue = this.getProperty("minInterval");
+			if (theValue != null) {
+				this.setMinInterval(Long.parseLong(theValue));
+			}
+			log.info("init(): min interval = " + this.minInterval + " ms");
+
+			theValue = this.getProperty("maxInterval");
+			if (theValue != null) {
+				this.setMaxInterval(Long.parseLong(theValue));
+			}
+			log.info("init(): max interval = " + this.maxInterval + " ms");
+
+			theValue = this.getProperty("maxSessionAge");
+			if (theValue != null) {
+				this.setMaxSessionAge(Long.parseLong(theValue));
+			}
+			log.info("init(): max session age = " + this.maxSessionAge
+					+ " ms");
+		}
+		catch (IllegalArgumentException ex) {
+			log.error("init(): Invalid number property: " + ex);
+			throw new EPPSessionPoolException("Invalid number property: " + ex);
+		}
+
+		theValue = this.getProperty("pipelined");
+		if (theValue != null) {
+			this.setPipelined(Boolean.valueOf(theValue).booleanValue());
+		}
+		log.info("init(): pipelined = " + this.pipelined);
+	}
+
+	/**
+	 * Gets a drainer property.
+	 *
+	 * @param aProperty
+	 *            Property name without the <code>EPP.PollDrainer</code>
+	 *            prefix
+	 *
+	 * @return Property value if defined; <code>null</code> otherwise.
+	 */
+	private String getProperty(String aProperty) {
+		return Environment.getProperty(PROP_PREFIX + "." + aProperty);
+	}
+
+	/**
+	 * Registers the handler of the messages of class <code>aClass</code> and
+	 * its sub-classes without a more specific handler.
+	 *
+	 * @param aClass
+	 *            Message class like <code>EPPDomainTransferResp</code>
+	 * @param aHandler
+	 *            Handler of the messages
+	 */
+	public void addHandler(Class aClass, Handler aHandler) {
+		this.handlers.put(aClass, aHandler);
+	}
+
+	/**
+	 * Removes the handler of the messages of class <code>aClass</code>.
+	 *
+	 * @param aClass
+	 *            Message class
+	 */
+	public void removeHandler(Class aClass) {
+		this.handlers.remove(aClass);
+	}
+
+	/**
+	 * Gets the handler of a message class, which is the handler registered
+	 * for the class or the nearest super class.
+	 *
+	 * @param aClass
+	 *            Message class
+	 *
+	 * @return Handler if found; <code>null</code> otherwise.
+	 */
+	Handler getHandler(Class aClass) {
+		for (Class theClass = aClass; theClass != null; theClass = theClass
+				.getSuperclass()) {
+			Handler theHandler = this.handlers.get(theClass);
+			if (theHandler != null) {
+				return theHandler;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Starts the drain thread of each system and the dispatch thread.
+	 */
+	public void start() {
+		this.lock.lock();
+		try {
+			if (this.running) {
+				return;
+			}
+
+			this.running = true;
+			this.queue = new ArrayBlockingQueue<Message>(this.queueSize);
+
+			this.dispatcher = EPPExecutors.newThread(new Runnable() {
+
+				public void run() {
+					dispatch();
+				}
+			}, "EPPPollDrainer-dispatch");
+			this.dispatcher.setDaemon(true);
+			this.dispatcher.start();
+
+			for (int i = 0; i < this.systems.length; i++) {
+				final String theSystem = this.systems[i];
+
+				Thread theThread = EPPExecutors.newThread(new Runnable() {
+
+					public void run() {
+						drain(theSystem);
+					}
+				}, "EPPPollDrainer-" + theSystem);
+				theThread.setDaemon(true);
+				theThread.start();
+				this.threads.add(theThread);
+			}
+
+			log.info("start(): Draining poll queues of "
+					+ this.systems.length + " systems");
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Stops the drain threads, which return their sessions to the pool, and
+	 * stops the dispatch thread after the queued messages are dispatched.
+	 *
+	 * @param aTimeout
+	 *            Maximum time in milliseconds to wait for each thread
+	 *
+	 * @throws InterruptedException
+	 *             Interrupted waiting for the threads
+	 */
+	public void stop(long aTimeout) throws InterruptedException {
+		List<Thread> theThreads;
+		Thread theDispatcher;
+
+		this.lock.lock();
+		try {
+			if (!this.running) {
+				return;
+			}
+
+			this.running = false;
+			this.wakeup.signalAll();
+
+			theThreads = new ArrayList<Thread>(this.threads);
+			this.threads.clear();
+			theDispatcher = this.dispatcher;
+			this.dispatcher = null;
+		}
+		finally {
+			this.lock.unlock();
+		}
+
+		for (Thread theThread : theThreads) {
+			theThread.join(aTimeout);
+			if (theThread.isAlive()) {
+				log.warn("stop(): " + theThread.getName()
+						+ " did not stop, interrupting");
+				theThread.interrupt();
+			}
+		}
+
+		if (!this.queue.offer(STOP, aTimeout, TimeUnit.MILLISECONDS)) {
+			theDispatcher.interrupt();
+		}
+		theDispatcher.join(aTimeout);
+
+		log.info("stop(): Stopped, drained = " + this.drainedCount.get()
+				+ ", dispatched = " + this.dispatchedCount.get()
+				+ ", errors = " + this.errorCount.get());
+	}
+
+	/**
+	 * Polls all of the systems immediately instead of waiting for their
+	 * polling interval.
+	 */
+	public void pollNow() {
+		this.lock.lock();
+		try {
+			this.wakeups++;
+			this.wakeup.signalAll();
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Drain loop of the dedicated session of a system.
+	 *
+	 * @param aSystem
+	 *            System to drain
+	 */
+	private void drain(String aSystem) {
+		EPPSession theSession = null;
+		long theBorrowTime = 0;
+		long theInterval = this.minInterval;
+		long theWakeups;
+
+		while (this.running) {
+			theWakeups = this.getWakeups();
+
+			try {
+				if (theSession == null) {
+					theSession = this.pool.borrowObject(aSystem);
+					theBorrowTime = System.currentTimeMillis();
+					if (this.pipelined) {
+						theSession.setMode(EPPSession.MODE_PIPELINED);
+					}
+				}
+
+				int theDrained = this.drain(aSystem, theSession);
+
+				Long theCount = this.queueCounts.get(aSystem);
+				if (theDrained > 0
+						|| (theCount != null && theCount.longValue() > 0)) {
+					theInterval = this.minInterval;
+				}
+				else {
+					theInterval = Math.min(theInterval * 2, this.maxInterval);
+				}
+
+				if (System.currentTimeMillis() - theBorrowTime > this.maxSessionAge) {
+					log.debug("drain(" + aSystem
+							+ "): Replacing session after max age");
+					this.releaseSession(aSystem, theSession, false);
+					theSession = null;
+				}
+			}
+			catch (InvalidateSessionException ex) {
+				log.error("drain(" + aSystem + "): Invalidating session: "
+						+ ex);
+				this.errorCount.incrementAndGet();
+				this.releaseSession(aSystem, theSession, true);
+				theSession = null;
+				theInterval = this.minInterval;
+			}
+			catch (EPPSessionPoolException ex) {
+				log.error("drain(" + aSystem + "): Error borrowing session: "
+						+ ex);
+				this.errorCount.incrementAndGet();
+				theInterval = Math.min(theInterval * 2, this.maxInterval);
+			}
+			catch (EPPCommandException ex) {
+				log.error("drain(" + aSystem + "): Error response: " + ex);
+				this.errorCount.incrementAndGet();
+				theInterval = Math.min(theInterval * 2, this.maxInterval);
+			}
+			catch (InterruptedException ex) {
+				break;
+			}
+
+			try {
+				this.await(theWakeups, theInterval);
+			}
+			catch (InterruptedException ex) {
+				break;
+			}
+		}
+
+		if (theSession != null) {
+			this.releaseSession(aSystem, theSession, false);
+		}
+	}
+
+	/**
+	 * Drains the messages of a system until its poll queue is empty or the
+	 * drainer is stopped.
+	 *
+	 * @param aSystem
+	 *            System to drain
+	 * @param aSession
+	 *            Dedicated session of the system
+	 *
+	 * @return Number of messages drained
+	 *
+	 * @throws InvalidateSessionException
+	 *             Session error
+	 * @throws EPPCommandException
+	 *             Error response from the server
+	 * @throws InterruptedException
+	 *             Interrupted waiting for a response, the queue or the dispatch
+	 */
+	private int drain(String aSystem, EPPSession aSession)
+			throws InvalidateSessionException, EPPCommandException,
+			InterruptedException {
+		int theDrained = 0;
+
+		EPPResponse theResponse = this.waitForResponse(aSession,
+				this.sendPoll(aSession, EPPPollCmd.OP_REQ, null));
+
+		while (theResponse.getResult().getCode() == EPPResult.SUCCESS_POLL_MSG) {
+			Long theCount = theResponse.getMsgQueueCount();
+			this.queueCounts.put(aSystem, theCount != null ? theCount
+					: Long.valueOf(1));
+
+			// Ack the message only after it was dispatched
+			Message theMessage = new Message(aSystem, theResponse);
+			this.queue.put(theMessage);
+			theMessage.dispatched.await();
+			this.drainedCount.incrementAndGet();
+			theDrained++;
+
+			String theMsgId = theResponse.getMsgQueue().getId();
+
+			CompletableFuture<EPPResponse> theAck = this.sendPoll(aSession,
+					EPPPollCmd.OP_ACK, theMsgId);
+
+			// Send the request of the next message without waiting for the ack
+			CompletableFuture<EPPResponse> theNext = null;
+			if (this.running
+					&& (theCount == null || theCount.longValue() > 1)) {
+				theNext = this.sendPoll(aSession, EPPPollCmd.OP_REQ, null);
+			}
+
+			try {
+				EPPResponse theAckResponse = this.waitForResponse(aSession,
+						theAck);
+				theCount = theAckResponse.getMsgQueueCount();
+				this.queueCounts.put(aSystem, theCount != null ? theCount
+						: Long.valueOf(0));
+			}
+			catch (EPPCommandException ex) {
+				// The next request would return the same message
+				log.error("drain(" + aSystem + "): Error acking message "
+						+ theMsgId + ": " + ex);
+				this.errorCount.incrementAndGet();
+				if (theNext != null) {
+					this.waitForResponse(aSession, theNext);
+				}
+				return theDrained;
+			}
+
+			if (theNext == null) {
+				return theDrained;
+			}
+
+			theResponse = this.waitForResponse(aSession, theNext);
+		}
+
+		this.queueCounts.put(aSystem, Long.valueOf(0));
+
+		return theDrained;
+	}
+
+	/**
+	 * Sends a poll command with a session.
+	 *
+	 * @param aSession
+	 *            Dedicated session
+	 * @param aOp
+	 *            {@link EPPPollCmd#OP_REQ} or {@link EPPPollCmd#OP_ACK}
+	 * @param aMsgId
+	 *            Message identifier of {@link EPPPollCmd#OP_ACK}
+	 *
+	 * @return Future of the response
+	 *
+	 * @throws InvalidateSessionException
+	 *             Error sending the command
+	 */
+	private CompletableFuture<EPPResponse> sendPoll(EPPSession aSession,
+			String aOp, String aMsgId) throws InvalidateSessionException {
+		aSession.setTransId(this.transIdGenerator.genClientTransId());
+		aSession.setPollOp(aOp);
+		aSession.setMsgID(aMsgId);
+
+		try {
+			return aSession.sendPollAsync();
+		}
+		catch (EPPCommandException ex) {
+			throw new InvalidateSessionException(aSession,
+					"Error sending poll command", ex);
+		}
+	}
+
+	/**
+	 * Waits for the response of a poll command.
+	 *
+	 * @param aSession
+	 *            Dedicated session
+	 * @param aFuture
+	 *            Future of the response
+	 *
+	 * @return Response of the poll command
+	 *
+	 * @throws InvalidateSessionException
+	 *             Error without a response or response indicating that the
+	 *             session should be closed
+	 * @throws EPPCommandException
+	 *             Error response from the server
+	 * @throws InterruptedException
+	 *             Interrupted waiting for the response
+	 */
+	private EPPResponse waitForResponse(EPPSession aSession,
+			CompletableFuture<EPPResponse> aFuture)
+			throws InvalidateSessionException, EPPCommandException,
+			InterruptedException {
+		try {
+			return aFuture.get();
+		}
+		catch (ExecutionException ex) {
+			if (ex.getCause() instanceof EPPCommandException) {
+				EPPCommandException theCause = (EPPCommandException) ex
+						.getCause();
+
+				// Server specified error?
+				if (theCause.hasResponse()) {
+					if (theCause.getResponse().getResult()
+							.shouldCloseSession()) {
+						throw new InvalidateSessionException(aSession,
+								"Server response indicates that the session should be closed",
+								theCause);
+					}
+
+					throw theCause;
+				}
+			}
+
+			throw new InvalidateSessionException(aSession,
+					"General exception that could be a session issue",
+					ex.getCause());
+		}
+	}
+
+	/**
+	 * Returns or invalidates the dedicated session of a system.
+	 *
+	 * @param aSystem
+	 *            System of the session
+	 * @param aSession
+	 *            Dedicated session
+	 * @param aInvalidate
+	 *            Invalidate the session instead of returning it?
+	 */
+	private void releaseSession(String aSystem, EPPSession aSession,
+			boolean aInvalidate) {
+		if (aSession.getMode() == EPPSession.MODE_PIPELINED) {
+			aSession.setMode(EPPSession.MODE_SYNC);
+		}
+
+		try {
+			if (aInvalidate) {
+				this.pool.invalidateObject(aSystem, aSession);
+			}
+			else {
+				this.pool.returnObject(aSystem, aSession);
+			}
+		}
+		catch (EPPSessionPoolException ex) {
+			log.error("releaseSession(" + aSystem
+					+ "): Error releasing session: " + ex);
+		}
+	}
+
+	/**
+	 * Gets the number of calls to {@link #pollNow()}.
+	 *
+	 * @return Number of calls to {@link #pollNow()}
+	 */
+	private long getWakeups() {
+		this.lock.lock();
+		try {
+			return this.wakeups;
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits for the polling interval, {@link #pollNow()}, or
+	 * {@link #stop(long)}.
+	 *
+	 * @param aWakeups
+	 *            Number of calls to {@link #pollNow()} before polling
+	 * @param aInterval
+	 *            Polling interval in milliseconds
+	 *
+	 * @throws InterruptedException
+	 *             Interrupted while waiting
+	 */
+	private void await(long aWakeups, long aInterval)
+			throws InterruptedException {
+		long theRemaining = TimeUnit.MILLISECONDS.toNanos(aInterval);
+
+		this.lock.lock();
+		try {
+			while (this.running && this.wakeups == aWakeups
+					&& theRemaining > 0) {
+				theRemaining = this.wakeup.awaitNanos(theRemaining);
+			}
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Dispatch loop that passes the queued messages to the handlers.
+	 */
+	private void dispatch() {
+		while (true) {
+			Message theMessage;
+			try {
+				theMessage = this.queue.take();
+			}
+			catch (InterruptedException ex) {
+				return;
+			}
+
+			if (theMessage == STOP) {
+				return;
+			}
+
+			try {
+				this.dispatch(theMessage.system, theMessage.response);
+			}
+			finally {
+				theMessage.dispatched.countDown();
+			}
+		}
+	}
+
+	/**
+	 * Passes a message to its handler.
+	 *
+	 * @param aSystem
+	 *            System that the message was polled from
+	 * @param aMessage
+	 *            Poll message
+	 */
+	void dispatch(String aSystem, EPPResponse aMessage) {
+		Handler theHandler = this.getHandler(aMessage.getClass());
+
+		if (theHandler == null) {
+			log.warn("dispatch(" + aSystem + "): No handler for "
+					+ aMessage.getClass().getName() + ", message "
+					+ aMessage.getMsgQueue().getId() + " dropped");
+			return;
+		}
+
+		try {
+			theHandler.handle(aSystem, aMessage);
+			this.dispatchedCount.incrementAndGet();
+		}
+		catch (RuntimeException ex) {
+			log.error("dispatch(" + aSystem + "): Handler error on message "
+					+ aMessage.getMsgQueue().getId() + ": " + ex, ex);
+			this.errorCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Gets the last message queue count of a system.
+	 *
+	 * @param aSystem
+	 *            System
+	 *
+	 * @return Number of messages in the poll queue of the system when last
+	 *         polled; <code>null</code> if not polled yet.
+	 */
+	public Long getQueueCount(String aSystem) {
+		return this.queueCounts.get(aSystem);
+	}
+
+	/**
+	 * Gets the last message queue counts of the systems.
+	 *
+	 * @return Unmodifiable map of the message queue counts by system
+	 */
+	public Map<String, Long> getQueueCounts() {
+		return Collections.unmodifiableMap(this.queueCounts);
+	}
+
+	/**
+	 * Gets the number of messages that were drained.
+	 *
+	 * @return Number of drained messages
+	 */
+	public long getDrainedCount() {
+		return this.drainedCount.get();
+	}
+
+	/**
+	 * Gets the number of messages that were dispatched to a handler.
+	 *
+	 * @return Number of dispatched messages
+	 */
+	public long getDispatchedCount() {
+		return this.dispatchedCount.get();
+	}
+
+	/**
+	 * Gets the number of poll errors and handler errors.
+	 *
+	 * @return Number of errors
+	 */
+	public long getErrorCount() {
+		return this.errorCount.get();
+	}
+
+	/**
+	 * Is the drainer running?
+	 *
+	 * @return <code>true</code> if started and not stopped;
+	 *         <code>false</code> otherwise.
+	 */
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	/**
+	 * Gets the size of the message queue.
+	 *
+	 * @return Maximum number of messages waiting to be dispatched
+	 */
+	public int getQueueSize() {
+		return this.queueSize;
+	}
+
+	/**
+	 * Sets the size of the message queue, which is used by the next
+	 * {@link #start()}.
+	 *
+	 * @param aQueueSize
+	 *            Maximum number of messages waiting to be dispatched
+	 */
+	public void setQueueSize(int aQueueSize) {
+		if (aQueueSize < 1) {
+			throw new IllegalArgumentException("Queue size must be positive");
+		}
+		this.queueSize = aQueueSize;
+	}
+
+	/**
+	 * Gets the minimum interval between polls of a system.
+	 *
+	 * @return Minimum interval in milliseconds
+	 */
+	public long getMinInterval() {
+		return this.minInterval;
+	}
+
+	/**
+	 * Sets the minimum interval between polls of a system, which is used
+	 * after messages are drained.
+	 *
+	 * @param aMinInterval
+	 *            Minimum interval in milliseconds
+	 */
+	public void setMinInterval(long aMinInterval) {
+		if (aMinInterval < 1) {
+			throw new IllegalArgumentException(
+					"Minimum interval must be positive");
+		}
+		this.minInterval = aMinInterval;
+	}
+
+	/**
+	 * Gets the maximum interval between polls of a system.
+	 *
+	 * @return Maximum interval in milliseconds
+	 */
+	public long getMaxInterval() {
+		return this.maxInterval;
+	}
+
+	/**
+	 * Sets the maximum interval between polls of a system, which is reached
+	 * when the poll queue stays empty.
+	 *
+	 * @param aMaxInterval
+	 *            Maximum interval in milliseconds
+	 */
+	public void setMaxInterval(long aMaxInterval) {
+		this.maxInterval = aMaxInterval;
+	}
+
+	/**
+	 * Gets the maximum age of a dedicated session.
+	 *
+	 * @return Maximum age in milliseconds
+	 */
+	public long getMaxSessionAge() {
+		return this.maxSessionAge;
+	}
+
+	/**
+	 * Sets the maximum age of a dedicated session, after which it is
+	 * returned to the pool and another session is borrowed.
+	 *
+	 * @param aMaxSessionAge
+	 *            Maximum age in milliseconds
+	 */
+	public void setMaxSessionAge(long aMaxSessionAge) {
+		this.maxSessionAge = aMaxSessionAge;
+	}
+
+	/**
+	 * Are the poll commands of the dedicated sessions pipelined?
+	 *
+	 * @return <code>true</code> if the sessions are set to
+	 *         {@link EPPSession#MODE_PIPELINED}; <code>false</code>
+	 *         otherwise.
+	 */
+	public boolean isPipelined() {
+		return this.pipelined;
+	}
+
+	/**
+	 * Sets whether the poll commands of the dedicated sessions are
+	 * pipelined, which is <code>true</code> by default.
+	 *
+	 * @param aPipelined
+	 *            Set the sessions to {@link EPPSession#MODE_PIPELINED}?
+	 */
+	public void setPipelined(boolean aPipelined) {
+		this.pipelined = aPipelined;
+	}
+
+	/**
+	 * Sets the client transaction identifier generator of the poll
+	 * commands.
+	 *
+	 * @param aTransIdGenerator
+	 *            Client transaction identifier generator
+	 */
+	public void setTransIdGenerator(EPPClientTransIdGenerator aTransIdGenerator) {
+		this.transIdGenerator = aTransIdGenerator;
+	}
+
+}
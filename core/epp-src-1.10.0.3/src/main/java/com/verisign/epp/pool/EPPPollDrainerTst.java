@@ -0,0 +1,196 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.pool;
+
+//----------------------------------------------
+//
+// imports...
+//
+//----------------------------------------------
+
+// Java Core Imports
+import java.util.ArrayList;
+import java.util.List;
+
+// JUNIT Imports
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import com.verisign.epp.codec.gen.EPPMsgQueue;
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.codec.lowbalancepoll.EPPLowBalancePollResponse;
+import com.verisign.epp.codec.rgppoll.EPPRgpPollResponse;
+
+/**
+ * Is a unit test of <code>EPPPollDrainer</code>. The tests dispatch
+ * messages directly, so they verify the handler selection of the drainer
+ * without an EPP server.
+ */
+public class EPPPollDrainerTst extends TestCase {
+
+	/**
+	 * Number of unit test iterations to run. This is set with the
+	 * <code>iterations</code> system property.
+	 */
+	static private long numIterations = 1;
+
+	/**
+	 * Handler that records the messages it handles.
+	 */
+	static class RecordingHandler implements EPPPollDrainer.Handler {
+
+		/** Handled messages */
+		final List<EPPResponse> messages = new ArrayList<EPPResponse>();
+
+		/**
+		 * Records the message.
+		 *
+		 * @param aSystem
+		 *            System that the message was polled from
+		 * @param aMessage
+		 *            Poll message
+		 */
+		public void handle(String aSystem, EPPResponse aMessage) {
+			this.messages.add(aMessage);
+		}
+	}
+
+	/**
+	 * Allocates a new instance of <code>EPPPollDrainerTst</code>.
+	 *
+	 * @param name
+	 *            Name of test
+	 */
+	public EPPPollDrainerTst(String name) {
+		super(name);
+	}
+
+	/**
+	 * Sets the message queue of a poll message.
+	 *
+	 * @param aMessage
+	 *            Poll message
+	 * @param aId
+	 *            Message identifier
+	 *
+	 * @return <code>aMessage</code>
+	 */
+	private static EPPResponse setMsgQueue(EPPResponse aMessage, String aId) {
+		aMessage.setMsgQueue(new EPPMsgQueue(Long.valueOf(1), aId));
+		return aMessage;
+	}
+
+	/**
+	 * Verifies that a message is dispatched to the handler of its class, to
+	 * the handler of the nearest super class without one, and is dropped
+	 * without a handler or when the handler fails.
+	 */
+	public void testDispatch() {
+		EPPPollDrainer theDrainer = new EPPPollDrainer(new EPPSessionPool(),
+				new String[] { EPPSessionPool.DEFAULT });
+
+		RecordingHandler theLowBalance = new RecordingHandler();
+		RecordingHandler theDefault = new RecordingHandler();
+
+		for (int i = 0; i < numIterations; i++) {
+			theLowBalance.messages.clear();
+			theDefault.messages.clear();
+			theDrainer.removeHandler(EPPResponse.class);
+			theDrainer.addHandler(EPPLowBalancePollResponse.class,
+					theLowBalance);
+
+			// No handler for the RGP message
+			theDrainer.dispatch(EPPSessionPool.DEFAULT, setMsgQueue(
+					new EPPRgpPollResponse(), "1"));
+
+			theDrainer.addHandler(EPPResponse.class, theDefault);
+
+			EPPResponse theMessage = setMsgQueue(
+					new EPPLowBalancePollResponse(), "2");
+			theDrainer.dispatch(EPPSessionPool.DEFAULT, theMessage);
+			theDrainer.dispatch(EPPSessionPool.DEFAULT, setMsgQueue(
+					new EPPRgpPollResponse(), "3"));
+
+			Assert.assertEquals(1, theLowBalance.messages.size());
+			Assert.assertSame(theMessage, theLowBalance.messages.get(0));
+			Assert.assertEquals(1, theDefault.messages.size());
+			Assert.assertTrue(theDefault.messages.get(0) instanceof EPPRgpPollResponse);
+		}
+
+		Assert.assertEquals(2 * numIterations, theDrainer.getDispatchedCount());
+
+		// Handler errors are counted
+		theDrainer.addHandler(EPPRgpPollResponse.class,
+				new EPPPollDrainer.Handler() {
+
+					public void handle(String aSystem, EPPResponse aMessage) {
+						throw new IllegalStateException("Handler failure");
+					}
+				});
+		theDrainer.dispatch(EPPSessionPool.DEFAULT, setMsgQueue(
+				new EPPRgpPollResponse(), "4"));
+		Assert.assertEquals(1, theDrainer.getErrorCount());
+		Assert.assertEquals(2 * numIterations, theDrainer.getDispatchedCount());
+	}
+
+	/**
+	 * JUNIT <code>suite</code> static method, which returns the tests
+	 * associated with <code>EPPPollDrainerTst</code>.
+	 *
+	 * @return Test suite
+	 */
+	public static Test suite() {
+		TestSuite suite = new TestSuite(EPPPollDrainerTst.class);
+
+		String numIterProp = System.getProperty("iterations");
+		if (numIterProp != null) {
+			numIterations = Integer.parseInt(numIterProp);
+		}
+
+		return suite;
+	}
+
+	/**
+	 * Unit test main, which accepts the following system property options:
+	 * <br>
+	 * <ul>
+	 * <li>iterations Number of unit test iterations to run</li>
+	 * </ul>
+	 *
+	 * @param args
+	 *            Command line arguments
+	 */
+	public static void main(String args[]) {
+		junit.textui.TestRunner.run(suite());
+	}
+
+	/**
+	 * Sets the number of iterations to run per test.
+	 *
+	 * @param aNumIterations
+	 *            number of iterations to run per test
+	 */
+	public static void setNumIterations(long aNumIterations) {
+		numIterations = aNumIterations;
+	}
+
+}
@@ -46,9 +46,9 @@ public class EPPPooledGenericSession extends EPPSession implements EPPPooledSess
 	private long createdTime = System.currentTimeMillis();
 	
 	/**
-	 * Last time session was used or a keep alive was sent
+	 * Last time the session was explicitly touched
 	 */
-	private long lastTouched = System.currentTimeMillis();
+	private volatile long lastTouched = System.currentTimeMillis();
 		
 	/**
 	 * Default constructor for <code>EPPPooledGenericSession</code>.
@@ -127,12 +127,14 @@ public class EPPPooledGenericSession extends EPPSession implements EPPPooledSess
 	}
 	
 	/**
-	 * Gets the last time the pooled object was touched.
+	 * Gets the last time the pooled object was touched, which is the later 
+	 * of the last {@link #touch()} and the last command or hello sent with 
+	 * the session. 
 	 * 
 	 * @return Epoch time of touch
 	 */
 	public long getLastTouched() {
-		return lastTouched;
+		return Math.max(this.lastTouched, this.getLastUsedTime());
 	}
 	
 	/**
@@ -0,0 +1,251 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.pool;
+
+import java.util.Collections;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import com.verisign.epp.interfaces.EPPSession;
+import com.verisign.epp.util.EPPExecutors;
+
+/**
+ * Limits the number of borrowed sessions of a pool to <code>maxActive</code>
+ * with a fair <code>Semaphore</code>. <code>GenericObjectPool</code> waits
+ * for an available session with <code>Object.wait()</code> inside a
+ * <code>synchronized</code> method, which pins the carrier thread of a
+ * virtual thread for the full <code>maxWait</code>. Waiting on the gate
+ * before calling the pool means that the pool is only called when a session
+ * is available, so threads waiting for a session are parked without holding
+ * a monitor. <br>
+ * <br>
+ * The gate keeps track of the sessions it has handed out, so returning or
+ * invalidating a session that was not borrowed through the gate does not
+ * release a permit. <br>
+ * <br>
+ * A permit can also be acquired without blocking a thread with
+ * {@link #acquireAsync()}, which queues a waiter that is granted a released
+ * permit by the thread that releases it. Queued waiters take a released
+ * permit ahead of the threads blocked in {@link #acquire()}.
+ */
+class EPPSessionBorrowGate {
+
+	/**
+	 * Permits for the sessions that can be borrowed.
+	 */
+	private final Semaphore permits;
+
+	/**
+	 * Sessions currently borrowed through the gate.
+	 */
+	private final Set<EPPSession> borrowed = Collections
+			.newSetFromMap(new ConcurrentHashMap<EPPSession, Boolean>());
+
+	/**
+	 * Waiters of {@link #acquireAsync()} in arrival order.
+	 */
+	private final Queue<CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<CompletableFuture<Void>>();
+
+	/**
+	 * Maximum time in milliseconds to wait for a permit, where a value less
+	 * than or equal to <code>0</code> waits indefinitely like
+	 * <code>GenericObjectPool</code>.
+	 */
+	private final long maxWait;
+
+	/**
+	 * Creates a gate for a pool with the <code>maxActive</code> and
+	 * <code>maxWait</code> settings of the pool.
+	 *
+	 * @param aMaxActive
+	 *            Maximum number of borrowed sessions, which must be greater
+	 *            than <code>0</code>
+	 * @param aMaxWait
+	 *            Maximum time in milliseconds to wait for a session
+	 */
+	EPPSessionBorrowGate(int aMaxActive, long aMaxWait) {
+		this.permits = new Semaphore(aMaxActive, true);
+		this.maxWait = aMaxWait;
+	}
+
+	/**
+	 * Waits for a permit to borrow a session from the pool.
+	 *
+	 * @throws EPPSessionPoolException
+	 *             Timeout or interrupt waiting for the permit
+	 */
+	void acquire() throws EPPSessionPoolException {
+		try {
+			if (this.maxWait <= 0) {
+				this.permits.acquire();
+			}
+			else if (!this.permits.tryAcquire(this.maxWait,
+					TimeUnit.MILLISECONDS)) {
+				throw new EPPSessionPoolException(
+						"Timeout waiting for idle session after "
+								+ this.maxWait + " ms");
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new EPPSessionPoolException(
+					"Interrupted waiting for idle session");
+		}
+	}
+
+	/**
+	 * Acquires a permit to borrow a session without blocking. The returned
+	 * future is completed when a permit is acquired, either immediately or
+	 * by the thread that releases the next permit, so dependent actions
+	 * should not block. The future is completed exceptionally with an
+	 * <code>EPPSessionPoolException</code> if no permit is acquired within
+	 * <code>maxWait</code>. A permit granted to a future that has been
+	 * cancelled is released again.
+	 *
+	 * @return Future completed when the permit is acquired
+	 */
+	CompletableFuture<Void> acquireAsync() {
+		final CompletableFuture<Void> theWaiter = new CompletableFuture<Void>();
+
+		if (this.waiters.isEmpty() && this.permits.tryAcquire()) {
+			theWaiter.complete(null);
+			return theWaiter;
+		}
+
+		this.waiters.add(theWaiter);
+
+		if (this.maxWait > 0) {
+			final ScheduledFuture<?> theTimeout = Timer.instance.schedule(
+					new Runnable() {
+
+						public void run() {
+							waiters.remove(theWaiter);
+							theWaiter
+									.completeExceptionally(new EPPSessionPoolException(
+											"Timeout waiting for idle session after "
+													+ maxWait + " ms"));
+						}
+					}, this.maxWait, TimeUnit.MILLISECONDS);
+
+			theWaiter.whenComplete(new BiConsumer<Void, Throwable>() {
+
+				public void accept(Void aResult, Throwable aError) {
+					theTimeout.cancel(false);
+				}
+			});
+		}
+
+		// A permit may have been released before the waiter was queued
+		this.grant();
+
+		return theWaiter;
+	}
+
+	/**
+	 * Grants the available permits to the queued waiters of
+	 * {@link #acquireAsync()}.
+	 */
+	private void grant() {
+		while (!this.waiters.isEmpty() && this.permits.tryAcquire()) {
+			CompletableFuture<Void> theWaiter = this.waiters.poll();
+
+			// Release the permit if there is no waiter or it is already done
+			if (theWaiter == null || !theWaiter.complete(null)) {
+				this.permits.release();
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of waiters of {@link #acquireAsync()}.
+	 *
+	 * @return Number of queued waiters
+	 */
+	int getNumAsyncWaiting() {
+		return this.waiters.size();
+	}
+
+	/**
+	 * Records a session borrowed with a permit from {@link #acquire()} or
+	 * {@link #acquireAsync()}.
+	 *
+	 * @param aSession
+	 *            Borrowed session
+	 */
+	void borrowed(EPPSession aSession) {
+		this.borrowed.add(aSession);
+	}
+
+	/**
+	 * Releases a permit from {@link #acquire()} or {@link #acquireAsync()}
+	 * that was not used to borrow a session.
+	 */
+	void release() {
+		this.permits.release();
+		this.grant();
+	}
+
+	/**
+	 * Releases the permit of a session that is returned to or invalidated in
+	 * the pool.
+	 *
+	 * @param aSession
+	 *            Session returned to or invalidated in the pool
+	 */
+	void release(EPPSession aSession) {
+		if (this.borrowed.remove(aSession)) {
+			this.permits.release();
+			this.grant();
+		}
+	}
+
+	/**
+	 * Gets the number of threads waiting for a permit.
+	 *
+	 * @return Estimated number of waiting threads
+	 */
+	int getNumWaiting() {
+		return this.permits.getQueueLength();
+	}
+
+	/**
+	 * Holder of the timer of the {@link #acquireAsync()} timeouts, which is
+	 * created on first use.
+	 */
+	private static class Timer {
+
+		/** Timer shared by the gates */
+		static final ScheduledThreadPoolExecutor instance;
+
+		static {
+			instance = new ScheduledThreadPoolExecutor(1, EPPExecutors
+					.newThreadFactory("EPPSessionBorrowGate"));
+			instance.setRemoveOnCancelPolicy(true);
+		}
+	}
+}
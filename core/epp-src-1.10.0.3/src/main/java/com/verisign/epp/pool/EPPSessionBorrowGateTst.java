@@ -0,0 +1,191 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.pool;
+
+//----------------------------------------------
+//
+// imports...
+//
+//----------------------------------------------
+
+// Java Core Imports
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// JUNIT Imports
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Is a unit test of the asynchronous waiters of
+ * <code>EPPSessionBorrowGate</code>, which verifies the grant, timeout and
+ * cancel of the permits without sessions or an EPP server.
+ */
+public class EPPSessionBorrowGateTst extends TestCase {
+
+	/**
+	 * Number of unit test iterations to run. This is set with the
+	 * <code>iterations</code> system property.
+	 */
+	static private long numIterations = 1;
+
+	/**
+	 * Allocates a new instance of <code>EPPSessionBorrowGateTst</code>.
+	 *
+	 * @param name
+	 *            Name of test
+	 */
+	public EPPSessionBorrowGateTst(String name) {
+		super(name);
+	}
+
+	/**
+	 * Verifies that the waiters are completed immediately while permits are
+	 * available, and otherwise in arrival order as permits are released.
+	 */
+	public void testAcquireAsync() {
+		for (int i = 0; i < numIterations; i++) {
+			EPPSessionBorrowGate theGate = new EPPSessionBorrowGate(2, 0);
+
+			CompletableFuture<Void> theFirst = theGate.acquireAsync();
+			CompletableFuture<Void> theSecond = theGate.acquireAsync();
+			Assert.assertTrue(theFirst.isDone());
+			Assert.assertTrue(theSecond.isDone());
+
+			CompletableFuture<Void> theThird = theGate.acquireAsync();
+			CompletableFuture<Void> theFourth = theGate.acquireAsync();
+			Assert.assertFalse(theThird.isDone());
+			Assert.assertFalse(theFourth.isDone());
+			Assert.assertEquals(2, theGate.getNumAsyncWaiting());
+
+			theGate.release();
+			Assert.assertTrue(theThird.isDone());
+			Assert.assertFalse(theFourth.isDone());
+
+			theGate.release();
+			Assert.assertTrue(theFourth.isDone());
+			Assert.assertEquals(0, theGate.getNumAsyncWaiting());
+
+			// Blocking acquire waits for an asynchronous holder to release
+			theGate.release();
+			try {
+				theGate.acquire();
+			}
+			catch (EPPSessionPoolException ex) {
+				Assert.fail("testAcquireAsync(): Unexpected exception: " + ex);
+			}
+		}
+	}
+
+	/**
+	 * Verifies that a waiter is completed exceptionally after
+	 * <code>maxWait</code> and removed from the queue.
+	 *
+	 * @throws Exception
+	 *             Unexpected error
+	 */
+	public void testTimeout() throws Exception {
+		for (int i = 0; i < numIterations; i++) {
+			EPPSessionBorrowGate theGate = new EPPSessionBorrowGate(1, 100);
+			Assert.assertTrue(theGate.acquireAsync().isDone());
+
+			CompletableFuture<Void> theWaiter = theGate.acquireAsync();
+			try {
+				theWaiter.get(5, TimeUnit.SECONDS);
+				Assert.fail("testTimeout(): Expected timeout");
+			}
+			catch (ExecutionException ex) {
+				Assert.assertTrue(ex.getCause() instanceof EPPSessionPoolException);
+			}
+			Assert.assertEquals(0, theGate.getNumAsyncWaiting());
+
+			// The permit is still available for the next waiter
+			theGate.release();
+			Assert.assertTrue(theGate.acquireAsync().isDone());
+		}
+	}
+
+	/**
+	 * Verifies that a permit released to a cancelled waiter is granted to the
+	 * next waiter.
+	 */
+	public void testCancel() {
+		for (int i = 0; i < numIterations; i++) {
+			EPPSessionBorrowGate theGate = new EPPSessionBorrowGate(1, 0);
+			Assert.assertTrue(theGate.acquireAsync().isDone());
+
+			CompletableFuture<Void> theCancelled = theGate.acquireAsync();
+			CompletableFuture<Void> theWaiter = theGate.acquireAsync();
+			theCancelled.cancel(false);
+
+			theGate.release();
+			Assert.assertTrue(theWaiter.isDone());
+			Assert.assertFalse(theWaiter.isCompletedExceptionally());
+
+			// No permit was leaked to the cancelled waiter
+			Assert.assertFalse(theGate.acquireAsync().isDone());
+		}
+	}
+
+	/**
+	 * JUNIT <code>suite</code> static method, which returns the tests
+	 * associated with <code>EPPSessionBorrowGateTst</code>.
+	 *
+	 * @return Test suite
+	 */
+	public static Test suite() {
+		TestSuite suite = new TestSuite(EPPSessionBorrowGateTst.class);
+
+		String numIterProp = System.getProperty("iterations");
+		if (numIterProp != null) {
+			numIterations = Integer.parseInt(numIterProp);
+		}
+
+		return suite;
+	}
+
+	/**
+	 * Unit test main, which accepts the following system property options:
+	 * <br>
+	 * <ul>
+	 * <li>iterations Number of unit test iterations to run</li>
+	 * </ul>
+	 *
+	 * @param args
+	 *            Command line arguments
+	 */
+	public static void main(String args[]) {
+		junit.textui.TestRunner.run(suite());
+	}
+
+	/**
+	 * Sets the number of iterations to run per test.
+	 *
+	 * @param aNumIterations
+	 *            number of iterations to run per test
+	 */
+	public static void setNumIterations(long aNumIterations) {
+		numIterations = aNumIterations;
+	}
+
+}
@@ -0,0 +1,700 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.pool;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.pool.impl.GenericObjectPool;
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.interfaces.EPPSession;
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPExecutors;
+
+/**
+ * Keeps the idle sessions of a pool alive and refreshes them before the
+ * absolute timeout, in place of the keep alives that the pool evictor sends
+ * from {@link EPPSessionPoolableFactory#validateObject(Object)}. The evictor
+ * tests every idle session serially while holding the pool lock, and the
+ * last touched time only changed when a session was validated or returned,
+ * so sessions that were just used got a hello while borrowers waited. <br>
+ * <br>
+ * The keep alive scans the sessions created by the factory every
+ * <code>interval</code> milliseconds, and based on the last time that a
+ * command was sent with {@link EPPSession#processDocument(
+ * com.verisign.epp.codec.gen.EPPCommand, Class)}:<br>
+ * <br>
+ * <ul>
+ * <li>Sends a hello to the idle sessions that would pass the idle timeout
+ * before the next scan. The hellos are sent in parallel by up to
+ * <code>maxThreads</code> threads, outside of the pool lock. A borrower never
+ * waits for a hello in flight: the activation of the session fails, so the
+ * pool moves on to the next idle session or creates a new one, and the
+ * session is added back to the pool once the hello completes.
+ * <li>Refreshes the idle sessions that will pass the absolute timeout
+ * within two scans. A new session is logged in first, and only then the old
+ * session is removed from the pool and the new session added, so borrowers
+ * don't wait for a login.
+ * </ul>
+ * <br>
+ * The factory delegates the session state tracking to the keep alive with
+ * {@link EPPSessionPoolableFactory#setKeepAlive(EPPSessionKeepAlive)}, and
+ * the session logouts are also run asynchronously by the keep alive threads.
+ */
+public class EPPSessionKeepAlive implements Runnable {
+
+	/** Log4j category for logging */
+	private static Logger log = Logger.getLogger(EPPSessionKeepAlive.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/**
+	 * Session is in the idle list of the pool.
+	 */
+	private static final int STATE_IDLE = 0;
+
+	/**
+	 * Session is borrowed from the pool.
+	 */
+	private static final int STATE_ACTIVE = 1;
+
+	/**
+	 * Session is sending a hello and can't be borrowed until it completes.
+	 */
+	private static final int STATE_KEEP_ALIVE = 2;
+
+	/**
+	 * Session was replaced or failed a hello and must be removed from the
+	 * pool.
+	 */
+	private static final int STATE_RETIRED = 3;
+
+	/**
+	 * Maximum time in milliseconds to wait for the pending logouts when
+	 * stopping.
+	 */
+	private static final long STOP_TIMEOUT = 10000;
+
+	/**
+	 * State of a session that is guarded by its own monitor.
+	 */
+	private static class SessionState {
+
+		/** One of the <code>STATE</code> constants */
+		int state = STATE_ACTIVE;
+
+		/** A hello or refresh task is scheduled for the session? */
+		boolean scheduled = false;
+
+		/**
+		 * The pool dropped the session while its hello was in flight, so it
+		 * must be added back to the pool when the hello completes.
+		 */
+		boolean detached = false;
+	}
+
+	/**
+	 * Name used for the threads and in the log messages.
+	 */
+	private final String name;
+
+	/**
+	 * Pool of the sessions.
+	 */
+	private final GenericObjectPool pool;
+
+	/**
+	 * Factory of the sessions, which provides the timeouts.
+	 */
+	private final EPPSessionPoolableFactory factory;
+
+	/**
+	 * Time in milliseconds between scans of the sessions.
+	 */
+	private final long interval;
+
+	/**
+	 * Maximum number of threads sending hellos, logins, and logouts.
+	 */
+	private final int maxThreads;
+
+	/**
+	 * State of the sessions created by the factory.
+	 */
+	private final Map<EPPSession, SessionState> sessions = new ConcurrentHashMap<EPPSession, SessionState>();
+
+	/**
+	 * Logged in sessions to return from the next
+	 * {@link EPPSessionPoolableFactory#makeObject()}.
+	 */
+	private final ConcurrentLinkedQueue<EPPSession> spares = new ConcurrentLinkedQueue<EPPSession>();
+
+	/**
+	 * Scheduler of the scans.
+	 */
+	private ScheduledExecutorService scheduler = null;
+
+	/**
+	 * Executor of the hellos, logins, and logouts.
+	 */
+	private volatile ExecutorService executor = null;
+
+	/**
+	 * Creates a keep alive for the sessions of <code>aPool</code>, which must
+	 * be created with <code>aFactory</code>. {@link #start()} must be called
+	 * to start scanning the sessions.
+	 *
+	 * @param aName
+	 *            Name of the pool used for the threads and in the log messages
+	 * @param aPool
+	 *            Pool of the sessions
+	 * @param aFactory
+	 *            Factory of the sessions
+	 * @param aInterval
+	 *            Time in milliseconds between scans of the sessions
+	 * @param aMaxThreads
+	 *            Maximum number of threads sending hellos, logins, and logouts
+	 */
+	public EPPSessionKeepAlive(String aName, GenericObjectPool aPool,
+			EPPSessionPoolableFactory aFactory, long aInterval, int aMaxThreads) {
+		this.name = aName;
+		this.pool = aPool;
+		this.factory = aFactory;
+		this.interval = aInterval;
+		this.maxThreads = aMaxThreads;
+	}
+
+	/**
+	 * Starts scanning the sessions every <code>interval</code> milliseconds.
+	 */
+	public synchronized void start() {
+		if (this.scheduler != null) {
+			return;
+		}
+
+		log.info("start(" + this.name + "): interval = " + this.interval
+				+ " ms, max threads = " + this.maxThreads);
+
+		this.executor = EPPExecutors.newExecutor("EPPSessionKeepAlive-"
+				+ this.name, this.maxThreads, Integer.MAX_VALUE);
+		this.scheduler = Executors
+				.newSingleThreadScheduledExecutor(EPPExecutors
+						.newThreadFactory("EPPSessionKeepAliveScan-"
+								+ this.name));
+		this.scheduler.scheduleWithFixedDelay(this, this.interval,
+				this.interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops scanning the sessions and waits for the pending logouts. The
+	 * spare sessions that were not added to the pool are logged out.
+	 */
+	public synchronized void stop() {
+		if (this.scheduler == null) {
+			return;
+		}
+
+		log.info("stop(" + this.name + "): stopping");
+
+		this.scheduler.shutdownNow();
+		this.scheduler = null;
+
+		EPPSession theSpare;
+		while ((theSpare = this.spares.poll()) != null) {
+			this.endSession(theSpare);
+		}
+
+		this.executor.shutdown();
+		try {
+			if (!this.executor.awaitTermination(STOP_TIMEOUT,
+					TimeUnit.MILLISECONDS)) {
+				log.error("stop(" + this.name
+						+ "): Timed out waiting for the pending logouts");
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		this.executor = null;
+
+		log.info("stop(" + this.name + "): stopped");
+	}
+
+	/**
+	 * Scans the sessions, which is called by the scheduler every
+	 * <code>interval</code> milliseconds.
+	 */
+	public void run() {
+		try {
+			long theNow = System.currentTimeMillis();
+			long theRefreshTime = this.factory.getAbsoluteTimeout() - 2
+					* this.interval;
+
+			Iterator<Map.Entry<EPPSession, SessionState>> theIter = this.sessions
+					.entrySet().iterator();
+			while (theIter.hasNext()) {
+				Map.Entry<EPPSession, SessionState> theEntry = theIter.next();
+				EPPSession theSession = theEntry.getKey();
+				EPPPooledSession thePooledSession = (EPPPooledSession) theSession;
+				SessionState theState = theEntry.getValue();
+
+				boolean theRefresh;
+
+				// Past refresh time?
+				if (theRefreshTime > 0
+						&& theNow - thePooledSession.getCreatedTime() >= theRefreshTime) {
+					theRefresh = true;
+				} // Near idle timeout?
+				else if (theNow - thePooledSession.getLastTouched()
+						+ this.interval >= this.factory.getIdleTimeout()) {
+					theRefresh = false;
+				}
+				else {
+					continue;
+				}
+
+				synchronized (theState) {
+					if (theState.state != STATE_IDLE || theState.scheduled) {
+						continue;
+					}
+					theState.scheduled = true;
+				}
+
+				this.schedule(theSession, theState, theRefresh);
+			}
+		}
+		catch (RuntimeException ex) {
+			log.error("run(" + this.name + "): Exception scanning sessions: "
+					+ ex, ex);
+		}
+	}
+
+	/**
+	 * Schedules a hello or a refresh of an idle session.
+	 *
+	 * @param aSession
+	 *            Idle session
+	 * @param aState
+	 *            State of <code>aSession</code>
+	 * @param aRefresh
+	 *            <code>true</code> to refresh the session; <code>false</code>
+	 *            to send a hello
+	 */
+	private void schedule(final EPPSession aSession,
+			final SessionState aState, final boolean aRefresh) {
+		Runnable theTask = new Runnable() {
+
+			public void run() {
+				try {
+					if (aRefresh) {
+						refresh(aSession, aState);
+					}
+					else {
+						hello(aSession, aState);
+					}
+				}
+				finally {
+					synchronized (aState) {
+						aState.scheduled = false;
+					}
+				}
+			}
+		};
+
+		if (!this.execute(theTask)) {
+			synchronized (aState) {
+				aState.scheduled = false;
+			}
+		}
+	}
+
+	/**
+	 * Sends a hello with an idle session if it is still idle and near the
+	 * idle timeout. The session is retired if the hello fails.
+	 *
+	 * @param aSession
+	 *            Idle session
+	 * @param aState
+	 *            State of <code>aSession</code>
+	 */
+	private void hello(EPPSession aSession, SessionState aState) {
+		synchronized (aState) {
+			if (aState.state != STATE_IDLE) {
+				return;
+			}
+
+			// Used since the scan?
+			if (System.currentTimeMillis()
+					- ((EPPPooledSession) aSession).getLastTouched()
+					+ this.interval < this.factory.getIdleTimeout()) {
+				return;
+			}
+
+			aState.state = STATE_KEEP_ALIVE;
+		}
+
+		int theNewState = STATE_IDLE;
+		boolean theDetached;
+
+		try {
+			log.debug("hello(" + this.name + "): session id = " + aSession
+					+ " is near idle timeout, sending hello");
+			aSession.hello();
+			((EPPPooledSession) aSession).touch();
+		}
+		catch (Exception ex) {
+			log.error("hello(" + this.name + "): session id = " + aSession
+					+ " failed hello, retiring session: " + ex);
+			theNewState = STATE_RETIRED;
+		}
+		finally {
+			synchronized (aState) {
+				aState.state = theNewState;
+				theDetached = aState.detached;
+			}
+		}
+
+		// Dropped by the pool while the hello was in flight?
+		if (theDetached) {
+			this.reattach(aSession, theNewState == STATE_IDLE);
+		}
+	}
+
+	/**
+	 * Adds a session that the pool dropped while its hello was in flight
+	 * back to the pool, or logs it out if the hello failed.
+	 *
+	 * @param aSession
+	 *            Session dropped by the pool
+	 * @param aValid
+	 *            Did the hello succeed?
+	 */
+	private void reattach(EPPSession aSession, boolean aValid) {
+		try {
+			// The pool drops the session while holding its lock, so the
+			// session is no longer tracked as detached once the lock is held,
+			// and no other borrower can take the spare in between
+			synchronized (this.pool) {
+				this.sessions.remove(aSession);
+
+				if (aValid) {
+					this.spares.offer(aSession);
+					this.pool.addObject();
+
+					log.debug("reattach(" + this.name + "): session id = "
+							+ aSession + " added back to the pool");
+					return;
+				}
+			}
+		}
+		catch (Exception ex) {
+			log.error("reattach(" + this.name
+					+ "): Exception adding session back to the pool: " + ex);
+			if (!this.spares.remove(aSession)) {
+				// The pool took the session and destroys it
+				return;
+			}
+		}
+
+		this.endSession(aSession);
+	}
+
+	/**
+	 * Replaces an idle session that is near the absolute timeout with a new
+	 * session. The new session is logged in before the old session is
+	 * retired, and the old session is only replaced if it is still idle.
+	 *
+	 * @param aSession
+	 *            Idle session
+	 * @param aState
+	 *            State of <code>aSession</code>
+	 */
+	private void refresh(EPPSession aSession, SessionState aState) {
+		log.debug("refresh(" + this.name + "): session id = " + aSession
+				+ " is near absolute timeout, logging in new session");
+
+		EPPSession theNewSession;
+		try {
+			theNewSession = this.factory.createSession();
+		}
+		catch (Exception ex) {
+			log.error("refresh(" + this.name
+					+ "): Exception logging in new session: " + ex);
+			return;
+		}
+
+		// Retire the old session if it is still idle
+		synchronized (aState) {
+			if (aState.state != STATE_IDLE) {
+				log.debug("refresh(" + this.name + "): session id = "
+						+ aSession + " was borrowed, discarding new session");
+				this.endSession(theNewSession);
+				return;
+			}
+			aState.state = STATE_RETIRED;
+		}
+
+		try {
+			// Evict the retired session and add the new session without
+			// another borrower taking the spare in between
+			synchronized (this.pool) {
+				this.pool.evict();
+				this.spares.offer(theNewSession);
+				this.pool.addObject();
+			}
+
+			log.debug("refresh(" + this.name + "): session id = " + aSession
+					+ " replaced by session id = " + theNewSession);
+		}
+		catch (Exception ex) {
+			log.error("refresh(" + this.name
+					+ "): Exception replacing session: " + ex);
+		}
+	}
+
+	/**
+	 * Registers a session created by the factory, which is borrowed until it
+	 * is passivated.
+	 *
+	 * @param aSession
+	 *            New session
+	 */
+	void register(EPPSession aSession) {
+		this.sessions.put(aSession, new SessionState());
+	}
+
+	/**
+	 * Unregisters a session that is destroyed by the factory.
+	 *
+	 * @param aSession
+	 *            Destroyed session
+	 */
+	void unregister(EPPSession aSession) {
+		SessionState theState = this.sessions.remove(aSession);
+
+		if (theState != null) {
+			synchronized (theState) {
+				theState.state = STATE_RETIRED;
+			}
+		}
+	}
+
+	/**
+	 * Is the session detached from the pool by {@link #activate(EPPSession)}
+	 * while its hello is in flight? The factory does not destroy a detached
+	 * session, since the keep alive adds it back to the pool or logs it out
+	 * when the hello completes.
+	 *
+	 * @param aSession
+	 *            Session being destroyed by the pool
+	 *
+	 * @return <code>true</code> if the session is detached;
+	 *         <code>false</code> otherwise.
+	 */
+	boolean isDetached(EPPSession aSession) {
+		SessionState theState = this.sessions.get(aSession);
+
+		if (theState == null) {
+			return false;
+		}
+
+		synchronized (theState) {
+			return theState.detached;
+		}
+	}
+
+	/**
+	 * Takes a spare logged in session.
+	 *
+	 * @return Spare session if available; <code>null</code> otherwise.
+	 */
+	EPPSession takeSpare() {
+		return this.spares.poll();
+	}
+
+	/**
+	 * Marks a session as borrowed, which is called when the pool activates
+	 * the session while holding the pool lock, so it never waits. A session
+	 * with a hello in flight is detached and fails the activation, so the
+	 * pool drops it and moves on to the next idle session or creates a new
+	 * one. The keep alive adds the detached session back to the pool when
+	 * the hello completes.
+	 *
+	 * @param aSession
+	 *            Session being activated
+	 *
+	 * @throws EPPSessionPoolException
+	 *             The session is retired or has a hello in flight, and must
+	 *             be dropped by the pool
+	 */
+	void activate(EPPSession aSession) throws EPPSessionPoolException {
+		SessionState theState = this.sessions.get(aSession);
+
+		if (theState == null) {
+			return;
+		}
+
+		synchronized (theState) {
+			if (theState.state == STATE_KEEP_ALIVE) {
+				theState.detached = true;
+				throw new EPPSessionPoolException("Session " + aSession
+						+ " is sending a hello");
+			}
+
+			if (theState.state == STATE_RETIRED) {
+				throw new EPPSessionPoolException("Session " + aSession
+						+ " is retired");
+			}
+
+			theState.state = STATE_ACTIVE;
+		}
+	}
+
+	/**
+	 * Marks a session as idle, which is called when the pool passivates the
+	 * session.
+	 *
+	 * @param aSession
+	 *            Session being passivated
+	 *
+	 * @throws EPPSessionPoolException
+	 *             The session is retired and must be removed from the pool
+	 */
+	void passivate(EPPSession aSession) throws EPPSessionPoolException {
+		SessionState theState = this.sessions.get(aSession);
+
+		if (theState == null) {
+			return;
+		}
+
+		synchronized (theState) {
+			if (theState.state == STATE_RETIRED) {
+				throw new EPPSessionPoolException("Session " + aSession
+						+ " is retired");
+			}
+
+			theState.state = STATE_IDLE;
+		}
+	}
+
+	/**
+	 * Is a session retired?
+	 *
+	 * @param aSession
+	 *            Session to check
+	 *
+	 * @return <code>true</code> if the session is retired;
+	 *         <code>false</code> otherwise.
+	 */
+	boolean isRetired(EPPSession aSession) {
+		SessionState theState = this.sessions.get(aSession);
+
+		if (theState == null) {
+			return false;
+		}
+
+		synchronized (theState) {
+			return theState.state == STATE_RETIRED;
+		}
+	}
+
+	/**
+	 * Runs a task with the keep alive threads.
+	 *
+	 * @param aTask
+	 *            Task to run
+	 *
+	 * @return <code>true</code> if the task was submitted;
+	 *         <code>false</code> if the keep alive is stopped.
+	 */
+	boolean execute(Runnable aTask) {
+		ExecutorService theExecutor = this.executor;
+
+		if (theExecutor == null) {
+			return false;
+		}
+
+		try {
+			theExecutor.execute(aTask);
+			return true;
+		}
+		catch (RejectedExecutionException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Logs out a session asynchronously if the keep alive is running and
+	 * synchronously otherwise.
+	 *
+	 * @param aSession
+	 *            Session to log out
+	 */
+	private void endSession(final EPPSession aSession) {
+		Runnable theTask = new Runnable() {
+
+			public void run() {
+				factory.endSession(aSession);
+			}
+		};
+
+		if (!this.execute(theTask)) {
+			theTask.run();
+		}
+	}
+
+	/**
+	 * Gets the number of sessions that are tracked.
+	 *
+	 * @return Number of sessions created by the factory that are not
+	 *         destroyed
+	 */
+	public int getNumSessions() {
+		return this.sessions.size();
+	}
+
+	/**
+	 * Gets the sessions that are tracked.
+	 *
+	 * @return Sessions created by the factory that are not destroyed
+	 */
+	public Set<EPPSession> getSessions() {
+		return Collections.unmodifiableSet(this.sessions.keySet());
+	}
+
+	/**
+	 * Gets the time between scans of the sessions.
+	 *
+	 * @return Interval in milliseconds
+	 */
+	public long getInterval() {
+		return this.interval;
+	}
+
+}
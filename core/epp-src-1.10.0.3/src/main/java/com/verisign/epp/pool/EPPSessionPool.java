@@ -19,11 +19,20 @@ http://www.verisign.com/nds/naming/namestore/techdocs.html
 ***********************************************************/
 package com.verisign.epp.pool;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
 
 import org.apache.commons.pool.impl.GenericObjectPool;
 import org.apache.log4j.Logger;
@@ -32,6 +41,8 @@ import com.verisign.epp.interfaces.EPPSession;
 import com.verisign.epp.util.EPPCatFactory;
 import com.verisign.epp.util.EPPEnv;
 import com.verisign.epp.util.EPPEnvException;
+import com.verisign.epp.util.EPPMetricsManager;
+import com.verisign.epp.util.EPPStartup;
 import com.verisign.epp.util.EnvException;
 import com.verisign.epp.util.Environment;
 
@@ -60,6 +71,9 @@ import com.verisign.epp.util.Environment;
  * <li>EPP.SessionPool.initMaxActive - (optional) Boolean value indicating if 
  * the <code>maxActive</code> sessions should be pre-initialized at 
  * initialization in the {@link #init()} method.  Default is <code>false</code>.   
+ * <li>EPP.SessionPool.initParallelism - (optional) Maximum number of sessions 
+ * logged in at the same time when pre-initializing the <code>maxActive</code> 
+ * sessions.  A value of <code>1</code> logs in the sessions one at a time.  Default is 10.
  * <li>EPP.SessionPool.maxWait - (optional) Maximum time in milliseconds for a 
  * client to block waiting for a pooled session.  Default is 60 seconds.
  * <li>EPP.SessionPool.minIdle - (optional) Minimum number of idle sessions 
@@ -69,6 +83,14 @@ import com.verisign.epp.util.Environment;
  * 60 seconds.  
  * <li>EPP.SessionPool.borrowRetries - (optional) Number of retries to get/create a session
  * when calling {@link #borrowObject()}.  Default is <code>0</code>.  
+ * <li>EPP.SessionPool.keepAliveInterval - (optional) Frequency in milliseconds 
+ * of scanning the sessions for the {@link EPPSessionKeepAlive}, which sends the 
+ * keep alive messages only to sessions that are idle and refreshes sessions before the 
+ * absolute timeout.  A value of <code>0</code> sends the keep alive messages from the 
+ * pool evictor instead.  Default is 10 seconds.  
+ * <li>EPP.SessionPool.keepAliveMaxThreads - (optional) Maximum number of threads 
+ * used by the {@link EPPSessionKeepAlive} to send keep alive messages in parallel.  
+ * Default is 4.  
  * </ul>
  */
 public class EPPSessionPool  {
@@ -95,6 +117,16 @@ public class EPPSessionPool  {
      */
     public static final long DEFAULT_TIME_BETWEEN_EVICTION_RUNS_MILLIS = 1 * 60 * 1000; // Every 1 minute
 
+    /**
+     * The default time between scans of the sessions by the keep alive.
+     */
+    public static final long DEFAULT_KEEP_ALIVE_INTERVAL = 10 * 1000; // Every 10 seconds
+
+    /**
+     * The default maximum number of threads of the keep alive.
+     */
+    public static final int DEFAULT_KEEP_ALIVE_MAX_THREADS = 4;
+
     /**
      * The default cap on the number of "sleeping" instances in the pool.
      */
@@ -115,6 +147,11 @@ public class EPPSessionPool  {
 	 * Default for the <code>initMaxActive</code> property, which is <code>false</code>.
 	 */
 	private static final boolean DEFAULT_INIT_MAX_ACTIVE = false;
+
+	/**
+	 * Default for the <code>initParallelism</code> property, which is <code>10</code>.
+	 */
+	private static final int DEFAULT_INIT_PARALLELISM = 10;
     
 	/**
 	 * Default number of retries when attempting to get/create a session when calling 
@@ -142,6 +179,13 @@ public class EPPSessionPool  {
 	 */
 	private GenericObjectPool pool = null;
 	
+	/**
+	 * Gate that limits the borrowed sessions to <code>maxActive</code>
+	 * without waiting inside of <code>pool</code>.  <code>null</code> when 
+	 * <code>maxActive</code> is not positive.
+	 */
+	private EPPSessionBorrowGate gate = null;
+	
 	/**
 	 * System pools, where the system name is the key, 
 	 * and the system <code>GenericObjectPool</code> is the value.
@@ -171,6 +215,13 @@ public class EPPSessionPool  {
 	 */
 	private boolean initMaxActive = DEFAULT_INIT_MAX_ACTIVE;
 	
+	/**
+	 * Maximum number of sessions logged in at the same time when pre-initializing 
+	 * the <code>maxActive</code> sessions.  The default value is 
+	 * {@link DEFAULT_INIT_PARALLELISM}.
+	 */
+	private int initParallelism = DEFAULT_INIT_PARALLELISM;
+	
 	/**
 	 * Number of retries when attempting to get/create a session when calling 
 	 * {@link #borrowObject()}.  {@link #borrowObject()} will retry <code>borrowRetries</code> 
@@ -222,6 +273,23 @@ public class EPPSessionPool  {
 	 * host will be set to the loop back.
 	 */
 	private String clientHost = null;
+	
+	/**
+	 * Time in milliseconds between scans of the sessions by the keep alive.  
+	 * A value of <code>0</code> disables the keep alive, so the keep alive 
+	 * messages are sent by the pool evictor.
+	 */
+	private long keepAliveInterval = DEFAULT_KEEP_ALIVE_INTERVAL;
+	
+	/**
+	 * Maximum number of threads used by the keep alive.
+	 */
+	private int keepAliveMaxThreads = DEFAULT_KEEP_ALIVE_MAX_THREADS;
+	
+	/**
+	 * Keep alive of the pool sessions.  <code>null</code> when disabled.
+	 */
+	private EPPSessionKeepAlive keepAlive = null;
 
 
 	
@@ -250,6 +318,23 @@ public class EPPSessionPool  {
 	 */
 	public void init(EPPSessionPoolableFactory aFactory, GenericObjectPool.Config aConfig) {
 		this.pool = new GenericObjectPool(aFactory, aConfig);
+		aFactory.setPoolName(EPPSessionPool.DEFAULT);
+		EPPMetricsManager.getMetrics().registerPool(EPPSessionPool.DEFAULT,
+				new EPPSessionPoolGauge(this.pool));
+		if (aConfig.maxActive > 0) {
+			this.gate = new EPPSessionBorrowGate(aConfig.maxActive, aConfig.maxWait);
+		}
+		else {
+			this.gate = null;
+		}
+		
+		// Keep alive the sessions based on their use?
+		if (this.keepAliveInterval > 0) {
+			this.keepAlive = new EPPSessionKeepAlive(EPPSessionPool.DEFAULT, this.pool, 
+					aFactory, this.keepAliveInterval, this.keepAliveMaxThreads);
+			aFactory.setKeepAlive(this.keepAlive);
+			this.keepAlive.start();
+		}
 		
 	}
 
@@ -293,6 +378,14 @@ public class EPPSessionPool  {
 						.error("EPPSessionPool.close(): Exception closing default pool <"
 								+ this.pool + ">: " + ex);
 			}
+			
+			// Stop the keep alive once the idle sessions are logged out
+			if (this.keepAlive != null) {
+				this.keepAlive.stop();
+				this.keepAlive = null;
+			}
+			
+			EPPMetricsManager.getMetrics().unregisterPool(EPPSessionPool.DEFAULT);
 		}
 
 		// The system pools exist?
@@ -326,7 +419,11 @@ public class EPPSessionPool  {
 	/**
 	 * Initializes the system session pools given the value of the 
 	 * system pools property, which is a comma seperated list of 
-	 * system names. 
+	 * system names.  The system session pools are independent, so 
+	 * they are initialized in parallel with up to 
+	 * <code>EPP.StartupParallelism</code> threads, and each pool 
+	 * logs in its sessions with up to <code>initParallelism</code> 
+	 * threads. 
 	 * 
 	 * @param aPoolsProp Comma seperated list of system names
 	 * 
@@ -336,21 +433,61 @@ public class EPPSessionPool  {
 		log.debug("initSystemPools: enter, aPoolProp = " + aPoolsProp);
 		StringTokenizer thePools = new StringTokenizer(aPoolsProp, ",");
 		
+		long theStart = System.currentTimeMillis();
+		final Map<String, EPPSystemSessionPool> theSessionPools = 
+			new ConcurrentHashMap<String, EPPSystemSessionPool>();
+		List<Callable<Object>> theTasks = new ArrayList<Callable<Object>>();
+		
 		// For each system name
 		while (thePools.hasMoreTokens()) {
 			// Create system session pool and add to systemPools attribute
-			String theSystem = thePools.nextToken();
-			if (theSystem.equals(DEFAULT)) {
-				log.info("initSystemPools: Initializing the default pool");
-				this.initSinglePool();
-			}
-			else {	
-				log.info("initSystemPools: Initializing " + theSystem + " system pool");
-				EPPSystemSessionPool theSessionPool = new EPPSystemSessionPool(theSystem);
-				theSessionPool.init();
-				this.systemPools.put(theSystem, theSessionPool);
+			final String theSystem = thePools.nextToken();
+			
+			theTasks.add(new Callable<Object>() {
+				
+				public Object call() throws EPPSessionPoolException {
+					long theInitStart = System.currentTimeMillis();
+					
+					if (theSystem.equals(DEFAULT)) {
+						log.info("initSystemPools: Initializing the default pool");
+						initSinglePool();
+					}
+					else {	
+						log.info("initSystemPools: Initializing " + theSystem + " system pool");
+						EPPSystemSessionPool theSessionPool = new EPPSystemSessionPool(theSystem);
+						theSessionPool.init();
+						theSessionPools.put(theSystem, theSessionPool);
+					}
+					
+					log.info("initSystemPools: Initialized " + theSystem + " pool in " 
+							+ (System.currentTimeMillis() - theInitStart) + " ms");
+					return null;
+				}
+			});
+		}
+		
+		try {
+			EPPStartup.invokeAll("EPPSessionPool-init", theTasks, 
+					EPPEnv.getStartupParallelism());
+		}
+		catch (ExecutionException ex) {
+			if (ex.getCause() instanceof EPPSessionPoolException) {
+				throw (EPPSessionPoolException) ex.getCause();
 			}
+			throw new EPPSessionPoolException("Exception initializing pools: " 
+					+ ex.getCause());
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new EPPSessionPoolException("Interrupted initializing pools");
+		}
+		finally {
+			// Keep the initialized pools, so they are closed by close()
+			this.systemPools.putAll(theSessionPools);
 		}
+		
+		log.info("initSystemPools: Initialized " + theTasks.size() + " pools in " 
+				+ (System.currentTimeMillis() - theStart) + " ms");
 		log.debug("initSystemPools: exit");
 	}
 	
@@ -462,6 +599,14 @@ public class EPPSessionPool  {
 				this.initMaxActive = DEFAULT_INIT_MAX_ACTIVE;
 			log.info("initSinglePool(): init max active = " + this.initMaxActive);
 			
+			// initParallelism
+			theValue = this.getProperty("initParallelism");
+			if (theValue != null)
+				this.initParallelism = Integer.parseInt(theValue);
+			else
+				this.initParallelism = DEFAULT_INIT_PARALLELISM;
+			log.info("initSinglePool(): init parallelism = " + this.initParallelism);
+			
 	
 			// borrowRetries
 			theValue = this.getProperty("borrowRetries");
@@ -508,6 +653,22 @@ public class EPPSessionPool  {
 				this.config.timeBetweenEvictionRunsMillis = DEFAULT_TIME_BETWEEN_EVICTION_RUNS_MILLIS;
 			log.info("initSinglePool(): time between eviction runs = " + this.config.timeBetweenEvictionRunsMillis + " ms");
 			
+			// keepAliveInterval
+			theValue = this.getProperty("keepAliveInterval");
+			if (theValue != null)
+				this.keepAliveInterval = Long.parseLong(theValue);
+			else
+				this.keepAliveInterval = DEFAULT_KEEP_ALIVE_INTERVAL;
+			log.info("initSinglePool(): keep alive interval = " + this.keepAliveInterval + " ms");
+			
+			// keepAliveMaxThreads
+			theValue = this.getProperty("keepAliveMaxThreads");
+			if (theValue != null)
+				this.keepAliveMaxThreads = Integer.parseInt(theValue);
+			else
+				this.keepAliveMaxThreads = DEFAULT_KEEP_ALIVE_MAX_THREADS;
+			log.info("initSinglePool(): keep alive max threads = " + this.keepAliveMaxThreads);
+			
 			// whenExhaustedAction
 			this.config.whenExhaustedAction = GenericObjectPool.WHEN_EXHAUSTED_BLOCK;
 			
@@ -551,30 +712,43 @@ public class EPPSessionPool  {
 			log.info("initSinglePool(): Pre-initialize maxActive ("
 					+ this.config.maxActive + ") sessions");
 
-			EPPSession theSessions[] = new EPPSession[this.config.maxActive];
+			// Log in the sessions concurrently, since the pool logs them in 
+			// one at a time while holding its lock
+			try {
+				int theLoggedIn = this.factory.preLogin(this.config.maxActive, 
+						this.initParallelism);
+				log.info("initSinglePool(): Logged in " + theLoggedIn + " of "
+						+ this.config.maxActive + " sessions");
+
+				EPPSession theSessions[] = new EPPSession[this.config.maxActive];
 			
-			// Borrow maxActive sessions from pool
-			for (int i = 0; i < this.config.maxActive; i++) {
+				// Borrow maxActive sessions from pool
+				for (int i = 0; i < this.config.maxActive; i++) {
 
-				try {
-					theSessions[i] = this.borrowObject();
-					log.info("initSinglePool(): Pre-initialized session #"
-							+ (i + 1));
-				}
-				catch (EPPSessionPoolException ex) {
-					log.error("initSinglePool(): Failure to pre-initialize session #"
-									+ (i + 1) + ": " + ex);
+					try {
+						theSessions[i] = this.borrowObject();
+						log.info("initSinglePool(): Pre-initialized session #"
+								+ (i + 1));
+					}
+					catch (EPPSessionPoolException ex) {
+						log.error("initSinglePool(): Failure to pre-initialize session #"
+										+ (i + 1) + ": " + ex);
+					}
 				}
-			}
 			
-			// Return maxActive sessions back to pool
-			for (int i = 0; i < this.config.maxActive; i++) {
-				if (theSessions[i] != null) {
-					this.returnObject(theSessions[i]);					
-					theSessions[i] = null;
+				// Return maxActive sessions back to pool
+				for (int i = 0; i < this.config.maxActive; i++) {
+					if (theSessions[i] != null) {
+						this.returnObject(theSessions[i]);					
+						theSessions[i] = null;
+					}
 				}
 			}
-			
+			finally {
+				// Log out the logged in sessions that were not borrowed, also when
+				// the pre-initialization fails, so they are not handed out stale
+				this.factory.endPreLoggedIn();
+			}
 		}
 		
 		log.debug("initSinglePool: exit");
@@ -597,6 +771,33 @@ public class EPPSessionPool  {
 			throw new EPPSessionPoolException("EPPSessionPool: pool is null");
 		}
 		
+		long theStart = System.nanoTime();
+		
+		// Wait for an available session outside of the pool monitor 
+		if (this.gate != null) {
+			try {
+				this.gate.acquire();
+			}
+			catch (EPPSessionPoolException ex) {
+				log.error("borrowObject(): " + ex.getMessage());
+				throw new EPPSessionPoolException("EPPSessionPool: Exception " + ex);
+			}
+		}
+		
+		return this.borrowPermitted(theStart);
+	}
+	
+	/**
+	 * Borrows a session from the pool once the gate permit, if any, has been 
+	 * acquired.  The permit is released if the session can not be borrowed.
+	 * 
+	 * @param aStart <code>System.nanoTime()</code> of the start of the borrow 
+	 * 
+	 * @return Borrowed <code>EPPSession</code> instance.
+	 * 
+	 * @throws EPPSessionPoolException On error
+	 */
+	private EPPSession borrowPermitted(long aStart) throws EPPSessionPoolException {
 		EPPSession theSession = null;
 		
 		// Attempt to borrow session until successful or retries have exceeded.  
@@ -614,6 +815,10 @@ public class EPPSessionPool  {
 				// Number of retries exceeded?
 				if (retries >= this.borrowRetries) {
 					
+					if (this.gate != null) {
+						this.gate.release();
+					}
+					
 					// Throw exception to indicate borrow failure
 					log
 							.error("borrowObject(): Final exception on borrow session after "
@@ -632,9 +837,131 @@ public class EPPSessionPool  {
 			
 		}
 		
+		if (this.gate != null) {
+			this.gate.borrowed(theSession);
+		}
+		
+		EPPMetricsManager.getMetrics().recordPoolBorrow(EPPSessionPool.DEFAULT,
+				System.nanoTime() - aStart);
+		
 		return theSession;
 	}
 	
+	/**
+	 * Borrows a session from the pool without blocking the calling thread 
+	 * while waiting for an idle session.  The wait for the session is queued 
+	 * on the pool, and once a session is available it is borrowed by a task 
+	 * of <code>aExecutor</code>, since borrowing may create and login a new 
+	 * session.  The returned future is completed by the <code>aExecutor</code> 
+	 * task with the session, which must be returned by either calling 
+	 * {@link #invalidateObject(com.verisign.epp.interfaces.EPPSession)} or 
+	 * {@link #returnObject(com.verisign.epp.interfaces.EPPSession)}, or is 
+	 * completed exceptionally with an <code>EPPSessionPoolException</code> 
+	 * on error or after waiting <code>maxWait</code> time.  Cancelling the 
+	 * future before it is completed cancels the borrow.
+	 * 
+	 * @param aExecutor Executor of the borrow, like an executor for the 
+	 * blocking EPP calls made with the session 
+	 * 
+	 * @return Future of the borrowed <code>EPPSession</code> instance.
+	 */
+	public CompletableFuture<EPPSession> borrowObjectAsync(final Executor aExecutor) {
+		final CompletableFuture<EPPSession> theResult = new CompletableFuture<EPPSession>();
+		
+		if (this.pool == null) {
+			log.error("borrowObjectAsync(): pool is null");
+			theResult.completeExceptionally(new EPPSessionPoolException(
+					"EPPSessionPool: pool is null"));
+			return theResult;
+		}
+		
+		final long theStart = System.nanoTime();
+		
+		final CompletableFuture<Void> thePermit;
+		if (this.gate != null) {
+			thePermit = this.gate.acquireAsync();
+		}
+		else {
+			thePermit = CompletableFuture.completedFuture(null);
+		}
+		
+		// Stop waiting for the permit when the borrow is cancelled
+		theResult.whenComplete(new BiConsumer<EPPSession, Throwable>() {
+
+			public void accept(EPPSession aSession, Throwable aError) {
+				thePermit.cancel(false);
+			}
+		});
+		
+		thePermit.whenComplete(new BiConsumer<Void, Throwable>() {
+
+			public void accept(Void aVoid, Throwable aError) {
+				if (aError != null) {
+					if (!thePermit.isCancelled()) {
+						log.error("borrowObjectAsync(): " + aError.getMessage());
+					}
+					theResult.completeExceptionally(new EPPSessionPoolException(
+							"EPPSessionPool: Exception " + aError.getMessage()));
+					return;
+				}
+				
+				try {
+					aExecutor.execute(new Runnable() {
+
+						public void run() {
+							borrowAsync(theStart, theResult);
+						}
+					});
+				}
+				catch (RejectedExecutionException ex) {
+					if (gate != null) {
+						gate.release();
+					}
+					log.error("borrowObjectAsync(): Borrow rejected by executor: " + ex);
+					theResult.completeExceptionally(new EPPSessionPoolException(
+							"EPPSessionPool: Borrow rejected by executor"));
+				}
+			}
+		});
+		
+		return theResult;
+	}
+	
+	/**
+	 * Borrows a session with the acquired gate permit and completes the 
+	 * future of {@link #borrowObjectAsync(Executor)}.  The session is 
+	 * returned if the future has already been cancelled.
+	 * 
+	 * @param aStart <code>System.nanoTime()</code> of the start of the borrow 
+	 * @param aResult Future of the borrowed session
+	 */
+	private void borrowAsync(long aStart, CompletableFuture<EPPSession> aResult) {
+		if (aResult.isDone()) {
+			if (this.gate != null) {
+				this.gate.release();
+			}
+			return;
+		}
+		
+		EPPSession theSession;
+		try {
+			theSession = this.borrowPermitted(aStart);
+		}
+		catch (EPPSessionPoolException ex) {
+			aResult.completeExceptionally(ex);
+			return;
+		}
+		
+		if (!aResult.complete(theSession)) {
+			try {
+				this.returnObject(theSession);
+			}
+			catch (EPPSessionPoolException ex) {
+				log.error("borrowAsync(): Error returning session of cancelled borrow: " + ex);
+			}
+		}
+	}
+	
 	
 	
 	/**
@@ -701,6 +1028,11 @@ public class EPPSessionPool  {
 			log.error("invalidateObject(" + aSession + "): Caught Exception: " + ex);
 			throw new EPPSessionPoolException("EPPSessionPool: Exception " + ex);
 		}
+		finally {
+			if (this.gate != null) {
+				this.gate.release(aSession);
+			}
+		}
 	}
 
 	
@@ -766,9 +1098,6 @@ public class EPPSessionPool  {
 			throw new EPPSessionPoolException("EPPSessionPool: pool is null");
 		}
 		
-		// Touch on return
-		this.touchSession(aSession);
-		
 		try {
 			pool.returnObject(aSession);
 			log.debug("returnObject(" + aSession + "): Active = " + pool.getNumActive() + 
@@ -778,6 +1107,11 @@ public class EPPSessionPool  {
 			log.error("returnObject(" + aSession + "): Caught Exception: " + ex);
 			throw new EPPSessionPoolException("EPPSessionPool: Exception " + ex);
 		}
+		finally {
+			if (this.gate != null) {
+				this.gate.release(aSession);
+			}
+		}
 		
 	}
 	
@@ -808,9 +1142,6 @@ public class EPPSessionPool  {
 
 		EPPSystemSessionPool thePool = this.getSystemSessionPool(aSystem);
 
-		// Touch on return
-		this.touchSession(aSession);
-
 		try {
 			thePool.returnObject(aSession);
 			log
@@ -930,6 +1261,16 @@ public class EPPSessionPool  {
 		return factory;
 	}
 	
+	/**
+	 * Gets the keep alive of the pool sessions.
+	 * 
+	 * @return Keep alive if enabled with a positive <code>keepAliveInterval</code>;
+	 *         <code>null</code> otherwise.
+	 */
+	public EPPSessionKeepAlive getKeepAlive() {
+		return this.keepAlive;
+	}
+	
 	/**
 	 * Gets the session idle timeout.
 	 * 
@@ -1028,21 +1369,6 @@ public class EPPSessionPool  {
 		return Environment.getProperty(PROP_PREFIX + "." + aProperty);
 	}
 	
-	/**
-	 * Touches the session to ensure that an idle timeout does not occur.  
-	 * 
-	 * @param aSession Session to touch
-	 * @throws EPPSessionPoolException Invalid session passed
-	 */
-	private void touchSession(EPPSession aSession) throws EPPSessionPoolException {
-		if (!(aSession instanceof EPPPooledSession)) {
-			log.error("touchSession(" + aSession + "): Session class " + aSession.getClass().getName() + " does not implement EPPPooledSession");
-			throw new EPPSessionPoolException("EPPSessionPool: Session class " + aSession.getClass().getName() + " does not implement EPPPooledSession");			
-		}
-		
-		// Touch the session
-		((EPPPooledSession) aSession).touch();		
-	}
 	
 	
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.pool;
+
+import org.apache.commons.pool.impl.GenericObjectPool;
+
+import com.verisign.epp.util.EPPMetrics;
+
+/**
+ * Gauge of the number of active and idle sessions of a
+ * <code>GenericObjectPool</code>, which is registered with the
+ * <code>EPPMetrics</code> of the SDK by the session pools.
+ */
+class EPPSessionPoolGauge implements EPPMetrics.PoolGauge {
+
+	/** Pool of sessions */
+	private GenericObjectPool pool;
+
+	/**
+	 * Creates a gauge of a pool.
+	 * 
+	 * @param aPool
+	 *            Pool of sessions
+	 */
+	EPPSessionPoolGauge(GenericObjectPool aPool) {
+		this.pool = aPool;
+	}
+
+	public int getNumActive() {
+		return this.pool.getNumActive();
+	}
+
+	public int getNumIdle() {
+		return this.pool.getNumIdle();
+	}
+
+}
@@ -20,6 +20,10 @@ http://www.verisign.com/nds/naming/namestore/techdocs.html
 package com.verisign.epp.pool;
 
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
 import junit.framework.Assert;
 import junit.framework.Test;
 import junit.framework.TestCase;
@@ -27,6 +31,7 @@ import junit.framework.TestSuite;
 
 import org.apache.log4j.Logger;
 
+import com.verisign.epp.codec.domain.EPPDomainCheckResult;
 import com.verisign.epp.codec.gen.EPPResponse;
 import com.verisign.epp.interfaces.EPPApplicationSingle;
 import com.verisign.epp.interfaces.EPPCommandException;
@@ -269,7 +274,10 @@ public class EPPSessionPoolTst extends TestCase {
 	 * Test that the idle timeout is working by sleeping for 1 second past 
 	 * the idle timeout.  There a log message containing the text 
 	 * &qt;is past idle timeout, sending hello&qt; for each idle session 
-	 * in the pool in &qt;epp.log&qt;.  This test will only run if the 
+	 * in the pool in &qt;epp.log&qt;, or the text &qt;is near idle timeout, 
+	 * sending hello&qt; when the pool uses an <code>EPPSessionKeepAlive</code>, 
+	 * in which case it's also checked that no session was left idle past 
+	 * the idle timeout.  This test will only run if the 
 	 * idle timeout is lower than or equal to 10 seconds.  
 	 */
 	public void testIdleTimeout() {
@@ -289,11 +297,65 @@ public class EPPSessionPoolTst extends TestCase {
 				// Ignore
 			}
 			
-			System.out.println("testIdleTimeout: Look for epp.log messages containing text \"is past idle timeout, sending hello\"");
+			EPPSessionKeepAlive theKeepAlive = sessionPool.getKeepAlive();
+			
+			if (theKeepAlive == null) {
+				System.out.println("testIdleTimeout: Look for epp.log messages containing text \"is past idle timeout, sending hello\"");
+			}
+			else {
+				System.out.println("testIdleTimeout: Look for epp.log messages containing text \"is near idle timeout, sending hello\"");
+			}
+			
+			// Keep alive scans often enough to keep all sessions within the idle timeout?
+			if (theKeepAlive != null && theKeepAlive.getInterval() < sessionPool.getIdleTimeout()) {
+				long theNow = System.currentTimeMillis();
+				Iterator theSessions = theKeepAlive.getSessions().iterator();
+				while (theSessions.hasNext()) {
+					EPPPooledSession theSession = (EPPPooledSession) theSessions.next();
+					Assert.assertTrue("Session idle past idle timeout", 
+							theNow - theSession.getLastTouched() <= sessionPool.getIdleTimeout() + 1000);
+				}
+			}
 		}
 		
 		printEnd("testIdleTimeout");
 	}
+
+	
+	/**
+	 * Test checking a set of domain names with <code>EPPBulkDomainChecker</code>, 
+	 * which sends multiple domain check commands concurrently over the 
+	 * sessions of the pool.  A result is expected for each domain name.
+	 */
+	public void testBulkDomainCheck() {
+		printStart("testBulkDomainCheck");
+		
+		List<String> theDomains = new ArrayList<String>();
+		for (int i = 0; i < 23; i++) {
+			theDomains.add("bulk-check" + i + ".com");
+		}
+		
+		EPPBulkDomainChecker theChecker = new EPPBulkDomainChecker(sessionPool);
+		theChecker.setMaxConcurrent(3);
+		theChecker.setMaxChecksPerSecond(10);
+		
+		try {
+			List<EPPDomainCheckResult> theResults = theChecker.check(theDomains);
+			
+			System.out.println("testBulkDomainCheck: " + theResults.size() 
+					+ " results for " + theDomains.size() + " domains");
+			
+			Assert.assertEquals(theDomains.size(), theResults.size());
+		}
+		catch (EPPCommandException ex) {
+			Assert.fail("testBulkDomainCheck: Error checking domains: " + ex);
+		}
+		catch (InterruptedException ex) {
+			Assert.fail("testBulkDomainCheck: Interrupted: " + ex);
+		}
+		
+		printEnd("testBulkDomainCheck");
+	}
 	
 	
 	
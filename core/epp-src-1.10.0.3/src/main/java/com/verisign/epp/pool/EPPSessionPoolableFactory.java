@@ -19,6 +19,12 @@ http://www.verisign.com/nds/naming/namestore/techdocs.html
 ***********************************************************/
 package com.verisign.epp.pool;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+
 import org.apache.commons.pool.PoolableObjectFactory;
 import org.apache.log4j.Logger;
 
@@ -26,6 +32,8 @@ import com.verisign.epp.interfaces.EPPCommandException;
 import com.verisign.epp.interfaces.EPPSession;
 import com.verisign.epp.transport.client.EPPSSLContext;
 import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPMetricsManager;
+import com.verisign.epp.util.EPPStartup;
 
 public class EPPSessionPoolableFactory implements PoolableObjectFactory {
 
@@ -82,6 +90,24 @@ public class EPPSessionPoolableFactory implements PoolableObjectFactory {
 	 */
 	private EPPClientTransIdGenerator clientTransIdGenerator = null;
 
+	/**
+	 * Keep alive that sends the hellos and tracks the session states. When
+	 * <code>null</code>, the hellos are sent by {@link #validateObject(Object)}.
+	 */
+	private EPPSessionKeepAlive keepAlive = null;
+
+	/**
+	 * Name of the pool that the sessions are made for, which is used to
+	 * record the number of sessions made and destroyed.
+	 */
+	private String poolName = EPPSessionPool.DEFAULT;
+
+	/**
+	 * Sessions logged in concurrently by {@link #preLogin(int, int)} that are
+	 * handed out by {@link #makeObject()} before creating new sessions.
+	 */
+	private final ConcurrentLinkedQueue<EPPSession> preLoggedIn = new ConcurrentLinkedQueue<EPPSession>();
+
 	/**
 	 * Default constructor. Must set the following attributes for using:<br>
 	 * <br>
@@ -296,15 +322,67 @@ public class EPPSessionPoolableFactory implements PoolableObjectFactory {
 	}
 
 	/**
-	 * Session being borrowed from the pool.
+	 * Gets the keep alive of the sessions created by the factory.
+	 * 
+	 * @return Keep alive if set; <code>null</code> otherwise.
+	 */
+	public EPPSessionKeepAlive getKeepAlive() {
+		return this.keepAlive;
+	}
+
+	/**
+	 * Sets the keep alive of the sessions created by the factory. When set,
+	 * the keep alive sends the hellos to the idle sessions instead of
+	 * {@link #validateObject(Object)}, and the sessions are logged out
+	 * asynchronously when destroyed.
+	 * 
+	 * @param aKeepAlive
+	 *            Keep alive or <code>null</code> to send the hellos from
+	 *            {@link #validateObject(Object)}
+	 */
+	public void setKeepAlive(EPPSessionKeepAlive aKeepAlive) {
+		this.keepAlive = aKeepAlive;
+	}
+
+	/**
+	 * Gets the name of the pool that the sessions are made for.
+	 * 
+	 * @return Pool name with a default of <code>EPPSessionPool.DEFAULT</code>
+	 */
+	public String getPoolName() {
+		return this.poolName;
+	}
+
+	/**
+	 * Sets the name of the pool that the sessions are made for, which is used
+	 * to record the number of sessions made and destroyed with the
+	 * <code>EPPMetrics</code> of the SDK.
+	 * 
+	 * @param aPoolName
+	 *            Pool name
+	 */
+	public void setPoolName(String aPoolName) {
+		this.poolName = aPoolName;
+	}
+
+	/**
+	 * Session being borrowed from the pool. When a keep alive is set, this
+	 * fails without waiting if the session has a hello in flight, so the pool
+	 * moves on to another session.
 	 * 
 	 * @param aSession
 	 *            Session being returned
 	 * 
+	 * @throws Exception
+	 *             The session was retired by the keep alive or has a hello
+	 *             in flight
+	 * 
 	 * @see org.apache.commons.pool.PoolableObjectFactory#activateObject(java.lang.Object)
 	 */
 	public void activateObject(Object aSession) throws Exception {
-		// Nothing for now
+		if (this.keepAlive != null) {
+			this.keepAlive.activate((EPPSession) aSession);
+		}
 	}
 
 	/**
@@ -317,7 +395,42 @@ public class EPPSessionPoolableFactory implements PoolableObjectFactory {
 	 */
 	public void destroyObject(Object aSession) throws Exception {
 		log.debug("destroyObject(): enter, session id = " + aSession);
-		EPPSession theSession = (EPPSession) aSession;
+		final EPPSession theSession = (EPPSession) aSession;
+
+		EPPMetricsManager.getMetrics().recordPoolDestroy(this.poolName);
+
+		// Log out asynchronously with the keep alive threads?
+		if (this.keepAlive != null) {
+			// Added back to the pool by the keep alive after its hello?
+			if (this.keepAlive.isDetached(theSession)) {
+				log.debug("destroyObject(): session id = " + theSession
+						+ " is detached by the keep alive");
+				return;
+			}
+
+			this.keepAlive.unregister(theSession);
+
+			if (this.keepAlive.execute(new Runnable() {
+
+				public void run() {
+					endSession(theSession);
+				}
+			})) {
+				return;
+			}
+		}
+
+		this.endSession(theSession);
+	}
+
+	/**
+	 * Ends a session that is removed from the pool, ignoring any error.
+	 * 
+	 * @param aSession
+	 *            Session to end
+	 */
+	void endSession(EPPSession aSession) {
+		EPPSession theSession = aSession;
 
 		// Try to end the session gracefully
 		try {
@@ -327,7 +440,7 @@ public class EPPSessionPoolableFactory implements PoolableObjectFactory {
 						this.clientTransIdGenerator.genClientTransId());
 			}
 
-			log.debug("destroyObject(): enter, calling end session");
+			log.debug("endSession(): calling end session");
 			theSession.endSession();
 		}
 		catch (Exception ex) {
@@ -344,6 +457,43 @@ public class EPPSessionPoolableFactory implements PoolableObjectFactory {
 
 		log.debug("makeObject(): enter");
 
+		// Session logged in by preLogin?
+		EPPSession theSession = this.preLoggedIn.poll();
+
+		// Spare session logged in by the keep alive?
+		if (theSession == null && this.keepAlive != null) {
+			theSession = this.keepAlive.takeSpare();
+		}
+
+		if (theSession == null) {
+			theSession = this.createSession();
+		}
+		else {
+			log.debug("makeObject(): Using spare session with id = "
+					+ theSession);
+		}
+
+		if (this.keepAlive != null) {
+			this.keepAlive.register(theSession);
+		}
+
+		EPPMetricsManager.getMetrics().recordPoolMake(this.poolName);
+
+		log.debug("makeObject(): exit");
+		return theSession;
+	}
+
+	/**
+	 * Creates a new session and logs it in, without adding it to the pool.
+	 * This is used by {@link #makeObject()} and by the keep alive to log in
+	 * a replacement session outside of the pool lock.
+	 * 
+	 * @return Logged in session
+	 * 
+	 * @throws Exception
+	 *             Error creating or logging in the session
+	 */
+	EPPSession createSession() throws Exception {
 		EPPSession theSession = this.makeSession();
 
 		log.debug("makeObject(): Make session with id = " + theSession);
@@ -382,10 +532,98 @@ public class EPPSessionPoolableFactory implements PoolableObjectFactory {
 			throw ex;
 		}
 
-		log.debug("makeObject(): exit");
 		return theSession;
 	}
 
+	/**
+	 * Logs in sessions concurrently before they are borrowed from the pool,
+	 * since <code>GenericObjectPool</code> creates the sessions while holding
+	 * the pool lock, so borrowing the sessions concurrently would still log
+	 * them in one at a time. The logged in sessions are handed out by
+	 * {@link #makeObject()}, and the ones that are not should be logged out
+	 * with {@link #endPreLoggedIn()}. Sessions that fail to log in are only
+	 * logged, so that the pool creates them on borrow. When the login is
+	 * interrupted or a login task fails unexpectedly, the sessions already
+	 * logged in are logged out.
+	 * 
+	 * @param aCount
+	 *            Number of sessions to log in
+	 * @param aParallelism
+	 *            Maximum number of sessions logged in at the same time
+	 * 
+	 * @return Number of sessions logged in
+	 */
+	int preLogin(int aCount, int aParallelism) {
+		List<Callable<EPPSession>> theTasks = new ArrayList<Callable<EPPSession>>();
+
+		// Sessions logged in so far, which are logged out on failure
+		final ConcurrentLinkedQueue<EPPSession> theCreated = new ConcurrentLinkedQueue<EPPSession>();
+
+		for (int i = 0; i < aCount; i++) {
+			final int theNum = i + 1;
+
+			theTasks.add(new Callable<EPPSession>() {
+
+				public EPPSession call() {
+					try {
+						EPPSession theSession = createSession();
+						theCreated.offer(theSession);
+						return theSession;
+					}
+					catch (Exception ex) {
+						log.error("preLogin(): Failure to log in session #"
+								+ theNum + " of pool " + poolName + ": " + ex);
+						return null;
+					}
+				}
+			});
+		}
+
+		int theLoggedIn = 0;
+		try {
+			List<EPPSession> theSessions = EPPStartup.invokeAll(
+					"EPPSessionPool-" + this.poolName + "-login", theTasks,
+					aParallelism);
+
+			for (int i = 0; i < theSessions.size(); i++) {
+				if (theSessions.get(i) != null) {
+					this.preLoggedIn.offer(theSessions.get(i));
+					theLoggedIn++;
+				}
+			}
+			theCreated.clear();
+		}
+		catch (ExecutionException ex) {
+			log.error("preLogin(): Failure to log in sessions of pool "
+					+ this.poolName + ": " + ex.getCause());
+		}
+		catch (InterruptedException ex) {
+			log.error("preLogin(): Interrupted logging in sessions of pool "
+					+ this.poolName);
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			// Log out the sessions that were not handed to the pool
+			EPPSession theSession;
+			while ((theSession = theCreated.poll()) != null) {
+				this.endSession(theSession);
+			}
+		}
+
+		return theLoggedIn;
+	}
+
+	/**
+	 * Logs out the sessions logged in by {@link #preLogin(int, int)} that
+	 * were not handed out by {@link #makeObject()}.
+	 */
+	void endPreLoggedIn() {
+		EPPSession theSession;
+		while ((theSession = this.preLoggedIn.poll()) != null) {
+			this.endSession(theSession);
+		}
+	}
+
 	/**
 	 * Session is being returned to the pool.
 	 * 
@@ -395,12 +633,16 @@ public class EPPSessionPoolableFactory implements PoolableObjectFactory {
 	 * @see org.apache.commons.pool.PoolableObjectFactory#passivateObject(java.lang.Object)
 	 */
 	public void passivateObject(Object aSession) throws Exception {
-		// Nothing for now
+		if (this.keepAlive != null) {
+			this.keepAlive.passivate((EPPSession) aSession);
+		}
 	}
 
 	/**
 	 * Validates a session by sending a keep alive. If an exception occurs from
-	 * the keep alive, than the session is not valid.
+	 * the keep alive, than the session is not valid. When a keep alive is set,
+	 * no hello is sent and only the absolute timeout and whether the keep
+	 * alive retired the session are checked.
 	 * 
 	 * @see org.apache.commons.pool.PoolableObjectFactory#validateObject(java.lang.Object)
 	 * 
@@ -424,6 +666,9 @@ public class EPPSessionPoolableFactory implements PoolableObjectFactory {
 				log.debug("validateObject(): session id = " + aSession
 						+ " is past absolute timeout");
 				isValid = false;
+			} // Retired by keep alive?
+			else if (this.keepAlive != null) {
+				isValid = !this.keepAlive.isRetired(theSession);
 			} // Idle timeout?
 			else if (System.currentTimeMillis()
 					- thePooledSession.getLastTouched() > this
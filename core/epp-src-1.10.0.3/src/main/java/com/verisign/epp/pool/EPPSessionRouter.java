@@ -0,0 +1,760 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.pool;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.interfaces.EPPSession;
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.Environment;
+
+/**
+ * Routes domain and host names to the system session pools of an
+ * {@link EPPSessionPool}, so that a client of many registries doesn't need
+ * to know which system pool serves a name. A name is routed by the longest
+ * matching suffix of a route table, as in <code>co.uk</code> before
+ * <code>uk</code>, to one or more systems that serve the suffix, and names
+ * without a matching suffix are routed to the default route. <br>
+ * <br>
+ * When a route has more than one system, such as multiple endpoints of the
+ * same registry, the session is borrowed from the system with the least
+ * in-flight sessions, which are the sessions borrowed through the router and
+ * not yet returned. A system is degraded after
+ * {@link #getFailureThreshold()} consecutive failures, which are failed
+ * borrows and invalidated sessions, and is skipped for
+ * {@link #getDegradedInterval()} milliseconds. A failed borrow fails over to
+ * the next system of the route. Once the degraded interval elapses, the
+ * system is selected again and a single success clears the failures, while
+ * a single failure degrades it again. When every system of a route is
+ * degraded or has {@link #getMaxInFlight()} sessions in flight, the borrow
+ * fails immediately instead of blocking on the pool. <br>
+ * <br>
+ * The router is configured with the following properties: <br>
+ * <br>
+ * <ul>
+ * <li><code>EPP.SessionRouter.routes</code> - Comma separated list of the
+ * suffixes of the route table.</li>
+ * <li><code>EPP.SessionRouter.route.&lt;suffix&gt;</code> - Comma
+ * separated list of the systems of a suffix.</li>
+ * <li><code>EPP.SessionRouter.defaultRoute</code> - Comma separated list of
+ * the systems of names without a matching suffix, with no default route if
+ * not defined.</li>
+ * <li><code>EPP.SessionRouter.failureThreshold</code> - Consecutive
+ * failures that degrade a system, with a default of
+ * {@link #DEFAULT_FAILURE_THRESHOLD}.</li>
+ * <li><code>EPP.SessionRouter.degradedInterval</code> - Milliseconds that
+ * a degraded system is skipped, with a default of
+ * {@link #DEFAULT_DEGRADED_INTERVAL}.</li>
+ * <li><code>EPP.SessionRouter.maxInFlight</code> - Maximum sessions in
+ * flight per system, where <code>0</code> is unlimited, with a default of
+ * <code>0</code>.</li>
+ * </ul>
+ * <br>
+ * A session borrowed with {@link #borrowObject(String)} must be returned
+ * with {@link #returnObject(EPPSession)} or
+ * {@link #invalidateObject(EPPSession)} of the router, which return it to
+ * the system pool it was borrowed from.
+ */
+public class EPPSessionRouter {
+
+	/**
+	 * Default number of consecutive failures that degrade a system.
+	 */
+	public static final int DEFAULT_FAILURE_THRESHOLD = 3;
+
+	/**
+	 * Default time in milliseconds that a degraded system is skipped.
+	 */
+	public static final long DEFAULT_DEGRADED_INTERVAL = 30 * 1000;
+
+	/**
+	 * Prefix of the router properties.
+	 */
+	private final static String PROP_PREFIX = "EPP.SessionRouter";
+
+	/** Log4j category for logging */
+	private static Logger log = Logger.getLogger(EPPSessionRouter.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/**
+	 * Router of the <code>EPPSessionPool</code> singleton.
+	 */
+	private static EPPSessionRouter instance = new EPPSessionRouter(
+			EPPSessionPool.getInstance());
+
+	/**
+	 * State of a system session pool shared by the routes.
+	 */
+	static class Target {
+
+		/** System session pool name */
+		final String system;
+
+		/** Sessions borrowed through the router and not yet returned */
+		final AtomicInteger inFlight = new AtomicInteger();
+
+		/** Consecutive failures */
+		final AtomicInteger failures = new AtomicInteger();
+
+		/** Time in milliseconds until the system is degraded */
+		volatile long degradedUntil = 0;
+
+		/**
+		 * Creates the state of a system.
+		 *
+		 * @param aSystem
+		 *            System session pool name
+		 */
+		Target(String aSystem) {
+			this.system = aSystem;
+		}
+	}
+
+	/**
+	 * Session pool to borrow the sessions from.
+	 */
+	private final EPPSessionPool pool;
+
+	/**
+	 * Systems by lower case suffix, which is replaced when a route is added.
+	 */
+	private volatile Map<String, Target[]> routes = new HashMap<String, Target[]>();
+
+	/**
+	 * Systems of the names without a matching suffix, or <code>null</code>
+	 * if there is no default route.
+	 */
+	private volatile Target[] defaultRoute = null;
+
+	/**
+	 * State of each system by system name.
+	 */
+	private final Map<String, Target> targets = new ConcurrentHashMap<String, Target>();
+
+	/**
+	 * System of each session borrowed through the router.
+	 */
+	private final Map<EPPSession, Target> borrowed = new ConcurrentHashMap<EPPSession, Target>();
+
+	/**
+	 * Rotates the first system considered, so that systems with the same
+	 * number of sessions in flight share the load.
+	 */
+	private final AtomicInteger rotation = new AtomicInteger();
+
+	/**
+	 * Number of consecutive failures that degrade a system.
+	 */
+	private volatile int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+
+	/**
+	 * Time in milliseconds that a degraded system is skipped.
+	 */
+	private volatile long degradedInterval = DEFAULT_DEGRADED_INTERVAL;
+
+	/**
+	 * Maximum sessions in flight per system, where <code>0</code> is
+	 * unlimited.
+	 */
+	private volatile int maxInFlight = 0;
+
+	/**
+	 * Creates a router with an empty route table that borrows the sessions
+	 * from <code>aPool</code>.
+	 *
+	 * @param aPool
+	 *            Session pool with the system session pools of the routes
+	 */
+	public EPPSessionRouter(EPPSessionPool aPool) {
+		this.pool = aPool;
+	}
+
+	/**
+	 * Gets the router of the <code>EPPSessionPool</code> singleton. Ensure
+	 * that {@link #init()} is called at least once.
+	 *
+	 * @return Router of the <code>EPPSessionPool</code> singleton
+	 */
+	public static EPPSessionRouter getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Initializes the route table and settings from the
+	 * <code>EPP.SessionRouter</code> properties. The systems of the routes
+	 * must be system pools of the <code>EPPSessionPool</code>.
+	 *
+	 * @throws EPPSessionPoolException
+	 *             Invalid property value or a route to an undefined system
+	 *             pool
+	 */
+	public void init() throws EPPSessionPoolException {
+		String theValue;
+
+		try {
+			theValue = this.getProperty("failureThreshold");
+			if (theValue != null) {
+				this.setFailureThreshold(Integer.parseInt(theValue));
+			}
+			log.info("init(): failure threshold = " + this.failureThreshold);
+
+			theValue = this.getProperty("degradedInterval");
+			if (theValue != null) {
+				this.setDegradedInterval(Long.parseLong(theValue));
+			}
+			log.info("init(): degraded interval = " + this.degradedInterval
+					+ " ms");
+
+			theValue = this.getProperty("maxInFlight");
+			if (theValue != null) {
+				this.setMaxInFlight(Integer.parseInt(theValue));
+			}
+			log.info("init(): max in flight = " + this.maxInFlight);
+		}
+		catch (NumberFormatException ex) {
+			log.error("init(): Invalid number property: " + ex);
+			throw new EPPSessionPoolException("Invalid number property: " + ex);
+		}
+
+		theValue = this.getProperty("routes");
+		if (theValue != null) {
+			StringTokenizer theSuffixes = new StringTokenizer(theValue, ", ");
+			while (theSuffixes.hasMoreTokens()) {
+				String theSuffix = theSuffixes.nextToken();
+				String theSystems = this.getProperty("route." + theSuffix);
+				if (theSystems == null) {
+					log.error("init(): " + PROP_PREFIX + ".route." + theSuffix
+							+ " not defined");
+					throw new EPPSessionPoolException(PROP_PREFIX + ".route."
+							+ theSuffix + " not defined");
+				}
+
+				this.addRoute(theSuffix, this.initSystems(theSystems));
+				log.info("init(): route " + theSuffix + " = " + theSystems);
+			}
+		}
+
+		theValue = this.getProperty("defaultRoute");
+		if (theValue != null) {
+			this.setDefaultRoute(this.initSystems(theValue));
+			log.info("init(): default route = " + theValue);
+		}
+	}
+
+	/**
+	 * Parses a comma separated list of systems and verifies that the systems
+	 * are defined in the session pool.
+	 *
+	 * @param aSystems
+	 *            Comma separated list of systems
+	 *
+	 * @return Systems of the list
+	 *
+	 * @throws EPPSessionPoolException
+	 *             Undefined system pool or an empty list
+	 */
+	private String[] initSystems(String aSystems)
+			throws EPPSessionPoolException {
+		List<String> theSystems = new ArrayList<String>();
+
+		StringTokenizer theTokens = new StringTokenizer(aSystems, ", ");
+		while (theTokens.hasMoreTokens()) {
+			String theSystem = theTokens.nextToken();
+			if (!theSystem.equals(EPPSessionPool.DEFAULT)
+					&& !this.pool.hasSystemSessionPool(theSystem)) {
+				log.error("initSystems(): Could not find system pool "
+						+ theSystem);
+				throw new EPPSessionPoolException(
+						"Could not find system pool " + theSystem);
+			}
+			theSystems.add(theSystem);
+		}
+
+		if (theSystems.isEmpty()) {
+			throw new EPPSessionPoolException("Empty system list");
+		}
+
+		return theSystems.toArray(new String[theSystems.size()]);
+	}
+
+	/**
+	 * Adds or replaces the systems of a suffix of the route table.
+	 *
+	 * @param aSuffix
+	 *            Name suffix without a leading dot, as in <code>com</code>
+	 *            or <code>co.uk</code>
+	 * @param aSystems
+	 *            Systems that serve the suffix
+	 */
+	public synchronized void addRoute(String aSuffix, String[] aSystems) {
+		Map<String, Target[]> theRoutes = new HashMap<String, Target[]>(
+				this.routes);
+		theRoutes.put(normalize(aSuffix), this.getTargets(aSystems));
+		this.routes = theRoutes;
+	}
+
+	/**
+	 * Sets the systems of the names without a matching suffix.
+	 *
+	 * @param aSystems
+	 *            Systems of the default route, or <code>null</code> for no
+	 *            default route
+	 */
+	public synchronized void setDefaultRoute(String[] aSystems) {
+		this.defaultRoute = (aSystems == null ? null : this
+				.getTargets(aSystems));
+	}
+
+	/**
+	 * Gets the state of systems, which is created for a new system.
+	 *
+	 * @param aSystems
+	 *            System names
+	 *
+	 * @return State of the systems
+	 */
+	private Target[] getTargets(String[] aSystems) {
+		Target[] theTargets = new Target[aSystems.length];
+		for (int i = 0; i < aSystems.length; i++) {
+			Target theTarget = this.targets.get(aSystems[i]);
+			if (theTarget == null) {
+				theTarget = new Target(aSystems[i]);
+				this.targets.put(aSystems[i], theTarget);
+			}
+			theTargets[i] = theTarget;
+		}
+		return theTargets;
+	}
+
+	/**
+	 * Gets the systems that a name is routed to.
+	 *
+	 * @param aName
+	 *            Domain or host name
+	 *
+	 * @return Systems of the longest matching suffix or the default route
+	 *
+	 * @throws EPPSessionPoolException
+	 *             No route for the name
+	 */
+	public String[] getRoute(String aName) throws EPPSessionPoolException {
+		Target[] theTargets = this.findRoute(aName);
+		String[] theSystems = new String[theTargets.length];
+		for (int i = 0; i < theTargets.length; i++) {
+			theSystems[i] = theTargets[i].system;
+		}
+		return theSystems;
+	}
+
+	/**
+	 * Finds the route of a name by the longest matching suffix.
+	 *
+	 * @param aName
+	 *            Domain or host name
+	 *
+	 * @return Systems of the route
+	 *
+	 * @throws EPPSessionPoolException
+	 *             No route for the name
+	 */
+	Target[] findRoute(String aName) throws EPPSessionPoolException {
+		if (aName == null) {
+			throw new EPPSessionPoolException("name is null");
+		}
+
+		String theName = normalize(aName);
+		Map<String, Target[]> theRoutes = this.routes;
+
+		int theStart = 0;
+		while (theStart >= 0) {
+			Target[] theTargets = theRoutes.get(theName.substring(theStart));
+			if (theTargets != null) {
+				return theTargets;
+			}
+
+			theStart = theName.indexOf('.', theStart);
+			if (theStart >= 0) {
+				theStart++;
+			}
+		}
+
+		Target[] theDefault = this.defaultRoute;
+		if (theDefault == null) {
+			log.error("findRoute(" + aName + "): No route");
+			throw new EPPSessionPoolException("No route for " + aName);
+		}
+		return theDefault;
+	}
+
+	/**
+	 * Borrows a session for a name from the system of its route with the
+	 * least sessions in flight. If the borrow fails, the session is borrowed
+	 * from the next system of the route until all of the systems were tried.
+	 *
+	 * @param aName
+	 *            Domain or host name of the command to send
+	 *
+	 * @return Borrowed session that must be returned with
+	 *         {@link #returnObject(EPPSession)} or
+	 *         {@link #invalidateObject(EPPSession)}
+	 *
+	 * @throws EPPSessionPoolException
+	 *             No route for the name, no available system, or the
+	 *             borrow failed with all of the available systems
+	 */
+	public EPPSession borrowObject(String aName)
+			throws EPPSessionPoolException {
+		Target[] theRoute = this.findRoute(aName);
+		List<Target> theTried = new ArrayList<Target>(theRoute.length);
+		EPPSessionPoolException theLastException = null;
+
+		while (theTried.size() < theRoute.length) {
+			Target theTarget = this.selectTarget(theRoute, theTried);
+			if (theTarget == null) {
+				break;
+			}
+
+			try {
+				EPPSession theSession = this.pool
+						.borrowObject(theTarget.system);
+				this.borrowed.put(theSession, theTarget);
+				return theSession;
+			}
+			catch (EPPSessionPoolException ex) {
+				log.warn("borrowObject(" + aName + "): Borrow from system "
+						+ theTarget.system + " failed: " + ex);
+				this.release(theTarget, false);
+				theTried.add(theTarget);
+				theLastException = ex;
+			}
+			catch (RuntimeException ex) {
+				this.release(theTarget, false);
+				throw ex;
+			}
+		}
+
+		if (theLastException != null) {
+			throw theLastException;
+		}
+
+		log.warn("borrowObject(" + aName
+				+ "): All systems degraded or at max in flight");
+		throw new EPPSessionPoolException("No available system for " + aName);
+	}
+
+	/**
+	 * Returns a session borrowed with {@link #borrowObject(String)} to its
+	 * system pool, which clears the failures of the system.
+	 *
+	 * @param aSession
+	 *            Session to return
+	 *
+	 * @throws EPPSessionPoolException
+	 *             Session not borrowed through the router or error returning
+	 *             the session
+	 */
+	public void returnObject(EPPSession aSession)
+			throws EPPSessionPoolException {
+		Target theTarget = this.removeBorrowed(aSession);
+		try {
+			this.pool.returnObject(theTarget.system, aSession);
+		}
+		finally {
+			this.release(theTarget, true);
+		}
+	}
+
+	/**
+	 * Invalidates a session borrowed with {@link #borrowObject(String)} in
+	 * its system pool, which counts as a failure of the system.
+	 *
+	 * @param aSession
+	 *            Session that is invalid
+	 *
+	 * @throws EPPSessionPoolException
+	 *             Session not borrowed through the router or error
+	 *             invalidating the session
+	 */
+	public void invalidateObject(EPPSession aSession)
+			throws EPPSessionPoolException {
+		Target theTarget = this.removeBorrowed(aSession);
+		try {
+			this.pool.invalidateObject(theTarget.system, aSession);
+		}
+		finally {
+			this.release(theTarget, false);
+		}
+	}
+
+	/**
+	 * Gets the system that a session was borrowed from.
+	 *
+	 * @param aSession
+	 *            Session borrowed with {@link #borrowObject(String)}
+	 *
+	 * @return System of the session if borrowed through the router;
+	 *         <code>null</code> otherwise.
+	 */
+	public String getSystem(EPPSession aSession) {
+		Target theTarget = (aSession == null ? null : this.borrowed
+				.get(aSession));
+		return (theTarget == null ? null : theTarget.system);
+	}
+
+	/**
+	 * Removes a borrowed session.
+	 *
+	 * @param aSession
+	 *            Borrowed session
+	 *
+	 * @return System state of the session
+	 *
+	 * @throws EPPSessionPoolException
+	 *             Session not borrowed through the router
+	 */
+	private Target removeBorrowed(EPPSession aSession)
+			throws EPPSessionPoolException {
+		if (aSession == null) {
+			log.error("removeBorrowed(): session is null");
+			throw new EPPSessionPoolException("EPPSessionRouter: session is null");
+		}
+
+		Target theTarget = this.borrowed.remove(aSession);
+		if (theTarget == null) {
+			log.error("removeBorrowed(" + aSession
+					+ "): session not borrowed through the router");
+			throw new EPPSessionPoolException(
+					"EPPSessionRouter: session not borrowed through the router");
+		}
+		return theTarget;
+	}
+
+	/**
+	 * Selects the available system of a route with the least sessions in
+	 * flight and counts a session in flight for it. A system is available if
+	 * it is not degraded, is below {@link #getMaxInFlight()} and was not
+	 * already tried.
+	 *
+	 * @param aRoute
+	 *            Systems of the route
+	 * @param aTried
+	 *            Systems already tried
+	 *
+	 * @return Selected system if available; <code>null</code> otherwise.
+	 */
+	Target selectTarget(Target[] aRoute, List<Target> aTried) {
+		long theNow = System.currentTimeMillis();
+		int theStart = (this.rotation.getAndIncrement() & Integer.MAX_VALUE)
+				% aRoute.length;
+
+		while (true) {
+			Target theBest = null;
+			int theBestInFlight = Integer.MAX_VALUE;
+
+			for (int i = 0; i < aRoute.length; i++) {
+				Target theTarget = aRoute[(theStart + i) % aRoute.length];
+				if (aTried.contains(theTarget)
+						|| theTarget.degradedUntil > theNow) {
+					continue;
+				}
+
+				int theInFlight = theTarget.inFlight.get();
+				if (this.maxInFlight > 0 && theInFlight >= this.maxInFlight) {
+					continue;
+				}
+
+				if (theInFlight < theBestInFlight) {
+					theBest = theTarget;
+					theBestInFlight = theInFlight;
+				}
+			}
+
+			if (theBest == null) {
+				return null;
+			}
+
+			// Another thread took the slot?
+			if (theBest.inFlight.compareAndSet(theBestInFlight,
+					theBestInFlight + 1)) {
+				return theBest;
+			}
+		}
+	}
+
+	/**
+	 * Counts a session of a system as no longer in flight and updates the
+	 * failures of the system.
+	 *
+	 * @param aTarget
+	 *            System of the session
+	 * @param aSuccess
+	 *            <code>true</code> to clear the failures;
+	 *            <code>false</code> to count a failure.
+	 */
+	void release(Target aTarget, boolean aSuccess) {
+		aTarget.inFlight.decrementAndGet();
+
+		if (aSuccess) {
+			aTarget.failures.set(0);
+		}
+		else if (aTarget.failures.incrementAndGet() >= this.failureThreshold) {
+			aTarget.degradedUntil = System.currentTimeMillis()
+					+ this.degradedInterval;
+			log.warn("release(): System " + aTarget.system + " degraded for "
+					+ this.degradedInterval + " ms after "
+					+ aTarget.failures.get() + " failures");
+		}
+	}
+
+	/**
+	 * Gets the number of sessions of a system in flight.
+	 *
+	 * @param aSystem
+	 *            System name
+	 *
+	 * @return Sessions borrowed through the router and not yet returned
+	 */
+	public int getInFlight(String aSystem) {
+		Target theTarget = this.targets.get(aSystem);
+		return (theTarget == null ? 0 : theTarget.inFlight.get());
+	}
+
+	/**
+	 * Is a system degraded?
+	 *
+	 * @param aSystem
+	 *            System name
+	 *
+	 * @return <code>true</code> if the system is skipped because of
+	 *         failures; <code>false</code> otherwise.
+	 */
+	public boolean isDegraded(String aSystem) {
+		Target theTarget = this.targets.get(aSystem);
+		return (theTarget != null && theTarget.degradedUntil > System
+				.currentTimeMillis());
+	}
+
+	/**
+	 * Gets the number of consecutive failures that degrade a system.
+	 *
+	 * @return Number of consecutive failures
+	 */
+	public int getFailureThreshold() {
+		return this.failureThreshold;
+	}
+
+	/**
+	 * Sets the number of consecutive failures that degrade a system.
+	 *
+	 * @param aFailureThreshold
+	 *            Number of consecutive failures greater than <code>0</code>
+	 */
+	public void setFailureThreshold(int aFailureThreshold) {
+		if (aFailureThreshold <= 0) {
+			throw new IllegalArgumentException("failureThreshold must be > 0");
+		}
+		this.failureThreshold = aFailureThreshold;
+	}
+
+	/**
+	 * Gets the time in milliseconds that a degraded system is skipped.
+	 *
+	 * @return Degraded interval in milliseconds
+	 */
+	public long getDegradedInterval() {
+		return this.degradedInterval;
+	}
+
+	/**
+	 * Sets the time in milliseconds that a degraded system is skipped.
+	 *
+	 * @param aDegradedInterval
+	 *            Degraded interval in milliseconds
+	 */
+	public void setDegradedInterval(long aDegradedInterval) {
+		this.degradedInterval = aDegradedInterval;
+	}
+
+	/**
+	 * Gets the maximum sessions in flight per system.
+	 *
+	 * @return Maximum sessions in flight, where <code>0</code> is unlimited
+	 */
+	public int getMaxInFlight() {
+		return this.maxInFlight;
+	}
+
+	/**
+	 * Sets the maximum sessions in flight per system. A system at the
+	 * maximum is skipped, so the borrow fails over or fails immediately
+	 * instead of waiting for the pool.
+	 *
+	 * @param aMaxInFlight
+	 *            Maximum sessions in flight, where <code>0</code> is
+	 *            unlimited
+	 */
+	public void setMaxInFlight(int aMaxInFlight) {
+		this.maxInFlight = aMaxInFlight;
+	}
+
+	/**
+	 * Normalizes a name or suffix to lower case without leading and trailing
+	 * dots.
+	 *
+	 * @param aName
+	 *            Name or suffix
+	 *
+	 * @return Normalized name or suffix
+	 */
+	private static String normalize(String aName) {
+		String theName = aName.trim().toLowerCase();
+		int theStart = 0;
+		int theEnd = theName.length();
+		while (theStart < theEnd && theName.charAt(theStart) == '.') {
+			theStart++;
+		}
+		while (theEnd > theStart && theName.charAt(theEnd - 1) == '.') {
+			theEnd--;
+		}
+		return theName.substring(theStart, theEnd);
+	}
+
+	/**
+	 * Gets a router property.
+	 *
+	 * @param aProperty
+	 *            Property name without the <code>EPP.SessionRouter</code>
+	 *            prefix
+	 *
+	 * @return Property value if defined; <code>null</code> otherwise.
+	 */
+	private String getProperty(String aProperty) {
+		return Environment.getProperty(PROP_PREFIX + "." + aProperty);
+	}
+
+}
@@ -0,0 +1,307 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.pool;
+
+//----------------------------------------------
+//
+// imports...
+//
+//----------------------------------------------
+
+// Java Core Imports
+import java.util.ArrayList;
+import java.util.List;
+
+// JUNIT Imports
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import com.verisign.epp.interfaces.EPPSession;
+
+/**
+ * Is a unit test of <code>EPPSessionRouter</code>. The tests use an
+ * <code>EPPSessionPool</code> without sessions, so they verify the routing,
+ * selection and failover of the router without an EPP server.
+ */
+public class EPPSessionRouterTst extends TestCase {
+
+	/**
+	 * Number of unit test iterations to run. This is set with the
+	 * <code>iterations</code> system property.
+	 */
+	static private long numIterations = 1;
+
+	/**
+	 * Session pool that fails every borrow and records the systems borrowed
+	 * from.
+	 */
+	static class FailingPool extends EPPSessionPool {
+
+		/** Systems borrowed from */
+		final List<String> borrows = new ArrayList<String>();
+
+		/**
+		 * Records the system and fails the borrow.
+		 *
+		 * @param aSystem
+		 *            System name
+		 *
+		 * @return Never returns
+		 *
+		 * @throws EPPSessionPoolException
+		 *             Always
+		 */
+		public EPPSession borrowObject(String aSystem)
+				throws EPPSessionPoolException {
+			synchronized (this.borrows) {
+				this.borrows.add(aSystem);
+			}
+			throw new EPPSessionPoolException("System " + aSystem + " down");
+		}
+	}
+
+	/**
+	 * Allocates a new instance of <code>EPPSessionRouterTst</code>.
+	 *
+	 * @param name
+	 *            Name of test
+	 */
+	public EPPSessionRouterTst(String name) {
+		super(name);
+	}
+
+	/**
+	 * Creates a router with routes for <code>com</code>, <code>net</code>,
+	 * <code>uk</code> and <code>co.uk</code>, and a default route.
+	 *
+	 * @param aPool
+	 *            Session pool of the router
+	 *
+	 * @return Router
+	 */
+	private static EPPSessionRouter createRouter(EPPSessionPool aPool) {
+		EPPSessionRouter theRouter = new EPPSessionRouter(aPool);
+		theRouter.addRoute("com", new String[] { "gtld1", "gtld2" });
+		theRouter.addRoute(".net", new String[] { "gtld1", "gtld2" });
+		theRouter.addRoute("uk", new String[] { "uk" });
+		theRouter.addRoute("co.uk", new String[] { "couk" });
+		theRouter.setDefaultRoute(new String[] { EPPSessionPool.DEFAULT });
+		return theRouter;
+	}
+
+	/**
+	 * Verifies that names are routed by the longest matching suffix and to
+	 * the default route without a matching suffix.
+	 */
+	public void testRoute() {
+		EPPSessionRouter theRouter = createRouter(new FailingPool());
+
+		try {
+			for (int i = 0; i < numIterations; i++) {
+				Assert.assertEquals("gtld1", theRouter.getRoute("example.com")[0]);
+				Assert.assertEquals("gtld2", theRouter.getRoute("NS1.Example.NET.")[1]);
+				Assert.assertEquals("couk", theRouter.getRoute("example.co.uk")[0]);
+				Assert.assertEquals("uk", theRouter.getRoute("example.org.uk")[0]);
+				Assert.assertEquals("uk", theRouter.getRoute("uk")[0]);
+				Assert.assertEquals(EPPSessionPool.DEFAULT, theRouter
+						.getRoute("example.org")[0]);
+			}
+
+			theRouter.setDefaultRoute(null);
+			try {
+				theRouter.getRoute("example.org");
+				Assert.fail("Expected EPPSessionPoolException");
+			}
+			catch (EPPSessionPoolException ex) {
+				// Expected
+			}
+		}
+		catch (EPPSessionPoolException ex) {
+			Assert.fail("testRoute(): " + ex);
+		}
+	}
+
+	/**
+	 * Verifies that the system with the least sessions in flight is
+	 * selected, and that systems at the maximum in flight are skipped.
+	 */
+	public void testLeastInFlight() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			EPPSessionRouter theRouter = createRouter(new FailingPool());
+			List<EPPSessionRouter.Target> theTried = new ArrayList<EPPSessionRouter.Target>();
+
+			try {
+				EPPSessionRouter.Target[] theRoute = theRouter
+						.findRoute("example.com");
+
+				// Selections alternate between the two systems
+				for (int i = 0; i < 10; i++) {
+					Assert.assertNotNull(theRouter.selectTarget(theRoute, theTried));
+				}
+				Assert.assertEquals(5, theRouter.getInFlight("gtld1"));
+				Assert.assertEquals(5, theRouter.getInFlight("gtld2"));
+
+				// Less loaded system is selected
+				theRouter.release(theRoute[1], true);
+				theRouter.release(theRoute[1], true);
+				Assert.assertSame(theRoute[1], theRouter.selectTarget(theRoute,
+						theTried));
+				Assert.assertSame(theRoute[1], theRouter.selectTarget(theRoute,
+						theTried));
+
+				// Systems at the maximum are skipped
+				theRouter.setMaxInFlight(5);
+				Assert.assertNull(theRouter.selectTarget(theRoute, theTried));
+				theRouter.release(theRoute[0], true);
+				Assert.assertSame(theRoute[0], theRouter.selectTarget(theRoute,
+						theTried));
+			}
+			catch (EPPSessionPoolException ex) {
+				Assert.fail("testLeastInFlight(): " + ex);
+			}
+		}
+	}
+
+	/**
+	 * Verifies that a failed borrow fails over to the other system of the
+	 * route, that systems are degraded after the failure threshold, that a
+	 * borrow with all systems degraded fails without using the pool, and that
+	 * a system recovers after the degraded interval.
+	 */
+	public void testFailover() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			FailingPool thePool = new FailingPool();
+			EPPSessionRouter theRouter = createRouter(thePool);
+			theRouter.setFailureThreshold(2);
+			theRouter.setDegradedInterval(200);
+
+			// Both systems are tried
+			try {
+				theRouter.borrowObject("example.com");
+				Assert.fail("Expected EPPSessionPoolException");
+			}
+			catch (EPPSessionPoolException ex) {
+				// Expected
+			}
+			Assert.assertEquals(2, thePool.borrows.size());
+			Assert.assertFalse(thePool.borrows.get(0).equals(
+					thePool.borrows.get(1)));
+			Assert.assertEquals(0, theRouter.getInFlight("gtld1"));
+			Assert.assertEquals(0, theRouter.getInFlight("gtld2"));
+			Assert.assertFalse(theRouter.isDegraded("gtld1"));
+
+			// Second failure degrades both systems
+			try {
+				theRouter.borrowObject("example.net");
+				Assert.fail("Expected EPPSessionPoolException");
+			}
+			catch (EPPSessionPoolException ex) {
+				// Expected
+			}
+			Assert.assertTrue(theRouter.isDegraded("gtld1"));
+			Assert.assertTrue(theRouter.isDegraded("gtld2"));
+
+			// Load is shed without borrowing from the pool
+			thePool.borrows.clear();
+			try {
+				theRouter.borrowObject("example.com");
+				Assert.fail("Expected EPPSessionPoolException");
+			}
+			catch (EPPSessionPoolException ex) {
+				// Expected
+			}
+			Assert.assertEquals(0, thePool.borrows.size());
+
+			// Other routes are not affected
+			try {
+				theRouter.borrowObject("example.co.uk");
+				Assert.fail("Expected EPPSessionPoolException");
+			}
+			catch (EPPSessionPoolException ex) {
+				// Expected
+			}
+			Assert.assertEquals("couk", thePool.borrows.get(0));
+
+			// Systems are selected again after the degraded interval
+			try {
+				Thread.sleep(300);
+			}
+			catch (InterruptedException ex) {
+				Assert.fail("testFailover(): Interrupted");
+			}
+			Assert.assertFalse(theRouter.isDegraded("gtld1"));
+			try {
+				EPPSessionRouter.Target theTarget = theRouter.selectTarget(
+						theRouter.findRoute("example.com"),
+						new ArrayList<EPPSessionRouter.Target>());
+				Assert.assertNotNull(theTarget);
+				theRouter.release(theTarget, true);
+				Assert.assertEquals(0, theTarget.failures.get());
+			}
+			catch (EPPSessionPoolException ex) {
+				Assert.fail("testFailover(): " + ex);
+			}
+		}
+	}
+
+	/**
+	 * JUNIT <code>suite</code> static method, which returns the tests
+	 * associated with <code>EPPSessionRouterTst</code>.
+	 *
+	 * @return Test suite
+	 */
+	public static Test suite() {
+		TestSuite suite = new TestSuite(EPPSessionRouterTst.class);
+
+		String numIterProp = System.getProperty("iterations");
+		if (numIterProp != null) {
+			numIterations = Integer.parseInt(numIterProp);
+		}
+
+		return suite;
+	}
+
+	/**
+	 * Unit test main, which accepts the following system property options:
+	 * <br>
+	 * <ul>
+	 * <li>iterations Number of unit test iterations to run</li>
+	 * </ul>
+	 *
+	 * @param args
+	 *            Command line arguments
+	 */
+	public static void main(String args[]) {
+		junit.textui.TestRunner.run(suite());
+	}
+
+	/**
+	 * Sets the number of iterations to run per test.
+	 *
+	 * @param aNumIterations
+	 *            number of iterations to run per test
+	 */
+	public static void setNumIterations(long aNumIterations) {
+		numIterations = aNumIterations;
+	}
+
+}
@@ -31,6 +31,7 @@ import com.verisign.epp.transport.client.EPPSSLConfig;
 import com.verisign.epp.transport.client.EPPSSLContext;
 import com.verisign.epp.transport.client.EPPSSLImpl;
 import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPMetricsManager;
 import com.verisign.epp.util.Environment;
 
 /**
@@ -60,6 +61,9 @@ import com.verisign.epp.util.Environment;
  * <li><code>EPP.SessionPool.&lt;system&gt;.initMaxActive</code> - (optional) Boolean value indicating if 
  * the <code>maxActive</code> sessions should be pre-initialized at 
  * initialization in the {@link #init()} method.  Default is <code>false</code>.
+ * <li><code>EPP.SessionPool.&lt;system&gt;.initParallelism</code> - (optional) Maximum number of sessions 
+ * logged in at the same time when pre-initializing the <code>maxActive</code> 
+ * sessions.  A value of <code>1</code> logs in the sessions one at a time.  Default is 10.
  * <li><code>EPP.SessionPool.&lt;system&gt;.maxActive</code> - (optional) Maximum number of active sessions 
  * in pool.  Default is 10.
  * <li><code>EPP.SessionPool.&lt;system&gt;.maxWait</code> - (optional) Maximum time in milliseconds for a 
@@ -71,6 +75,14 @@ import com.verisign.epp.util.Environment;
  * 60 seconds.  
  * <li><code>EPP.SessionPool.&lt;system&gt;.borrowRetries</code> - (optional) Number of retries to get/create a session
  * when calling {@link #borrowObject()}.  Default is <code>0</code>.  
+ * <li><code>EPP.SessionPool.&lt;system&gt;.keepAliveInterval</code> - (optional) Frequency in milliseconds 
+ * of scanning the sessions for the {@link EPPSessionKeepAlive}, which sends the 
+ * keep alive messages only to sessions that are idle and refreshes sessions before the 
+ * absolute timeout.  A value of <code>0</code> sends the keep alive messages from the 
+ * pool evictor instead.  Default is 10 seconds.  
+ * <li><code>EPP.SessionPool.&lt;system&gt;.keepAliveMaxThreads</code> - (optional) Maximum number of threads 
+ * used by the {@link EPPSessionKeepAlive} to send keep alive messages in parallel.  
+ * Default is 4.  
  * <li><code>EPP.SessionPool.&lt;system&gt;.SSLProtocol</code> - (optional) SSL protocol to use.  If defined 
  * the pool will have its own SSL configuration.  The required SSL properties include 
  * <code>SSLKeyStore</code>, <code>SSLKeyFileName</code>, and <code>SSLKeyPassPhrase</code>
@@ -121,6 +133,16 @@ public class EPPSystemSessionPool  {
      */
     public static final long DEFAULT_TIME_BETWEEN_EVICTION_RUNS_MILLIS = 1 * 60 * 1000; // Every 1 minute
 
+    /**
+     * The default time between scans of the sessions by the keep alive.
+     */
+    public static final long DEFAULT_KEEP_ALIVE_INTERVAL = 10 * 1000; // Every 10 seconds
+
+    /**
+     * The default maximum number of threads of the keep alive.
+     */
+    public static final int DEFAULT_KEEP_ALIVE_MAX_THREADS = 4;
+
     /**
      * The default cap on the number of "sleeping" instances in the pool.
      */
@@ -141,6 +163,11 @@ public class EPPSystemSessionPool  {
 	 * Default for the <code>initMaxActive</code> property, which is <code>false</code>.
 	 */
 	private static final boolean DEFAULT_INIT_MAX_ACTIVE = false;
+
+	/**
+	 * Default for the <code>initParallelism</code> property, which is <code>10</code>.
+	 */
+	private static final int DEFAULT_INIT_PARALLELISM = 10;
     
 	/**
 	 * Default number of retries when attempting to get/create a session when calling 
@@ -172,6 +199,13 @@ public class EPPSystemSessionPool  {
 	 * Real pool being used.
 	 */
 	private GenericObjectPool pool = null;
+	
+	/**
+	 * Gate that limits the borrowed sessions to <code>maxActive</code>
+	 * without waiting inside of <code>pool</code>.  <code>null</code> when 
+	 * <code>maxActive</code> is not positive.
+	 */
+	private EPPSessionBorrowGate gate = null;
 		
 	/**
 	 * Config used to configure the pool
@@ -190,6 +224,13 @@ public class EPPSystemSessionPool  {
 	 */
 	private boolean initMaxActive = DEFAULT_INIT_MAX_ACTIVE;
 	
+	/**
+	 * Maximum number of sessions logged in at the same time when pre-initializing 
+	 * the <code>maxActive</code> sessions.  The default value is 
+	 * {@link DEFAULT_INIT_PARALLELISM}.
+	 */
+	private int initParallelism = DEFAULT_INIT_PARALLELISM;
+	
 	/**
 	 * Number of retries when attempting to get/create a session when calling 
 	 * {@link #borrowObject()}.  {@link #borrowObject()} will retry <code>borrowRetries</code> 
@@ -247,6 +288,23 @@ public class EPPSystemSessionPool  {
 	 */
 	private String clientHost = null;
 	
+	/**
+	 * Time in milliseconds between scans of the sessions by the keep alive.  
+	 * A value of <code>0</code> disables the keep alive, so the keep alive 
+	 * messages are sent by the pool evictor.
+	 */
+	private long keepAliveInterval = DEFAULT_KEEP_ALIVE_INTERVAL;
+	
+	/**
+	 * Maximum number of threads used by the keep alive.
+	 */
+	private int keepAliveMaxThreads = DEFAULT_KEEP_ALIVE_MAX_THREADS;
+	
+	/**
+	 * Keep alive of the pool sessions.  <code>null</code> when disabled.
+	 */
+	private EPPSessionKeepAlive keepAlive = null;
+	
 	/**
 	 * Default constructor as part of the <i>Singleton Design Pattern</i>. 
 	 */
@@ -264,6 +322,23 @@ public class EPPSystemSessionPool  {
 	 */
 	public void init(EPPSessionPoolableFactory aFactory, GenericObjectPool.Config aConfig) {
 		this.pool = new GenericObjectPool(aFactory, aConfig);
+		aFactory.setPoolName(this.system);
+		EPPMetricsManager.getMetrics().registerPool(this.system,
+				new EPPSessionPoolGauge(this.pool));
+		if (aConfig.maxActive > 0) {
+			this.gate = new EPPSessionBorrowGate(aConfig.maxActive, aConfig.maxWait);
+		}
+		else {
+			this.gate = null;
+		}
+		
+		// Keep alive the sessions based on their use?
+		if (this.keepAliveInterval > 0) {
+			this.keepAlive = new EPPSessionKeepAlive(this.system, this.pool, 
+					aFactory, this.keepAliveInterval, this.keepAliveMaxThreads);
+			aFactory.setKeepAlive(this.keepAlive);
+			this.keepAlive.start();
+		}
 		
 	}	
 	
@@ -388,6 +463,14 @@ public class EPPSystemSessionPool  {
 				this.initMaxActive = DEFAULT_INIT_MAX_ACTIVE;
 			log.info("init(): init max active = " + this.initMaxActive);
 			
+			// initParallelism
+			theValue = this.getProperty("initParallelism");
+			if (theValue != null)
+				this.initParallelism = Integer.parseInt(theValue);
+			else
+				this.initParallelism = DEFAULT_INIT_PARALLELISM;
+			log.info("init(): init parallelism = " + this.initParallelism);
+			
 	
 			// borrowRetries
 			theValue = this.getProperty("borrowRetries");
@@ -434,6 +517,22 @@ public class EPPSystemSessionPool  {
 				this.config.timeBetweenEvictionRunsMillis = DEFAULT_TIME_BETWEEN_EVICTION_RUNS_MILLIS;
 			log.info("init(): time between eviction runs = " + this.config.timeBetweenEvictionRunsMillis + " ms");
 			
+			// keepAliveInterval
+			theValue = this.getProperty("keepAliveInterval");
+			if (theValue != null)
+				this.keepAliveInterval = Long.parseLong(theValue);
+			else
+				this.keepAliveInterval = DEFAULT_KEEP_ALIVE_INTERVAL;
+			log.info("init(): keep alive interval = " + this.keepAliveInterval + " ms");
+			
+			// keepAliveMaxThreads
+			theValue = this.getProperty("keepAliveMaxThreads");
+			if (theValue != null)
+				this.keepAliveMaxThreads = Integer.parseInt(theValue);
+			else
+				this.keepAliveMaxThreads = DEFAULT_KEEP_ALIVE_MAX_THREADS;
+			log.info("init(): keep alive max threads = " + this.keepAliveMaxThreads);
+			
 			// whenExhaustedAction
 			this.config.whenExhaustedAction = GenericObjectPool.WHEN_EXHAUSTED_BLOCK;
 		}
@@ -496,30 +595,43 @@ public class EPPSystemSessionPool  {
 			log.info("init(): Pre-initialize maxActive ("
 					+ this.config.maxActive + ") sessions");
 
-			EPPSession theSessions[] = new EPPSession[this.config.maxActive];
-			
-			// Borrow maxActive sessions from pool
-			for (int i = 0; i < this.config.maxActive; i++) {
+			// Log in the sessions concurrently, since the pool logs them in 
+			// one at a time while holding its lock
+			try {
+				int theLoggedIn = this.factory.preLogin(this.config.maxActive, 
+						this.initParallelism);
+				log.info("init(): Logged in " + theLoggedIn + " of "
+						+ this.config.maxActive + " sessions");
 
-				try {
-					theSessions[i] = this.borrowObject();
-					log.info("init(): Pre-initialized session #"
-							+ (i + 1));
-				}
-				catch (EPPSessionPoolException ex) {
-					log.error("init(): Failure to pre-initialize session #"
-									+ (i + 1) + ": " + ex);
+				EPPSession theSessions[] = new EPPSession[this.config.maxActive];
+			
+				// Borrow maxActive sessions from pool
+				for (int i = 0; i < this.config.maxActive; i++) {
+
+					try {
+						theSessions[i] = this.borrowObject();
+						log.info("init(): Pre-initialized session #"
+								+ (i + 1));
+					}
+					catch (EPPSessionPoolException ex) {
+						log.error("init(): Failure to pre-initialize session #"
+										+ (i + 1) + ": " + ex);
+					}
 				}
-			}
 			
-			// Return maxActive sessions back to pool
-			for (int i = 0; i < this.config.maxActive; i++) {
-				if (theSessions[i] != null) {
-					this.returnObject(theSessions[i]);					
-					theSessions[i] = null;
+				// Return maxActive sessions back to pool
+				for (int i = 0; i < this.config.maxActive; i++) {
+					if (theSessions[i] != null) {
+						this.returnObject(theSessions[i]);					
+						theSessions[i] = null;
+					}
 				}
 			}
-			
+			finally {
+				// Log out the logged in sessions that were not borrowed, also when
+				// the pre-initialization fails, so they are not handed out stale
+				this.factory.endPreLoggedIn();
+			}
 		}
 		
 	}
@@ -546,6 +658,14 @@ public class EPPSystemSessionPool  {
 						.error("EPPSystemSessionPool.close(): Exception closing pool <"
 								+ this.pool + ">: " + ex);
 			}
+			
+			// Stop the keep alive once the idle sessions are logged out
+			if (this.keepAlive != null) {
+				this.keepAlive.stop();
+				this.keepAlive = null;
+			}
+			
+			EPPMetricsManager.getMetrics().unregisterPool(this.system);
 		}
 		log.info("close(): pool closed");
 	} 
@@ -567,6 +687,19 @@ public class EPPSystemSessionPool  {
 			throw new EPPSessionPoolException("EPPSystemSessionPool: pool is null");
 		}
 		
+		long theStart = System.nanoTime();
+		
+		// Wait for an available session outside of the pool monitor 
+		if (this.gate != null) {
+			try {
+				this.gate.acquire();
+			}
+			catch (EPPSessionPoolException ex) {
+				log.error("borrowObject(): " + ex.getMessage());
+				throw new EPPSessionPoolException("EPPSystemSessionPool: Exception " + ex);
+			}
+		}
+		
 		EPPSession theSession = null;
 		
 		// Attempt to borrow session until successful or retries have exceeded.  
@@ -584,6 +717,10 @@ public class EPPSystemSessionPool  {
 				// Number of retries exceeded?
 				if (retries >= this.borrowRetries) {
 					
+					if (this.gate != null) {
+						this.gate.release();
+					}
+					
 					// Throw exception to indicate borrow failure
 					log
 							.error("borrowObject(): Final exception on borrow session after "
@@ -602,6 +739,13 @@ public class EPPSystemSessionPool  {
 			
 		}
 		
+		if (this.gate != null) {
+			this.gate.borrowed(theSession);
+		}
+		
+		EPPMetricsManager.getMetrics().recordPoolBorrow(this.system,
+				System.nanoTime() - theStart);
+		
 		return theSession;
 	}
 	
@@ -624,6 +768,11 @@ public class EPPSystemSessionPool  {
 			log.error("invalidateObject(" + aSession + "): Caught Exception: " + ex);
 			throw new EPPSessionPoolException("EPPSessionPool: Exception " + ex);
 		}
+		finally {
+			if (this.gate != null) {
+				this.gate.release(aSession);
+			}
+		}
 	}
 	/**
 	 * Returned a borrowed session to the pool.  This session must have been 
@@ -643,6 +792,11 @@ public class EPPSystemSessionPool  {
 			log.error("returnObject(" + aSession + "): Caught Exception: " + ex);
 			throw new EPPSessionPoolException("EPPSessionPool: Exception " + ex);
 		}
+		finally {
+			if (this.gate != null) {
+				this.gate.release(aSession);
+			}
+		}
 		
 	}
 	
@@ -690,6 +844,16 @@ public class EPPSystemSessionPool  {
 		return factory;
 	}
 	
+	/**
+	 * Gets the keep alive of the pool sessions.
+	 * 
+	 * @return Keep alive if enabled with a positive <code>keepAliveInterval</code>;
+	 *         <code>null</code> otherwise.
+	 */
+	public EPPSessionKeepAlive getKeepAlive() {
+		return this.keepAlive;
+	}
+	
 	/**
 	 * Gets the session idle timeout.
 	 * 
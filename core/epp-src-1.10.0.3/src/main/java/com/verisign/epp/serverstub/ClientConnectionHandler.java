@@ -25,6 +25,7 @@ import org.apache.log4j.Logger;
 
 // Java imports
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 import com.verisign.epp.codec.gen.EPPDcp;
@@ -38,9 +39,11 @@ import com.verisign.epp.codec.gen.EPPTransId;
 import com.verisign.epp.framework.EPPAssemblerException;
 
 // EPP imports
+import com.verisign.epp.framework.EPPByteArrayDispatcher;
 import com.verisign.epp.framework.EPPDispatcher;
 import com.verisign.epp.framework.EPPEventException;
 import com.verisign.epp.transport.ServerEventHandler;
+import com.verisign.epp.transport.ServerPacketHandler;
 import com.verisign.epp.util.EPPCatFactory;
 import com.verisign.epp.util.EPPEnv;
 
@@ -49,11 +52,15 @@ import com.verisign.epp.util.EPPEnv;
  * The <code>EPPClientConnectionHandler</code> class manages a single client
  * session. A connection is logically started when the handleConnection()
  * method is invoked by a listening server socket.     <br><br>
+ * When used with a non-blocking server, the connection is started with
+ * openConnection() and each packet is handled with handlePacket(byte[])
+ * using the <code>EPPByteArrayDispatcher</code>.
  *
  * @author $Author: jim $
  * @version $Revision: 1.10 $
  */
-public class ClientConnectionHandler implements ServerEventHandler, Cloneable {
+public class ClientConnectionHandler implements ServerEventHandler,
+		ServerPacketHandler, Cloneable {
 	/** Log4j category for logging */
 	private static Logger cat =
 		Logger.getLogger(
@@ -128,46 +135,7 @@ public class ClientConnectionHandler implements ServerEventHandler, Cloneable {
 		cat.debug("Server accepted new connection. Thread id is: "
 				  + Thread.currentThread().hashCode());
 
-		/**
-		 * The default constructor of the EPPGreeting takes care of the messy
-		 * details of everything that a greeting contains. The only thing that
-		 * must be set is the server name.
-		 */
-		EPPGreeting greeting = new EPPGreeting();
-
-		int		    threadId = Thread.currentThread().hashCode();
-
-		greeting.setServer(EPPEnv.getGreetingServerName());
-		cat.debug("Server name = " + greeting.getServer());
-
-		// Set DCP
-		EPPDcp theDCP = new EPPDcp();
-		theDCP.setAccess(EPPDcp.ACCESS_ALL);
-
-		EPPStatement theStatement = new EPPStatement();
-
-		EPPPurpose   thePurpose = new EPPPurpose();
-		thePurpose.setAdmin(true);
-		thePurpose.setProv(true);
-		theStatement.setPurpose(thePurpose);
-
-		EPPRecipient theRecipient = new EPPRecipient();
-		theRecipient.addOurs(null);
-		theRecipient.setPublic(true);
-		theStatement.setRecipient(theRecipient);
-
-		theStatement.setRetention(EPPStatement.RETENTION_STATED);
-
-		theDCP.addStatement(theStatement);
-
-		cat.debug("Adding DCP to Greeting: " + theDCP);
-
-		greeting.setDcp(theDCP);
-
-		thisSession.setGreeting(greeting);
-
-		idleTimeOutTime = new GregorianCalendar();
-		idleTimeOutTime.add(Calendar.MINUTE, TIMEOUT_MINUTES);
+		this.initSession();
 
 		EPPDispatcher theDispatcher = EPPDispatcher.getInstance();
 
@@ -195,106 +163,10 @@ public class ClientConnectionHandler implements ServerEventHandler, Cloneable {
 				bRunning = !thisSession.hasLogoutOccured();
 			}
 			 catch (EPPEventException e) {
-				/**
-				 * Something bad happened. Return an error response with as
-				 * much info as possible
-				 */
-				cat.error("EPP Event Exception", e);
-
-				sendErrorResponse(
-								  EPPResult.COMMAND_FAILED,
-								  "Internal Server Error, "
-								  + "EPP Event Exception: " + e.getMessage(),
-								  newOutputStream, thisSession);
+				sendResponse(handleEventException(e), newOutputStream);
 			}
 			 catch (EPPAssemblerException ex) {
-				/**
-				 * Something went wrong the assembly of the EPP Message.
-				 * Attempt to find out what it was and return the appropriate
-				 * response if possible...
-				 */
-				if (ex.equals(EPPAssemblerException.FATAL)) {
-					cat.fatal(
-							  "Fatal EPPAssemblerException caught "
-							  + "stopping client thread", ex);
-
-					sendErrorResponse(
-									  EPPResult.COMMAND_FAILED,
-									  "Internal Server Error,"
-									  + " EPPAssemblerException: "
-									  + ex.getMessage(), newOutputStream,
-									  thisSession);
-
-					bRunning = false;
-				}
-
-				// Command Syntax Error? 2001
-				else if (ex.equals(EPPAssemblerException.XML)) {
-					cat.error("EPPAssemblerException.XML, sending "
-							  + "COMMAND_SYNTAX_ERROR response to client");
-
-					sendErrorResponse(
-									  EPPResult.COMMAND_SYNTAX_ERROR,
-									  "XML Schema Validation Error, "
-									  + ex.getMessage(), newOutputStream,
-									  thisSession);
-				}
-
-				// Command Syntax Error? 2001
-				else if (ex.equals(EPPAssemblerException.MISSINGPARAMETER)) {
-					cat.error("EPPAssemblerException.MISSINGPARAMETER,"
-							  + " sending MISSINGPARAMETER response to client");
-
-					sendErrorResponse(
-									  EPPResult.MISSING_PARAMETER,
-									  "Command processing error, , "
-									  + ex.getMessage(), newOutputStream,
-									  thisSession);
-				}
-				else if (ex.equals(EPPAssemblerException.COMMANDNOTFOUND)) {
-					cat.error("EPPAssemblerException.COMMANDNOTFOUND,"
-							  + " sending UNIMPLEMENTED_COMMAND response to client");
-
-					sendErrorResponse(
-									  EPPResult.UNIMPLEMENTED_COMMAND,
-									  "Command not found, "
-									  + ex.getMessage(), newOutputStream,
-									  thisSession);
-				}
-				else if (ex.equals(EPPAssemblerException.EXTENSIONNOTFOUND)) {
-					cat.error("EPPAssemblerException.EXTENSIONNOTFOUND,"
-							  + " sending UNIMPLEMENTED_EXTENSION response to client");
-
-					sendErrorResponse(
-									  EPPResult.UNIMPLEMENTED_EXTENSION,
-									  "Extension not found, "
-									  + ex.getMessage(), newOutputStream,
-									  thisSession);
-				}
-				// Client closed the connection?
-				else if (ex.equals(EPPAssemblerException.CLOSECON)) {
-					cat.error("EPPAssemblerException.CLOSECON caught, "
-							  + "stopping thread");
-					bRunning = false;
-				}
-
-				// Interrupted IO?
-				else if (ex.equals(EPPAssemblerException.INTRUPTEDIO)) {
-					cat.debug("EPPAssemblerException.INTRUPTEDIO caught, "
-							  + "no command received");
-				}
-
-				// Who knows what happened?  Send the old Internal Server Error.
-				else {
-					cat.error("Unknown EPPAssemblerException type");
-
-					sendErrorResponse(
-									  EPPResult.COMMAND_FAILED,
-									  "Internal Server Error, "
-									  + "Unknown EPPAssemblerException"
-									  + ex.getMessage(), newOutputStream,
-									  thisSession);
-				}
+				sendResponse(handleAssemblerException(ex), newOutputStream);
 			}
 		}
 
@@ -306,19 +178,260 @@ public class ClientConnectionHandler implements ServerEventHandler, Cloneable {
 	}
 
 	/**
-	 * DOCUMENT ME!
+	 * Invoked by a non-blocking server when a new client connects, which
+	 * initializes the session and returns the greeting.
 	 *
-	 * @param aCode DOCUMENT ME!
-	 * @param aDescription DOCUMENT ME!
-	 * @param out DOCUMENT ME!
-	 * @param aSessionData DOCUMENT ME!
+	 * @return Encoded greeting packet or <code>null</code> if the greeting
+	 * 		   could not be encoded
 	 */
-	private void sendErrorResponse(
-								   int aCode, String aDescription,
-								   OutputStream out, SessionData aSessionData) {
-		cat.debug("<<<<<<<<<<<<<<<<<<<<<<  Enter sendErrorResponse()"
-				  + ">>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>");
+	public byte[] openConnection() {
+		cat.debug("Server accepted new connection");
+
+		this.initSession();
+
+		try {
+			return EPPByteArrayDispatcher.getInstance().processConnection(
+																		thisSession);
+		}
+		 catch (EPPAssemblerException ex) {
+			cat.error("openConnection(): Error encoding greeting", ex);
+			bRunning = false;
+			return null;
+		}
+	}
+
+	/**
+	 * Invoked by a non-blocking server for each packet received from the
+	 * client.
+	 *
+	 * @param aPacket Packet received from the client
+	 *
+	 * @return Encoded response packet or <code>null</code> if there is no
+	 * 		   response
+	 */
+	public byte[] handlePacket(byte[] aPacket) {
+		EPPByteArrayDispatcher theDispatcher =
+			EPPByteArrayDispatcher.getInstance();
+
+		// Store the original XML packet in the session data for future use.
+		thisSession.setPacket(ByteBuffer.wrap(aPacket));
+
+		EPPResponse theErrorResponse = null;
+
+		try {
+			byte[] theResponse =
+				theDispatcher.processMessage(aPacket, thisSession);
+			SessionCommandCount++;
+			this.resetIdleTimeOut();
+
+			bRunning = !thisSession.hasLogoutOccured();
+
+			return theResponse;
+		}
+		 catch (EPPEventException e) {
+			theErrorResponse = handleEventException(e);
+		}
+		 catch (EPPAssemblerException ex) {
+			theErrorResponse = handleAssemblerException(ex);
+		}
+
+		if (theErrorResponse == null) {
+			return null;
+		}
+
+		try {
+			return theDispatcher.toBytes(theErrorResponse, thisSession);
+		}
+		 catch (Exception e) {
+			cat.debug("handlePacket(): Error encoding error response to client: "
+					  + e);
+			bRunning = false;
+			return null;
+		}
+	}
+
+	/**
+	 * Should the connection remain open?
+	 *
+	 * @return <code>true</code> if the session is still accepting commands;
+	 * 		   <code>false</code> otherwise.
+	 */
+	public boolean isOpen() {
+		return bRunning;
+	}
+
+	/**
+	 * Creates the error response for an <code>EPPEventException</code>.
+	 *
+	 * @param e Exception thrown while handling the event
+	 *
+	 * @return Error response to send to the client
+	 */
+	private EPPResponse handleEventException(EPPEventException e) {
+		/**
+		 * Something bad happened. Return an error response with as
+		 * much info as possible
+		 */
+		cat.error("EPP Event Exception", e);
+
+		return createErrorResponse(
+								   EPPResult.COMMAND_FAILED,
+								   "Internal Server Error, "
+								   + "EPP Event Exception: " + e.getMessage());
+	}
+
+	/**
+	 * Creates the error response for an <code>EPPAssemblerException</code>
+	 * and stops the session if the exception is fatal or the client closed
+	 * the connection.
+	 *
+	 * @param ex Exception thrown while assembling the message
+	 *
+	 * @return Error response to send to the client or <code>null</code> if
+	 * 		   no response should be sent
+	 */
+	private EPPResponse handleAssemblerException(EPPAssemblerException ex) {
+		/**
+		 * Something went wrong the assembly of the EPP Message.
+		 * Attempt to find out what it was and return the appropriate
+		 * response if possible...
+		 */
+		if (ex.equals(EPPAssemblerException.FATAL)) {
+			cat.fatal(
+					  "Fatal EPPAssemblerException caught "
+					  + "stopping client thread", ex);
+
+			bRunning = false;
+
+			return createErrorResponse(
+									   EPPResult.COMMAND_FAILED,
+									   "Internal Server Error,"
+									   + " EPPAssemblerException: "
+									   + ex.getMessage());
+		}
+
+		// Command Syntax Error? 2001
+		else if (ex.equals(EPPAssemblerException.XML)) {
+			cat.error("EPPAssemblerException.XML, sending "
+					  + "COMMAND_SYNTAX_ERROR response to client");
+
+			return createErrorResponse(
+									   EPPResult.COMMAND_SYNTAX_ERROR,
+									   "XML Schema Validation Error, "
+									   + ex.getMessage());
+		}
+
+		// Command Syntax Error? 2001
+		else if (ex.equals(EPPAssemblerException.MISSINGPARAMETER)) {
+			cat.error("EPPAssemblerException.MISSINGPARAMETER,"
+					  + " sending MISSINGPARAMETER response to client");
+
+			return createErrorResponse(
+									   EPPResult.MISSING_PARAMETER,
+									   "Command processing error, , "
+									   + ex.getMessage());
+		}
+		else if (ex.equals(EPPAssemblerException.COMMANDNOTFOUND)) {
+			cat.error("EPPAssemblerException.COMMANDNOTFOUND,"
+					  + " sending UNIMPLEMENTED_COMMAND response to client");
+
+			return createErrorResponse(
+									   EPPResult.UNIMPLEMENTED_COMMAND,
+									   "Command not found, "
+									   + ex.getMessage());
+		}
+		else if (ex.equals(EPPAssemblerException.EXTENSIONNOTFOUND)) {
+			cat.error("EPPAssemblerException.EXTENSIONNOTFOUND,"
+					  + " sending UNIMPLEMENTED_EXTENSION response to client");
+
+			return createErrorResponse(
+									   EPPResult.UNIMPLEMENTED_EXTENSION,
+									   "Extension not found, "
+									   + ex.getMessage());
+		}
+		// Client closed the connection?
+		else if (ex.equals(EPPAssemblerException.CLOSECON)) {
+			cat.error("EPPAssemblerException.CLOSECON caught, "
+					  + "stopping thread");
+			bRunning = false;
+
+			return null;
+		}
+
+		// Interrupted IO?
+		else if (ex.equals(EPPAssemblerException.INTRUPTEDIO)) {
+			cat.debug("EPPAssemblerException.INTRUPTEDIO caught, "
+					  + "no command received");
+
+			return null;
+		}
+
+		// Who knows what happened?  Send the old Internal Server Error.
+		else {
+			cat.error("Unknown EPPAssemblerException type");
 
+			return createErrorResponse(
+									   EPPResult.COMMAND_FAILED,
+									   "Internal Server Error, "
+									   + "Unknown EPPAssemblerException"
+									   + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Initializes the session of a new connection by setting the greeting in
+	 * the session data and resetting the idle timeout.
+	 */
+	private void initSession() {
+		/**
+		 * The default constructor of the EPPGreeting takes care of the messy
+		 * details of everything that a greeting contains. The only thing that
+		 * must be set is the server name.
+		 */
+		EPPGreeting greeting = new EPPGreeting();
+
+		greeting.setServer(EPPEnv.getGreetingServerName());
+		cat.debug("Server name = " + greeting.getServer());
+
+		// Set DCP
+		EPPDcp theDCP = new EPPDcp();
+		theDCP.setAccess(EPPDcp.ACCESS_ALL);
+
+		EPPStatement theStatement = new EPPStatement();
+
+		EPPPurpose   thePurpose = new EPPPurpose();
+		thePurpose.setAdmin(true);
+		thePurpose.setProv(true);
+		theStatement.setPurpose(thePurpose);
+
+		EPPRecipient theRecipient = new EPPRecipient();
+		theRecipient.addOurs(null);
+		theRecipient.setPublic(true);
+		theStatement.setRecipient(theRecipient);
+
+		theStatement.setRetention(EPPStatement.RETENTION_STATED);
+
+		theDCP.addStatement(theStatement);
+
+		cat.debug("Adding DCP to Greeting: " + theDCP);
+
+		greeting.setDcp(theDCP);
+
+		thisSession.setGreeting(greeting);
+
+		idleTimeOutTime = new GregorianCalendar();
+		idleTimeOutTime.add(Calendar.MINUTE, TIMEOUT_MINUTES);
+	}
+
+	/**
+	 * Creates an error response to send to the client.
+	 *
+	 * @param aCode Result code of the error
+	 * @param aDescription Description of the error
+	 *
+	 * @return Error response
+	 */
+	private EPPResponse createErrorResponse(int aCode, String aDescription) {
 		cat.debug("Sending error response to client, code = " + aCode
 				  + ", description = " + aDescription);
 
@@ -329,19 +442,35 @@ public class ClientConnectionHandler implements ServerEventHandler, Cloneable {
 		EPPTransId theTransId = new EPPTransId("svrError1");
 
 		// Create the response
-		EPPResponse response = new EPPResponse(theTransId, theResult);
+		return new EPPResponse(theTransId, theResult);
+	}
+
+	/**
+	 * Sends a response to the client.
+	 *
+	 * @param aResponse Response to send.  Nothing is sent if
+	 * 		  <code>null</code>.
+	 * @param out Output stream to send the response on
+	 */
+	private void sendResponse(EPPResponse aResponse, OutputStream out) {
+		if (aResponse == null) {
+			return;
+		}
+
+		cat.debug("<<<<<<<<<<<<<<<<<<<<<<  Enter sendResponse()"
+				  + ">>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>");
 
 		// Send the response
 		try {
-			EPPDispatcher.getInstance().send(response, out);
+			EPPDispatcher.getInstance().send(aResponse, out);
 			out.flush();
 		}
 		 catch (Exception e) {
-			cat.debug(".sendErrorResponse() "
+			cat.debug(".sendResponse() "
 					  + "Error sending error response to client: ");
 		}
 
-		cat.debug(".sendErrorResponse() " + "Return");
+		cat.debug(".sendResponse() " + "Return");
 	}
 
 	/**
@@ -55,6 +55,7 @@ import com.verisign.epp.framework.EPPEventResponse;
 import com.verisign.epp.framework.EPPHandleEventException;
 import com.verisign.epp.framework.EPPPollQueueException;
 import com.verisign.epp.framework.EPPPollQueueMgr;
+import com.verisign.epp.serverstub.repository.StubRegistry;
 import com.verisign.epp.util.EPPCatFactory;
 
 /**
@@ -135,6 +136,13 @@ public class ContactHandler extends EPPContactHandler {
 	protected EPPEventResponse doContactDelete(EPPEvent aEvent, Object aData) {
 		EPPContactDeleteCmd theMessage = (EPPContactDeleteCmd) aEvent.getMessage();
 
+		// Process with the stateful registry when enabled
+		StubRegistry theRegistry = StubRegistry.getInstance();
+		if (theRegistry != null) {
+			return new EPPEventResponse(theRegistry.contactDelete(theMessage,
+					StubRegistry.getClientId(aData)));
+		}
+
 		/**
 		 * Create the transId for the response with the client trans id and the
 		 * server trans id.
@@ -163,6 +171,13 @@ public class ContactHandler extends EPPContactHandler {
 	protected EPPEventResponse doContactCreate(EPPEvent aEvent, Object aData) {
 		EPPContactCreateCmd theMessage = (EPPContactCreateCmd) aEvent.getMessage();
 
+		// Process with the stateful registry when enabled
+		StubRegistry theRegistry = StubRegistry.getInstance();
+		if (theRegistry != null) {
+			return new EPPEventResponse(theRegistry.contactCreate(theMessage,
+					StubRegistry.getClientId(aData)));
+		}
+
 		/**
 		 * Create the transId for the response with the client trans id and the
 		 * server trans id.
@@ -191,6 +206,13 @@ public class ContactHandler extends EPPContactHandler {
 	protected EPPEventResponse doContactUpdate(EPPEvent aEvent, Object aData) {
 		EPPContactUpdateCmd theMessage = (EPPContactUpdateCmd) aEvent.getMessage();
 
+		// Process with the stateful registry when enabled
+		StubRegistry theRegistry = StubRegistry.getInstance();
+		if (theRegistry != null) {
+			return new EPPEventResponse(theRegistry.contactUpdate(theMessage,
+					StubRegistry.getClientId(aData)));
+		}
+
 		/**
 		 * Create the transId for the response with the client trans id and the
 		 * server trans id.
@@ -218,6 +240,14 @@ public class ContactHandler extends EPPContactHandler {
 	 */
 	protected EPPEventResponse doContactInfo(EPPEvent aEvent, Object aData) {
 		EPPContactInfoCmd theCommand = (EPPContactInfoCmd) aEvent.getMessage();
+
+		// Process with the stateful registry when enabled
+		StubRegistry theRegistry = StubRegistry.getInstance();
+		if (theRegistry != null) {
+			return new EPPEventResponse(theRegistry.contactInfo(theCommand,
+					StubRegistry.getClientId(aData)));
+		}
+
 		EPPContactInfoResp theResponse = null;
 
 		if (theCommand.getId().contains("Minimal")) {
@@ -411,6 +441,13 @@ public class ContactHandler extends EPPContactHandler {
 	protected EPPEventResponse doContactTransfer(EPPEvent aEvent, Object aData) {
 		EPPContactTransferCmd theCommand = (EPPContactTransferCmd) aEvent.getMessage();
 
+		// Process with the stateful registry when enabled
+		StubRegistry theRegistry = StubRegistry.getInstance();
+		if (theRegistry != null) {
+			return new EPPEventResponse(theRegistry.contactTransfer(theCommand,
+					StubRegistry.getClientId(aData)));
+		}
+
 		/**
 		 * Create the transId for the response with the client trans id and the
 		 * server trans id.
@@ -471,6 +508,13 @@ public class ContactHandler extends EPPContactHandler {
 	protected EPPEventResponse doContactCheck(EPPEvent aEvent, Object aData) {
 		EPPContactCheckCmd theMessage = (EPPContactCheckCmd) aEvent.getMessage();
 
+		// Process with the stateful registry when enabled
+		StubRegistry theRegistry = StubRegistry.getInstance();
+		if (theRegistry != null) {
+			return new EPPEventResponse(theRegistry.contactCheck(theMessage,
+					StubRegistry.getClientId(aData)));
+		}
+
 		// This is just a vector of strings representing Contact ID's
 		Vector vIds = theMessage.getIds();
 		Enumeration eIds = vIds.elements();
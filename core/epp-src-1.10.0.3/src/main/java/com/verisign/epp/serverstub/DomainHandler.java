@@ -36,6 +36,7 @@ import com.verisign.epp.codec.gen.*;
 
 // EPP imports
 import com.verisign.epp.framework.*;
+import com.verisign.epp.serverstub.repository.StubRegistry;
 import com.verisign.epp.util.EPPCatFactory;
 
 
@@ -135,6 +136,14 @@ public class DomainHandler extends EPPDomainHandler {
 	 */
 	protected EPPEventResponse doDomainCheck(EPPEvent aEvent, Object aData) {
 		EPPDomainCheckCmd theMessage  = (EPPDomainCheckCmd) aEvent.getMessage();
+
+		// Process with the stateful registry when enabled
+		StubRegistry theRegistry = StubRegistry.getInstance();
+		if (theRegistry != null) {
+			return new EPPEventResponse(theRegistry.domainCheck(theMessage,
+					StubRegistry.getClientId(aData)));
+		}
+
 		EPPResponse		  theResponse;
 
 		// This is just a vector of strings representing Domain Names
@@ -178,6 +187,14 @@ public class DomainHandler extends EPPDomainHandler {
 	 */
 	protected EPPEventResponse doDomainRenew(EPPEvent aEvent, Object aData) {
 		EPPDomainRenewCmd theMessage  = (EPPDomainRenewCmd) aEvent.getMessage();
+
+		// Process with the stateful registry when enabled
+		StubRegistry theRegistry = StubRegistry.getInstance();
+		if (theRegistry != null) {
+			return new EPPEventResponse(theRegistry.domainRenew(theMessage,
+					StubRegistry.getClientId(aData)));
+		}
+
 		EPPResponse		  theResponse;
 
 		/**
@@ -210,6 +227,13 @@ public class DomainHandler extends EPPDomainHandler {
 		EPPDomainDeleteCmd theMessage =
 			(EPPDomainDeleteCmd) aEvent.getMessage();
 
+		// Process with the stateful registry when enabled
+		StubRegistry theRegistry = StubRegistry.getInstance();
+		if (theRegistry != null) {
+			return new EPPEventResponse(theRegistry.domainDelete(theMessage,
+					StubRegistry.getClientId(aData)));
+		}
+
 		// Test with transId, domain name, and expiration date
 
 		/**
@@ -240,6 +264,13 @@ public class DomainHandler extends EPPDomainHandler {
 		EPPDomainCreateCmd theMessage =
 			(EPPDomainCreateCmd) aEvent.getMessage();
 
+		// Process with the stateful registry when enabled
+		StubRegistry theRegistry = StubRegistry.getInstance();
+		if (theRegistry != null) {
+			return new EPPEventResponse(theRegistry.domainCreate(theMessage,
+					StubRegistry.getClientId(aData)));
+		}
+
 		/**
 		 * Create the transId for the response with the client trans id and the
 		 * server trans id.
@@ -308,6 +339,13 @@ public class DomainHandler extends EPPDomainHandler {
 		EPPDomainTransferCmd theMessage =
 			(EPPDomainTransferCmd) aEvent.getMessage();
 
+		// Process with the stateful registry when enabled
+		StubRegistry theRegistry = StubRegistry.getInstance();
+		if (theRegistry != null) {
+			return new EPPEventResponse(theRegistry.domainTransfer(theMessage,
+					StubRegistry.getClientId(aData)));
+		}
+
 		/**
 		 * Create the transId for the response with the client trans id and the
 		 * server trans id.
@@ -380,6 +418,13 @@ public class DomainHandler extends EPPDomainHandler {
 		EPPDomainUpdateCmd theMessage =
 			(EPPDomainUpdateCmd) aEvent.getMessage();
 
+		// Process with the stateful registry when enabled
+		StubRegistry theRegistry = StubRegistry.getInstance();
+		if (theRegistry != null) {
+			return new EPPEventResponse(theRegistry.domainUpdate(theMessage,
+					StubRegistry.getClientId(aData)));
+		}
+
 		// Create Update Response (Standard EPPResponse)
 
 		/**
@@ -408,6 +453,13 @@ public class DomainHandler extends EPPDomainHandler {
 	protected EPPEventResponse doDomainInfo(EPPEvent aEvent, Object aData) {
 		EPPDomainInfoCmd theMessage = (EPPDomainInfoCmd) aEvent.getMessage();
 
+		// Process with the stateful registry when enabled
+		StubRegistry theRegistry = StubRegistry.getInstance();
+		if (theRegistry != null) {
+			return new EPPEventResponse(theRegistry.domainInfo(theMessage,
+					StubRegistry.getClientId(aData)));
+		}
+
 		// EPPDomainInfo Response requires a vector of status
 		Vector statuses = new Vector();
 		statuses.addElement(new EPPDomainStatus(EPPDomainStatus.ELM_STATUS_OK));
@@ -30,6 +30,7 @@ import com.verisign.epp.codec.host.*;
 
 // EPP Imports
 import com.verisign.epp.framework.*;
+import com.verisign.epp.serverstub.repository.StubRegistry;
 
 
 /**
@@ -121,6 +122,13 @@ public class HostHandler extends EPPHostHandler {
 	protected EPPEventResponse doHostUpdate(EPPEvent aEvent, Object aData) {
 		EPPHostUpdateCmd theMessage = (EPPHostUpdateCmd) aEvent.getMessage();
 
+		// Process with the stateful registry when enabled
+		StubRegistry theRegistry = StubRegistry.getInstance();
+		if (theRegistry != null) {
+			return new EPPEventResponse(theRegistry.hostUpdate(theMessage,
+					StubRegistry.getClientId(aData)));
+		}
+
 		/**
 		 * Create the transId for the response with the client trans id and the
 		 * server trans id.
@@ -148,6 +156,13 @@ public class HostHandler extends EPPHostHandler {
 	protected EPPEventResponse doHostInfo(EPPEvent aEvent, Object aData) {
 		EPPHostInfoCmd theMessage = (EPPHostInfoCmd) aEvent.getMessage();
 
+		// Process with the stateful registry when enabled
+		StubRegistry theRegistry = StubRegistry.getInstance();
+		if (theRegistry != null) {
+			return new EPPEventResponse(theRegistry.hostInfo(theMessage,
+					StubRegistry.getClientId(aData)));
+		}
+
 		/**
 		 * Create the transId for the response with the client trans id and the
 		 * server trans id.
@@ -194,6 +209,13 @@ public class HostHandler extends EPPHostHandler {
 	protected EPPEventResponse doHostDelete(EPPEvent aEvent, Object aData) {
 		EPPHostDeleteCmd theMessage = (EPPHostDeleteCmd) aEvent.getMessage();
 
+		// Process with the stateful registry when enabled
+		StubRegistry theRegistry = StubRegistry.getInstance();
+		if (theRegistry != null) {
+			return new EPPEventResponse(theRegistry.hostDelete(theMessage,
+					StubRegistry.getClientId(aData)));
+		}
+
 		/**
 		 * Create the transId for the response with the client trans id and the
 		 * server trans id.
@@ -221,6 +243,13 @@ public class HostHandler extends EPPHostHandler {
 	protected EPPEventResponse doHostCheck(EPPEvent aEvent, Object aData) {
 		EPPHostCheckCmd theMessage = (EPPHostCheckCmd) aEvent.getMessage();
 
+		// Process with the stateful registry when enabled
+		StubRegistry theRegistry = StubRegistry.getInstance();
+		if (theRegistry != null) {
+			return new EPPEventResponse(theRegistry.hostCheck(theMessage,
+					StubRegistry.getClientId(aData)));
+		}
+
 		Vector		    hosts    = theMessage.getNames();
 		Enumeration     eHosts   = hosts.elements();
 		Vector		    vResults = new Vector();
@@ -259,6 +288,13 @@ public class HostHandler extends EPPHostHandler {
 	protected EPPEventResponse doHostCreate(EPPEvent aEvent, Object aData) {
 		EPPHostCreateCmd theMessage = (EPPHostCreateCmd) aEvent.getMessage();
 
+		// Process with the stateful registry when enabled
+		StubRegistry theRegistry = StubRegistry.getInstance();
+		if (theRegistry != null) {
+			return new EPPEventResponse(theRegistry.hostCreate(theMessage,
+					StubRegistry.getClientId(aData)));
+		}
+
 		// Create the Response (Standard EPPResponse)
 
 		/**
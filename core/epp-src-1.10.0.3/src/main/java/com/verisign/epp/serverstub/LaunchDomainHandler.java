@@ -20,10 +20,10 @@ http://www.verisign.com/nds/naming/namestore/techdocs.html
 package com.verisign.epp.serverstub;
 
 // Logging Imports
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.security.KeyStore;
 import java.security.cert.CertStore;
 import java.security.cert.CertificateFactory;
@@ -82,7 +82,9 @@ import com.verisign.epp.framework.EPPEvent;
 import com.verisign.epp.framework.EPPEventResponse;
 import com.verisign.epp.framework.EPPPollQueueException;
 import com.verisign.epp.framework.EPPPollQueueMgr;
+import com.verisign.epp.util.EPPByteBufferInputStream;
 import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPCertPathValidationService;
 import com.verisign.epp.util.EPPSchemaCachingParser;
 import com.verisign.epp.util.Environment;
 
@@ -102,6 +104,12 @@ public class LaunchDomainHandler extends DomainHandler {
 	 */
 	private PKIXParameters pkixParameters;
 
+	/**
+	 * Service used to validate and cache the certificate paths in signed
+	 * marks.
+	 */
+	private EPPCertPathValidationService certPathValidationService;
+
 	/**
 	 * SMD revocation list
 	 */
@@ -141,6 +149,8 @@ public class LaunchDomainHandler extends DomainHandler {
 
 		try {
 			this.pkixParameters = this.loadPKIXParameters(truststore, crls);
+			this.certPathValidationService = new EPPCertPathValidationService(
+					this.pkixParameters);
 		}
 		catch (Exception ex) {
 			cat.error("LaunchDomainHandler.LaunchDomainHandler(): Error loading the public key: "
@@ -695,7 +705,7 @@ public class LaunchDomainHandler extends DomainHandler {
 					if (!(signedMarks.get(0) instanceof EPPEncodedSignedMark)
 							&& (aData != null)
 							&& (aData instanceof SessionData)
-							&& ((SessionData) aData).getAttribute("PACKET") != null) {
+							&& ((SessionData) aData).getPacket() != null) {
 						// Re-parse the XML without normalization and set the
 						// signed marks for validation
 						EPPSchemaCachingParser theParser = new EPPSchemaCachingParser();
@@ -706,14 +716,17 @@ public class LaunchDomainHandler extends DomainHandler {
 
 							SessionData sessionData = (SessionData) aData;
 
-							byte[] packet = (byte[]) sessionData
-									.getAttribute("PACKET");
+							ByteBuffer packet = sessionData.getPacket();
 
-							cat.debug("Command with signed mark = ["
-									+ new String(packet) + "]");
+							if (cat.isDebugEnabled()) {
+								byte[] theBytes = new byte[packet.remaining()];
+								packet.duplicate().get(theBytes);
+								cat.debug("Command with signed mark = ["
+										+ new String(theBytes) + "]");
+							}
 
 							Document theDoc = theParser
-									.parse(new ByteArrayInputStream(packet));
+									.parse(new EPPByteBufferInputStream(packet));
 							EPPDomainCreateCmd theCreateCmd = (EPPDomainCreateCmd) EPPCodec
 									.getInstance().decode(theDoc);
 
@@ -759,7 +772,7 @@ public class LaunchDomainHandler extends DomainHandler {
 												signedMarkXML.getBytes(), true)));
 
 						// Signature valid?
-						if (signedMark.validate(this.pkixParameters)) {
+						if (signedMark.validate(this.certPathValidationService)) {
 							cat.debug("LaunchDomainHandler.doDomainCreate: Signature is valid");
 						}
 						else {
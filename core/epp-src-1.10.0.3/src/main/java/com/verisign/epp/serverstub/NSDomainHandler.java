@@ -120,6 +120,7 @@ import com.verisign.epp.framework.EPPEventResponse;
 import com.verisign.epp.framework.EPPHandleEventException;
 import com.verisign.epp.framework.EPPPollQueueException;
 import com.verisign.epp.framework.EPPPollQueueMgr;
+import com.verisign.epp.serverstub.repository.StubRegistry;
 import com.verisign.epp.util.EPPCatFactory;
 
 /**
@@ -295,6 +296,13 @@ public class NSDomainHandler extends EPPDomainHandler {
 	protected EPPEventResponse doDomainCheck(EPPEvent aEvent, Object aData) {
 		EPPDomainCheckCmd theMessage = (EPPDomainCheckCmd) aEvent.getMessage();
 
+		// Process with the stateful registry when enabled
+		EPPEventResponse theRegistryResponse = this.doRegistry(theMessage,
+				aData);
+		if (theRegistryResponse != null) {
+			return theRegistryResponse;
+		}
+
 		cat.debug("doDomainCheck: command = [" + theMessage + "]");
 
 		EPPResponse theResponse;
@@ -426,6 +434,13 @@ public class NSDomainHandler extends EPPDomainHandler {
 	protected EPPEventResponse doDomainRenew(EPPEvent aEvent, Object aData) {
 		EPPDomainRenewCmd theMessage = (EPPDomainRenewCmd) aEvent.getMessage();
 
+		// Process with the stateful registry when enabled
+		EPPEventResponse theRegistryResponse = this.doRegistry(theMessage,
+				aData);
+		if (theRegistryResponse != null) {
+			return theRegistryResponse;
+		}
+
 		cat.debug("doDomainRenew: command = [" + theMessage + "]");
 
 		EPPResponse theResponse;
@@ -519,6 +534,13 @@ public class NSDomainHandler extends EPPDomainHandler {
 		EPPDomainDeleteCmd theMessage = (EPPDomainDeleteCmd) aEvent
 				.getMessage();
 
+		// Process with the stateful registry when enabled
+		EPPEventResponse theRegistryResponse = this.doRegistry(theMessage,
+				aData);
+		if (theRegistryResponse != null) {
+			return theRegistryResponse;
+		}
+
 		cat.debug("doDomainDelete: command = [" + theMessage + "]");
 
 		// Launch Domain Delete Command?
@@ -615,6 +637,13 @@ public class NSDomainHandler extends EPPDomainHandler {
 		EPPDomainCreateCmd theMessage = (EPPDomainCreateCmd) aEvent
 				.getMessage();
 
+		// Process with the stateful registry when enabled
+		EPPEventResponse theRegistryResponse = this.doRegistry(theMessage,
+				aData);
+		if (theRegistryResponse != null) {
+			return theRegistryResponse;
+		}
+
 		cat.debug("doDomainCreate: command = [" + theMessage + "]");
 
 		// Launch Domain Create Command?
@@ -1069,6 +1098,13 @@ public class NSDomainHandler extends EPPDomainHandler {
 		EPPDomainTransferCmd theMessage = (EPPDomainTransferCmd) aEvent
 				.getMessage();
 
+		// Process with the stateful registry when enabled
+		EPPEventResponse theRegistryResponse = this.doRegistry(theMessage,
+				aData);
+		if (theRegistryResponse != null) {
+			return theRegistryResponse;
+		}
+
 		cat.debug("doDomainTransfer: command = [" + theMessage + "]");
 
 		// Related Domain Transfer?
@@ -1231,6 +1267,13 @@ public class NSDomainHandler extends EPPDomainHandler {
 		EPPDomainUpdateCmd theMessage = (EPPDomainUpdateCmd) aEvent
 				.getMessage();
 
+		// Process with the stateful registry when enabled
+		EPPEventResponse theRegistryResponse = this.doRegistry(theMessage,
+				aData);
+		if (theRegistryResponse != null) {
+			return theRegistryResponse;
+		}
+
 		cat.debug("doDomainUpdate: command = [" + theMessage + "]");
 
 		// Launch Domain Update Command?
@@ -1546,6 +1589,13 @@ public class NSDomainHandler extends EPPDomainHandler {
 	protected EPPEventResponse doDomainInfo(EPPEvent aEvent, Object aData) {
 		EPPDomainInfoCmd theMessage = (EPPDomainInfoCmd) aEvent.getMessage();
 
+		// Process with the stateful registry when enabled
+		EPPEventResponse theRegistryResponse = this.doRegistry(theMessage,
+				aData);
+		if (theRegistryResponse != null) {
+			return theRegistryResponse;
+		}
+
 		cat.debug("doDomainInfo: command = [" + theMessage + "]");
 
 		// Launch Domain Info Command?
@@ -1863,4 +1913,78 @@ public class NSDomainHandler extends EPPDomainHandler {
 
 		return new EPPEventResponse(theResponse);
 	}
+
+	/**
+	 * Processes a domain command with the stateful registry of the Stub
+	 * Server when it is enabled and the command has no extension other than
+	 * the NameStore Extension, which is mirrored in the response. Commands
+	 * with other extensions are processed by the extension handlers.
+	 * 
+	 * @param aMessage
+	 *            Domain command
+	 * @param aData
+	 *            <code>SessionData</code> of the session
+	 * 
+	 * @return Response of the registry if processed; <code>null</code>
+	 *         otherwise.
+	 */
+	private EPPEventResponse doRegistry(EPPCommand aMessage, Object aData) {
+		StubRegistry theRegistry = StubRegistry.getInstance();
+		if (theRegistry == null) {
+			return null;
+		}
+
+		if (aMessage.hasExtensions()) {
+			Iterator theIter = aMessage.getExtensions().iterator();
+			while (theIter.hasNext()) {
+				if (!(theIter.next() instanceof EPPNamestoreExtNamestoreExt)) {
+					return null;
+				}
+			}
+		}
+
+		String theClientId = StubRegistry.getClientId(aData);
+		EPPResponse theResponse;
+
+		if (aMessage instanceof EPPDomainCheckCmd) {
+			theResponse = theRegistry.domainCheck(
+					(EPPDomainCheckCmd) aMessage, theClientId);
+		}
+		else if (aMessage instanceof EPPDomainCreateCmd) {
+			theResponse = theRegistry.domainCreate(
+					(EPPDomainCreateCmd) aMessage, theClientId);
+		}
+		else if (aMessage instanceof EPPDomainInfoCmd) {
+			theResponse = theRegistry.domainInfo((EPPDomainInfoCmd) aMessage,
+					theClientId);
+		}
+		else if (aMessage instanceof EPPDomainDeleteCmd) {
+			theResponse = theRegistry.domainDelete(
+					(EPPDomainDeleteCmd) aMessage, theClientId);
+		}
+		else if (aMessage instanceof EPPDomainRenewCmd) {
+			theResponse = theRegistry.domainRenew(
+					(EPPDomainRenewCmd) aMessage, theClientId);
+		}
+		else if (aMessage instanceof EPPDomainUpdateCmd) {
+			theResponse = theRegistry.domainUpdate(
+					(EPPDomainUpdateCmd) aMessage, theClientId);
+		}
+		else if (aMessage instanceof EPPDomainTransferCmd) {
+			theResponse = theRegistry.domainTransfer(
+					(EPPDomainTransferCmd) aMessage, theClientId);
+		}
+		else {
+			return null;
+		}
+
+		// Mirror NameStore Extension in response
+		if (aMessage.hasExtension(EPPNamestoreExtNamestoreExt.class)) {
+			theResponse.addExtension(aMessage
+					.getExtension(EPPNamestoreExtNamestoreExt.class));
+		}
+
+		return new EPPEventResponse(theResponse);
+	}
+
 }
@@ -22,6 +22,7 @@ package com.verisign.epp.serverstub;
 
 // java imports
 import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
 
 // EPP Imports
 import com.verisign.epp.framework.*;
@@ -42,6 +43,13 @@ public class PollDataSource implements EPPPollDataSource {
 	/** In memory poll queue */
 	private Vector queue = new Vector();
 
+	/**
+	 * Guards <code>queue</code> and <code>msgId</code>.  A lock is used 
+	 * instead of <code>synchronized</code> methods, so that virtual threads 
+	 * don't pin their carrier thread while waiting on the queue.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+
 	/**
 	 * Gets data from queue
 	 *
@@ -54,11 +62,12 @@ public class PollDataSource implements EPPPollDataSource {
 	 *
 	 * @exception EPPPollQueueException Error getting message from queue
 	 */
-	public synchronized EPPPollDataRecord get(
+	public EPPPollDataRecord get(
 											  Object aRecp, Object aContextData)
 									   throws EPPPollQueueException {
 		EPPPollDataRecord obj = null;
 
+		lock.lock();
 		try {
 			obj = (EPPPollDataRecord) queue.firstElement();
 			obj.setSize(queue.size());
@@ -68,6 +77,9 @@ public class PollDataSource implements EPPPollDataSource {
 											EPPPollQueueException.TYPE_QUEUE_EMPTY,
 											"PollDataSource.get(), Empty queue");
 		}
+		 finally {
+			lock.unlock();
+		}
 
 		return obj;
 	}
@@ -82,15 +94,21 @@ public class PollDataSource implements EPPPollDataSource {
 	 * 		  data source (i.e. database connection).  Not  used by the Server
 	 * 		  Stub.
 	 */
-	public synchronized void put(
+	public void put(
 								 Object aRecp, String aKind, Object aData,
 								 Object aContextData) {
-		// Create the poll data record
-		EPPPollDataRecord dataRecord =
-			new EPPPollDataRecord(aKind, aData, ++msgId + "");
+		lock.lock();
+		try {
+			// Create the poll data record
+			EPPPollDataRecord dataRecord =
+				new EPPPollDataRecord(aKind, aData, ++msgId + "");
 
-		// Insert poll data record into queue
-		queue.addElement(dataRecord);
+			// Insert poll data record into queue
+			queue.addElement(dataRecord);
+		}
+		 finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -107,18 +125,24 @@ public class PollDataSource implements EPPPollDataSource {
 	 *
 	 * @exception EPPPollQueueException Error deleting message
 	 */
-	public synchronized int delete(
+	public int delete(
 								   Object aRecp, String aMsgId,
 								   Object aContextData)
 							throws EPPPollQueueException {
-		if (queue.size() == 0) {
-			throw new EPPPollQueueException(
-											EPPPollQueueException.TYPE_MSGID_NOT_FOUND,
-											"No messages in queue");
-		}
+		lock.lock();
+		try {
+			if (queue.size() == 0) {
+				throw new EPPPollQueueException(
+												EPPPollQueueException.TYPE_MSGID_NOT_FOUND,
+												"No messages in queue");
+			}
 
-		queue.remove(0);
+			queue.remove(0);
 
-		return queue.size();
+			return queue.size();
+		}
+		 finally {
+			lock.unlock();
+		}
 	}
 }
@@ -35,7 +35,11 @@ import java.util.Vector;
 import com.verisign.epp.codec.gen.*;
 import com.verisign.epp.framework.*;
 import com.verisign.epp.interfaces.EPPCommandException;
+import com.verisign.epp.serverstub.repository.MemStubRepository;
+import com.verisign.epp.serverstub.repository.StubRegistry;
+import com.verisign.epp.serverstub.repository.StubRepository;
 import com.verisign.epp.transport.*;
+import com.verisign.epp.transport.server.EPPNioServer;
 import com.verisign.epp.util.*;
 
 
@@ -68,6 +72,9 @@ public class Server {
 	/** The port this server listens for connections on */
 	private int port;
 
+	/** The EPP Event Handlers registered with the dispatcher */
+	private Vector eventHandlers = new Vector();
+
 	/**
 	 * Construct a Server instance
 	 *
@@ -90,16 +97,25 @@ public class Server {
 			// Initialize the dispatcher
 			initializeDispatcher();
 
-			// Initialize the data source (in memory queue)
-			EPPPollQueueMgr.getInstance().setDataSource(new PollDataSource());
+			// Initialize the data source (in memory or persistent queue)
+			initializePollDataSource();
 
 			// Initialize the poll queue
 			initializePollQueue();
 
+			// Initialize the stateful registry (optional)
+			initializeRepository();
+
 			cat.info("EPP Server: Starting server...");
 			cat.info("EPP Server: Creating server socket...");
 
 			EPPServerCon theServer = theFactory.getEPPServer();
+
+			// Non-blocking servers process packets with the byte array dispatcher
+			if (theServer instanceof EPPNioServer) {
+				initializeByteArrayDispatcher();
+			}
+
 			theServer.RunServer(new ClientConnectionHandler());
 		}
 		 catch (EPPConException e) {
@@ -213,6 +229,70 @@ public class Server {
 		}
 	}
 
+	/**
+	 * Initialize the poll data source, which is the persistent
+	 * <code>EPPMappedPollDataSource</code> when
+	 * EPP.PollDataSource.Directory is defined and the in memory
+	 * <code>PollDataSource</code> otherwise.
+	 *
+	 * @throws EPPPollQueueException Error opening the persistent poll queue
+	 */
+	public void initializePollDataSource() throws EPPPollQueueException {
+		String theDirectory = EPPEnv.getPollDataSourceDirectory();
+
+		if (theDirectory == null) {
+			EPPPollQueueMgr.getInstance().setDataSource(new PollDataSource());
+		}
+		else {
+			cat.info("EPP Server: Opening persistent poll queue in "
+					 + theDirectory);
+			EPPPollQueueMgr.getInstance().setDataSource(
+					new EPPMappedPollDataSource(new File(theDirectory),
+							EPPEnv.getPollDataSourceSegmentSize(),
+							EPPEnv.getPollDataSourceCompactInterval(),
+							EPPEnv.getPollDataSourceSync()));
+		}
+	}
+
+	/**
+	 * Initialize the stateful registry of the Stub Server when
+	 * EPP.Repository.Enabled is <code>true</code>.  The registry is loaded
+	 * from and saved to EPP.Repository.SnapshotFile when it is defined, and
+	 * the last snapshot is taken when the server shuts down.
+	 *
+	 * @throws IOException Error loading the snapshot file
+	 */
+	public void initializeRepository() throws IOException {
+		if (!EPPEnv.getRepositoryEnabled()) {
+			return;
+		}
+
+		String theSnapshotFile = EPPEnv.getRepositorySnapshotFile();
+
+		final StubRepository theRepository;
+		if (theSnapshotFile == null) {
+			cat.info("EPP Server: Using in memory registry");
+			theRepository = new MemStubRepository();
+		}
+		else {
+			cat.info("EPP Server: Using registry with snapshot file "
+					 + theSnapshotFile);
+			theRepository = new MemStubRepository(new File(theSnapshotFile),
+					EPPEnv.getRepositorySnapshotInterval());
+		}
+
+		StubRegistry.setInstance(new StubRegistry(theRepository));
+
+		Runtime.getRuntime().addShutdownHook(
+				new Thread("Server-RepositoryShutdown") {
+
+					public void run() {
+						StubRegistry.setInstance(null);
+						theRepository.close();
+					}
+				});
+	}
+
 	/**
 	 * Initialize the poll handler based on the EPP.PollHandlers,
 	 */
@@ -290,8 +370,11 @@ public class Server {
 			while (e.hasMoreElements()) {
 				String handlerClassName = (String) e.nextElement();
 				Class  handlerClass = Class.forName(handlerClassName);
-				theDispatcher.registerHandler((com.verisign.epp.framework.EPPEventHandler) handlerClass
-											  .newInstance());
+				com.verisign.epp.framework.EPPEventHandler handler =
+					(com.verisign.epp.framework.EPPEventHandler) handlerClass
+					.newInstance();
+				theDispatcher.registerHandler(handler);
+				eventHandlers.addElement(handler);
 
 				cat.info("Successfully loaded server handler: "
 						 + handlerClass.getName());
@@ -420,6 +503,30 @@ public class Server {
 		theDispatcher.registerConnectionHandler(new ConnectionHandler());
 	}
 
+	/**
+	 * Initializes the <code>EPPByteArrayDispatcher</code> used by the
+	 * non-blocking servers with the EPP Event Handlers registered by
+	 * <code>initializeDispatcher()</code>, an
+	 * <code>EPPXMLByteArrayAssembler</code>, and the
+	 * <code>ConnectionHandler</code> for the greeting.
+	 */
+	public void initializeByteArrayDispatcher() {
+		EPPByteArrayDispatcher theDispatcher =
+			EPPByteArrayDispatcher.getInstance();
+
+		Enumeration e = eventHandlers.elements();
+
+		while (e.hasMoreElements()) {
+			theDispatcher.registerHandler((com.verisign.epp.framework.EPPEventHandler) e
+										  .nextElement());
+		}
+
+		theDispatcher.setAssembler(new EPPXMLByteArrayAssembler());
+		theDispatcher.registerConnectionHandler(new ConnectionHandler());
+
+		cat.info("Successfully initialized the byte array dispatcher");
+	}
+
 	/**
 	 * Runs the Server
 	 *
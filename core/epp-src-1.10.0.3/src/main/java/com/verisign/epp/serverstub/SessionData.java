@@ -20,6 +20,7 @@ http://www.verisign.com/nds/naming/namestore/techdocs.html
 package com.verisign.epp.serverstub;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.util.Hashtable;
 
 import com.verisign.epp.codec.gen.EPPGreeting;
@@ -50,6 +51,12 @@ public class SessionData implements Cloneable, Serializable {
 	 */
 	private EPPLoginCmd loginCmd = null; 
 
+	/**
+	 * Packet of the command being processed, which references the frame
+	 * buffer of the connection and is not copied.
+	 */
+	private transient ByteBuffer packet = null;
+
 	/**
 	 * Constructs a new SessionData instance
 	 */
@@ -150,6 +157,34 @@ public class SessionData implements Cloneable, Serializable {
 		greeting = aGreeting;
 	}
 
+	/**
+	 * Gets a read-only view of the original XML packet of the command being
+	 * processed, which can be used to re-parse the command. The view is
+	 * created on each call and shares the frame buffer of the connection, so
+	 * it is only valid while the command is processed. Use
+	 * <code>new EPPByteBufferInputStream(getPacket())</code> to read the
+	 * packet.
+	 *
+	 * @return Read-only view of the packet between its position and limit
+	 *         if set; <code>null</code> otherwise.
+	 */
+	public ByteBuffer getPacket() {
+		if (this.packet == null) {
+			return null;
+		}
+		return this.packet.asReadOnlyBuffer();
+	}
+
+	/**
+	 * Sets the original XML packet of the command being processed. The
+	 * buffer is referenced and not copied.
+	 *
+	 * @param aPacket Buffer with the packet between its position and limit
+	 */
+	public void setPacket(ByteBuffer aPacket) {
+		this.packet = aPacket;
+	}
+
 	/**
 	 * Sets a session attribute by use an attribute name (key) along with 
 	 * an attribute value.
@@ -27,6 +27,7 @@ import java.security.KeyStoreException;
 import java.security.cert.PKIXParameters;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.List;
 import java.util.Vector;
 
 import org.apache.log4j.Logger;
@@ -45,6 +46,7 @@ import com.verisign.epp.codec.gen.EPPResult;
 import com.verisign.epp.codec.gen.EPPTransId;
 import com.verisign.epp.codec.verificationcode.EPPEncodedSignedCode;
 import com.verisign.epp.codec.verificationcode.EPPEncodedSignedCodeValue;
+import com.verisign.epp.codec.verificationcode.EPPSignedCode;
 import com.verisign.epp.codec.verificationcode.EPPVerificationCode;
 import com.verisign.epp.codec.verificationcode.EPPVerificationCodeInfData;
 import com.verisign.epp.codec.verificationcode.EPPVerificationCodeInfo;
@@ -55,6 +57,7 @@ import com.verisign.epp.exception.EPPException;
 import com.verisign.epp.framework.EPPEvent;
 import com.verisign.epp.framework.EPPEventResponse;
 import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPCertPathValidationService;
 import com.verisign.epp.util.Environment;
 
 /**
@@ -79,6 +82,12 @@ public class VerificationCodeDomainHandler extends DomainHandler {
 	 */
 	private PKIXParameters pkixParameters;
 
+	/**
+	 * Service used to validate and cache the certificate paths in signed
+	 * codes.
+	 */
+	private EPPCertPathValidationService certPathValidationService;
+
 	/**
 	 * verification code revocation list
 	 */
@@ -112,6 +121,8 @@ public class VerificationCodeDomainHandler extends DomainHandler {
 
 		try {
 			this.pkixParameters = this.loadPKIXParameters(truststore);
+			this.certPathValidationService = new EPPCertPathValidationService(
+					this.pkixParameters);
 		}
 		catch (Exception ex) {
 			cat.error("VerificationCodeDomainHandler.VerificationCodeDomainHandler(): Error loading the public key: "
@@ -237,10 +248,17 @@ public class VerificationCodeDomainHandler extends DomainHandler {
 			EPPEncodedSignedCode theExt = (EPPEncodedSignedCode) aCommand
 					.getExtension(EPPEncodedSignedCode.class);
 
-			for (EPPEncodedSignedCodeValue signedCode : theExt.getSignedCodes()) {
+			// Validate the signatures of all of the signed codes in parallel
+			List<EPPEncodedSignedCodeValue> signedCodes = theExt
+					.getSignedCodes();
+			boolean[] signaturesValid = EPPSignedCode.validate(signedCodes,
+					this.certPathValidationService);
+
+			for (int i = 0; i < signedCodes.size(); i++) {
+				EPPEncodedSignedCodeValue signedCode = signedCodes.get(i);
 
 				// Signature valid?
-				if (signedCode.validate(pkixParameters)) {
+				if (signaturesValid[i]) {
 					cat.debug("VerificationCodeDomainHandler." + aMethod
 							+ ": Signature is valid");
 
@@ -0,0 +1,348 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.serverstub.repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPExecutors;
+
+/**
+ * In-memory {@link StubRepository} that keeps the objects of each type in a
+ * <code>ConcurrentHashMap</code>, so reads do not lock and updates only lock
+ * the hash bin of the object. <br>
+ * <br>
+ * The objects can be saved to a snapshot file, which is loaded when the
+ * repository is created, every snapshot interval and on {@link #close()}.
+ * A snapshot is written to a temporary file that replaces the snapshot
+ * file once it is complete, so a crash leaves the previous snapshot. The
+ * snapshot is taken while the objects are being updated, so it contains
+ * each object as of some point during the snapshot.
+ */
+public class MemStubRepository implements StubRepository {
+
+	/**
+	 * Default interval in milliseconds between snapshots.
+	 */
+	public static final long DEFAULT_SNAPSHOT_INTERVAL = 60000;
+
+	/**
+	 * Magic number of the snapshot file.
+	 */
+	private static final int SNAPSHOT_MAGIC = 0x45505352;
+
+	/**
+	 * Version of the snapshot file format.
+	 */
+	private static final int SNAPSHOT_VERSION = 1;
+
+	/**
+	 * Number of object types.
+	 */
+	private static final int NUM_TYPES = 3;
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(MemStubRepository.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/**
+	 * Objects by type and key.
+	 */
+	private final ConcurrentHashMap<String, StubObject>[] objects;
+
+	/**
+	 * Snapshot file, <code>null</code> without snapshots.
+	 */
+	private final File snapshotFile;
+
+	/**
+	 * Serializes the snapshots.
+	 */
+	private final ReentrantLock snapshotLock = new ReentrantLock();
+
+	/**
+	 * Takes the periodic snapshots.
+	 */
+	private ScheduledExecutorService snapshotter = null;
+
+	/**
+	 * Creates a repository without snapshots.
+	 */
+	public MemStubRepository() {
+		this.objects = newMaps();
+		this.snapshotFile = null;
+	}
+
+	/**
+	 * Creates a repository that is loaded from and saved to a snapshot file.
+	 *
+	 * @param aSnapshotFile
+	 *            Snapshot file, which is loaded if it exists
+	 * @param aSnapshotInterval
+	 *            Interval in milliseconds between snapshots, where
+	 *            <code>0</code> only saves the snapshot on
+	 *            {@link #close()}
+	 *
+	 * @throws IOException
+	 *             Error loading the snapshot file
+	 */
+	public MemStubRepository(File aSnapshotFile, long aSnapshotInterval)
+			throws IOException {
+		this.objects = newMaps();
+		this.snapshotFile = aSnapshotFile;
+
+		if (aSnapshotFile.exists()) {
+			this.load();
+		}
+
+		if (aSnapshotInterval > 0) {
+			this.snapshotter = Executors
+					.newSingleThreadScheduledExecutor(EPPExecutors
+							.newThreadFactory("MemStubRepository-snapshot"));
+			this.snapshotter.scheduleWithFixedDelay(new Runnable() {
+
+				public void run() {
+					try {
+						snapshot();
+					}
+					catch (Throwable ex) {
+						cat.error("snapshot(): Error saving snapshot: " + ex,
+								ex);
+					}
+				}
+			}, aSnapshotInterval, aSnapshotInterval, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Creates the maps of the object types.
+	 *
+	 * @return Empty map per object type
+	 */
+	@SuppressWarnings("unchecked")
+	private static ConcurrentHashMap<String, StubObject>[] newMaps() {
+		ConcurrentHashMap<String, StubObject>[] theMaps = new ConcurrentHashMap[NUM_TYPES];
+		for (int i = 0; i < NUM_TYPES; i++) {
+			theMaps[i] = new ConcurrentHashMap<String, StubObject>();
+		}
+		return theMaps;
+	}
+
+	/**
+	 * Gets an object.
+	 *
+	 * @param aType
+	 *            {@link #DOMAIN}, {@link #HOST}, or {@link #CONTACT}
+	 * @param aKey
+	 *            Lower case name or identifier
+	 *
+	 * @return Stored object if found; <code>null</code> otherwise.
+	 */
+	public StubObject get(int aType, String aKey) {
+		return this.objects[aType].get(aKey);
+	}
+
+	/**
+	 * Stores an object if an object with the same key does not exist.
+	 *
+	 * @param aType
+	 *            {@link #DOMAIN}, {@link #HOST}, or {@link #CONTACT}
+	 * @param aObject
+	 *            Object to create
+	 *
+	 * @return <code>null</code> if created; the existing object otherwise.
+	 */
+	public StubObject create(int aType, StubObject aObject) {
+		return this.objects[aType].putIfAbsent(aObject.getKey(), aObject);
+	}
+
+	/**
+	 * Atomically replaces or deletes an object with
+	 * <code>ConcurrentHashMap.compute</code>.
+	 *
+	 * @param aType
+	 *            {@link #DOMAIN}, {@link #HOST}, or {@link #CONTACT}
+	 * @param aKey
+	 *            Lower case name or identifier
+	 * @param aUpdater
+	 *            Computes the new version of the object
+	 *
+	 * @return Object stored after the update, or <code>null</code> if the
+	 *         object does not exist after the update.
+	 */
+	public StubObject update(int aType, String aKey, final Updater aUpdater) {
+		return this.objects[aType].compute(aKey,
+				new BiFunction<String, StubObject, StubObject>() {
+
+					public StubObject apply(String aComputeKey,
+							StubObject aCurrent) {
+						return aUpdater.update(aCurrent);
+					}
+				});
+	}
+
+	/**
+	 * Gets the number of objects of a type.
+	 *
+	 * @param aType
+	 *            {@link #DOMAIN}, {@link #HOST}, or {@link #CONTACT}
+	 *
+	 * @return Number of stored objects
+	 */
+	public int size(int aType) {
+		return this.objects[aType].size();
+	}
+
+	/**
+	 * Saves the objects to the snapshot file, if any.
+	 *
+	 * @throws IOException
+	 *             Error writing the snapshot
+	 */
+	public void snapshot() throws IOException {
+		if (this.snapshotFile == null) {
+			return;
+		}
+
+		this.snapshotLock.lock();
+		try {
+			long theStart = System.currentTimeMillis();
+			int theCount = 0;
+
+			File theTempFile = new File(this.snapshotFile.getPath() + ".tmp");
+			ObjectOutputStream theOut = new ObjectOutputStream(
+					new BufferedOutputStream(new FileOutputStream(theTempFile),
+							65536));
+			try {
+				theOut.writeInt(SNAPSHOT_MAGIC);
+				theOut.writeInt(SNAPSHOT_VERSION);
+
+				for (int theType = 0; theType < NUM_TYPES; theType++) {
+					Iterator<StubObject> theIter = this.objects[theType]
+							.values().iterator();
+					while (theIter.hasNext()) {
+						theOut.writeByte(theType);
+						theOut.writeObject(theIter.next());
+
+						// Objects are not shared between records
+						if (++theCount % 1000 == 0) {
+							theOut.reset();
+						}
+					}
+				}
+
+				theOut.writeByte(-1);
+			}
+			finally {
+				theOut.close();
+			}
+
+			Files.move(theTempFile.toPath(), this.snapshotFile.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+
+			cat.debug("snapshot(): Saved " + theCount + " objects to "
+					+ this.snapshotFile + " in "
+					+ (System.currentTimeMillis() - theStart) + " ms");
+		}
+		finally {
+			this.snapshotLock.unlock();
+		}
+	}
+
+	/**
+	 * Loads the objects of the snapshot file.
+	 *
+	 * @throws IOException
+	 *             Error reading the snapshot
+	 */
+	private void load() throws IOException {
+		int theCount = 0;
+
+		ObjectInputStream theIn = new ObjectInputStream(
+				new BufferedInputStream(new FileInputStream(this.snapshotFile),
+						65536));
+		try {
+			if (theIn.readInt() != SNAPSHOT_MAGIC
+					|| theIn.readInt() != SNAPSHOT_VERSION) {
+				throw new IOException("Invalid snapshot file "
+						+ this.snapshotFile);
+			}
+
+			for (int theType = theIn.readByte(); theType >= 0; theType = theIn
+					.readByte()) {
+				if (theType >= NUM_TYPES) {
+					throw new IOException("Invalid object type " + theType
+							+ " in snapshot file " + this.snapshotFile);
+				}
+
+				StubObject theObject = (StubObject) theIn.readObject();
+				this.objects[theType].put(theObject.getKey(), theObject);
+				theCount++;
+			}
+		}
+		catch (ClassNotFoundException ex) {
+			throw new IOException("Invalid object in snapshot file "
+					+ this.snapshotFile + ": " + ex);
+		}
+		finally {
+			theIn.close();
+		}
+
+		cat.info("load(): Loaded " + theCount + " objects from "
+				+ this.snapshotFile);
+	}
+
+	/**
+	 * Saves a final snapshot and stops the periodic snapshots.
+	 */
+	public void close() {
+		if (this.snapshotter != null) {
+			this.snapshotter.shutdown();
+			this.snapshotter = null;
+		}
+
+		try {
+			this.snapshot();
+		}
+		catch (IOException ex) {
+			cat.error("close(): Error saving snapshot: " + ex);
+		}
+	}
+
+}
@@ -0,0 +1,212 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.serverstub.repository;
+
+import java.io.Serializable;
+
+import com.verisign.epp.codec.gen.EPPAuthInfo;
+import com.verisign.epp.codec.gen.EPPResponse;
+
+/**
+ * Object stored in a {@link StubRepository}, which is a domain, host, or
+ * contact. The attributes of the object are held in the info response of its
+ * type (<code>EPPDomainInfoResp</code>, <code>EPPHostInfoResp</code>, or
+ * <code>EPPContactInfoResp</code>), so an info command is answered with a
+ * copy of {@link #getInfo()}. The authorization information is held
+ * separately in {@link #getAuthInfo()}, since it is only added to the info
+ * response of an authorized client. <br>
+ * <br>
+ * A <code>StubObject</code> is not changed once it is stored. An update
+ * creates a modified copy with {@link #copy()} and replaces the stored
+ * object with {@link StubRepository#update(int, String, StubRepository.Updater)},
+ * so readers never see a partial update.
+ */
+public class StubObject implements Serializable, Cloneable {
+
+	/**
+	 * Serial version of the snapshot format.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Key of the object, which is the lower case name or identifier.
+	 */
+	private String key;
+
+	/**
+	 * Attributes of the object.
+	 */
+	private EPPResponse info;
+
+	/**
+	 * Authorization information of the domain or contact.
+	 */
+	private EPPAuthInfo authInfo;
+
+	/**
+	 * Last transfer of the object, <code>null</code> if never transferred.
+	 */
+	private StubTransfer transfer;
+
+	/**
+	 * Number of domains that reference the host or contact.
+	 */
+	private int links;
+
+	/**
+	 * Creates an object.
+	 *
+	 * @param aKey
+	 *            Lower case name or identifier of the object
+	 * @param aInfo
+	 *            Info response holding the attributes of the object
+	 */
+	public StubObject(String aKey, EPPResponse aInfo) {
+		this.key = aKey;
+		this.info = aInfo;
+	}
+
+	/**
+	 * Creates a copy of the object with a copy of the attributes, which can
+	 * be modified by an {@link StubRepository.Updater}.
+	 *
+	 * @return Copy of the object
+	 */
+	public StubObject copy() {
+		try {
+			StubObject theCopy = (StubObject) super.clone();
+			theCopy.info = (EPPResponse) this.info.clone();
+			return theCopy;
+		}
+		catch (CloneNotSupportedException ex) {
+			throw new IllegalStateException("Error copying object " + this.key
+					+ ": " + ex);
+		}
+	}
+
+	/**
+	 * Creates a copy of the object with a changed number of referencing
+	 * domains. The attributes are shared with this object, since they do not
+	 * change.
+	 *
+	 * @param aDelta
+	 *            Change of the number of referencing domains
+	 *
+	 * @return Copy of the object
+	 */
+	public StubObject link(int aDelta) {
+		try {
+			StubObject theCopy = (StubObject) super.clone();
+			theCopy.links += aDelta;
+			return theCopy;
+		}
+		catch (CloneNotSupportedException ex) {
+			throw new IllegalStateException("Error copying object " + this.key
+					+ ": " + ex);
+		}
+	}
+
+	/**
+	 * Gets the key of the object.
+	 *
+	 * @return Lower case name or identifier
+	 */
+	public String getKey() {
+		return this.key;
+	}
+
+	/**
+	 * Gets the attributes of the object.
+	 *
+	 * @return Info response of the object type
+	 */
+	public EPPResponse getInfo() {
+		return this.info;
+	}
+
+	/**
+	 * Gets the authorization information of the domain or contact.
+	 *
+	 * @return Authorization information if defined; <code>null</code>
+	 *         otherwise.
+	 */
+	public EPPAuthInfo getAuthInfo() {
+		return this.authInfo;
+	}
+
+	/**
+	 * Sets the authorization information of the domain or contact.
+	 *
+	 * @param aAuthInfo
+	 *            Authorization information
+	 */
+	public void setAuthInfo(EPPAuthInfo aAuthInfo) {
+		this.authInfo = aAuthInfo;
+	}
+
+	/**
+	 * Gets the last transfer of the object.
+	 *
+	 * @return Last transfer if the object was transferred;
+	 *         <code>null</code> otherwise.
+	 */
+	public StubTransfer getTransfer() {
+		return this.transfer;
+	}
+
+	/**
+	 * Sets the last transfer of the object.
+	 *
+	 * @param aTransfer
+	 *            Last transfer
+	 */
+	public void setTransfer(StubTransfer aTransfer) {
+		this.transfer = aTransfer;
+	}
+
+	/**
+	 * Gets the number of domains that reference the host or contact.
+	 *
+	 * @return Number of referencing domains
+	 */
+	public int getLinks() {
+		return this.links;
+	}
+
+	/**
+	 * Sets the number of domains that reference the host or contact.
+	 *
+	 * @param aLinks
+	 *            Number of referencing domains
+	 */
+	public void setLinks(int aLinks) {
+		this.links = aLinks;
+	}
+
+	/**
+	 * Implementation of <code>Object.toString</code>.
+	 *
+	 * @return Key of the object
+	 */
+	public String toString() {
+		return "StubObject(" + this.key + ", links = " + this.links + ")";
+	}
+
+}
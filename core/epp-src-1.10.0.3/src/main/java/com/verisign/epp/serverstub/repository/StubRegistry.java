@@ -0,0 +1,2080 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.serverstub.repository;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.Vector;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.codec.contact.EPPContactAddChange;
+import com.verisign.epp.codec.contact.EPPContactCheckCmd;
+import com.verisign.epp.codec.contact.EPPContactCheckResp;
+import com.verisign.epp.codec.contact.EPPContactCheckResult;
+import com.verisign.epp.codec.contact.EPPContactCreateCmd;
+import com.verisign.epp.codec.contact.EPPContactCreateResp;
+import com.verisign.epp.codec.contact.EPPContactDeleteCmd;
+import com.verisign.epp.codec.contact.EPPContactInfoCmd;
+import com.verisign.epp.codec.contact.EPPContactInfoResp;
+import com.verisign.epp.codec.contact.EPPContactMapFactory;
+import com.verisign.epp.codec.contact.EPPContactStatus;
+import com.verisign.epp.codec.contact.EPPContactTransferCmd;
+import com.verisign.epp.codec.contact.EPPContactTransferResp;
+import com.verisign.epp.codec.contact.EPPContactUpdateCmd;
+import com.verisign.epp.codec.domain.EPPDomainAddRemove;
+import com.verisign.epp.codec.domain.EPPDomainCheckCmd;
+import com.verisign.epp.codec.domain.EPPDomainCheckResp;
+import com.verisign.epp.codec.domain.EPPDomainCheckResult;
+import com.verisign.epp.codec.domain.EPPDomainContact;
+import com.verisign.epp.codec.domain.EPPDomainCreateCmd;
+import com.verisign.epp.codec.domain.EPPDomainCreateResp;
+import com.verisign.epp.codec.domain.EPPDomainDeleteCmd;
+import com.verisign.epp.codec.domain.EPPDomainInfoCmd;
+import com.verisign.epp.codec.domain.EPPDomainInfoResp;
+import com.verisign.epp.codec.domain.EPPDomainMapFactory;
+import com.verisign.epp.codec.domain.EPPDomainPeriod;
+import com.verisign.epp.codec.domain.EPPDomainRenewCmd;
+import com.verisign.epp.codec.domain.EPPDomainRenewResp;
+import com.verisign.epp.codec.domain.EPPDomainStatus;
+import com.verisign.epp.codec.domain.EPPDomainTransferCmd;
+import com.verisign.epp.codec.domain.EPPDomainTransferResp;
+import com.verisign.epp.codec.domain.EPPDomainUpdateCmd;
+import com.verisign.epp.codec.gen.EPPAuthInfo;
+import com.verisign.epp.codec.gen.EPPCommand;
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.codec.gen.EPPResult;
+import com.verisign.epp.codec.gen.EPPTransId;
+import com.verisign.epp.codec.host.EPPHostAddRemove;
+import com.verisign.epp.codec.host.EPPHostCheckCmd;
+import com.verisign.epp.codec.host.EPPHostCheckResp;
+import com.verisign.epp.codec.host.EPPHostCheckResult;
+import com.verisign.epp.codec.host.EPPHostCreateCmd;
+import com.verisign.epp.codec.host.EPPHostCreateResp;
+import com.verisign.epp.codec.host.EPPHostDeleteCmd;
+import com.verisign.epp.codec.host.EPPHostInfoCmd;
+import com.verisign.epp.codec.host.EPPHostInfoResp;
+import com.verisign.epp.codec.host.EPPHostStatus;
+import com.verisign.epp.codec.host.EPPHostUpdateCmd;
+import com.verisign.epp.framework.EPPPollQueueException;
+import com.verisign.epp.framework.EPPPollQueueMgr;
+import com.verisign.epp.serverstub.SessionData;
+import com.verisign.epp.util.EPPCatFactory;
+
+/**
+ * Stateful registry of the Stub Server that processes the domain, host, and
+ * contact commands against a {@link StubRepository}, so the Stub Server can
+ * be used as a local registry for load and correctness tests. The commands
+ * follow the object mappings: objects are created once, referenced hosts and
+ * contacts must exist and can not be deleted while referenced, only the
+ * sponsoring client can change an object, and a transfer is pending until
+ * the sponsoring client approves or rejects it or the requesting client
+ * cancels it. Transfer notifications are put on the poll queue. <br>
+ * <br>
+ * The registry does not lock across commands. Each object is changed
+ * atomically by {@link StubRepository#update(int, String, StubRepository.Updater)},
+ * and a domain links its hosts and contacts before it is created, so two
+ * commands only wait for each other when they change the same object. <br>
+ * <br>
+ * The registry is enabled with {@link #setInstance(StubRegistry)}, which is
+ * done by the Stub Server when <code>EPP.Repository.Enabled</code> is
+ * <code>true</code>, and the handlers process the commands with the
+ * registry when {@link #getInstance()} is not <code>null</code>.
+ */
+public class StubRegistry {
+
+	/**
+	 * Maximum registration period in years.
+	 */
+	public static final int MAX_YEARS = 10;
+
+	/**
+	 * Days after which a pending transfer would be approved by the server,
+	 * which is returned as the action date.
+	 */
+	public static final int TRANSFER_DAYS = 5;
+
+	/**
+	 * Repository object identifier suffix.
+	 */
+	private static final String ROID_SUFFIX = "-STUB";
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(StubRegistry.class.getName(),
+			EPPCatFactory.getInstance().getFactory());
+
+	/**
+	 * Registry used by the handlers, <code>null</code> if disabled.
+	 */
+	private static volatile StubRegistry instance = null;
+
+	/**
+	 * Repository of the objects.
+	 */
+	private final StubRepository repository;
+
+	/**
+	 * Sequence of the repository object identifiers, which starts at the
+	 * current time so identifiers are not reused after a restart from a
+	 * snapshot.
+	 */
+	private final AtomicLong roidSeq = new AtomicLong(System
+			.currentTimeMillis());
+
+	/**
+	 * Sequence of the server transaction identifiers.
+	 */
+	private final AtomicLong svrTransIdSeq = new AtomicLong();
+
+	/**
+	 * Outcome of a change of an object by an updater.
+	 */
+	private static class Outcome {
+
+		/**
+		 * Result code of the command.
+		 */
+		int code = EPPResult.SUCCESS;
+
+		/**
+		 * Reason of an error result.
+		 */
+		String reason = null;
+
+		/**
+		 * Object before the change.
+		 */
+		StubObject previous = null;
+
+		/**
+		 * Sets an error result.
+		 *
+		 * @param aCode
+		 *            Result code
+		 * @param aReason
+		 *            Reason of the error
+		 */
+		void fail(int aCode, String aReason) {
+			this.code = aCode;
+			this.reason = aReason;
+		}
+
+		/**
+		 * Is the result a success?
+		 *
+		 * @return <code>true</code> if success; <code>false</code>
+		 *         otherwise.
+		 */
+		boolean isSuccess() {
+			return this.code < 2000;
+		}
+	}
+
+	/**
+	 * Creates a registry.
+	 *
+	 * @param aRepository
+	 *            Repository of the objects
+	 */
+	public StubRegistry(StubRepository aRepository) {
+		this.repository = aRepository;
+	}
+
+	/**
+	 * Gets the registry used by the handlers.
+	 *
+	 * @return Registry if enabled; <code>null</code> otherwise.
+	 */
+	public static StubRegistry getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Sets the registry used by the handlers.
+	 *
+	 * @param aRegistry
+	 *            Registry, or <code>null</code> to go back to the canned
+	 *            responses of the handlers
+	 */
+	public static void setInstance(StubRegistry aRegistry) {
+		instance = aRegistry;
+	}
+
+	/**
+	 * Gets the repository of the objects.
+	 *
+	 * @return Repository
+	 */
+	public StubRepository getRepository() {
+		return this.repository;
+	}
+
+	/**
+	 * Gets the client identifier of the session of a command.
+	 *
+	 * @param aData
+	 *            <code>SessionData</code> passed to the handler
+	 *
+	 * @return Login client identifier if logged in; <code>null</code>
+	 *         otherwise.
+	 */
+	public static String getClientId(Object aData) {
+		if (aData instanceof SessionData) {
+			SessionData theSessionData = (SessionData) aData;
+			if (theSessionData.getLoginCmd() != null) {
+				return theSessionData.getLoginCmd().getClientId();
+			}
+		}
+
+		return null;
+	}
+
+	// ------------------------------------------------------------------
+	// Domain commands
+	// ------------------------------------------------------------------
+
+	/**
+	 * Processes a domain check command.
+	 *
+	 * @param aCommand
+	 *            Domain check command
+	 * @param aClientId
+	 *            Client identifier of the session
+	 *
+	 * @return Check response
+	 */
+	public EPPResponse domainCheck(EPPDomainCheckCmd aCommand, String aClientId) {
+		Vector theResults = new Vector();
+
+		Vector theNames = aCommand.getNames();
+		for (int i = 0; i < theNames.size(); i++) {
+			String theName = (String) theNames.elementAt(i);
+			boolean isAvailable = this.repository.get(StubRepository.DOMAIN,
+					nameKey(theName)) == null;
+
+			EPPDomainCheckResult theResult = new EPPDomainCheckResult(theName,
+					isAvailable);
+			if (!isAvailable) {
+				theResult.setDomainReason("In use");
+			}
+			theResults.addElement(theResult);
+		}
+
+		EPPResponse theResponse = new EPPDomainCheckResp(this
+				.newTransId(aCommand), theResults);
+		theResponse.setResult(EPPResult.SUCCESS);
+		return theResponse;
+	}
+
+	/**
+	 * Processes a domain create command. The name servers and contacts are
+	 * linked before the domain is created and unlinked if the domain can not
+	 * be created.
+	 *
+	 * @param aCommand
+	 *            Domain create command
+	 * @param aClientId
+	 *            Client identifier of the session
+	 *
+	 * @return Create response
+	 */
+	public EPPResponse domainCreate(EPPDomainCreateCmd aCommand,
+			String aClientId) {
+		String theKey = nameKey(aCommand.getName());
+
+		if (this.repository.get(StubRepository.DOMAIN, theKey) != null) {
+			return this.error(aCommand, EPPResult.OBJECT_EXISTS,
+					"Domain exists");
+		}
+
+		Date theNow = new Date();
+		Date theExpirationDate = addPeriod(theNow, aCommand.getPeriod());
+		if (theExpirationDate == null) {
+			return this.error(aCommand, EPPResult.PARAM_VALUE_POLICY_ERROR,
+					"Invalid period");
+		}
+
+		List<String> theHosts = hostKeys(aCommand.getServers());
+		List<String> theContacts = contactKeys(aCommand.getRegistrant(),
+				aCommand.getContacts());
+
+		String theMissing = this.link(theHosts, theContacts);
+		if (theMissing != null) {
+			return this.error(aCommand, EPPResult.OBJECT_DOES_NOT_EXIST,
+					theMissing + " does not exist");
+		}
+
+		EPPDomainInfoResp theInfo = new EPPDomainInfoResp();
+		theInfo.setRoid(this.newRoid("D"));
+		theInfo.setName(theKey);
+		theInfo.setClientId(aClientId);
+		theInfo.setCreatedBy(aClientId);
+		theInfo.setCreatedDate(theNow);
+		theInfo.setExpirationDate(theExpirationDate);
+		theInfo.setRegistrant(aCommand.getRegistrant());
+		theInfo.setStatuses(new Vector());
+		theInfo.setNses(toVector(theHosts));
+		if (aCommand.getContacts() != null) {
+			theInfo.setContacts((Vector) aCommand.getContacts().clone());
+		}
+
+		StubObject theObject = new StubObject(theKey, theInfo);
+		theObject.setAuthInfo(aCommand.getAuthInfo());
+
+		if (this.repository.create(StubRepository.DOMAIN, theObject) != null) {
+			this.unlink(theHosts, theContacts);
+			return this.error(aCommand, EPPResult.OBJECT_EXISTS,
+					"Domain exists");
+		}
+
+		EPPResponse theResponse = new EPPDomainCreateResp(this
+				.newTransId(aCommand), theKey, theNow, theExpirationDate);
+		theResponse.setResult(EPPResult.SUCCESS);
+		return theResponse;
+	}
+
+	/**
+	 * Processes a domain info command. The authorization information is only
+	 * returned to the sponsoring client or with the authorization
+	 * information of the domain.
+	 *
+	 * @param aCommand
+	 *            Domain info command
+	 * @param aClientId
+	 *            Client identifier of the session
+	 *
+	 * @return Info response
+	 */
+	public EPPResponse domainInfo(EPPDomainInfoCmd aCommand, String aClientId) {
+		StubObject theObject = this.repository.get(StubRepository.DOMAIN,
+				nameKey(aCommand.getName()));
+		if (theObject == null) {
+			return this.error(aCommand, EPPResult.OBJECT_DOES_NOT_EXIST,
+					"Domain does not exist");
+		}
+
+		EPPDomainInfoResp theResponse = (EPPDomainInfoResp) theObject.copy()
+				.getInfo();
+
+		if (isAuthorized(theObject, aClientId, aCommand.getAuthInfo())) {
+			theResponse.setAuthInfo(theObject.getAuthInfo());
+		}
+
+		String theHosts = aCommand.getHosts();
+		if (EPPDomainInfoCmd.HOSTS_NONE.equals(theHosts)
+				|| EPPDomainInfoCmd.HOSTS_SUBORDINATE.equals(theHosts)) {
+			theResponse.setNses(null);
+		}
+
+		Vector theStatuses = theResponse.getStatuses();
+		if (theStatuses.isEmpty()) {
+			if (theResponse.getNses() == null
+					|| theResponse.getNses().isEmpty()) {
+				theStatuses.addElement(new EPPDomainStatus(
+						EPPDomainStatus.ELM_STATUS_INACTIVE));
+			}
+			else {
+				theStatuses.addElement(new EPPDomainStatus(
+						EPPDomainStatus.ELM_STATUS_OK));
+			}
+		}
+
+		return this.success(aCommand, theResponse);
+	}
+
+	/**
+	 * Processes a domain delete command, which unlinks the name servers and
+	 * contacts of the deleted domain.
+	 *
+	 * @param aCommand
+	 *            Domain delete command
+	 * @param aClientId
+	 *            Client identifier of the session
+	 *
+	 * @return Delete response
+	 */
+	public EPPResponse domainDelete(EPPDomainDeleteCmd aCommand,
+			String aClientId) {
+		Outcome theOutcome = this.delete(StubRepository.DOMAIN,
+				nameKey(aCommand.getName()), aClientId);
+		if (!theOutcome.isSuccess()) {
+			return this.error(aCommand, theOutcome);
+		}
+
+		EPPDomainInfoResp theInfo = (EPPDomainInfoResp) theOutcome.previous
+				.getInfo();
+		this.unlink(hostKeys(theInfo.getNses()), contactKeys(theInfo
+				.getRegistrant(), theInfo.getContacts()));
+
+		return this.success(aCommand, new EPPResponse());
+	}
+
+	/**
+	 * Processes a domain renew command. The current expiration date must
+	 * match the expiration date of the domain and the new expiration date
+	 * must be within {@link #MAX_YEARS} years.
+	 *
+	 * @param aCommand
+	 *            Domain renew command
+	 * @param aClientId
+	 *            Client identifier of the session
+	 *
+	 * @return Renew response
+	 */
+	public EPPResponse domainRenew(final EPPDomainRenewCmd aCommand,
+			final String aClientId) {
+		final Outcome theOutcome = new Outcome();
+
+		StubObject theObject = this.repository.update(StubRepository.DOMAIN,
+				nameKey(aCommand.getName()), new StubRepository.Updater() {
+
+					public StubObject update(StubObject aCurrent) {
+						if (!checkChange(aCurrent, aClientId,
+								EPPDomainStatus.ELM_STATUS_CLIENT_RENEW_PROHIBITED,
+								EPPDomainStatus.ELM_STATUS_SERVER_RENEW_PROHIBITED,
+								theOutcome)) {
+							return aCurrent;
+						}
+
+						EPPDomainInfoResp theInfo = (EPPDomainInfoResp) aCurrent
+								.getInfo();
+						if (!isSameDay(theInfo.getExpirationDate(), aCommand
+								.getCurExpDate())) {
+							theOutcome.fail(EPPResult.PARAM_VALUE_POLICY_ERROR,
+									"Current expiration date does not match");
+							return aCurrent;
+						}
+
+						Date theExpirationDate = addPeriod(theInfo
+								.getExpirationDate(), aCommand.getPeriod());
+						if (theExpirationDate == null) {
+							theOutcome.fail(EPPResult.PARAM_VALUE_POLICY_ERROR,
+									"Invalid period");
+							return aCurrent;
+						}
+
+						StubObject theNew = aCurrent.copy();
+						((EPPDomainInfoResp) theNew.getInfo())
+								.setExpirationDate(theExpirationDate);
+						return theNew;
+					}
+				});
+
+		if (!theOutcome.isSuccess()) {
+			return this.error(aCommand, theOutcome);
+		}
+
+		EPPDomainInfoResp theInfo = (EPPDomainInfoResp) theObject.getInfo();
+		return this.success(aCommand, new EPPDomainRenewResp(null, theInfo
+				.getName(), theInfo.getExpirationDate()));
+	}
+
+	/**
+	 * Processes a domain update command. The added name servers and contacts
+	 * are linked before the domain is updated, and the removed name servers
+	 * and contacts are unlinked after the domain is updated.
+	 *
+	 * @param aCommand
+	 *            Domain update command
+	 * @param aClientId
+	 *            Client identifier of the session
+	 *
+	 * @return Update response
+	 */
+	public EPPResponse domainUpdate(final EPPDomainUpdateCmd aCommand,
+			final String aClientId) {
+		final EPPDomainAddRemove theAdd = aCommand.getAdd();
+		final EPPDomainAddRemove theRemove = aCommand.getRemove();
+		final EPPDomainAddRemove theChange = aCommand.getChange();
+
+		// Link the added references before the update
+		final List<String> theAddHosts = theAdd != null ? hostKeys(theAdd
+				.getServers()) : new ArrayList<String>();
+		final List<String> theAddContacts = contactKeys(
+				theChange != null ? theChange.getRegistrant() : null,
+				theAdd != null ? theAdd.getContacts() : null);
+
+		String theMissing = this.link(theAddHosts, theAddContacts);
+		if (theMissing != null) {
+			return this.error(aCommand, EPPResult.OBJECT_DOES_NOT_EXIST,
+					theMissing + " does not exist");
+		}
+
+		final Outcome theOutcome = new Outcome();
+
+		this.repository.update(StubRepository.DOMAIN, nameKey(aCommand
+				.getName()), new StubRepository.Updater() {
+
+			public StubObject update(StubObject aCurrent) {
+				if (!checkUpdate(aCurrent, aClientId, theRemove != null
+						? theRemove.getStatuses() : null, theOutcome)) {
+					return aCurrent;
+				}
+
+				StubObject theNew = aCurrent.copy();
+				EPPDomainInfoResp theInfo = (EPPDomainInfoResp) theNew
+						.getInfo();
+
+				Vector theNses = theInfo.getNses() != null ? theInfo
+						.getNses() : new Vector();
+				Vector theContacts = theInfo.getContacts() != null ? theInfo
+						.getContacts() : new Vector();
+
+				if (theRemove != null) {
+					theNses.removeAll(toVector(hostKeys(theRemove
+							.getServers())));
+					if (theRemove.getContacts() != null) {
+						theContacts.removeAll(theRemove.getContacts());
+					}
+					if (!removeStatuses(theInfo.getStatuses(), theRemove
+							.getStatuses(), theOutcome)) {
+						return aCurrent;
+					}
+				}
+
+				if (theAdd != null) {
+					List<String> theHosts = hostKeys(theAdd.getServers());
+					for (int i = 0; i < theHosts.size(); i++) {
+						if (!theNses.contains(theHosts.get(i))) {
+							theNses.addElement(theHosts.get(i));
+						}
+					}
+					if (theAdd.getContacts() != null) {
+						for (int i = 0; i < theAdd.getContacts().size(); i++) {
+							Object theContact = theAdd.getContacts()
+									.elementAt(i);
+							if (!theContacts.contains(theContact)) {
+								theContacts.addElement(theContact);
+							}
+						}
+					}
+					if (!addStatuses(StubRepository.DOMAIN, theInfo
+							.getStatuses(), theAdd.getStatuses(), theOutcome)) {
+						return aCurrent;
+					}
+				}
+
+				if (theChange != null) {
+					if (theChange.getRegistrant() != null) {
+						theInfo.setRegistrant(theChange.getRegistrant());
+					}
+					if (theChange.getAuthInfo() != null) {
+						theNew.setAuthInfo(theChange.getAuthInfo());
+					}
+				}
+
+				theInfo.setNses(theNses);
+				theInfo.setContacts(theContacts.isEmpty() ? null : theContacts);
+				theInfo.setLastUpdatedBy(aClientId);
+				theInfo.setLastUpdatedDate(new Date());
+
+				theOutcome.previous = aCurrent;
+				return theNew;
+			}
+		});
+
+		if (!theOutcome.isSuccess()) {
+			this.unlink(theAddHosts, theAddContacts);
+			return this.error(aCommand, theOutcome);
+		}
+
+		// Unlink the references that were removed or that were already there
+		EPPDomainInfoResp thePrevious = (EPPDomainInfoResp) theOutcome.previous
+				.getInfo();
+		List<String> theUnlinkHosts = hostKeys(thePrevious.getNses());
+		theUnlinkHosts.addAll(theAddHosts);
+		List<String> theUnlinkContacts = contactKeys(thePrevious
+				.getRegistrant(), thePrevious.getContacts());
+		theUnlinkContacts.addAll(theAddContacts);
+
+		StubObject theObject = this.repository.get(StubRepository.DOMAIN,
+				nameKey(aCommand.getName()));
+		if (theObject != null) {
+			EPPDomainInfoResp theInfo = (EPPDomainInfoResp) theObject.getInfo();
+			removeEach(theUnlinkHosts, hostKeys(theInfo.getNses()));
+			removeEach(theUnlinkContacts, contactKeys(theInfo.getRegistrant(),
+					theInfo.getContacts()));
+		}
+		this.unlink(theUnlinkHosts, theUnlinkContacts);
+
+		return this.success(aCommand, new EPPResponse());
+	}
+
+	/**
+	 * Processes a domain transfer command.
+	 *
+	 * @param aCommand
+	 *            Domain transfer command
+	 * @param aClientId
+	 *            Client identifier of the session
+	 *
+	 * @return Transfer response
+	 */
+	public EPPResponse domainTransfer(EPPDomainTransferCmd aCommand,
+			String aClientId) {
+		Outcome theOutcome = new Outcome();
+
+		StubObject theObject = this.transfer(StubRepository.DOMAIN,
+				nameKey(aCommand.getName()), aCommand.getOp(), aClientId,
+				aCommand.getAuthInfo(), aCommand.getPeriod(), theOutcome);
+
+		if (!theOutcome.isSuccess()) {
+			return this.error(aCommand, theOutcome);
+		}
+
+		EPPDomainTransferResp theResponse = newDomainTransferResp(theObject);
+		theResponse.setTransId(this.newTransId(aCommand));
+		theResponse.setResult(theOutcome.code);
+
+		if (!aCommand.getOp().equals(EPPCommand.OP_QUERY)) {
+			EPPDomainTransferResp thePollMsg = newDomainTransferResp(theObject);
+			thePollMsg.setResult(EPPResult.SUCCESS);
+			this.putPollMessage(EPPDomainMapFactory.NS, thePollMsg);
+		}
+
+		return theResponse;
+	}
+
+	/**
+	 * Creates a domain transfer response with the last transfer of a domain.
+	 *
+	 * @param aObject
+	 *            Transferred domain
+	 *
+	 * @return Transfer response without transaction identifier and result
+	 */
+	private static EPPDomainTransferResp newDomainTransferResp(
+			StubObject aObject) {
+		StubTransfer theTransfer = aObject.getTransfer();
+
+		EPPDomainTransferResp theResponse = new EPPDomainTransferResp();
+		theResponse.setName(((EPPDomainInfoResp) aObject.getInfo()).getName());
+		theResponse.setTransferStatus(theTransfer.getStatus());
+		theResponse.setRequestClient(theTransfer.getRequestClient());
+		theResponse.setRequestDate(theTransfer.getRequestDate());
+		theResponse.setActionClient(theTransfer.getActionClient());
+		theResponse.setActionDate(theTransfer.getActionDate());
+		theResponse.setExpirationDate(theTransfer.getExpirationDate());
+		return theResponse;
+	}
+
+	// ------------------------------------------------------------------
+	// Host commands
+	// ------------------------------------------------------------------
+
+	/**
+	 * Processes a host check command.
+	 *
+	 * @param aCommand
+	 *            Host check command
+	 * @param aClientId
+	 *            Client identifier of the session
+	 *
+	 * @return Check response
+	 */
+	public EPPResponse hostCheck(EPPHostCheckCmd aCommand, String aClientId) {
+		Vector theResults = new Vector();
+
+		Vector theNames = aCommand.getNames();
+		for (int i = 0; i < theNames.size(); i++) {
+			String theName = (String) theNames.elementAt(i);
+			boolean isAvailable = this.repository.get(StubRepository.HOST,
+					nameKey(theName)) == null;
+
+			EPPHostCheckResult theResult = new EPPHostCheckResult(theName,
+					isAvailable);
+			if (!isAvailable) {
+				theResult.setHostReason("In use");
+			}
+			theResults.addElement(theResult);
+		}
+
+		EPPResponse theResponse = new EPPHostCheckResp(this
+				.newTransId(aCommand), theResults);
+		theResponse.setResult(EPPResult.SUCCESS);
+		return theResponse;
+	}
+
+	/**
+	 * Processes a host create command.
+	 *
+	 * @param aCommand
+	 *            Host create command
+	 * @param aClientId
+	 *            Client identifier of the session
+	 *
+	 * @return Create response
+	 */
+	public EPPResponse hostCreate(EPPHostCreateCmd aCommand, String aClientId) {
+		String theKey = nameKey(aCommand.getName());
+		Date theNow = new Date();
+
+		EPPHostInfoResp theInfo = new EPPHostInfoResp();
+		theInfo.setRoid(this.newRoid("H"));
+		theInfo.setName(theKey);
+		theInfo.setClientId(aClientId);
+		theInfo.setCreatedBy(aClientId);
+		theInfo.setCreatedDate(theNow);
+		theInfo.setStatuses(new Vector());
+		if (aCommand.getAddresses() != null) {
+			theInfo.setAddresses((Vector) aCommand.getAddresses().clone());
+		}
+
+		if (this.repository.create(StubRepository.HOST, new StubObject(theKey,
+				theInfo)) != null) {
+			return this.error(aCommand, EPPResult.OBJECT_EXISTS, "Host exists");
+		}
+
+		EPPResponse theResponse = new EPPHostCreateResp(this
+				.newTransId(aCommand), theKey, theNow);
+		theResponse.setResult(EPPResult.SUCCESS);
+		return theResponse;
+	}
+
+	/**
+	 * Processes a host info command.
+	 *
+	 * @param aCommand
+	 *            Host info command
+	 * @param aClientId
+	 *            Client identifier of the session
+	 *
+	 * @return Info response
+	 */
+	public EPPResponse hostInfo(EPPHostInfoCmd aCommand, String aClientId) {
+		StubObject theObject = this.repository.get(StubRepository.HOST,
+				nameKey(aCommand.getName()));
+		if (theObject == null) {
+			return this.error(aCommand, EPPResult.OBJECT_DOES_NOT_EXIST,
+					"Host does not exist");
+		}
+
+		EPPHostInfoResp theResponse = (EPPHostInfoResp) theObject.copy()
+				.getInfo();
+
+		Vector theStatuses = theResponse.getStatuses();
+		if (theObject.getLinks() > 0) {
+			theStatuses.addElement(new EPPHostStatus(
+					EPPHostStatus.ELM_STATUS_LINKED));
+		}
+		if (theStatuses.isEmpty()) {
+			theStatuses.addElement(new EPPHostStatus(
+					EPPHostStatus.ELM_STATUS_OK));
+		}
+
+		return this.success(aCommand, theResponse);
+	}
+
+	/**
+	 * Processes a host delete command. A host can not be deleted while it is
+	 * a name server of a domain.
+	 *
+	 * @param aCommand
+	 *            Host delete command
+	 * @param aClientId
+	 *            Client identifier of the session
+	 *
+	 * @return Delete response
+	 */
+	public EPPResponse hostDelete(EPPHostDeleteCmd aCommand, String aClientId) {
+		Outcome theOutcome = this.delete(StubRepository.HOST, nameKey(aCommand
+				.getName()), aClientId);
+		if (!theOutcome.isSuccess()) {
+			return this.error(aCommand, theOutcome);
+		}
+
+		return this.success(aCommand, new EPPResponse());
+	}
+
+	/**
+	 * Processes a host update command. A host is renamed by creating the
+	 * host with the new name and deleting the host with the old name, which
+	 * is only allowed while the host is not a name server of a domain.
+	 *
+	 * @param aCommand
+	 *            Host update command
+	 * @param aClientId
+	 *            Client identifier of the session
+	 *
+	 * @return Update response
+	 */
+	public EPPResponse hostUpdate(final EPPHostUpdateCmd aCommand,
+			final String aClientId) {
+		final EPPHostAddRemove theAdd = aCommand.getAdd();
+		final EPPHostAddRemove theRemove = aCommand.getRemove();
+		final String theNewName = aCommand.getChange() != null
+				&& aCommand.getChange().getName() != null ? nameKey(aCommand
+				.getChange().getName()) : null;
+		final String theKey = nameKey(aCommand.getName());
+		final Outcome theOutcome = new Outcome();
+
+		StubObject theObject = this.repository.update(StubRepository.HOST,
+				theKey, new StubRepository.Updater() {
+
+					public StubObject update(StubObject aCurrent) {
+						if (!checkUpdate(aCurrent, aClientId, theRemove != null
+								? theRemove.getStatuses() : null, theOutcome)) {
+							return aCurrent;
+						}
+
+						StubObject theNew = aCurrent.copy();
+						EPPHostInfoResp theInfo = (EPPHostInfoResp) theNew
+								.getInfo();
+
+						Vector theAddresses = theInfo.getAddresses() != null
+								? theInfo.getAddresses() : new Vector();
+
+						if (theRemove != null) {
+							if (theRemove.getAddresses() != null) {
+								theAddresses.removeAll(theRemove.getAddresses());
+							}
+							if (!removeStatuses(theInfo.getStatuses(),
+									theRemove.getStatuses(), theOutcome)) {
+								return aCurrent;
+							}
+						}
+
+						if (theAdd != null) {
+							if (theAdd.getAddresses() != null) {
+								for (int i = 0; i < theAdd.getAddresses()
+										.size(); i++) {
+									Object theAddress = theAdd.getAddresses()
+											.elementAt(i);
+									if (!theAddresses.contains(theAddress)) {
+										theAddresses.addElement(theAddress);
+									}
+								}
+							}
+							if (!addStatuses(StubRepository.HOST, theInfo
+									.getStatuses(), theAdd.getStatuses(),
+									theOutcome)) {
+								return aCurrent;
+							}
+						}
+
+						if (theNewName != null && !theNewName.equals(theKey)
+								&& aCurrent.getLinks() > 0) {
+							theOutcome.fail(EPPResult.ASSOC_PROHIBITS_OP,
+									"Host is a name server of a domain");
+							return aCurrent;
+						}
+
+						theInfo.setAddresses(theAddresses.isEmpty() ? null
+								: theAddresses);
+						theInfo.setLastUpdatedBy(aClientId);
+						theInfo.setLastUpdatedDate(new Date());
+						return theNew;
+					}
+				});
+
+		if (!theOutcome.isSuccess()) {
+			return this.error(aCommand, theOutcome);
+		}
+
+		if (theNewName != null && !theNewName.equals(theKey)) {
+			Outcome theRenameOutcome = this.rename(theObject, theNewName,
+					aClientId);
+			if (!theRenameOutcome.isSuccess()) {
+				return this.error(aCommand, theRenameOutcome);
+			}
+		}
+
+		return this.success(aCommand, new EPPResponse());
+	}
+
+	/**
+	 * Renames an unlinked host by creating a copy with the new name and
+	 * deleting the host with the old name.
+	 *
+	 * @param aObject
+	 *            Host to rename
+	 * @param aNewName
+	 *            Lower case new host name
+	 * @param aClientId
+	 *            Client identifier of the session
+	 *
+	 * @return Outcome of the rename
+	 */
+	private Outcome rename(StubObject aObject, String aNewName,
+			String aClientId) {
+		StubObject theNew = aObject.copy();
+		EPPHostInfoResp theInfo = (EPPHostInfoResp) theNew.getInfo();
+		theInfo.setName(aNewName);
+		theNew = new StubObject(aNewName, theInfo);
+
+		if (this.repository.create(StubRepository.HOST, theNew) != null) {
+			Outcome theOutcome = new Outcome();
+			theOutcome.fail(EPPResult.OBJECT_EXISTS, "Host " + aNewName
+					+ " exists");
+			return theOutcome;
+		}
+
+		Outcome theOutcome = this.delete(StubRepository.HOST, aObject.getKey(),
+				aClientId);
+		if (!theOutcome.isSuccess()) {
+			this.repository.update(StubRepository.HOST, aNewName,
+					new StubRepository.Updater() {
+
+						public StubObject update(StubObject aCurrent) {
+							return null;
+						}
+					});
+		}
+
+		return theOutcome;
+	}
+
+	// ------------------------------------------------------------------
+	// Contact commands
+	// ------------------------------------------------------------------
+
+	/**
+	 * Processes a contact check command.
+	 *
+	 * @param aCommand
+	 *            Contact check command
+	 * @param aClientId
+	 *            Client identifier of the session
+	 *
+	 * @return Check response
+	 */
+	public EPPResponse contactCheck(EPPContactCheckCmd aCommand,
+			String aClientId) {
+		Vector theResults = new Vector();
+
+		Vector theIds = aCommand.getIds();
+		for (int i = 0; i < theIds.size(); i++) {
+			String theId = (String) theIds.elementAt(i);
+			boolean isAvailable = this.repository.get(StubRepository.CONTACT,
+					theId) == null;
+
+			EPPContactCheckResult theResult = new EPPContactCheckResult(theId,
+					isAvailable);
+			if (!isAvailable) {
+				theResult.setContactReason("In use");
+			}
+			theResults.addElement(theResult);
+		}
+
+		EPPResponse theResponse = new EPPContactCheckResp(this
+				.newTransId(aCommand), theResults);
+		theResponse.setResult(EPPResult.SUCCESS);
+		return theResponse;
+	}
+
+	/**
+	 * Processes a contact create command.
+	 *
+	 * @param aCommand
+	 *            Contact create command
+	 * @param aClientId
+	 *            Client identifier of the session
+	 *
+	 * @return Create response
+	 */
+	public EPPResponse contactCreate(EPPContactCreateCmd aCommand,
+			String aClientId) {
+		Date theNow = new Date();
+
+		EPPContactInfoResp theInfo = new EPPContactInfoResp();
+		theInfo.setRoid(this.newRoid("C"));
+		theInfo.setId(aCommand.getId());
+		theInfo.setClientId(aClientId);
+		theInfo.setCreatedBy(aClientId);
+		theInfo.setCreatedDate(theNow);
+		theInfo.setStatuses(new Vector());
+		theInfo.setPostalInfo(aCommand.getPostalInfo() != null
+				? (Vector) aCommand.getPostalInfo().clone() : new Vector());
+		theInfo.setVoice(aCommand.getVoice());
+		theInfo.setVoiceExt(aCommand.getVoiceExt());
+		theInfo.setFax(aCommand.getFax());
+		theInfo.setFaxExt(aCommand.getFaxExt());
+		theInfo.setEmail(aCommand.getEmail());
+		theInfo.setDisclose(aCommand.getDisclose());
+
+		StubObject theObject = new StubObject(aCommand.getId(), theInfo);
+		theObject.setAuthInfo(aCommand.getAuthInfo());
+
+		if (this.repository.create(StubRepository.CONTACT, theObject) != null) {
+			return this.error(aCommand, EPPResult.OBJECT_EXISTS,
+					"Contact exists");
+		}
+
+		EPPResponse theResponse = new EPPContactCreateResp(this
+				.newTransId(aCommand), aCommand.getId(), theNow);
+		theResponse.setResult(EPPResult.SUCCESS);
+		return theResponse;
+	}
+
+	/**
+	 * Processes a contact info command. The authorization information is
+	 * only returned to the sponsoring client or with the authorization
+	 * information of the contact.
+	 *
+	 * @param aCommand
+	 *            Contact info command
+	 * @param aClientId
+	 *            Client identifier of the session
+	 *
+	 * @return Info response
+	 */
+	public EPPResponse contactInfo(EPPContactInfoCmd aCommand,
+			String aClientId) {
+		StubObject theObject = this.repository.get(StubRepository.CONTACT,
+				aCommand.getId());
+		if (theObject == null) {
+			return this.error(aCommand, EPPResult.OBJECT_DOES_NOT_EXIST,
+					"Contact does not exist");
+		}
+
+		EPPContactInfoResp theResponse = (EPPContactInfoResp) theObject.copy()
+				.getInfo();
+
+		if (isAuthorized(theObject, aClientId, aCommand.getAuthInfo())) {
+			theResponse.setAuthInfo(theObject.getAuthInfo());
+		}
+
+		Vector theStatuses = theResponse.getStatuses();
+		if (theObject.getLinks() > 0) {
+			theStatuses.addElement(new EPPContactStatus(
+					EPPContactStatus.ELM_STATUS_LINKED));
+		}
+		if (theStatuses.isEmpty()) {
+			theStatuses.addElement(new EPPContactStatus(
+					EPPContactStatus.ELM_STATUS_OK));
+		}
+
+		return this.success(aCommand, theResponse);
+	}
+
+	/**
+	 * Processes a contact delete command. A contact can not be deleted while
+	 * it is referenced by a domain.
+	 *
+	 * @param aCommand
+	 *            Contact delete command
+	 * @param aClientId
+	 *            Client identifier of the session
+	 *
+	 * @return Delete response
+	 */
+	public EPPResponse contactDelete(EPPContactDeleteCmd aCommand,
+			String aClientId) {
+		Outcome theOutcome = this.delete(StubRepository.CONTACT, aCommand
+				.getId(), aClientId);
+		if (!theOutcome.isSuccess()) {
+			return this.error(aCommand, theOutcome);
+		}
+
+		return this.success(aCommand, new EPPResponse());
+	}
+
+	/**
+	 * Processes a contact update command.
+	 *
+	 * @param aCommand
+	 *            Contact update command
+	 * @param aClientId
+	 *            Client identifier of the session
+	 *
+	 * @return Update response
+	 */
+	public EPPResponse contactUpdate(final EPPContactUpdateCmd aCommand,
+			final String aClientId) {
+		final EPPContactAddChange theAdd = aCommand.getAdd();
+		final EPPContactAddChange theRemove = aCommand.getRemove();
+		final EPPContactAddChange theChange = aCommand.getChange();
+		final Outcome theOutcome = new Outcome();
+
+		this.repository.update(StubRepository.CONTACT, aCommand.getId(),
+				new StubRepository.Updater() {
+
+					public StubObject update(StubObject aCurrent) {
+						if (!checkUpdate(aCurrent, aClientId, theRemove != null
+								? theRemove.getStatuses() : null, theOutcome)) {
+							return aCurrent;
+						}
+
+						StubObject theNew = aCurrent.copy();
+						EPPContactInfoResp theInfo = (EPPContactInfoResp) theNew
+								.getInfo();
+
+						if (theRemove != null
+								&& !removeStatuses(theInfo.getStatuses(),
+										theRemove.getStatuses(), theOutcome)) {
+							return aCurrent;
+						}
+
+						if (theAdd != null
+								&& !addStatuses(StubRepository.CONTACT, theInfo
+										.getStatuses(), theAdd.getStatuses(),
+										theOutcome)) {
+							return aCurrent;
+						}
+
+						if (theChange != null) {
+							if (theChange.getPostalInfo() != null
+									&& !theChange.getPostalInfo().isEmpty()) {
+								theInfo.setPostalInfo((Vector) theChange
+										.getPostalInfo().clone());
+							}
+							if (theChange.getVoice() != null) {
+								theInfo.setVoice(theChange.getVoice());
+								theInfo.setVoiceExt(theChange.getVoiceExt());
+							}
+							if (theChange.getFax() != null) {
+								theInfo.setFax(theChange.getFax());
+								theInfo.setFaxExt(theChange.getFaxExt());
+							}
+							if (theChange.getEmail() != null) {
+								theInfo.setEmail(theChange.getEmail());
+							}
+							if (theChange.getAuthInfo() != null) {
+								theNew.setAuthInfo(theChange.getAuthInfo());
+							}
+							if (theChange.getDisclose() != null) {
+								theInfo.setDisclose(theChange.getDisclose());
+							}
+						}
+
+						theInfo.setLastUpdatedBy(aClientId);
+						theInfo.setLastUpdatedDate(new Date());
+						return theNew;
+					}
+				});
+
+		if (!theOutcome.isSuccess()) {
+			return this.error(aCommand, theOutcome);
+		}
+
+		return this.success(aCommand, new EPPResponse());
+	}
+
+	/**
+	 * Processes a contact transfer command.
+	 *
+	 * @param aCommand
+	 *            Contact transfer command
+	 * @param aClientId
+	 *            Client identifier of the session
+	 *
+	 * @return Transfer response
+	 */
+	public EPPResponse contactTransfer(EPPContactTransferCmd aCommand,
+			String aClientId) {
+		Outcome theOutcome = new Outcome();
+
+		StubObject theObject = this.transfer(StubRepository.CONTACT, aCommand
+				.getId(), aCommand.getOp(), aClientId, aCommand.getAuthInfo(),
+				null, theOutcome);
+
+		if (!theOutcome.isSuccess()) {
+			return this.error(aCommand, theOutcome);
+		}
+
+		EPPContactTransferResp theResponse = newContactTransferResp(theObject);
+		theResponse.setTransId(this.newTransId(aCommand));
+		theResponse.setResult(theOutcome.code);
+
+		if (!aCommand.getOp().equals(EPPCommand.OP_QUERY)) {
+			EPPContactTransferResp thePollMsg = newContactTransferResp(theObject);
+			thePollMsg.setResult(EPPResult.SUCCESS);
+			this.putPollMessage(EPPContactMapFactory.NS, thePollMsg);
+		}
+
+		return theResponse;
+	}
+
+	/**
+	 * Creates a contact transfer response with the last transfer of a
+	 * contact.
+	 *
+	 * @param aObject
+	 *            Transferred contact
+	 *
+	 * @return Transfer response without transaction identifier and result
+	 */
+	private static EPPContactTransferResp newContactTransferResp(
+			StubObject aObject) {
+		StubTransfer theTransfer = aObject.getTransfer();
+
+		EPPContactTransferResp theResponse = new EPPContactTransferResp();
+		theResponse.setId(((EPPContactInfoResp) aObject.getInfo()).getId());
+		theResponse.setTransferStatus(theTransfer.getStatus());
+		theResponse.setRequestClient(theTransfer.getRequestClient());
+		theResponse.setRequestDate(theTransfer.getRequestDate());
+		theResponse.setActionClient(theTransfer.getActionClient());
+		theResponse.setActionDate(theTransfer.getActionDate());
+		return theResponse;
+	}
+
+	// ------------------------------------------------------------------
+	// Common object operations
+	// ------------------------------------------------------------------
+
+	/**
+	 * Deletes an object of the sponsoring client that is not referenced and
+	 * does not have a status that prohibits the delete.
+	 *
+	 * @param aType
+	 *            Object type
+	 * @param aKey
+	 *            Object key
+	 * @param aClientId
+	 *            Client identifier of the session
+	 *
+	 * @return Outcome with the deleted object as the previous object
+	 */
+	private Outcome delete(int aType, String aKey, final String aClientId) {
+		final Outcome theOutcome = new Outcome();
+
+		this.repository.update(aType, aKey, new StubRepository.Updater() {
+
+			public StubObject update(StubObject aCurrent) {
+				if (!checkChange(aCurrent, aClientId,
+						EPPDomainStatus.ELM_STATUS_CLIENT_DELETE_PROHIBITED,
+						EPPDomainStatus.ELM_STATUS_SERVER_DELETE_PROHIBITED,
+						theOutcome)) {
+					return aCurrent;
+				}
+
+				if (aCurrent.getLinks() > 0) {
+					theOutcome.fail(EPPResult.ASSOC_PROHIBITS_OP,
+							"Object is referenced by " + aCurrent.getLinks()
+									+ " domains");
+					return aCurrent;
+				}
+
+				theOutcome.previous = aCurrent;
+				return null;
+			}
+		});
+
+		return theOutcome;
+	}
+
+	/**
+	 * Processes a transfer operation of a domain or contact.
+	 *
+	 * @param aType
+	 *            {@link StubRepository#DOMAIN} or
+	 *            {@link StubRepository#CONTACT}
+	 * @param aKey
+	 *            Object key
+	 * @param aOp
+	 *            One of the <code>EPPCommand.OP_</code> constants
+	 * @param aClientId
+	 *            Client identifier of the session
+	 * @param aAuthInfo
+	 *            Authorization information of the command, or
+	 *            <code>null</code>
+	 * @param aPeriod
+	 *            Period added to the expiration date of a domain, or
+	 *            <code>null</code> for one year
+	 * @param aOutcome
+	 *            Set with the result of the operation
+	 *
+	 * @return Object after the operation
+	 */
+	private StubObject transfer(final int aType, String aKey,
+			final String aOp, final String aClientId,
+			final EPPAuthInfo aAuthInfo, final EPPDomainPeriod aPeriod,
+			final Outcome aOutcome) {
+
+		if (aOp.equals(EPPCommand.OP_QUERY)) {
+			StubObject theObject = this.repository.get(aType, aKey);
+			if (theObject == null) {
+				aOutcome.fail(EPPResult.OBJECT_DOES_NOT_EXIST,
+						"Object does not exist");
+			}
+			else if (theObject.getTransfer() == null) {
+				aOutcome.fail(EPPResult.OBJECT_NOT_PENDING_TRANSFER,
+						"Object has not been transferred");
+			}
+			else if (!isAuthorized(theObject, aClientId, aAuthInfo)
+					&& !aClientId.equals(theObject.getTransfer()
+							.getRequestClient())) {
+				aOutcome.fail(EPPResult.AUTHORIZATION_ERROR,
+						"Client is not authorized to query the transfer");
+			}
+			return theObject;
+		}
+
+		return this.repository.update(aType, aKey, new StubRepository.Updater() {
+
+			public StubObject update(StubObject aCurrent) {
+				if (aCurrent == null) {
+					aOutcome.fail(EPPResult.OBJECT_DOES_NOT_EXIST,
+							"Object does not exist");
+					return null;
+				}
+
+				StubTransfer theTransfer = aCurrent.getTransfer();
+				boolean isPending = theTransfer != null
+						&& theTransfer.getStatus().equals(
+								EPPResponse.TRANSFER_PENDING);
+				String theSponsor = getSponsor(aCurrent);
+				Date theNow = new Date();
+
+				StubObject theNew = aCurrent.copy();
+				Vector theStatuses = getStatuses(theNew);
+
+				if (aOp.equals(EPPCommand.OP_REQUEST)) {
+					if (aClientId.equals(theSponsor)) {
+						aOutcome.fail(EPPResult.NOT_TRANSFERABLE,
+								"Client already sponsors the object");
+						return aCurrent;
+					}
+					if (!isAuthInfoValid(aCurrent, aAuthInfo)) {
+						aOutcome.fail(EPPResult.INVALID_AUTHORIZATION_INFO,
+								"Invalid authorization information");
+						return aCurrent;
+					}
+					if (isPending) {
+						aOutcome.fail(EPPResult.OBJECT_PENDING_TRANSFER,
+								"Transfer is pending");
+						return aCurrent;
+					}
+					if (hasStatus(aCurrent,
+							EPPDomainStatus.ELM_STATUS_CLIENT_TRANSFER_PROHIBITED)
+							|| hasStatus(aCurrent,
+									EPPDomainStatus.ELM_STATUS_SERVER_TRANSFER_PROHIBITED)) {
+						aOutcome.fail(EPPResult.STATUS_PROHIBITS_OP,
+								"Status prohibits the transfer");
+						return aCurrent;
+					}
+
+					Date theExpirationDate = null;
+					if (aType == StubRepository.DOMAIN) {
+						theExpirationDate = addPeriod(
+								((EPPDomainInfoResp) aCurrent.getInfo())
+										.getExpirationDate(), aPeriod);
+						if (theExpirationDate == null) {
+							aOutcome.fail(EPPResult.PARAM_VALUE_POLICY_ERROR,
+									"Invalid period");
+							return aCurrent;
+						}
+					}
+
+					Calendar theActionDate = new GregorianCalendar();
+					theActionDate.add(Calendar.DATE, TRANSFER_DAYS);
+
+					theNew.setTransfer(new StubTransfer(
+							EPPResponse.TRANSFER_PENDING, aClientId, theNow,
+							theSponsor, theActionDate.getTime(),
+							theExpirationDate));
+					theStatuses.addElement(newStatus(aType,
+							EPPDomainStatus.ELM_STATUS_PENDING_TRANSFER));
+					aOutcome.code = EPPResult.SUCCESS_PENDING;
+					return theNew;
+				}
+
+				if (!isPending) {
+					aOutcome.fail(EPPResult.OBJECT_NOT_PENDING_TRANSFER,
+							"Transfer is not pending");
+					return aCurrent;
+				}
+
+				removeStatus(theStatuses,
+						EPPDomainStatus.ELM_STATUS_PENDING_TRANSFER);
+
+				if (aOp.equals(EPPCommand.OP_CANCEL)) {
+					if (!aClientId.equals(theTransfer.getRequestClient())) {
+						aOutcome.fail(EPPResult.AUTHORIZATION_ERROR,
+								"Only the requesting client can cancel");
+						return aCurrent;
+					}
+					theNew.setTransfer(theTransfer.complete(
+							EPPResponse.TRANSFER_CLIENT_CANCELLED, theNow));
+					return theNew;
+				}
+
+				if (!aClientId.equals(theSponsor)) {
+					aOutcome.fail(EPPResult.AUTHORIZATION_ERROR,
+							"Only the sponsoring client can " + aOp);
+					return aCurrent;
+				}
+
+				if (aOp.equals(EPPCommand.OP_REJECT)) {
+					theNew.setTransfer(theTransfer.complete(
+							EPPResponse.TRANSFER_CLIENT_REJECTED, theNow));
+					return theNew;
+				}
+
+				if (!aOp.equals(EPPCommand.OP_APPROVE)) {
+					aOutcome.fail(EPPResult.PARAM_VALUE_POLICY_ERROR,
+							"Invalid transfer operation " + aOp);
+					return aCurrent;
+				}
+
+				theNew.setTransfer(theTransfer.complete(
+						EPPResponse.TRANSFER_CLIENT_APPROVED, theNow));
+
+				if (aType == StubRepository.DOMAIN) {
+					EPPDomainInfoResp theInfo = (EPPDomainInfoResp) theNew
+							.getInfo();
+					theInfo.setClientId(theTransfer.getRequestClient());
+					theInfo.setLastTransferDate(theNow);
+					theInfo.setExpirationDate(theTransfer.getExpirationDate());
+				}
+				else {
+					EPPContactInfoResp theInfo = (EPPContactInfoResp) theNew
+							.getInfo();
+					theInfo.setClientId(theTransfer.getRequestClient());
+					theInfo.setLastTransferDate(theNow);
+				}
+
+				return theNew;
+			}
+		});
+	}
+
+	/**
+	 * Links the hosts and contacts referenced by a domain. The objects that
+	 * were linked are unlinked again if an object does not exist.
+	 *
+	 * @param aHosts
+	 *            Keys of the hosts
+	 * @param aContacts
+	 *            Keys of the contacts
+	 *
+	 * @return <code>null</code> if all of the objects were linked; the
+	 *         description of the missing object otherwise.
+	 */
+	private String link(List<String> aHosts, List<String> aContacts) {
+		for (int i = 0; i < aHosts.size(); i++) {
+			if (!this.link(StubRepository.HOST, aHosts.get(i), 1)) {
+				this.unlink(aHosts.subList(0, i), new ArrayList<String>());
+				return "Host " + aHosts.get(i);
+			}
+		}
+
+		for (int i = 0; i < aContacts.size(); i++) {
+			if (!this.link(StubRepository.CONTACT, aContacts.get(i), 1)) {
+				this.unlink(aHosts, aContacts.subList(0, i));
+				return "Contact " + aContacts.get(i);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Unlinks the hosts and contacts that were referenced by a domain.
+	 *
+	 * @param aHosts
+	 *            Keys of the hosts
+	 * @param aContacts
+	 *            Keys of the contacts
+	 */
+	private void unlink(List<String> aHosts, List<String> aContacts) {
+		for (int i = 0; i < aHosts.size(); i++) {
+			this.link(StubRepository.HOST, aHosts.get(i), -1);
+		}
+		for (int i = 0; i < aContacts.size(); i++) {
+			this.link(StubRepository.CONTACT, aContacts.get(i), -1);
+		}
+	}
+
+	/**
+	 * Changes the number of domains that reference a host or contact.
+	 *
+	 * @param aType
+	 *            {@link StubRepository#HOST} or
+	 *            {@link StubRepository#CONTACT}
+	 * @param aKey
+	 *            Object key
+	 * @param aDelta
+	 *            Change of the number of references
+	 *
+	 * @return <code>true</code> if the object exists; <code>false</code>
+	 *         otherwise.
+	 */
+	private boolean link(int aType, String aKey, final int aDelta) {
+		return this.repository.update(aType, aKey,
+				new StubRepository.Updater() {
+
+					public StubObject update(StubObject aCurrent) {
+						if (aCurrent == null) {
+							return null;
+						}
+						return aCurrent.link(aDelta);
+					}
+				}) != null;
+	}
+
+	/**
+	 * Checks that an object exists and can be changed by a client.
+	 *
+	 * @param aCurrent
+	 *            Stored object, or <code>null</code>
+	 * @param aClientId
+	 *            Client identifier of the session
+	 * @param aClientStatus
+	 *            Client status that prohibits the change
+	 * @param aServerStatus
+	 *            Server status that prohibits the change
+	 * @param aOutcome
+	 *            Set with the error
+	 *
+	 * @return <code>true</code> if the change is allowed; <code>false</code>
+	 *         otherwise.
+	 */
+	private static boolean checkChange(StubObject aCurrent, String aClientId,
+			String aClientStatus, String aServerStatus, Outcome aOutcome) {
+		if (aCurrent == null) {
+			aOutcome.fail(EPPResult.OBJECT_DOES_NOT_EXIST,
+					"Object does not exist");
+			return false;
+		}
+
+		if (!aClientId.equals(getSponsor(aCurrent))) {
+			aOutcome.fail(EPPResult.AUTHORIZATION_ERROR,
+					"Client does not sponsor the object");
+			return false;
+		}
+
+		if (hasStatus(aCurrent, aClientStatus)
+				|| hasStatus(aCurrent, aServerStatus)
+				|| hasStatus(aCurrent,
+						EPPDomainStatus.ELM_STATUS_PENDING_TRANSFER)) {
+			aOutcome.fail(EPPResult.STATUS_PROHIBITS_OP,
+					"Status prohibits the operation");
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Checks that an object exists and can be updated by a client. The
+	 * client update prohibited status does not prohibit an update that
+	 * removes it.
+	 *
+	 * @param aCurrent
+	 *            Stored object, or <code>null</code>
+	 * @param aClientId
+	 *            Client identifier of the session
+	 * @param aRemoveStatuses
+	 *            Statuses removed by the update, or <code>null</code>
+	 * @param aOutcome
+	 *            Set with the error
+	 *
+	 * @return <code>true</code> if the update is allowed; <code>false</code>
+	 *         otherwise.
+	 */
+	private static boolean checkUpdate(StubObject aCurrent, String aClientId,
+			Vector aRemoveStatuses, Outcome aOutcome) {
+		String theClientStatus = EPPDomainStatus.ELM_STATUS_CLIENT_UPDATE_PROHIBITED;
+
+		for (int i = 0; aRemoveStatuses != null && i < aRemoveStatuses.size(); i++) {
+			if (theClientStatus.equals(getStatus(aRemoveStatuses.elementAt(i)))) {
+				theClientStatus = null;
+			}
+		}
+
+		return checkChange(aCurrent, aClientId, theClientStatus,
+				EPPDomainStatus.ELM_STATUS_SERVER_UPDATE_PROHIBITED, aOutcome);
+	}
+
+	/**
+	 * Is a client authorized to get the authorization information of an
+	 * object?
+	 *
+	 * @param aObject
+	 *            Stored object
+	 * @param aClientId
+	 *            Client identifier of the session
+	 * @param aAuthInfo
+	 *            Authorization information of the command, or
+	 *            <code>null</code>
+	 *
+	 * @return <code>true</code> if the client sponsors the object or passed
+	 *         its authorization information; <code>false</code> otherwise.
+	 */
+	private static boolean isAuthorized(StubObject aObject, String aClientId,
+			EPPAuthInfo aAuthInfo) {
+		return (aClientId != null && aClientId.equals(getSponsor(aObject)))
+				|| (aAuthInfo != null && isAuthInfoValid(aObject, aAuthInfo));
+	}
+
+	/**
+	 * Does the authorization information of a command match an object?
+	 *
+	 * @param aObject
+	 *            Stored object
+	 * @param aAuthInfo
+	 *            Authorization information of the command, or
+	 *            <code>null</code>
+	 *
+	 * @return <code>true</code> if the passwords match; <code>false</code>
+	 *         otherwise.
+	 */
+	private static boolean isAuthInfoValid(StubObject aObject,
+			EPPAuthInfo aAuthInfo) {
+		EPPAuthInfo theAuthInfo = aObject.getAuthInfo();
+
+		return theAuthInfo != null && aAuthInfo != null
+				&& theAuthInfo.getPassword() != null
+				&& theAuthInfo.getPassword().equals(aAuthInfo.getPassword());
+	}
+
+	/**
+	 * Gets the sponsoring client of an object.
+	 *
+	 * @param aObject
+	 *            Stored object
+	 *
+	 * @return Client identifier of the sponsoring client
+	 */
+	private static String getSponsor(StubObject aObject) {
+		EPPResponse theInfo = aObject.getInfo();
+		if (theInfo instanceof EPPDomainInfoResp) {
+			return ((EPPDomainInfoResp) theInfo).getClientId();
+		}
+		else if (theInfo instanceof EPPHostInfoResp) {
+			return ((EPPHostInfoResp) theInfo).getClientId();
+		}
+		else {
+			return ((EPPContactInfoResp) theInfo).getClientId();
+		}
+	}
+
+	/**
+	 * Gets the statuses of an object.
+	 *
+	 * @param aObject
+	 *            Stored object
+	 *
+	 * @return Statuses of the info response of the object
+	 */
+	private static Vector getStatuses(StubObject aObject) {
+		EPPResponse theInfo = aObject.getInfo();
+		if (theInfo instanceof EPPDomainInfoResp) {
+			return ((EPPDomainInfoResp) theInfo).getStatuses();
+		}
+		else if (theInfo instanceof EPPHostInfoResp) {
+			return ((EPPHostInfoResp) theInfo).getStatuses();
+		}
+		else {
+			return ((EPPContactInfoResp) theInfo).getStatuses();
+		}
+	}
+
+	/**
+	 * Gets the value of a domain, host, or contact status.
+	 *
+	 * @param aStatus
+	 *            <code>EPPDomainStatus</code>, <code>EPPHostStatus</code>,
+	 *            or <code>EPPContactStatus</code>
+	 *
+	 * @return Status value
+	 */
+	private static String getStatus(Object aStatus) {
+		if (aStatus instanceof EPPDomainStatus) {
+			return ((EPPDomainStatus) aStatus).getStatus();
+		}
+		else if (aStatus instanceof EPPHostStatus) {
+			return ((EPPHostStatus) aStatus).getStatus();
+		}
+		else if (aStatus instanceof EPPContactStatus) {
+			return ((EPPContactStatus) aStatus).getStatus();
+		}
+		return String.valueOf(aStatus);
+	}
+
+	/**
+	 * Creates a status of an object type.
+	 *
+	 * @param aType
+	 *            Object type
+	 * @param aStatus
+	 *            Status value
+	 *
+	 * @return Status of the object type
+	 */
+	private static Object newStatus(int aType, String aStatus) {
+		switch (aType) {
+			case StubRepository.DOMAIN:
+				return new EPPDomainStatus(aStatus);
+			case StubRepository.HOST:
+				return new EPPHostStatus(aStatus);
+			default:
+				return new EPPContactStatus(aStatus);
+		}
+	}
+
+	/**
+	 * Does an object have a status?
+	 *
+	 * @param aObject
+	 *            Stored object
+	 * @param aStatus
+	 *            Status value, or <code>null</code>
+	 *
+	 * @return <code>true</code> if the object has the status;
+	 *         <code>false</code> otherwise.
+	 */
+	private static boolean hasStatus(StubObject aObject, String aStatus) {
+		if (aStatus == null) {
+			return false;
+		}
+
+		Vector theStatuses = getStatuses(aObject);
+		for (int i = 0; theStatuses != null && i < theStatuses.size(); i++) {
+			if (aStatus.equals(getStatus(theStatuses.elementAt(i)))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes a status from a list of statuses.
+	 *
+	 * @param aStatuses
+	 *            Statuses of an object
+	 * @param aStatus
+	 *            Status value to remove
+	 *
+	 * @return <code>true</code> if the status was removed;
+	 *         <code>false</code> otherwise.
+	 */
+	private static boolean removeStatus(Vector aStatuses, String aStatus) {
+		for (int i = 0; i < aStatuses.size(); i++) {
+			if (aStatus.equals(getStatus(aStatuses.elementAt(i)))) {
+				aStatuses.removeElementAt(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Adds the client statuses of an update command.
+	 *
+	 * @param aType
+	 *            Object type
+	 * @param aStatuses
+	 *            Statuses of the object
+	 * @param aAdd
+	 *            Statuses to add, or <code>null</code>
+	 * @param aOutcome
+	 *            Set with the error
+	 *
+	 * @return <code>true</code> if the statuses were added;
+	 *         <code>false</code> if a status can not be set by a client.
+	 */
+	private static boolean addStatuses(int aType, Vector aStatuses,
+			Vector aAdd, Outcome aOutcome) {
+		for (int i = 0; aAdd != null && i < aAdd.size(); i++) {
+			String theStatus = getStatus(aAdd.elementAt(i));
+			if (!theStatus.startsWith("client")) {
+				aOutcome.fail(EPPResult.PARAM_VALUE_POLICY_ERROR, "Status "
+						+ theStatus + " can not be set by the client");
+				return false;
+			}
+
+			removeStatus(aStatuses, theStatus);
+			aStatuses.addElement(newStatus(aType, theStatus));
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the client statuses of an update command.
+	 *
+	 * @param aStatuses
+	 *            Statuses of the object
+	 * @param aRemove
+	 *            Statuses to remove, or <code>null</code>
+	 * @param aOutcome
+	 *            Set with the error
+	 *
+	 * @return <code>true</code> if the statuses were removed;
+	 *         <code>false</code> if a status can not be removed by a client.
+	 */
+	private static boolean removeStatuses(Vector aStatuses, Vector aRemove,
+			Outcome aOutcome) {
+		for (int i = 0; aRemove != null && i < aRemove.size(); i++) {
+			String theStatus = getStatus(aRemove.elementAt(i));
+			if (!theStatus.startsWith("client")) {
+				aOutcome.fail(EPPResult.PARAM_VALUE_POLICY_ERROR, "Status "
+						+ theStatus + " can not be removed by the client");
+				return false;
+			}
+
+			removeStatus(aStatuses, theStatus);
+		}
+		return true;
+	}
+
+	// ------------------------------------------------------------------
+	// Utilities
+	// ------------------------------------------------------------------
+
+	/**
+	 * Gets the key of a domain or host name.
+	 *
+	 * @param aName
+	 *            Domain or host name
+	 *
+	 * @return Lower case name
+	 */
+	private static String nameKey(String aName) {
+		return aName.toLowerCase(Locale.ENGLISH);
+	}
+
+	/**
+	 * Gets the keys of the host objects of a list of name servers, skipping
+	 * the host attributes.
+	 *
+	 * @param aServers
+	 *            Name servers, or <code>null</code>
+	 *
+	 * @return Keys of the hosts
+	 */
+	private static List<String> hostKeys(Vector aServers) {
+		List<String> theKeys = new ArrayList<String>();
+		for (int i = 0; aServers != null && i < aServers.size(); i++) {
+			if (aServers.elementAt(i) instanceof String) {
+				theKeys.add(nameKey((String) aServers.elementAt(i)));
+			}
+		}
+		return theKeys;
+	}
+
+	/**
+	 * Gets the keys of the registrant and contacts of a domain.
+	 *
+	 * @param aRegistrant
+	 *            Registrant identifier, or <code>null</code>
+	 * @param aContacts
+	 *            <code>EPPDomainContact</code> instances, or
+	 *            <code>null</code>
+	 *
+	 * @return Keys of the contacts
+	 */
+	private static List<String> contactKeys(String aRegistrant,
+			Vector aContacts) {
+		List<String> theKeys = new ArrayList<String>();
+		if (aRegistrant != null) {
+			theKeys.add(aRegistrant);
+		}
+		for (int i = 0; aContacts != null && i < aContacts.size(); i++) {
+			theKeys.add(((EPPDomainContact) aContacts.elementAt(i)).getName());
+		}
+		return theKeys;
+	}
+
+	/**
+	 * Removes one occurrence of each element of <code>aRemove</code> from
+	 * <code>aList</code>.
+	 *
+	 * @param aList
+	 *            List to remove the elements from
+	 * @param aRemove
+	 *            Elements to remove
+	 */
+	private static void removeEach(List<String> aList, List<String> aRemove) {
+		for (int i = 0; i < aRemove.size(); i++) {
+			aList.remove(aRemove.get(i));
+		}
+	}
+
+	/**
+	 * Converts a list to a <code>Vector</code>.
+	 *
+	 * @param aList
+	 *            List
+	 *
+	 * @return <code>Vector</code> with the elements of <code>aList</code>
+	 */
+	private static Vector toVector(List<String> aList) {
+		return new Vector(aList);
+	}
+
+	/**
+	 * Adds a registration period to a date.
+	 *
+	 * @param aDate
+	 *            Date
+	 * @param aPeriod
+	 *            Period, or <code>null</code> for one year
+	 *
+	 * @return <code>aDate</code> plus <code>aPeriod</code> if the result is
+	 *         within {@link #MAX_YEARS} years from now; <code>null</code>
+	 *         otherwise.
+	 */
+	private static Date addPeriod(Date aDate, EPPDomainPeriod aPeriod) {
+		Calendar theCal = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+		theCal.setTime(aDate);
+
+		if (aPeriod == null || aPeriod.isPeriodUnspec()) {
+			theCal.add(Calendar.YEAR, 1);
+		}
+		else if (aPeriod.getPeriod() < 1) {
+			return null;
+		}
+		else if (EPPDomainPeriod.PERIOD_UNIT_MONTH.equals(aPeriod.getPUnit())) {
+			theCal.add(Calendar.MONTH, aPeriod.getPeriod());
+		}
+		else {
+			theCal.add(Calendar.YEAR, aPeriod.getPeriod());
+		}
+
+		Calendar theMax = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+		theMax.add(Calendar.YEAR, MAX_YEARS);
+		if (theCal.after(theMax)) {
+			return null;
+		}
+
+		return theCal.getTime();
+	}
+
+	/**
+	 * Are two dates on the same UTC day?
+	 *
+	 * @param aDate1
+	 *            First date
+	 * @param aDate2
+	 *            Second date, or <code>null</code>
+	 *
+	 * @return <code>true</code> if same day; <code>false</code> otherwise.
+	 */
+	private static boolean isSameDay(Date aDate1, Date aDate2) {
+		if (aDate1 == null || aDate2 == null) {
+			return false;
+		}
+
+		Calendar theCal1 = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+		theCal1.setTime(aDate1);
+		Calendar theCal2 = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+		theCal2.setTime(aDate2);
+
+		return theCal1.get(Calendar.YEAR) == theCal2.get(Calendar.YEAR)
+				&& theCal1.get(Calendar.DAY_OF_YEAR) == theCal2
+						.get(Calendar.DAY_OF_YEAR);
+	}
+
+	/**
+	 * Creates a repository object identifier.
+	 *
+	 * @param aPrefix
+	 *            Prefix of the object type
+	 *
+	 * @return Unique repository object identifier
+	 */
+	private String newRoid(String aPrefix) {
+		return aPrefix + this.roidSeq.incrementAndGet() + ROID_SUFFIX;
+	}
+
+	/**
+	 * Creates the transaction identifier of the response of a command with
+	 * a unique server transaction identifier.
+	 *
+	 * @param aCommand
+	 *            Command
+	 *
+	 * @return Transaction identifier
+	 */
+	private EPPTransId newTransId(EPPCommand aCommand) {
+		return new EPPTransId(aCommand.getTransId(), "STUB-"
+				+ this.svrTransIdSeq.incrementAndGet());
+	}
+
+	/**
+	 * Completes a successful response.
+	 *
+	 * @param aCommand
+	 *            Command
+	 * @param aResponse
+	 *            Response
+	 *
+	 * @return <code>aResponse</code>
+	 */
+	private EPPResponse success(EPPCommand aCommand, EPPResponse aResponse) {
+		aResponse.setTransId(this.newTransId(aCommand));
+		aResponse.setResult(EPPResult.SUCCESS);
+		return aResponse;
+	}
+
+	/**
+	 * Creates an error response.
+	 *
+	 * @param aCommand
+	 *            Command
+	 * @param aCode
+	 *            Result code
+	 * @param aReason
+	 *            Reason of the error
+	 *
+	 * @return Error response
+	 */
+	private EPPResponse error(EPPCommand aCommand, int aCode, String aReason) {
+		EPPResult theResult = new EPPResult(aCode);
+		theResult.addExtValueReason(aReason);
+
+		cat.debug("error(): " + aCommand.getType() + " " + aCode + ": "
+				+ aReason);
+
+		return new EPPResponse(this.newTransId(aCommand), theResult);
+	}
+
+	/**
+	 * Creates the error response of an outcome.
+	 *
+	 * @param aCommand
+	 *            Command
+	 * @param aOutcome
+	 *            Failed outcome
+	 *
+	 * @return Error response
+	 */
+	private EPPResponse error(EPPCommand aCommand, Outcome aOutcome) {
+		return this.error(aCommand, aOutcome.code, aOutcome.reason);
+	}
+
+	/**
+	 * Puts a transfer notification on the poll queue of the Stub Server,
+	 * which has a single queue for all clients.
+	 *
+	 * @param aKind
+	 *            Namespace of the object mapping
+	 * @param aMessage
+	 *            Poll message
+	 */
+	private void putPollMessage(String aKind, EPPResponse aMessage) {
+		try {
+			EPPPollQueueMgr.getInstance().put(null, aKind, aMessage, null);
+		}
+		catch (EPPPollQueueException ex) {
+			cat.error("putPollMessage(): Error putting message [" + aMessage
+					+ "]: " + ex);
+		}
+	}
+
+}
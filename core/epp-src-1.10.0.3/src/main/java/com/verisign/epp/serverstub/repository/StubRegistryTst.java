@@ -0,0 +1,409 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.serverstub.repository;
+
+//----------------------------------------------
+//
+// imports...
+//
+//----------------------------------------------
+
+// Java Core Imports
+import java.io.File;
+import java.util.Vector;
+
+// JUNIT Imports
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import com.verisign.epp.codec.contact.EPPContactCreateCmd;
+import com.verisign.epp.codec.contact.EPPContactDeleteCmd;
+import com.verisign.epp.codec.domain.EPPDomainAddRemove;
+import com.verisign.epp.codec.domain.EPPDomainContact;
+import com.verisign.epp.codec.domain.EPPDomainCreateCmd;
+import com.verisign.epp.codec.domain.EPPDomainDeleteCmd;
+import com.verisign.epp.codec.domain.EPPDomainInfoCmd;
+import com.verisign.epp.codec.domain.EPPDomainInfoResp;
+import com.verisign.epp.codec.domain.EPPDomainPeriod;
+import com.verisign.epp.codec.domain.EPPDomainTransferCmd;
+import com.verisign.epp.codec.domain.EPPDomainUpdateCmd;
+import com.verisign.epp.codec.gen.EPPAuthInfo;
+import com.verisign.epp.codec.gen.EPPCodecException;
+import com.verisign.epp.codec.gen.EPPCommand;
+import com.verisign.epp.codec.gen.EPPFactory;
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.codec.gen.EPPResult;
+import com.verisign.epp.codec.host.EPPHostCreateCmd;
+import com.verisign.epp.codec.host.EPPHostDeleteCmd;
+import com.verisign.epp.framework.EPPPollQueueMgr;
+import com.verisign.epp.serverstub.PollDataSource;
+
+/**
+ * Is a unit test of <code>StubRegistry</code> and
+ * <code>MemStubRepository</code>. The tests call the registry directly, so
+ * they verify the object rules without an EPP server.
+ */
+public class StubRegistryTst extends TestCase {
+
+	/**
+	 * Number of unit test iterations to run. This is set with the
+	 * <code>iterations</code> system property.
+	 */
+	static private long numIterations = 1;
+
+	/**
+	 * Sponsoring client of the test objects
+	 */
+	private static final String CLIENT = "ClientX";
+
+	/**
+	 * Other client
+	 */
+	private static final String OTHER_CLIENT = "ClientY";
+
+	/**
+	 * Allocates a new instance of <code>StubRegistryTst</code>.
+	 *
+	 * @param name
+	 *            Name of test
+	 */
+	public StubRegistryTst(String name) {
+		super(name);
+	}
+
+	/**
+	 * Sets the in memory poll queue used for the transfer notifications.
+	 */
+	protected void setUp() {
+		EPPPollQueueMgr.getInstance().setDataSource(new PollDataSource());
+	}
+
+	/**
+	 * Creates a domain with a name server and a registrant.
+	 *
+	 * @param aRegistry
+	 *            Registry
+	 * @param aName
+	 *            Domain name
+	 * @param aHost
+	 *            Name server
+	 * @param aContact
+	 *            Registrant
+	 *
+	 * @return Response of the domain create
+	 */
+	private static EPPResponse createDomain(StubRegistry aRegistry,
+			String aName, String aHost, String aContact) {
+		Vector theServers = new Vector();
+		theServers.addElement(aHost);
+
+		EPPDomainCreateCmd theCommand = new EPPDomainCreateCmd("ABC-12345",
+				aName, theServers, null, new EPPDomainPeriod(2),
+				new EPPAuthInfo("2fooBAR"));
+		theCommand.setRegistrant(aContact);
+
+		return aRegistry.domainCreate(theCommand, CLIENT);
+	}
+
+	/**
+	 * Creates a contact.
+	 *
+	 * @param aRegistry
+	 *            Registry
+	 * @param aId
+	 *            Contact identifier
+	 *
+	 * @return Response of the contact create
+	 */
+	private static EPPResponse createContact(StubRegistry aRegistry,
+			String aId) {
+		EPPContactCreateCmd theCommand = new EPPContactCreateCmd();
+		theCommand.setTransId("ABC-12345");
+		theCommand.setId(aId);
+		theCommand.setAuthInfo(new EPPAuthInfo("2fooBAR"));
+
+		return aRegistry.contactCreate(theCommand, CLIENT);
+	}
+
+	/**
+	 * Gets the result code of a response.
+	 *
+	 * @param aResponse
+	 *            Response
+	 *
+	 * @return Result code
+	 */
+	private static int code(EPPResponse aResponse) {
+		return aResponse.getResult().getCode();
+	}
+
+	/**
+	 * Verifies that an object can only be created once, that a domain can
+	 * only reference existing hosts and contacts, and that a host or contact
+	 * can not be deleted while a domain references it.
+	 */
+	public void testLinks() {
+		for (int i = 0; i < numIterations; i++) {
+			StubRegistry theRegistry = new StubRegistry(new MemStubRepository());
+
+			Assert.assertEquals(EPPResult.OBJECT_DOES_NOT_EXIST, code(createDomain(
+					theRegistry, "example.com", "ns1.example.com", "sh8013")));
+
+			Assert.assertEquals(EPPResult.SUCCESS, code(theRegistry.hostCreate(
+					new EPPHostCreateCmd("ABC-12345", "NS1.example.com"),
+					CLIENT)));
+			Assert.assertEquals(EPPResult.SUCCESS, code(createContact(
+					theRegistry, "sh8013")));
+
+			// The failed create must not leave the host linked
+			Assert.assertEquals(0, theRegistry.getRepository().get(
+					StubRepository.HOST, "ns1.example.com").getLinks());
+
+			Assert.assertEquals(EPPResult.SUCCESS, code(createDomain(
+					theRegistry, "example.com", "ns1.example.com", "sh8013")));
+			Assert.assertEquals(EPPResult.OBJECT_EXISTS, code(createDomain(
+					theRegistry, "EXAMPLE.com", "ns1.example.com", "sh8013")));
+
+			Assert.assertEquals(EPPResult.ASSOC_PROHIBITS_OP, code(theRegistry
+					.hostDelete(new EPPHostDeleteCmd("ABC-12345",
+							"ns1.example.com"), CLIENT)));
+			Assert.assertEquals(EPPResult.ASSOC_PROHIBITS_OP, code(theRegistry
+					.contactDelete(new EPPContactDeleteCmd("ABC-12345",
+							"sh8013"), CLIENT)));
+
+			// Only the sponsoring client can delete the domain
+			Assert.assertEquals(EPPResult.AUTHORIZATION_ERROR, code(theRegistry
+					.domainDelete(new EPPDomainDeleteCmd("ABC-12345",
+							"example.com"), OTHER_CLIENT)));
+			Assert.assertEquals(EPPResult.SUCCESS, code(theRegistry
+					.domainDelete(new EPPDomainDeleteCmd("ABC-12345",
+							"example.com"), CLIENT)));
+
+			Assert.assertEquals(EPPResult.SUCCESS, code(theRegistry
+					.hostDelete(new EPPHostDeleteCmd("ABC-12345",
+							"ns1.example.com"), CLIENT)));
+			Assert.assertEquals(EPPResult.SUCCESS, code(theRegistry
+					.contactDelete(new EPPContactDeleteCmd("ABC-12345",
+							"sh8013"), CLIENT)));
+		}
+	}
+
+	/**
+	 * Verifies that a domain update moves the links from the removed to the
+	 * added name servers and contacts.
+	 */
+	public void testUpdate() {
+		for (int i = 0; i < numIterations; i++) {
+			StubRegistry theRegistry = new StubRegistry(new MemStubRepository());
+
+			theRegistry.hostCreate(new EPPHostCreateCmd("ABC-12345",
+					"ns1.example.com"), CLIENT);
+			theRegistry.hostCreate(new EPPHostCreateCmd("ABC-12345",
+					"ns2.example.com"), CLIENT);
+			createContact(theRegistry, "sh8013");
+			createContact(theRegistry, "sh8014");
+			createDomain(theRegistry, "example.com", "ns1.example.com",
+					"sh8013");
+
+			Vector theAddServers = new Vector();
+			theAddServers.addElement("ns2.example.com");
+			Vector theRemServers = new Vector();
+			theRemServers.addElement("ns1.example.com");
+			Vector theAddContacts = new Vector();
+			theAddContacts.addElement(new EPPDomainContact("sh8014",
+					EPPDomainContact.TYPE_TECHNICAL));
+
+			EPPDomainUpdateCmd theCommand = new EPPDomainUpdateCmd(
+					"ABC-12345", "example.com", new EPPDomainAddRemove(
+							theAddServers, theAddContacts, null),
+					new EPPDomainAddRemove(theRemServers, null, null), null);
+
+			Assert.assertEquals(EPPResult.SUCCESS, code(theRegistry
+					.domainUpdate(theCommand, CLIENT)));
+
+			StubRepository theRepository = theRegistry.getRepository();
+			Assert.assertEquals(0, theRepository.get(StubRepository.HOST,
+					"ns1.example.com").getLinks());
+			Assert.assertEquals(1, theRepository.get(StubRepository.HOST,
+					"ns2.example.com").getLinks());
+			Assert.assertEquals(1, theRepository.get(StubRepository.CONTACT,
+					"sh8013").getLinks());
+			Assert.assertEquals(1, theRepository.get(StubRepository.CONTACT,
+					"sh8014").getLinks());
+
+			// Repeating the update changes nothing
+			Assert.assertEquals(EPPResult.SUCCESS, code(theRegistry
+					.domainUpdate(theCommand, CLIENT)));
+			Assert.assertEquals(1, theRepository.get(StubRepository.HOST,
+					"ns2.example.com").getLinks());
+			Assert.assertEquals(1, theRepository.get(StubRepository.CONTACT,
+					"sh8014").getLinks());
+		}
+	}
+
+	/**
+	 * Verifies the domain transfer request, approval, and the visibility of
+	 * the authorization information.
+	 */
+	public void testTransfer() {
+		for (int i = 0; i < numIterations; i++) {
+			StubRegistry theRegistry = new StubRegistry(new MemStubRepository());
+
+			theRegistry.hostCreate(new EPPHostCreateCmd("ABC-12345",
+					"ns1.example.com"), CLIENT);
+			createContact(theRegistry, "sh8013");
+			createDomain(theRegistry, "example.com", "ns1.example.com",
+					"sh8013");
+
+			EPPDomainInfoResp theInfo = (EPPDomainInfoResp) theRegistry
+					.domainInfo(new EPPDomainInfoCmd("ABC-12345",
+							"example.com"), OTHER_CLIENT);
+			Assert.assertNull(theInfo.getAuthInfo());
+
+			EPPDomainTransferCmd theRequest = new EPPDomainTransferCmd(
+					"ABC-12345", EPPCommand.OP_REQUEST, "example.com",
+					new EPPAuthInfo("bad"), null);
+			Assert.assertEquals(EPPResult.INVALID_AUTHORIZATION_INFO,
+					code(theRegistry.domainTransfer(theRequest, OTHER_CLIENT)));
+
+			theRequest = new EPPDomainTransferCmd("ABC-12345",
+					EPPCommand.OP_REQUEST, "example.com", new EPPAuthInfo(
+							"2fooBAR"), null);
+			Assert.assertEquals(EPPResult.SUCCESS_PENDING, code(theRegistry
+					.domainTransfer(theRequest, OTHER_CLIENT)));
+			Assert.assertEquals(EPPResult.OBJECT_PENDING_TRANSFER,
+					code(theRegistry.domainTransfer(theRequest, OTHER_CLIENT)));
+
+			// Pending transfer prohibits a delete
+			Assert.assertEquals(EPPResult.STATUS_PROHIBITS_OP, code(theRegistry
+					.domainDelete(new EPPDomainDeleteCmd("ABC-12345",
+							"example.com"), CLIENT)));
+
+			Assert.assertEquals(EPPResult.SUCCESS, code(theRegistry
+					.domainTransfer(new EPPDomainTransferCmd("ABC-12345",
+							EPPCommand.OP_APPROVE, "example.com"), CLIENT)));
+
+			theInfo = (EPPDomainInfoResp) theRegistry.domainInfo(
+					new EPPDomainInfoCmd("ABC-12345", "example.com"),
+					OTHER_CLIENT);
+			Assert.assertEquals(OTHER_CLIENT, theInfo.getClientId());
+			Assert.assertNotNull(theInfo.getAuthInfo());
+			Assert.assertNotNull(theInfo.getLastTransferDate());
+		}
+	}
+
+	/**
+	 * Verifies that the objects and links are restored from the snapshot
+	 * file.
+	 *
+	 * @throws Exception
+	 *             Error writing or reading the snapshot
+	 */
+	public void testSnapshot() throws Exception {
+		File theFile = File.createTempFile("StubRegistryTst", ".snapshot");
+		theFile.delete();
+
+		try {
+			for (int i = 0; i < numIterations; i++) {
+				MemStubRepository theRepository = new MemStubRepository(
+						theFile, 0);
+				StubRegistry theRegistry = new StubRegistry(theRepository);
+
+				theRegistry.hostCreate(new EPPHostCreateCmd("ABC-12345",
+						"ns1.example.com"), CLIENT);
+				createContact(theRegistry, "sh8013");
+				createDomain(theRegistry, "example" + i + ".com",
+						"ns1.example.com", "sh8013");
+				theRepository.close();
+
+				theRepository = new MemStubRepository(theFile, 0);
+				Assert.assertEquals(i + 1, theRepository
+						.size(StubRepository.DOMAIN));
+				Assert.assertEquals(i + 1, theRepository.get(
+						StubRepository.HOST, "ns1.example.com").getLinks());
+				Assert.assertEquals(CLIENT, ((EPPDomainInfoResp) theRepository
+						.get(StubRepository.DOMAIN, "example" + i + ".com")
+						.getInfo()).getClientId());
+				theRepository.close();
+			}
+		}
+		finally {
+			theFile.delete();
+		}
+	}
+
+	/**
+	 * JUNIT <code>suite</code> static method, which returns the tests
+	 * associated with <code>StubRegistryTst</code>.
+	 *
+	 * @return Test suite
+	 */
+	public static Test suite() {
+		TestSuite suite = new TestSuite(StubRegistryTst.class);
+
+		String numIterProp = System.getProperty("iterations");
+		if (numIterProp != null) {
+			numIterations = Integer.parseInt(numIterProp);
+		}
+
+		// Add the domain, host, and contact mappings to the EPPCodec.
+		try {
+			EPPFactory.getInstance().addMapFactory(
+					"com.verisign.epp.codec.host.EPPHostMapFactory");
+			EPPFactory.getInstance().addMapFactory(
+					"com.verisign.epp.codec.contact.EPPContactMapFactory");
+			EPPFactory.getInstance().addMapFactory(
+					"com.verisign.epp.codec.domain.EPPDomainMapFactory");
+		}
+		catch (EPPCodecException e) {
+			Assert.fail("EPPCodecException adding the map factories to EPPCodec: "
+					+ e);
+		}
+
+		return suite;
+	}
+
+	/**
+	 * Unit test main, which accepts the following system property options:
+	 * <br>
+	 * <ul>
+	 * <li>iterations Number of unit test iterations to run</li>
+	 * </ul>
+	 *
+	 * @param args
+	 *            Command line arguments
+	 */
+	public static void main(String args[]) {
+		junit.textui.TestRunner.run(suite());
+	}
+
+	/**
+	 * Sets the number of iterations to run per test.
+	 *
+	 * @param aNumIterations
+	 *            number of iterations to run per test
+	 */
+	public static void setNumIterations(long aNumIterations) {
+		numIterations = aNumIterations;
+	}
+
+}
@@ -0,0 +1,136 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.serverstub.repository;
+
+import java.io.IOException;
+
+/**
+ * Store of the domains, hosts, and contacts of the Stub Server registry
+ * behind {@link StubRegistry}. An implementation must be thread-safe
+ * without a global lock, since it is called concurrently by the client
+ * connection threads, and must apply {@link #update(int, String, Updater)}
+ * atomically per object. The objects are keyed by type and lower case name
+ * or identifier.
+ *
+ * @see MemStubRepository
+ */
+public interface StubRepository {
+
+	/**
+	 * Domain object type
+	 */
+	public static final int DOMAIN = 0;
+
+	/**
+	 * Host object type
+	 */
+	public static final int HOST = 1;
+
+	/**
+	 * Contact object type
+	 */
+	public static final int CONTACT = 2;
+
+	/**
+	 * Change of a stored object, which is applied atomically by
+	 * {@link StubRepository#update(int, String, Updater)}. An
+	 * <code>Updater</code> must not call the repository, since the object
+	 * may be locked while it runs.
+	 */
+	public interface Updater {
+
+		/**
+		 * Computes the new version of an object.
+		 *
+		 * @param aCurrent
+		 *            Stored object, or <code>null</code> if it does not
+		 *            exist. <code>aCurrent</code> must not be modified; use
+		 *            {@link StubObject#copy()}.
+		 *
+		 * @return New object to store, <code>aCurrent</code> to leave the
+		 *         object unchanged, or <code>null</code> to delete the
+		 *         object.
+		 */
+		public StubObject update(StubObject aCurrent);
+	}
+
+	/**
+	 * Gets an object.
+	 *
+	 * @param aType
+	 *            {@link #DOMAIN}, {@link #HOST}, or {@link #CONTACT}
+	 * @param aKey
+	 *            Lower case name or identifier
+	 *
+	 * @return Stored object if found; <code>null</code> otherwise.
+	 */
+	public StubObject get(int aType, String aKey);
+
+	/**
+	 * Stores an object if an object with the same key does not exist.
+	 *
+	 * @param aType
+	 *            {@link #DOMAIN}, {@link #HOST}, or {@link #CONTACT}
+	 * @param aObject
+	 *            Object to create
+	 *
+	 * @return <code>null</code> if created; the existing object otherwise.
+	 */
+	public StubObject create(int aType, StubObject aObject);
+
+	/**
+	 * Atomically replaces or deletes an object.
+	 *
+	 * @param aType
+	 *            {@link #DOMAIN}, {@link #HOST}, or {@link #CONTACT}
+	 * @param aKey
+	 *            Lower case name or identifier
+	 * @param aUpdater
+	 *            Computes the new version of the object
+	 *
+	 * @return Object stored after the update, or <code>null</code> if the
+	 *         object does not exist after the update.
+	 */
+	public StubObject update(int aType, String aKey, Updater aUpdater);
+
+	/**
+	 * Gets the number of objects of a type.
+	 *
+	 * @param aType
+	 *            {@link #DOMAIN}, {@link #HOST}, or {@link #CONTACT}
+	 *
+	 * @return Number of stored objects
+	 */
+	public int size(int aType);
+
+	/**
+	 * Saves the objects to the snapshot of the repository, if any.
+	 *
+	 * @throws IOException
+	 *             Error writing the snapshot
+	 */
+	public void snapshot() throws IOException;
+
+	/**
+	 * Saves a final snapshot and releases the resources of the repository.
+	 */
+	public void close();
+
+}
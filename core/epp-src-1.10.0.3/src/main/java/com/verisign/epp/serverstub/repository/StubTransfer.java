@@ -0,0 +1,169 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.serverstub.repository;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Transfer of a domain or contact in a {@link StubRepository}. A pending
+ * transfer is replaced with a copy of the final status when it is approved,
+ * rejected, or cancelled, so the last transfer can be queried.
+ */
+public class StubTransfer implements Serializable {
+
+	/**
+	 * Serial version of the snapshot format.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Transfer status, which is one of the <code>EPPResponse.TRANSFER_</code>
+	 * constants.
+	 */
+	private final String status;
+
+	/**
+	 * Client that requested the transfer.
+	 */
+	private final String requestClient;
+
+	/**
+	 * Date of the request.
+	 */
+	private final Date requestDate;
+
+	/**
+	 * Client that approves or rejects the transfer, which is the sponsoring
+	 * client.
+	 */
+	private final String actionClient;
+
+	/**
+	 * Date of the action, which is the auto approve date of a pending
+	 * transfer.
+	 */
+	private final Date actionDate;
+
+	/**
+	 * Expiration date of the domain after the transfer, <code>null</code>
+	 * for a contact.
+	 */
+	private final Date expirationDate;
+
+	/**
+	 * Creates a transfer.
+	 *
+	 * @param aStatus
+	 *            One of the <code>EPPResponse.TRANSFER_</code> constants
+	 * @param aRequestClient
+	 *            Client that requested the transfer
+	 * @param aRequestDate
+	 *            Date of the request
+	 * @param aActionClient
+	 *            Sponsoring client
+	 * @param aActionDate
+	 *            Date of the action
+	 * @param aExpirationDate
+	 *            Expiration date of the domain after the transfer, or
+	 *            <code>null</code>
+	 */
+	public StubTransfer(String aStatus, String aRequestClient,
+			Date aRequestDate, String aActionClient, Date aActionDate,
+			Date aExpirationDate) {
+		this.status = aStatus;
+		this.requestClient = aRequestClient;
+		this.requestDate = aRequestDate;
+		this.actionClient = aActionClient;
+		this.actionDate = aActionDate;
+		this.expirationDate = aExpirationDate;
+	}
+
+	/**
+	 * Creates a copy of the transfer with a final status.
+	 *
+	 * @param aStatus
+	 *            Final status
+	 * @param aActionDate
+	 *            Date of the action
+	 *
+	 * @return Transfer with <code>aStatus</code>
+	 */
+	public StubTransfer complete(String aStatus, Date aActionDate) {
+		return new StubTransfer(aStatus, this.requestClient, this.requestDate,
+				this.actionClient, aActionDate, this.expirationDate);
+	}
+
+	/**
+	 * Gets the transfer status.
+	 *
+	 * @return One of the <code>EPPResponse.TRANSFER_</code> constants
+	 */
+	public String getStatus() {
+		return this.status;
+	}
+
+	/**
+	 * Gets the client that requested the transfer.
+	 *
+	 * @return Requesting client
+	 */
+	public String getRequestClient() {
+		return this.requestClient;
+	}
+
+	/**
+	 * Gets the date of the request.
+	 *
+	 * @return Request date
+	 */
+	public Date getRequestDate() {
+		return this.requestDate;
+	}
+
+	/**
+	 * Gets the client that approves or rejects the transfer.
+	 *
+	 * @return Sponsoring client at the time of the request
+	 */
+	public String getActionClient() {
+		return this.actionClient;
+	}
+
+	/**
+	 * Gets the date of the action.
+	 *
+	 * @return Action date
+	 */
+	public Date getActionDate() {
+		return this.actionDate;
+	}
+
+	/**
+	 * Gets the expiration date of the domain after the transfer.
+	 *
+	 * @return Expiration date if a domain transfer; <code>null</code>
+	 *         otherwise.
+	 */
+	public Date getExpirationDate() {
+		return this.expirationDate;
+	}
+
+}
@@ -0,0 +1,85 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.transport;
+
+/**
+ * Connection handler used by the non-blocking servers like
+ * <code>EPPNioSSLServer</code>. Where a <code>ServerEventHandler</code> owns
+ * the streams of a connection for the life of the connection, a
+ * <code>ServerPacketHandler</code> is handed one complete EPP packet at a time
+ * and returns the response packet, so that no thread is bound to the
+ * connection between packets. The packets do not include the 4 byte EPP
+ * header. <br>
+ * <br>
+ * The handler passed to the server is used as a prototype that is cloned for
+ * each connection. The methods of a connection's handler are never called
+ * concurrently, but may be called from different threads.
+ *
+ * @see com.verisign.epp.transport.server.EPPNioServer
+ */
+public interface ServerPacketHandler extends Cloneable {
+
+	/**
+	 * Invoked when a new connection is established, which includes the
+	 * completion of the SSL handshake.
+	 *
+	 * @return Packet to send to the client, like the greeting, or
+	 *         <code>null</code> if there is nothing to send
+	 */
+	public byte[] openConnection();
+
+	/**
+	 * Handles a packet received from the client.
+	 *
+	 * @param aPacket
+	 *            Packet received from the client without the 4 byte EPP
+	 *            header
+	 *
+	 * @return Response packet to send to the client or <code>null</code> if
+	 *         there is no response to send
+	 */
+	public byte[] handlePacket(byte[] aPacket);
+
+	/**
+	 * Should the connection remain open? When <code>false</code> is returned
+	 * after <code>openConnection()</code> or <code>handlePacket(byte[])</code>,
+	 * the server will close the connection after sending the returned packet.
+	 *
+	 * @return <code>true</code> if the connection should remain open;
+	 *         <code>false</code> otherwise.
+	 */
+	public boolean isOpen();
+
+	/**
+	 * Invoked when the connection is closed by either the client or the
+	 * server.
+	 */
+	public void close();
+
+	/**
+	 * Clones the prototype handler for a new connection.
+	 *
+	 * @return Handler for a new connection
+	 *
+	 * @throws java.lang.CloneNotSupportedException
+	 *             Handler does not support cloning
+	 */
+	public Object clone() throws java.lang.CloneNotSupportedException;
+}
@@ -0,0 +1,779 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.transport.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLEngineResult.Status;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLPeerUnverifiedException;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.transport.ServerPacketHandler;
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPXMLStream;
+
+/**
+ * A single client connection of an <code>EPPNioServer</code>. All of the
+ * methods, except for <code>run()</code>, are called from the selector thread
+ * of the server. The connection reads and decrypts the data available on the
+ * channel, frames the EPP packets based on the 4 byte header, and hands one
+ * packet at a time to the server worker pool, which calls the
+ * <code>ServerPacketHandler</code> of the connection. Reading from the channel
+ * is suspended while a packet is being processed, so the packets of a
+ * connection are processed in order and a client cannot queue an unbounded
+ * number of packets.
+ */
+class EPPNioConnection implements Runnable {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(
+			EPPNioConnection.class.getName(), EPPCatFactory.getInstance()
+					.getFactory());
+
+	/** Size of the EPP network header in bytes */
+	private static final int HEADER_SIZE = 4;
+
+	/** Initial size of the plain text buffers */
+	private static final int INITIAL_BUFFER_SIZE = 8192;
+
+	/** Empty buffer used to drive the SSL handshake and close */
+	private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+	/** Server that owns the connection */
+	private EPPNioServer server;
+
+	/** Channel of the connection */
+	private SocketChannel channel;
+
+	/** SSL engine of the connection or <code>null</code> for a plain connection */
+	private SSLEngine engine;
+
+	/** Handler of the connection */
+	private ServerPacketHandler handler;
+
+	/** Selection key of the channel */
+	private SelectionKey key;
+
+	/** Encrypted data read from the channel, in write mode */
+	private ByteBuffer netIn;
+
+	/** Plain text data waiting to be framed, in write mode */
+	private ByteBuffer appIn;
+
+	/** Data waiting to be written to the channel, in read mode */
+	private ByteBuffer netOut;
+
+	/** Initial capacity of <code>netOut</code> */
+	private int netOutSize;
+
+	/** Has the connection been established, including the SSL handshake? */
+	private boolean established = false;
+
+	/** Is a packet being processed by a worker? */
+	private boolean busy = false;
+
+	/** Is the packet waiting for the worker pool, which rejected it? */
+	private boolean deferred = false;
+
+	/** Are the delegated SSL tasks being run by a worker? */
+	private boolean tasking = false;
+
+	/** Close the connection once the pending output is written? */
+	private boolean closing = false;
+
+	/** Has the connection been closed? */
+	private boolean closed = false;
+
+	/**
+	 * Packet waiting to be processed by a worker or <code>null</code> for the
+	 * open of the connection.
+	 */
+	private byte[] packet;
+
+	/** Response frame of the worker, including the 4 byte header */
+	private byte[] response;
+
+	/** Should the connection remain open based on the handler? */
+	private boolean open = true;
+
+	/**
+	 * Creates a connection.
+	 *
+	 * @param aServer
+	 *            Server that owns the connection
+	 * @param aChannel
+	 *            Accepted channel
+	 * @param aEngine
+	 *            SSL engine of the connection or <code>null</code> for a plain
+	 *            connection
+	 * @param aHandler
+	 *            Handler of the connection
+	 */
+	EPPNioConnection(EPPNioServer aServer, SocketChannel aChannel,
+			SSLEngine aEngine, ServerPacketHandler aHandler) {
+		this.server = aServer;
+		this.channel = aChannel;
+		this.engine = aEngine;
+		this.handler = aHandler;
+
+		if (this.engine != null) {
+			this.netIn = ByteBuffer.allocate(this.engine.getSession()
+					.getPacketBufferSize());
+			this.appIn = ByteBuffer.allocate(Math.max(INITIAL_BUFFER_SIZE,
+					this.engine.getSession().getApplicationBufferSize()));
+			this.netOutSize = this.engine.getSession().getPacketBufferSize();
+		}
+		else {
+			this.appIn = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+			this.netOutSize = INITIAL_BUFFER_SIZE;
+		}
+		this.netOut = ByteBuffer.allocate(this.netOutSize);
+		this.netOut.flip();
+	}
+
+	/**
+	 * Registers the connection with the selector and starts the SSL
+	 * handshake. A plain connection is established immediately.
+	 *
+	 * @param aSelector
+	 *            Selector of the server
+	 *
+	 * @throws IOException
+	 *             Error registering the channel
+	 */
+	void register(Selector aSelector) throws IOException {
+		this.channel.configureBlocking(false);
+		this.key = this.channel.register(aSelector, SelectionKey.OP_READ,
+				this);
+
+		if (this.engine != null) {
+			this.engine.beginHandshake();
+		}
+		else {
+			this.establish();
+		}
+		this.updateInterest();
+	}
+
+	/**
+	 * Reads the data available on the channel and dispatches the next
+	 * complete packet.
+	 *
+	 * @throws IOException
+	 *             Error reading from the channel
+	 */
+	void handleRead() throws IOException {
+		int theCount;
+		if (this.engine != null) {
+			theCount = this.channel.read(this.netIn);
+		}
+		else {
+			if (!this.appIn.hasRemaining()) {
+				this.appIn = enlarge(this.appIn, INITIAL_BUFFER_SIZE);
+			}
+			theCount = this.channel.read(this.appIn);
+		}
+
+		if (theCount < 0) {
+			cat.debug("handleRead(): Client closed connection");
+			this.close();
+			return;
+		}
+
+		if (this.engine != null) {
+			this.unwrap();
+		}
+
+		this.processInput();
+		this.flush();
+		this.updateInterest();
+	}
+
+	/**
+	 * Writes the pending output to the channel.
+	 *
+	 * @throws IOException
+	 *             Error writing to the channel
+	 */
+	void handleWrite() throws IOException {
+		this.flush();
+		this.updateInterest();
+	}
+
+	/**
+	 * Handles the completion of a worker by queuing the response, closing the
+	 * connection if requested by the handler, and dispatching the next
+	 * packet.
+	 *
+	 * @throws IOException
+	 *             Error writing to the channel
+	 */
+	void handleCompletion() throws IOException {
+		this.busy = false;
+
+		if (this.closed) {
+			this.handler.close();
+			return;
+		}
+
+		if (this.response != null) {
+			this.queueOutput(this.response);
+			this.response = null;
+		}
+
+		if (!this.open) {
+			this.startClose();
+		}
+
+		this.processInput();
+		this.flush();
+		this.updateInterest();
+	}
+
+	/**
+	 * Retries dispatching the packet that was rejected by the worker pool.
+	 *
+	 * @return <code>true</code> if the packet was dispatched or the connection
+	 *         is closed; <code>false</code> if the worker pool is still full.
+	 */
+	boolean retryDispatch() {
+		if (this.closed) {
+			return true;
+		}
+
+		try {
+			this.server.execute(this);
+			this.deferred = false;
+			return true;
+		}
+		catch (RejectedExecutionException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Resumes the SSL handshake once the delegated SSL tasks were run by a
+	 * worker, and processes the data read while the tasks were running.
+	 *
+	 * @throws IOException
+	 *             SSL error or error writing to the channel
+	 */
+	void handleTasksDone() throws IOException {
+		this.tasking = false;
+
+		if (this.closed) {
+			return;
+		}
+
+		this.handshake(this.engine.getHandshakeStatus());
+		this.unwrap();
+		this.processInput();
+		this.flush();
+		this.updateInterest();
+	}
+
+	/**
+	 * Processes the pending packet, or opens the connection when there is no
+	 * packet, with the handler. This is called by a server worker thread.
+	 */
+	public void run() {
+		boolean isOpen = false;
+		this.response = null;
+
+		try {
+			byte[] theResponse;
+			if (this.packet == null) {
+				theResponse = this.handler.openConnection();
+			}
+			else {
+				theResponse = this.handler.handlePacket(this.packet);
+			}
+			this.response = frame(theResponse);
+			isOpen = this.handler.isOpen();
+		}
+		catch (RuntimeException ex) {
+			cat.error("run(): Exception processing packet, closing connection",
+					ex);
+			this.response = null;
+		}
+		finally {
+			// Always return the connection to the selector thread, which
+			// closes it when it is not open, even on an Error
+			this.packet = null;
+			this.open = isOpen;
+
+			this.server.complete(this);
+		}
+	}
+
+	/**
+	 * Closes the connection without writing the pending output.
+	 */
+	void close() {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+
+		if (this.key != null) {
+			this.key.cancel();
+		}
+
+		if (this.engine != null) {
+			this.engine.closeOutbound();
+		}
+
+		try {
+			this.channel.close();
+		}
+		catch (IOException ex) {
+			cat.debug("close(): Exception closing channel: " + ex);
+		}
+
+		// Handler is closed on completion of the active worker, or now if
+		// the packet is still waiting for the worker pool
+		if (!this.busy) {
+			this.handler.close();
+		}
+		else if (this.deferred) {
+			this.busy = false;
+			this.deferred = false;
+			this.packet = null;
+			this.handler.close();
+		}
+
+		this.server.connectionClosed(this);
+	}
+
+	/**
+	 * Is the connection closed?
+	 *
+	 * @return <code>true</code> if the connection is closed;
+	 *         <code>false</code> otherwise.
+	 */
+	boolean isClosed() {
+		return this.closed;
+	}
+
+	/**
+	 * Marks the connection as established and dispatches the open of the
+	 * connection to the worker pool, so that the handler can send the
+	 * greeting.
+	 */
+	private void establish() {
+		this.established = true;
+
+		if (this.engine != null && cat.isDebugEnabled()) {
+			try {
+				cat.debug("Server SSL Handshake" + ": Cipher = "
+						+ this.engine.getSession().getCipherSuite()
+						+ ": Protocol = "
+						+ this.engine.getSession().getProtocol() + ": Peer = "
+						+ this.engine.getSession().getPeerPrincipal().getName());
+			}
+			catch (SSLPeerUnverifiedException e) {
+				// ignore
+			}
+		}
+
+		this.dispatch(null);
+	}
+
+	/**
+	 * Dispatches the next complete packet to the worker pool if there is no
+	 * packet being processed.
+	 *
+	 * @throws IOException
+	 *             Invalid packet header
+	 */
+	private void processInput() throws IOException {
+		if (!this.established || this.busy || this.closing || this.closed) {
+			return;
+		}
+
+		this.appIn.flip();
+
+		if (this.appIn.remaining() < HEADER_SIZE) {
+			this.appIn.compact();
+			return;
+		}
+
+		int theFrameSize = this.appIn.getInt(this.appIn.position());
+		if (theFrameSize < HEADER_SIZE
+				|| theFrameSize > EPPXMLStream.getMaxPacketSize()) {
+			throw new IOException("Invalid packet header size of "
+					+ theFrameSize + " bytes");
+		}
+
+		if (this.appIn.remaining() < theFrameSize) {
+			this.appIn.compact();
+
+			// Make room for the rest of the packet
+			if (this.appIn.capacity() < theFrameSize) {
+				this.appIn = enlarge(this.appIn, theFrameSize
+						- this.appIn.position());
+			}
+			return;
+		}
+
+		byte[] thePacket = new byte[theFrameSize - HEADER_SIZE];
+		this.appIn.position(this.appIn.position() + HEADER_SIZE);
+		this.appIn.get(thePacket);
+		this.appIn.compact();
+
+		this.dispatch(thePacket);
+	}
+
+	/**
+	 * Dispatches a packet to the worker pool. If the worker pool is full, the
+	 * connection is deferred and retried by the server.
+	 *
+	 * @param aPacket
+	 *            Packet to process or <code>null</code> to open the connection
+	 */
+	private void dispatch(byte[] aPacket) {
+		this.busy = true;
+		this.packet = aPacket;
+
+		try {
+			this.server.execute(this);
+		}
+		catch (RejectedExecutionException ex) {
+			cat.debug("dispatch(): Worker pool full, deferring connection");
+			this.deferred = true;
+			this.server.defer(this);
+		}
+	}
+
+	/**
+	 * Runs the delegated SSL tasks, like the certificate validation of the
+	 * handshake, with a worker so that they don't block the selector thread.
+	 * Reading is suspended until {@link #handleTasksDone()} is called by the
+	 * selector thread. The tasks are run by the selector thread when the
+	 * worker pool is full.
+	 */
+	private void runTasks() {
+		this.tasking = true;
+
+		Runnable theTasks = new Runnable() {
+
+			public void run() {
+				try {
+					Runnable theTask;
+					while ((theTask = engine.getDelegatedTask()) != null) {
+						theTask.run();
+					}
+				}
+				catch (RuntimeException ex) {
+					cat.error("runTasks(): Exception running SSL task", ex);
+				}
+
+				server.tasksDone(EPPNioConnection.this);
+			}
+		};
+
+		try {
+			this.server.execute(theTasks);
+		}
+		catch (RejectedExecutionException ex) {
+			cat.debug("runTasks(): Worker pool full, running SSL tasks");
+			theTasks.run();
+		}
+	}
+
+	/**
+	 * Starts closing the connection, which will complete once the pending
+	 * output is written.
+	 *
+	 * @throws SSLException
+	 *             Error creating the SSL close notification
+	 */
+	private void startClose() throws SSLException {
+		this.closing = true;
+
+		if (this.engine != null) {
+			this.engine.closeOutbound();
+			this.wrap(EMPTY);
+		}
+	}
+
+	/**
+	 * Decrypts the data in <code>netIn</code> into <code>appIn</code> while
+	 * driving the SSL handshake.
+	 *
+	 * @throws IOException
+	 *             SSL error
+	 */
+	private void unwrap() throws IOException {
+		this.netIn.flip();
+		try {
+			while (this.netIn.hasRemaining() && !this.closed && !this.tasking) {
+				SSLEngineResult theResult = this.engine.unwrap(this.netIn,
+						this.appIn);
+
+				if (theResult.getStatus() == Status.BUFFER_OVERFLOW) {
+					this.appIn = enlarge(this.appIn, this.engine.getSession()
+							.getApplicationBufferSize());
+					continue;
+				}
+				if (theResult.getStatus() == Status.BUFFER_UNDERFLOW) {
+					break;
+				}
+				if (theResult.getStatus() == Status.CLOSED) {
+					cat.debug("unwrap(): Client sent SSL close");
+					this.startClose();
+					break;
+				}
+
+				this.handshake(theResult.getHandshakeStatus());
+
+				if (theResult.bytesConsumed() == 0
+						&& theResult.bytesProduced() == 0) {
+					break;
+				}
+			}
+		}
+		finally {
+			this.netIn.compact();
+		}
+	}
+
+	/**
+	 * Drives the SSL handshake until it needs more data from the client or
+	 * the delegated SSL tasks are handed to a worker.
+	 *
+	 * @param aStatus
+	 *            Handshake status of the last SSL operation
+	 *
+	 * @throws SSLException
+	 *             SSL error
+	 */
+	private void handshake(HandshakeStatus aStatus) throws SSLException {
+		HandshakeStatus theStatus = aStatus;
+
+		while (true) {
+			if (theStatus == HandshakeStatus.NEED_TASK) {
+				this.runTasks();
+				return;
+			}
+			else if (theStatus == HandshakeStatus.NEED_WRAP) {
+				theStatus = this.wrap(EMPTY);
+			}
+			else if (theStatus == HandshakeStatus.FINISHED
+					|| theStatus == HandshakeStatus.NOT_HANDSHAKING) {
+				if (!this.established && !this.closing) {
+					this.establish();
+				}
+				return;
+			}
+			else {
+				// NEED_UNWRAP
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Appends a frame to the pending output, encrypting it for an SSL
+	 * connection.
+	 *
+	 * @param aFrame
+	 *            Frame including the 4 byte header
+	 *
+	 * @throws SSLException
+	 *             Error encrypting the frame
+	 */
+	private void queueOutput(byte[] aFrame) throws SSLException {
+		if (this.engine != null) {
+			this.wrap(ByteBuffer.wrap(aFrame));
+		}
+		else {
+			this.prepareOutput(aFrame.length);
+			this.netOut.put(aFrame);
+			this.netOut.flip();
+		}
+	}
+
+	/**
+	 * Encrypts <code>aSource</code> into the pending output.
+	 *
+	 * @param aSource
+	 *            Plain text to encrypt
+	 *
+	 * @return Handshake status after the last SSL operation
+	 *
+	 * @throws SSLException
+	 *             Error encrypting the data
+	 */
+	private HandshakeStatus wrap(ByteBuffer aSource) throws SSLException {
+		SSLEngineResult theResult;
+
+		do {
+			this.prepareOutput(this.engine.getSession().getPacketBufferSize());
+			try {
+				theResult = this.engine.wrap(aSource, this.netOut);
+			}
+			finally {
+				this.netOut.flip();
+			}
+
+			if (theResult.getStatus() == Status.CLOSED) {
+				break;
+			}
+			if (theResult.getHandshakeStatus() == HandshakeStatus.NEED_TASK) {
+				// Let handshake() hand the tasks to a worker
+				if (!aSource.hasRemaining()) {
+					break;
+				}
+
+				// Run the tasks of a renegotiation in the middle of a
+				// response, since the rest of the response must be wrapped
+				Runnable theTask;
+				while ((theTask = this.engine.getDelegatedTask()) != null) {
+					theTask.run();
+				}
+			}
+		}
+		while (aSource.hasRemaining());
+
+		return this.engine.getHandshakeStatus();
+	}
+
+	/**
+	 * Switches <code>netOut</code> to write mode with room for at least
+	 * <code>aSize</code> bytes. The caller must flip <code>netOut</code> back
+	 * to read mode.
+	 *
+	 * @param aSize
+	 *            Number of bytes to make room for
+	 */
+	private void prepareOutput(int aSize) {
+		this.netOut.compact();
+		if (this.netOut.remaining() < aSize) {
+			this.netOut = enlarge(this.netOut, aSize);
+		}
+	}
+
+	/**
+	 * Writes the pending output to the channel. When the pending output is
+	 * written and the connection is closing, the connection is closed.
+	 *
+	 * @throws IOException
+	 *             Error writing to the channel
+	 */
+	private void flush() throws IOException {
+		if (this.closed) {
+			return;
+		}
+
+		while (this.netOut.hasRemaining()) {
+			if (this.channel.write(this.netOut) == 0) {
+				break;
+			}
+		}
+
+		if (!this.netOut.hasRemaining()) {
+			// Release a large output buffer
+			if (this.netOut.capacity() > this.netOutSize) {
+				this.netOut = ByteBuffer.allocate(this.netOutSize);
+				this.netOut.flip();
+			}
+
+			if (this.closing && !this.busy) {
+				this.close();
+			}
+		}
+	}
+
+	/**
+	 * Updates the interest set of the selection key based on the state of the
+	 * connection. Reading is suspended while a packet is processed or the
+	 * delegated SSL tasks are running.
+	 */
+	private void updateInterest() {
+		if (this.closed || !this.key.isValid()) {
+			return;
+		}
+
+		int theOps = 0;
+		if (!this.busy && !this.closing && !this.tasking) {
+			theOps |= SelectionKey.OP_READ;
+		}
+		if (this.netOut.hasRemaining()) {
+			theOps |= SelectionKey.OP_WRITE;
+		}
+		this.key.interestOps(theOps);
+	}
+
+	/**
+	 * Creates a frame with the 4 byte EPP header followed by the packet.
+	 *
+	 * @param aPacket
+	 *            Packet to frame. <code>null</code> is allowed.
+	 *
+	 * @return Frame or <code>null</code> if <code>aPacket</code> is
+	 *         <code>null</code>
+	 */
+	private static byte[] frame(byte[] aPacket) {
+		if (aPacket == null) {
+			return null;
+		}
+
+		int theFrameSize = aPacket.length + HEADER_SIZE;
+		byte[] theFrame = new byte[theFrameSize];
+		theFrame[0] = (byte) (theFrameSize >>> 24);
+		theFrame[1] = (byte) (theFrameSize >>> 16);
+		theFrame[2] = (byte) (theFrameSize >>> 8);
+		theFrame[3] = (byte) theFrameSize;
+		System.arraycopy(aPacket, 0, theFrame, HEADER_SIZE, aPacket.length);
+
+		return theFrame;
+	}
+
+	/**
+	 * Creates a larger buffer in write mode with the content of
+	 * <code>aBuffer</code>, which must be in write mode.
+	 *
+	 * @param aBuffer
+	 *            Buffer to enlarge
+	 * @param aExtra
+	 *            Minimum number of additional bytes
+	 *
+	 * @return Enlarged buffer in write mode
+	 */
+	private static ByteBuffer enlarge(ByteBuffer aBuffer, int aExtra) {
+		ByteBuffer theBuffer = ByteBuffer.allocate(Math.max(
+				aBuffer.capacity() * 2, aBuffer.position() + aExtra));
+		aBuffer.flip();
+		theBuffer.put(aBuffer);
+		return theBuffer;
+	}
+
+}
@@ -0,0 +1,51 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.transport.server;
+
+import javax.net.ssl.SSLEngine;
+
+import com.verisign.epp.transport.EPPConException;
+
+/**
+ * Non-blocking plain TCP server. Set <code>EPP.ServerSocketName</code> to
+ * <code>com.verisign.epp.transport.server.EPPNioPlainServer</code> to use it.
+ */
+public class EPPNioPlainServer extends EPPNioServer {
+
+	/**
+	 * Creates an <code>EPPNioPlainServer</code> that gets the port number to
+	 * listen on.
+	 *
+	 * @throws EPPConException
+	 *             Error getting the server port
+	 */
+	public EPPNioPlainServer() throws EPPConException {
+		super();
+	}
+
+	/**
+	 * Plain connections do not use an <code>SSLEngine</code>.
+	 *
+	 * @return <code>null</code>
+	 */
+	protected SSLEngine createSSLEngine() {
+		return null;
+	}
+}
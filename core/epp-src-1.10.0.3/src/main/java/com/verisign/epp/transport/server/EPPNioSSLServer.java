@@ -0,0 +1,93 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.transport.server;
+
+import javax.net.ssl.SSLEngine;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.transport.EPPConException;
+import com.verisign.epp.transport.client.EPPSSLContext;
+import com.verisign.epp.transport.client.EPPSSLImpl;
+import com.verisign.epp.util.EPPCatFactory;
+
+/**
+ * Non-blocking SSL server that uses an <code>SSLEngine</code> per connection
+ * with the SSL configuration of <code>EPPSSLImpl</code>. Client
+ * authentication is required, like with <code>EPPSSLServer</code>. Set
+ * <code>EPP.ServerSocketName</code> to
+ * <code>com.verisign.epp.transport.server.EPPNioSSLServer</code> to use it.
+ */
+public class EPPNioSSLServer extends EPPNioServer {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(
+			EPPNioSSLServer.class.getName(), EPPCatFactory.getInstance()
+					.getFactory());
+
+	/**
+	 * Creates an <code>EPPNioSSLServer</code> that initializes the SSL
+	 * configuration and gets the port number to listen on.
+	 *
+	 * @throws EPPConException
+	 *             Error initializing SSL server
+	 */
+	public EPPNioSSLServer() throws EPPConException {
+		super();
+
+		if (!EPPSSLImpl.isInitialized()) {
+			cat.info("EPPNioSSLServer.EPPNioSSLServer(): Initializing server SSL configuration");
+
+			// Initialize the SSL configuration
+			EPPSSLImpl.initialize();
+
+			cat.info("EPPNioSSLServer.EPPNioSSLServer(): server SSL configuration complete");
+		}
+		else {
+			cat.debug("EPPNioSSLServer.EPPNioSSLServer(): server SSL configuration already done");
+		}
+	}
+
+	/**
+	 * Creates a server mode <code>SSLEngine</code> that requires client
+	 * authentication and uses the enabled protocols and cipher suites of the
+	 * SSL configuration.
+	 *
+	 * @return <code>SSLEngine</code> for a new connection
+	 */
+	protected SSLEngine createSSLEngine() {
+		EPPSSLContext eppSSLContext = EPPSSLImpl.getEPPSSLContext();
+
+		SSLEngine theEngine = EPPSSLImpl.getSSLContext().createSSLEngine();
+		theEngine.setUseClientMode(false);
+		theEngine.setNeedClientAuth(true);
+
+		if (eppSSLContext.hasSSLEnabledProtocols()) {
+			theEngine.setEnabledProtocols(eppSSLContext
+					.getSSLEnabledProtocols());
+		}
+		if (eppSSLContext.hasSSLEnabledCipherSuites()) {
+			theEngine.setEnabledCipherSuites(eppSSLContext
+					.getSSLEnabledCipherSuites());
+		}
+
+		return theEngine;
+	}
+}
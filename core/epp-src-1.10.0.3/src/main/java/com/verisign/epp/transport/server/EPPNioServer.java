@@ -0,0 +1,466 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.transport.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLEngine;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.transport.EPPConException;
+import com.verisign.epp.transport.EPPServerCon;
+import com.verisign.epp.transport.ServerEventHandler;
+import com.verisign.epp.transport.ServerPacketHandler;
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPEnv;
+import com.verisign.epp.util.EPPEnvException;
+
+/**
+ * Non-blocking server base class that handles all of the client connections
+ * with a single selector thread. Complete EPP packets are processed by a
+ * bounded pool of worker threads, so idle connections do not consume a
+ * thread. The handler passed to <code>RunServer</code> must implement
+ * <code>ServerPacketHandler</code>, and is cloned for each connection. <br>
+ * <br>
+ * The following properties are used in addition to
+ * <code>EPP.ServerPort</code>:<br>
+ * <ul>
+ * <li><code>EPP.ServerWorkerThreads</code> - Number of worker threads, with
+ * a default of twice the number of processors.</li>
+ * <li><code>EPP.ServerWorkerQueueSize</code> - Maximum number of packets
+ * waiting for a worker thread, with a default of 1000. Connections with a
+ * packet that does not fit in the queue are retried.</li>
+ * </ul>
+ *
+ * @see EPPNioSSLServer
+ * @see EPPNioPlainServer
+ */
+public abstract class EPPNioServer implements EPPServerCon {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPNioServer.class.getName(),
+			EPPCatFactory.getInstance().getFactory());
+
+	/**
+	 * Interval in milliseconds for retrying connections with a packet that
+	 * was rejected by a full worker pool.
+	 */
+	private static final long RETRY_INTERVAL = 50;
+
+	/** Selector used for all of the channels */
+	private Selector selector = null;
+
+	/** Server channel used to accept new client connections */
+	private ServerSocketChannel serverChannel = null;
+
+	/** Worker threads that process the packets */
+	private ThreadPoolExecutor workers = null;
+
+	/** Is the server actively listening for new connections? */
+	private volatile boolean listening = true;
+
+	/** The connection handler prototype */
+	private ServerPacketHandler handler = null;
+
+	/** Server port number to listen on */
+	private int portNumber = 0;
+
+	/** Connections with a completed worker */
+	private ConcurrentLinkedQueue<EPPNioConnection> completed = new ConcurrentLinkedQueue<EPPNioConnection>();
+
+	/** Connections whose delegated SSL tasks were run by a worker */
+	private ConcurrentLinkedQueue<EPPNioConnection> tasksDone = new ConcurrentLinkedQueue<EPPNioConnection>();
+
+	/**
+	 * Connections with a packet rejected by the worker pool. Only accessed by
+	 * the selector thread.
+	 */
+	private LinkedList<EPPNioConnection> deferred = new LinkedList<EPPNioConnection>();
+
+	/** Number of open connections */
+	private AtomicInteger connectionCount = new AtomicInteger();
+
+	/**
+	 * Creates an <code>EPPNioServer</code> that gets the port number to
+	 * listen on. The server will listen on all interfaces.
+	 *
+	 * @throws EPPConException
+	 *             Error getting the server port
+	 */
+	protected EPPNioServer() throws EPPConException {
+		try {
+			this.portNumber = EPPEnv.getServerPort();
+		}
+		catch (EPPEnvException myException) {
+			cat.error("Connection Failed Due to : " + myException.getMessage(),
+					myException);
+			throw new EPPConException("Connection Failed Due to : "
+					+ myException.getMessage());
+		}
+
+		cat.debug("EPPNioServer.EPPNioServer(): ServerPort = "
+				+ this.portNumber);
+	}
+
+	/**
+	 * Creates the <code>SSLEngine</code> for a new connection.
+	 *
+	 * @return <code>SSLEngine</code> to use for the connection or
+	 *         <code>null</code> for a plain connection
+	 *
+	 * @throws EPPConException
+	 *             Error creating the <code>SSLEngine</code>
+	 */
+	protected abstract SSLEngine createSSLEngine() throws EPPConException;
+
+	/**
+	 * Starts the server by creating the server channel, the worker pool, and
+	 * going into the selector loop.
+	 *
+	 * @param aHandler
+	 *            Connection handler that must implement
+	 *            <code>ServerPacketHandler</code>
+	 *
+	 * @throws EPPConException
+	 *             Error creating server channel or invalid handler
+	 */
+	public void RunServer(ServerEventHandler aHandler) throws EPPConException {
+		cat.debug("EPPNioServer.RunServer(): entering Method");
+
+		if (!(aHandler instanceof ServerPacketHandler)) {
+			throw new EPPConException("EPPNioServer.RunServer(): Handler "
+					+ (aHandler == null ? null : aHandler.getClass().getName())
+					+ " does not implement ServerPacketHandler");
+		}
+		this.handler = (ServerPacketHandler) aHandler;
+
+		try {
+			this.selector = Selector.open();
+			this.serverChannel = ServerSocketChannel.open();
+			this.serverChannel.socket().setReuseAddress(true);
+			this.serverChannel.socket().bind(
+					new InetSocketAddress(this.portNumber));
+			this.serverChannel.configureBlocking(false);
+			this.serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+		}
+		catch (IOException myException) {
+			cat.error("Could not Create a ServerSocket "
+					+ myException.getMessage(), myException);
+			throw new EPPConException("Could not Create a ServerSocket "
+					+ myException.getMessage());
+		}
+
+		int theThreads = EPPEnv.getServerWorkerThreads();
+		int theQueueSize = EPPEnv.getServerWorkerQueueSize();
+		cat.info("EPPNioServer.RunServer(): workerThreads = " + theThreads
+				+ ", workerQueueSize = " + theQueueSize);
+
+		this.workers = new ThreadPoolExecutor(theThreads, theThreads, 60L,
+				TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(
+						theQueueSize), new ThreadFactory() {
+
+					private AtomicInteger count = new AtomicInteger();
+
+					public Thread newThread(Runnable aRunnable) {
+						Thread theThread = new Thread(aRunnable,
+								"EPPNioServerWorker-"
+										+ this.count.incrementAndGet());
+						theThread.setDaemon(true);
+						return theThread;
+					}
+				});
+
+		loop();
+		close();
+
+		cat.debug("EPPNioServer.RunServer(): Exiting Method");
+	}
+
+	/**
+	 * Run the selector loop while the listening flag is <code>true</code>.
+	 * Inside the loop, the server accepts new connections, reads and writes
+	 * the connections that are ready, and handles the completed workers.
+	 *
+	 * @throws EPPConException
+	 *             Error with the selector
+	 */
+	public void loop() throws EPPConException {
+		cat.debug("EPPNioServer.loop(): Entering Method");
+
+		while (this.listening) {
+			try {
+				this.selector.select(this.deferred.isEmpty() ? 0
+						: RETRY_INTERVAL);
+			}
+			catch (IOException myException) {
+				cat.error("I/O Error occured when waiting for connection",
+						myException);
+				throw new EPPConException(
+						"I/O Error occured when waiting for connection");
+			}
+
+			// Completed workers
+			EPPNioConnection theConnection;
+			while ((theConnection = this.completed.poll()) != null) {
+				try {
+					theConnection.handleCompletion();
+				}
+				catch (IOException ex) {
+					cat.debug("loop(): Exception completing packet: " + ex);
+					theConnection.close();
+				}
+			}
+
+			// Completed SSL tasks
+			while ((theConnection = this.tasksDone.poll()) != null) {
+				try {
+					theConnection.handleTasksDone();
+				}
+				catch (IOException ex) {
+					cat.debug("loop(): Exception resuming SSL handshake: " + ex);
+					theConnection.close();
+				}
+			}
+
+			// Packets rejected by the worker pool
+			while (!this.deferred.isEmpty()
+					&& this.deferred.getFirst().retryDispatch()) {
+				this.deferred.removeFirst();
+			}
+
+			// Ready channels
+			Iterator<SelectionKey> theKeys = this.selector.selectedKeys()
+					.iterator();
+			while (theKeys.hasNext()) {
+				SelectionKey theKey = theKeys.next();
+				theKeys.remove();
+
+				if (!theKey.isValid()) {
+					continue;
+				}
+
+				if (theKey.isAcceptable()) {
+					this.accept();
+					continue;
+				}
+
+				theConnection = (EPPNioConnection) theKey.attachment();
+				try {
+					if (theKey.isReadable()) {
+						theConnection.handleRead();
+					}
+					if (theKey.isValid() && theKey.isWritable()) {
+						theConnection.handleWrite();
+					}
+				}
+				catch (IOException ex) {
+					cat.debug("loop(): Exception on connection: " + ex);
+					theConnection.close();
+				}
+			}
+		}
+
+		cat.debug("EPPNioServer.loop(): Exting Method");
+	}
+
+	/**
+	 * Accepts a new client connection and registers it with the selector.
+	 */
+	private void accept() {
+		SocketChannel theChannel = null;
+
+		try {
+			theChannel = this.serverChannel.accept();
+			if (theChannel == null) {
+				return;
+			}
+			theChannel.socket().setTcpNoDelay(true);
+
+			EPPNioConnection theConnection = new EPPNioConnection(this,
+					theChannel, this.createSSLEngine(),
+					(ServerPacketHandler) this.handler.clone());
+			theConnection.register(this.selector);
+			this.connectionCount.incrementAndGet();
+
+			cat.debug("accept(): Accepted connection from "
+					+ theChannel.socket().getRemoteSocketAddress()
+					+ ", connections = " + this.connectionCount.get());
+		}
+		catch (Exception ex) {
+			cat.error("accept(): Exception accepting connection: " + ex, ex);
+			if (theChannel != null) {
+				try {
+					theChannel.close();
+				}
+				catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	/**
+	 * Closes the server channel, all of the client connections, and stops the
+	 * worker pool.
+	 *
+	 * @throws EPPConException
+	 *             Error closing the server channel
+	 */
+	public void close() throws EPPConException {
+		cat.debug("EPPNioServer.close(): Entering Method");
+
+		try {
+			if (this.selector != null) {
+				Iterator<SelectionKey> theKeys = this.selector.keys()
+						.iterator();
+				while (theKeys.hasNext()) {
+					Object theAttachment = theKeys.next().attachment();
+					if (theAttachment instanceof EPPNioConnection) {
+						((EPPNioConnection) theAttachment).close();
+					}
+				}
+				this.selector.close();
+			}
+
+			if (this.serverChannel != null) {
+				this.serverChannel.close();
+			}
+		}
+		catch (IOException myException) {
+			cat.error("Close on Server socket Failed"
+					+ myException.getMessage(), myException);
+			throw new EPPConException("Close on Server socket Failed"
+					+ myException.getMessage());
+		}
+		finally {
+			if (this.workers != null) {
+				this.workers.shutdown();
+			}
+		}
+
+		cat.debug("EPPNioServer.close(): Exting Method");
+	}
+
+	/**
+	 * Submits a connection with a packet or the delegated SSL tasks of a
+	 * connection to the worker pool.
+	 *
+	 * @param aWork
+	 *            Connection with a packet to process or SSL tasks to run
+	 *
+	 * @throws RejectedExecutionException
+	 *             The worker pool is full
+	 */
+	void execute(Runnable aWork) throws RejectedExecutionException {
+		this.workers.execute(aWork);
+	}
+
+	/**
+	 * Defers a connection with a packet that was rejected by the worker pool.
+	 * Called from the selector thread.
+	 *
+	 * @param aConnection
+	 *            Connection to retry
+	 */
+	void defer(EPPNioConnection aConnection) {
+		this.deferred.addLast(aConnection);
+	}
+
+	/**
+	 * Notifies the selector thread of the completion of a worker. Called from
+	 * a worker thread.
+	 *
+	 * @param aConnection
+	 *            Connection with a completed worker
+	 */
+	void complete(EPPNioConnection aConnection) {
+		this.completed.add(aConnection);
+		this.selector.wakeup();
+	}
+
+	/**
+	 * Notifies the selector thread that the delegated SSL tasks of a
+	 * connection were run. Called from a worker thread, or from the selector
+	 * thread when the worker pool is full.
+	 *
+	 * @param aConnection
+	 *            Connection to resume the SSL handshake of
+	 */
+	void tasksDone(EPPNioConnection aConnection) {
+		this.tasksDone.add(aConnection);
+		this.selector.wakeup();
+	}
+
+	/**
+	 * Notification of a closed connection.
+	 *
+	 * @param aConnection
+	 *            Closed connection
+	 */
+	void connectionClosed(EPPNioConnection aConnection) {
+		this.connectionCount.decrementAndGet();
+	}
+
+	/**
+	 * Gets the number of open client connections.
+	 *
+	 * @return Number of open client connections
+	 */
+	public int getConnectionCount() {
+		return this.connectionCount.get();
+	}
+
+	/**
+	 * Is the server actively listening for connections?
+	 *
+	 * @return Listening boolean property
+	 */
+	public boolean isListening() {
+		return this.listening;
+	}
+
+	/**
+	 * Sets the server listing property that can be used to stop the server.
+	 *
+	 * @param aListening
+	 *            <code>false</code> to stop the server.
+	 */
+	public void setListening(boolean aListening) {
+		this.listening = aListening;
+		if (!aListening && this.selector != null) {
+			this.selector.wakeup();
+		}
+	}
+}
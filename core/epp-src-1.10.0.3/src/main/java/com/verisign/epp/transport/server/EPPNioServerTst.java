@@ -0,0 +1,385 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.transport.server;
+
+//----------------------------------------------
+//
+// imports...
+//
+//----------------------------------------------
+
+// Java Core Imports
+import java.io.EOFException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+
+import javax.net.ssl.SSLSocket;
+
+// JUNIT Imports
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import com.verisign.epp.transport.ServerEventHandler;
+import com.verisign.epp.transport.ServerPacketHandler;
+import com.verisign.epp.transport.client.EPPSSLImpl;
+import com.verisign.epp.util.EPPEnv;
+import com.verisign.epp.util.EPPEnvSingle;
+import com.verisign.epp.util.EPPXMLStream;
+
+/**
+ * Is a unit test of the non-blocking servers <code>EPPNioPlainServer</code>
+ * and <code>EPPNioSSLServer</code>. The servers are run with an echo handler
+ * on the port defined by <code>EPP.ServerPort</code> in the configuration
+ * file, which defaults to epp.config and can be overridden with the
+ * <code>EPP.ConfigFile</code> system property. The SSL test uses the
+ * <code>EPP.SSL</code> properties for both the server and the clients.
+ */
+public class EPPNioServerTst extends TestCase {
+
+	/**
+	 * Number of unit test iterations to run. This is set with the
+	 * <code>iterations</code> system property.
+	 */
+	static private long numIterations = 1;
+
+	/** Name of configuration file to use for test (default = epp.config). */
+	private static String configFileName = "epp.config";
+
+	/** Number of concurrent connections to open */
+	private static final int NUM_CONNECTIONS = 200;
+
+	/** Greeting packet sent by the echo handler */
+	private static final byte[] GREETING = "<greeting/>".getBytes();
+
+	/** Packet that closes the connection of the echo handler */
+	private static final byte[] LOGOUT = "<logout/>".getBytes();
+
+	/**
+	 * Handler that sends a greeting and echoes each packet, closing the
+	 * connection after the logout packet.
+	 */
+	public static class EchoHandler implements ServerEventHandler,
+			ServerPacketHandler {
+
+		private boolean open = true;
+
+		public void handleConnection(InputStream newInputStream,
+				OutputStream newOutputStream) {
+			// Not used by the non-blocking servers
+		}
+
+		public byte[] openConnection() {
+			return GREETING;
+		}
+
+		public byte[] handlePacket(byte[] aPacket) {
+			if (Arrays.equals(LOGOUT, aPacket)) {
+				this.open = false;
+			}
+			return aPacket;
+		}
+
+		public boolean isOpen() {
+			return this.open;
+		}
+
+		public void close() {
+			this.open = false;
+		}
+
+		public Object clone() throws CloneNotSupportedException {
+			return super.clone();
+		}
+	}
+
+	/**
+	 * Allocates a new instance of <code>EPPNioServerTst</code>.
+	 *
+	 * @param name
+	 *            Name of test
+	 */
+	public EPPNioServerTst(String name) {
+		super(name);
+	}
+
+	/**
+	 * Tests many concurrent plain connections that each exchange packets with
+	 * the server, which should not use a thread per connection.
+	 */
+	public void testPlainConnections() {
+		for (int i = 0; i < numIterations; i++) {
+			doConnections(false);
+		}
+	}
+
+	/**
+	 * Tests many concurrent SSL connections that each exchange packets with
+	 * the server.
+	 */
+	public void testSSLConnections() {
+		for (int i = 0; i < numIterations; i++) {
+			doConnections(true);
+		}
+	}
+
+	/**
+	 * Opens <code>NUM_CONNECTIONS</code> connections, exchanges packets of
+	 * different sizes over each connection, and logs out each connection.
+	 *
+	 * @param aSSL
+	 *            Use SSL?
+	 */
+	private void doConnections(boolean aSSL) {
+		EPPNioServer theServer = null;
+		Thread theServerThread = null;
+		Socket[] theSockets = new Socket[NUM_CONNECTIONS];
+
+		try {
+			if (aSSL) {
+				EPPSSLImpl.initialize();
+				theServer = new EPPNioSSLServer();
+			}
+			else {
+				theServer = new EPPNioPlainServer();
+			}
+			theServerThread = startServer(theServer);
+
+			int theThreadsBefore = Thread.activeCount();
+
+			EPPXMLStream theStream = new EPPXMLStream();
+
+			// Open the connections and read the greetings
+			for (int i = 0; i < NUM_CONNECTIONS; i++) {
+				theSockets[i] = connect(aSSL);
+				Assert.assertTrue("Greeting mismatch", Arrays.equals(GREETING,
+						theStream.readPacket(theSockets[i].getInputStream())));
+			}
+
+			Assert.assertEquals(NUM_CONNECTIONS, theServer
+					.getConnectionCount());
+			Assert.assertTrue("Thread per connection", Thread.activeCount()
+					- theThreadsBefore <= EPPEnv.getServerWorkerThreads());
+
+			// Exchange packets over the idle connections
+			byte[] theLargePacket = new byte[40000];
+			Arrays.fill(theLargePacket, (byte) 'x');
+			for (int i = 0; i < NUM_CONNECTIONS; i++) {
+				byte[] thePacket = (i % 10 == 0) ? theLargePacket
+						: ("<hello id=\"" + i + "\"/>").getBytes();
+				theStream.writePacket(thePacket, theSockets[i]
+						.getOutputStream());
+			}
+			for (int i = 0; i < NUM_CONNECTIONS; i++) {
+				byte[] thePacket = (i % 10 == 0) ? theLargePacket
+						: ("<hello id=\"" + i + "\"/>").getBytes();
+				Assert.assertTrue("Echo mismatch", Arrays.equals(thePacket,
+						theStream.readPacket(theSockets[i].getInputStream())));
+			}
+
+			// Logout closes the connections
+			for (int i = 0; i < NUM_CONNECTIONS; i++) {
+				theStream.writePacket(LOGOUT, theSockets[i].getOutputStream());
+				Assert.assertTrue("Logout mismatch", Arrays.equals(LOGOUT,
+						theStream.readPacket(theSockets[i].getInputStream())));
+				try {
+					theStream.readPacket(theSockets[i].getInputStream());
+					Assert.fail("Expected connection close after logout");
+				}
+				catch (EOFException ex) {
+					// Expected
+				}
+				catch (java.net.SocketException ex) {
+					// Expected
+				}
+			}
+		}
+		catch (Exception ex) {
+			Assert.fail("doConnections(" + aSSL + "): Exception: " + ex);
+		}
+		finally {
+			for (int i = 0; i < theSockets.length; i++) {
+				try {
+					if (theSockets[i] != null) {
+						theSockets[i].close();
+					}
+				}
+				catch (Exception ex) {
+					// ignore
+				}
+			}
+			stopServer(theServer, theServerThread);
+		}
+	}
+
+	/**
+	 * Starts the server in a new thread and waits for it to accept
+	 * connections.
+	 *
+	 * @param aServer
+	 *            Server to start
+	 *
+	 * @return Thread running the server
+	 *
+	 * @throws Exception
+	 *             Error starting the server
+	 */
+	private Thread startServer(final EPPNioServer aServer) throws Exception {
+		Thread theThread = new Thread("EPPNioServerTst-Server") {
+
+			public void run() {
+				try {
+					aServer.RunServer(new EchoHandler());
+				}
+				catch (Exception ex) {
+					System.out.println("EPPNioServerTst: Server exception: "
+							+ ex);
+				}
+			}
+		};
+		theThread.setDaemon(true);
+		theThread.start();
+
+		// Wait for the server to listen
+		for (int i = 0; i < 50; i++) {
+			try {
+				new Socket(InetAddress.getLoopbackAddress(), EPPEnv
+						.getServerPort()).close();
+				break;
+			}
+			catch (java.net.ConnectException ex) {
+				Thread.sleep(100);
+			}
+		}
+
+		return theThread;
+	}
+
+	/**
+	 * Stops the server and waits for the server thread to exit.
+	 *
+	 * @param aServer
+	 *            Server to stop
+	 * @param aThread
+	 *            Thread running the server
+	 */
+	private void stopServer(EPPNioServer aServer, Thread aThread) {
+		if (aServer != null) {
+			aServer.setListening(false);
+		}
+		if (aThread != null) {
+			try {
+				aThread.join(10000);
+			}
+			catch (InterruptedException ex) {
+				// ignore
+			}
+		}
+	}
+
+	/**
+	 * Connects to the server.
+	 *
+	 * @param aSSL
+	 *            Use SSL?
+	 *
+	 * @return Connected socket
+	 *
+	 * @throws Exception
+	 *             Error connecting to the server
+	 */
+	private Socket connect(boolean aSSL) throws Exception {
+		Socket theSocket;
+		if (aSSL) {
+			theSocket = EPPSSLImpl.getSSLSocketFactory().createSocket(
+					InetAddress.getLoopbackAddress(), EPPEnv.getServerPort());
+			((SSLSocket) theSocket).startHandshake();
+		}
+		else {
+			theSocket = new Socket(InetAddress.getLoopbackAddress(), EPPEnv
+					.getServerPort());
+		}
+		theSocket.setTcpNoDelay(true);
+		theSocket.setSoTimeout(30000);
+		return theSocket;
+	}
+
+	/**
+	 * JUNIT <code>suite</code> static method, which returns the tests
+	 * associated with <code>EPPNioServerTst</code>.
+	 *
+	 * @return Test suite
+	 */
+	public static Test suite() {
+		TestSuite suite = new TestSuite(EPPNioServerTst.class);
+
+		String theConfigFileName = System.getProperty("EPP.ConfigFile");
+		if (theConfigFileName != null) {
+			configFileName = theConfigFileName;
+		}
+
+		try {
+			EPPEnvSingle.getInstance().initialize(configFileName);
+		}
+		catch (Exception ex) {
+			Assert.fail("Error initializing the environment with "
+					+ configFileName + ": " + ex);
+		}
+
+		// iterations Property
+		String numIterProp = System.getProperty("iterations");
+
+		if (numIterProp != null) {
+			numIterations = Integer.parseInt(numIterProp);
+		}
+
+		return suite;
+	}
+
+	/**
+	 * Unit test main, which accepts the following system property options:<br>
+	 *
+	 * <ul>
+	 * <li>iterations Number of unit test iterations to run</li>
+	 * <li>EPP.ConfigFile EPP configuration file to use</li>
+	 * </ul>
+	 *
+	 * @param args
+	 *            Not used
+	 */
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(EPPNioServerTst.suite());
+	}
+
+	/**
+	 * Sets the number of iterations to run per test.
+	 *
+	 * @param aNumIterations
+	 *            number of iterations to run per test
+	 */
+	public static void setNumIterations(long aNumIterations) {
+		numIterations = aNumIterations;
+	}
+
+} // End class EPPNioServerTst
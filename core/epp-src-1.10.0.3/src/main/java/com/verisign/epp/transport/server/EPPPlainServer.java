@@ -26,6 +26,9 @@ import org.apache.log4j.Priority;
 
 import java.io.IOException;
 import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 import com.verisign.epp.transport.EPPConException;
 import com.verisign.epp.transport.EPPServerCon;
@@ -34,6 +37,7 @@ import com.verisign.epp.transport.ServerEventHandler;
 import com.verisign.epp.util.EPPCatFactory;
 import com.verisign.epp.util.EPPEnv;
 import com.verisign.epp.util.EPPEnvException;
+import com.verisign.epp.util.EPPExecutors;
 
 
 /**
@@ -66,6 +70,9 @@ public class EPPPlainServer implements EPPServerCon {
 	/** DOCUMENT ME! */
 	private int myConTimeout = 0;
 
+	/** Executor that runs the connection handlers */
+	private ExecutorService myExecutor = null;
+
 	/**
 	 * Pre-condition the util.Env provide the properties
 	 *
@@ -134,6 +141,11 @@ public class EPPPlainServer implements EPPServerCon {
 									  + myException.getMessage());
 		}
 
+		myExecutor =
+			EPPExecutors.newExecutor(
+									 "EPPServerThread",
+									 EPPEnv.getServerMaxThreads(), 0);
+
 		loop();
 		close();
 
@@ -158,9 +170,15 @@ public class EPPPlainServer implements EPPServerCon {
 
 		try {
 			while (listening) {
-				EPPServerThread p =
-					new EPPServerThread(myServerSocket.accept(), myHandler);
-				p.start();
+				Socket theSocket = myServerSocket.accept();
+
+				try {
+					myExecutor.execute(new EPPServerThread(theSocket, myHandler));
+				}
+				 catch (RejectedExecutionException myException) {
+					cat.warn("No thread available, closing connection");
+					theSocket.close();
+				}
 			}
 		}
 		 catch (IOException myException) {
@@ -197,6 +215,10 @@ public class EPPPlainServer implements EPPServerCon {
 		 */
 		cat.debug("EPPPlainServer.close(): Entering Method");
 
+		if (myExecutor != null) {
+			myExecutor.shutdown();
+		}
+
 		try {
 			myServerSocket.close();
 		}
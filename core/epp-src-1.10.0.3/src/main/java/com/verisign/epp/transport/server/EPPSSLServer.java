@@ -23,6 +23,8 @@ package com.verisign.epp.transport.server;
 // Log4j Imports
 import java.io.IOException;
 import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.net.ssl.SSLServerSocket;
 import javax.net.ssl.SSLServerSocketFactory;
@@ -38,6 +40,7 @@ import com.verisign.epp.transport.client.EPPSSLImpl;
 import com.verisign.epp.util.EPPCatFactory;
 import com.verisign.epp.util.EPPEnv;
 import com.verisign.epp.util.EPPEnvException;
+import com.verisign.epp.util.EPPExecutors;
 
 
 /**
@@ -63,6 +66,9 @@ public class EPPSSLServer implements EPPServerCon {
 	/** Server port number to listen on */
 	private int portNumber = 0;
 
+	/** Executor that runs the connection handlers */
+	private ExecutorService executor = null;
+
 	/**
 	 * Server SSL socket factory
 	 */
@@ -189,6 +195,8 @@ public class EPPSSLServer implements EPPServerCon {
 		((SSLServerSocket) serverSocket).setNeedClientAuth(true);
 
 		this.handler = aHandler;
+		this.executor = EPPExecutors.newExecutor("EPPServerThread", EPPEnv
+				.getServerMaxThreads(), 0);
 		loop();
 		close();
 
@@ -201,7 +209,9 @@ public class EPPSSLServer implements EPPServerCon {
 	 * defined by the <code>getListening</code> and the 
 	 * <code>setListening(boolean)</code> methods.  Inside the 
 	 * loop, the server will accept a client connection and 
-	 * spawn a new thread to handle the connection.
+	 * handle the connection with a thread of the connection 
+	 * executor.  The connection is closed if there is no 
+	 * thread available.
 	 *
 	 * @throws EPPConException Any error with accepting 
 	 * or handling a client connection
@@ -213,11 +223,15 @@ public class EPPSSLServer implements EPPServerCon {
 
 		try {
 			while (this.listening) {
-				EPPServerThread p =
-					new EPPServerThread(
-										(Socket) serverSocket.accept(),
-										this.handler);
-				p.start();
+				Socket theSocket = (Socket) serverSocket.accept();
+				try {
+					this.executor.execute(new EPPServerThread(theSocket,
+							this.handler));
+				}
+				catch (RejectedExecutionException ex) {
+					cat.warn("EPPSSLServer.loop(): No thread available, closing connection");
+					theSocket.close();
+				}
 			}
 		}
 		 catch (IOException myException) {
@@ -244,6 +258,10 @@ public class EPPSSLServer implements EPPServerCon {
 	public void close() throws EPPConException {
 		cat.debug("EPPSSLServer.close(): Entering Method");
 
+		if (this.executor != null) {
+			this.executor.shutdown();
+		}
+
 		try {
 			serverSocket.close();
 		}
@@ -0,0 +1,172 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Base class of the <code>EPPParserPool</code> implementations, which
+ * creates the pooled objects with the default constructor of the object
+ * type and keeps track of the borrow statistics.
+ */
+public abstract class EPPAbstractParserPool implements EPPParserPool {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPAbstractParserPool.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/** Pool name */
+	private final String name;
+
+	/** Fully qualified class name of the pooled objects */
+	private final String objectType;
+
+	/**
+	 * Class of the pooled objects or <code>null</code> if it could not be
+	 * loaded.
+	 */
+	private final Class objectClass;
+
+	/** Number of borrows */
+	private final AtomicLong numBorrows = new AtomicLong();
+
+	/** Total borrow wait time in nanoseconds */
+	private final AtomicLong borrowWaitTime = new AtomicLong();
+
+	/** Maximum borrow wait time in nanoseconds */
+	private final AtomicLong maxBorrowWaitTime = new AtomicLong();
+
+	/**
+	 * Creates a pool of objects of class <code>aObjectType</code>.
+	 *
+	 * @param aName
+	 *            Pool name
+	 * @param aObjectType
+	 *            Fully qualified class name of the pooled objects, which must
+	 *            have a public default constructor
+	 */
+	protected EPPAbstractParserPool(String aName, String aObjectType) {
+		this.name = aName;
+		this.objectType = aObjectType;
+
+		Class theClass = null;
+		try {
+			theClass = Class.forName(aObjectType);
+		}
+		catch (ClassNotFoundException ex) {
+			cat.error("EPPAbstractParserPool(" + aName
+					+ "): Object type not found: " + aObjectType);
+		}
+		this.objectClass = theClass;
+	}
+
+	/**
+	 * Gets the name of the pool.
+	 *
+	 * @return Pool name
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Gets the number of objects borrowed from the pool.
+	 *
+	 * @return Number of borrows
+	 */
+	public long getNumBorrows() {
+		return this.numBorrows.get();
+	}
+
+	/**
+	 * Gets the total time in nanoseconds spent waiting to borrow objects.
+	 *
+	 * @return Total borrow wait time in nanoseconds
+	 */
+	public long getBorrowWaitTime() {
+		return this.borrowWaitTime.get();
+	}
+
+	/**
+	 * Gets the longest time in nanoseconds spent waiting to borrow an object.
+	 *
+	 * @return Maximum borrow wait time in nanoseconds
+	 */
+	public long getMaxBorrowWaitTime() {
+		return this.maxBorrowWaitTime.get();
+	}
+
+	/**
+	 * Creates a new object of the object type of the pool.
+	 *
+	 * @return New object
+	 *
+	 * @throws EPPParserException
+	 *             Error creating the object
+	 */
+	protected Object createObject() throws EPPParserException {
+		if (this.objectClass == null) {
+			throw new EPPParserException("EPPParserPool " + this.name
+					+ ": Object type not found: " + this.objectType);
+		}
+
+		try {
+			return this.objectClass.newInstance();
+		}
+		catch (Exception ex) {
+			cat.error("createObject(): Error creating " + this.objectType
+					+ " for pool " + this.name, ex);
+			throw new EPPParserException(ex);
+		}
+	}
+
+	/**
+	 * Records a borrow in the pool statistics.
+	 *
+	 * @param aWaitTime
+	 *            Time in nanoseconds spent waiting for the object
+	 */
+	protected void borrowed(long aWaitTime) {
+		this.numBorrows.incrementAndGet();
+		this.borrowWaitTime.addAndGet(aWaitTime);
+
+		long theMax = this.maxBorrowWaitTime.get();
+		while (aWaitTime > theMax
+				&& !this.maxBorrowWaitTime.compareAndSet(theMax, aWaitTime)) {
+			theMax = this.maxBorrowWaitTime.get();
+		}
+	}
+
+	/**
+	 * Gets the pool name and borrow statistics.
+	 *
+	 * @return Pool description
+	 */
+	public String toString() {
+		long theNumBorrows = getNumBorrows();
+		return getClass().getName() + " (name = " + this.name
+				+ ", borrows = " + theNumBorrows + ", avg wait = "
+				+ (theNumBorrows == 0 ? 0 : getBorrowWaitTime() / theNumBorrows)
+				+ " ns, max wait = " + getMaxBorrowWaitTime() + " ns)";
+	}
+
+} // End class EPPAbstractParserPool
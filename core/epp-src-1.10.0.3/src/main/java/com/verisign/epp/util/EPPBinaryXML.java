@@ -0,0 +1,846 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.log4j.Logger;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import com.verisign.epp.exception.EPPException;
+
+/**
+ * Encodes the DOM Documents produced by <code>EPPCodec</code> to a compact
+ * binary format and decodes them back, for internal hops that don't need
+ * XML on the wire.  The binary packets skip the XML serialization, parsing
+ * and schema validation, so they should only be accepted from trusted
+ * peers.<br>
+ * <br>
+ * A packet has the EPP 4 byte network header with the total length,
+ * followed by:<br>
+ * <br>
+ * <ul>
+ * <li>The magic bytes <code>'E' 'B'</code>, the format version and the
+ * table version.</li>
+ * <li>The root element, where an element is the element token, the
+ * namespace reference, the qualified name reference, the number of
+ * attributes, each attribute as a namespace reference, qualified name
+ * reference and value reference, then the child element and text tokens
+ * and the end token.</li>
+ * </ul>
+ * Numbers are unsigned variable length integers with 7 bits per byte and
+ * strings are the length in bytes followed by the UTF-8 bytes.  A reference
+ * is <code>0</code> for <code>null</code>, <code>1</code> followed by a
+ * string that is appended to the table of the packet, or the index in the
+ * table plus <code>2</code>.  The namespace, name and attribute value tables
+ * start with the common EPP entries of the table version, and are
+ * only appended to in later table versions so that older packets can still
+ * be decoded.<br>
+ * <br>
+ * An instance is not thread safe, since it reuses its buffers across
+ * messages.
+ */
+public class EPPBinaryXML {
+
+	/** Version of the packet format */
+	public static final int FORMAT_VERSION = 1;
+
+	/** Version of the static namespace and name tables */
+	public static final int TABLE_VERSION = 1;
+
+	/** Size of the network header */
+	private static final int HEADER_SIZE = 4;
+
+	/** First magic byte */
+	private static final int MAGIC_0 = 'E';
+
+	/** Second magic byte */
+	private static final int MAGIC_1 = 'B';
+
+	/** Token that ends an element */
+	private static final int TOKEN_END = 0;
+
+	/** Token that starts an element */
+	private static final int TOKEN_ELEMENT = 1;
+
+	/** Token of a text node */
+	private static final int TOKEN_TEXT = 2;
+
+	/** Reference to <code>null</code> */
+	private static final int REF_NULL = 0;
+
+	/** Reference followed by a new string that is added to the table */
+	private static final int REF_NEW = 1;
+
+	/** Reference value of the first table entry */
+	private static final int REF_BASE = 2;
+
+	/** Maximum element depth accepted when decoding */
+	private static final int MAX_DEPTH = 64;
+
+	/** Initial size of the encode buffer */
+	private static final int INITIAL_BUFFER_SIZE = 1024;
+
+	/** UTF-8 character set of the strings */
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/** Static namespace table of {@link #TABLE_VERSION} */
+	private static final String[] NAMESPACES = {
+			"urn:ietf:params:xml:ns:epp-1.0",
+			"urn:ietf:params:xml:ns:eppcom-1.0",
+			"urn:ietf:params:xml:ns:domain-1.0",
+			"urn:ietf:params:xml:ns:contact-1.0",
+			"urn:ietf:params:xml:ns:host-1.0",
+			"urn:ietf:params:xml:ns:secDNS-1.1",
+			"urn:ietf:params:xml:ns:rgp-1.0",
+			"urn:ietf:params:xml:ns:launch-1.0",
+			"urn:ietf:params:xml:ns:fee-0.11",
+			"http://www.w3.org/2000/xmlns/",
+			"http://www.w3.org/2001/XMLSchema-instance" };
+
+	/** Static qualified name table of {@link #TABLE_VERSION} */
+	private static final String[] NAMES = {
+			// Namespace declarations
+			"xmlns", "xmlns:epp", "xmlns:domain", "xmlns:contact",
+			"xmlns:host", "xmlns:secDNS", "xmlns:rgp", "xmlns:launch",
+			"xmlns:fee", "xmlns:xsi", "xsi:schemaLocation",
+
+			// Common attributes
+			"avail", "code", "count", "hosts", "id", "ip", "lang", "op",
+			"s", "type", "unit",
+
+			// EPP
+			"epp", "command", "response", "result", "msg", "value",
+			"extValue", "reason", "msgQ", "qDate", "resData", "extension",
+			"trID", "clTRID", "svTRID", "check", "info", "create", "update",
+			"delete", "renew", "transfer", "poll", "login", "logout",
+			"hello", "greeting", "svID", "svDate", "svcMenu", "version",
+			"objURI", "svcExtension", "extURI", "clID", "pw", "newPW",
+			"options", "svcs",
+
+			// Domain
+			"domain:check", "domain:info", "domain:create", "domain:update",
+			"domain:delete", "domain:renew", "domain:transfer",
+			"domain:chkData", "domain:cd", "domain:name", "domain:reason",
+			"domain:infData", "domain:creData", "domain:renData",
+			"domain:trnData", "domain:panData", "domain:roid",
+			"domain:status", "domain:registrant", "domain:contact",
+			"domain:ns", "domain:hostObj", "domain:hostAttr",
+			"domain:hostName", "domain:hostAddr", "domain:host",
+			"domain:clID", "domain:crID", "domain:crDate", "domain:upID",
+			"domain:upDate", "domain:exDate", "domain:trDate",
+			"domain:authInfo", "domain:pw", "domain:period",
+			"domain:curExpDate", "domain:add", "domain:rem", "domain:chg",
+			"domain:trStatus", "domain:reID", "domain:reDate",
+			"domain:acID", "domain:acDate",
+
+			// Contact
+			"contact:check", "contact:info", "contact:create",
+			"contact:update", "contact:delete", "contact:transfer",
+			"contact:chkData", "contact:cd", "contact:id", "contact:reason",
+			"contact:infData", "contact:creData", "contact:trnData",
+			"contact:panData", "contact:roid", "contact:status",
+			"contact:postalInfo", "contact:name", "contact:org",
+			"contact:addr", "contact:street", "contact:city", "contact:sp",
+			"contact:pc", "contact:cc", "contact:voice", "contact:fax",
+			"contact:email", "contact:clID", "contact:crID",
+			"contact:crDate", "contact:upID", "contact:upDate",
+			"contact:trDate", "contact:authInfo", "contact:pw",
+			"contact:disclose", "contact:add", "contact:rem",
+			"contact:chg", "contact:trStatus", "contact:reID",
+			"contact:reDate", "contact:acID", "contact:acDate", "x", "flag",
+
+			// Host
+			"host:check", "host:info", "host:create", "host:update",
+			"host:delete", "host:chkData", "host:cd", "host:name",
+			"host:reason", "host:infData", "host:creData", "host:panData",
+			"host:roid", "host:status", "host:addr", "host:clID",
+			"host:crID", "host:crDate", "host:upID", "host:upDate",
+			"host:trDate", "host:add", "host:rem", "host:chg" };
+
+	/**
+	 * Static attribute value table of {@link #TABLE_VERSION}, with the values
+	 * of the namespace declarations and schema locations and common
+	 * attribute values.
+	 */
+	private static final String[] VALUES = {
+			// Namespace declarations
+			"urn:ietf:params:xml:ns:epp-1.0",
+			"urn:ietf:params:xml:ns:eppcom-1.0",
+			"urn:ietf:params:xml:ns:domain-1.0",
+			"urn:ietf:params:xml:ns:contact-1.0",
+			"urn:ietf:params:xml:ns:host-1.0",
+			"urn:ietf:params:xml:ns:secDNS-1.1",
+			"urn:ietf:params:xml:ns:rgp-1.0",
+			"urn:ietf:params:xml:ns:launch-1.0",
+			"urn:ietf:params:xml:ns:fee-0.11",
+			"http://www.w3.org/2001/XMLSchema-instance",
+
+			// Schema locations
+			"urn:ietf:params:xml:ns:epp-1.0 epp-1.0.xsd",
+			"urn:ietf:params:xml:ns:domain-1.0 domain-1.0.xsd",
+			"urn:ietf:params:xml:ns:contact-1.0 contact-1.0.xsd",
+			"urn:ietf:params:xml:ns:host-1.0 host-1.0.xsd",
+			"urn:ietf:params:xml:ns:secDNS-1.1 secDNS-1.1.xsd",
+			"urn:ietf:params:xml:ns:rgp-1.0 rgp-1.0.xsd",
+			"urn:ietf:params:xml:ns:launch-1.0 launch-1.0.xsd",
+			"urn:ietf:params:xml:ns:fee-0.11 fee-0.11.xsd",
+
+			// Common values
+			"0", "1", "true", "false", "en", "all", "del", "none", "sub",
+			"ok", "linked", "loc", "int", "v4", "v6", "y", "m", "request",
+			"query", "approve", "reject", "cancel", "admin", "billing",
+			"tech" };
+
+	/** Index of the static namespace table entries */
+	private static final HashMap NAMESPACE_INDEX = index(NAMESPACES);
+
+	/** Index of the static name table entries */
+	private static final HashMap NAME_INDEX = index(NAMES);
+
+	/** Index of the static attribute value table entries */
+	private static final HashMap VALUE_INDEX = index(VALUES);
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPBinaryXML.class.getName(),
+			EPPCatFactory.getInstance().getFactory());
+
+	/** Namespace aware document builder per thread used to decode */
+	private static final ThreadLocal<DocumentBuilder> builders = new ThreadLocal<DocumentBuilder>() {
+
+		protected DocumentBuilder initialValue() {
+			DocumentBuilderFactory theFactory = DocumentBuilderFactory
+					.newInstance();
+			theFactory.setNamespaceAware(true);
+
+			try {
+				return theFactory.newDocumentBuilder();
+			}
+			catch (ParserConfigurationException ex) {
+				cat.error("Error creating the document builder: " + ex);
+				throw new IllegalStateException(
+						"EPPBinaryXML: Error creating the document builder: "
+								+ ex);
+			}
+		}
+	};
+
+	/** Buffer that packets are encoded into */
+	private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+
+	/** Number of bytes encoded into {@link #buffer} */
+	private int count;
+
+	/** Namespaces added to the table of the packet being encoded */
+	private HashMap encodeNamespaces = new HashMap();
+
+	/** Names added to the table of the packet being encoded */
+	private HashMap encodeNames = new HashMap();
+
+	/** Attribute values added to the table of the packet being encoded */
+	private HashMap encodeValues = new HashMap();
+
+	/** Packet being decoded */
+	private byte[] input;
+
+	/** Decode position in {@link #input} */
+	private int position;
+
+	/** End of the packet in {@link #input} */
+	private int limit;
+
+	/** Namespaces added to the table of the packet being decoded */
+	private ArrayList decodeNamespaces = new ArrayList();
+
+	/** Names added to the table of the packet being decoded */
+	private ArrayList decodeNames = new ArrayList();
+
+	/** Attribute values added to the table of the packet being decoded */
+	private ArrayList decodeValues = new ArrayList();
+
+	/**
+	 * Creates an index of a static table.
+	 *
+	 * @param aTable
+	 *            Static table
+	 *
+	 * @return <code>HashMap</code> of table entry to <code>Integer</code>
+	 *         index
+	 */
+	private static HashMap index(String[] aTable) {
+		HashMap theIndex = new HashMap();
+
+		for (int i = 0; i < aTable.length; i++) {
+			theIndex.put(aTable[i], new Integer(i));
+		}
+
+		return theIndex;
+	}
+
+	/**
+	 * Encodes a DOM Document to a binary packet that includes the 4 byte
+	 * network header.
+	 *
+	 * @param aDocument
+	 *            Document to encode
+	 *
+	 * @return Binary packet
+	 *
+	 * @exception EPPException
+	 *                Document without a root element
+	 */
+	public byte[] encode(Document aDocument) throws EPPException {
+		cat.debug("encode(): enter");
+
+		if ((aDocument == null) || (aDocument.getDocumentElement() == null)) {
+			throw new EPPException(
+					"EPPBinaryXML.encode(): Document has no root element");
+		}
+
+		this.count = HEADER_SIZE;
+		this.encodeNamespaces.clear();
+		this.encodeNames.clear();
+		this.encodeValues.clear();
+
+		this.writeByte(MAGIC_0);
+		this.writeByte(MAGIC_1);
+		this.writeByte(FORMAT_VERSION);
+		this.writeByte(TABLE_VERSION);
+
+		this.encodeElement(aDocument.getDocumentElement());
+
+		// Set the network header
+		this.buffer[0] = (byte) (this.count >>> 24);
+		this.buffer[1] = (byte) (this.count >>> 16);
+		this.buffer[2] = (byte) (this.count >>> 8);
+		this.buffer[3] = (byte) this.count;
+
+		byte[] thePacket = new byte[this.count];
+		System.arraycopy(this.buffer, 0, thePacket, 0, this.count);
+
+		// Don't retain the buffer of an unusually large packet
+		if (this.buffer.length > EPPXMLStream.MAX_RETAINED_BUFFER_SIZE) {
+			this.buffer = new byte[INITIAL_BUFFER_SIZE];
+		}
+
+		cat.debug("encode(): exit, packet size = " + thePacket.length);
+
+		return thePacket;
+	}
+
+	/**
+	 * Reads a binary packet from a stream, returning the packet without the
+	 * 4 byte network header.
+	 *
+	 * @param aStream
+	 *            Stream to read the packet from
+	 *
+	 * @return Packet without the network header
+	 *
+	 * @exception EPPException
+	 *                Invalid packet header
+	 * @exception IOException
+	 *                Error reading from the stream, including
+	 *                <code>InterruptedIOException</code> for a time out
+	 */
+	public byte[] readPacket(InputStream aStream) throws EPPException,
+			IOException {
+		byte[] theHeader = new byte[HEADER_SIZE];
+		this.readFully(aStream, theHeader);
+
+		int thePacketSize = ((theHeader[0] & 0xFF) << 24)
+				| ((theHeader[1] & 0xFF) << 16) | ((theHeader[2] & 0xFF) << 8)
+				| (theHeader[3] & 0xFF);
+
+		if ((thePacketSize < HEADER_SIZE)
+				|| (thePacketSize > EPPXMLStream.getMaxPacketSize())) {
+			cat.error("readPacket(): Invalid packet size of " + thePacketSize
+					+ " bytes");
+			throw new EPPException(
+					"EPPBinaryXML.readPacket(): Invalid packet size of "
+							+ thePacketSize + " bytes");
+		}
+
+		byte[] thePacket = new byte[thePacketSize - HEADER_SIZE];
+		this.readFully(aStream, thePacket);
+
+		return thePacket;
+	}
+
+	/**
+	 * Decodes a binary packet without the 4 byte network header to a DOM
+	 * Document.
+	 *
+	 * @param aPacket
+	 *            Packet without the network header
+	 *
+	 * @return Decoded DOM Document
+	 *
+	 * @exception EPPException
+	 *                Invalid packet
+	 */
+	public Document decode(byte[] aPacket) throws EPPException {
+		return this.decode(aPacket, 0, aPacket.length);
+	}
+
+	/**
+	 * Decodes <code>aLength</code> bytes of a binary packet without the 4
+	 * byte network header, starting at <code>aOffset</code>, to a DOM
+	 * Document.
+	 *
+	 * @param aPacket
+	 *            Buffer containing the packet
+	 * @param aOffset
+	 *            Offset of the packet in <code>aPacket</code>
+	 * @param aLength
+	 *            Length of the packet in bytes
+	 *
+	 * @return Decoded DOM Document
+	 *
+	 * @exception EPPException
+	 *                Invalid packet
+	 */
+	public Document decode(byte[] aPacket, int aOffset, int aLength)
+			throws EPPException {
+		cat.debug("decode(): enter");
+
+		this.input = aPacket;
+		this.position = aOffset;
+		this.limit = aOffset + aLength;
+		this.decodeNamespaces.clear();
+		this.decodeNames.clear();
+		this.decodeValues.clear();
+
+		try {
+			if ((this.readByte() != MAGIC_0) || (this.readByte() != MAGIC_1)) {
+				throw new EPPException(
+						"EPPBinaryXML.decode(): Packet is not a binary EPP packet");
+			}
+
+			int theFormatVersion = this.readByte();
+			int theTableVersion = this.readByte();
+
+			if ((theFormatVersion != FORMAT_VERSION)
+					|| (theTableVersion > TABLE_VERSION)) {
+				throw new EPPException(
+						"EPPBinaryXML.decode(): Unsupported format version "
+								+ theFormatVersion + " or table version "
+								+ theTableVersion);
+			}
+
+			if (this.readByte() != TOKEN_ELEMENT) {
+				throw new EPPException(
+						"EPPBinaryXML.decode(): Packet does not start with an element");
+			}
+
+			Document theDocument = builders.get().newDocument();
+			theDocument.appendChild(this.decodeElement(theDocument, 1));
+
+			if (this.position != this.limit) {
+				throw new EPPException("EPPBinaryXML.decode(): "
+						+ (this.limit - this.position)
+						+ " bytes after the root element");
+			}
+
+			cat.debug("decode(): exit");
+
+			return theDocument;
+		}
+		finally {
+			this.input = null;
+		}
+	}
+
+	/**
+	 * Encodes an element, its attributes and its children.
+	 *
+	 * @param aElement
+	 *            Element to encode
+	 */
+	private void encodeElement(Element aElement) {
+		this.writeByte(TOKEN_ELEMENT);
+		this.writeRef(aElement.getNamespaceURI(), NAMESPACE_INDEX,
+				NAMESPACES.length, this.encodeNamespaces);
+		this.writeRef(aElement.getNodeName(), NAME_INDEX, NAMES.length,
+				this.encodeNames);
+
+		NamedNodeMap theAttrs = aElement.getAttributes();
+		this.writeVarint(theAttrs.getLength());
+
+		for (int i = 0; i < theAttrs.getLength(); i++) {
+			Attr theAttr = (Attr) theAttrs.item(i);
+
+			this.writeRef(theAttr.getNamespaceURI(), NAMESPACE_INDEX,
+					NAMESPACES.length, this.encodeNamespaces);
+			this.writeRef(theAttr.getName(), NAME_INDEX, NAMES.length,
+					this.encodeNames);
+			this.writeRef(theAttr.getValue(), VALUE_INDEX, VALUES.length,
+					this.encodeValues);
+		}
+
+		for (Node theChild = aElement.getFirstChild(); theChild != null; theChild = theChild
+				.getNextSibling()) {
+			switch (theChild.getNodeType()) {
+				case Node.ELEMENT_NODE:
+					this.encodeElement((Element) theChild);
+					break;
+				case Node.TEXT_NODE:
+				case Node.CDATA_SECTION_NODE:
+					this.writeByte(TOKEN_TEXT);
+					this.writeString(theChild.getNodeValue());
+					break;
+				default:
+					// Comments and processing instructions are not encoded
+					break;
+			}
+		}
+
+		this.writeByte(TOKEN_END);
+	}
+
+	/**
+	 * Decodes an element after its element token.
+	 *
+	 * @param aDocument
+	 *            Document to create the element in
+	 * @param aDepth
+	 *            Depth of the element
+	 *
+	 * @return Decoded element
+	 *
+	 * @exception EPPException
+	 *                Invalid packet
+	 */
+	private Element decodeElement(Document aDocument, int aDepth)
+			throws EPPException {
+		if (aDepth > MAX_DEPTH) {
+			throw new EPPException(
+					"EPPBinaryXML.decode(): Elements nested deeper than "
+							+ MAX_DEPTH);
+		}
+
+		String theNamespace = this.readRef(NAMESPACES, this.decodeNamespaces);
+		String theName = this.readRef(NAMES, this.decodeNames);
+
+		if (theName == null) {
+			throw new EPPException("EPPBinaryXML.decode(): Element without a name");
+		}
+
+		// Nodes created without a namespace by the codecs are created the same
+		// way, since a prefixed name without a namespace is a namespace error
+		Element theElement;
+		if (theNamespace == null) {
+			theElement = aDocument.createElement(theName);
+		}
+		else {
+			theElement = aDocument.createElementNS(theNamespace, theName);
+		}
+
+		int theAttrCount = this.readVarint();
+		for (int i = 0; i < theAttrCount; i++) {
+			String theAttrNamespace = this.readRef(NAMESPACES,
+					this.decodeNamespaces);
+			String theAttrName = this.readRef(NAMES, this.decodeNames);
+
+			String theAttrValue = this.readRef(VALUES, this.decodeValues);
+
+			if ((theAttrName == null) || (theAttrValue == null)) {
+				throw new EPPException(
+						"EPPBinaryXML.decode(): Attribute without a name or value");
+			}
+
+			if (theAttrNamespace == null) {
+				theElement.setAttribute(theAttrName, theAttrValue);
+			}
+			else {
+				theElement.setAttributeNS(theAttrNamespace, theAttrName,
+						theAttrValue);
+			}
+		}
+
+		for (;;) {
+			int theToken = this.readByte();
+
+			switch (theToken) {
+				case TOKEN_END:
+					return theElement;
+				case TOKEN_ELEMENT:
+					theElement.appendChild(this.decodeElement(aDocument,
+							aDepth + 1));
+					break;
+				case TOKEN_TEXT:
+					theElement.appendChild(aDocument.createTextNode(this
+							.readString()));
+					break;
+				default:
+					throw new EPPException("EPPBinaryXML.decode(): Invalid token "
+							+ theToken);
+			}
+		}
+	}
+
+	/**
+	 * Writes a reference to a string in the static table or the table of
+	 * the packet, adding it to the table of the packet if needed.
+	 *
+	 * @param aValue
+	 *            String to reference, which may be <code>null</code>
+	 * @param aStaticIndex
+	 *            Index of the static table
+	 * @param aStaticSize
+	 *            Size of the static table
+	 * @param aPacketIndex
+	 *            Index of the table of the packet
+	 */
+	private void writeRef(String aValue, HashMap aStaticIndex, int aStaticSize,
+			HashMap aPacketIndex) {
+		if (aValue == null) {
+			this.writeVarint(REF_NULL);
+			return;
+		}
+
+		Integer theIndex = (Integer) aStaticIndex.get(aValue);
+		if (theIndex != null) {
+			this.writeVarint(REF_BASE + theIndex.intValue());
+			return;
+		}
+
+		theIndex = (Integer) aPacketIndex.get(aValue);
+		if (theIndex != null) {
+			this.writeVarint(REF_BASE + aStaticSize + theIndex.intValue());
+			return;
+		}
+
+		aPacketIndex.put(aValue, new Integer(aPacketIndex.size()));
+		this.writeVarint(REF_NEW);
+		this.writeString(aValue);
+	}
+
+	/**
+	 * Reads a reference to a string in the static table or the table of the
+	 * packet.
+	 *
+	 * @param aStaticTable
+	 *            Static table
+	 * @param aPacketTable
+	 *            Table of the packet
+	 *
+	 * @return Referenced string, which may be <code>null</code>
+	 *
+	 * @exception EPPException
+	 *                Invalid reference
+	 */
+	private String readRef(String[] aStaticTable, ArrayList aPacketTable)
+			throws EPPException {
+		int theRef = this.readVarint();
+
+		if (theRef == REF_NULL) {
+			return null;
+		}
+
+		if (theRef == REF_NEW) {
+			String theValue = this.readString();
+			aPacketTable.add(theValue);
+			return theValue;
+		}
+
+		int theIndex = theRef - REF_BASE;
+
+		if (theIndex < aStaticTable.length) {
+			return aStaticTable[theIndex];
+		}
+
+		theIndex -= aStaticTable.length;
+
+		if (theIndex >= aPacketTable.size()) {
+			throw new EPPException("EPPBinaryXML.decode(): Invalid reference "
+					+ theRef);
+		}
+
+		return (String) aPacketTable.get(theIndex);
+	}
+
+	/**
+	 * Writes a string as its length in bytes followed by the UTF-8 bytes.
+	 *
+	 * @param aValue
+	 *            String to write
+	 */
+	private void writeString(String aValue) {
+		byte[] theBytes = aValue.getBytes(UTF8);
+
+		this.writeVarint(theBytes.length);
+		this.ensureCapacity(theBytes.length);
+		System.arraycopy(theBytes, 0, this.buffer, this.count, theBytes.length);
+		this.count += theBytes.length;
+	}
+
+	/**
+	 * Reads a string written with {@link #writeString(String)}.
+	 *
+	 * @return Decoded string
+	 *
+	 * @exception EPPException
+	 *                String past the end of the packet
+	 */
+	private String readString() throws EPPException {
+		int theLength = this.readVarint();
+
+		if (theLength > this.limit - this.position) {
+			throw new EPPException(
+					"EPPBinaryXML.decode(): String past the end of the packet");
+		}
+
+		String theValue = new String(this.input, this.position, theLength,
+				UTF8);
+		this.position += theLength;
+
+		return theValue;
+	}
+
+	/**
+	 * Writes an unsigned variable length integer with 7 bits per byte.
+	 *
+	 * @param aValue
+	 *            Non-negative value to write
+	 */
+	private void writeVarint(int aValue) {
+		this.ensureCapacity(5);
+
+		while ((aValue & ~0x7F) != 0) {
+			this.buffer[this.count++] = (byte) ((aValue & 0x7F) | 0x80);
+			aValue >>>= 7;
+		}
+
+		this.buffer[this.count++] = (byte) aValue;
+	}
+
+	/**
+	 * Reads an unsigned variable length integer.
+	 *
+	 * @return Decoded value
+	 *
+	 * @exception EPPException
+	 *                Invalid integer
+	 */
+	private int readVarint() throws EPPException {
+		int theValue = 0;
+
+		for (int theShift = 0; theShift < 32; theShift += 7) {
+			int theByte = this.readByte();
+			theValue |= (theByte & 0x7F) << theShift;
+
+			if ((theByte & 0x80) == 0) {
+				if (theValue < 0) {
+					break;
+				}
+
+				return theValue;
+			}
+		}
+
+		throw new EPPException("EPPBinaryXML.decode(): Invalid integer");
+	}
+
+	/**
+	 * Writes a byte.
+	 *
+	 * @param aValue
+	 *            Byte to write
+	 */
+	private void writeByte(int aValue) {
+		this.ensureCapacity(1);
+		this.buffer[this.count++] = (byte) aValue;
+	}
+
+	/**
+	 * Reads an unsigned byte.
+	 *
+	 * @return Byte read
+	 *
+	 * @exception EPPException
+	 *                End of the packet
+	 */
+	private int readByte() throws EPPException {
+		if (this.position >= this.limit) {
+			throw new EPPException(
+					"EPPBinaryXML.decode(): Unexpected end of the packet");
+		}
+
+		return this.input[this.position++] & 0xFF;
+	}
+
+	/**
+	 * Grows the encode buffer to hold <code>aLength</code> more bytes.
+	 *
+	 * @param aLength
+	 *            Number of bytes to add
+	 */
+	private void ensureCapacity(int aLength) {
+		if (this.count + aLength > this.buffer.length) {
+			byte[] theBuffer = new byte[Math.max(this.buffer.length * 2,
+					this.count + aLength)];
+			System.arraycopy(this.buffer, 0, theBuffer, 0, this.count);
+			this.buffer = theBuffer;
+		}
+	}
+
+	/**
+	 * Reads <code>aBuffer.length</code> bytes from a stream.
+	 *
+	 * @param aStream
+	 *            Stream to read from
+	 * @param aBuffer
+	 *            Buffer to fill
+	 *
+	 * @exception IOException
+	 *                Error reading from the stream or end of the stream
+	 */
+	private void readFully(InputStream aStream, byte[] aBuffer)
+			throws IOException {
+		int theOffset = 0;
+
+		while (theOffset < aBuffer.length) {
+			int theCount = aStream.read(aBuffer, theOffset, aBuffer.length
+					- theOffset);
+
+			if (theCount < 0) {
+				throw new EOFException("EPPBinaryXML: end of stream after "
+						+ theOffset + " of " + aBuffer.length + " bytes");
+			}
+
+			theOffset += theCount;
+		}
+	}
+
+}
@@ -0,0 +1,323 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+//----------------------------------------------
+//
+// imports...
+//
+//----------------------------------------------
+
+// Java Core Imports
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Date;
+import java.util.Vector;
+
+// JUNIT Imports
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+// W3C Imports
+import org.w3c.dom.Document;
+
+// EPP Imports
+import com.verisign.epp.codec.contact.EPPContactAddress;
+import com.verisign.epp.codec.contact.EPPContactCreateCmd;
+import com.verisign.epp.codec.contact.EPPContactPostalDefinition;
+import com.verisign.epp.codec.domain.EPPDomainCheckCmd;
+import com.verisign.epp.codec.domain.EPPDomainInfoResp;
+import com.verisign.epp.codec.domain.EPPDomainStatus;
+import com.verisign.epp.codec.gen.EPPAuthInfo;
+import com.verisign.epp.codec.gen.EPPCodec;
+import com.verisign.epp.codec.gen.EPPFactory;
+import com.verisign.epp.codec.gen.EPPMessage;
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.codec.gen.EPPResult;
+import com.verisign.epp.codec.gen.EPPTransId;
+import com.verisign.epp.codec.host.EPPHostAddress;
+import com.verisign.epp.codec.host.EPPHostInfoResp;
+import com.verisign.epp.codec.host.EPPHostStatus;
+import com.verisign.epp.exception.EPPException;
+
+/**
+ * Is a unit test of <code>EPPBinaryXML</code>. The messages are encoded with
+ * <code>EPPCodec</code>, round tripped through the binary format, and
+ * decoded with <code>EPPCodec</code> again, and the size of the binary packet
+ * is compared with the size of the XML packet.
+ */
+public class EPPBinaryXMLTst extends TestCase {
+
+	/**
+	 * Number of unit test iterations to run. This is set with the
+	 * <code>iterations</code> system property.
+	 */
+	static private long numIterations = 1;
+
+	/**
+	 * Allocates a new instance of <code>EPPBinaryXMLTst</code>.
+	 *
+	 * @param name
+	 *            Name of test
+	 */
+	public EPPBinaryXMLTst(String name) {
+		super(name);
+	}
+
+	/**
+	 * Round trips commands and responses of the domain, contact and host
+	 * mappings and a response without response data, including non-ASCII
+	 * text.
+	 */
+	public void testRoundTrip() {
+		// Domain check command
+		Vector theNames = new Vector();
+		theNames.addElement("example1.com");
+		theNames.addElement("example2.com");
+		EPPDomainCheckCmd theCheckCmd = new EPPDomainCheckCmd("ABC-12345",
+				theNames);
+
+		// Domain info response
+		Vector theStatuses = new Vector();
+		theStatuses.addElement(new EPPDomainStatus(EPPDomainStatus.ELM_STATUS_OK));
+		EPPDomainInfoResp theInfoResp = new EPPDomainInfoResp(new EPPTransId(
+				"ABC-12345", "54321-XYZ"), "EXAMPLE1-VRSN", "example.com",
+				"ClientX", theStatuses, "ClientY", new Date(), new EPPAuthInfo(
+						"2fooBAR"));
+		Vector theNses = new Vector();
+		theNses.addElement("ns1.example.com");
+		theNses.addElement("ns2.example.com");
+		theInfoResp.setNses(theNses);
+		theInfoResp.setExpirationDate(new Date());
+		theInfoResp.setResult(EPPResult.SUCCESS);
+
+		// Contact create command with non-ASCII postal information
+		EPPContactCreateCmd theContactCmd = new EPPContactCreateCmd("ABC-12346");
+		theContactCmd.setId("sh8013");
+		Vector theStreets = new Vector();
+		theStreets.addElement("Hauptstraße 1");
+		theContactCmd.addPostalInfo(new EPPContactPostalDefinition(
+				"Jürgen Müller",
+				EPPContactPostalDefinition.ATTR_TYPE_LOC,
+				new EPPContactAddress(theStreets, "Köln", null, "50667",
+						"DE")));
+		theContactCmd.setVoice("+49.2211234567");
+		theContactCmd.setEmail("jm@example.de");
+		theContactCmd.setAuthInfo(new EPPAuthInfo("2fooBAR"));
+
+		// Host info response
+		EPPHostInfoResp theHostResp = new EPPHostInfoResp(new EPPTransId(
+				"ABC-12347", "54322-XYZ"), "ns1.example.com", "NS1_EXAMPLE1-VRSN",
+				new EPPHostStatus(EPPHostStatus.ELM_STATUS_OK), "ClientX",
+				"ClientY", new Date());
+		Vector theAddresses = new Vector();
+		theAddresses.addElement(new EPPHostAddress("192.0.2.2"));
+		theAddresses.addElement(new EPPHostAddress("1080:0:0:0:8:800:200C:417A",
+				EPPHostAddress.IPV6));
+		theHostResp.setAddresses(theAddresses);
+
+		// Response without response data
+		EPPResponse theResponse = new EPPResponse(new EPPTransId("ABC-12348",
+				"54323-XYZ"));
+
+		EPPMessage[] theMessages = { theCheckCmd, theInfoResp, theContactCmd,
+				theHostResp, theResponse };
+
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			EPPBinaryXML theBinaryXML = new EPPBinaryXML();
+
+			for (int i = 0; i < theMessages.length; i++) {
+				this.roundTrip(theBinaryXML, theMessages[i]);
+			}
+		}
+	}
+
+	/**
+	 * Verifies that a packet is read from a stream and that invalid packets
+	 * are rejected.
+	 */
+	public void testInvalidPacket() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			EPPBinaryXML theBinaryXML = new EPPBinaryXML();
+			byte[] thePacket = null;
+
+			try {
+				thePacket = theBinaryXML.encode(EPPCodec.getInstance().encode(
+						new EPPDomainCheckCmd("ABC-12345", "example.com")));
+
+				// Read the packet from a stream
+				byte[] theBody = theBinaryXML.readPacket(new ByteArrayInputStream(
+						thePacket));
+				Assert.assertEquals(thePacket.length - 4, theBody.length);
+				theBinaryXML.decode(theBody);
+			}
+			catch (Exception ex) {
+				ex.printStackTrace();
+				Assert.fail("Error reading the packet: " + ex);
+			}
+
+			// Bad magic
+			byte[] theBody = new byte[thePacket.length - 4];
+			System.arraycopy(thePacket, 4, theBody, 0, theBody.length);
+			theBody[0] = '<';
+			this.assertInvalid(theBinaryXML, theBody, theBody.length);
+
+			// Unsupported table version
+			System.arraycopy(thePacket, 4, theBody, 0, theBody.length);
+			theBody[3] = (byte) (EPPBinaryXML.TABLE_VERSION + 1);
+			this.assertInvalid(theBinaryXML, theBody, theBody.length);
+
+			// Truncated packet
+			System.arraycopy(thePacket, 4, theBody, 0, theBody.length);
+			this.assertInvalid(theBinaryXML, theBody, theBody.length - 1);
+
+			// Invalid header
+			try {
+				theBinaryXML.readPacket(new ByteArrayInputStream(new byte[] {
+						0, 0, 0, 2 }));
+				Assert.fail("Expected EPPException for an invalid header");
+			}
+			catch (EPPException ex) {
+				// Expected
+			}
+			catch (Exception ex) {
+				Assert.fail("Unexpected exception " + ex);
+			}
+		}
+	}
+
+	/**
+	 * Round trips a message and compares it with the message decoded from
+	 * the XML Document.
+	 *
+	 * @param aBinaryXML
+	 *            <code>EPPBinaryXML</code> to use
+	 * @param aMessage
+	 *            Message to round trip
+	 */
+	private void roundTrip(EPPBinaryXML aBinaryXML, EPPMessage aMessage) {
+		try {
+			EPPCodec theCodec = EPPCodec.getInstance();
+
+			Document theDocument = theCodec.encode(aMessage);
+			EPPMessage theExpected = theCodec.decode(theDocument);
+
+			ByteArrayOutputStream theXMLPacket = new ByteArrayOutputStream();
+			new EPPXMLStream().write(theDocument, theXMLPacket);
+			byte[] theBinaryPacket = aBinaryXML.encode(theDocument);
+
+			Document theDecoded = aBinaryXML.decode(theBinaryPacket, 4,
+					theBinaryPacket.length - 4);
+			EPPMessage theMessage = theCodec.decode(theDecoded);
+
+			Assert.assertEquals(theExpected, theMessage);
+
+			System.out.println(aMessage.getClass().getName() + ": xml = "
+					+ theXMLPacket.size() + " bytes, binary = "
+					+ theBinaryPacket.length + " bytes");
+
+			Assert.assertTrue(theBinaryPacket.length < theXMLPacket.size());
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			Assert.fail("Error round tripping " + aMessage.getClass().getName()
+					+ ": " + ex);
+		}
+	}
+
+	/**
+	 * Asserts that decoding a packet fails with an <code>EPPException</code>.
+	 *
+	 * @param aBinaryXML
+	 *            <code>EPPBinaryXML</code> to use
+	 * @param aPacket
+	 *            Packet without the network header
+	 * @param aLength
+	 *            Number of bytes of the packet to decode
+	 */
+	private void assertInvalid(EPPBinaryXML aBinaryXML, byte[] aPacket,
+			int aLength) {
+		try {
+			aBinaryXML.decode(aPacket, 0, aLength);
+			Assert.fail("Expected EPPException for an invalid packet");
+		}
+		catch (EPPException ex) {
+			// Expected
+		}
+	}
+
+	/**
+	 * JUNIT <code>suite</code> static method, which returns the tests
+	 * associated with <code>EPPBinaryXMLTst</code>.
+	 *
+	 * @return Test suite
+	 */
+	public static Test suite() {
+		TestSuite suite = new TestSuite(EPPBinaryXMLTst.class);
+
+		try {
+			EPPFactory.getInstance().addMapFactory(
+					"com.verisign.epp.codec.domain.EPPDomainMapFactory");
+			EPPFactory.getInstance().addMapFactory(
+					"com.verisign.epp.codec.contact.EPPContactMapFactory");
+			EPPFactory.getInstance().addMapFactory(
+					"com.verisign.epp.codec.host.EPPHostMapFactory");
+		}
+		catch (Exception ex) {
+			Assert.fail("Error adding the map factories: " + ex);
+		}
+
+		// iterations Property
+		String numIterProp = System.getProperty("iterations");
+
+		if (numIterProp != null) {
+			numIterations = Integer.parseInt(numIterProp);
+		}
+
+		return suite;
+	}
+
+	/**
+	 * Unit test main, which accepts the following system property options:<br>
+	 *
+	 * <ul>
+	 * <li>iterations Number of unit test iterations to run</li>
+	 * </ul>
+	 *
+	 * @param args
+	 *            Not used
+	 */
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(EPPBinaryXMLTst.suite());
+	}
+
+	/**
+	 * Sets the number of iterations to run per test.
+	 *
+	 * @param aNumIterations
+	 *            number of iterations to run per test
+	 */
+	public static void setNumIterations(long aNumIterations) {
+		numIterations = aNumIterations;
+	}
+
+} // End class EPPBinaryXMLTst
@@ -0,0 +1,249 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reusable <code>InputStream</code> over a region of a <code>byte</code>
+ * array or over the remaining bytes of a <code>ByteBuffer</code>, which lets
+ * the XML parsers read a packet in place from a frame buffer. Unlike a
+ * <code>ByteArrayInputStream</code>, the stream is reset to the next packet
+ * with {@link #setInput(byte[], int, int)} or {@link #setInput(ByteBuffer)},
+ * so no stream is allocated per packet. <br>
+ * <br>
+ * Heap buffers are read through their backing array. Direct buffers are read
+ * with relative bulk gets, so the position of a direct buffer is advanced
+ * while it is read and restored by {@link #close()}. The stream is not
+ * thread-safe and the input must not change while it is read.
+ */
+public class EPPByteBufferInputStream extends InputStream {
+
+	/** Backing array of the input or <code>null</code> for a direct buffer */
+	private byte[] array = null;
+
+	/** Position of the next byte in <code>array</code> */
+	private int pos = 0;
+
+	/** End of the input in <code>array</code> */
+	private int limit = 0;
+
+	/** Mark position in <code>array</code> */
+	private int mark = 0;
+
+	/** Direct buffer of the input or <code>null</code> */
+	private ByteBuffer buffer = null;
+
+	/** Position of the direct buffer when it was set */
+	private int bufferStart = 0;
+
+	/**
+	 * Creates a stream without input, which is at the end of the stream until
+	 * the input is set.
+	 */
+	public EPPByteBufferInputStream() {
+	}
+
+	/**
+	 * Creates a stream over the remaining bytes of a buffer.
+	 * 
+	 * @param aBuffer
+	 *            Buffer to read
+	 */
+	public EPPByteBufferInputStream(ByteBuffer aBuffer) {
+		this.setInput(aBuffer);
+	}
+
+	/**
+	 * Sets the input to <code>aLength</code> bytes of <code>aArray</code>
+	 * starting at <code>aOffset</code>.
+	 * 
+	 * @param aArray
+	 *            Array to read
+	 * @param aOffset
+	 *            Offset of the first byte to read
+	 * @param aLength
+	 *            Number of bytes to read
+	 */
+	public void setInput(byte[] aArray, int aOffset, int aLength) {
+		if (aOffset < 0 || aLength < 0 || aOffset + aLength > aArray.length) {
+			throw new IndexOutOfBoundsException("Invalid offset " + aOffset
+					+ " and length " + aLength + " for array of "
+					+ aArray.length + " bytes");
+		}
+
+		this.close();
+		this.array = aArray;
+		this.pos = aOffset;
+		this.limit = aOffset + aLength;
+		this.mark = aOffset;
+	}
+
+	/**
+	 * Sets the input to the remaining bytes of <code>aBuffer</code>. The
+	 * position of a heap buffer is not changed.
+	 * 
+	 * @param aBuffer
+	 *            Buffer to read
+	 */
+	public void setInput(ByteBuffer aBuffer) {
+		if (aBuffer.hasArray()) {
+			this.setInput(aBuffer.array(), aBuffer.arrayOffset()
+					+ aBuffer.position(), aBuffer.remaining());
+		}
+		else {
+			this.close();
+			this.buffer = aBuffer;
+			this.bufferStart = aBuffer.position();
+			aBuffer.mark();
+		}
+	}
+
+	/**
+	 * Reads the next byte of the input.
+	 * 
+	 * @return Next byte or <code>-1</code> at the end of the input
+	 */
+	public int read() {
+		if (this.buffer != null) {
+			return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+		}
+		return (this.pos < this.limit) ? this.array[this.pos++] & 0xFF : -1;
+	}
+
+	/**
+	 * Reads up to <code>aLength</code> bytes of the input into
+	 * <code>aBytes</code>.
+	 * 
+	 * @param aBytes
+	 *            Array to read into
+	 * @param aOffset
+	 *            Offset in <code>aBytes</code>
+	 * @param aLength
+	 *            Maximum number of bytes to read
+	 * 
+	 * @return Number of bytes read or <code>-1</code> at the end of the input
+	 */
+	public int read(byte[] aBytes, int aOffset, int aLength) {
+		if (aLength == 0) {
+			return 0;
+		}
+
+		int theCount = this.available();
+		if (theCount == 0) {
+			return -1;
+		}
+		theCount = Math.min(theCount, aLength);
+
+		if (this.buffer != null) {
+			this.buffer.get(aBytes, aOffset, theCount);
+		}
+		else {
+			System.arraycopy(this.array, this.pos, aBytes, aOffset, theCount);
+			this.pos += theCount;
+		}
+		return theCount;
+	}
+
+	/**
+	 * Skips up to <code>aCount</code> bytes of the input.
+	 * 
+	 * @param aCount
+	 *            Number of bytes to skip
+	 * 
+	 * @return Number of bytes skipped
+	 */
+	public long skip(long aCount) {
+		int theCount = (int) Math.max(0, Math.min(this.available(), aCount));
+		if (this.buffer != null) {
+			this.buffer.position(this.buffer.position() + theCount);
+		}
+		else {
+			this.pos += theCount;
+		}
+		return theCount;
+	}
+
+	/**
+	 * Gets the number of bytes left in the input.
+	 * 
+	 * @return Number of bytes left
+	 */
+	public int available() {
+		if (this.buffer != null) {
+			return this.buffer.remaining();
+		}
+		return this.limit - this.pos;
+	}
+
+	/**
+	 * Marks are supported.
+	 * 
+	 * @return <code>true</code>
+	 */
+	public boolean markSupported() {
+		return true;
+	}
+
+	/**
+	 * Marks the current position of the input.
+	 * 
+	 * @param aReadLimit
+	 *            Ignored since the whole input remains available
+	 */
+	public void mark(int aReadLimit) {
+		if (this.buffer != null) {
+			this.buffer.mark();
+		}
+		else {
+			this.mark = this.pos;
+		}
+	}
+
+	/**
+	 * Resets the input to the last mark, or to the start of the input when
+	 * there is no mark.
+	 */
+	public void reset() {
+		if (this.buffer != null) {
+			this.buffer.reset();
+		}
+		else {
+			this.pos = this.mark;
+		}
+	}
+
+	/**
+	 * Releases the input, which restores the position of a direct buffer.
+	 * The stream can be reused by setting the next input.
+	 */
+	public void close() {
+		if (this.buffer != null) {
+			this.buffer.position(this.bufferStart);
+			this.buffer = null;
+		}
+		this.array = null;
+		this.pos = 0;
+		this.limit = 0;
+		this.mark = 0;
+	}
+
+}
@@ -0,0 +1,440 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.cert.CertPath;
+import java.security.cert.CertPathValidator;
+import java.security.cert.CertificateFactory;
+import java.security.cert.PKIXCertPathValidatorResult;
+import java.security.cert.PKIXParameters;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Validates certificate chains against a fixed set of PKIX parameters and
+ * caches the successful validations, so that the signed marks and signed
+ * codes issued under the same chain don't run the PKIX
+ * <code>CertPathValidator</code> each time. <br>
+ * <br>
+ * The cache is keyed by the SHA-256 fingerprint of the trust anchors and of
+ * the certificate chain. An entry expires at the earliest
+ * <code>notAfter</code> of the chain, unless the PKIX parameters validate
+ * at a fixed date, and when revocation checking is
+ * enabled, after the revocation refresh interval, so that an updated CRL is
+ * applied to the cached chains. {@link #invalidate()} drops all of the
+ * entries, like after the CRLs are reloaded. Failed validations are not
+ * cached. <br>
+ * <br>
+ * <code>PKIXParameters</code> is not thread-safe, so a private copy of the
+ * parameters is taken on construction and each thread validates with its own
+ * copy, which avoids synchronizing on the shared parameters.
+ * {@link #validateAll(List, Predicate)} validates a batch in parallel on a
+ * <code>ForkJoinPool</code>.
+ */
+public class EPPCertPathValidationService {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(
+			EPPCertPathValidationService.class.getName(), EPPCatFactory
+					.getInstance().getFactory());
+
+	/**
+	 * Default interval in milliseconds after which a cached validation is
+	 * checked again when revocation checking is enabled.
+	 */
+	public static final long DEFAULT_REVOCATION_REFRESH = 60 * 60 * 1000;
+
+	/**
+	 * Default maximum number of cached validations.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+	/**
+	 * Cached successful validation of a certificate chain.
+	 */
+	private static class Entry {
+		final PKIXCertPathValidatorResult result;
+
+		final long expires;
+
+		Entry(PKIXCertPathValidatorResult aResult, long aExpires) {
+			this.result = aResult;
+			this.expires = aExpires;
+		}
+	}
+
+	/**
+	 * Private copy of the PKIX parameters, which is only cloned.
+	 */
+	private final PKIXParameters parameters;
+
+	/**
+	 * Copy of the PKIX parameters per thread.
+	 */
+	private final ThreadLocal<PKIXParameters> threadParameters = new ThreadLocal<PKIXParameters>() {
+		protected PKIXParameters initialValue() {
+			return (PKIXParameters) EPPCertPathValidationService.this.parameters
+					.clone();
+		}
+	};
+
+	/**
+	 * Fingerprint of the trust anchors, which prefixes the cache keys.
+	 */
+	private final String anchorsFingerprint;
+
+	/**
+	 * Revocation refresh interval in milliseconds
+	 */
+	private final long revocationRefresh;
+
+	/**
+	 * Maximum number of cached validations
+	 */
+	private final int maxEntries;
+
+	/**
+	 * Pool used by {@link #validateAll(List, Predicate)}
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Cached validations by the fingerprint of the trust anchors and the chain
+	 */
+	private final Map<String, Entry> cache = new ConcurrentHashMap<String, Entry>();
+
+	/**
+	 * Number of validations served from the cache
+	 */
+	private final AtomicLong hits = new AtomicLong();
+
+	/**
+	 * Number of validations run with the <code>CertPathValidator</code>
+	 */
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Per thread <code>CertPathValidator</code>.
+	 */
+	private static final ThreadLocal<CertPathValidator> validators = new ThreadLocal<CertPathValidator>() {
+		protected CertPathValidator initialValue() {
+			try {
+				return CertPathValidator.getInstance("PKIX");
+			}
+			catch (GeneralSecurityException ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+	};
+
+	/**
+	 * Per thread X.509 <code>CertificateFactory</code>.
+	 */
+	private static final ThreadLocal<CertificateFactory> certFactories = new ThreadLocal<CertificateFactory>() {
+		protected CertificateFactory initialValue() {
+			try {
+				return CertificateFactory.getInstance("X.509");
+			}
+			catch (GeneralSecurityException ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+	};
+
+	/**
+	 * Per thread SHA-256 <code>MessageDigest</code>.
+	 */
+	private static final ThreadLocal<MessageDigest> digests = new ThreadLocal<MessageDigest>() {
+		protected MessageDigest initialValue() {
+			try {
+				return MessageDigest.getInstance("SHA-256");
+			}
+			catch (GeneralSecurityException ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+	};
+
+	/**
+	 * Creates the service with the default revocation refresh interval and
+	 * maximum number of entries, using the common <code>ForkJoinPool</code>
+	 * for the batch validations.
+	 * 
+	 * @param aPKIXParameters
+	 *            PKIX parameters that are copied, so later changes to
+	 *            <code>aPKIXParameters</code> are not applied.
+	 * 
+	 * @throws GeneralSecurityException
+	 *             Error fingerprinting the trust anchors
+	 */
+	public EPPCertPathValidationService(PKIXParameters aPKIXParameters)
+			throws GeneralSecurityException {
+		this(aPKIXParameters, DEFAULT_REVOCATION_REFRESH, DEFAULT_MAX_ENTRIES,
+				ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates the service.
+	 * 
+	 * @param aPKIXParameters
+	 *            PKIX parameters that are copied, so later changes to
+	 *            <code>aPKIXParameters</code> are not applied.
+	 * @param aRevocationRefresh
+	 *            Milliseconds after which a cached validation is checked
+	 *            again when revocation checking is enabled
+	 * @param aMaxEntries
+	 *            Maximum number of cached validations
+	 * @param aPool
+	 *            Pool used for the batch validations
+	 * 
+	 * @throws GeneralSecurityException
+	 *             Error fingerprinting the trust anchors
+	 */
+	public EPPCertPathValidationService(PKIXParameters aPKIXParameters,
+			long aRevocationRefresh, int aMaxEntries, ForkJoinPool aPool)
+			throws GeneralSecurityException {
+		if (aPKIXParameters == null || aPool == null) {
+			throw new IllegalArgumentException(
+					"EPPCertPathValidationService: PKIX parameters and pool are required");
+		}
+		this.parameters = (PKIXParameters) aPKIXParameters.clone();
+		this.revocationRefresh = aRevocationRefresh;
+		this.maxEntries = aMaxEntries;
+		this.pool = aPool;
+
+		MessageDigest theDigest = digests.get();
+		theDigest.reset();
+		for (TrustAnchor theAnchor : this.parameters.getTrustAnchors()) {
+			if (theAnchor.getTrustedCert() != null) {
+				theDigest.update(theAnchor.getTrustedCert().getEncoded());
+			}
+			else {
+				theDigest.update(theAnchor.getCAPublicKey().getEncoded());
+			}
+		}
+		this.anchorsFingerprint = Base64.getEncoder().encodeToString(
+				theDigest.digest());
+	}
+
+	/**
+	 * Validates a certificate chain, using the cached result if the chain was
+	 * already validated and the cached validation has not expired.
+	 * 
+	 * @param aCertificates
+	 *            Certificate chain, starting with the target certificate
+	 * 
+	 * @return Result of the validation
+	 * 
+	 * @throws GeneralSecurityException
+	 *             The chain is not valid
+	 */
+	public PKIXCertPathValidatorResult validate(
+			List<X509Certificate> aCertificates) throws GeneralSecurityException {
+		String theKey = this.getKey(aCertificates);
+		long theNow = System.currentTimeMillis();
+
+		Entry theEntry = this.cache.get(theKey);
+		if (theEntry != null) {
+			if (theNow < theEntry.expires) {
+				this.hits.incrementAndGet();
+				return theEntry.result;
+			}
+			this.cache.remove(theKey, theEntry);
+		}
+		this.misses.incrementAndGet();
+
+		CertPath theCertPath = certFactories.get().generateCertPath(
+				aCertificates);
+		PKIXCertPathValidatorResult theResult = (PKIXCertPathValidatorResult) validators
+				.get().validate(theCertPath, this.threadParameters.get());
+
+		// Expire at the first notAfter of the chain, unless validating at a
+		// fixed date
+		long theExpires = Long.MAX_VALUE;
+		if (this.parameters.getDate() == null) {
+			for (X509Certificate theCert : aCertificates) {
+				theExpires = Math.min(theExpires, theCert.getNotAfter()
+						.getTime());
+			}
+		}
+		if (this.parameters.isRevocationEnabled()) {
+			theExpires = Math.min(theExpires, theNow + this.revocationRefresh);
+		}
+
+		if (this.cache.size() >= this.maxEntries) {
+			this.purge(theNow);
+		}
+		this.cache.put(theKey, new Entry(theResult, theExpires));
+
+		return theResult;
+	}
+
+	/**
+	 * Validates a batch of items in parallel on the pool of the service.
+	 * 
+	 * @param aItems
+	 *            Items to validate
+	 * @param aValidator
+	 *            Validates one item, like with a call to
+	 *            <code>EPPSignedMark.validate(EPPCertPathValidationService)</code>
+	 * 
+	 * @return Result of the validation of each item, in the order of
+	 *         <code>aItems</code>
+	 */
+	public <T> boolean[] validateAll(final List<T> aItems,
+			final Predicate<? super T> aValidator) {
+		final boolean[] theResults = new boolean[aItems.size()];
+		if (theResults.length > 0) {
+			this.pool.invoke(new ValidateAction<T>(aItems, aValidator,
+					theResults, 0, theResults.length));
+		}
+		return theResults;
+	}
+
+	/**
+	 * Validates a range of a batch, splitting it in half until one item is
+	 * left.
+	 */
+	private static class ValidateAction<T> extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final List<T> items;
+
+		private final Predicate<? super T> validator;
+
+		private final boolean[] results;
+
+		private final int from;
+
+		private final int to;
+
+		ValidateAction(List<T> aItems, Predicate<? super T> aValidator,
+				boolean[] aResults, int aFrom, int aTo) {
+			this.items = aItems;
+			this.validator = aValidator;
+			this.results = aResults;
+			this.from = aFrom;
+			this.to = aTo;
+		}
+
+		protected void compute() {
+			if (this.to - this.from == 1) {
+				try {
+					this.results[this.from] = this.validator.test(this.items
+							.get(this.from));
+				}
+				catch (RuntimeException ex) {
+					cat.error("validateAll: Error validating item " + this.from
+							+ ": " + ex);
+					this.results[this.from] = false;
+				}
+				return;
+			}
+
+			int theMiddle = (this.from + this.to) >>> 1;
+			invokeAll(new ValidateAction<T>(this.items, this.validator,
+					this.results, this.from, theMiddle), new ValidateAction<T>(
+					this.items, this.validator, this.results, theMiddle, this.to));
+		}
+	}
+
+	/**
+	 * Gets the cache key of a chain.
+	 */
+	private String getKey(List<X509Certificate> aCertificates)
+			throws GeneralSecurityException {
+		MessageDigest theDigest = digests.get();
+		theDigest.reset();
+		for (X509Certificate theCert : aCertificates) {
+			theDigest.update(theCert.getEncoded());
+		}
+		return this.anchorsFingerprint + ":"
+				+ Base64.getEncoder().encodeToString(theDigest.digest());
+	}
+
+	/**
+	 * Removes the expired entries, or all of the entries if the cache is
+	 * still full.
+	 */
+	private void purge(long aNow) {
+		int theSize = this.cache.size();
+		Iterator<Entry> theIter = this.cache.values().iterator();
+		while (theIter.hasNext()) {
+			if (aNow >= theIter.next().expires) {
+				theIter.remove();
+			}
+		}
+		if (this.cache.size() >= this.maxEntries) {
+			this.cache.clear();
+		}
+		cat.debug("purge: removed " + (theSize - this.cache.size())
+				+ " cached validations");
+	}
+
+	/**
+	 * Drops all of the cached validations, like after the CRLs have been
+	 * reloaded.
+	 */
+	public void invalidate() {
+		this.cache.clear();
+	}
+
+	/**
+	 * Gets the number of cached validations.
+	 * 
+	 * @return Number of entries in the cache
+	 */
+	public int getCacheSize() {
+		return this.cache.size();
+	}
+
+	/**
+	 * Gets the number of validations served from the cache.
+	 * 
+	 * @return Number of cache hits
+	 */
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	/**
+	 * Gets the number of validations run with the
+	 * <code>CertPathValidator</code>.
+	 * 
+	 * @return Number of cache misses
+	 */
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+}
@@ -627,6 +627,469 @@ public abstract class EPPEnv extends Environment {
 	}
 
 
+	/**
+	 * Gets the number of worker threads used by the non-blocking servers to
+	 * process packets, as defined by the <code>EPP.ServerWorkerThreads</code>
+	 * property.  The default is twice the number of available processors.
+	 *
+	 * @return Number of server worker threads
+	 */
+	public static int getServerWorkerThreads () {
+		String opt = Environment.getOption( "EPP.ServerWorkerThreads" );
+
+		if ( opt == null ) {
+			return Runtime.getRuntime().availableProcessors() * 2;
+		}
+
+		else {
+			return new Integer( opt ).intValue();
+		}
+	}
+
+
+	/**
+	 * Gets the maximum number of packets queued for the server worker threads
+	 * of the non-blocking servers, as defined by the
+	 * <code>EPP.ServerWorkerQueueSize</code> property.  The default is 1000.
+	 *
+	 * @return Maximum number of queued packets
+	 */
+	public static int getServerWorkerQueueSize () {
+		String opt = Environment.getOption( "EPP.ServerWorkerQueueSize" );
+
+		if ( opt == null ) {
+			return 1000;
+		}
+
+		else {
+			return new Integer( opt ).intValue();
+		}
+	}
+
+
+	/**
+	 * Gets whether virtual threads are used for blocking work when the JDK
+	 * supports them, as defined by the <code>EPP.VirtualThreads</code>
+	 * property.  The default is <code>true</code>.
+	 *
+	 * @return <code>true</code> to use virtual threads when supported;
+	 *         <code>false</code> otherwise.
+	 */
+	public static boolean getVirtualThreads () {
+		String opt = Environment.getOption( "EPP.VirtualThreads" );
+
+		if ( opt == null ) {
+			return true;
+		}
+
+		else {
+			return new Boolean( opt ).booleanValue();
+		}
+	}
+
+
+	/**
+	 * Gets the maximum number of platform threads used by the blocking
+	 * servers to handle connections when virtual threads are not used, as
+	 * defined by the <code>EPP.ServerMaxThreads</code> property.  The default
+	 * is 500.
+	 *
+	 * @return Maximum number of server connection threads
+	 */
+	public static int getServerMaxThreads () {
+		String opt = Environment.getOption( "EPP.ServerMaxThreads" );
+
+		if ( opt == null ) {
+			return 500;
+		}
+
+		else {
+			return new Integer( opt ).intValue();
+		}
+	}
+
+
+	/**
+	 * Gets the maximum number of platform threads used for client blocking
+	 * calls when virtual threads are not used, as defined by the
+	 * <code>EPP.ClientMaxThreads</code> property.  The default is 100.
+	 *
+	 * @return Maximum number of client threads
+	 */
+	public static int getClientMaxThreads () {
+		String opt = Environment.getOption( "EPP.ClientMaxThreads" );
+
+		if ( opt == null ) {
+			return 100;
+		}
+
+		else {
+			return new Integer( opt ).intValue();
+		}
+	}
+
+
+	/**
+	 * Gets the maximum number of startup tasks run in parallel, like loading
+	 * the factory classes, compiling the XML schemas and initializing the
+	 * system session pools, as defined by the
+	 * <code>EPP.StartupParallelism</code> property.  A value of
+	 * <code>1</code> runs the startup tasks sequentially.  The default is the
+	 * number of available processors.
+	 *
+	 * @return Maximum number of parallel startup tasks
+	 *
+	 * @see EPPStartup
+	 */
+	public static int getStartupParallelism () {
+		String opt = Environment.getOption( "EPP.StartupParallelism" );
+
+		if ( opt == null ) {
+			return Runtime.getRuntime().availableProcessors();
+		}
+
+		else {
+			return new Integer( opt ).intValue();
+		}
+	}
+
+
+
+	/**
+	 * Gets the type of the XML parser and transformer pools, as defined by
+	 * the <code>EPP.ParserPoolType</code> property.  The supported values are
+	 * <code>striped</code> for a lock-free bounded pool, <code>threadlocal</code>
+	 * for one pooled object per thread, and <code>poolman</code> for the
+	 * PoolMan <code>GenericPool</code>.  The default is <code>striped</code>.
+	 *
+	 * @return Parser pool type
+	 *
+	 * @see EPPParserPoolManager
+	 */
+	public static String getParserPoolType () {
+		String opt = Environment.getOption( "EPP.ParserPoolType" );
+
+		if ( opt == null ) {
+			return EPPParserPoolManager.TYPE_STRIPED;
+		}
+
+		else {
+			return opt.trim();
+		}
+	}
+
+
+
+	/**
+	 * Gets the fully qualified name of the <code>EPPMetrics</code> class that
+	 * records the command, session pool and parser pool metrics, as defined
+	 * by the <code>EPP.MetricsClassName</code> property.  The default is
+	 * <code>com.verisign.epp.util.EPPJmxMetrics</code>, which exposes the
+	 * metrics as JMX MBeans.  Use
+	 * <code>com.verisign.epp.util.EPPNullMetrics</code> to disable the
+	 * metrics.
+	 *
+	 * @return Metrics class name
+	 *
+	 * @see EPPMetricsManager
+	 */
+	public static String getMetricsClassName () {
+		String opt = Environment.getOption( "EPP.MetricsClassName" );
+
+		if ( opt == null ) {
+			return EPPJmxMetrics.class.getName();
+		}
+
+		else {
+			return opt.trim();
+		}
+	}
+
+
+
+	/**
+	 * Gets whether the client sessions encode the messages that support it
+	 * directly to the frame buffer with <code>EPPXMLWriter</code> instead of
+	 * building and serializing a DOM Document, as defined by the
+	 * <code>EPP.StreamEncode</code> property.  The default is
+	 * <code>true</code>.
+	 *
+	 * @return <code>true</code> to stream encode messages;
+	 *         <code>false</code> to always encode with DOM.
+	 */
+	public static boolean getStreamEncode () {
+		String opt = Environment.getOption( "EPP.StreamEncode" );
+
+		if ( opt == null ) {
+			return true;
+		}
+
+		else {
+			return new Boolean( opt ).booleanValue();
+		}
+	}
+
+
+	/**
+	 * Gets whether the client sessions decode the responses directly from
+	 * the packet with <code>EPPXMLReader</code> instead of parsing them to a
+	 * DOM Document, as defined by the <code>EPP.StreamDecode</code>
+	 * property.  The default is <code>false</code>.
+	 *
+	 * @return <code>true</code> to stream decode responses;
+	 *         <code>false</code> to always decode with DOM.
+	 */
+	public static boolean getStreamDecode () {
+		String opt = Environment.getOption( "EPP.StreamDecode" );
+
+		if ( opt == null ) {
+			return false;
+		}
+
+		else {
+			return new Boolean( opt ).booleanValue();
+		}
+	}
+
+
+	/**
+	 * Gets whether the info responses and check results of the domain,
+	 * contact and host interfaces are cached, as defined by the
+	 * <code>EPP.ResponseCache</code> property.  The default is
+	 * <code>false</code>.
+	 *
+	 * @return <code>true</code> to cache the responses; <code>false</code>
+	 *         otherwise.
+	 *
+	 * @see com.verisign.epp.interfaces.EPPResponseCache
+	 */
+	public static boolean getResponseCache () {
+		String opt = Environment.getOption( "EPP.ResponseCache" );
+
+		if ( opt == null ) {
+			return false;
+		}
+
+		else {
+			return new Boolean( opt ).booleanValue();
+		}
+	}
+
+
+	/**
+	 * Gets the maximum number of objects in the response cache, as defined
+	 * by the <code>EPP.ResponseCache.MaxEntries</code> property.  The
+	 * default is <code>10000</code>.
+	 *
+	 * @return Maximum number of cached objects
+	 */
+	public static int getResponseCacheMaxEntries () {
+		String opt = Environment.getOption( "EPP.ResponseCache.MaxEntries" );
+
+		if ( opt == null ) {
+			return 10000;
+		}
+
+		else {
+			return new Integer( opt.trim() ).intValue();
+		}
+	}
+
+
+	/**
+	 * Gets the time to live of the cached info responses in milliseconds, as
+	 * defined by the <code>EPP.ResponseCache.InfoTTL</code> property.  The
+	 * default is <code>30000</code>.
+	 *
+	 * @return Info response time to live in milliseconds
+	 */
+	public static long getResponseCacheInfoTTL () {
+		String opt = Environment.getOption( "EPP.ResponseCache.InfoTTL" );
+
+		if ( opt == null ) {
+			return 30000;
+		}
+
+		else {
+			return new Long( opt.trim() ).longValue();
+		}
+	}
+
+
+	/**
+	 * Gets the time to live of the cached check results that say the object
+	 * is not available in milliseconds, as defined by the
+	 * <code>EPP.ResponseCache.CheckTTL</code> property.  The default is
+	 * <code>30000</code>.
+	 *
+	 * @return Check result time to live in milliseconds
+	 */
+	public static long getResponseCacheCheckTTL () {
+		String opt = Environment.getOption( "EPP.ResponseCache.CheckTTL" );
+
+		if ( opt == null ) {
+			return 30000;
+		}
+
+		else {
+			return new Long( opt.trim() ).longValue();
+		}
+	}
+
+
+	/**
+	 * Gets the time to live of the cached check results that say the object
+	 * is available in milliseconds, as defined by the
+	 * <code>EPP.ResponseCache.NegativeCheckTTL</code> property.  It is
+	 * shorter than the check TTL since another client can create the object
+	 * at any time.  The default is <code>5000</code>, and <code>0</code>
+	 * disables caching of the available results.
+	 *
+	 * @return Available check result time to live in milliseconds
+	 */
+	public static long getResponseCacheNegativeCheckTTL () {
+		String opt = Environment.getOption( "EPP.ResponseCache.NegativeCheckTTL" );
+
+		if ( opt == null ) {
+			return 5000;
+		}
+
+		else {
+			return new Long( opt.trim() ).longValue();
+		}
+	}
+
+
+	/**
+	 * Gets the directory of the segment files of the persistent poll queue
+	 * of the Stub Server, as defined by the
+	 * <code>EPP.PollDataSource.Directory</code> property.  The Stub Server
+	 * uses an in-memory poll queue when it is not defined.
+	 *
+	 * @return Poll queue directory if defined; <code>null</code> otherwise.
+	 */
+	public static String getPollDataSourceDirectory () {
+		return Environment.getOption( "EPP.PollDataSource.Directory" );
+	}
+
+
+	/**
+	 * Gets the size in bytes of a segment file of the persistent poll queue,
+	 * as defined by the <code>EPP.PollDataSource.SegmentSize</code>
+	 * property.  The default is <code>67108864</code> (64 MB).
+	 *
+	 * @return Segment file size in bytes
+	 */
+	public static int getPollDataSourceSegmentSize () {
+		String opt = Environment.getOption( "EPP.PollDataSource.SegmentSize" );
+
+		if ( opt == null ) {
+			return 64 * 1024 * 1024;
+		}
+
+		else {
+			return new Integer( opt.trim() ).intValue();
+		}
+	}
+
+
+	/**
+	 * Gets the interval in milliseconds of the compaction of the segment
+	 * files of the persistent poll queue, as defined by the
+	 * <code>EPP.PollDataSource.CompactInterval</code> property.  The default
+	 * is <code>60000</code>, and <code>0</code> disables the compaction.
+	 *
+	 * @return Compaction interval in milliseconds
+	 */
+	public static long getPollDataSourceCompactInterval () {
+		String opt = Environment.getOption( "EPP.PollDataSource.CompactInterval" );
+
+		if ( opt == null ) {
+			return 60000;
+		}
+
+		else {
+			return new Long( opt.trim() ).longValue();
+		}
+	}
+
+
+	/**
+	 * Force every change of the persistent poll queue to the disk?  This is
+	 * defined by the <code>EPP.PollDataSource.Sync</code> property, with a
+	 * default of <code>false</code>.
+	 *
+	 * @return <code>true</code> to force every change to the disk;
+	 *         <code>false</code> otherwise.
+	 */
+	public static boolean getPollDataSourceSync () {
+		String opt = Environment.getOption( "EPP.PollDataSource.Sync" );
+
+		if ( opt == null ) {
+			return false;
+		}
+
+		else {
+			return new Boolean( opt ).booleanValue();
+		}
+	}
+
+
+	/**
+	 * Is the stateful registry of the Stub Server enabled?  This is defined
+	 * by the <code>EPP.Repository.Enabled</code> property, with a default of
+	 * <code>false</code> for the canned responses of the handlers.
+	 *
+	 * @return <code>true</code> if the registry is enabled;
+	 *         <code>false</code> otherwise.
+	 */
+	public static boolean getRepositoryEnabled () {
+		String opt = Environment.getOption( "EPP.Repository.Enabled" );
+
+		if ( opt == null ) {
+			return false;
+		}
+
+		else {
+			return new Boolean( opt ).booleanValue();
+		}
+	}
+
+
+	/**
+	 * Gets the snapshot file of the stateful registry of the Stub Server,
+	 * as defined by the <code>EPP.Repository.SnapshotFile</code> property.
+	 * The registry is only kept in memory when it is not defined.
+	 *
+	 * @return Snapshot file if defined; <code>null</code> otherwise.
+	 */
+	public static String getRepositorySnapshotFile () {
+		return Environment.getOption( "EPP.Repository.SnapshotFile" );
+	}
+
+
+	/**
+	 * Gets the interval in milliseconds of the snapshots of the stateful
+	 * registry, as defined by the
+	 * <code>EPP.Repository.SnapshotInterval</code> property.  The default
+	 * is <code>60000</code>, and <code>0</code> only takes a snapshot on
+	 * shutdown.
+	 *
+	 * @return Snapshot interval in milliseconds
+	 */
+	public static long getRepositorySnapshotInterval () {
+		String opt = Environment.getOption( "EPP.Repository.SnapshotInterval" );
+
+		if ( opt == null ) {
+			return 60000;
+		}
+
+		else {
+			return new Long( opt.trim() ).longValue();
+		}
+	}
+
+
 	/**
 	 * SSL Socket Option. Returns the type of SSL protocol
 	 *
@@ -0,0 +1,315 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Creates the threads and executors used for blocking work, like handling a
+ * connection in the blocking servers or waiting on a session with the
+ * client. When the JDK supports virtual threads and
+ * <code>EPP.VirtualThreads</code> is <code>true</code> (default), a virtual
+ * thread is used per task, so thousands of concurrent slow round trips don't
+ * need thousands of OS threads. Otherwise a bounded pool of daemon platform
+ * threads is used, which rejects tasks with a
+ * <code>RejectedExecutionException</code> when all threads are busy and the
+ * queue is full. <br>
+ * <br>
+ * Virtual threads are looked up with reflection, so the SDK can still be
+ * compiled and run with a JDK without virtual threads. <br>
+ * <br>
+ * Code run on a virtual thread should not block while holding a monitor
+ * (<code>synchronized</code>), since that pins the carrier thread, so
+ * <code>java.util.concurrent</code> locks are used on the blocking paths
+ * instead.
+ *
+ * @see EPPEnv#getVirtualThreads()
+ */
+public final class EPPExecutors {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPExecutors.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/**
+	 * Idle time in seconds before a platform pool thread exits.
+	 */
+	private static final long KEEP_ALIVE = 60;
+
+	/**
+	 * <code>Thread.ofVirtual()</code> method or <code>null</code> if virtual
+	 * threads are not supported.
+	 */
+	private static final Method ofVirtual;
+
+	/**
+	 * <code>Thread.Builder.name(String, long)</code> method.
+	 */
+	private static final Method builderName;
+
+	/**
+	 * <code>Thread.Builder.factory()</code> method.
+	 */
+	private static final Method builderFactory;
+
+	/**
+	 * <code>Executors.newThreadPerTaskExecutor(ThreadFactory)</code> method.
+	 */
+	private static final Method newThreadPerTaskExecutor;
+
+	/**
+	 * Executor for client blocking calls created by
+	 * {@link #getClientExecutor()}.
+	 */
+	private static volatile ExecutorService clientExecutor = null;
+
+	static {
+		Method theOfVirtual = null;
+		Method theBuilderName = null;
+		Method theBuilderFactory = null;
+		Method theNewThreadPerTaskExecutor = null;
+
+		try {
+			Class theBuilderClass = Class.forName("java.lang.Thread$Builder");
+			theBuilderName = theBuilderClass.getMethod("name", new Class[] {
+					String.class, long.class });
+			theBuilderFactory = theBuilderClass.getMethod("factory",
+					new Class[0]);
+			theNewThreadPerTaskExecutor = Executors.class.getMethod(
+					"newThreadPerTaskExecutor",
+					new Class[] { ThreadFactory.class });
+			theOfVirtual = Thread.class.getMethod("ofVirtual", new Class[0]);
+
+			// Fails when virtual threads are a disabled preview feature
+			theOfVirtual.invoke(null, new Object[0]);
+		}
+		catch (Exception ex) {
+			theOfVirtual = null;
+		}
+
+		ofVirtual = theOfVirtual;
+		builderName = theBuilderName;
+		builderFactory = theBuilderFactory;
+		newThreadPerTaskExecutor = theNewThreadPerTaskExecutor;
+	}
+
+	/**
+	 * Daemon platform thread factory that names the threads with a prefix
+	 * and a sequence number.
+	 */
+	private static class PlatformThreadFactory implements ThreadFactory {
+
+		/** Thread name prefix */
+		private final String prefix;
+
+		/** Sequence number of the last thread created */
+		private final AtomicLong seq = new AtomicLong();
+
+		/**
+		 * Creates a factory for threads named <code>aPrefix-N</code>.
+		 *
+		 * @param aPrefix
+		 *            Thread name prefix
+		 */
+		PlatformThreadFactory(String aPrefix) {
+			this.prefix = aPrefix;
+		}
+
+		public Thread newThread(Runnable aTask) {
+			Thread theThread = new Thread(aTask, this.prefix + "-"
+					+ this.seq.incrementAndGet());
+			theThread.setDaemon(true);
+			return theThread;
+		}
+	}
+
+	/**
+	 * Utility class with only static methods.
+	 */
+	private EPPExecutors() {
+	}
+
+	/**
+	 * Does the JDK support virtual threads?
+	 *
+	 * @return <code>true</code> if virtual threads are supported;
+	 *         <code>false</code> otherwise.
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return ofVirtual != null;
+	}
+
+	/**
+	 * Are virtual threads used? Virtual threads are used when they are
+	 * supported and <code>EPP.VirtualThreads</code> is not set to
+	 * <code>false</code>.
+	 *
+	 * @return <code>true</code> if virtual threads are used;
+	 *         <code>false</code> otherwise.
+	 */
+	public static boolean isVirtualThreadEnabled() {
+		return isVirtualThreadSupported() && EPPEnv.getVirtualThreads();
+	}
+
+	/**
+	 * Creates a thread factory for threads named <code>aPrefix-N</code>,
+	 * which creates virtual threads if {@link #isVirtualThreadEnabled()} and
+	 * daemon platform threads otherwise.
+	 *
+	 * @param aPrefix
+	 *            Thread name prefix
+	 *
+	 * @return Thread factory
+	 */
+	public static ThreadFactory newThreadFactory(String aPrefix) {
+		if (isVirtualThreadEnabled()) {
+			try {
+				Object theBuilder = ofVirtual.invoke(null, new Object[0]);
+				theBuilder = builderName.invoke(theBuilder, new Object[] {
+						aPrefix + "-", Long.valueOf(1) });
+				return (ThreadFactory) builderFactory.invoke(theBuilder,
+						new Object[0]);
+			}
+			catch (Exception ex) {
+				cat.error("newThreadFactory(" + aPrefix
+						+ "): Error creating virtual thread factory, "
+						+ "using platform threads: " + ex);
+			}
+		}
+
+		return new PlatformThreadFactory(aPrefix);
+	}
+
+	/**
+	 * Creates an unstarted thread, which is a virtual thread if
+	 * {@link #isVirtualThreadEnabled()} and a daemon platform thread
+	 * otherwise.
+	 *
+	 * @param aTask
+	 *            Task run by the thread
+	 * @param aName
+	 *            Thread name
+	 *
+	 * @return Unstarted thread
+	 */
+	public static Thread newThread(Runnable aTask, String aName) {
+		Thread theThread = newThreadFactory(aName).newThread(aTask);
+		theThread.setName(aName);
+		return theThread;
+	}
+
+	/**
+	 * Creates an executor for blocking tasks. If
+	 * {@link #isVirtualThreadEnabled()}, each task is run in a new virtual
+	 * thread. Otherwise a pool of up to <code>aMaxThreads</code> daemon
+	 * platform threads is used, with up to <code>aQueueSize</code> tasks
+	 * waiting for a thread. Tasks submitted beyond that are rejected with a
+	 * <code>RejectedExecutionException</code>.
+	 *
+	 * @param aPrefix
+	 *            Thread name prefix
+	 * @param aMaxThreads
+	 *            Maximum number of platform threads
+	 * @param aQueueSize
+	 *            Maximum number of tasks waiting for a platform thread, where
+	 *            <code>0</code> means that tasks are never queued
+	 *
+	 * @return Executor that should be shutdown when no longer needed
+	 */
+	public static ExecutorService newExecutor(String aPrefix, int aMaxThreads,
+			int aQueueSize) {
+		if (isVirtualThreadEnabled()) {
+			try {
+				ExecutorService theExecutor = (ExecutorService) newThreadPerTaskExecutor
+						.invoke(null,
+								new Object[] { newThreadFactory(aPrefix) });
+				cat.info("newExecutor(" + aPrefix + "): Using virtual threads");
+				return theExecutor;
+			}
+			catch (IllegalAccessException ex) {
+				cat.error("newExecutor(" + aPrefix
+						+ "): Error creating virtual thread executor: " + ex);
+			}
+			catch (InvocationTargetException ex) {
+				cat.error("newExecutor(" + aPrefix
+						+ "): Error creating virtual thread executor: "
+						+ ex.getTargetException());
+			}
+		}
+
+		BlockingQueue theQueue;
+		if (aQueueSize > 0) {
+			theQueue = new LinkedBlockingQueue(aQueueSize);
+		}
+		else {
+			theQueue = new SynchronousQueue();
+		}
+
+		ThreadPoolExecutor theExecutor = new ThreadPoolExecutor(aMaxThreads,
+				aMaxThreads, KEEP_ALIVE, TimeUnit.SECONDS, theQueue,
+				new PlatformThreadFactory(aPrefix));
+		theExecutor.allowCoreThreadTimeOut(true);
+
+		cat.info("newExecutor(" + aPrefix + "): Using up to " + aMaxThreads
+				+ " platform threads");
+
+		return theExecutor;
+	}
+
+	/**
+	 * Gets the shared executor for client blocking calls, like borrowing a
+	 * session from the session pool and sending a command with it. The
+	 * executor uses virtual threads if {@link #isVirtualThreadEnabled()} and
+	 * otherwise up to <code>EPP.ClientMaxThreads</code> platform threads,
+	 * with tasks queued while all threads are busy. The environment must be
+	 * initialized before calling this method.
+	 *
+	 * @return Shared client executor
+	 */
+	public static ExecutorService getClientExecutor() {
+		ExecutorService theExecutor = clientExecutor;
+
+		if (theExecutor == null) {
+			synchronized (EPPExecutors.class) {
+				theExecutor = clientExecutor;
+				if (theExecutor == null) {
+					theExecutor = newExecutor("EPPClientThread", EPPEnv
+							.getClientMaxThreads(), Integer.MAX_VALUE);
+					clientExecutor = theExecutor;
+				}
+			}
+		}
+
+		return theExecutor;
+	}
+
+} // End class EPPExecutors
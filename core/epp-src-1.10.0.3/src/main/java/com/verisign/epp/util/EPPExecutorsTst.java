@@ -0,0 +1,256 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+//----------------------------------------------
+//
+// imports...
+//
+//----------------------------------------------
+
+// Java Core Imports
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// JUNIT Imports
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Is a unit test of <code>EPPExecutors</code>. The tests run many blocking
+ * tasks with the executor, which uses virtual threads when the JDK supports
+ * them and <code>EPP.VirtualThreads</code> is not <code>false</code>, and a
+ * bounded pool of platform threads otherwise.
+ */
+public class EPPExecutorsTst extends TestCase {
+
+	/**
+	 * Number of unit test iterations to run. This is set with the
+	 * <code>iterations</code> system property.
+	 */
+	static private long numIterations = 1;
+
+	/** Name of configuration file to use for test (default = epp.config). */
+	private static String configFileName = "epp.config";
+
+	/** Number of blocking tasks to run */
+	private static final int NUM_TASKS = 2000;
+
+	/** Maximum number of platform threads */
+	private static final int MAX_THREADS = 50;
+
+	/** Time in milliseconds that each task blocks */
+	private static final long TASK_TIME = 50;
+
+	/**
+	 * Allocates a new instance of <code>EPPExecutorsTst</code>.
+	 *
+	 * @param name
+	 *            Name of test
+	 */
+	public EPPExecutorsTst(String name) {
+		super(name);
+	}
+
+	/**
+	 * Runs <code>NUM_TASKS</code> blocking tasks and verifies that all of the
+	 * tasks complete without creating more than <code>MAX_THREADS</code>
+	 * platform threads.
+	 */
+	public void testBlockingTasks() {
+		for (int i = 0; i < numIterations; i++) {
+			int theThreadsBefore = Thread.activeCount();
+
+			ExecutorService theExecutor = EPPExecutors.newExecutor(
+					"EPPExecutorsTst", MAX_THREADS, Integer.MAX_VALUE);
+			final CountDownLatch theLatch = new CountDownLatch(NUM_TASKS);
+
+			long theStart = System.currentTimeMillis();
+			try {
+				for (int j = 0; j < NUM_TASKS; j++) {
+					theExecutor.execute(new Runnable() {
+
+						public void run() {
+							try {
+								Thread.sleep(TASK_TIME);
+							}
+							catch (InterruptedException ex) {
+								// ignore
+							}
+							theLatch.countDown();
+						}
+					});
+				}
+
+				Assert.assertTrue("Platform threads exceeded", Thread
+						.activeCount()
+						- theThreadsBefore <= MAX_THREADS);
+
+				Assert.assertTrue("Tasks not complete", theLatch.await(60,
+						TimeUnit.SECONDS));
+			}
+			catch (InterruptedException ex) {
+				Assert.fail("testBlockingTasks(): Interrupted");
+			}
+			finally {
+				theExecutor.shutdown();
+			}
+
+			System.out.println("testBlockingTasks(): virtual threads = "
+					+ EPPExecutors.isVirtualThreadEnabled() + ", " + NUM_TASKS
+					+ " tasks in " + (System.currentTimeMillis() - theStart)
+					+ " ms");
+		}
+	}
+
+	/**
+	 * Verifies that the platform thread executor rejects tasks when all
+	 * threads are busy and tasks are not queued.
+	 */
+	public void testRejection() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			if (EPPExecutors.isVirtualThreadEnabled()) {
+				System.out.println("testRejection(): skipped with virtual threads");
+				return;
+			}
+
+			ExecutorService theExecutor = EPPExecutors.newExecutor(
+					"EPPExecutorsTst", 1, 0);
+			final CountDownLatch theLatch = new CountDownLatch(1);
+			try {
+				theExecutor.execute(new Runnable() {
+
+					public void run() {
+						try {
+							theLatch.await();
+						}
+						catch (InterruptedException ex) {
+							// ignore
+						}
+					}
+				});
+
+				try {
+					theExecutor.execute(new Runnable() {
+
+						public void run() {
+						}
+					});
+					Assert.fail("Expected RejectedExecutionException");
+				}
+				catch (RejectedExecutionException ex) {
+					// Expected
+				}
+			}
+			finally {
+				theLatch.countDown();
+				theExecutor.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Verifies that the threads created with <code>newThread</code> are named
+	 * and don't prevent the JVM from exiting.
+	 */
+	public void testNewThread() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			Thread theThread = EPPExecutors.newThread(new Runnable() {
+
+				public void run() {
+				}
+			}, "EPPExecutorsTst-Thread");
+
+			Assert.assertEquals("EPPExecutorsTst-Thread", theThread.getName());
+			Assert.assertTrue("Thread is not a daemon", theThread.isDaemon());
+
+			theThread.start();
+			try {
+				theThread.join(10000);
+			}
+			catch (InterruptedException ex) {
+				Assert.fail("testNewThread(): Interrupted");
+			}
+			Assert.assertFalse("Thread is alive", theThread.isAlive());
+		}
+	}
+
+	/**
+	 * JUNIT <code>suite</code> static method, which returns the tests
+	 * associated with <code>EPPExecutorsTst</code>.
+	 *
+	 * @return Test suite
+	 */
+	public static Test suite() {
+		TestSuite suite = new TestSuite(EPPExecutorsTst.class);
+
+		String theConfigFileName = System.getProperty("EPP.ConfigFile");
+		if (theConfigFileName != null) {
+			configFileName = theConfigFileName;
+		}
+
+		try {
+			EPPEnvSingle.getInstance().initialize(configFileName);
+		}
+		catch (Exception ex) {
+			Assert.fail("Error initializing the environment with "
+					+ configFileName + ": " + ex);
+		}
+
+		// iterations Property
+		String numIterProp = System.getProperty("iterations");
+
+		if (numIterProp != null) {
+			numIterations = Integer.parseInt(numIterProp);
+		}
+
+		return suite;
+	}
+
+	/**
+	 * Unit test main, which accepts the following system property options:<br>
+	 *
+	 * <ul>
+	 * <li>iterations Number of unit test iterations to run</li>
+	 * <li>EPP.ConfigFile EPP configuration file to use</li>
+	 * </ul>
+	 *
+	 * @param args
+	 *            Not used
+	 */
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(EPPExecutorsTst.suite());
+	}
+
+	/**
+	 * Sets the number of iterations to run per test.
+	 *
+	 * @param aNumIterations
+	 *            number of iterations to run per test
+	 */
+	public static void setNumIterations(long aNumIterations) {
+		numIterations = aNumIterations;
+	}
+
+} // End class EPPExecutorsTst
@@ -0,0 +1,200 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds. The values are counted in
+ * logarithmic buckets with {@link #SUB_BUCKETS} buckets per power of two, so
+ * a percentile is accurate to within {@link #PRECISION} of the value, and recording a
+ * value does not allocate. The values recorded concurrently with
+ * {@link #reset()} may be lost.
+ */
+public class EPPHistogram implements EPPHistogramMBean {
+
+	/** Number of sub buckets per power of two */
+	public static final int SUB_BUCKETS = 8;
+
+	/** Relative precision of a percentile */
+	public static final double PRECISION = 1.0 / SUB_BUCKETS;
+
+	/** Number of bits of the sub bucket index */
+	private static final int SUB_BITS = 3;
+
+	/** Number of buckets needed for all positive <code>long</code> values */
+	static final int NUM_BUCKETS = (63 - SUB_BITS + 1) * SUB_BUCKETS;
+
+	/** Number of nanoseconds per microsecond */
+	private static final double NANOS_PER_MICRO = 1000.0;
+
+	/** Count of the values of each bucket */
+	private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+
+	/** Number of recorded values */
+	private final AtomicLong count = new AtomicLong();
+
+	/** Sum of the recorded values */
+	private final AtomicLong sum = new AtomicLong();
+
+	/** Maximum recorded value */
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a value. Negative values are recorded as <code>0</code>.
+	 *
+	 * @param aNanos
+	 *            Latency in nanoseconds
+	 */
+	public void record(long aNanos) {
+		long theValue = aNanos < 0 ? 0 : aNanos;
+
+		this.buckets.incrementAndGet(bucketIndex(theValue));
+		this.count.incrementAndGet();
+		this.sum.addAndGet(theValue);
+
+		long theMax = this.max.get();
+		while (theValue > theMax
+				&& !this.max.compareAndSet(theMax, theValue)) {
+			theMax = this.max.get();
+		}
+	}
+
+	public long getCount() {
+		return this.count.get();
+	}
+
+	public double getMeanMicros() {
+		long theCount = this.count.get();
+		if (theCount == 0) {
+			return 0;
+		}
+		return this.sum.get() / (double) theCount / NANOS_PER_MICRO;
+	}
+
+	public double getMaxMicros() {
+		return this.max.get() / NANOS_PER_MICRO;
+	}
+
+	public double get50thPercentileMicros() {
+		return this.getPercentile(50.0) / NANOS_PER_MICRO;
+	}
+
+	public double get90thPercentileMicros() {
+		return this.getPercentile(90.0) / NANOS_PER_MICRO;
+	}
+
+	public double get99thPercentileMicros() {
+		return this.getPercentile(99.0) / NANOS_PER_MICRO;
+	}
+
+	public double get999thPercentileMicros() {
+		return this.getPercentile(99.9) / NANOS_PER_MICRO;
+	}
+
+	/**
+	 * Gets a percentile of the recorded values, which is the middle of the
+	 * bucket that contains the percentile, capped by the maximum value.
+	 *
+	 * @param aPercentile
+	 *            Percentile between <code>0</code> and <code>100</code>
+	 *
+	 * @return Percentile in nanoseconds, or <code>0</code> if no value was
+	 *         recorded
+	 */
+	public long getPercentile(double aPercentile) {
+		long theTotal = 0;
+		for (int i = 0; i < NUM_BUCKETS; i++) {
+			theTotal += this.buckets.get(i);
+		}
+		if (theTotal == 0) {
+			return 0;
+		}
+
+		long theRank = (long) Math.ceil(theTotal * aPercentile / 100.0);
+		if (theRank < 1) {
+			theRank = 1;
+		}
+
+		long theSeen = 0;
+		for (int i = 0; i < NUM_BUCKETS; i++) {
+			theSeen += this.buckets.get(i);
+			if (theSeen >= theRank) {
+				long theLower = bucketLowerBound(i);
+				long theValue = theLower
+						+ (bucketLowerBound(i + 1) - theLower) / 2;
+				return Math.min(theValue, this.max.get());
+			}
+		}
+
+		return this.max.get();
+	}
+
+	public void reset() {
+		for (int i = 0; i < NUM_BUCKETS; i++) {
+			this.buckets.set(i, 0);
+		}
+		this.count.set(0);
+		this.sum.set(0);
+		this.max.set(0);
+	}
+
+	/**
+	 * Gets the index of the bucket of a value.
+	 *
+	 * @param aValue
+	 *            Non-negative value
+	 *
+	 * @return Bucket index
+	 */
+	static int bucketIndex(long aValue) {
+		if (aValue < SUB_BUCKETS) {
+			return (int) aValue;
+		}
+
+		int theExp = 63 - Long.numberOfLeadingZeros(aValue);
+		int theSub = (int) (aValue >>> (theExp - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (theExp - SUB_BITS + 1) * SUB_BUCKETS + theSub;
+	}
+
+	/**
+	 * Gets the smallest value of a bucket.
+	 *
+	 * @param aIndex
+	 *            Bucket index, which may be the number of buckets to get the
+	 *            upper bound of the last bucket
+	 *
+	 * @return Smallest value of the bucket
+	 */
+	static long bucketLowerBound(int aIndex) {
+		if (aIndex < SUB_BUCKETS) {
+			return aIndex;
+		}
+		if (aIndex >= NUM_BUCKETS) {
+			return Long.MAX_VALUE;
+		}
+
+		int theExp = aIndex / SUB_BUCKETS + SUB_BITS - 1;
+		long theSub = aIndex % SUB_BUCKETS;
+		return (SUB_BUCKETS + theSub) << (theExp - SUB_BITS);
+	}
+
+}
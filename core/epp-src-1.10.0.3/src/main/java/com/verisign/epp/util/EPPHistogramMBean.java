@@ -0,0 +1,83 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+/**
+ * JMX management interface of an {@link EPPHistogram}. The latencies are
+ * reported in microseconds.
+ */
+public interface EPPHistogramMBean {
+
+	/**
+	 * Gets the number of recorded values.
+	 *
+	 * @return Number of recorded values
+	 */
+	public long getCount();
+
+	/**
+	 * Gets the mean of the recorded values.
+	 *
+	 * @return Mean in microseconds, or <code>0</code> if no value was
+	 *         recorded
+	 */
+	public double getMeanMicros();
+
+	/**
+	 * Gets the maximum of the recorded values.
+	 *
+	 * @return Maximum in microseconds
+	 */
+	public double getMaxMicros();
+
+	/**
+	 * Gets the median of the recorded values.
+	 *
+	 * @return 50th percentile in microseconds
+	 */
+	public double get50thPercentileMicros();
+
+	/**
+	 * Gets the 90th percentile of the recorded values.
+	 *
+	 * @return 90th percentile in microseconds
+	 */
+	public double get90thPercentileMicros();
+
+	/**
+	 * Gets the 99th percentile of the recorded values.
+	 *
+	 * @return 99th percentile in microseconds
+	 */
+	public double get99thPercentileMicros();
+
+	/**
+	 * Gets the 99.9th percentile of the recorded values.
+	 *
+	 * @return 99.9th percentile in microseconds
+	 */
+	public double get999thPercentileMicros();
+
+	/**
+	 * Clears the recorded values.
+	 */
+	public void reset();
+
+}
@@ -0,0 +1,315 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Default <code>EPPMetrics</code> that keeps the metrics in memory and
+ * registers each of them as an MBean with the platform MBean server the
+ * first time it is recorded. The MBeans are registered in the
+ * {@link #DOMAIN} domain with the following object names: <br>
+ * <br>
+ * <ul>
+ * <li><code>type=Command,command=&lt;type&gt;,namespace=&lt;namespace&gt;,phase=&lt;phase&gt;</code>
+ * - {@link EPPHistogramMBean} of the latency of a phase of a command</li>
+ * <li><code>type=Result,command=&lt;type&gt;,namespace=&lt;namespace&gt;,code=&lt;code&gt;</code>
+ * - {@link EPPCounterMBean} of the responses with a result code</li>
+ * <li><code>type=SessionPool,name=&lt;pool&gt;</code> -
+ * {@link EPPPoolMetricsMBean} of a session pool</li>
+ * <li><code>type=SessionPool,name=&lt;pool&gt;,metric=borrowWait</code> -
+ * {@link EPPHistogramMBean} of the borrow wait time of a session pool</li>
+ * <li><code>type=ParserPool,name=&lt;pool&gt;,metric=checkoutWait</code> -
+ * {@link EPPHistogramMBean} of the checkout wait time of a parser or
+ * transformer pool</li>
+ * </ul>
+ * <br>
+ * An error registering an MBean is logged and the metric is still recorded,
+ * so it can be read with the <code>get</code> methods.
+ */
+public class EPPJmxMetrics implements EPPMetrics {
+
+	/** JMX domain of the MBeans */
+	public static final String DOMAIN = "com.verisign.epp";
+
+	/** Value used for a <code>null</code> command type or namespace */
+	private static final String NONE = "none";
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPJmxMetrics.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/** MBean server to register the MBeans with */
+	private MBeanServer server;
+
+	/** Command phase histograms by type, namespace and phase */
+	private ConcurrentMap<String, EPPHistogram> commands = new ConcurrentHashMap<String, EPPHistogram>();
+
+	/** Result code counters by type, namespace and code */
+	private ConcurrentMap<String, EPPCounter> results = new ConcurrentHashMap<String, EPPCounter>();
+
+	/** Session pool metrics by pool name */
+	private ConcurrentMap<String, EPPPoolMetrics> pools = new ConcurrentHashMap<String, EPPPoolMetrics>();
+
+	/** Session pool borrow wait histograms by pool name */
+	private ConcurrentMap<String, EPPHistogram> poolBorrows = new ConcurrentHashMap<String, EPPHistogram>();
+
+	/** Parser pool checkout wait histograms by pool name */
+	private ConcurrentMap<String, EPPHistogram> parserCheckouts = new ConcurrentHashMap<String, EPPHistogram>();
+
+	/**
+	 * Creates metrics that register the MBeans with the platform MBean
+	 * server.
+	 */
+	public EPPJmxMetrics() {
+		this(ManagementFactory.getPlatformMBeanServer());
+	}
+
+	/**
+	 * Creates metrics that register the MBeans with an MBean server.
+	 *
+	 * @param aServer
+	 *            MBean server or <code>null</code> to not register the
+	 *            MBeans
+	 */
+	public EPPJmxMetrics(MBeanServer aServer) {
+		this.server = aServer;
+	}
+
+	public void recordCommand(String aType, String aNamespace, String aPhase,
+			long aNanos) {
+		this.getCommandHistogram(aType, aNamespace, aPhase).record(aNanos);
+	}
+
+	public void recordResult(String aType, String aNamespace, int aCode) {
+		this.getResultCounter(aType, aNamespace, aCode).increment();
+	}
+
+	public void registerPool(String aName, PoolGauge aGauge) {
+		this.getPoolMetrics(aName).setGauge(aGauge);
+	}
+
+	public void unregisterPool(String aName) {
+		this.getPoolMetrics(aName).setGauge(null);
+	}
+
+	public void recordPoolBorrow(String aName, long aNanos) {
+		this.getPoolBorrowHistogram(aName).record(aNanos);
+	}
+
+	public void recordPoolMake(String aName) {
+		this.getPoolMetrics(aName).made();
+	}
+
+	public void recordPoolDestroy(String aName) {
+		this.getPoolMetrics(aName).destroyed();
+	}
+
+	public void recordParserCheckout(String aName, long aNanos) {
+		this.getParserCheckoutHistogram(aName).record(aNanos);
+	}
+
+	/**
+	 * Gets the latency histogram of a phase of a command, creating and
+	 * registering it on first use.
+	 *
+	 * @param aType
+	 *            Command type
+	 * @param aNamespace
+	 *            Namespace of the command, which may be <code>null</code>
+	 * @param aPhase
+	 *            One of the <code>EPPMetrics.PHASE</code> constants
+	 *
+	 * @return Latency histogram
+	 */
+	public EPPHistogram getCommandHistogram(String aType, String aNamespace,
+			String aPhase) {
+		String theType = aType == null ? NONE : aType;
+		String theNamespace = aNamespace == null ? NONE : aNamespace;
+		String theKey = theType + '|' + theNamespace + '|' + aPhase;
+
+		EPPHistogram theHistogram = this.commands.get(theKey);
+		if (theHistogram == null) {
+			theHistogram = this.register(this.commands, theKey,
+					new EPPHistogram(), "type=Command,command="
+							+ quote(theType) + ",namespace="
+							+ quote(theNamespace) + ",phase=" + quote(aPhase));
+		}
+		return theHistogram;
+	}
+
+	/**
+	 * Gets the counter of the responses to a command with a result code,
+	 * creating and registering it on first use.
+	 *
+	 * @param aType
+	 *            Command type
+	 * @param aNamespace
+	 *            Namespace of the command, which may be <code>null</code>
+	 * @param aCode
+	 *            Result code
+	 *
+	 * @return Result code counter
+	 */
+	public EPPCounter getResultCounter(String aType, String aNamespace,
+			int aCode) {
+		String theType = aType == null ? NONE : aType;
+		String theNamespace = aNamespace == null ? NONE : aNamespace;
+		String theKey = theType + '|' + theNamespace + '|' + aCode;
+
+		EPPCounter theCounter = this.results.get(theKey);
+		if (theCounter == null) {
+			theCounter = this.register(this.results, theKey, new EPPCounter(),
+					"type=Result,command=" + quote(theType) + ",namespace="
+							+ quote(theNamespace) + ",code=" + aCode);
+		}
+		return theCounter;
+	}
+
+	/**
+	 * Gets the metrics of a session pool, creating and registering them on
+	 * first use.
+	 *
+	 * @param aName
+	 *            Pool name
+	 *
+	 * @return Session pool metrics
+	 */
+	public EPPPoolMetrics getPoolMetrics(String aName) {
+		EPPPoolMetrics theMetrics = this.pools.get(aName);
+		if (theMetrics == null) {
+			theMetrics = this.register(this.pools, aName,
+					new EPPPoolMetrics(), "type=SessionPool,name="
+							+ quote(aName));
+		}
+		return theMetrics;
+	}
+
+	/**
+	 * Gets the borrow wait histogram of a session pool, creating and
+	 * registering it on first use.
+	 *
+	 * @param aName
+	 *            Pool name
+	 *
+	 * @return Borrow wait histogram
+	 */
+	public EPPHistogram getPoolBorrowHistogram(String aName) {
+		EPPHistogram theHistogram = this.poolBorrows.get(aName);
+		if (theHistogram == null) {
+			theHistogram = this.register(this.poolBorrows, aName,
+					new EPPHistogram(), "type=SessionPool,name="
+							+ quote(aName) + ",metric=borrowWait");
+		}
+		return theHistogram;
+	}
+
+	/**
+	 * Gets the checkout wait histogram of a parser or transformer pool,
+	 * creating and registering it on first use.
+	 *
+	 * @param aName
+	 *            Parser pool name
+	 *
+	 * @return Checkout wait histogram
+	 */
+	public EPPHistogram getParserCheckoutHistogram(String aName) {
+		EPPHistogram theHistogram = this.parserCheckouts.get(aName);
+		if (theHistogram == null) {
+			theHistogram = this.register(this.parserCheckouts, aName,
+					new EPPHistogram(), "type=ParserPool,name="
+							+ quote(aName) + ",metric=checkoutWait");
+		}
+		return theHistogram;
+	}
+
+	/**
+	 * Adds a metric to a map if no other thread added it first, and
+	 * registers the added metric as an MBean, replacing an MBean with the
+	 * same name.
+	 *
+	 * @param aMap
+	 *            Map to add the metric to
+	 * @param aKey
+	 *            Key of the metric
+	 * @param aMetric
+	 *            Metric to add
+	 * @param aProperties
+	 *            Key properties of the object name of the MBean
+	 *
+	 * @return Metric of the map
+	 */
+	private <T> T register(ConcurrentMap<String, T> aMap, String aKey,
+			T aMetric, String aProperties) {
+		T thePrev = aMap.putIfAbsent(aKey, aMetric);
+		if (thePrev != null) {
+			return thePrev;
+		}
+
+		if (this.server != null) {
+			try {
+				ObjectName theName = new ObjectName(DOMAIN + ":" + aProperties);
+				if (this.server.isRegistered(theName)) {
+					this.server.unregisterMBean(theName);
+				}
+				this.server.registerMBean(aMetric, theName);
+			}
+			catch (Exception ex) {
+				cat.error("register(): Error registering MBean for "
+						+ aProperties + ": " + ex);
+			}
+		}
+
+		return aMetric;
+	}
+
+	/**
+	 * Quotes a value of an object name when it contains characters that are
+	 * not allowed in an unquoted value, like the colon of a namespace URI.
+	 *
+	 * @param aValue
+	 *            Value to quote
+	 *
+	 * @return Value that can be used in an object name
+	 */
+	private static String quote(String aValue) {
+		for (int i = 0; i < aValue.length(); i++) {
+			switch (aValue.charAt(i)) {
+				case ',':
+				case '=':
+				case ':':
+				case '"':
+				case '*':
+				case '?':
+				case '\n':
+					return ObjectName.quote(aValue);
+			}
+		}
+		return aValue;
+	}
+
+}
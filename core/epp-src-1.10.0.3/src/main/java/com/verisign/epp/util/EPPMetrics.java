@@ -0,0 +1,171 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+/**
+ * Service provider interface for recording the latency and throughput
+ * metrics of the SDK. The SDK calls the <code>EPPMetrics</code> returned by
+ * {@link EPPMetricsManager#getMetrics()} to record: <br>
+ * <br>
+ * <ul>
+ * <li>The latency of each phase of a command, per command type and
+ * namespace, with {@link #recordCommand(String, String, String, long)}. The
+ * phases are the <code>PHASE</code> constants.</li>
+ * <li>The result codes of the responses, per command type and namespace,
+ * with {@link #recordResult(String, String, int)}.</li>
+ * <li>The borrow wait time, active and idle counts, and the number of
+ * sessions made and destroyed of the session pools.</li>
+ * <li>The checkout wait time of the XML parser and transformer pools.</li>
+ * </ul>
+ * <br>
+ * The implementation is set with the <code>EPP.MetricsClassName</code>
+ * property, and defaults to {@link EPPJmxMetrics}. All of the methods are
+ * called concurrently from the client threads, so an implementation must be
+ * thread-safe and should not block.
+ */
+public interface EPPMetrics {
+
+	/**
+	 * Encode of the command to XML, including the serialization of the DOM
+	 * Document.
+	 */
+	public static final String PHASE_ENCODE = "encode";
+
+	/** Write of the encoded command to the connection */
+	public static final String PHASE_WRITE = "write";
+
+	/**
+	 * Wait for the response, from the end of the write of the command to the
+	 * read of the complete response packet.
+	 */
+	public static final String PHASE_WAIT = "wait";
+
+	/**
+	 * Parse of the response packet to a DOM Document, or the validation of
+	 * the packet when the response is decoded without DOM.
+	 */
+	public static final String PHASE_PARSE = "parse";
+
+	/** Decode of the response to an <code>EPPResponse</code> */
+	public static final String PHASE_DECODE = "decode";
+
+	/**
+	 * Gauge of the number of active and idle objects of a pool.
+	 */
+	public static interface PoolGauge {
+
+		/**
+		 * Gets the number of objects borrowed from the pool.
+		 *
+		 * @return Number of active objects
+		 */
+		public int getNumActive();
+
+		/**
+		 * Gets the number of objects idle in the pool.
+		 *
+		 * @return Number of idle objects
+		 */
+		public int getNumIdle();
+	}
+
+	/**
+	 * Records the latency of a phase of a command.
+	 *
+	 * @param aType
+	 *            Command type, like <code>check</code> or <code>info</code>
+	 * @param aNamespace
+	 *            Namespace of the command, which may be <code>null</code>
+	 * @param aPhase
+	 *            One of the <code>PHASE</code> constants
+	 * @param aNanos
+	 *            Latency in nanoseconds
+	 */
+	public void recordCommand(String aType, String aNamespace, String aPhase,
+			long aNanos);
+
+	/**
+	 * Records the result code of the response of a command.
+	 *
+	 * @param aType
+	 *            Command type, like <code>check</code> or <code>info</code>
+	 * @param aNamespace
+	 *            Namespace of the command, which may be <code>null</code>
+	 * @param aCode
+	 *            Result code of the response, like <code>1000</code>
+	 */
+	public void recordResult(String aType, String aNamespace, int aCode);
+
+	/**
+	 * Registers a session pool, replacing a pool with the same name.
+	 *
+	 * @param aName
+	 *            Pool name
+	 * @param aGauge
+	 *            Gauge of the number of active and idle sessions
+	 */
+	public void registerPool(String aName, PoolGauge aGauge);
+
+	/**
+	 * Unregisters a session pool when it is closed.
+	 *
+	 * @param aName
+	 *            Pool name
+	 */
+	public void unregisterPool(String aName);
+
+	/**
+	 * Records the time waited to borrow a session from a pool.
+	 *
+	 * @param aName
+	 *            Pool name
+	 * @param aNanos
+	 *            Wait time in nanoseconds
+	 */
+	public void recordPoolBorrow(String aName, long aNanos);
+
+	/**
+	 * Records that a session was made for a pool.
+	 *
+	 * @param aName
+	 *            Pool name
+	 */
+	public void recordPoolMake(String aName);
+
+	/**
+	 * Records that a session of a pool was destroyed.
+	 *
+	 * @param aName
+	 *            Pool name
+	 */
+	public void recordPoolDestroy(String aName);
+
+	/**
+	 * Records the time waited to check out an XML parser or transformer from
+	 * a parser pool.
+	 *
+	 * @param aName
+	 *            Parser pool name
+	 * @param aNanos
+	 *            Wait time in nanoseconds
+	 */
+	public void recordParserCheckout(String aName, long aNanos);
+
+}
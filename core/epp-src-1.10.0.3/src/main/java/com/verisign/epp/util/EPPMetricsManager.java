@@ -0,0 +1,105 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Holds the <code>EPPMetrics</code> used by the SDK. The metrics are created
+ * on first use from the class set with the <code>EPP.MetricsClassName</code>
+ * property, which defaults to {@link EPPJmxMetrics}, or can be set with
+ * {@link #setMetrics(EPPMetrics)} before the SDK is used.
+ */
+public class EPPMetricsManager {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPMetricsManager.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/** Metrics used by the SDK, created on first use */
+	private static volatile EPPMetrics metrics = null;
+
+	/**
+	 * Not instantiated, since all of the methods are static.
+	 */
+	private EPPMetricsManager() {
+	}
+
+	/**
+	 * Gets the metrics used by the SDK, creating them from the
+	 * <code>EPP.MetricsClassName</code> property on first use. An
+	 * {@link EPPNullMetrics} is used when the class can't be created.
+	 *
+	 * @return Metrics used by the SDK
+	 */
+	public static EPPMetrics getMetrics() {
+		EPPMetrics theMetrics = metrics;
+
+		if (theMetrics == null) {
+			synchronized (EPPMetricsManager.class) {
+				theMetrics = metrics;
+				if (theMetrics == null) {
+					theMetrics = createMetrics(EPPEnv.getMetricsClassName());
+					metrics = theMetrics;
+				}
+			}
+		}
+
+		return theMetrics;
+	}
+
+	/**
+	 * Sets the metrics used by the SDK, replacing the metrics created from
+	 * the <code>EPP.MetricsClassName</code> property.
+	 *
+	 * @param aMetrics
+	 *            Metrics to use or <code>null</code> to create the metrics
+	 *            from the <code>EPP.MetricsClassName</code> property on next
+	 *            use
+	 */
+	public static void setMetrics(EPPMetrics aMetrics) {
+		metrics = aMetrics;
+	}
+
+	/**
+	 * Creates the metrics from a class name.
+	 *
+	 * @param aClassName
+	 *            Fully qualified name of a class that implements
+	 *            <code>EPPMetrics</code> with a default constructor
+	 *
+	 * @return Created metrics, or an <code>EPPNullMetrics</code> if the class
+	 *         can't be created
+	 */
+	private static EPPMetrics createMetrics(String aClassName) {
+		try {
+			EPPMetrics theMetrics = (EPPMetrics) Class.forName(aClassName)
+					.newInstance();
+			cat.info("createMetrics(): Created metrics " + aClassName);
+			return theMetrics;
+		}
+		catch (Exception ex) {
+			cat.error("createMetrics(): Error creating metrics " + aClassName
+					+ ", metrics are disabled: " + ex);
+			return new EPPNullMetrics();
+		}
+	}
+
+}
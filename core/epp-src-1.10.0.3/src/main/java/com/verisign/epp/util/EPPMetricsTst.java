@@ -0,0 +1,260 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+//----------------------------------------------
+//
+// imports...
+//
+//----------------------------------------------
+
+// Java Core Imports
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+// JUNIT Imports
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Is a unit test of <code>EPPHistogram</code> and <code>EPPJmxMetrics</code>.
+ * The metrics are registered with a private MBean server, so the test does
+ * not depend on the MBeans registered in the platform MBean server.
+ */
+public class EPPMetricsTst extends TestCase {
+
+	/**
+	 * Number of unit test iterations to run. This is set with the
+	 * <code>iterations</code> system property.
+	 */
+	static private long numIterations = 1;
+
+	/** Namespace used for the command metrics */
+	private static final String NS = "urn:ietf:params:xml:ns:domain-1.0";
+
+	/**
+	 * Allocates a new instance of <code>EPPMetricsTst</code>.
+	 *
+	 * @param name
+	 *            Name of test
+	 */
+	public EPPMetricsTst(String name) {
+		super(name);
+	}
+
+	/**
+	 * Records the values 1 to 1000 microseconds and verifies the count, mean,
+	 * maximum and that the percentiles are within the 12.5% precision of the
+	 * histogram.
+	 */
+	public void testHistogram() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			EPPHistogram theHistogram = new EPPHistogram();
+
+			for (int i = 1; i <= 1000; i++) {
+				theHistogram.record(i * 1000L);
+			}
+
+			Assert.assertEquals(1000, theHistogram.getCount());
+			Assert.assertEquals(500.5, theHistogram.getMeanMicros(), 0.001);
+			Assert.assertEquals(1000.0, theHistogram.getMaxMicros(), 0.001);
+			assertPercentile(500, theHistogram.get50thPercentileMicros());
+			assertPercentile(900, theHistogram.get90thPercentileMicros());
+			assertPercentile(990, theHistogram.get99thPercentileMicros());
+			assertPercentile(999, theHistogram.get999thPercentileMicros());
+
+			theHistogram.reset();
+			Assert.assertEquals(0, theHistogram.getCount());
+			Assert.assertEquals(0.0, theHistogram.get99thPercentileMicros(),
+					0.0);
+		}
+	}
+
+	/**
+	 * Verifies that every bucket lower bound maps back to its bucket.
+	 */
+	public void testBuckets() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			for (int i = 0; i < EPPHistogram.NUM_BUCKETS; i++) {
+				long theLower = EPPHistogram.bucketLowerBound(i);
+				Assert.assertEquals("lower bound of bucket " + i, i, EPPHistogram
+						.bucketIndex(theLower));
+				Assert.assertEquals("upper bound of bucket " + i, i, EPPHistogram
+						.bucketIndex(EPPHistogram.bucketLowerBound(i + 1) - 1));
+			}
+		}
+	}
+
+	/**
+	 * Records command phases and result codes with <code>EPPJmxMetrics</code>
+	 * and verifies that they are read from the registered MBeans.
+	 *
+	 * @throws Exception
+	 *             Error reading an MBean attribute
+	 */
+	public void testCommandMBeans() throws Exception {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			MBeanServer theServer = MBeanServerFactory.newMBeanServer();
+			EPPJmxMetrics theMetrics = new EPPJmxMetrics(theServer);
+
+			for (int i = 0; i < 10; i++) {
+				theMetrics.recordCommand("check", NS, EPPMetrics.PHASE_WAIT,
+						2000000);
+				theMetrics.recordResult("check", NS, 1000);
+			}
+			theMetrics.recordResult("check", NS, 2303);
+			theMetrics.recordCommand("hello", null, EPPMetrics.PHASE_ENCODE, 1000);
+
+			ObjectName theName = new ObjectName(EPPJmxMetrics.DOMAIN
+					+ ":type=Command,command=check,namespace="
+					+ ObjectName.quote(NS) + ",phase=wait");
+			Assert.assertEquals(new Long(10), theServer.getAttribute(theName,
+					"Count"));
+			Assert.assertEquals(2000.0, ((Double) theServer.getAttribute(theName,
+					"MeanMicros")).doubleValue(), 0.001);
+
+			theName = new ObjectName(EPPJmxMetrics.DOMAIN
+					+ ":type=Result,command=check,namespace="
+					+ ObjectName.quote(NS) + ",code=2303");
+			Assert.assertEquals(new Long(1), theServer.getAttribute(theName,
+					"Count"));
+			Assert.assertEquals(10, theMetrics.getResultCounter("check", NS, 1000)
+					.getCount());
+
+			Assert.assertEquals(1, theMetrics.getCommandHistogram("hello", null,
+					EPPMetrics.PHASE_ENCODE).getCount());
+		}
+	}
+
+	/**
+	 * Registers a session pool with <code>EPPJmxMetrics</code> and verifies
+	 * the active and idle counts, the make and destroy counts, and the borrow
+	 * wait histogram.
+	 *
+	 * @throws Exception
+	 *             Error reading an MBean attribute
+	 */
+	public void testPoolMBeans() throws Exception {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			MBeanServer theServer = MBeanServerFactory.newMBeanServer();
+			EPPJmxMetrics theMetrics = new EPPJmxMetrics(theServer);
+
+			theMetrics.registerPool("test", new EPPMetrics.PoolGauge() {
+
+				public int getNumActive() {
+					return 3;
+				}
+
+				public int getNumIdle() {
+					return 7;
+				}
+			});
+			theMetrics.recordPoolMake("test");
+			theMetrics.recordPoolMake("test");
+			theMetrics.recordPoolDestroy("test");
+			theMetrics.recordPoolBorrow("test", 5000);
+			theMetrics.recordParserCheckout(EPPSchemaCachingParser.POOL, 1000);
+
+			ObjectName theName = new ObjectName(EPPJmxMetrics.DOMAIN
+					+ ":type=SessionPool,name=test");
+			Assert.assertEquals(new Integer(3), theServer.getAttribute(theName,
+					"NumActive"));
+			Assert.assertEquals(new Integer(7), theServer.getAttribute(theName,
+					"NumIdle"));
+			Assert.assertEquals(new Long(2), theServer.getAttribute(theName,
+					"MakeCount"));
+			Assert.assertEquals(new Long(1), theServer.getAttribute(theName,
+					"DestroyCount"));
+
+			theName = new ObjectName(EPPJmxMetrics.DOMAIN
+					+ ":type=SessionPool,name=test,metric=borrowWait");
+			Assert.assertEquals(new Long(1), theServer.getAttribute(theName,
+					"Count"));
+			Assert.assertEquals(1, theMetrics.getParserCheckoutHistogram(
+					EPPSchemaCachingParser.POOL).getCount());
+
+			theMetrics.unregisterPool("test");
+			Assert.assertEquals(-1, theMetrics.getPoolMetrics("test")
+					.getNumActive());
+		}
+	}
+
+	/**
+	 * Asserts that a percentile is within the 12.5% precision of the
+	 * histogram.
+	 *
+	 * @param aExpected
+	 *            Expected percentile in microseconds
+	 * @param aActual
+	 *            Percentile of the histogram in microseconds
+	 */
+	private static void assertPercentile(double aExpected, double aActual) {
+		Assert.assertTrue("percentile " + aActual + " not within 12.5% of "
+				+ aExpected, Math.abs(aActual - aExpected) <= aExpected
+				* EPPHistogram.PRECISION);
+	}
+
+	/**
+	 * JUNIT <code>suite</code> static method, which returns the tests
+	 * associated with <code>EPPMetricsTst</code>.
+	 *
+	 * @return Test suite
+	 */
+	public static Test suite() {
+		TestSuite suite = new TestSuite(EPPMetricsTst.class);
+
+		// iterations Property
+		String numIterProp = System.getProperty("iterations");
+
+		if (numIterProp != null) {
+			numIterations = Integer.parseInt(numIterProp);
+		}
+
+		return suite;
+	}
+
+	/**
+	 * Unit test main, which accepts the following system property options:<br>
+	 *
+	 * <ul>
+	 * <li>iterations Number of unit test iterations to run</li>
+	 * </ul>
+	 *
+	 * @param args
+	 *            Not used
+	 */
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(EPPMetricsTst.suite());
+	}
+
+	/**
+	 * Sets the number of iterations to run per test.
+	 *
+	 * @param aNumIterations
+	 *            number of iterations to run per test
+	 */
+	public static void setNumIterations(long aNumIterations) {
+		numIterations = aNumIterations;
+	}
+
+} // End class EPPMetricsTst
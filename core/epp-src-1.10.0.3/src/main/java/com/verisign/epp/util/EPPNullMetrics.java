@@ -0,0 +1,55 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+/**
+ * <code>EPPMetrics</code> that discards all of the metrics, which is used
+ * when the <code>EPP.MetricsClassName</code> property is set to
+ * <code>com.verisign.epp.util.EPPNullMetrics</code> or the configured class
+ * can't be created.
+ */
+public class EPPNullMetrics implements EPPMetrics {
+
+	public void recordCommand(String aType, String aNamespace, String aPhase,
+			long aNanos) {
+	}
+
+	public void recordResult(String aType, String aNamespace, int aCode) {
+	}
+
+	public void registerPool(String aName, PoolGauge aGauge) {
+	}
+
+	public void unregisterPool(String aName) {
+	}
+
+	public void recordPoolBorrow(String aName, long aNanos) {
+	}
+
+	public void recordPoolMake(String aName) {
+	}
+
+	public void recordPoolDestroy(String aName) {
+	}
+
+	public void recordParserCheckout(String aName, long aNanos) {
+	}
+
+}
@@ -0,0 +1,96 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+/**
+ * Pool of XML parsers or transformers, like
+ * <code>EPPSchemaCachingParser</code> and <code>EPPTransformer</code>
+ * instances, that are borrowed for a single decode or encode. The pools are
+ * created and looked up by name with <code>EPPParserPoolManager</code>. <br>
+ * <br>
+ * The implementations include:<br>
+ * <br>
+ * <ul>
+ * <li><code>EPPStripedParserPool</code> - Lock-free bounded pool (default)</li>
+ * <li><code>EPPThreadLocalParserPool</code> - One pooled object per thread</li>
+ * <li><code>EPPPoolManParserPool</code> - PoolMan <code>GenericPool</code></li>
+ * </ul>
+ * <br>
+ * Each pool keeps track of the number of borrows and the time spent waiting
+ * to borrow an object, which includes creating a new object when none is
+ * idle.
+ *
+ * @see EPPParserPoolManager
+ */
+public interface EPPParserPool {
+
+	/**
+	 * Gets the name of the pool.
+	 *
+	 * @return Pool name
+	 */
+	public String getName();
+
+	/**
+	 * Borrows an object from the pool, which must be returned with
+	 * {@link #returnObject(Object)} when done.
+	 *
+	 * @return Borrowed object
+	 *
+	 * @throws EPPParserException
+	 *             Error creating an object or timeout waiting for an object
+	 */
+	public Object borrowObject() throws EPPParserException;
+
+	/**
+	 * Returns an object borrowed with {@link #borrowObject()} to the pool.
+	 *
+	 * @param aObject
+	 *            Borrowed object
+	 */
+	public void returnObject(Object aObject);
+
+	/**
+	 * Gets the number of objects borrowed from the pool.
+	 *
+	 * @return Number of borrows
+	 */
+	public long getNumBorrows();
+
+	/**
+	 * Gets the total time in nanoseconds spent waiting to borrow objects.
+	 *
+	 * @return Total borrow wait time in nanoseconds
+	 */
+	public long getBorrowWaitTime();
+
+	/**
+	 * Gets the longest time in nanoseconds spent waiting to borrow an object.
+	 *
+	 * @return Maximum borrow wait time in nanoseconds
+	 */
+	public long getMaxBorrowWaitTime();
+
+	/**
+	 * Closes the pool and releases the idle objects.
+	 */
+	public void close();
+
+} // End interface EPPParserPool
@@ -0,0 +1,192 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+
+import com.codestudio.util.GenericPoolMetaData;
+
+/**
+ * Singleton registry of the <code>EPPParserPool</code> instances by name,
+ * which replaces <code>GenericPoolManager</code> for the XML parser and
+ * transformer pools. Looking up a pool is a single
+ * <code>ConcurrentHashMap</code> get. <br>
+ * <br>
+ * {@link #createPool(GenericPoolMetaData)} creates a pool of the type
+ * defined by <code>EPP.ParserPoolType</code> from the PoolMan settings
+ * (<code>PoolMan.Client.*</code>, <code>PoolMan.Server.*</code> or
+ * <code>PoolMan.XMLSignature.*</code>). The striped pool uses the
+ * <code>initialObjects</code>, <code>maximumSize</code>,
+ * <code>maximumSoft</code> and <code>userTimeout</code> settings, where
+ * <code>userTimeout</code> is the maximum time in seconds to wait for an
+ * object when <code>maximumSoft</code> is <code>false</code>. The
+ * thread-local pool does not use any of the settings, and the PoolMan pool
+ * uses all of them.
+ *
+ * @see EPPEnv#getParserPoolType()
+ */
+public class EPPParserPoolManager {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPParserPoolManager.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/** Pool type of <code>EPPStripedParserPool</code> */
+	public static final String TYPE_STRIPED = "striped";
+
+	/** Pool type of <code>EPPThreadLocalParserPool</code> */
+	public static final String TYPE_THREADLOCAL = "threadlocal";
+
+	/** Pool type of <code>EPPPoolManParserPool</code> */
+	public static final String TYPE_POOLMAN = "poolman";
+
+	/**
+	 * <code>EPPParserPoolManager</code> instance as part of the
+	 * <i>Singleton Design Pattern</i>.
+	 */
+	private static EPPParserPoolManager instance = new EPPParserPoolManager();
+
+	/** Pools by name */
+	private final ConcurrentHashMap<String, EPPParserPool> pools = new ConcurrentHashMap<String, EPPParserPool>();
+
+	/**
+	 * Default constructor as part of the <i>Singleton Design Pattern</i>.
+	 */
+	protected EPPParserPoolManager() {
+	}
+
+	/**
+	 * Gets the <i>Singleton Design Pattern</i> instance.
+	 *
+	 * @return <code>EPPParserPoolManager</code> instance
+	 */
+	public static EPPParserPoolManager getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Creates and adds a pool of the type defined by
+	 * <code>EPP.ParserPoolType</code>.
+	 *
+	 * @param aMeta
+	 *            Pool name, object type and PoolMan settings
+	 *
+	 * @return Created pool
+	 */
+	public EPPParserPool createPool(GenericPoolMetaData aMeta) {
+		return createPool(EPPEnv.getParserPoolType(), aMeta);
+	}
+
+	/**
+	 * Creates and adds a pool of type <code>aType</code>, replacing and
+	 * closing a pool with the same name. An unknown type is logged and
+	 * creates a striped pool.
+	 *
+	 * @param aType
+	 *            One of the <code>TYPE</code> constants
+	 * @param aMeta
+	 *            Pool name, object type and PoolMan settings
+	 *
+	 * @return Created pool
+	 */
+	public EPPParserPool createPool(String aType, GenericPoolMetaData aMeta) {
+		EPPParserPool thePool;
+
+		if (TYPE_POOLMAN.equalsIgnoreCase(aType)) {
+			thePool = new EPPPoolManParserPool(aMeta);
+		}
+		else if (TYPE_THREADLOCAL.equalsIgnoreCase(aType)) {
+			thePool = new EPPThreadLocalParserPool(aMeta.getName(), aMeta
+					.getObjectType());
+		}
+		else {
+			if (!TYPE_STRIPED.equalsIgnoreCase(aType)) {
+				cat.error("createPool(): Unknown pool type " + aType
+						+ ", using " + TYPE_STRIPED);
+			}
+			thePool = new EPPStripedParserPool(aMeta.getName(), aMeta
+					.getObjectType(), aMeta.getInitialObjects(), aMeta
+					.getMaximumSize(), aMeta.isMaximumSoft(), aMeta
+					.getUserTimeout() * 1000L);
+		}
+
+		cat.info("createPool(): Created " + thePool);
+
+		addPool(thePool);
+		return thePool;
+	}
+
+	/**
+	 * Adds a pool, replacing and closing a pool with the same name.
+	 *
+	 * @param aPool
+	 *            Pool to add
+	 */
+	public void addPool(EPPParserPool aPool) {
+		EPPParserPool theOldPool = this.pools.put(aPool.getName(), aPool);
+
+		if (theOldPool != null && theOldPool != aPool) {
+			cat.info("addPool(): Closing replaced pool " + theOldPool);
+			theOldPool.close();
+		}
+	}
+
+	/**
+	 * Gets a pool by name.
+	 *
+	 * @param aName
+	 *            Pool name
+	 *
+	 * @return Pool if found; <code>null</code> otherwise.
+	 */
+	public EPPParserPool getPool(String aName) {
+		if (aName == null) {
+			return null;
+		}
+		return this.pools.get(aName);
+	}
+
+	/**
+	 * Removes and closes a pool.
+	 *
+	 * @param aName
+	 *            Pool name
+	 */
+	public void removePool(String aName) {
+		EPPParserPool thePool = this.pools.remove(aName);
+
+		if (thePool != null) {
+			thePool.close();
+		}
+	}
+
+	/**
+	 * Gets the pools, which can be used to report the borrow statistics.
+	 *
+	 * @return <code>Iterator</code> of <code>EPPParserPool</code> instances
+	 */
+	public Iterator<EPPParserPool> getPools() {
+		return this.pools.values().iterator();
+	}
+
+} // End class EPPParserPoolManager
@@ -0,0 +1,296 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+//----------------------------------------------
+//
+// imports...
+//
+//----------------------------------------------
+
+// Java Core Imports
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+// JUNIT Imports
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import com.codestudio.util.GenericPoolMetaData;
+
+/**
+ * Is a unit test and benchmark of the <code>EPPParserPool</code>
+ * implementations. Each pool type is used concurrently by
+ * <code>NUM_THREADS</code> threads, and the test verifies that an object is
+ * never borrowed by two threads at the same time and reports the borrow
+ * throughput and wait time.
+ */
+public class EPPParserPoolTst extends TestCase {
+
+	/**
+	 * Number of unit test iterations to run. This is set with the
+	 * <code>iterations</code> system property.
+	 */
+	static private long numIterations = 1;
+
+	/** Name of configuration file to use for test (default = epp.config). */
+	private static String configFileName = "epp.config";
+
+	/** Number of threads borrowing objects concurrently */
+	private static final int NUM_THREADS = 16;
+
+	/** Number of borrows per thread */
+	private static final int NUM_BORROWS = 100000;
+
+	/** Maximum size of the bounded pools */
+	private static final int MAX_SIZE = 4;
+
+	/**
+	 * Allocates a new instance of <code>EPPParserPoolTst</code>.
+	 *
+	 * @param name
+	 *            Name of test
+	 */
+	public EPPParserPoolTst(String name) {
+		super(name);
+	}
+
+	/**
+	 * Tests and benchmarks <code>EPPStripedParserPool</code> with a hard
+	 * maximum size, so threads wait for returned objects.
+	 */
+	public void testStriped() {
+		for (int i = 0; i < numIterations; i++) {
+			EPPStripedParserPool thePool = new EPPStripedParserPool(
+					"EPPParserPoolTst", "java.lang.Object", 1, MAX_SIZE,
+					false, 10000);
+			run(thePool);
+			Assert.assertTrue("Pool exceeded maximum size", thePool
+					.getNumObjects() <= MAX_SIZE);
+		}
+	}
+
+	/**
+	 * Tests that <code>EPPStripedParserPool</code> times out when it is
+	 * exhausted and creates objects beyond the maximum size when soft.
+	 */
+	public void testStripedExhausted() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			EPPStripedParserPool thePool = new EPPStripedParserPool(
+					"EPPParserPoolTst", "java.lang.Object", 0, 1, false, 100);
+			try {
+				Object theObject = thePool.borrowObject();
+				try {
+					thePool.borrowObject();
+					Assert.fail("Expected timeout borrowing from exhausted pool");
+				}
+				catch (EPPParserException ex) {
+					// Expected
+				}
+				thePool.returnObject(theObject);
+				Assert.assertSame(theObject, thePool.borrowObject());
+			}
+			catch (EPPParserException ex) {
+				Assert.fail("testStripedExhausted(): " + ex);
+			}
+
+			thePool = new EPPStripedParserPool("EPPParserPoolTst",
+					"java.lang.Object", 0, 1, true, 100);
+			try {
+				Object theFirst = thePool.borrowObject();
+				Object theSecond = thePool.borrowObject();
+				Assert.assertNotSame(theFirst, theSecond);
+				thePool.returnObject(theFirst);
+				thePool.returnObject(theSecond);
+				Assert.assertEquals(1, thePool.getNumObjects());
+			}
+			catch (EPPParserException ex) {
+				Assert.fail("testStripedExhausted(): " + ex);
+			}
+		}
+	}
+
+	/**
+	 * Tests and benchmarks <code>EPPThreadLocalParserPool</code>.
+	 */
+	public void testThreadLocal() {
+		for (int i = 0; i < numIterations; i++) {
+			run(new EPPThreadLocalParserPool("EPPParserPoolTst",
+					"java.lang.Object"));
+		}
+
+		// Nested borrow creates a temporary object
+		EPPThreadLocalParserPool thePool = new EPPThreadLocalParserPool(
+				"EPPParserPoolTst", "java.lang.Object");
+		try {
+			Object theFirst = thePool.borrowObject();
+			Object theSecond = thePool.borrowObject();
+			Assert.assertNotSame(theFirst, theSecond);
+			thePool.returnObject(theSecond);
+			thePool.returnObject(theFirst);
+			Assert.assertSame(theFirst, thePool.borrowObject());
+		}
+		catch (EPPParserException ex) {
+			Assert.fail("testThreadLocal(): " + ex);
+		}
+	}
+
+	/**
+	 * Tests and benchmarks <code>EPPPoolManParserPool</code> for comparison.
+	 */
+	public void testPoolMan() {
+		GenericPoolMetaData theMeta = new GenericPoolMetaData();
+		theMeta.setName("EPPParserPoolTst");
+		theMeta.setObjectType("java.lang.Object");
+		theMeta.setInitialObjects(1);
+		theMeta.setMaximumSize(MAX_SIZE);
+
+		EPPParserPool thePool = EPPParserPoolManager.getInstance().createPool(
+				EPPParserPoolManager.TYPE_POOLMAN, theMeta);
+		try {
+			for (int i = 0; i < numIterations; i++) {
+				run(thePool);
+			}
+		}
+		finally {
+			EPPParserPoolManager.getInstance().removePool(thePool.getName());
+		}
+	}
+
+	/**
+	 * Borrows and returns objects from <code>NUM_THREADS</code> threads and
+	 * verifies that no object is borrowed twice at the same time.
+	 *
+	 * @param aPool
+	 *            Pool to test
+	 */
+	private static void run(final EPPParserPool aPool) {
+		final Set theBorrowed = Collections.synchronizedSet(Collections
+				.newSetFromMap(new IdentityHashMap()));
+		final Throwable theErrors[] = new Throwable[NUM_THREADS];
+		Thread theThreads[] = new Thread[NUM_THREADS];
+
+		long theStart = System.currentTimeMillis();
+		for (int i = 0; i < NUM_THREADS; i++) {
+			final int theIndex = i;
+			theThreads[i] = new Thread("EPPParserPoolTst-" + i) {
+
+				public void run() {
+					try {
+						for (int j = 0; j < NUM_BORROWS; j++) {
+							Object theObject = aPool.borrowObject();
+							if (!theBorrowed.add(theObject)) {
+								throw new IllegalStateException(
+										"Object borrowed twice");
+							}
+							theBorrowed.remove(theObject);
+							aPool.returnObject(theObject);
+						}
+					}
+					catch (Throwable ex) {
+						theErrors[theIndex] = ex;
+					}
+				}
+			};
+			theThreads[i].start();
+		}
+
+		for (int i = 0; i < NUM_THREADS; i++) {
+			try {
+				theThreads[i].join();
+			}
+			catch (InterruptedException ex) {
+				Assert.fail("run(): Interrupted");
+			}
+			if (theErrors[i] != null) {
+				Assert.fail("run(): Thread " + i + " error: " + theErrors[i]);
+			}
+		}
+		long theTime = System.currentTimeMillis() - theStart;
+
+		Assert.assertEquals((long) NUM_THREADS * NUM_BORROWS, aPool
+				.getNumBorrows());
+
+		System.out.println("run(): " + aPool + ", "
+				+ ((long) NUM_THREADS * NUM_BORROWS) + " borrows in "
+				+ theTime + " ms");
+	}
+
+	/**
+	 * JUNIT <code>suite</code> static method, which returns the tests
+	 * associated with <code>EPPParserPoolTst</code>.
+	 *
+	 * @return Test suite
+	 */
+	public static Test suite() {
+		TestSuite suite = new TestSuite(EPPParserPoolTst.class);
+
+		String theConfigFileName = System.getProperty("EPP.ConfigFile");
+		if (theConfigFileName != null) {
+			configFileName = theConfigFileName;
+		}
+
+		try {
+			EPPEnvSingle.getInstance().initialize(configFileName);
+		}
+		catch (Exception ex) {
+			Assert.fail("Error initializing the environment with "
+					+ configFileName + ": " + ex);
+		}
+
+		// iterations Property
+		String numIterProp = System.getProperty("iterations");
+
+		if (numIterProp != null) {
+			numIterations = Integer.parseInt(numIterProp);
+		}
+
+		return suite;
+	}
+
+	/**
+	 * Unit test main, which accepts the following system property options:<br>
+	 *
+	 * <ul>
+	 * <li>iterations Number of unit test iterations to run</li>
+	 * <li>EPP.ConfigFile EPP configuration file to use</li>
+	 * </ul>
+	 *
+	 * @param args
+	 *            Not used
+	 */
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(EPPParserPoolTst.suite());
+	}
+
+	/**
+	 * Sets the number of iterations to run per test.
+	 *
+	 * @param aNumIterations
+	 *            number of iterations to run per test
+	 */
+	public static void setNumIterations(long aNumIterations) {
+		numIterations = aNumIterations;
+	}
+
+} // End class EPPParserPoolTst
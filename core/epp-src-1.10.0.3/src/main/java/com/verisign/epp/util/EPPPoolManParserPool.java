@@ -0,0 +1,104 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+import com.codestudio.util.GenericPool;
+import com.codestudio.util.GenericPoolManager;
+import com.codestudio.util.GenericPoolMetaData;
+
+/**
+ * <code>EPPParserPool</code> backed by a PoolMan <code>GenericPool</code>,
+ * which is the pool used before <code>EPPParserPool</code> was introduced.
+ * All of the PoolMan settings of the <code>GenericPoolMetaData</code> are
+ * used, and the pool is also added to the <code>GenericPoolManager</code>
+ * under the pool name for code that still looks it up there. PoolMan
+ * synchronizes each request and return and runs a skimmer thread per pool,
+ * so this pool is mainly kept as a fallback.
+ */
+public class EPPPoolManParserPool extends EPPAbstractParserPool {
+
+	/** PoolMan pool */
+	private final GenericPool pool;
+
+	/**
+	 * Creates a PoolMan pool and adds it to the
+	 * <code>GenericPoolManager</code>.
+	 *
+	 * @param aMeta
+	 *            PoolMan pool settings
+	 */
+	public EPPPoolManParserPool(GenericPoolMetaData aMeta) {
+		super(aMeta.getName(), aMeta.getObjectType());
+		this.pool = new GenericPool(aMeta);
+		GenericPoolManager.getInstance().addPool(aMeta.getName(), this.pool);
+	}
+
+	/**
+	 * Requests an object from the PoolMan pool.
+	 *
+	 * @return Borrowed object
+	 *
+	 * @throws EPPParserException
+	 *             No object returned by the PoolMan pool
+	 */
+	public Object borrowObject() throws EPPParserException {
+		long theStart = System.nanoTime();
+		Object theObject = this.pool.requestObject();
+		borrowed(System.nanoTime() - theStart);
+
+		if (theObject == null) {
+			throw new EPPParserException("EPPPoolManParserPool " + getName()
+					+ ": No object returned by pool");
+		}
+
+		return theObject;
+	}
+
+	/**
+	 * Returns an object to the PoolMan pool.
+	 *
+	 * @param aObject
+	 *            Borrowed object
+	 */
+	public void returnObject(Object aObject) {
+		this.pool.returnObject(aObject);
+	}
+
+	/**
+	 * Gets the PoolMan pool.
+	 *
+	 * @return PoolMan pool
+	 */
+	public GenericPool getGenericPool() {
+		return this.pool;
+	}
+
+	/**
+	 * Removes the pool from the <code>GenericPoolManager</code> and closes
+	 * the PoolMan pool.
+	 */
+	public void close() {
+		if (GenericPoolManager.getInstance().getPool(getName()) == this.pool) {
+			GenericPoolManager.getInstance().removePool(getName());
+		}
+		this.pool.closeAllResources();
+	}
+
+} // End class EPPPoolManParserPool
@@ -0,0 +1,83 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Active and idle counts, and the number of sessions made and destroyed, of
+ * a session pool. The counts are read from the
+ * <code>EPPMetrics.PoolGauge</code> of the pool when it is registered.
+ */
+public class EPPPoolMetrics implements EPPPoolMetricsMBean {
+
+	/** Gauge of the pool or <code>null</code> if it is not registered */
+	private volatile EPPMetrics.PoolGauge gauge = null;
+
+	/** Number of sessions made */
+	private final AtomicLong makeCount = new AtomicLong();
+
+	/** Number of sessions destroyed */
+	private final AtomicLong destroyCount = new AtomicLong();
+
+	/**
+	 * Sets the gauge of the pool.
+	 *
+	 * @param aGauge
+	 *            Gauge of the pool or <code>null</code> when the pool is
+	 *            unregistered
+	 */
+	public void setGauge(EPPMetrics.PoolGauge aGauge) {
+		this.gauge = aGauge;
+	}
+
+	/**
+	 * Increments the number of sessions made.
+	 */
+	public void made() {
+		this.makeCount.incrementAndGet();
+	}
+
+	/**
+	 * Increments the number of sessions destroyed.
+	 */
+	public void destroyed() {
+		this.destroyCount.incrementAndGet();
+	}
+
+	public int getNumActive() {
+		EPPMetrics.PoolGauge theGauge = this.gauge;
+		return theGauge == null ? -1 : theGauge.getNumActive();
+	}
+
+	public int getNumIdle() {
+		EPPMetrics.PoolGauge theGauge = this.gauge;
+		return theGauge == null ? -1 : theGauge.getNumIdle();
+	}
+
+	public long getMakeCount() {
+		return this.makeCount.get();
+	}
+
+	public long getDestroyCount() {
+		return this.destroyCount.get();
+	}
+
+}
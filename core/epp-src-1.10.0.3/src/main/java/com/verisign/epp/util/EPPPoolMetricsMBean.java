@@ -0,0 +1,59 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+/**
+ * JMX management interface of the {@link EPPPoolMetrics} of a session pool.
+ * The make and destroy counts are monotonic, so a monitoring tool derives
+ * the make and destroy rates from them.
+ */
+public interface EPPPoolMetricsMBean {
+
+	/**
+	 * Gets the number of sessions borrowed from the pool.
+	 *
+	 * @return Number of active sessions, or <code>-1</code> if the pool is
+	 *         not registered
+	 */
+	public int getNumActive();
+
+	/**
+	 * Gets the number of sessions idle in the pool.
+	 *
+	 * @return Number of idle sessions, or <code>-1</code> if the pool is not
+	 *         registered
+	 */
+	public int getNumIdle();
+
+	/**
+	 * Gets the number of sessions made for the pool.
+	 *
+	 * @return Number of sessions made
+	 */
+	public long getMakeCount();
+
+	/**
+	 * Gets the number of sessions of the pool that were destroyed.
+	 *
+	 * @return Number of sessions destroyed
+	 */
+	public long getDestroyCount();
+
+}
@@ -0,0 +1,372 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Immutable set of revoked identifiers with their revocation dates, used by
+ * the SMD and verification code revocation lists. The identifiers are kept
+ * as UTF-8 bytes in a single array and are looked up with an open-addressing
+ * (linear probing) hash table of <code>int</code> entry indexes, so a lookup
+ * is O(1) and a list of tens of thousands of entries takes one array per
+ * attribute instead of an object per entry. <br>
+ * <br>
+ * An index is never changed once built, so it can be read by any number of
+ * threads without locking. A list is refreshed by building a new index, like
+ * with {@link #toBuilder()} to add a delta to a copy of the current entries,
+ * and swapping the reference to it.
+ */
+public final class EPPRevocationIndex {
+
+	/**
+	 * Empty index
+	 */
+	public static final EPPRevocationIndex EMPTY = new Builder().build();
+
+	/**
+	 * Charset of the stored identifiers
+	 */
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Value of {@link #dates} for an entry without a revocation date
+	 */
+	private static final long NO_DATE = Long.MIN_VALUE;
+
+	/**
+	 * Identifiers in UTF-8, one after the other
+	 */
+	private final byte[] ids;
+
+	/**
+	 * Start of each identifier in {@link #ids}, with the end of the last
+	 * identifier at index {@link #size}.
+	 */
+	private final int[] offsets;
+
+	/**
+	 * Revocation date of each entry in milliseconds
+	 */
+	private final long[] dates;
+
+	/**
+	 * Hash code of each identifier
+	 */
+	private final int[] hashes;
+
+	/**
+	 * Open-addressing table of entry index + 1, with 0 for an empty slot
+	 */
+	private final int[] table;
+
+	/**
+	 * Number of entries
+	 */
+	private final int size;
+
+	/**
+	 * Creates an index from the arrays of a builder, which are not copied.
+	 */
+	private EPPRevocationIndex(byte[] aIds, int[] aOffsets, long[] aDates,
+			int[] aHashes, int[] aTable, int aSize) {
+		this.ids = aIds;
+		this.offsets = aOffsets;
+		this.dates = aDates;
+		this.hashes = aHashes;
+		this.table = aTable;
+		this.size = aSize;
+	}
+
+	/**
+	 * Gets the number of entries.
+	 * 
+	 * @return Number of revoked identifiers
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Is an identifier revoked?
+	 * 
+	 * @param aId
+	 *            Identifier to look up
+	 * 
+	 * @return <code>true</code> if <code>aId</code> is in the index;
+	 *         <code>false</code> otherwise.
+	 */
+	public boolean contains(String aId) {
+		if (aId == null || this.size == 0) {
+			return false;
+		}
+		byte[] theId = aId.getBytes(UTF8);
+		return find(this.ids, this.offsets, this.hashes, this.table, theId,
+				hash(theId)) >= 0;
+	}
+
+	/**
+	 * Gets the identifier of an entry.
+	 * 
+	 * @param aIndex
+	 *            Entry index, from 0 to <code>size() - 1</code> in the order
+	 *            the entries were added
+	 * 
+	 * @return Identifier of the entry
+	 */
+	public String getId(int aIndex) {
+		checkIndex(aIndex);
+		return new String(this.ids, this.offsets[aIndex],
+				this.offsets[aIndex + 1] - this.offsets[aIndex], UTF8);
+	}
+
+	/**
+	 * Gets the revocation date of an entry.
+	 * 
+	 * @param aIndex
+	 *            Entry index, from 0 to <code>size() - 1</code> in the order
+	 *            the entries were added
+	 * 
+	 * @return Revocation date if set; <code>null</code> otherwise.
+	 */
+	public Date getDate(int aIndex) {
+		checkIndex(aIndex);
+		return this.dates[aIndex] == NO_DATE ? null : new Date(
+				this.dates[aIndex]);
+	}
+
+	/**
+	 * Creates a builder that starts with the entries of this index, used to
+	 * apply a delta without re-hashing the existing identifiers.
+	 * 
+	 * @return Builder with a copy of the entries
+	 */
+	public Builder toBuilder() {
+		return new Builder(this);
+	}
+
+	private void checkIndex(int aIndex) {
+		if (aIndex < 0 || aIndex >= this.size) {
+			throw new IndexOutOfBoundsException("Index: " + aIndex + ", Size: "
+					+ this.size);
+		}
+	}
+
+	/**
+	 * Hashes the UTF-8 bytes of an identifier.
+	 */
+	private static int hash(byte[] aId) {
+		int theHash = 1;
+		for (byte theByte : aId) {
+			theHash = 31 * theHash + theByte;
+		}
+		// Spread the bits, since the table is indexed with the low bits
+		theHash *= 0x9E3779B9;
+		return theHash ^ (theHash >>> 16);
+	}
+
+	/**
+	 * Finds an identifier in a table.
+	 * 
+	 * @return Entry index if found; <code>-1</code> otherwise.
+	 */
+	private static int find(byte[] aIds, int[] aOffsets, int[] aHashes,
+			int[] aTable, byte[] aId, int aHash) {
+		int theMask = aTable.length - 1;
+		for (int theSlot = aHash & theMask;; theSlot = (theSlot + 1) & theMask) {
+			int theEntry = aTable[theSlot] - 1;
+			if (theEntry < 0) {
+				return -1;
+			}
+			if (aHashes[theEntry] == aHash
+					&& equals(aIds, aOffsets[theEntry], aOffsets[theEntry + 1],
+							aId)) {
+				return theEntry;
+			}
+		}
+	}
+
+	private static boolean equals(byte[] aIds, int aFrom, int aTo, byte[] aId) {
+		if (aTo - aFrom != aId.length) {
+			return false;
+		}
+		for (int i = 0; i < aId.length; i++) {
+			if (aIds[aFrom + i] != aId[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Builds an {@link EPPRevocationIndex}. Duplicate identifiers are
+	 * ignored, keeping the first revocation date. A builder is not
+	 * thread-safe.
+	 */
+	public static final class Builder {
+
+		private byte[] ids;
+
+		private int[] offsets;
+
+		private long[] dates;
+
+		private int[] hashes;
+
+		private int[] table;
+
+		private int size;
+
+		/**
+		 * Creates an empty builder.
+		 */
+		public Builder() {
+			this.ids = new byte[256];
+			this.offsets = new int[17];
+			this.dates = new long[16];
+			this.hashes = new int[16];
+			this.table = new int[32];
+		}
+
+		/**
+		 * Creates a builder with a copy of the entries of an index.
+		 */
+		private Builder(EPPRevocationIndex aIndex) {
+			this.ids = Arrays.copyOf(aIndex.ids, aIndex.ids.length);
+			this.offsets = Arrays.copyOf(aIndex.offsets, aIndex.offsets.length);
+			this.dates = Arrays.copyOf(aIndex.dates, aIndex.dates.length);
+			this.hashes = Arrays.copyOf(aIndex.hashes, aIndex.hashes.length);
+			this.table = Arrays.copyOf(aIndex.table, aIndex.table.length);
+			this.size = aIndex.size;
+		}
+
+		/**
+		 * Gets the number of entries added so far.
+		 * 
+		 * @return Number of entries
+		 */
+		public int size() {
+			return this.size;
+		}
+
+		/**
+		 * Is an identifier already added?
+		 * 
+		 * @param aId
+		 *            Identifier to look up
+		 * 
+		 * @return <code>true</code> if added; <code>false</code> otherwise.
+		 */
+		public boolean contains(String aId) {
+			if (aId == null) {
+				return false;
+			}
+			byte[] theId = aId.getBytes(UTF8);
+			return find(this.ids, this.offsets, this.hashes, this.table,
+					theId, hash(theId)) >= 0;
+		}
+
+		/**
+		 * Adds a revoked identifier.
+		 * 
+		 * @param aId
+		 *            Revoked identifier
+		 * @param aDate
+		 *            Revocation date, which may be <code>null</code>
+		 * 
+		 * @return <code>true</code> if added; <code>false</code> if
+		 *         <code>aId</code> was already added.
+		 */
+		public boolean add(String aId, Date aDate) {
+			if (aId == null) {
+				throw new IllegalArgumentException(
+						"EPPRevocationIndex.Builder.add: null id");
+			}
+			byte[] theId = aId.getBytes(UTF8);
+			int theHash = hash(theId);
+			if (find(this.ids, this.offsets, this.hashes, this.table, theId,
+					theHash) >= 0) {
+				return false;
+			}
+
+			if (this.size == this.dates.length) {
+				int theCapacity = Math.max(16, this.size * 2);
+				this.offsets = Arrays.copyOf(this.offsets, theCapacity + 1);
+				this.dates = Arrays.copyOf(this.dates, theCapacity);
+				this.hashes = Arrays.copyOf(this.hashes, theCapacity);
+			}
+			int theStart = this.offsets[this.size];
+			if (theStart + theId.length > this.ids.length) {
+				this.ids = Arrays.copyOf(this.ids, Math.max(
+						this.ids.length * 2, theStart + theId.length));
+			}
+			System.arraycopy(theId, 0, this.ids, theStart, theId.length);
+			this.offsets[this.size + 1] = theStart + theId.length;
+			this.dates[this.size] = aDate == null ? NO_DATE : aDate.getTime();
+			this.hashes[this.size] = theHash;
+			this.size++;
+
+			// Keep the table at most half full
+			if (this.size * 2 > this.table.length) {
+				this.rehash(this.table.length * 2);
+			}
+			else {
+				this.insert(this.table, this.size - 1);
+			}
+			return true;
+		}
+
+		/**
+		 * Rebuilds the table with a new capacity from the stored hashes.
+		 */
+		private void rehash(int aCapacity) {
+			int[] theTable = new int[aCapacity];
+			for (int i = 0; i < this.size; i++) {
+				this.insert(theTable, i);
+			}
+			this.table = theTable;
+		}
+
+		private void insert(int[] aTable, int aEntry) {
+			int theMask = aTable.length - 1;
+			int theSlot = this.hashes[aEntry] & theMask;
+			while (aTable[theSlot] != 0) {
+				theSlot = (theSlot + 1) & theMask;
+			}
+			aTable[theSlot] = aEntry + 1;
+		}
+
+		/**
+		 * Builds the index, trimming the arrays to the number of entries. The
+		 * builder should not be used afterwards.
+		 * 
+		 * @return Immutable index of the added entries
+		 */
+		public EPPRevocationIndex build() {
+			return new EPPRevocationIndex(Arrays.copyOf(this.ids,
+					this.offsets[this.size]), Arrays.copyOf(this.offsets,
+					this.size + 1), Arrays.copyOf(this.dates, this.size),
+					Arrays.copyOf(this.hashes, this.size), this.table, this.size);
+		}
+	}
+
+}
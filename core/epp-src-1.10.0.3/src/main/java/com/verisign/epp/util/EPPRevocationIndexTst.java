@@ -0,0 +1,209 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+//----------------------------------------------
+//
+// imports...
+//
+//----------------------------------------------
+
+// Java Core Imports
+import java.util.Date;
+
+// JUNIT Imports
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+// EPP Imports
+import com.verisign.epp.codec.gen.EPPUtil;
+import com.verisign.epp.codec.signedMark.RevokedSMD;
+import com.verisign.epp.codec.signedMark.SMDRevocationList;
+
+/**
+ * Is a unit test of <code>EPPRevocationIndex</code> and of its use by
+ * <code>SMDRevocationList</code>. The tests build an index with as many
+ * entries as a real SMD Revocation List, look up the revoked and the not
+ * revoked identifiers, and update an SMD Revocation List with a newer list.
+ */
+public class EPPRevocationIndexTst extends TestCase {
+
+	/**
+	 * Number of unit test iterations to run. This is set with the
+	 * <code>iterations</code> system property.
+	 */
+	static private long numIterations = 1;
+
+	/** Number of revoked identifiers */
+	private static final int NUM_IDS = 50000;
+
+	/**
+	 * Allocates a new instance of <code>EPPRevocationIndexTst</code>.
+	 *
+	 * @param name
+	 *            Name of test
+	 */
+	public EPPRevocationIndexTst(String name) {
+		super(name);
+	}
+
+	/**
+	 * Builds an index of <code>NUM_IDS</code> identifiers and verifies the
+	 * lookups, the order of the entries, and that a delta applied with
+	 * <code>toBuilder()</code> does not change the original index.
+	 */
+	public void testIndex() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			EPPRevocationIndex.Builder theBuilder = new EPPRevocationIndex.Builder();
+			for (int i = 0; i < NUM_IDS; i++) {
+				Assert.assertTrue(theBuilder.add(getId(i), new Date(i)));
+			}
+			Assert.assertFalse("Duplicate added",
+					theBuilder.add(getId(0), new Date()));
+
+			EPPRevocationIndex theIndex = theBuilder.build();
+			Assert.assertEquals(NUM_IDS, theIndex.size());
+
+			for (int i = 0; i < NUM_IDS; i++) {
+				Assert.assertTrue(theIndex.contains(getId(i)));
+				Assert.assertFalse(theIndex.contains(getId(i + NUM_IDS)));
+			}
+			Assert.assertFalse(theIndex.contains(null));
+			Assert.assertFalse(EPPRevocationIndex.EMPTY.contains(getId(0)));
+
+			Assert.assertEquals(getId(123), theIndex.getId(123));
+			Assert.assertEquals(new Date(123), theIndex.getDate(123));
+
+			// Delta on a copy
+			EPPRevocationIndex.Builder theDelta = theIndex.toBuilder();
+			Assert.assertTrue(theDelta.add(getId(NUM_IDS), null));
+			EPPRevocationIndex theUpdated = theDelta.build();
+
+			Assert.assertEquals(NUM_IDS + 1, theUpdated.size());
+			Assert.assertTrue(theUpdated.contains(getId(NUM_IDS)));
+			Assert.assertNull(theUpdated.getDate(NUM_IDS));
+			Assert.assertFalse(theIndex.contains(getId(NUM_IDS)));
+
+			// Builder of the empty index
+			theDelta = EPPRevocationIndex.EMPTY.toBuilder();
+			Assert.assertTrue(theDelta.add(getId(0), null));
+			Assert.assertTrue(theDelta.build().contains(getId(0)));
+		}
+	}
+
+	/**
+	 * Decodes an SMD Revocation List, updates it with a newer SMD Revocation
+	 * List, and verifies that only the newly revoked SMD's are added and that
+	 * an older SMD Revocation List is ignored.
+	 */
+	public void testSMDRevocationList() throws Exception {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			SMDRevocationList theList = new SMDRevocationList(new Date(1000));
+			for (int i = 0; i < 10; i++) {
+				theList.addRevokedSMD(new RevokedSMD(getId(i), new Date(1000)));
+			}
+			theList.addRevokedSMD(new RevokedSMD(getId(0), new Date(1000)));
+			Assert.assertEquals(10, theList.getNumRevokedSMDs());
+
+			SMDRevocationList theDecoded = new SMDRevocationList();
+			theDecoded.decode(theList.encode());
+			Assert.assertEquals(theList, theDecoded);
+
+			// Newer list with 5 of the SMD's and 5 new SMD's
+			SMDRevocationList theNewer = new SMDRevocationList(new Date(2000));
+			for (int i = 5; i < 15; i++) {
+				theNewer.addRevokedSMD(new RevokedSMD(getId(i), new Date(2000)));
+			}
+
+			Assert.assertEquals(5, theDecoded.update(theNewer.encode()));
+			Assert.assertEquals(15, theDecoded.getNumRevokedSMDs());
+			Assert.assertEquals(new Date(2000), theDecoded.getCreatedDate());
+			Assert.assertEquals(getId(14), theDecoded.getRevokedSMDs().get(14)
+					.getId());
+			Assert.assertEquals(0, theDecoded.update(theNewer.encode()));
+
+			// Older list is ignored
+			SMDRevocationList theOlder = new SMDRevocationList(new Date(1500));
+			theOlder.addRevokedSMD(new RevokedSMD(getId(20), new Date(1500)));
+			Assert.assertEquals(0, theDecoded.update(theOlder.encode()));
+			Assert.assertEquals(15, theDecoded.getNumRevokedSMDs());
+			Assert.assertEquals(new Date(2000), theDecoded.getCreatedDate());
+
+			// Decode replaces the revoked SMD's
+			theDecoded.decode(theNewer.encode());
+			Assert.assertEquals(10, theDecoded.getNumRevokedSMDs());
+			Assert.assertEquals(EPPUtil.encodeTimeInstant(new Date(2000)),
+					EPPUtil.encodeTimeInstant(theDecoded.getCreatedDate()));
+		}
+	}
+
+	/**
+	 * Gets an SMD identifier in the format of the SMD Revocation List.
+	 */
+	private static String getId(int aNum) {
+		return "0000001" + aNum + "-65535";
+	}
+
+	/**
+	 * JUNIT <code>suite</code> static method, which returns the tests
+	 * associated with <code>EPPRevocationIndexTst</code>.
+	 *
+	 * @return Test suite
+	 */
+	public static Test suite() {
+		TestSuite suite = new TestSuite(EPPRevocationIndexTst.class);
+
+		// iterations Property
+		String numIterProp = System.getProperty("iterations");
+
+		if (numIterProp != null) {
+			numIterations = Integer.parseInt(numIterProp);
+		}
+
+		return suite;
+	}
+
+	/**
+	 * Unit test main, which accepts the following system property options:<br>
+	 *
+	 * <ul>
+	 * <li>iterations Number of unit test iterations to run</li>
+	 * </ul>
+	 *
+	 * @param args
+	 *            Not used
+	 */
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(EPPRevocationIndexTst.suite());
+	}
+
+	/**
+	 * Sets the number of iterations to run per test.
+	 *
+	 * @param aNumIterations
+	 *            number of iterations to run per test
+	 */
+	public static void setNumIterations(long aNumIterations) {
+		numIterations = aNumIterations;
+	}
+
+} // End class EPPRevocationIndexTst
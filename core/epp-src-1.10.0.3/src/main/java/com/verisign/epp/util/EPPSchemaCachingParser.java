@@ -23,10 +23,10 @@ package com.verisign.epp.util;
 // Log4j Imports
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.IOException;
 import java.io.InputStream;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.xml.parsers.DocumentBuilder;
 
@@ -36,10 +36,8 @@ import org.apache.xerces.impl.Constants;
 import org.apache.xerces.parsers.DOMParser;
 import org.apache.xerces.parsers.XML11Configuration;
 import org.apache.xerces.parsers.XMLGrammarCachingConfiguration;
-import org.apache.xerces.parsers.XMLGrammarPreparser;
 import org.apache.xerces.util.SymbolTable;
 import org.apache.xerces.util.XMLGrammarPoolImpl;
-import org.apache.xerces.xni.grammars.XMLGrammarDescription;
 import org.apache.xerces.xni.grammars.XMLGrammarPool;
 import org.apache.xerces.xni.parser.XMLInputSource;
 import org.w3c.dom.DOMImplementation;
@@ -55,12 +53,16 @@ import com.verisign.epp.codec.gen.EPPFactory;
 
 /**
  * XML Parser that pre-caches the XML schemas from the XML schemas registered in
- * the {@link EPPFactory} for improved XML parsing performance.
+ * the {@link EPPFactory} for improved XML parsing performance. When the
+ * shared {@link EPPSchemaGrammarPool} is initialized, the parser uses the
+ * shared grammar pool and symbol table, and creating a parser does not
+ * compile any XML schemas. Otherwise the parser compiles the XML schemas into
+ * its own grammar pool.
  */
 public class EPPSchemaCachingParser extends DocumentBuilder implements EPPSchemaCacher {
 	/**
-	 * Name of the EPP XML Parser Pool managed by <code>GenericPoolManager</code>
-	 * .
+	 * Name of the EPP XML Parser Pool managed by
+	 * <code>EPPParserPoolManager</code>.
 	 */
 	public static final String POOL = "EPP_XML_PARSER_POOL";
 
@@ -165,6 +167,13 @@ public class EPPSchemaCachingParser extends DocumentBuilder implements EPPSchema
 	 */
 	private int symbolTableSize = BIG_PRIME;
 
+	/**
+	 * Guards resetting the symbol table.  A lock is used instead of 
+	 * <code>synchronized</code>, so that virtual threads don't pin their 
+	 * carrier thread.
+	 */
+	private final ReentrantLock symbolTableLock = new ReentrantLock();
+
 	/**
 	 * The parser implementation that EPPSchemaCachingParser delegates to to do
 	 * the real work
@@ -172,7 +181,10 @@ public class EPPSchemaCachingParser extends DocumentBuilder implements EPPSchema
 	private DOMParser parserImpl = null;
 
 	/** The grammar pool instance that this parser will use */
-	private XMLGrammarPool grammarPool = new XMLGrammarPoolImpl();
+	private XMLGrammarPool grammarPool = null;
+
+	/** Does the parser use the shared <code>EPPSchemaGrammarPool</code>? */
+	private boolean sharedGrammarPool = false;
 
 	/**
 	 * Create a new instance of EPPSchemaCachingParser. Defaults are: Namespace
@@ -215,14 +227,28 @@ public class EPPSchemaCachingParser extends DocumentBuilder implements EPPSchema
 	protected void init() throws EPPParserException {
 		cat.debug("init() enter");
 
-		cat.debug("Creating parser instance with symbol table size: " + this.symbolTableSize);
+		EPPSchemaGrammarPool theSharedPool = EPPSchemaGrammarPool.getInstance();
+		XMLGrammarPool theGrammarPool = theSharedPool.getGrammarPool();
 
-		if (this.symbolTableSize == 0) {
-			this.parserImpl = new DOMParser(new XMLGrammarCachingConfiguration());
+		if (theGrammarPool != null) {
+			cat.debug("Creating parser instance with the shared grammar pool");
+			this.sharedGrammarPool = true;
+			this.grammarPool = theGrammarPool;
+			this.parserImpl = new DOMParser(new XML11Configuration(theSharedPool.getSymbolTable(),
+			      theGrammarPool));
 		}
 		else {
-			SymbolTable symbolTable = new SymbolTable(this.symbolTableSize);
-			this.parserImpl = new DOMParser(new XML11Configuration(symbolTable));
+			cat.debug("Creating parser instance with symbol table size: " + this.symbolTableSize);
+			this.sharedGrammarPool = false;
+			this.grammarPool = new XMLGrammarPoolImpl();
+
+			if (this.symbolTableSize == 0) {
+				this.parserImpl = new DOMParser(new XMLGrammarCachingConfiguration());
+			}
+			else {
+				SymbolTable symbolTable = new SymbolTable(this.symbolTableSize);
+				this.parserImpl = new DOMParser(new XML11Configuration(symbolTable));
+			}
 		}
 
 		// Set the use of entity resolver?
@@ -272,6 +298,12 @@ public class EPPSchemaCachingParser extends DocumentBuilder implements EPPSchema
 			throw new EPPParserException(e);
 		}
 
+		// The shared grammar pool already has the XML schemas
+		if (this.sharedGrammarPool) {
+			cat.debug("init() exit");
+			return;
+		}
+
 		// Pre-load the XML schemas based on the registered EPPMapFactory
 		// and EPPExtFactory instances.
 		Set theSchemas = EPPFactory.getInstance().getXmlSchemas();
@@ -291,7 +323,9 @@ public class EPPSchemaCachingParser extends DocumentBuilder implements EPPSchema
 	}
 
 	/**
-	 * Lock the schema cache. True param locks it, false unlocks it
+	 * Lock the schema cache. True param locks it, false unlocks it. When the
+	 * parser uses the shared grammar pool, this does nothing, since the shared
+	 * grammar pool is always locked.
 	 *
 	 * @param aBoolean
 	 *           True param locks it, false unlocks it
@@ -299,6 +333,11 @@ public class EPPSchemaCachingParser extends DocumentBuilder implements EPPSchema
 	public void setLockSchemaCache(boolean aBoolean) {
 		cat.debug("Setting lockSchemaCache to: " + aBoolean);
 
+		if (this.sharedGrammarPool) {
+			cat.debug("setLockSchemaCache(boolean): Shared grammar pool is always locked");
+			return;
+		}
+
 		if (aBoolean) {
 			this.grammarPool.lockPool();
 		}
@@ -309,7 +348,9 @@ public class EPPSchemaCachingParser extends DocumentBuilder implements EPPSchema
 
 	/**
 	 * Addes the XMLInputSource instance to the current cache of schemas. Only
-	 * addes the schema to the cache if it isn't already in the cache.
+	 * addes the schema to the cache if it isn't already in the cache. When the
+	 * parser uses the shared grammar pool, the schema is added to the shared
+	 * grammar pool and the parser switches to the resulting grammar pool.
 	 *
 	 * @param aSchema
 	 *           The schema instance to be cached
@@ -320,36 +361,14 @@ public class EPPSchemaCachingParser extends DocumentBuilder implements EPPSchema
 	public void addSchemaToCache(XMLInputSource aSchema) throws EPPParserException {
 		cat.debug("addSchemaToCache(XMLInputSource) enter");
 
-		// Use the XMLGrammarParser to load this schema
-		SymbolTable preparserSymTable = new SymbolTable(BIG_PRIME);
-		XMLGrammarPreparser preparser = new XMLGrammarPreparser(preparserSymTable);
-
-		// Register the XML Schema type as the type of grammar loader
-		// we want to use.
-		preparser.registerPreparser(XMLGrammarDescription.XML_SCHEMA, null);
-
-		// Set the GrammarPool instance so the grammar will be added
-		preparser.setGrammarPool(this.grammarPool);
-
-		// Use the EPPSchemaParsingEntityResolver so that imported schemas
-		// will be resolved by looking them up in the classpath
-		preparser.setEntityResolver(new EPPSchemaParsingEntityResolver());
-
-		// Turn on Namespace awareness and schema validation in the preparser
-		preparser.setFeature(NAMESPACES_FEATURE_ID, true);
-		preparser.setFeature(VALIDATION_FEATURE_ID, true);
-		preparser.setFeature(SCHEMA_VALIDATION_FEATURE_ID, true);
-		preparser.setFeature(SCHEMA_FULL_CHECKING_FEATURE_ID, true);
-
-		cat.debug("parsing schema to add it to the pool: " + aSchema.getSystemId());
-
-		try {
-			preparser.preparseGrammar(XMLGrammarDescription.XML_SCHEMA, aSchema);
+		if (this.sharedGrammarPool) {
+			EPPSchemaGrammarPool theSharedPool = EPPSchemaGrammarPool.getInstance();
+			theSharedPool.addSchema(aSchema);
+			this.grammarPool = theSharedPool.getGrammarPool();
 		}
-		catch (IOException e) {
-			cat.error("Error while attempting to add schema: " + aSchema.getSystemId());
-
-			throw new EPPParserException(e);
+		else {
+			// Use the XMLGrammarParser to load this schema
+			EPPSchemaGrammarPool.preparse(this.grammarPool, new SymbolTable(BIG_PRIME), aSchema);
 		}
 
 		try {
@@ -563,23 +582,40 @@ public class EPPSchemaCachingParser extends DocumentBuilder implements EPPSchema
 	 * @throws EPPParserException
 	 *            Error setting the symbol table size
 	 */
-	public synchronized void setSymbolTableSize(int aSymbolTableSize) throws EPPParserException {
+	public void setSymbolTableSize(int aSymbolTableSize) throws EPPParserException {
 		cat.debug("setSymbolTableSize(int symbolTableSize) enter");
-		this.symbolTableSize = aSymbolTableSize;
-
-		if (aSymbolTableSize == 0) {
-			this.parserImpl = new DOMParser(new XMLGrammarCachingConfiguration());
-		}
-		else {
-			SymbolTable symtable = new SymbolTable(this.symbolTableSize);
+		this.symbolTableLock.lock();
+		try {
+			this.symbolTableSize = aSymbolTableSize;
 
-			try {
-				this.parserImpl.setProperty(SYMBOL_TABLE, symtable);
+			if (aSymbolTableSize == 0) {
+				this.parserImpl = new DOMParser(new XMLGrammarCachingConfiguration());
 			}
-			catch (SAXException e) {
-				cat.error("Couldn't reset symbol table to size " + this.symbolTableSize);
-				throw new EPPParserException(e);
+			else {
+				SymbolTable symtable = new SymbolTable(this.symbolTableSize);
+
+				try {
+					this.parserImpl.setProperty(SYMBOL_TABLE, symtable);
+				}
+				catch (SAXException e) {
+					cat.error("Couldn't reset symbol table to size " + this.symbolTableSize);
+					throw new EPPParserException(e);
+				}
 			}
+
+			// Keep on using the shared grammar pool
+			if (this.sharedGrammarPool) {
+				try {
+					this.parserImpl.setProperty(XMLGRAMMAR_POOL, this.grammarPool);
+				}
+				catch (SAXException e) {
+					cat.error("Couldn't reset the shared grammar pool");
+					throw new EPPParserException(e);
+				}
+			}
+		}
+		finally {
+			this.symbolTableLock.unlock();
 		}
 
 		cat.debug("setSymbolTableSize(int symbolTableSize) exit");
@@ -0,0 +1,148 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.apache.log4j.Logger;
+import org.apache.xerces.parsers.SAXParser;
+import org.apache.xerces.parsers.XML11Configuration;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import com.verisign.epp.framework.EPPAssemblerException;
+
+/**
+ * Validates EPP packets against the XML schemas of the shared
+ * {@link EPPSchemaGrammarPool} with a SAX parser, without building a DOM
+ * Document. This is used to validate a packet that is decoded with the
+ * <code>EPPXMLReader</code> pull decoder, which does not validate. The
+ * parser features match the ones set by <code>EPPSchemaCachingParser</code>.
+ * <br>
+ * <br>
+ * An <code>EPPSchemaCachingValidator</code> is not thread-safe, so each
+ * <code>EPPXMLStream</code> uses its own instance. Creating one is cheap
+ * since the XML schemas are only compiled once by the shared grammar pool.
+ */
+public class EPPSchemaCachingValidator {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(
+			EPPSchemaCachingValidator.class.getName(), EPPCatFactory
+					.getInstance().getFactory());
+
+	/** SAX parser that references the shared grammar pool */
+	private SAXParser parserImpl;
+
+	/**
+	 * Creates a validator that uses the shared grammar pool, which is
+	 * initialized if it was not initialized before.
+	 *
+	 * @throws EPPParserException
+	 *             Error initializing the shared grammar pool or setting the
+	 *             parser features
+	 */
+	public EPPSchemaCachingValidator() throws EPPParserException {
+		EPPSchemaGrammarPool theSharedPool = EPPSchemaGrammarPool.getInstance();
+
+		if (!theSharedPool.isInitialized()) {
+			theSharedPool.init();
+		}
+
+		this.parserImpl = new SAXParser(new XML11Configuration(theSharedPool
+				.getSymbolTable(), theSharedPool.getGrammarPool()));
+
+		try {
+			this.parserImpl.setFeature(
+					EPPSchemaCachingParser.VALIDATION_FEATURE_ID, true);
+			this.parserImpl.setFeature(
+					EPPSchemaCachingParser.SCHEMA_VALIDATION_FEATURE_ID, true);
+
+			if (EPPEnv.getFullSchemaChecking()) {
+				this.parserImpl.setFeature(
+						EPPSchemaCachingParser.SCHEMA_FULL_CHECKING_FEATURE_ID,
+						true);
+			}
+
+			this.parserImpl.setErrorHandler(new EPPXMLErrorHandler());
+
+			this.parserImpl.setFeature(
+					EPPSchemaCachingParser.LOAD_EXTERNAL_DTD, false);
+			this.parserImpl.setFeature(
+					EPPSchemaCachingParser.LOAD_DTD_GRAMMAR, false);
+			this.parserImpl.setFeature(
+					EPPSchemaCachingParser.EXTERNAL_GENERAL_ENTITIES, false);
+			this.parserImpl.setFeature(
+					EPPSchemaCachingParser.EXTERNAL_PARAMETER_ENTITIES, false);
+			this.parserImpl.setFeature(EPPSchemaCachingParser.NORMALIZE_DATA,
+					true);
+			this.parserImpl.setFeature(
+					EPPSchemaCachingParser.NAMESPACES_FEATURE_ID, true);
+		}
+		catch (SAXException e) {
+			cat.error("setting features of parserImpl failed", e);
+			throw new EPPParserException(e);
+		}
+	}
+
+	/**
+	 * Validates <code>aLength</code> bytes of <code>aPacket</code> starting
+	 * at <code>aOffset</code> against the XML schemas.
+	 *
+	 * @param aPacket
+	 *            The byte array containing the EPP packet.
+	 * @param aOffset
+	 *            Offset of the packet in <code>aPacket</code>
+	 * @param aLength
+	 *            Length of the packet in bytes
+	 *
+	 * @exception EPPAssemblerException
+	 *                The packet is not well-formed or not valid
+	 * @exception IOException
+	 *                Error reading the packet
+	 */
+	public void validate(byte[] aPacket, int aOffset, int aLength)
+			throws EPPAssemblerException, IOException {
+		try {
+			this.parserImpl.parse(new InputSource(new ByteArrayInputStream(
+					aPacket, aOffset, aLength)));
+		}
+		catch (SAXParseException ex) {
+			// Error generated by parser
+			cat.debug("validate(): line      " + ex.getLineNumber()
+					+ "\ncolumn    " + ex.getColumnNumber() + "\nuri       "
+					+ ex.getSystemId() + "\nMessage : " + ex.getMessage(), ex);
+			throw new EPPAssemblerException("[SAXParseException]"
+					+ "\nline      " + ex.getLineNumber() + "\ncolumn    "
+					+ ex.getColumnNumber() + "\nuri       " + ex.getSystemId()
+					+ "\nMessage : " + ex.getMessage(),
+					EPPAssemblerException.XML);
+		}
+		catch (SAXException ex) {
+			// Error generated by the error handler
+			cat.debug("validate(): [SAXException]", ex);
+			throw new EPPAssemblerException("[SAXException] " + ex,
+					EPPAssemblerException.XML);
+		}
+	}
+
+}
@@ -0,0 +1,550 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.log4j.Logger;
+import org.apache.xerces.parsers.XMLGrammarPreparser;
+import org.apache.xerces.util.SymbolTable;
+import org.apache.xerces.util.SynchronizedSymbolTable;
+import org.apache.xerces.util.XMLGrammarPoolImpl;
+import org.apache.xerces.xni.grammars.XMLGrammarDescription;
+import org.apache.xerces.xni.grammars.XMLGrammarPool;
+import org.apache.xerces.xni.parser.XMLInputSource;
+
+import com.verisign.epp.codec.gen.EPPFactory;
+
+/**
+ * Process-wide XML schema grammar pool that is shared by all of the
+ * <code>EPPSchemaCachingParser</code> instances. The XML schemas returned by
+ * <code>EPPFactory.getXmlSchemas()</code> are compiled once by
+ * {@link #init()}, and the pool is then locked with
+ * <code>lockPool()</code>, so parsing never adds grammars to it. Once the
+ * pool is initialized, a new <code>EPPSchemaCachingParser</code> only
+ * creates a <code>DOMParser</code> that references the shared grammar pool
+ * and the shared thread-safe symbol table, instead of compiling all of the
+ * XML schemas again. <br>
+ * <br>
+ * {@link #init()} is called by <code>EPPApplication.initialize</code> on
+ * the client and by the server assemblers, after the <code>EPPCodec</code>
+ * is initialized. Calling {@link #init()} again only recompiles the XML
+ * schemas when the set of XML schemas of <code>EPPFactory</code> changed.
+ */
+public class EPPSchemaGrammarPool {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPSchemaGrammarPool.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/** XML Schema namespace */
+	private static final String XSD_NS = "http://www.w3.org/2001/XMLSchema";
+
+	/**
+	 * Factory of the pull parsers used to read the namespaces of the XML
+	 * schemas.
+	 */
+	private static final XMLInputFactory inputFactory;
+
+	static {
+		inputFactory = XMLInputFactory.newFactory();
+		inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE,
+				Boolean.TRUE);
+		inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		inputFactory.setProperty(
+				XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+	}
+
+	/**
+	 * <code>EPPSchemaGrammarPool</code> instance as part of the
+	 * <i>Singleton Design Pattern</i>.
+	 */
+	private static EPPSchemaGrammarPool instance = new EPPSchemaGrammarPool();
+
+	/**
+	 * Shared grammar pool, which is <code>null</code> until {@link #init()}
+	 * is called.
+	 */
+	private volatile XMLGrammarPool grammarPool = null;
+
+	/**
+	 * Shared symbol table used by the parsers and for compiling the XML
+	 * schemas.
+	 */
+	private final SymbolTable symbolTable = new SynchronizedSymbolTable(
+			new SymbolTable(EPPSchemaCachingParser.BIG_PRIME));
+
+	/**
+	 * Names of the XML schemas compiled into <code>grammarPool</code>.
+	 */
+	private Set schemas = new HashSet();
+
+	/**
+	 * Serializes compiling XML schemas into the grammar pool.
+	 */
+	private final ReentrantLock compileLock = new ReentrantLock();
+
+	/**
+	 * Default constructor as part of the <i>Singleton Design Pattern</i>.
+	 */
+	protected EPPSchemaGrammarPool() {
+	}
+
+	/**
+	 * Gets the <i>Singleton Design Pattern</i> instance.
+	 *
+	 * @return <code>EPPSchemaGrammarPool</code> instance
+	 */
+	public static EPPSchemaGrammarPool getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Compiles the XML schemas returned by
+	 * <code>EPPFactory.getXmlSchemas()</code> into a new grammar pool and
+	 * locks it. The grammar pool is only compiled when it was not compiled
+	 * before or when the set of XML schemas changed. Parsers created before
+	 * a recompile keep on using the grammar pool they were created with. <br>
+	 * <br>
+	 * The XML schemas are compiled in dependency levels computed by
+	 * {@link #getLevels(List)}, where the XML schemas of a level are compiled
+	 * in parallel with up to <code>EPP.StartupParallelism</code> threads, so
+	 * each imported grammar is still compiled once and shared through the
+	 * grammar pool.
+	 *
+	 * @throws EPPParserException
+	 *             Error compiling one of the XML schemas
+	 */
+	public void init() throws EPPParserException {
+		cat.debug("init(): enter");
+
+		this.compileLock.lock();
+		try {
+			Set theSchemas = new LinkedHashSet(EPPFactory.getInstance()
+					.getXmlSchemas());
+
+			if (this.grammarPool != null && this.schemas.equals(theSchemas)) {
+				cat.debug("init(): Grammar pool already initialized");
+				return;
+			}
+
+			long theStart = System.currentTimeMillis();
+
+			XMLGrammarPool thePool = new XMLGrammarPoolImpl();
+
+			List theLevels = getLevels(new ArrayList(theSchemas));
+			int theParallelism = EPPEnv.getStartupParallelism();
+
+			// Compile the XML schemas of each level in parallel
+			for (int i = 0; i < theLevels.size(); i++) {
+				compile(thePool, (List) theLevels.get(i), theParallelism);
+			}
+
+			thePool.lockPool();
+
+			this.schemas = theSchemas;
+			this.grammarPool = thePool;
+
+			cat.info("init(): Compiled " + theSchemas.size()
+					+ " XML schemas in " + theLevels.size() + " levels in "
+					+ (System.currentTimeMillis() - theStart) + " ms");
+		}
+		finally {
+			this.compileLock.unlock();
+		}
+
+		cat.debug("init(): exit");
+	}
+
+	/**
+	 * Compiles the XML schemas of a dependency level into the grammar pool,
+	 * with up to <code>aParallelism</code> XML schemas compiled at the same
+	 * time.
+	 *
+	 * @param aPool
+	 *            Grammar pool that the compiled grammars are added to
+	 * @param aSchemas
+	 *            Names of the XML schemas of the level
+	 * @param aParallelism
+	 *            Maximum number of XML schemas compiled at the same time
+	 *
+	 * @throws EPPParserException
+	 *             Error compiling one of the XML schemas
+	 */
+	private void compile(final XMLGrammarPool aPool, List aSchemas,
+			int aParallelism) throws EPPParserException {
+		List<Callable<Object>> theTasks = new ArrayList<Callable<Object>>();
+
+		for (int i = 0; i < aSchemas.size(); i++) {
+			final String theSchemaName = (String) aSchemas.get(i);
+
+			theTasks.add(new Callable<Object>() {
+
+				public Object call() throws EPPParserException {
+					cat.debug("init(): Compiling XML schema \""
+							+ theSchemaName + "\"");
+
+					// lookup the file name in this classes's classpath under "schemas"
+					InputStream theSchemaStream = getClass().getClassLoader()
+							.getResourceAsStream("schemas/" + theSchemaName);
+
+					preparse(aPool, symbolTable, new XMLInputSource(
+							theSchemaName, theSchemaName, theSchemaName,
+							theSchemaStream, null));
+					return null;
+				}
+			});
+		}
+
+		try {
+			EPPStartup.invokeAll("EPPSchemaGrammarPool", theTasks,
+					aParallelism);
+		}
+		catch (ExecutionException ex) {
+			if (ex.getCause() instanceof EPPParserException) {
+				throw (EPPParserException) ex.getCause();
+			}
+			throw new EPPParserException(ex.getCause());
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new EPPParserException(
+					"EPPSchemaGrammarPool.init(): interrupted compiling the XML schemas");
+		}
+	}
+
+	/**
+	 * Splits the XML schemas into dependency levels that can each be
+	 * compiled in parallel, with the same result as compiling the XML
+	 * schemas one at a time in order. A grammar is added to the grammar pool
+	 * by the first XML schema, in order, that either has it as the target
+	 * namespace or imports it, and the XML schemas that later target or
+	 * import the same namespace are put in a level after it, so they
+	 * retrieve the grammar from the pool instead of compiling it again. An
+	 * XML schema whose namespaces can not be read is put in a level after
+	 * all of the previous XML schemas, and all of the following XML schemas
+	 * are put in a level after it.
+	 *
+	 * @param aSchemas
+	 *            Names of the XML schemas in compile order
+	 *
+	 * @return <code>List</code> of levels, where each level is a
+	 *         <code>List</code> of XML schema names in compile order
+	 */
+	static List getLevels(List aSchemas) {
+		int[] theLevels = new int[aSchemas.size()];
+		Map theProviders = new HashMap();
+		int theMinLevel = 0;
+		int theMaxLevel = -1;
+
+		for (int i = 0; i < aSchemas.size(); i++) {
+			String theSchemaName = (String) aSchemas.get(i);
+			Set theNamespaces = new HashSet();
+
+			if (getNamespaces(theSchemaName, theNamespaces, new HashSet())) {
+				int theLevel = theMinLevel;
+
+				Iterator theNamespacesIter = theNamespaces.iterator();
+				while (theNamespacesIter.hasNext()) {
+					Object theNamespace = theNamespacesIter.next();
+					Integer theProvider = (Integer) theProviders
+							.get(theNamespace);
+
+					if (theProvider == null) {
+						theProviders.put(theNamespace, Integer.valueOf(i));
+					}
+					else {
+						theLevel = Math.max(theLevel,
+								theLevels[theProvider.intValue()] + 1);
+					}
+				}
+
+				theLevels[i] = theLevel;
+			}
+			else {
+				cat.warn("getLevels(): Unable to read the namespaces of XML schema \""
+						+ theSchemaName + "\", compiling it on its own");
+
+				theLevels[i] = theMaxLevel + 1;
+				theMinLevel = theLevels[i] + 1;
+			}
+
+			theMaxLevel = Math.max(theMaxLevel, theLevels[i]);
+		}
+
+		List theResult = new ArrayList();
+		for (int i = 0; i <= theMaxLevel; i++) {
+			theResult.add(new ArrayList());
+		}
+		for (int i = 0; i < aSchemas.size(); i++) {
+			((List) theResult.get(theLevels[i])).add(aSchemas.get(i));
+		}
+
+		// Remove the levels left empty by an unreadable XML schema
+		Iterator theResultIter = theResult.iterator();
+		while (theResultIter.hasNext()) {
+			if (((List) theResultIter.next()).isEmpty()) {
+				theResultIter.remove();
+			}
+		}
+
+		return theResult;
+	}
+
+	/**
+	 * Reads the target namespace and the imported namespaces of an XML
+	 * schema from the classpath under "schemas". The namespaces imported by
+	 * the XML schemas referenced with a <code>schemaLocation</code> are read
+	 * as well, since they are compiled together with the XML schema.
+	 *
+	 * @param aSchemaName
+	 *            Name of the XML schema
+	 * @param aNamespaces
+	 *            Set that the namespaces are added to
+	 * @param aVisited
+	 *            Names of the XML schemas already read
+	 *
+	 * @return <code>true</code> if the namespaces were read;
+	 *         <code>false</code> otherwise.
+	 */
+	private static boolean getNamespaces(String aSchemaName, Set aNamespaces,
+			Set aVisited) {
+		if (!aVisited.add(aSchemaName)) {
+			return true;
+		}
+
+		InputStream theStream = EPPSchemaGrammarPool.class.getClassLoader()
+				.getResourceAsStream("schemas/" + aSchemaName);
+		if (theStream == null) {
+			return false;
+		}
+
+		List theLocations = new ArrayList();
+
+		try {
+			XMLStreamReader theReader = inputFactory
+					.createXMLStreamReader(theStream);
+			try {
+				while (theReader.hasNext()) {
+					if (theReader.next() != XMLStreamConstants.START_ELEMENT
+							|| !XSD_NS.equals(theReader.getNamespaceURI())) {
+						continue;
+					}
+
+					String theElement = theReader.getLocalName();
+					if (theElement.equals("schema")) {
+						String theTarget = theReader.getAttributeValue(null,
+								"targetNamespace");
+						aNamespaces.add(theTarget == null ? "" : theTarget);
+					}
+					else if (theElement.equals("import")) {
+						String theNamespace = theReader.getAttributeValue(
+								null, "namespace");
+						aNamespaces.add(theNamespace == null ? ""
+								: theNamespace);
+
+						String theLocation = theReader.getAttributeValue(null,
+								"schemaLocation");
+						if (theLocation != null) {
+							theLocations.add(theLocation);
+						}
+					}
+					else if (theElement.equals("include")
+							|| theElement.equals("redefine")) {
+						String theLocation = theReader.getAttributeValue(null,
+								"schemaLocation");
+						if (theLocation != null) {
+							theLocations.add(theLocation);
+						}
+					}
+				}
+			}
+			finally {
+				theReader.close();
+			}
+		}
+		catch (XMLStreamException ex) {
+			cat.debug("getNamespaces(): Error reading XML schema \""
+					+ aSchemaName + "\": " + ex);
+			return false;
+		}
+		finally {
+			try {
+				theStream.close();
+			}
+			catch (IOException ex) {
+				// Ignore
+			}
+		}
+
+		for (int i = 0; i < theLocations.size(); i++) {
+			if (!getNamespaces((String) theLocations.get(i), aNamespaces,
+					aVisited)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Was the shared grammar pool initialized with {@link #init()}?
+	 *
+	 * @return <code>true</code> if initialized; <code>false</code> otherwise.
+	 */
+	public boolean isInitialized() {
+		return this.grammarPool != null;
+	}
+
+	/**
+	 * Gets the shared grammar pool.
+	 *
+	 * @return Locked shared grammar pool if initialized; <code>null</code>
+	 *         otherwise.
+	 */
+	public XMLGrammarPool getGrammarPool() {
+		return this.grammarPool;
+	}
+
+	/**
+	 * Gets the shared thread-safe symbol table.
+	 *
+	 * @return Shared symbol table
+	 */
+	public SymbolTable getSymbolTable() {
+		return this.symbolTable;
+	}
+
+	/**
+	 * Adds an XML schema that was not returned by
+	 * <code>EPPFactory.getXmlSchemas()</code> to the shared grammar pool.
+	 * The shared grammar pool is never unlocked, since other parsers may be
+	 * reading it. Like {@link #init()}, the grammars of the shared grammar
+	 * pool are copied into a new grammar pool, the XML schema is compiled
+	 * into it, and the new grammar pool is locked before it replaces the
+	 * shared grammar pool. Parsers created before keep on using the grammar
+	 * pool they were created with.
+	 *
+	 * @param aSchema
+	 *            XML schema to add
+	 *
+	 * @throws EPPParserException
+	 *             The pool is not initialized or there was an error
+	 *             compiling the XML schema
+	 */
+	public void addSchema(XMLInputSource aSchema) throws EPPParserException {
+		this.compileLock.lock();
+		try {
+			XMLGrammarPool thePool = this.grammarPool;
+
+			if (thePool == null) {
+				throw new EPPParserException(
+						"EPPSchemaGrammarPool.addSchema(): pool is not initialized");
+			}
+
+			cat.info("addSchema(): Adding XML schema "
+					+ aSchema.getSystemId() + " to the shared grammar pool");
+
+			XMLGrammarPool theNewPool = new XMLGrammarPoolImpl();
+			theNewPool.cacheGrammars(XMLGrammarDescription.XML_SCHEMA, thePool
+					.retrieveInitialGrammarSet(XMLGrammarDescription.XML_SCHEMA));
+
+			preparse(theNewPool, this.symbolTable, aSchema);
+
+			theNewPool.lockPool();
+
+			this.grammarPool = theNewPool;
+		}
+		finally {
+			this.compileLock.unlock();
+		}
+	}
+
+	/**
+	 * Compiles an XML schema into a grammar pool with full schema checking.
+	 *
+	 * @param aPool
+	 *            Grammar pool that the compiled grammar is added to
+	 * @param aSymbolTable
+	 *            Symbol table used by the preparser
+	 * @param aSchema
+	 *            XML schema to compile
+	 *
+	 * @throws EPPParserException
+	 *             Error compiling the XML schema
+	 */
+	static void preparse(XMLGrammarPool aPool, SymbolTable aSymbolTable,
+			XMLInputSource aSchema) throws EPPParserException {
+		XMLGrammarPreparser preparser = new XMLGrammarPreparser(aSymbolTable);
+
+		// Register the XML Schema type as the type of grammar loader
+		// we want to use.
+		preparser.registerPreparser(XMLGrammarDescription.XML_SCHEMA, null);
+
+		// Set the GrammarPool instance so the grammar will be added
+		preparser.setGrammarPool(aPool);
+
+		// Use the EPPSchemaParsingEntityResolver so that imported schemas
+		// will be resolved by looking them up in the classpath
+		preparser.setEntityResolver(new EPPSchemaParsingEntityResolver());
+
+		// Turn on Namespace awareness and schema validation in the preparser
+		preparser.setFeature(EPPSchemaCachingParser.NAMESPACES_FEATURE_ID,
+				true);
+		preparser.setFeature(EPPSchemaCachingParser.VALIDATION_FEATURE_ID,
+				true);
+		preparser.setFeature(
+				EPPSchemaCachingParser.SCHEMA_VALIDATION_FEATURE_ID, true);
+		preparser.setFeature(
+				EPPSchemaCachingParser.SCHEMA_FULL_CHECKING_FEATURE_ID, true);
+
+		cat.debug("parsing schema to add it to the pool: "
+				+ aSchema.getSystemId());
+
+		try {
+			preparser.preparseGrammar(XMLGrammarDescription.XML_SCHEMA,
+					aSchema);
+		}
+		catch (IOException e) {
+			cat.error("Error while attempting to add schema: "
+					+ aSchema.getSystemId());
+
+			throw new EPPParserException(e);
+		}
+	}
+
+} // End class EPPSchemaGrammarPool
@@ -0,0 +1,415 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+//----------------------------------------------
+//
+// imports...
+//
+//----------------------------------------------
+
+// Java Core Imports
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// JUNIT Imports
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.apache.xerces.xni.grammars.Grammar;
+import org.apache.xerces.xni.grammars.XMLGrammarDescription;
+import org.apache.xerces.xni.grammars.XMLGrammarPool;
+import org.apache.xerces.xni.parser.XMLInputSource;
+import org.w3c.dom.Document;
+
+import com.verisign.epp.codec.gen.EPPCodec;
+import com.verisign.epp.codec.gen.EPPFactory;
+
+/**
+ * Is a unit test and benchmark of <code>EPPSchemaGrammarPool</code>. The
+ * startup benchmark measures compiling the XML schemas of the
+ * <code>EPPCodec</code>, which is done once with the shared grammar pool and
+ * was previously done for each new parser. The pool expansion benchmark
+ * measures creating parsers that use the shared grammar pool, which is what
+ * the parser pool does when it grows under load. The map factories are
+ * defined by <code>EPP.MapFactories</code> in the configuration file, which
+ * defaults to epp.config and can be overridden with the
+ * <code>EPP.ConfigFile</code> system property.
+ */
+public class EPPSchemaGrammarPoolTst extends TestCase {
+
+	/**
+	 * Number of unit test iterations to run. This is set with the
+	 * <code>iterations</code> system property.
+	 */
+	static private long numIterations = 1;
+
+	/** Name of configuration file to use for test (default = epp.config). */
+	private static String configFileName = "epp.config";
+
+	/** Number of parsers created by the pool expansion benchmark */
+	private static final int NUM_PARSERS = 100;
+
+	/** Number of threads parsing concurrently with the shared grammar pool */
+	private static final int NUM_THREADS = 8;
+
+	/** EPP hello packet parsed with the shared grammar pool */
+	private static final String HELLO = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+			+ "<epp xmlns=\"urn:ietf:params:xml:ns:epp-1.0\"><hello/></epp>";
+
+	/** Invalid EPP packet that must fail validation */
+	private static final String INVALID = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+			+ "<epp xmlns=\"urn:ietf:params:xml:ns:epp-1.0\"><invalid/></epp>";
+
+	/**
+	 * Allocates a new instance of <code>EPPSchemaGrammarPoolTst</code>.
+	 *
+	 * @param name
+	 *            Name of test
+	 */
+	public EPPSchemaGrammarPoolTst(String name) {
+		super(name);
+	}
+
+	/**
+	 * Benchmarks compiling the XML schemas into a new grammar pool, which is
+	 * done once at startup.
+	 */
+	public void testStartup() {
+		for (int i = 0; i < numIterations; i++) {
+			EPPSchemaGrammarPool thePool = new EPPSchemaGrammarPool();
+
+			long theStart = System.currentTimeMillis();
+			try {
+				thePool.init();
+			}
+			catch (EPPParserException ex) {
+				Assert.fail("testStartup(): Error compiling XML schemas: " + ex);
+			}
+			long theTime = System.currentTimeMillis() - theStart;
+
+			Assert.assertTrue("Pool not initialized", thePool.isInitialized());
+
+			// Second init does not recompile
+			long theSecondStart = System.currentTimeMillis();
+			try {
+				thePool.init();
+			}
+			catch (EPPParserException ex) {
+				Assert.fail("testStartup(): Error on second init: " + ex);
+			}
+			long theSecondTime = System.currentTimeMillis() - theSecondStart;
+
+			System.out.println("testStartup(): compile = " + theTime
+					+ " ms, second init = " + theSecondTime + " ms");
+		}
+	}
+
+	/**
+	 * Verifies that the XML schemas are split into dependency levels that
+	 * keep the compile order, and that compiling the levels in parallel adds
+	 * the same grammars to the pool as compiling the XML schemas one at a
+	 * time.
+	 */
+	public void testLevels() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			List theSchemas = new ArrayList(EPPFactory.getInstance()
+					.getXmlSchemas());
+			List theLevels = EPPSchemaGrammarPool.getLevels(theSchemas);
+
+			// Each XML schema is in one level, in compile order within the level
+			Map theSchemaLevels = new HashMap();
+			for (int i = 0; i < theLevels.size(); i++) {
+				List theLevel = (List) theLevels.get(i);
+				Assert.assertFalse("Empty level " + i, theLevel.isEmpty());
+
+				for (int j = 0; j < theLevel.size(); j++) {
+					Assert.assertNull("XML schema in more than one level",
+							theSchemaLevels.put(theLevel.get(j), Integer.valueOf(i)));
+					if (j > 0) {
+						Assert.assertTrue("Level " + i + " out of order",
+								theSchemas.indexOf(theLevel.get(j - 1)) < theSchemas
+										.indexOf(theLevel.get(j)));
+					}
+				}
+			}
+			Assert.assertEquals(theSchemas.size(), theSchemaLevels.size());
+
+			// Imported XML schemas are compiled in an earlier level
+			if (theSchemaLevels.containsKey("epp-1.0.xsd")
+					&& theSchemaLevels.containsKey("eppcom-1.0.xsd")) {
+				Assert.assertTrue("epp-1.0.xsd compiled before eppcom-1.0.xsd",
+						((Integer) theSchemaLevels.get("eppcom-1.0.xsd"))
+								.intValue() < ((Integer) theSchemaLevels
+								.get("epp-1.0.xsd")).intValue());
+			}
+
+			System.out.println("testLevels(): " + theSchemas.size()
+					+ " XML schemas in " + theLevels.size() + " levels");
+
+			// Parallel and sequential compile add the same grammars
+			String theParallelism = Environment
+					.getOption("EPP.StartupParallelism");
+			try {
+				Environment.setProperty("EPP.StartupParallelism", "1");
+				EPPSchemaGrammarPool theSequential = new EPPSchemaGrammarPool();
+				theSequential.init();
+
+				Environment.setProperty("EPP.StartupParallelism", "8");
+				EPPSchemaGrammarPool theParallel = new EPPSchemaGrammarPool();
+				theParallel.init();
+
+				Assert.assertEquals(getNamespaces(theSequential),
+						getNamespaces(theParallel));
+			}
+			catch (EPPParserException ex) {
+				Assert.fail("testLevels(): Error compiling XML schemas: " + ex);
+			}
+			finally {
+				Environment.setProperty("EPP.StartupParallelism", theParallelism);
+			}
+		}
+	}
+
+	/**
+	 * Gets the target namespaces of the grammars in a grammar pool.
+	 *
+	 * @param aPool
+	 *            Initialized grammar pool
+	 *
+	 * @return Target namespaces
+	 */
+	private static Set getNamespaces(EPPSchemaGrammarPool aPool) {
+		Set theNamespaces = new HashSet();
+		Grammar[] theGrammars = aPool.getGrammarPool()
+				.retrieveInitialGrammarSet(XMLGrammarDescription.XML_SCHEMA);
+		for (int i = 0; i < theGrammars.length; i++) {
+			theNamespaces.add(theGrammars[i].getGrammarDescription()
+					.getNamespace());
+		}
+		return theNamespaces;
+	}
+
+	/**
+	 * Benchmarks creating parsers with the shared grammar pool, like the
+	 * parser pool does when it expands, and verifies that the parsers share
+	 * the grammar pool.
+	 */
+	public void testPoolExpansion() {
+		for (int i = 0; i < numIterations; i++) {
+			EPPSchemaCachingParser theParsers[] = new EPPSchemaCachingParser[NUM_PARSERS];
+
+			long theStart = System.nanoTime();
+			for (int j = 0; j < NUM_PARSERS; j++) {
+				theParsers[j] = new EPPSchemaCachingParser();
+			}
+			long theTime = System.nanoTime() - theStart;
+
+			System.out.println("testPoolExpansion(): " + NUM_PARSERS
+					+ " parsers in " + (theTime / 1000000) + " ms, "
+					+ (theTime / NUM_PARSERS / 1000) + " us per parser");
+
+			for (int j = 0; j < NUM_PARSERS; j++) {
+				parse(theParsers[j], HELLO);
+			}
+		}
+	}
+
+	/**
+	 * Parses packets concurrently with parsers that share the grammar pool
+	 * and symbol table, and verifies that validation still rejects an invalid
+	 * packet.
+	 */
+	public void testConcurrentParse() {
+		final Throwable theErrors[] = new Throwable[NUM_THREADS];
+		Thread theThreads[] = new Thread[NUM_THREADS];
+
+		for (int i = 0; i < NUM_THREADS; i++) {
+			final int theIndex = i;
+			theThreads[i] = new Thread("EPPSchemaGrammarPoolTst-" + i) {
+
+				public void run() {
+					try {
+						EPPSchemaCachingParser theParser = new EPPSchemaCachingParser();
+						for (int j = 0; j < 100 * numIterations; j++) {
+							parse(theParser, HELLO);
+						}
+					}
+					catch (Throwable ex) {
+						theErrors[theIndex] = ex;
+					}
+				}
+			};
+			theThreads[i].start();
+		}
+
+		for (int i = 0; i < NUM_THREADS; i++) {
+			try {
+				theThreads[i].join();
+			}
+			catch (InterruptedException ex) {
+				Assert.fail("testConcurrentParse(): Interrupted");
+			}
+			if (theErrors[i] != null) {
+				Assert.fail("testConcurrentParse(): Thread " + i + " error: "
+						+ theErrors[i]);
+			}
+		}
+
+		if (EPPEnv.getValidating()) {
+			try {
+				new EPPSchemaCachingParser().parse(new ByteArrayInputStream(
+						INVALID.getBytes()));
+				Assert.fail("testConcurrentParse(): Invalid packet passed validation");
+			}
+			catch (Exception ex) {
+				// Expected
+			}
+		}
+	}
+
+	/**
+	 * Verifies that adding an XML schema replaces the shared grammar pool
+	 * with a new locked grammar pool that has the grammars of the previous
+	 * one, without changing the grammar pool that existing parsers use.
+	 */
+	public void testAddSchema() {
+		for (int i = 0; i < numIterations; i++) {
+			EPPSchemaGrammarPool thePool = new EPPSchemaGrammarPool();
+			try {
+				thePool.init();
+			}
+			catch (EPPParserException ex) {
+				Assert.fail("testAddSchema(): Error compiling XML schemas: " + ex);
+			}
+
+			XMLGrammarPool theOldPool = thePool.getGrammarPool();
+			Set theOldNamespaces = getNamespaces(thePool);
+
+			String theSchemaName = (String) EPPFactory.getInstance()
+					.getXmlSchemas().iterator().next();
+			try {
+				thePool.addSchema(new XMLInputSource(theSchemaName,
+						theSchemaName, theSchemaName, getClass()
+								.getClassLoader().getResourceAsStream(
+										"schemas/" + theSchemaName), null));
+			}
+			catch (EPPParserException ex) {
+				Assert.fail("testAddSchema(): Error adding XML schema "
+						+ theSchemaName + ": " + ex);
+			}
+
+			Assert.assertTrue("Shared grammar pool modified in place",
+					theOldPool != thePool.getGrammarPool());
+			Assert.assertEquals(theOldNamespaces, getNamespaces(thePool));
+			Assert.assertEquals(theOldNamespaces.size(), theOldPool
+					.retrieveInitialGrammarSet(XMLGrammarDescription.XML_SCHEMA).length);
+		}
+	}
+
+	/**
+	 * Parses a packet and checks the root element.
+	 *
+	 * @param aParser
+	 *            Parser to use
+	 * @param aPacket
+	 *            Packet to parse
+	 */
+	private static void parse(EPPSchemaCachingParser aParser, String aPacket) {
+		try {
+			Document theDoc = aParser.parse(new ByteArrayInputStream(aPacket
+					.getBytes("UTF-8")));
+			Assert.assertEquals("epp", theDoc.getDocumentElement()
+					.getLocalName());
+		}
+		catch (Exception ex) {
+			Assert.fail("parse(): Error parsing packet: " + ex);
+		}
+	}
+
+	/**
+	 * JUNIT <code>suite</code> static method, which returns the tests
+	 * associated with <code>EPPSchemaGrammarPoolTst</code>. The
+	 * <code>EPPCodec</code> and the shared grammar pool are initialized
+	 * before running the tests.
+	 *
+	 * @return Test suite
+	 */
+	public static Test suite() {
+		TestSuite suite = new TestSuite(EPPSchemaGrammarPoolTst.class);
+
+		String theConfigFileName = System.getProperty("EPP.ConfigFile");
+		if (theConfigFileName != null) {
+			configFileName = theConfigFileName;
+		}
+
+		try {
+			EPPEnvSingle.getInstance().initialize(configFileName);
+			EPPCodec.getInstance().init(EPPEnv.getMapFactories());
+			EPPSchemaGrammarPool.getInstance().init();
+		}
+		catch (Exception ex) {
+			Assert.fail("Error initializing the environment with "
+					+ configFileName + ": " + ex);
+		}
+
+		// iterations Property
+		String numIterProp = System.getProperty("iterations");
+
+		if (numIterProp != null) {
+			numIterations = Integer.parseInt(numIterProp);
+		}
+
+		return suite;
+	}
+
+	/**
+	 * Unit test main, which accepts the following system property options:<br>
+	 *
+	 * <ul>
+	 * <li>iterations Number of unit test iterations to run</li>
+	 * <li>EPP.ConfigFile EPP configuration file to use</li>
+	 * </ul>
+	 *
+	 * @param args
+	 *            Not used
+	 */
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(EPPSchemaGrammarPoolTst.suite());
+	}
+
+	/**
+	 * Sets the number of iterations to run per test.
+	 *
+	 * @param aNumIterations
+	 *            number of iterations to run per test
+	 */
+	public static void setNumIterations(long aNumIterations) {
+		numIterations = aNumIterations;
+	}
+
+} // End class EPPSchemaGrammarPoolTst
@@ -0,0 +1,330 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Orchestrates the startup of the SDK. An <code>EPPStartup</code> instance
+ * records the time taken by each startup phase with
+ * {@link #endPhase(String)} and logs a per-phase timing breakdown with
+ * {@link #report()}, like:<br>
+ * <br>
+ * <code>client startup: environment = 15 ms, logging = 40 ms, codec = 120 ms,
+ * schemas = 850 ms, parsers = 20 ms, total = 1045 ms</code><br>
+ * <br>
+ * The static {@link #invokeAll(String, List, int)} runs independent startup
+ * tasks, like compiling the XML schemas of a dependency level or logging in
+ * the sessions of a pool, with a bounded parallelism. At most
+ * <code>aParallelism</code> worker threads are created, so the parallelism
+ * is bounded even when {@link EPPExecutors} uses virtual threads. The
+ * default parallelism is defined by the <code>EPP.StartupParallelism</code>
+ * property.
+ *
+ * @see EPPEnv#getStartupParallelism()
+ */
+public class EPPStartup {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPStartup.class.getName(),
+			EPPCatFactory.getInstance().getFactory());
+
+	/**
+	 * Name of the startup used in the report.
+	 */
+	private final String name;
+
+	/**
+	 * <code>System.nanoTime()</code> of the start of the startup.
+	 */
+	private final long start;
+
+	/**
+	 * <code>System.nanoTime()</code> of the end of the last phase.
+	 */
+	private long mark;
+
+	/**
+	 * Duration in milliseconds of each phase in the order the phases ended.
+	 */
+	private final Map<String, Long> phases = new LinkedHashMap<String, Long>();
+
+	/**
+	 * Starts timing a startup.
+	 *
+	 * @param aName
+	 *            Name of the startup used in the report, like
+	 *            <code>client</code>
+	 */
+	public EPPStartup(String aName) {
+		this.name = aName;
+		this.start = System.nanoTime();
+		this.mark = this.start;
+	}
+
+	/**
+	 * Ends a phase, which started at the end of the previous phase or at the
+	 * start of the startup. Ending a phase with the same name again adds to
+	 * its duration.
+	 *
+	 * @param aPhase
+	 *            Phase name
+	 *
+	 * @return Duration of the phase in milliseconds
+	 */
+	public synchronized long endPhase(String aPhase) {
+		long theNow = System.nanoTime();
+		long theDuration = (theNow - this.mark) / 1000000;
+		this.mark = theNow;
+
+		Long thePrevious = this.phases.get(aPhase);
+		if (thePrevious != null) {
+			theDuration += thePrevious.longValue();
+		}
+		this.phases.put(aPhase, Long.valueOf(theDuration));
+
+		cat.debug("endPhase(" + aPhase + "): " + theDuration + " ms");
+		return theDuration;
+	}
+
+	/**
+	 * Gets the duration of the ended phases.
+	 *
+	 * @return Copy of the phase durations in milliseconds in the order the
+	 *         phases ended
+	 */
+	public synchronized Map<String, Long> getPhases() {
+		return new LinkedHashMap<String, Long>(this.phases);
+	}
+
+	/**
+	 * Gets the time since the start of the startup.
+	 *
+	 * @return Elapsed time in milliseconds
+	 */
+	public long getTotal() {
+		return (System.nanoTime() - this.start) / 1000000;
+	}
+
+	/**
+	 * Logs the per-phase timing breakdown at the info level.
+	 */
+	public void report() {
+		cat.info(this.toString());
+	}
+
+	/**
+	 * Gets the per-phase timing breakdown.
+	 *
+	 * @return Name of the startup followed by the duration of each phase and
+	 *         the total duration
+	 */
+	public synchronized String toString() {
+		StringBuffer theBuffer = new StringBuffer(this.name);
+		theBuffer.append(" startup: ");
+
+		Iterator<Map.Entry<String, Long>> thePhases = this.phases.entrySet()
+				.iterator();
+		while (thePhases.hasNext()) {
+			Map.Entry<String, Long> thePhase = thePhases.next();
+			theBuffer.append(thePhase.getKey()).append(" = ")
+					.append(thePhase.getValue()).append(" ms, ");
+		}
+
+		theBuffer.append("total = ").append(this.getTotal()).append(" ms");
+		return theBuffer.toString();
+	}
+
+	/**
+	 * Runs tasks with up to <code>aParallelism</code> tasks running at the
+	 * same time. The tasks are taken in order by the worker threads, so when
+	 * <code>aParallelism</code> is <code>1</code> or less, or there is only
+	 * one task, the tasks are run sequentially in the calling thread. When a
+	 * task fails, no new tasks are started, and the first failure is thrown
+	 * once the running tasks are done. When the calling thread is
+	 * interrupted, no new tasks are started either, and the
+	 * <code>InterruptedException</code> is thrown once the running tasks are
+	 * done, so no task is still running when this method returns or throws.
+	 *
+	 * @param aName
+	 *            Name prefix of the worker threads
+	 * @param aTasks
+	 *            Tasks to run
+	 * @param aParallelism
+	 *            Maximum number of tasks run at the same time
+	 *
+	 * @return Results of the tasks in the order of <code>aTasks</code>
+	 *
+	 * @throws ExecutionException
+	 *             A task failed, with the failure as the cause
+	 * @throws InterruptedException
+	 *             Interrupted while waiting for the tasks, which are done
+	 */
+	public static <T> List<T> invokeAll(String aName,
+			final List<? extends Callable<? extends T>> aTasks, int aParallelism)
+			throws ExecutionException, InterruptedException {
+		final int theSize = aTasks.size();
+		final Object[] theResults = new Object[theSize];
+
+		if (aParallelism <= 1 || theSize <= 1) {
+			for (int i = 0; i < theSize; i++) {
+				try {
+					theResults[i] = aTasks.get(i).call();
+				}
+				catch (Exception ex) {
+					throw new ExecutionException(ex);
+				}
+			}
+		}
+		else {
+			int theWorkers = Math.min(aParallelism, theSize);
+			final AtomicInteger theNext = new AtomicInteger();
+			final AtomicReference<Throwable> theFailure = new AtomicReference<Throwable>();
+			final CountDownLatch theDone = new CountDownLatch(theWorkers);
+
+			ThreadFactory theThreadFactory = EPPExecutors
+					.newThreadFactory(aName);
+
+			for (int i = 0; i < theWorkers; i++) {
+				theThreadFactory.newThread(new Runnable() {
+
+					public void run() {
+						try {
+							int theIndex;
+							while (theFailure.get() == null
+									&& (theIndex = theNext.getAndIncrement()) < theSize) {
+								theResults[theIndex] = aTasks.get(theIndex)
+										.call();
+							}
+						}
+						catch (Throwable ex) {
+							theFailure.compareAndSet(null, ex);
+						}
+						finally {
+							theDone.countDown();
+						}
+					}
+				}).start();
+			}
+
+			try {
+				theDone.await();
+			}
+			catch (InterruptedException ex) {
+				// Stop starting new tasks and wait for the running tasks
+				theFailure.compareAndSet(null, ex);
+				while (theDone.getCount() > 0) {
+					try {
+						theDone.await();
+					}
+					catch (InterruptedException ex1) {
+						// Keep waiting
+					}
+				}
+				throw ex;
+			}
+
+			if (theFailure.get() != null) {
+				throw new ExecutionException(theFailure.get());
+			}
+		}
+
+		List<T> theList = new ArrayList<T>(theSize);
+		for (int i = 0; i < theSize; i++) {
+			@SuppressWarnings("unchecked")
+			T theResult = (T) theResults[i];
+			theList.add(theResult);
+		}
+		return theList;
+	}
+
+	/**
+	 * Loads and initializes classes in parallel, so that the static
+	 * initialization of independent classes, like the map and extension
+	 * factories, is not done one class at a time. Classes that can not be
+	 * loaded are only logged, so that the error is reported by the code that
+	 * uses the class.
+	 *
+	 * @param aLoader
+	 *            Class loader used to load the classes
+	 * @param aClassNames
+	 *            Fully qualified class names
+	 * @param aParallelism
+	 *            Maximum number of classes loaded at the same time
+	 *
+	 * @return Number of classes loaded
+	 */
+	public static int loadClasses(final ClassLoader aLoader,
+			Collection<String> aClassNames, int aParallelism) {
+		List<Callable<Boolean>> theTasks = new ArrayList<Callable<Boolean>>();
+
+		Iterator<String> theNames = aClassNames.iterator();
+		while (theNames.hasNext()) {
+			final String theName = theNames.next();
+			theTasks.add(new Callable<Boolean>() {
+
+				public Boolean call() {
+					try {
+						Class.forName(theName, true, aLoader);
+						return Boolean.TRUE;
+					}
+					catch (Throwable ex) {
+						cat.debug("loadClasses(): Error loading class "
+								+ theName + ": " + ex);
+						return Boolean.FALSE;
+					}
+				}
+			});
+		}
+
+		int theLoaded = 0;
+		try {
+			List<Boolean> theResults = invokeAll("EPPStartup-classes",
+					theTasks, aParallelism);
+			for (int i = 0; i < theResults.size(); i++) {
+				if (theResults.get(i).booleanValue()) {
+					theLoaded++;
+				}
+			}
+		}
+		catch (ExecutionException ex) {
+			cat.error("loadClasses(): Error loading classes: " + ex.getCause());
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+
+		return theLoaded;
+	}
+
+}
@@ -0,0 +1,291 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+//----------------------------------------------
+//
+// imports...
+//
+//----------------------------------------------
+
+// Java Core Imports
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// JUNIT Imports
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Is a unit test of <code>EPPStartup</code>. The tests run slow tasks, like
+ * session logins, with a bounded parallelism, and check the results, the
+ * failure handling and the per-phase timing report.
+ */
+public class EPPStartupTst extends TestCase {
+
+	/**
+	 * Number of unit test iterations to run. This is set with the
+	 * <code>iterations</code> system property.
+	 */
+	static private long numIterations = 1;
+
+	/** Number of tasks run */
+	private static final int NUM_TASKS = 50;
+
+	/** Maximum number of tasks run at the same time */
+	private static final int PARALLELISM = 10;
+
+	/** Time in milliseconds taken by each task */
+	private static final long TASK_TIME = 20;
+
+	/**
+	 * Allocates a new instance of <code>EPPStartupTst</code>.
+	 *
+	 * @param name
+	 *            Name of test
+	 */
+	public EPPStartupTst(String name) {
+		super(name);
+	}
+
+	/**
+	 * Runs slow tasks with a bounded parallelism, and checks that the
+	 * results are in order, that no more than the parallelism tasks run at
+	 * the same time, and that it is faster than running the tasks one at a
+	 * time.
+	 */
+	public void testInvokeAll() {
+		for (int i = 0; i < numIterations; i++) {
+			final AtomicInteger theRunning = new AtomicInteger();
+			final AtomicInteger theMaxRunning = new AtomicInteger();
+
+			List<Callable<Integer>> theTasks = new ArrayList<Callable<Integer>>();
+			for (int j = 0; j < NUM_TASKS; j++) {
+				final int theNum = j;
+				theTasks.add(new Callable<Integer>() {
+
+					public Integer call() throws Exception {
+						int theCurrent = theRunning.incrementAndGet();
+						int theMax;
+						while ((theMax = theMaxRunning.get()) < theCurrent
+								&& !theMaxRunning.compareAndSet(theMax,
+										theCurrent)) {
+						}
+
+						Thread.sleep(TASK_TIME);
+						theRunning.decrementAndGet();
+						return Integer.valueOf(theNum);
+					}
+				});
+			}
+
+			long theStart = System.currentTimeMillis();
+			List<Integer> theResults = null;
+			try {
+				theResults = EPPStartup.invokeAll("EPPStartupTst", theTasks,
+						PARALLELISM);
+			}
+			catch (Exception ex) {
+				Assert.fail("testInvokeAll(): Error running tasks: " + ex);
+			}
+			long theTime = System.currentTimeMillis() - theStart;
+
+			Assert.assertEquals(NUM_TASKS, theResults.size());
+			for (int j = 0; j < NUM_TASKS; j++) {
+				Assert.assertEquals(j, theResults.get(j).intValue());
+			}
+			Assert.assertTrue("Max running = " + theMaxRunning.get(),
+					theMaxRunning.get() <= PARALLELISM);
+			Assert.assertTrue("Tasks not run in parallel, time = " + theTime
+					+ " ms", theTime < NUM_TASKS * TASK_TIME);
+
+			System.out.println("testInvokeAll(): " + NUM_TASKS
+					+ " tasks of " + TASK_TIME + " ms in " + theTime
+					+ " ms, max running = " + theMaxRunning.get());
+		}
+	}
+
+	/**
+	 * Checks that the failure of a task is thrown as the cause of an
+	 * <code>ExecutionException</code>, both when run in parallel and
+	 * sequentially.
+	 */
+	public void testFailure() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			List<Callable<Object>> theTasks = new ArrayList<Callable<Object>>();
+			for (int i = 0; i < NUM_TASKS; i++) {
+				final int theNum = i;
+				theTasks.add(new Callable<Object>() {
+
+					public Object call() throws Exception {
+						if (theNum == NUM_TASKS / 2) {
+							throw new EPPParserException("task " + theNum);
+						}
+						return null;
+					}
+				});
+			}
+
+			int[] theParallelisms = { 1, PARALLELISM };
+			for (int i = 0; i < theParallelisms.length; i++) {
+				int theParallelism = theParallelisms[i];
+				try {
+					EPPStartup.invokeAll("EPPStartupTst", theTasks, theParallelism);
+					Assert.fail("testFailure(): No exception with parallelism "
+							+ theParallelism);
+				}
+				catch (ExecutionException ex) {
+					Assert.assertTrue(ex.getCause() instanceof EPPParserException);
+				}
+				catch (InterruptedException ex) {
+					Assert.fail("testFailure(): Interrupted");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks that an interrupted <code>invokeAll</code> starts no new tasks
+	 * and waits for the running tasks before throwing the
+	 * <code>InterruptedException</code>.
+	 */
+	public void testInterrupt() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			final AtomicInteger theStarted = new AtomicInteger();
+			final AtomicInteger theFinished = new AtomicInteger();
+
+			List<Callable<Object>> theTasks = new ArrayList<Callable<Object>>();
+			for (int i = 0; i < NUM_TASKS; i++) {
+				theTasks.add(new Callable<Object>() {
+
+					public Object call() throws Exception {
+						theStarted.incrementAndGet();
+						try {
+							Thread.sleep(TASK_TIME);
+						}
+						finally {
+							theFinished.incrementAndGet();
+						}
+						return null;
+					}
+				});
+			}
+
+			Thread.currentThread().interrupt();
+			try {
+				EPPStartup.invokeAll("EPPStartupTst", theTasks, PARALLELISM);
+				Assert.fail("testInterrupt(): No InterruptedException");
+			}
+			catch (InterruptedException ex) {
+				Assert.assertEquals("Tasks still running after interrupt",
+						theStarted.get(), theFinished.get());
+				Assert.assertTrue("Started = " + theStarted.get(), theStarted
+						.get() <= PARALLELISM);
+			}
+			catch (ExecutionException ex) {
+				Assert.fail("testInterrupt(): Unexpected failure: " + ex);
+			}
+			finally {
+				Thread.interrupted();
+			}
+		}
+	}
+
+	/**
+	 * Checks the phases recorded by an <code>EPPStartup</code> and its
+	 * report.
+	 */
+	public void testPhases() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			EPPStartup theStartup = new EPPStartup("test");
+
+			theStartup.endPhase("first");
+			try {
+				Thread.sleep(TASK_TIME);
+			}
+			catch (InterruptedException ex) {
+				Assert.fail("testPhases(): Interrupted");
+			}
+			theStartup.endPhase("second");
+
+			Map<String, Long> thePhases = theStartup.getPhases();
+			Assert.assertEquals(2, thePhases.size());
+			Assert.assertEquals("first", thePhases.keySet().iterator().next());
+			Assert.assertTrue(thePhases.get("second").longValue() >= TASK_TIME);
+			Assert.assertTrue(theStartup.getTotal() >= TASK_TIME);
+
+			String theReport = theStartup.toString();
+			Assert.assertTrue(theReport, theReport.startsWith("test startup: first = "));
+			Assert.assertTrue(theReport, theReport.indexOf("total = ") > 0);
+
+			System.out.println("testPhases(): " + theReport);
+		}
+	}
+
+	/**
+	 * JUNIT <code>suite</code> static method, which returns the tests
+	 * associated with <code>EPPStartupTst</code>.
+	 *
+	 * @return Test suite
+	 */
+	public static Test suite() {
+		TestSuite suite = new TestSuite(EPPStartupTst.class);
+
+		// iterations Property
+		String numIterProp = System.getProperty("iterations");
+
+		if (numIterProp != null) {
+			numIterations = Integer.parseInt(numIterProp);
+		}
+
+		return suite;
+	}
+
+	/**
+	 * Unit test main, which accepts the following system property options:<br>
+	 *
+	 * <ul>
+	 * <li>iterations Number of unit test iterations to run</li>
+	 * </ul>
+	 *
+	 * @param args
+	 *            Not used
+	 */
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(EPPStartupTst.suite());
+	}
+
+	/**
+	 * Sets the number of iterations to run per test.
+	 *
+	 * @param aNumIterations
+	 *            number of iterations to run per test
+	 */
+	public static void setNumIterations(long aNumIterations) {
+		numIterations = aNumIterations;
+	}
+
+} // End class EPPStartupTst
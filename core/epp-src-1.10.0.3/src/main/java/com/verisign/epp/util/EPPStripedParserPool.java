@@ -0,0 +1,297 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Lock-free bounded <code>EPPParserPool</code>. The idle objects are kept in
+ * an array of slots that is divided into stripes, and each thread starts
+ * looking for an idle object or a free slot in the stripe selected by its
+ * thread id, so concurrent threads mostly touch different slots. Borrowing
+ * and returning an object is a compare-and-set on a slot, without a lock or
+ * a monitor, so it does not pin the carrier thread of a virtual thread. <br>
+ * <br>
+ * The pool creates up to <code>maximumSize</code> objects. When all of them
+ * are borrowed, a new object is created anyway if <code>maximumSoft</code>
+ * is <code>true</code>; otherwise the thread waits up to the maximum wait
+ * time for an object to be returned. At most <code>capacity</code> idle
+ * objects are kept, and objects returned when all slots are taken are
+ * discarded, so the pool shrinks without a skimmer thread.
+ */
+public class EPPStripedParserPool extends EPPAbstractParserPool {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPStripedParserPool.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/**
+	 * Default number of idle object slots per stripe.
+	 */
+	public static final int DEFAULT_SLOTS_PER_STRIPE = 4;
+
+	/**
+	 * Maximum time in nanoseconds to park between checks for a returned
+	 * object.
+	 */
+	private static final long MAX_PARK = 1000000L;
+
+	/** Idle objects, where a <code>null</code> slot is free */
+	private final AtomicReferenceArray slots;
+
+	/** Number of slots per stripe */
+	private final int slotsPerStripe;
+
+	/** Number of stripes minus one, where the number of stripes is a power of two */
+	private final int stripeMask;
+
+	/** Number of objects created and not discarded */
+	private final AtomicInteger numObjects = new AtomicInteger();
+
+	/** Maximum number of objects */
+	private final int maxSize;
+
+	/** Create objects beyond <code>maxSize</code>? */
+	private final boolean maxSoft;
+
+	/** Maximum time in nanoseconds to wait for an object */
+	private final long maxWait;
+
+	/**
+	 * Creates a striped pool with one stripe per processor.
+	 *
+	 * @param aName
+	 *            Pool name
+	 * @param aObjectType
+	 *            Fully qualified class name of the pooled objects
+	 * @param aInitialObjects
+	 *            Number of objects created up front
+	 * @param aMaxSize
+	 *            Maximum number of objects
+	 * @param aMaxSoft
+	 *            Create objects beyond <code>aMaxSize</code> instead of
+	 *            waiting?
+	 * @param aMaxWait
+	 *            Maximum time in milliseconds to wait for an object when
+	 *            <code>aMaxSoft</code> is <code>false</code>
+	 */
+	public EPPStripedParserPool(String aName, String aObjectType,
+			int aInitialObjects, int aMaxSize, boolean aMaxSoft, long aMaxWait) {
+		super(aName, aObjectType);
+
+		int theStripes = 1;
+		while (theStripes < Runtime.getRuntime().availableProcessors()) {
+			theStripes <<= 1;
+		}
+
+		int theMaxSize = aMaxSize > 0 ? aMaxSize : Integer.MAX_VALUE;
+		int theCapacity = Math.min(theMaxSize, Math.max(aInitialObjects,
+				theStripes * DEFAULT_SLOTS_PER_STRIPE));
+		int theSlotsPerStripe = (theCapacity + theStripes - 1) / theStripes;
+
+		this.slots = new AtomicReferenceArray(theStripes * theSlotsPerStripe);
+		this.slotsPerStripe = theSlotsPerStripe;
+		this.stripeMask = theStripes - 1;
+		this.maxSize = theMaxSize;
+		this.maxSoft = aMaxSoft;
+		this.maxWait = aMaxWait * 1000000L;
+
+		int theInitialObjects = Math.min(aInitialObjects, this.slots.length());
+		for (int i = 0; i < theInitialObjects; i++) {
+			try {
+				Object theObject = createObject();
+				this.numObjects.incrementAndGet();
+				this.slots.set(i, theObject);
+			}
+			catch (EPPParserException ex) {
+				cat.error("EPPStripedParserPool(" + aName
+						+ "): Error creating initial objects: " + ex);
+				break;
+			}
+		}
+
+		cat.info("EPPStripedParserPool(" + aName + "): " + theStripes
+				+ " stripes, " + this.slots.length() + " slots, "
+				+ theInitialObjects + " initial objects");
+	}
+
+	/**
+	 * Borrows an idle object, or creates a new one when none is idle and the
+	 * pool is not exhausted. If the pool is exhausted and
+	 * <code>maximumSoft</code> is <code>false</code>, waits for an object to
+	 * be returned.
+	 *
+	 * @return Borrowed object
+	 *
+	 * @throws EPPParserException
+	 *             Error creating an object or timeout waiting for an object
+	 */
+	public Object borrowObject() throws EPPParserException {
+		long theStart = System.nanoTime();
+		int theStripe = stripe();
+		long thePark = 1000L;
+
+		for (;;) {
+			Object theObject = poll(theStripe);
+			if (theObject != null) {
+				borrowed(System.nanoTime() - theStart);
+				return theObject;
+			}
+
+			if (reserve()) {
+				try {
+					theObject = createObject();
+				}
+				catch (EPPParserException ex) {
+					this.numObjects.decrementAndGet();
+					throw ex;
+				}
+				borrowed(System.nanoTime() - theStart);
+				return theObject;
+			}
+
+			long theWait = System.nanoTime() - theStart;
+			if (this.maxWait > 0 && theWait >= this.maxWait) {
+				borrowed(theWait);
+				throw new EPPParserException("EPPStripedParserPool "
+						+ getName() + ": Timeout waiting for object after "
+						+ (theWait / 1000000L) + " ms");
+			}
+
+			LockSupport.parkNanos(thePark);
+			if (Thread.interrupted()) {
+				Thread.currentThread().interrupt();
+				throw new EPPParserException("EPPStripedParserPool "
+						+ getName() + ": Interrupted waiting for object");
+			}
+			thePark = Math.min(thePark << 1, MAX_PARK);
+		}
+	}
+
+	/**
+	 * Returns an object to a free slot, or discards it when all slots are
+	 * taken.
+	 *
+	 * @param aObject
+	 *            Borrowed object
+	 */
+	public void returnObject(Object aObject) {
+		if (aObject == null) {
+			return;
+		}
+
+		int theLength = this.slots.length();
+		int theBase = stripe() * this.slotsPerStripe;
+		for (int i = 0; i < theLength; i++) {
+			int theIndex = (theBase + i) % theLength;
+			if (this.slots.get(theIndex) == null
+					&& this.slots.compareAndSet(theIndex, null, aObject)) {
+				return;
+			}
+		}
+
+		this.numObjects.decrementAndGet();
+		cat.debug("returnObject(): Discarded object, all slots are taken");
+	}
+
+	/**
+	 * Gets the number of objects created by the pool that are not discarded.
+	 *
+	 * @return Number of borrowed and idle objects
+	 */
+	public int getNumObjects() {
+		return this.numObjects.get();
+	}
+
+	/**
+	 * Gets the maximum number of idle objects.
+	 *
+	 * @return Number of slots
+	 */
+	public int getCapacity() {
+		return this.slots.length();
+	}
+
+	/**
+	 * Discards the idle objects.
+	 */
+	public void close() {
+		for (int i = 0; i < this.slots.length(); i++) {
+			if (this.slots.getAndSet(i, null) != null) {
+				this.numObjects.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Takes an idle object, starting with the slots of <code>aStripe</code>.
+	 *
+	 * @param aStripe
+	 *            Stripe of the current thread
+	 *
+	 * @return Idle object if found; <code>null</code> otherwise.
+	 */
+	private Object poll(int aStripe) {
+		int theLength = this.slots.length();
+		int theBase = aStripe * this.slotsPerStripe;
+		for (int i = 0; i < theLength; i++) {
+			int theIndex = (theBase + i) % theLength;
+			Object theObject = this.slots.get(theIndex);
+			if (theObject != null
+					&& this.slots.compareAndSet(theIndex, theObject, null)) {
+				return theObject;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Reserves the creation of a new object.
+	 *
+	 * @return <code>true</code> if a new object can be created;
+	 *         <code>false</code> if the pool is exhausted.
+	 */
+	private boolean reserve() {
+		for (;;) {
+			int theNum = this.numObjects.get();
+			if (theNum >= this.maxSize && !this.maxSoft) {
+				return false;
+			}
+			if (this.numObjects.compareAndSet(theNum, theNum + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Gets the stripe of the current thread.
+	 *
+	 * @return Stripe index
+	 */
+	private int stripe() {
+		long theId = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+		return (int) (theId >>> 32) & this.stripeMask;
+	}
+
+} // End class EPPStripedParserPool
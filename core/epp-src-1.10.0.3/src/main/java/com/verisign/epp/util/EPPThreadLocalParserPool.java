@@ -0,0 +1,121 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+/**
+ * Thread-confined <code>EPPParserPool</code> that keeps one object per
+ * thread in a <code>ThreadLocal</code>, so borrowing and returning an object
+ * never touches shared state. The object of a thread is created on the first
+ * borrow. When a thread borrows a second object before returning the first
+ * one, a temporary object is created that is discarded on return. <br>
+ * <br>
+ * This pool fits a fixed set of long-lived threads, like a worker pool of
+ * platform threads. With a thread per connection or virtual threads, each
+ * new thread creates its own object, so <code>EPPStripedParserPool</code>
+ * should be used instead.
+ */
+public class EPPThreadLocalParserPool extends EPPAbstractParserPool {
+
+	/**
+	 * Object of a thread and whether it is borrowed.
+	 */
+	private static final class Holder {
+
+		/** Object of the thread */
+		Object object;
+
+		/** Is <code>object</code> borrowed? */
+		boolean borrowed;
+	}
+
+	/**
+	 * Objects of the threads, which is replaced by {@link #close()}.
+	 */
+	private volatile ThreadLocal holders = new ThreadLocal();
+
+	/**
+	 * Creates a thread-confined pool.
+	 *
+	 * @param aName
+	 *            Pool name
+	 * @param aObjectType
+	 *            Fully qualified class name of the pooled objects
+	 */
+	public EPPThreadLocalParserPool(String aName, String aObjectType) {
+		super(aName, aObjectType);
+	}
+
+	/**
+	 * Borrows the object of the current thread, which is created on the
+	 * first borrow.
+	 *
+	 * @return Borrowed object
+	 *
+	 * @throws EPPParserException
+	 *             Error creating the object
+	 */
+	public Object borrowObject() throws EPPParserException {
+		long theStart = System.nanoTime();
+		ThreadLocal theHolders = this.holders;
+		Holder theHolder = (Holder) theHolders.get();
+
+		if (theHolder == null) {
+			theHolder = new Holder();
+			theHolder.object = createObject();
+			theHolders.set(theHolder);
+		}
+
+		Object theObject;
+		if (theHolder.borrowed) {
+			// Nested borrow on the same thread
+			theObject = createObject();
+		}
+		else {
+			theHolder.borrowed = true;
+			theObject = theHolder.object;
+		}
+
+		borrowed(System.nanoTime() - theStart);
+		return theObject;
+	}
+
+	/**
+	 * Returns the object of the current thread. Other objects are discarded.
+	 *
+	 * @param aObject
+	 *            Borrowed object
+	 */
+	public void returnObject(Object aObject) {
+		Holder theHolder = (Holder) this.holders.get();
+
+		if (theHolder != null && theHolder.object == aObject) {
+			theHolder.borrowed = false;
+		}
+	}
+
+	/**
+	 * Drops the objects of all threads, which are created again on the next
+	 * borrow.
+	 */
+	public void close() {
+		this.holders = new ThreadLocal();
+	}
+
+} // End class EPPThreadLocalParserPool
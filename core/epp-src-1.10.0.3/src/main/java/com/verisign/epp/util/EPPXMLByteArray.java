@@ -20,9 +20,9 @@
 
 package com.verisign.epp.util;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -36,7 +36,6 @@ import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
-import com.codestudio.util.GenericPoolManager;
 import com.verisign.epp.exception.EPPException;
 import com.verisign.epp.framework.EPPAssemblerException;
 
@@ -61,12 +60,23 @@ public class EPPXMLByteArray {
 			EPPXMLByteArray.class.getName() + ".packet", EPPCatFactory
 					.getInstance().getFactory());
 
+	/**
+	 * Reusable input stream per thread that the parser reads the packets
+	 * from in place.
+	 */
+	private static final ThreadLocal<EPPByteBufferInputStream> inputs = new ThreadLocal<EPPByteBufferInputStream>() {
+
+		protected EPPByteBufferInputStream initialValue() {
+			return new EPPByteBufferInputStream();
+		}
+	};
+
 	/**
 	 * Pool Manager that could contain the EPP XML Parser Pool (
 	 * <code>poolName</code>). If this is <code>null</code> there will be one
 	 * XML parser created per call to <code>read</code>.
 	 */
-	private GenericPoolManager manager = null;
+	private EPPParserPoolManager manager = null;
 
 	/** Name of XML Parser Pool contained in <code>manager</code>. */
 	private String parserPoolName = null;
@@ -100,7 +110,7 @@ public class EPPXMLByteArray {
 	 *            Pool name to use
 	 */
 	public EPPXMLByteArray(String aParserPoolName) {
-		this.manager = GenericPoolManager.getInstance();
+		this.manager = EPPParserPoolManager.getInstance();
 		this.parserPoolName = aParserPoolName;
 		this.transformerPoolName = EPPTransformer.POOL;
 	}
@@ -121,7 +131,7 @@ public class EPPXMLByteArray {
 	 *            Transformer pool name to use
 	 */
 	public EPPXMLByteArray(String aParserPoolName, String aTransformerPoolName) {
-		this.manager = GenericPoolManager.getInstance();
+		this.manager = EPPParserPoolManager.getInstance();
 		this.parserPoolName = aParserPoolName;
 		this.transformerPoolName = aTransformerPoolName;
 	}
@@ -130,8 +140,8 @@ public class EPPXMLByteArray {
 	 * Decodes(parses) and validates the <code>aPacket</code> parameter and
 	 * returns the associated DOM Document. The XML parser is either created per
 	 * call, or is retrieved from a parser pool when
-	 * <code>EPPXMLByteArray(GenericPoolManager)</code> is used. Use of a parser
-	 * pool is recommended.
+	 * <code>EPPXMLByteArray(String)</code> is used. Use of a parser pool is
+	 * recommended.
 	 * 
 	 * @param aPacket
 	 *            The byte array containing the EPP packet.
@@ -146,21 +156,124 @@ public class EPPXMLByteArray {
 	 */
 	public Document decode(byte[] aPacket) throws EPPAssemblerException,
 			EPPException, IOException {
-		LOG.debug("decode(): enter");
 
 		// Validate argument
 		if (aPacket == null) {
 			throw new EPPException("decode(): BAD ARGUMENT (aPacket)");
 		}
 
+		return this.decode(aPacket, 0, aPacket.length);
+	}
+
+	/**
+	 * Decodes(parses) and validates <code>aLength</code> bytes of the
+	 * <code>aPacket</code> parameter starting at <code>aOffset</code> and
+	 * returns the associated DOM Document. This allows a packet to be parsed
+	 * directly from a reusable frame buffer without copying it.
+	 * 
+	 * @param aPacket
+	 *            The byte array containing the EPP packet.
+	 * @param aOffset
+	 *            Offset of the packet in <code>aPacket</code>
+	 * @param aLength
+	 *            Length of the packet in bytes
+	 * @return Parsed DOM Document of packet
+	 * @exception EPPException
+	 *                Error with received packet or end of stream. It is
+	 *                recommended that the stream be closed.
+	 * @exception EPPAssemblerException
+	 *                Error parsing packet
+	 * @exception IOException
+	 *                Error reading packet from stream
+	 */
+	public Document decode(byte[] aPacket, int aOffset, int aLength)
+			throws EPPAssemblerException, EPPException, IOException {
+
+		// Validate argument
+		if (aPacket == null) {
+			throw new EPPException("decode(): BAD ARGUMENT (aPacket)");
+		}
+
+		if (PACKET_LOG.isDebugEnabled()) {
+			PACKET_LOG.debug("decode() : epp packet ["
+					+ new String(aPacket, aOffset, aLength) + "]");
+		}
+
+		EPPByteBufferInputStream theInput = inputs.get();
+		theInput.setInput(aPacket, aOffset, aLength);
+		return this.decode(theInput);
+	}
+
+	/**
+	 * Decodes(parses) and validates the remaining bytes of the
+	 * <code>aPacket</code> buffer and returns the associated DOM Document. The
+	 * buffer is read in place, whether it is a heap or a direct buffer, and
+	 * its position is not changed.
+	 * 
+	 * @param aPacket
+	 *            Buffer containing the EPP packet between its position and
+	 *            limit
+	 * @return Parsed DOM Document of packet
+	 * @exception EPPException
+	 *                Error with received packet or end of stream. It is
+	 *                recommended that the stream be closed.
+	 * @exception EPPAssemblerException
+	 *                Error parsing packet
+	 * @exception IOException
+	 *                Error reading packet from stream
+	 */
+	public Document decode(ByteBuffer aPacket) throws EPPAssemblerException,
+			EPPException, IOException {
+
+		// Validate argument
+		if (aPacket == null) {
+			throw new EPPException("decode(): BAD ARGUMENT (aPacket)");
+		}
+
+		if (PACKET_LOG.isDebugEnabled()) {
+			byte[] theBytes = new byte[aPacket.remaining()];
+			aPacket.duplicate().get(theBytes);
+			PACKET_LOG.debug("decode() : epp packet [" + new String(theBytes)
+					+ "]");
+		}
+
+		EPPByteBufferInputStream theInput = inputs.get();
+		theInput.setInput(aPacket);
+		return this.decode(theInput);
+	}
+
+	/**
+	 * Parses and validates the packet of the reusable input stream, which is
+	 * closed on return.
+	 * 
+	 * @param aInput
+	 *            Input stream set to the packet
+	 * @return Parsed DOM Document of packet
+	 * @exception EPPException
+	 *                Error checking out the parser
+	 * @exception EPPAssemblerException
+	 *                Error parsing packet
+	 * @exception IOException
+	 *                Error reading packet
+	 */
+	private Document decode(EPPByteBufferInputStream aInput)
+			throws EPPAssemblerException, EPPException, IOException {
+		LOG.debug("decode(): enter");
+
 		DocumentBuilder theBuilder = null;
 		Document theDoc = null;
 
 		// Parser pool specified?
-		if (this.manager != null
-				&& (this.manager.getPool(this.parserPoolName) != null)) {
-			theBuilder = (DocumentBuilder) this.manager
-					.requestObject(this.parserPoolName);
+		EPPParserPool thePool = null;
+		if (this.manager != null) {
+			thePool = this.manager.getPool(this.parserPoolName);
+		}
+
+		if (thePool != null) {
+			long theStart = System.nanoTime();
+			theBuilder = (DocumentBuilder) thePool.borrowObject();
+			EPPMetricsManager.getMetrics().recordParserCheckout(
+					this.parserPoolName, System.nanoTime() - theStart);
 			theBuilder.setErrorHandler(new EPPXMLErrorHandler());
 			LOG.debug("decode(): Parser " + theBuilder
 					+ " checked out from pool");
@@ -172,22 +285,18 @@ public class EPPXMLByteArray {
 			LOG.debug("decode(): Created new EPPSchemaCachingParser");
 		}
 
-		if (PACKET_LOG.isDebugEnabled()) {
-			PACKET_LOG.debug("decode() : epp packet [" + new String(aPacket)
-					+ "]");
-		}
-
 		try {
 			try {
 				// Parse/validate EPP Packet and create DOM document
-				theDoc = theBuilder.parse(new ByteArrayInputStream(aPacket));
+				theDoc = theBuilder.parse(aInput);
 			}
 			catch (SAXParseException ex) {
 				// Error generated by parser
-				LOG.debug(aPacket + "\nline      " + ex.getLineNumber()
-						+ "\ncolumn    " + ex.getColumnNumber()
-						+ "\nuri       " + ex.getSystemId() + "\nMessage : "
-						+ ex.getMessage(), ex);
+				LOG.debug("decode(): [SAXParseException]" + "\nline      "
+						+ ex.getLineNumber() + "\ncolumn    "
+						+ ex.getColumnNumber() + "\nuri       "
+						+ ex.getSystemId() + "\nMessage : " + ex.getMessage(),
+						ex);
 				throw new EPPAssemblerException("[SAXParseException]"
 						+ "\nline      " + ex.getLineNumber() + "\ncolumn    "
 						+ ex.getColumnNumber() + "\nuri       "
@@ -197,17 +306,17 @@ public class EPPXMLByteArray {
 			}
 			catch (SAXException ex) {
 				// Error generated by this application
-				LOG.debug("decode(): [SAXException]" + aPacket, ex);
+				LOG.debug("decode(): [SAXException]", ex);
 				throw new EPPAssemblerException("[SAXException] " + ex,
 						EPPAssemblerException.XML);
 			}
 		}
 		finally {
+			aInput.close();
+
 			// Check in pool object
-			if (this.manager != null
-					&& (this.manager.getPool(this.parserPoolName) != null)
-					&& theBuilder != null) {
-				this.manager.returnObject(theBuilder, this.parserPoolName);
+			if (thePool != null) {
+				thePool.returnObject(theBuilder);
 				LOG.debug("decode(): Parser " + theBuilder
 						+ " returned to pool");
 			}
@@ -241,11 +350,17 @@ public class EPPXMLByteArray {
 
 		Transformer trans = null;
 
+		EPPParserPool thePool = null;
+		if (this.manager != null) {
+			thePool = this.manager.getPool(this.transformerPoolName);
+		}
+
 		try {
-			if (this.manager != null
-					&& (this.manager.getPool(this.transformerPoolName) != null)) {
-				trans = (Transformer) this.manager
-						.requestObject(this.transformerPoolName);
+			if (thePool != null) {
+				long theStart = System.nanoTime();
+				trans = (Transformer) thePool.borrowObject();
+				EPPMetricsManager.getMetrics().recordParserCheckout(
+						this.transformerPoolName, System.nanoTime() - theStart);
 				LOG.debug("encode(): Transformer " + trans
 						+ " checked out from pool");
 			}
@@ -264,10 +379,8 @@ public class EPPXMLByteArray {
 			throw new EPPException("encode: serialize() " + ex.getMessage());
 		}
 		finally {
-			if (this.manager != null
-					&& (this.manager.getPool(this.transformerPoolName) != null)
-					&& trans != null) {
-				this.manager.returnObject(trans, this.transformerPoolName);
+			if (thePool != null && trans != null) {
+				thePool.returnObject(trans);
 				LOG.debug("encode(): Transformer " + trans
 						+ " returned to pool");
 			}
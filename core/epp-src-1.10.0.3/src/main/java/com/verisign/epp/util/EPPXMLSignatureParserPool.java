@@ -21,7 +21,7 @@ import com.codestudio.util.GenericPoolMetaData;
 
 /**
  * Singleton parser pool class that initializes the parser pool 
- * at initialization, and provides a {@link #getPool()} to 
+ * at initialization, and provides a {@link #getParserPool()} to 
  * get the initialized pool.  
   */
 public class EPPXMLSignatureParserPool {
@@ -33,13 +33,20 @@ public class EPPXMLSignatureParserPool {
 			EPPCatFactory.getInstance().getFactory());
 	
 	/**
-	 * Name of PoolMan parser pool initialized by
+	 * Name of parser pool initialized by
 	 * <code>EPPXMLSignatureParserPool</code>.
 	 */
 	public static final String POOL = "EPPXMLSignatureParserPool";
 
 	private static EPPXMLSignatureParserPool instance = new EPPXMLSignatureParserPool();
 
+	/**
+	 * PoolMan settings of the pool, which are used to create the
+	 * <code>GenericPool</code> returned by {@link #getPool()} when the
+	 * parser pool is not a PoolMan pool.
+	 */
+	private final GenericPoolMetaData parserMeta;
+
 	/**
 	 * Singleton <code>getInstance</code> method for accessing the <code>EPPXMLSignatureParserPool</code> 
 	 * instance.
@@ -55,28 +62,53 @@ public class EPPXMLSignatureParserPool {
 	 */
 	private EPPXMLSignatureParserPool() {
 		cat.info("EPPXMLSignatureParserPool: initializing pool");
-		GenericPoolMetaData parserMeta = new GenericPoolMetaData();
+		this.parserMeta = new GenericPoolMetaData();
 
-		parserMeta.setName(POOL);
-		parserMeta
+		this.parserMeta.setName(POOL);
+		this.parserMeta
 				.setObjectType("com.verisign.epp.util.EPPXMLSignatureSchemaCachingParser");
-		parserMeta.setInitialObjects(EPPEnv.getXMLSignatureParserInitObjs());
-		parserMeta.setMinimumSize(EPPEnv.getXMLSignatureParserMinSize());
-		parserMeta.setMaximumSize(EPPEnv.getXMLSignatureParserMaxSize());
-		parserMeta.setMaximumSoft(EPPEnv.getXMLSignatureParserMaxSoft());
-		parserMeta.setObjectTimeout(EPPEnv.getXMLSignatureParserObjTimeout());
-		parserMeta.setUserTimeout(EPPEnv.getXMLSignatureParserUserTimeout());
-		parserMeta.setSkimmerFrequency(EPPEnv
+		this.parserMeta.setInitialObjects(EPPEnv.getXMLSignatureParserInitObjs());
+		this.parserMeta.setMinimumSize(EPPEnv.getXMLSignatureParserMinSize());
+		this.parserMeta.setMaximumSize(EPPEnv.getXMLSignatureParserMaxSize());
+		this.parserMeta.setMaximumSoft(EPPEnv.getXMLSignatureParserMaxSoft());
+		this.parserMeta.setObjectTimeout(EPPEnv.getXMLSignatureParserObjTimeout());
+		this.parserMeta.setUserTimeout(EPPEnv.getXMLSignatureParserUserTimeout());
+		this.parserMeta.setSkimmerFrequency(EPPEnv
 				.getXMLSignatureParserSkimmerFreq());
-		parserMeta.setShrinkBy(EPPEnv.getXMLSignatureParserShrinkBy());
-		parserMeta.setLogFile(EPPEnv.getXMLSignatureParserLogFile());
-		parserMeta.setDebugging(EPPEnv.getXMLSignatureParserDebug());
+		this.parserMeta.setShrinkBy(EPPEnv.getXMLSignatureParserShrinkBy());
+		this.parserMeta.setLogFile(EPPEnv.getXMLSignatureParserLogFile());
+		this.parserMeta.setDebugging(EPPEnv.getXMLSignatureParserDebug());
 
-		GenericPool parserPool = new GenericPool(parserMeta);
-		GenericPoolManager.getInstance().addPool(POOL, parserPool);
+		EPPParserPoolManager.getInstance().createPool(this.parserMeta);
 		cat.info("EPPXMLSignatureParserPool: pool initialized");
 	}
 
+	/**
+	 * Gets the PoolMan pool for getting and returning XML Signature parsers.
+	 * When <code>EPP.ParserPoolType</code> is not <code>poolman</code>, a
+	 * separate <code>GenericPool</code> is created on the first call and
+	 * added to the <code>GenericPoolManager</code>.
+	 * 
+	 * @return XML Signature PoolMan parser pool
+	 * 
+	 * @deprecated Use {@link #getParserPool()}
+	 */
+	public synchronized GenericPool getPool() {
+		EPPParserPool theParserPool = getParserPool();
+		if (theParserPool instanceof EPPPoolManParserPool) {
+			return ((EPPPoolManParserPool) theParserPool).getGenericPool();
+		}
+
+		GenericPool thePool = (GenericPool) GenericPoolManager.getInstance()
+				.getPool(POOL);
+		if (thePool == null) {
+			cat.info("getPool(): Creating PoolMan pool " + POOL);
+			thePool = new GenericPool(this.parserMeta);
+			GenericPoolManager.getInstance().addPool(POOL, thePool);
+		}
+		return thePool;
+	}
+
 	/**
 	 * Gets the pool initialized by <code>EPPXMLSignatureParserPool</code> for
 	 * getting and returning XML Signature parsers.
@@ -84,8 +116,8 @@ public class EPPXMLSignatureParserPool {
 	 * @return XML Signature parser pool initialized by
 	 *         <code>EPPXMLSignatureParserPool</code>.
 	 */
-	public GenericPool getPool() {
-		return (GenericPool) GenericPoolManager.getInstance().getPool(POOL);
+	public EPPParserPool getParserPool() {
+		return EPPParserPoolManager.getInstance().getPool(POOL);
 	}
 
 }
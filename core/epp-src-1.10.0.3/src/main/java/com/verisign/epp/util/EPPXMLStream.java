@@ -20,19 +20,22 @@ http://www.verisign.com/nds/naming/namestore/techdocs.html
 package com.verisign.epp.util;
 
 // PoolMan Imports
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 
 import org.apache.log4j.Logger;
 import org.w3c.dom.Document;
 
+import com.verisign.epp.codec.gen.EPPCodec;
+import com.verisign.epp.codec.gen.EPPMessage;
+import com.verisign.epp.codec.gen.EPPXMLReader;
+import com.verisign.epp.codec.gen.EPPXMLWriter;
 import com.verisign.epp.exception.EPPException;
 import com.verisign.epp.framework.EPPAssemblerException;
 
@@ -42,10 +45,36 @@ import com.verisign.epp.framework.EPPAssemblerException;
  * An XML parser is required when reading from the stream. There is one
  * constructor that will create an XML parser per call to
  * <code>read(InputStream)</code> and one that will use a parser pool. Use of a
- * parser pool is recommended.
+ * parser pool is recommended. <br>
+ * <br>
+ * An <code>EPPXMLStream</code> holds reusable frame buffers, so an instance
+ * should be used for a single connection and must not be used by more than
+ * one thread at a time. A connection that is read and written by different
+ * threads at the same time, like a pipelined <code>EPPSession</code>, uses
+ * one instance for reading and another for writing. The
+ * <code>getLast</code> timings are those of the last frame read or written
+ * with the instance, so they must be read by the thread that did the read
+ * or write. Each frame is written with the 4 byte header and the
+ * packet in a single write to the output stream, so that a frame is not
+ * split across TLS records.
  */
 public class EPPXMLStream {
 
+	/**
+	 * Initial size of the reusable read and write frame buffers.
+	 */
+	public static final int INITIAL_BUFFER_SIZE = 8192;
+
+	/**
+	 * Maximum size of the frame buffers that are retained between frames.
+	 * Larger frames use a temporary buffer, so that an occasional large
+	 * response does not pin memory for the life of the connection.
+	 */
+	public static final int MAX_RETAINED_BUFFER_SIZE = 65536;
+
+	/** Size of the EPP network header in bytes */
+	private static final int HEADER_SIZE = 4;
+
 	/**
 	 * Default Maximum packet size of bytes accepted to ensure that the client
 	 * is not overrun with an invalid packet or a packet that exceeds the
@@ -69,6 +98,79 @@ public class EPPXMLStream {
 	 */
 	EPPXMLByteArray byteArray;
 
+	/**
+	 * Reusable buffer for writing a frame, which includes the 4 byte header
+	 * followed by the packet.
+	 */
+	private byte[] writeBuffer = new byte[INITIAL_BUFFER_SIZE];
+
+	/**
+	 * Reusable buffer for reading the packet of a frame.
+	 */
+	private byte[] readBuffer = new byte[INITIAL_BUFFER_SIZE];
+
+	/**
+	 * Buffer of the last packet read by {@link #readFrame(InputStream,
+	 * boolean)}, which is {@link #readBuffer} unless the packet is larger
+	 * than {@link #MAX_RETAINED_BUFFER_SIZE}.
+	 */
+	private byte[] frameBuffer = null;
+
+	/**
+	 * Reusable view of {@link #readBuffer} returned by
+	 * {@link #readPacketBuffer(InputStream)}.
+	 */
+	private ByteBuffer readView = null;
+
+	/**
+	 * Reusable buffer for reading the 4 byte header of a frame.
+	 */
+	private byte[] headerBuffer = new byte[HEADER_SIZE];
+
+	/**
+	 * Reusable writer for {@link #write(EPPMessage, OutputStream)}, which
+	 * encodes the frame with the 4 byte header reserved at the start.
+	 * Created on first use.
+	 */
+	private EPPXMLWriter xmlWriter = null;
+
+	/**
+	 * Reusable reader for {@link #readMessage(InputStream)}, which decodes
+	 * the packet in the read buffer. Created on first use.
+	 */
+	private EPPXMLReader xmlReader = null;
+
+	/**
+	 * Validator for {@link #readMessage(InputStream)} when validation is
+	 * enabled with the <code>EPP.Validating</code> option. Created on first
+	 * use.
+	 */
+	private EPPSchemaCachingValidator validator = null;
+
+	/**
+	 * Nanoseconds spent encoding the last message written, not including
+	 * the encode of a DOM Document by the caller.
+	 */
+	private long lastEncodeNanos = 0;
+
+	/** Nanoseconds spent writing the last packet to the output stream */
+	private long lastWriteNanos = 0;
+
+	/** Nanoseconds spent waiting for and reading the last packet read */
+	private long lastWaitNanos = 0;
+
+	/**
+	 * Nanoseconds spent parsing the last packet read to a DOM Document, or
+	 * validating it when it was decoded without DOM.
+	 */
+	private long lastParseNanos = 0;
+
+	/**
+	 * Nanoseconds spent decoding the last packet read without DOM to an
+	 * <code>EPPMessage</code>.
+	 */
+	private long lastDecodeNanos = 0;
+
 	/** Log4j category for logging */
 	private static Logger cat = Logger.getLogger(EPPXMLStream.class.getName(),
 			EPPCatFactory.getInstance().getFactory());
@@ -100,6 +202,16 @@ public class EPPXMLStream {
 		cat.info("maxPacketSize = " + maxPacketSize);
 	}
 
+	/**
+	 * Gets the maximum packet size in bytes, including the 4 byte header, as
+	 * defined by the <code>EPP.MaxPacketSize</code> property.
+	 * 
+	 * @return Maximum packet size in bytes
+	 */
+	public static int getMaxPacketSize() {
+		return maxPacketSize;
+	}
+
 	/**
 	 * Default constructor for <code>EPPXMLStream</code>. When using this
 	 * constructor, a parser instance will be created on each call to
@@ -149,7 +261,11 @@ public class EPPXMLStream {
 
 	/**
 	 * Reads an EPP packet from the stream based on a search for the End Of
-	 * Message (EOM) string (&lt;/epp&gt;).
+	 * Message (EOM) string (&lt;/epp&gt;). The returned packet is owned by
+	 * the caller, so it is allocated per call. Use
+	 * {@link #read(InputStream)} to read and parse a packet with the reusable
+	 * per-connection buffer, or {@link #readPacketBuffer(InputStream)} to
+	 * read a packet into the reusable buffer.
 	 * 
 	 * @param aStream
 	 *            Stream to read packet from
@@ -168,6 +284,102 @@ public class EPPXMLStream {
 			InterruptedIOException, IOException {
 		cat.debug("readPacket(): enter");
 
+		long theStart = System.nanoTime();
+		int thePacketLength = this.readFrame(aStream, false);
+		byte[] thePacket = new byte[thePacketLength];
+		this.readFully(aStream, thePacket, thePacketLength);
+		this.lastWaitNanos = System.nanoTime() - theStart;
+		this.lastParseNanos = 0;
+		this.lastDecodeNanos = 0;
+
+		if (cat.isDebugEnabled()) {
+			cat.debug("readPacket(): Received packet [" + new String(thePacket)
+					+ "]");
+		}
+		cat.debug("readPacket(): exit");
+
+		return thePacket;
+	}
+
+	/**
+	 * Reads an EPP packet from the stream into the reusable read buffer of
+	 * the stream and returns a view of the packet, without allocating a
+	 * packet per call. The packet is between the position and the limit of
+	 * the returned buffer, which is reused and overwritten by the next read
+	 * of this <code>EPPXMLStream</code>, so the packet must be decoded, or
+	 * copied, before the next packet is read. Packets larger than
+	 * {@link #MAX_RETAINED_BUFFER_SIZE} are read into a buffer that is not
+	 * retained.
+	 * 
+	 * @param aStream
+	 *            Stream to read packet from
+	 * 
+	 * @return Buffer containing the EPP packet
+	 * 
+	 * @exception EPPException
+	 *                Error reading packet from stream. The stream should be
+	 *                closed.
+	 * @exception InterruptedIOException
+	 *                Time out reading for packet
+	 * @exception IOException
+	 *                Exception from the input stream
+	 */
+	public ByteBuffer readPacketBuffer(InputStream aStream)
+			throws EPPException, InterruptedIOException, IOException {
+		cat.debug("readPacketBuffer(): enter");
+
+		long theStart = System.nanoTime();
+		int thePacketLength = this.readFrame(aStream, true);
+		byte[] thePacket = this.frameBuffer;
+		this.lastWaitNanos = System.nanoTime() - theStart;
+		this.lastParseNanos = 0;
+		this.lastDecodeNanos = 0;
+
+		if (cat.isDebugEnabled()) {
+			cat.debug("readPacketBuffer(): Received packet ["
+					+ new String(thePacket, 0, thePacketLength) + "]");
+		}
+
+		ByteBuffer theView;
+		if (thePacket == this.readBuffer) {
+			if (this.readView == null || this.readView.array() != thePacket) {
+				this.readView = ByteBuffer.wrap(thePacket);
+			}
+			theView = this.readView;
+			theView.clear();
+		}
+		else {
+			theView = ByteBuffer.wrap(thePacket);
+		}
+		theView.limit(thePacketLength);
+
+		cat.debug("readPacketBuffer(): exit");
+
+		return theView;
+	}
+
+	/**
+	 * Reads the 4 byte header of a frame and optionally the packet into the
+	 * reusable read buffer.
+	 * 
+	 * @param aStream
+	 *            Stream to read the frame from
+	 * @param aReadPacket
+	 *            <code>true</code> to read the packet into
+	 *            {@link #frameBuffer}; <code>false</code> to only read the
+	 *            header
+	 * 
+	 * @return Length of the packet, not including the header
+	 * 
+	 * @exception EPPException
+	 *                Invalid packet header
+	 * @exception InterruptedIOException
+	 *                Time out reading for packet
+	 * @exception IOException
+	 *                Exception from the input stream
+	 */
+	private int readFrame(InputStream aStream, boolean aReadPacket)
+			throws EPPException, InterruptedIOException, IOException {
 		// Validate argument
 		if (aStream == null) {
 			cat.error("readPacket() : null stream passed");
@@ -178,13 +390,15 @@ public class EPPXMLStream {
 		// Read network header (32 bits) that defines the total length
 		// of the EPP data unit measured in octets in network (big endian)
 		// byte order.
-		DataInputStream theStream = new DataInputStream(aStream);
 		int thePacketSize = -1;
-		byte[] thePacket = null;
 
 		try {
 			// Read the packet size which includes network header itself.
-			thePacketSize = theStream.readInt();
+			this.readFully(aStream, this.headerBuffer, HEADER_SIZE);
+			thePacketSize = ((this.headerBuffer[0] & 0xFF) << 24)
+					| ((this.headerBuffer[1] & 0xFF) << 16)
+					| ((this.headerBuffer[2] & 0xFF) << 8)
+					| (this.headerBuffer[3] & 0xFF);
 
 			if (thePacketSize > maxPacketSize) {
 				cat.error("readPacket(InputStream): Packet header specifies a packet larger that the maximum of "
@@ -194,17 +408,27 @@ public class EPPXMLStream {
 								+ maxPacketSize + " bytes");
 			}
 
+			if (thePacketSize < HEADER_SIZE) {
+				cat.error("readPacket(InputStream): Packet header specifies an invalid packet size of "
+						+ thePacketSize + " bytes");
+				throw new EPPException(
+						"EPPXMLStream.readPacket() : Packet header specifies an invalid packet size of "
+								+ thePacketSize + " bytes");
+			}
+
 			cat.debug("readPacket(): Received network header with value = "
 					+ thePacketSize);
 
-			thePacket = new byte[thePacketSize - 4];
-
-			// Read the packet
-			theStream.readFully(thePacket);
+			if (aReadPacket) {
+				this.frameBuffer = this.getReadBuffer(thePacketSize
+						- HEADER_SIZE);
+				this.readFully(aStream, this.frameBuffer, thePacketSize
+						- HEADER_SIZE);
+			}
 		}
 		catch (EOFException ex) {
 			cat.error("readPacket(InputStream): EOFException while attempting to read packet, size = "
-					+ thePacketSize + ", packet = [" + thePacket + "]: " + ex);
+					+ thePacketSize + ": " + ex);
 			throw ex;
 		}
 		catch (InterruptedIOException ex) {
@@ -214,22 +438,95 @@ public class EPPXMLStream {
 		}
 		catch (IOException ex) {
 			cat.error("readPacket(InputStream): IOException while attempting to read packet, size = "
-					+ thePacketSize + ", packet = [" + thePacket + "]: " + ex);
+					+ thePacketSize + ": " + ex);
 			throw ex;
 		}
 
-		cat.debug("readPacket(): Received packet [" + new String(thePacket)
-				+ "]");
-		cat.debug("readPacket(): exit");
+		return thePacketSize - HEADER_SIZE;
+	}
 
-		return thePacket;
+	/**
+	 * Reads exactly <code>aLength</code> bytes from the stream into the
+	 * buffer.
+	 * 
+	 * @param aStream
+	 *            Stream to read from
+	 * @param aBuffer
+	 *            Buffer to read into starting at offset 0
+	 * @param aLength
+	 *            Number of bytes to read
+	 * 
+	 * @exception EOFException
+	 *                End of stream reached before <code>aLength</code> bytes
+	 *                were read
+	 * @exception IOException
+	 *                Exception from the input stream
+	 */
+	private void readFully(InputStream aStream, byte[] aBuffer, int aLength)
+			throws IOException {
+		int theOffset = 0;
+		while (theOffset < aLength) {
+			int theCount = aStream.read(aBuffer, theOffset, aLength
+					- theOffset);
+			if (theCount < 0) {
+				throw new EOFException("EPPXMLStream: end of stream after "
+						+ theOffset + " of " + aLength + " bytes");
+			}
+			theOffset += theCount;
+		}
+	}
+
+	/**
+	 * Gets the read buffer with a capacity of at least <code>aSize</code>
+	 * bytes. Buffers larger than {@link #MAX_RETAINED_BUFFER_SIZE} are not
+	 * retained.
+	 * 
+	 * @param aSize
+	 *            Required capacity
+	 * 
+	 * @return Buffer to read into
+	 */
+	private byte[] getReadBuffer(int aSize) {
+		if (aSize <= this.readBuffer.length) {
+			return this.readBuffer;
+		}
+
+		byte[] theBuffer = new byte[Math.max(aSize,
+				this.readBuffer.length * 2)];
+		if (theBuffer.length <= MAX_RETAINED_BUFFER_SIZE) {
+			this.readBuffer = theBuffer;
+		}
+		return theBuffer;
+	}
+
+	/**
+	 * Gets the write buffer with a capacity of at least <code>aSize</code>
+	 * bytes. Buffers larger than {@link #MAX_RETAINED_BUFFER_SIZE} are not
+	 * retained.
+	 * 
+	 * @param aSize
+	 *            Required capacity
+	 * 
+	 * @return Buffer to build the frame in
+	 */
+	private byte[] getWriteBuffer(int aSize) {
+		if (aSize <= this.writeBuffer.length) {
+			return this.writeBuffer;
+		}
+
+		byte[] theBuffer = new byte[Math.max(aSize,
+				this.writeBuffer.length * 2)];
+		if (theBuffer.length <= MAX_RETAINED_BUFFER_SIZE) {
+			this.writeBuffer = theBuffer;
+		}
+		return theBuffer;
 	}
 
 	/**
 	 * Reads an EPP packet from the <code>aStream</code> parameter,
 	 * parses/validates it, and returns the associated DOM Document. The XML
 	 * parser is either created per call, or is retrieved from a parser pool
-	 * when <code>EPPXMLStream(GenericPoolManager)</code> is used. Use of a
+	 * when <code>EPPXMLStream(String)</code> is used. Use of a
 	 * parser pool is recommended.
 	 * 
 	 * @param aStream
@@ -257,13 +554,95 @@ public class EPPXMLStream {
 
 		Document theDoc = null;
 
-		byte[] thePacket = this.readPacket(aStream);
-		theDoc = this.byteArray.decode(thePacket);
+		// Read the packet into the reusable buffer and parse it in place
+		long theStart = System.nanoTime();
+		int thePacketLength = this.readFrame(aStream, true);
+		byte[] thePacket = this.frameBuffer;
+		long theRead = System.nanoTime();
+		this.lastWaitNanos = theRead - theStart;
+		if (cat.isDebugEnabled()) {
+			cat.debug("read(InputStream): Received packet ["
+					+ new String(thePacket, 0, thePacketLength) + "]");
+		}
+		theDoc = this.byteArray.decode(thePacket, 0, thePacketLength);
+		this.lastParseNanos = System.nanoTime() - theRead;
+		this.lastDecodeNanos = 0;
 
 		cat.debug("read(InputStream): exit");
 
 		return theDoc;
 	}
+
+	/**
+	 * Reads an EPP packet from the <code>aStream</code> parameter and decodes
+	 * it directly into a concrete <code>EPPMessage</code> with an
+	 * <code>EPPXMLReader</code>, without building a DOM Document for the
+	 * responses that are stream decodable. When the <code>EPP.Validating</code>
+	 * option is enabled, the packet is first validated with a SAX pass over
+	 * the shared XML schema grammar pool.
+	 * 
+	 * @param aStream
+	 *            Input stream to read for an EPP packet.
+	 * 
+	 * @return Decoded concrete <code>EPPMessage</code>
+	 * 
+	 * @exception EPPException
+	 *                Error with received packet, error decoding the packet,
+	 *                or end of stream. It is recommended that the stream be
+	 *                closed.
+	 * @exception EPPAssemblerException
+	 *                Error parsing or validating packet
+	 * @exception IOException
+	 *                Error reading packet from stream
+	 */
+	public EPPMessage readMessage(InputStream aStream)
+			throws EPPAssemblerException, EPPException, IOException {
+		cat.debug("readMessage(InputStream): enter");
+
+		// Validate argument
+		if (aStream == null) {
+			throw new EPPException(
+					"EPPXMLStream.readMessage() : BAD ARGUMENT (aStream)");
+		}
+
+		// Read the packet into the reusable buffer and decode it in place
+		long theStart = System.nanoTime();
+		int thePacketLength = this.readFrame(aStream, true);
+		byte[] thePacket = this.frameBuffer;
+		long theRead = System.nanoTime();
+		this.lastWaitNanos = theRead - theStart;
+		if (cat.isDebugEnabled()) {
+			cat.debug("readMessage(InputStream): Received packet ["
+					+ new String(thePacket, 0, thePacketLength) + "]");
+		}
+
+		if (EPPEnv.getValidating()) {
+			if (this.validator == null) {
+				this.validator = new EPPSchemaCachingValidator();
+			}
+			this.validator.validate(thePacket, 0, thePacketLength);
+		}
+		long theValidated = System.nanoTime();
+		this.lastParseNanos = theValidated - theRead;
+
+		if (this.xmlReader == null) {
+			this.xmlReader = new EPPXMLReader();
+		}
+
+		EPPMessage theMessage = null;
+		try {
+			this.xmlReader.setInput(thePacket, 0, thePacketLength);
+			theMessage = EPPCodec.getInstance().decode(this.xmlReader);
+		}
+		finally {
+			this.xmlReader.close();
+		}
+		this.lastDecodeNanos = System.nanoTime() - theValidated;
+
+		cat.debug("readMessage(InputStream): exit");
+
+		return theMessage;
+	}
 	
 	/**
 	 * Decodes the passed in packet <code>byte[]</code> into a DOM 
@@ -276,16 +655,42 @@ public class EPPXMLStream {
 	 * @throws IOException Basic IO error decoding the packet.
 	 */
 	public Document decodePacket(byte[] aPacket) throws EPPException, IOException {
-		packetCat.debug("decodePacket() : Received [" + new String(aPacket) + "]");
+		if (packetCat.isDebugEnabled()) {
+			packetCat.debug("decodePacket() : Received [" + new String(aPacket) + "]");
+		}
 		
 		Document theDoc = this.byteArray.decode(aPacket);
 				
 		return theDoc;
 	}
 	
+	/**
+	 * Decodes the packet between the position and the limit of the passed in
+	 * buffer into a DOM <code>Document</code>. The buffer is parsed in place
+	 * and its position is not changed, so a buffer returned by
+	 * {@link #readPacketBuffer(InputStream)} is decoded without a copy.
+	 * 
+	 * @param aPacket Buffer containing the packet to decode
+	 * @return Decoded DOM <code>Document</code>
+	 * 
+	 * @throws EPPException Error decoding the packet.
+	 * @throws IOException Basic IO error decoding the packet.
+	 */
+	public Document decodePacket(ByteBuffer aPacket) throws EPPException,
+			IOException {
+		long theStart = System.nanoTime();
+		Document theDoc = this.byteArray.decode(aPacket);
+		this.lastParseNanos = System.nanoTime() - theStart;
+
+		return theDoc;
+	}
+
 	/**
 	 * Writes a packet to the output stream with the inclusion of the EPP 
-	 * four byte header.  
+	 * four byte header.  The header and the packet are copied into the 
+	 * reusable write buffer and written with a single write followed by a 
+	 * single flush, so the frame goes out as one TLS record on an unbuffered 
+	 * SSL socket stream.
 	 * 
 	 * @param aPacket Packet to write to the output stream
 	 * @param aOutput Output stream to write the packet to
@@ -293,12 +698,25 @@ public class EPPXMLStream {
 	 * @throws IOException Error writing the packet to the output stream
 	 */
 	public void writePacket(byte[] aPacket, OutputStream aOutput) throws IOException {
-		packetCat.debug("writePacket() : Sending [" + new String(aPacket) + "]");
+		if (packetCat.isDebugEnabled()) {
+			packetCat.debug("writePacket() : Sending [" + new String(aPacket) + "]");
+		}
 		
-		DataOutputStream theStream = new DataOutputStream(aOutput);
-		theStream.writeInt(aPacket.length + 4);
-		aOutput.write(aPacket);
+		int theFrameSize = aPacket.length + HEADER_SIZE;
+		byte[] theFrame = this.getWriteBuffer(theFrameSize);
+		
+		// Network header in network (big endian) byte order
+		theFrame[0] = (byte) (theFrameSize >>> 24);
+		theFrame[1] = (byte) (theFrameSize >>> 16);
+		theFrame[2] = (byte) (theFrameSize >>> 8);
+		theFrame[3] = (byte) theFrameSize;
+		System.arraycopy(aPacket, 0, theFrame, HEADER_SIZE, aPacket.length);
+		
+		long theStart = System.nanoTime();
+		aOutput.write(theFrame, 0, theFrameSize);
 		aOutput.flush();
+		this.lastWriteNanos = System.nanoTime() - theStart;
+		this.lastEncodeNanos = 0;
 	}
  
 	/**
@@ -329,11 +747,14 @@ public class EPPXMLStream {
 			throw new EPPException("EPPXMLStream.write() : BAD ARGUMENT (aDoc)");
 		}
 
+		long theStart = System.nanoTime();
 		byte[] thePacket = this.byteArray.encode(aDoc);
+		long theEncodeNanos = System.nanoTime() - theStart;
 
 		// Write to stream
 		try {
 			this.writePacket(thePacket, aOutput);
+			this.lastEncodeNanos = theEncodeNanos;
 		}
 		catch (IOException ex) {
 			cat.error("write(Document, InputStream) : Writing to stream :" + ex);
@@ -344,6 +765,137 @@ public class EPPXMLStream {
 		cat.debug("write(Document, InputStream): exit");
 	}
 
+	/**
+	 * Writes an <code>EPPMessage</code> to the output stream without building
+	 * and serializing a DOM Document. The message is encoded with
+	 * <code>EPPCodec.encode(EPPMessage, EPPXMLWriter)</code> directly into a
+	 * reusable frame buffer behind the 4 byte header, which is written with a
+	 * single write followed by a single flush like
+	 * {@link #writePacket(byte[], OutputStream)}. Messages that are not
+	 * stream encodable are encoded to DOM and written to the same buffer.
+	 *
+	 * @param aMessage
+	 *            Message to write to stream
+	 * @param aOutput
+	 *            Output stream to write to
+	 *
+	 * @exception EPPException
+	 *                Error encoding the message or writing to stream. It is
+	 *                recommended that the stream be closed on a write error.
+	 */
+	public void write(EPPMessage aMessage, OutputStream aOutput)
+			throws EPPException {
+		cat.debug("write(EPPMessage, OutputStream): enter");
+
+		// Validate arguments
+		if (aOutput == null) {
+			cat.error("write(EPPMessage, OutputStream): aOutput == null");
+			throw new EPPException(
+					"EPPXMLStream.write() : BAD ARGUMENT (aOutput)");
+		}
+
+		if (aMessage == null) {
+			cat.error("write(EPPMessage, OutputStream): aMessage == null");
+			throw new EPPException(
+					"EPPXMLStream.write() : BAD ARGUMENT (aMessage)");
+		}
+
+		long theStart = System.nanoTime();
+		if (this.xmlWriter == null) {
+			this.xmlWriter = new EPPXMLWriter();
+		}
+		this.xmlWriter.reset(HEADER_SIZE);
+
+		EPPCodec.getInstance().encode(aMessage, this.xmlWriter);
+		long theEncoded = System.nanoTime();
+		this.lastEncodeNanos = theEncoded - theStart;
+
+		byte[] theFrame = this.xmlWriter.getBuffer();
+		int theFrameSize = this.xmlWriter.size();
+
+		if (packetCat.isDebugEnabled()) {
+			packetCat.debug("write(EPPMessage, OutputStream) : Sending ["
+					+ new String(theFrame, HEADER_SIZE, theFrameSize
+							- HEADER_SIZE) + "]");
+		}
+
+		// Network header in network (big endian) byte order
+		theFrame[0] = (byte) (theFrameSize >>> 24);
+		theFrame[1] = (byte) (theFrameSize >>> 16);
+		theFrame[2] = (byte) (theFrameSize >>> 8);
+		theFrame[3] = (byte) theFrameSize;
+
+		// Write to stream
+		try {
+			this.xmlWriter.writeTo(aOutput);
+			aOutput.flush();
+			this.lastWriteNanos = System.nanoTime() - theEncoded;
+		}
+		catch (IOException ex) {
+			cat.error("write(EPPMessage, OutputStream) : Writing to stream :"
+					+ ex);
+			throw new EPPException("EPPXMLStream.write() : Writing to stream "
+					+ ex);
+		}
+
+		cat.debug("write(EPPMessage, OutputStream): exit");
+	}
+
+	/**
+	 * Gets the nanoseconds spent encoding the last message written with
+	 * <code>write</code>, which is the serialization of the DOM Document
+	 * with {@link #write(Document, OutputStream)}, and <code>0</code> with
+	 * {@link #writePacket(byte[], OutputStream)}.
+	 * 
+	 * @return Encode time in nanoseconds
+	 */
+	public long getLastEncodeNanos() {
+		return this.lastEncodeNanos;
+	}
+
+	/**
+	 * Gets the nanoseconds spent writing and flushing the last packet to the
+	 * output stream.
+	 * 
+	 * @return Write time in nanoseconds
+	 */
+	public long getLastWriteNanos() {
+		return this.lastWriteNanos;
+	}
+
+	/**
+	 * Gets the nanoseconds spent waiting for and reading the last packet
+	 * read, from the call to read the packet until the whole packet was
+	 * read.
+	 * 
+	 * @return Wait time in nanoseconds
+	 */
+	public long getLastWaitNanos() {
+		return this.lastWaitNanos;
+	}
+
+	/**
+	 * Gets the nanoseconds spent parsing the last packet read to a DOM
+	 * Document with {@link #read(InputStream)}, or validating it with
+	 * {@link #readMessage(InputStream)}.
+	 * 
+	 * @return Parse time in nanoseconds
+	 */
+	public long getLastParseNanos() {
+		return this.lastParseNanos;
+	}
+
+	/**
+	 * Gets the nanoseconds spent decoding the last packet read with
+	 * {@link #readMessage(InputStream)} to an <code>EPPMessage</code>, or
+	 * <code>0</code> when it was read with {@link #read(InputStream)}.
+	 * 
+	 * @return Decode time in nanoseconds
+	 */
+	public long getLastDecodeNanos() {
+		return this.lastDecodeNanos;
+	}
+
 }
 
 // End class EPPXMLStream
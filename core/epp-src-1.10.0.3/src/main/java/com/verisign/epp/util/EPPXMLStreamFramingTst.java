@@ -0,0 +1,593 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+//----------------------------------------------
+//
+// imports...
+//
+//----------------------------------------------
+
+// Java Core Imports
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+
+// JUNIT Imports
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.verisign.epp.codec.gen.EPPHello;
+import com.verisign.epp.exception.EPPException;
+import com.verisign.epp.transport.client.EPPSSLImpl;
+
+/**
+ * Is a unit test of the framing of <code>EPPXMLStream</code>. The unit test
+ * verifies that each frame is written with a single write and a single flush,
+ * and that frames of different sizes are read correctly with the reusable
+ * read buffer. <br>
+ * <br>
+ * When the <code>EPP.ConfigFile</code> system property is set to an EPP
+ * configuration file with the <code>EPP.SSL</code> properties,
+ * {@link #testTLSStub()} runs a benchmark against a local TLS stub that
+ * echoes frames, comparing the legacy two write framing with the single write
+ * framing of <code>EPPXMLStream.writePacket</code>.
+ */
+public class EPPXMLStreamFramingTst extends TestCase {
+
+	/**
+	 * Number of unit test iterations to run. This is set with the
+	 * <code>iterations</code> system property.
+	 */
+	static private long numIterations = 1;
+
+	/**
+	 * Number of frames sent in each pass of the TLS stub benchmark.
+	 */
+	private static final int BENCHMARK_FRAMES = 2000;
+
+	/**
+	 * Sample EPP packet used for the frames.
+	 */
+	private static final String PACKET = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>"
+			+ "<epp xmlns=\"urn:ietf:params:xml:ns:epp-1.0\"><command><check>"
+			+ "<domain:check xmlns:domain=\"urn:ietf:params:xml:ns:domain-1.0\">"
+			+ "<domain:name>example.com</domain:name></domain:check></check>"
+			+ "<clTRID>ABC-12345</clTRID></command></epp>";
+
+	/**
+	 * EPP hello packet used for the large packets.
+	 */
+	private static final String HELLO = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>"
+			+ "<epp xmlns=\"urn:ietf:params:xml:ns:epp-1.0\"><hello/></epp>";
+
+	/**
+	 * Offset in {@link #HELLO} where the comment of a large packet is
+	 * inserted, which is before the <code>hello</code> element.
+	 */
+	private static final int HELLO_COMMENT = HELLO.indexOf("<hello/>");
+
+	/**
+	 * <code>OutputStream</code> that counts the calls to <code>write</code>
+	 * and <code>flush</code>.
+	 */
+	private static class CountingOutputStream extends FilterOutputStream {
+
+		int writes = 0;
+
+		int flushes = 0;
+
+		CountingOutputStream(OutputStream aStream) {
+			super(aStream);
+		}
+
+		public void write(int aByte) throws IOException {
+			this.writes++;
+			this.out.write(aByte);
+		}
+
+		public void write(byte[] aBuffer, int aOffset, int aLength)
+				throws IOException {
+			this.writes++;
+			this.out.write(aBuffer, aOffset, aLength);
+		}
+
+		public void flush() throws IOException {
+			this.flushes++;
+			this.out.flush();
+		}
+	}
+
+	/**
+	 * <code>InputStream</code> that returns at most a few bytes per read to
+	 * simulate a packet that arrives in multiple TLS records.
+	 */
+	private static class TrickleInputStream extends FilterInputStream {
+
+		TrickleInputStream(InputStream aStream) {
+			super(aStream);
+		}
+
+		public int read(byte[] aBuffer, int aOffset, int aLength)
+				throws IOException {
+			return super.read(aBuffer, aOffset, Math.min(aLength, 7));
+		}
+	}
+
+	/**
+	 * Allocates a new instance of <code>EPPXMLStreamFramingTst</code>.
+	 *
+	 * @param name
+	 *            Name of test
+	 */
+	public EPPXMLStreamFramingTst(String name) {
+		super(name);
+	}
+
+	/**
+	 * Tests that <code>writePacket</code> writes the header and the packet
+	 * with a single write and a single flush.
+	 */
+	public void testSingleWrite() {
+		byte[] thePacket = PACKET.getBytes();
+
+		for (int i = 0; i < numIterations; i++) {
+			ByteArrayOutputStream theBytes = new ByteArrayOutputStream();
+			CountingOutputStream theOutput = new CountingOutputStream(theBytes);
+			EPPXMLStream theStream = new EPPXMLStream();
+
+			try {
+				theStream.writePacket(thePacket, theOutput);
+			}
+			catch (IOException ex) {
+				Assert.fail("testSingleWrite(): IOException writing packet: "
+						+ ex);
+			}
+
+			Assert.assertEquals("Writes per frame", 1, theOutput.writes);
+			Assert.assertEquals("Flushes per frame", 1, theOutput.flushes);
+
+			byte[] theFrame = theBytes.toByteArray();
+			Assert.assertEquals(thePacket.length + 4, theFrame.length);
+			int theHeader = ((theFrame[0] & 0xFF) << 24)
+					| ((theFrame[1] & 0xFF) << 16)
+					| ((theFrame[2] & 0xFF) << 8) | (theFrame[3] & 0xFF);
+			Assert.assertEquals(theFrame.length, theHeader);
+		}
+	}
+
+	/**
+	 * Tests reading frames of different sizes, including one larger than
+	 * <code>EPPXMLStream.MAX_RETAINED_BUFFER_SIZE</code>, from a stream that
+	 * returns a few bytes per read.
+	 */
+	public void testReadPacket() {
+		byte[][] thePackets = new byte[][] { PACKET.getBytes(),
+				makePacket(EPPXMLStream.INITIAL_BUFFER_SIZE + 1),
+				makePacket(EPPXMLStream.MAX_RETAINED_BUFFER_SIZE * 2),
+				PACKET.getBytes() };
+
+		for (int i = 0; i < numIterations; i++) {
+			try {
+				ByteArrayOutputStream theBytes = new ByteArrayOutputStream();
+				EPPXMLStream theWriter = new EPPXMLStream();
+				for (int j = 0; j < thePackets.length; j++) {
+					theWriter.writePacket(thePackets[j], theBytes);
+				}
+
+				InputStream theInput = new TrickleInputStream(
+						new ByteArrayInputStream(theBytes.toByteArray()));
+				EPPXMLStream theReader = new EPPXMLStream();
+				for (int j = 0; j < thePackets.length; j++) {
+					Assert.assertTrue("Packet " + j + " mismatch",
+							Arrays.equals(thePackets[j],
+									theReader.readPacket(theInput)));
+				}
+
+				try {
+					theReader.readPacket(theInput);
+					Assert.fail("testReadPacket(): Expected EOFException");
+				}
+				catch (EOFException ex) {
+					// Expected
+				}
+			}
+			catch (Exception ex) {
+				Assert.fail("testReadPacket(): Exception: " + ex);
+			}
+		}
+	}
+
+	/**
+	 * Tests reading packets into the reusable read buffer with
+	 * <code>readPacketBuffer(InputStream)</code>, and reading a heap and a
+	 * direct buffer with <code>EPPByteBufferInputStream</code> without
+	 * changing the position of the buffer.
+	 */
+	public void testReadPacketBuffer() {
+		byte[][] thePackets = new byte[][] { PACKET.getBytes(),
+				makePacket(EPPXMLStream.INITIAL_BUFFER_SIZE + 1),
+				makePacket(EPPXMLStream.MAX_RETAINED_BUFFER_SIZE * 2),
+				PACKET.getBytes() };
+
+		for (int i = 0; i < numIterations; i++) {
+			try {
+				ByteArrayOutputStream theBytes = new ByteArrayOutputStream();
+				EPPXMLStream theWriter = new EPPXMLStream();
+				for (int j = 0; j < thePackets.length; j++) {
+					theWriter.writePacket(thePackets[j], theBytes);
+				}
+
+				InputStream theInput = new TrickleInputStream(
+						new ByteArrayInputStream(theBytes.toByteArray()));
+				EPPXMLStream theReader = new EPPXMLStream();
+				ByteBuffer theLast = null;
+				for (int j = 0; j < thePackets.length; j++) {
+					ByteBuffer thePacket = theReader.readPacketBuffer(theInput);
+					theLast = thePacket;
+
+					// Read the packet from a heap and a direct buffer
+					ByteBuffer theDirect = ByteBuffer
+							.allocateDirect(thePacket.remaining());
+					theDirect.put(thePacket.duplicate());
+					theDirect.flip();
+					ByteBuffer[] theBuffers = new ByteBuffer[] { thePacket,
+							theDirect };
+					for (int k = 0; k < theBuffers.length; k++) {
+						EPPByteBufferInputStream theStream = new EPPByteBufferInputStream(
+								theBuffers[k]);
+						byte[] theRead = new byte[thePackets[j].length];
+						int theCount = 0;
+						int theLength;
+						while ((theLength = theStream.read(theRead, theCount,
+								Math.min(1000, theRead.length - theCount))) > 0) {
+							theCount += theLength;
+						}
+						Assert.assertEquals(-1, theStream.read());
+						theStream.close();
+
+						Assert.assertEquals("Packet " + j + " size",
+								thePackets[j].length, theCount);
+						Assert.assertTrue("Packet " + j + " mismatch",
+								Arrays.equals(thePackets[j], theRead));
+						Assert.assertEquals(0, theBuffers[k].position());
+					}
+				}
+
+				// The next packet reuses the view of the retained buffer
+				ByteBuffer theNext = theReader
+						.readPacketBuffer(new ByteArrayInputStream(new byte[] {
+								0, 0, 0, 5, 'x' }));
+				Assert.assertSame(theLast, theNext);
+				Assert.assertEquals(1, theNext.remaining());
+				Assert.assertEquals('x', theNext.get(0));
+			}
+			catch (Exception ex) {
+				Assert.fail("testReadPacketBuffer(): Exception: " + ex);
+			}
+		}
+	}
+
+	/**
+	 * Tests decoding packets larger than
+	 * <code>EPPXMLStream.MAX_RETAINED_BUFFER_SIZE</code> with
+	 * <code>read(InputStream)</code> and <code>readMessage(InputStream)</code>,
+	 * which read the packet into a buffer that is not retained, between
+	 * packets that use the retained read buffer.
+	 */
+	public void testReadLargeDocument() {
+		byte[][] thePackets = new byte[][] { makeHello(100),
+				makeHello(EPPXMLStream.MAX_RETAINED_BUFFER_SIZE * 2),
+				makeHello(100) };
+
+		for (int i = 0; i < numIterations; i++) {
+			try {
+				ByteArrayOutputStream theBytes = new ByteArrayOutputStream();
+				EPPXMLStream theWriter = new EPPXMLStream();
+				for (int j = 0; j < thePackets.length; j++) {
+					theWriter.writePacket(thePackets[j], theBytes);
+				}
+				for (int j = 0; j < thePackets.length; j++) {
+					theWriter.writePacket(thePackets[j], theBytes);
+				}
+
+				InputStream theInput = new TrickleInputStream(
+						new ByteArrayInputStream(theBytes.toByteArray()));
+				EPPXMLStream theReader = new EPPXMLStream();
+
+				for (int j = 0; j < thePackets.length; j++) {
+					Document theDoc = theReader.read(theInput);
+					Assert.assertEquals("Packet " + j + " root", "epp", theDoc
+							.getDocumentElement().getLocalName());
+					Assert.assertEquals("Packet " + j + " size",
+							thePackets[j].length - HELLO.length(),
+							getCommentLength(theDoc));
+				}
+
+				for (int j = 0; j < thePackets.length; j++) {
+					Assert.assertTrue("Packet " + j + " message",
+							theReader.readMessage(theInput) instanceof EPPHello);
+				}
+			}
+			catch (Exception ex) {
+				Assert.fail("testReadLargeDocument(): Exception: " + ex);
+			}
+		}
+	}
+
+	/**
+	 * Creates an EPP hello packet with a comment, so that the packet is
+	 * <code>aSize</code> bytes plus the size of the hello.
+	 *
+	 * @param aSize
+	 *            Size of the comment including its delimiters
+	 *
+	 * @return EPP hello packet
+	 */
+	private static byte[] makeHello(int aSize) {
+		StringBuffer theComment = new StringBuffer("<!--");
+		for (int i = 0; i < aSize - 7; i++) {
+			theComment.append((char) ('a' + (i % 26)));
+		}
+		theComment.append("-->");
+		return (HELLO.substring(0, HELLO_COMMENT) + theComment + HELLO
+				.substring(HELLO_COMMENT)).getBytes();
+	}
+
+	/**
+	 * Gets the total size of the comments in the root element of a
+	 * document, including their delimiters.
+	 *
+	 * @param aDoc
+	 *            Document to check
+	 *
+	 * @return Size of the comments
+	 */
+	private static int getCommentLength(Document aDoc) {
+		int theLength = 0;
+		NodeList theNodes = aDoc.getDocumentElement().getChildNodes();
+		for (int i = 0; i < theNodes.getLength(); i++) {
+			if (theNodes.item(i).getNodeType() == Node.COMMENT_NODE) {
+				theLength += theNodes.item(i).getNodeValue().length() + 7;
+			}
+		}
+		return theLength;
+	}
+
+	/**
+	 * Tests that a header with a size smaller than the header itself is
+	 * rejected.
+	 */
+	public void testInvalidHeader() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			byte[] theFrame = new byte[] { 0, 0, 0, 2 };
+
+			try {
+				new EPPXMLStream().readPacket(new ByteArrayInputStream(theFrame));
+				Assert.fail("testInvalidHeader(): Expected EPPException");
+			}
+			catch (EPPException ex) {
+				// Expected
+			}
+			catch (IOException ex) {
+				Assert.fail("testInvalidHeader(): Unexpected IOException: " + ex);
+			}
+		}
+	}
+
+	/**
+	 * Benchmark of the frame round trip against a local TLS stub that echoes
+	 * the frames. The benchmark is only run when the
+	 * <code>EPP.ConfigFile</code> system property is set, since it requires
+	 * the key store settings of the EPP configuration file. The legacy framing
+	 * writes the header and the packet with two writes, which results in two
+	 * TLS records per frame.
+	 */
+	public void testTLSStub() {
+		for (long iteration = 0; iteration < numIterations; iteration++) {
+			String theConfigFile = System.getProperty("EPP.ConfigFile");
+			if (theConfigFile == null) {
+				System.out
+						.println("testTLSStub(): EPP.ConfigFile not set, skipping benchmark");
+				return;
+			}
+
+			try {
+				EPPEnvSingle.getInstance().initialize(theConfigFile);
+				EPPSSLImpl.initialize();
+
+				final SSLServerSocket theServerSocket = (SSLServerSocket) EPPSSLImpl
+						.getSSLContext().getServerSocketFactory()
+						.createServerSocket(0, 1, InetAddress.getLoopbackAddress());
+
+				// TLS stub that echoes each frame
+				Thread theStub = new Thread("EPPXMLStreamFramingTst-Stub") {
+
+					public void run() {
+						try {
+							for (int i = 0; i < 2; i++) {
+								Socket theSocket = theServerSocket.accept();
+								InputStream theInput = theSocket.getInputStream();
+								OutputStream theOutput = theSocket
+										.getOutputStream();
+								EPPXMLStream theStream = new EPPXMLStream();
+								try {
+									while (true) {
+										theStream.writePacket(
+												theStream.readPacket(theInput),
+												theOutput);
+									}
+								}
+								catch (EOFException ex) {
+									theSocket.close();
+								}
+							}
+						}
+						catch (Exception ex) {
+							System.out.println("testTLSStub(): Stub exception: "
+									+ ex);
+						}
+					}
+				};
+				theStub.setDaemon(true);
+				theStub.start();
+
+				long theLegacyTime = runTLSPass(theServerSocket.getLocalPort(),
+						true);
+				long theSingleTime = runTLSPass(theServerSocket.getLocalPort(),
+						false);
+
+				theStub.join(10000);
+				theServerSocket.close();
+
+				System.out.println("testTLSStub(): " + BENCHMARK_FRAMES
+						+ " frames, legacy two write framing = " + theLegacyTime
+						+ " ms, single write framing = " + theSingleTime + " ms");
+			}
+			catch (Exception ex) {
+				Assert.fail("testTLSStub(): Exception: " + ex);
+			}
+		}
+	}
+
+	/**
+	 * Runs one pass of the TLS stub benchmark.
+	 *
+	 * @param aPort
+	 *            Port of the TLS stub
+	 * @param aLegacy
+	 *            Use the legacy two write framing?
+	 *
+	 * @return Elapsed time in milliseconds
+	 *
+	 * @exception Exception
+	 *                Error running the pass
+	 */
+	private long runTLSPass(int aPort, boolean aLegacy) throws Exception {
+		SSLSocket theSocket = (SSLSocket) EPPSSLImpl.getSSLSocketFactory()
+				.createSocket(InetAddress.getLoopbackAddress(), aPort);
+		theSocket.setTcpNoDelay(true);
+		theSocket.startHandshake();
+
+		InputStream theInput = theSocket.getInputStream();
+		OutputStream theOutput = theSocket.getOutputStream();
+		EPPXMLStream theStream = new EPPXMLStream();
+		byte[] thePacket = PACKET.getBytes();
+
+		long theStart = System.currentTimeMillis();
+		for (int i = 0; i < BENCHMARK_FRAMES; i++) {
+			if (aLegacy) {
+				new DataOutputStream(theOutput).writeInt(thePacket.length + 4);
+				theOutput.write(thePacket);
+				theOutput.flush();
+			}
+			else {
+				theStream.writePacket(thePacket, theOutput);
+			}
+			theStream.readPacket(theInput);
+		}
+		long theElapsed = System.currentTimeMillis() - theStart;
+
+		theSocket.close();
+
+		return theElapsed;
+	}
+
+	/**
+	 * Makes a packet of <code>aSize</code> bytes.
+	 *
+	 * @param aSize
+	 *            Size of the packet
+	 *
+	 * @return Packet with <code>aSize</code> bytes
+	 */
+	private static byte[] makePacket(int aSize) {
+		byte[] thePacket = new byte[aSize];
+		for (int i = 0; i < aSize; i++) {
+			thePacket[i] = (byte) ('a' + (i % 26));
+		}
+		return thePacket;
+	}
+
+	/**
+	 * JUNIT <code>suite</code> static method, which returns the tests
+	 * associated with <code>EPPXMLStreamFramingTst</code>.
+	 *
+	 * @return Test suite
+	 */
+	public static Test suite() {
+		TestSuite suite = new TestSuite(EPPXMLStreamFramingTst.class);
+
+		// iterations Property
+		String numIterProp = System.getProperty("iterations");
+
+		if (numIterProp != null) {
+			numIterations = Integer.parseInt(numIterProp);
+		}
+
+		return suite;
+	}
+
+	/**
+	 * Unit test main, which accepts the following system property options:<br>
+	 *
+	 * <ul>
+	 * <li>iterations Number of unit test iterations to run</li>
+	 * <li>EPP.ConfigFile EPP configuration file used for the TLS stub
+	 * benchmark</li>
+	 * </ul>
+	 *
+	 * @param args
+	 *            Not used
+	 */
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(EPPXMLStreamFramingTst.suite());
+	}
+
+	/**
+	 * Sets the number of iterations to run per test.
+	 *
+	 * @param aNumIterations
+	 *            number of iterations to run per test
+	 */
+	public static void setNumIterations(long aNumIterations) {
+		numIterations = aNumIterations;
+	}
+
+} // End class EPPXMLStreamFramingTst
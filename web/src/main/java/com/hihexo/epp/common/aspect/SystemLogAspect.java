@@ -12,6 +12,7 @@ import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import javax.servlet.http.HttpServletRequest;
 import java.lang.reflect.Method;
@@ -61,26 +62,74 @@ public class SystemLogAspect {
 	@AfterReturning(value = "@annotation(com.hihexo.epp.common.aspect.SystemControllerLog)",  returning = "rtv")
 	public void doAfter(JoinPoint joinPoint, Object rtv) {
 		try {
-			long endTime = new Date().getTime();
-			String returnValue = rtv == null ? "null" : rtv.toString();
-
 			HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.getRequestAttributes()).getRequest();
 			String ip = IPutil.getIpAddr(request);
-			String interfaceName = joinPoint.getSignature().getName();
+			final String interfaceName = joinPoint.getSignature().getName();
 			Object objStartTime = request.getAttribute("sysLog_startTime_"+ip+"_"+interfaceName);
-			long startTime = Long.parseLong(objStartTime == null ? "0" : objStartTime.toString());
-//			logger.info("返回信息("+interfaceName+")：" + returnValue);
-//			logger.info("执行时间("+interfaceName+")：" + (endTime - startTime) + "ms"+ System.getProperty("line.separator"));
-			String logInfo = request.getAttribute("sysLog_logInfo_"+ip+"_"+interfaceName)+"";
-			BusinessUtil.writeInterfaceLog(
-					"接口信息("+interfaceName+")：" + logInfo+"\n"+
-					"返回信息("+interfaceName+")：" + returnValue+"\n"+
-					"执行时间("+interfaceName+")：" + (endTime - startTime) + "ms\n");
+			final long startTime = Long.parseLong(objStartTime == null ? "0" : objStartTime.toString());
+			final String logInfo = request.getAttribute("sysLog_logInfo_"+ip+"_"+interfaceName)+"";
+
+			// 异步请求在结果设置后记录
+			if (rtv instanceof DeferredResult) {
+				final DeferredResult<?> deferredResult = (DeferredResult<?>) rtv;
+				deferredResult.onCompletion(new Runnable() {
+					public void run() {
+						writeLog(interfaceName, logInfo, deferredResult.getResult(), startTime);
+					}
+				});
+				return;
+			}
+
+			writeLog(interfaceName, logInfo, rtv, startTime);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
 
+	/**
+	 * 记录接口日志
+	 *
+	 * @param interfaceName
+	 *            接口名
+	 * @param logInfo
+	 *            接口信息
+	 * @param rtv
+	 *            返回信息
+	 * @param startTime
+	 *            开始时间
+	 */
+	private void writeLog(String interfaceName, String logInfo, Object rtv, long startTime) {
+		long endTime = new Date().getTime();
+//		logger.info("返回信息("+interfaceName+")：" + returnValue);
+//		logger.info("执行时间("+interfaceName+")：" + (endTime - startTime) + "ms"+ System.getProperty("line.separator"));
+		BusinessUtil.writeInterfaceLog(new InterfaceLog(interfaceName, logInfo, rtv, endTime - startTime));
+	}
+
+	/**
+	 * 接口日志记录，返回信息在日志写线程中调用 toString() 时才拼接
+	 */
+	private static class InterfaceLog {
+		private final String interfaceName;
+		private final String logInfo;
+		private final Object rtv;
+		private final long time;
+
+		InterfaceLog(String interfaceName, String logInfo, Object rtv, long time) {
+			this.interfaceName = interfaceName;
+			this.logInfo = logInfo;
+			this.rtv = rtv;
+			this.time = time;
+		}
+
+		@Override
+		public String toString() {
+			String returnValue = rtv == null ? "null" : rtv.toString();
+			return "接口信息("+interfaceName+")：" + logInfo+"\n"+
+					"返回信息("+interfaceName+")：" + returnValue+"\n"+
+					"执行时间("+interfaceName+")：" + time + "ms\n";
+		}
+	}
+
 	/**
 	 * 获取注解中对方法的描述信息 用于Controller层注解
 	 * 
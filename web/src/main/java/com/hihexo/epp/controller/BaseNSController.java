@@ -3,6 +3,7 @@ package com.hihexo.epp.controller;
 import com.hihexo.epp.common.base.BaseController;
 import com.hihexo.epp.common.util.Constants;
 import com.hihexo.epp.model.BaseParam;
+import com.hihexo.epp.service.NSSessionExecutorService;
 import com.verisign.epp.codec.domain.EPPDomainInfoResp;
 import com.verisign.epp.codec.gen.EPPResponse;
 import com.verisign.epp.codec.gen.EPPResult;
@@ -19,10 +20,17 @@ import com.verisign.epp.util.TestThread;
 import junit.framework.Assert;
 import org.apache.log4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import javax.servlet.http.HttpServletRequest;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
 
 
 public class BaseNSController extends BaseController {
@@ -45,6 +53,16 @@ public class BaseNSController extends BaseController {
     /** EPP Session pool associated with test */
     private static EPPSessionPool sessionPool = null;
 
+    /**
+     * Session borrowed asynchronously for the request processed by the
+     * current thread, which is handed out by {@link #borrowSession()}.
+     */
+    private static final ThreadLocal<EPPSession> requestSession = new ThreadLocal<EPPSession>();
+
+    /** Executor of the EPP calls of {@link #execute(String, Callable)} */
+    @Autowired
+    private NSSessionExecutorService sessionExecutorService;
+
     /**
      * Setup framework for running NSDomainTst tests.
      */
@@ -88,15 +106,139 @@ public class BaseNSController extends BaseController {
         return base.getAuthStr();
     }
 
+    /**
+     * Gets the session pool, which is initialized with the EPP Application
+     * when the class is loaded.
+     *
+     * @return Initialized session pool
+     */
+    public static EPPSessionPool getSessionPool() {
+        return sessionPool;
+    }
+
+    /**
+     * Processes a request asynchronously, so that the container thread is
+     * released while the request waits for a session or for the registry.
+     * A session is borrowed from the session pool without blocking a thread,
+     * and <code>aHandler</code> is then called on the executor of the
+     * {@link NSSessionExecutorService}, where {@link #borrowSession()} hands
+     * out the borrowed session.  The session is returned to the pool if
+     * <code>aHandler</code> does not borrow it.
+     *
+     * @param aName
+     *            Name of the request used in the log and error messages
+     * @param aHandler
+     *            Handler that processes the request and returns the result
+     *
+     * @return Result that is set with the result of <code>aHandler</code>,
+     *         or with an error if no session is borrowed or on timeout
+     */
+    protected DeferredResult<Object> execute(final String aName, final Callable<Object> aHandler) {
+        final DeferredResult<Object> theResult = new DeferredResult<Object>(
+                this.sessionExecutorService.getTimeout(),
+                renderError(aName + ": timeout waiting for the registry"));
+
+        final ExecutorService theExecutor = this.sessionExecutorService.getExecutor();
+        if (theExecutor == null) {
+            theResult.setResult(renderError(aName + ": executor is not running"));
+            return theResult;
+        }
+
+        final CompletableFuture<EPPSession> theBorrow = sessionPool.borrowObjectAsync(theExecutor);
+
+        // Stop waiting for a session on timeout
+        theResult.onTimeout(new Runnable() {
+            public void run() {
+                theBorrow.cancel(false);
+            }
+        });
+
+        theBorrow.whenComplete(new BiConsumer<EPPSession, Throwable>() {
+            public void accept(final EPPSession aSession, Throwable aError) {
+                if (aError != null) {
+                    if (!theBorrow.isCancelled()) {
+                        logger.error(aName + ": Exception borrowing session: " + aError);
+                        theResult.setResult(renderError(aName + ": no session available"));
+                    }
+                    return;
+                }
+
+                try {
+                    theExecutor.execute(new Runnable() {
+                        public void run() {
+                            handle(aName, aSession, aHandler, theResult);
+                        }
+                    });
+                }
+                catch (RejectedExecutionException ex) {
+                    returnSession(aSession);
+                    logger.error(aName + ": Request rejected by executor: " + ex);
+                    theResult.setResult(renderError(aName + ": too many requests"));
+                }
+            }
+        });
+
+        return theResult;
+    }
+
+    /**
+     * Calls the handler of {@link #execute(String, Callable)} with the
+     * borrowed session and sets the result.
+     *
+     * @param aName
+     *            Name of the request
+     * @param aSession
+     *            Session borrowed for the request
+     * @param aHandler
+     *            Handler that processes the request
+     * @param aResult
+     *            Result to set
+     */
+    private void handle(String aName, EPPSession aSession, Callable<Object> aHandler,
+            DeferredResult<Object> aResult) {
+        // Timed out while waiting for the executor?
+        if (aResult.isSetOrExpired()) {
+            returnSession(aSession);
+            return;
+        }
+
+        Object theValue;
+        requestSession.set(aSession);
+        try {
+            theValue = aHandler.call();
+        }
+        catch (Throwable ex) {
+            logger.error(aName + ": Exception processing request", ex);
+            theValue = renderError(ex.getMessage());
+        }
+        finally {
+            // Return the session if it was not handed out
+            EPPSession theUnused = requestSession.get();
+            requestSession.remove();
+            if (theUnused != null) {
+                returnSession(theUnused);
+            }
+        }
+
+        aResult.setResult(theValue);
+    }
+
     /**
      * Utility method to borrow a session from the session pool. All exceptions
      * will result in the test failing. This method should only be used for
-     * positive session pool tests.
+     * positive session pool tests. When called by the handler of
+     * {@link #execute(String, Callable)}, the session borrowed for the
+     * request is returned without blocking.
      *
      * @return Session from the session pool
      */
     protected EPPSession borrowSession() {
-        EPPSession theSession = null;
+        EPPSession theSession = requestSession.get();
+        if (theSession != null) {
+            requestSession.remove();
+            return theSession;
+        }
+
         try {
             theSession = sessionPool.borrowObject();
         }
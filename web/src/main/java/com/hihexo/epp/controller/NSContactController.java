@@ -38,9 +38,11 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import javax.servlet.http.HttpServletRequest;
 import java.util.Vector;
+import java.util.concurrent.Callable;
 
 /**
  * <code>NSContact</code> interface. This test utilizes
@@ -59,7 +61,18 @@ public class NSContactController extends BaseNSController{
 	 */
 	@RequestMapping(value = "/transfer/request",method = RequestMethod.POST) 	@SystemControllerLog(description = "创建联系人")
 	@ResponseBody
-	public ResultVo testContactCreate(HttpServletRequest request, @RequestBody NSDomainTransferParam params) {
+	public DeferredResult<Object> testContactCreate(final HttpServletRequest request, @RequestBody final NSDomainTransferParam params) {
+		return this.execute("testContactCreate", new Callable<Object>() {
+			public Object call() throws Exception {
+				return testContactCreateInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #testContactCreate} with the session borrowed for the request.
+	 */
+	private ResultVo testContactCreateInSession(HttpServletRequest request, NSDomainTransferParam params) {
 		printStart("testContactCreate");
 
 		EPPSession theSession = null;
@@ -57,11 +57,13 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import javax.servlet.http.HttpServletRequest;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 @Controller
 @RequestMapping("/domain")
@@ -91,7 +93,18 @@ public class NSDomainController extends BaseNSController{
 	@RequestMapping(value = "/create",method = RequestMethod.POST)
 	@SystemControllerLog(description = "创建域名")
 	@ResponseBody
-	public Object doDomainCreate(HttpServletRequest request, @RequestBody NSDomainCreateParam params) {
+	public DeferredResult<Object> doDomainCreate(final HttpServletRequest request, @RequestBody final NSDomainCreateParam params) {
+		return this.execute("doDomainCreate", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doDomainCreateInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doDomainCreate} with the session borrowed for the request.
+	 */
+	private Object doDomainCreateInSession(HttpServletRequest request, NSDomainCreateParam params) {
 		printStart("doDomainCreate");
 
 		EPPSession theSession = null;
@@ -222,7 +235,18 @@ public class NSDomainController extends BaseNSController{
 
 	@RequestMapping(value = "/relatedcreate",method = RequestMethod.POST) 	@SystemControllerLog(description = "关联域名")
 	@ResponseBody
-	public Object  doRelatedDomainCreate(HttpServletRequest request, @RequestBody NSRelatedDomainCreateParam params) {
+	public DeferredResult<Object> doRelatedDomainCreate(final HttpServletRequest request, @RequestBody final NSRelatedDomainCreateParam params) {
+		return this.execute("doRelatedDomainCreate", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doRelatedDomainCreateInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doRelatedDomainCreate} with the session borrowed for the request.
+	 */
+	private Object doRelatedDomainCreateInSession(HttpServletRequest request, NSRelatedDomainCreateParam params) {
 		printStart("RelatedDomainCreate ");
 
 		EPPSession theSession = null;
@@ -315,7 +339,18 @@ public class NSDomainController extends BaseNSController{
 			"")
 	@RequestMapping(value = "/check",method = RequestMethod.POST) 	@SystemControllerLog(description = "核查域名")
 	@ResponseBody
-	public ResultVo  doDomainCheck(HttpServletRequest request,@RequestBody NSDomainCheckParam params) {
+	public DeferredResult<Object> doDomainCheck(final HttpServletRequest request, @RequestBody final NSDomainCheckParam params) {
+		return this.execute("doDomainCheck", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doDomainCheckInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doDomainCheck} with the session borrowed for the request.
+	 */
+	private ResultVo doDomainCheckInSession(HttpServletRequest request, NSDomainCheckParam params) {
 		printStart("doDomainCheck");
 
 		EPPSession theSession = null;
@@ -381,7 +416,18 @@ public class NSDomainController extends BaseNSController{
 			"}")
 	@RequestMapping(value = "/info",method = RequestMethod.POST) 	@SystemControllerLog(description = "域名信息")
 	@ResponseBody
-	public ResultVo  doDomainInfo(HttpServletRequest request,@RequestBody NSDomainInfoParam params) {
+	public DeferredResult<Object> doDomainInfo(final HttpServletRequest request, @RequestBody final NSDomainInfoParam params) {
+		return this.execute("doDomainInfo", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doDomainInfoInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doDomainInfo} with the session borrowed for the request.
+	 */
+	private ResultVo doDomainInfoInSession(HttpServletRequest request, NSDomainInfoParam params) {
 		printStart("doDomainInfo");
 
 		EPPSession theSession = null;
@@ -432,7 +478,18 @@ public class NSDomainController extends BaseNSController{
 	@ApiOperation(value = "delete", notes = "")
 	@RequestMapping(value = "/delete",method = RequestMethod.POST) 	@SystemControllerLog(description = "删除域名")
 	@ResponseBody
-	public ResultVo doDomainDelete(HttpServletRequest request, @RequestBody NSDomainParam params ) {
+	public DeferredResult<Object> doDomainDelete(final HttpServletRequest request, @RequestBody final NSDomainParam params) {
+		return this.execute("doDomainDelete", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doDomainDeleteInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doDomainDelete} with the session borrowed for the request.
+	 */
+	private ResultVo doDomainDeleteInSession(HttpServletRequest request, NSDomainParam params) {
 		printStart("doDomainDelete");
 
 		EPPSession theSession = null;
@@ -488,7 +545,18 @@ public class NSDomainController extends BaseNSController{
 	@ApiOperation(value = "renew", notes = "")
 	@RequestMapping(value = "/renew",method = RequestMethod.POST) 	@SystemControllerLog(description = "续费域名")
 	@ResponseBody
-	public ResultVo  doDomainRenew(HttpServletRequest request,@RequestBody NSDomainRenewParam params ) {
+	public DeferredResult<Object> doDomainRenew(final HttpServletRequest request, @RequestBody final NSDomainRenewParam params) {
+		return this.execute("doDomainRenew", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doDomainRenewInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doDomainRenew} with the session borrowed for the request.
+	 */
+	private ResultVo doDomainRenewInSession(HttpServletRequest request, NSDomainRenewParam params) {
 		printStart("doDomainRenew");
 
 		EPPSession theSession = null;
@@ -559,7 +627,18 @@ public class NSDomainController extends BaseNSController{
 	 */
 	@RequestMapping(value = "/update",method = RequestMethod.POST) 	@SystemControllerLog(description = "更新域名")
 	@ResponseBody
-	public ResultVo  doDomainUpdate(HttpServletRequest request,@RequestBody NSDomainUpdateParam params ) {
+	public DeferredResult<Object> doDomainUpdate(final HttpServletRequest request, @RequestBody final NSDomainUpdateParam params) {
+		return this.execute("doDomainUpdate", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doDomainUpdateInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doDomainUpdate} with the session borrowed for the request.
+	 */
+	private ResultVo doDomainUpdateInSession(HttpServletRequest request, NSDomainUpdateParam params) {
 		printStart("doDomainUpdate");
 
 		EPPSession theSession = null;
@@ -670,7 +749,18 @@ public class NSDomainController extends BaseNSController{
 	 */
 	@RequestMapping(value = "/sync",method = RequestMethod.POST) 	@SystemControllerLog(description = "同步域名")
 	@ResponseBody
-	public ResultVo  doDomainSync(HttpServletRequest request,@RequestBody  NSDomainSyncParam params) {
+	public DeferredResult<Object> doDomainSync(final HttpServletRequest request, @RequestBody final NSDomainSyncParam params) {
+		return this.execute("doDomainSync", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doDomainSyncInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doDomainSync} with the session borrowed for the request.
+	 */
+	private ResultVo doDomainSyncInSession(HttpServletRequest request, NSDomainSyncParam params) {
 		printStart("doDomainSync");
 
 		EPPSession theSession = null;
@@ -729,7 +819,18 @@ public class NSDomainController extends BaseNSController{
 	 */
 	@RequestMapping(value = "/restorerequest",method = RequestMethod.POST) 	@SystemControllerLog(description = "RestoreRequest")
 	@ResponseBody
-	public ResultVo  doDomainRestoreRequest(HttpServletRequest request,@RequestBody  NSDomainParam params) {
+	public DeferredResult<Object> doDomainRestoreRequest(final HttpServletRequest request, @RequestBody final NSDomainParam params) {
+		return this.execute("doDomainRestoreRequest", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doDomainRestoreRequestInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doDomainRestoreRequest} with the session borrowed for the request.
+	 */
+	private ResultVo doDomainRestoreRequestInSession(HttpServletRequest request, NSDomainParam params) {
 		printStart("doDomainRestoreRequest");
 
 		EPPSession theSession = null;
@@ -782,7 +883,18 @@ public class NSDomainController extends BaseNSController{
 	@ApiOperation(value = "域名恢复报告上送？" ,notes = "")
 	@RequestMapping(value = "/restorereport",method = RequestMethod.POST) 	@SystemControllerLog(description = "restore报告")
 	@ResponseBody
-	public ResultVo  doDomainRestoreReport(HttpServletRequest request,@RequestBody  NSDomainRestoreReportParam params) {
+	public DeferredResult<Object> doDomainRestoreReport(final HttpServletRequest request, @RequestBody final NSDomainRestoreReportParam params) {
+		return this.execute("doDomainRestoreReport", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doDomainRestoreReportInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doDomainRestoreReport} with the session borrowed for the request.
+	 */
+	private ResultVo doDomainRestoreReportInSession(HttpServletRequest request, NSDomainRestoreReportParam params) {
 		printStart("doDomainRestoreReport");
 
 		EPPSession theSession = null;
@@ -865,7 +977,18 @@ public class NSDomainController extends BaseNSController{
 	@RequestMapping(value = "/resellerid",method = RequestMethod.POST) 	@SystemControllerLog(description = "ResellerId")
 	@ResponseBody
 	@Deprecated
-	public ResultVo  testResellerId(HttpServletRequest request, @RequestBody NSDomainParam params) {
+	public DeferredResult<Object> testResellerId(final HttpServletRequest request, @RequestBody final NSDomainParam params) {
+		return this.execute("testResellerId", new Callable<Object>() {
+			public Object call() throws Exception {
+				return testResellerIdInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #testResellerId} with the session borrowed for the request.
+	 */
+	private ResultVo testResellerIdInSession(HttpServletRequest request, NSDomainParam params) {
 		printStart("testResellerId");
 
 		EPPSession theSession = null;
@@ -997,7 +1120,18 @@ public class NSDomainController extends BaseNSController{
 	@RequestMapping(value = "/asynccommands",method = RequestMethod.POST) 	@SystemControllerLog(description = "AsyncCommands")
 	@ResponseBody
 	@Deprecated
-	public ResultVo  doAsyncCommands(HttpServletRequest request, @RequestBody NSDomainParam params ) {
+	public DeferredResult<Object> doAsyncCommands(final HttpServletRequest request, @RequestBody final NSDomainParam params) {
+		return this.execute("doAsyncCommands", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doAsyncCommandsInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doAsyncCommands} with the session borrowed for the request.
+	 */
+	private ResultVo doAsyncCommandsInSession(HttpServletRequest request, NSDomainParam params) {
 		printStart("testAsyncCommands");
 
 		EPPSession theSession = null;
@@ -39,8 +39,10 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.Callable;
 
 @Controller
 @RequestMapping("/domain")
@@ -55,7 +57,18 @@ public class NSDomainTransferController extends BaseNSController{
 	 */
 	@RequestMapping(value = "/transfer/request",method = RequestMethod.POST) 	@SystemControllerLog(description = "转出域名")
 	@ResponseBody
-	public ResultVo  doDomainTransfer(HttpServletRequest request,@RequestBody  NSDomainTransferParam params) {
+	public DeferredResult<Object> doDomainTransfer(final HttpServletRequest request, @RequestBody final NSDomainTransferParam params) {
+		return this.execute("doDomainTransfer", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doDomainTransferInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doDomainTransfer} with the session borrowed for the request.
+	 */
+	private ResultVo doDomainTransferInSession(HttpServletRequest request, NSDomainTransferParam params) {
 		printStart("doDomainTransfer");
 
 		EPPSession theSession = null;
@@ -144,7 +157,18 @@ public class NSDomainTransferController extends BaseNSController{
 
 	@RequestMapping(value = "/transfer/query",method = RequestMethod.POST) 	@SystemControllerLog(description = "转出域名")
 	@ResponseBody
-	public ResultVo  doDomainTransferQuery(HttpServletRequest request,@RequestBody  NSDomainParam params) {
+	public DeferredResult<Object> doDomainTransferQuery(final HttpServletRequest request, @RequestBody final NSDomainParam params) {
+		return this.execute("doDomainTransferQuery", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doDomainTransferQueryInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doDomainTransferQuery} with the session borrowed for the request.
+	 */
+	private ResultVo doDomainTransferQueryInSession(HttpServletRequest request, NSDomainParam params) {
 		printStart("doDomainTransfer");
 
 		EPPSession theSession = null;
@@ -225,7 +249,18 @@ public class NSDomainTransferController extends BaseNSController{
 
 	@RequestMapping(value = "/transfer/cancel",method = RequestMethod.POST) 	@SystemControllerLog(description = "转出域名")
 	@ResponseBody
-	public ResultVo  doDomainTransferCancel(HttpServletRequest request,@RequestBody  NSDomainParam params) {
+	public DeferredResult<Object> doDomainTransferCancel(final HttpServletRequest request, @RequestBody final NSDomainParam params) {
+		return this.execute("doDomainTransferCancel", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doDomainTransferCancelInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doDomainTransferCancel} with the session borrowed for the request.
+	 */
+	private ResultVo doDomainTransferCancelInSession(HttpServletRequest request, NSDomainParam params) {
 		printStart("doDomainTransfer");
 
 		EPPSession theSession = null;
@@ -277,7 +312,18 @@ public class NSDomainTransferController extends BaseNSController{
 
 	@RequestMapping(value = "/transfer/reject",method = RequestMethod.POST) 	@SystemControllerLog(description = "转出域名")
 	@ResponseBody
-	public ResultVo  doDomainTransferReject(HttpServletRequest request,@RequestBody  NSDomainParam params) {
+	public DeferredResult<Object> doDomainTransferReject(final HttpServletRequest request, @RequestBody final NSDomainParam params) {
+		return this.execute("doDomainTransferReject", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doDomainTransferRejectInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doDomainTransferReject} with the session borrowed for the request.
+	 */
+	private ResultVo doDomainTransferRejectInSession(HttpServletRequest request, NSDomainParam params) {
 		printStart("doDomainTransfer");
 
 		EPPSession theSession = null;
@@ -330,7 +376,18 @@ public class NSDomainTransferController extends BaseNSController{
 
 	@RequestMapping(value = "/transfer/approve",method = RequestMethod.POST) 	@SystemControllerLog(description = "转出域名")
 	@ResponseBody
-	public ResultVo  doDomainTransferApprove(HttpServletRequest request,@RequestBody  NSDomainParam params) {
+	public DeferredResult<Object> doDomainTransferApprove(final HttpServletRequest request, @RequestBody final NSDomainParam params) {
+		return this.execute("doDomainTransferApprove", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doDomainTransferApproveInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doDomainTransferApprove} with the session borrowed for the request.
+	 */
+	private ResultVo doDomainTransferApproveInSession(HttpServletRequest request, NSDomainParam params) {
 		printStart("doDomainTransfer");
 
 		EPPSession theSession = null;
@@ -45,8 +45,10 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.Callable;
 
 /**
  * the <code>NSHost</code> interface. This  utilizes the
@@ -66,7 +68,18 @@ public class NSHostController extends BaseNSController{
 	@RequestMapping(value = "/create",method = RequestMethod.POST)
 	@SystemControllerLog(description = "创建HOST")
 	@ResponseBody
-	public Object doHostCreate(HttpServletRequest request, @RequestBody NSHostParam params) {
+	public DeferredResult<Object> doHostCreate(final HttpServletRequest request, @RequestBody final NSHostParam params) {
+		return this.execute("doHostCreate", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doHostCreateInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doHostCreate} with the session borrowed for the request.
+	 */
+	private Object doHostCreateInSession(HttpServletRequest request, NSHostParam params) {
 		printStart("HostCreate");
 
 		EPPSession theSession = null;
@@ -146,7 +159,18 @@ public class NSHostController extends BaseNSController{
 	@RequestMapping(value = "/check",method = RequestMethod.POST)
 	@SystemControllerLog(description = "核查HOST")
 	@ResponseBody
-	public Object doHostCheck(HttpServletRequest request, @RequestBody NSHostParam params) {
+	public DeferredResult<Object> doHostCheck(final HttpServletRequest request, @RequestBody final NSHostParam params) {
+		return this.execute("doHostCheck", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doHostCheckInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doHostCheck} with the session borrowed for the request.
+	 */
+	private Object doHostCheckInSession(HttpServletRequest request, NSHostParam params) {
 		printStart("HostCheck");
 
 		EPPSession theSession = null;
@@ -207,7 +231,18 @@ public class NSHostController extends BaseNSController{
 	@RequestMapping(value = "/checkmulti",method = RequestMethod.POST)
 	@SystemControllerLog(description = "核查HOST")
 	@ResponseBody
-	public Object doHostCheckMulti(HttpServletRequest request, @RequestBody NSHostParam params) {
+	public DeferredResult<Object> doHostCheckMulti(final HttpServletRequest request, @RequestBody final NSHostParam params) {
+		return this.execute("doHostCheckMulti", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doHostCheckMultiInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doHostCheckMulti} with the session borrowed for the request.
+	 */
+	private Object doHostCheckMultiInSession(HttpServletRequest request, NSHostParam params) {
 		printStart("HostCheckMulti");
 
 		EPPSession theSession = null;
@@ -285,7 +320,18 @@ public class NSHostController extends BaseNSController{
 	@RequestMapping(value = "/info",method = RequestMethod.POST)
 	@SystemControllerLog(description = "查询HOST")
 	@ResponseBody
-	public Object doHostInfo(HttpServletRequest request, @RequestBody NSHostParam params) {
+	public DeferredResult<Object> doHostInfo(final HttpServletRequest request, @RequestBody final NSHostParam params) {
+		return this.execute("doHostInfo", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doHostInfoInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doHostInfo} with the session borrowed for the request.
+	 */
+	private Object doHostInfoInSession(HttpServletRequest request, NSHostParam params) {
 		printStart("HostInfo");
 
 		EPPSession theSession = null;
@@ -385,7 +431,18 @@ public class NSHostController extends BaseNSController{
 	@RequestMapping(value = "/delete",method = RequestMethod.POST)
 	@SystemControllerLog(description = "删除HOST")
 	@ResponseBody
-	public Object doHostDelete(HttpServletRequest request, @RequestBody NSHostParam params) {
+	public DeferredResult<Object> doHostDelete(final HttpServletRequest request, @RequestBody final NSHostParam params) {
+		return this.execute("doHostDelete", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doHostDeleteInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doHostDelete} with the session borrowed for the request.
+	 */
+	private Object doHostDeleteInSession(HttpServletRequest request, NSHostParam params) {
 		printStart("HostDelete");
 
 		EPPSession theSession = null;
@@ -436,7 +493,18 @@ public class NSHostController extends BaseNSController{
 	@RequestMapping(value = "/update",method = RequestMethod.POST)
 	@SystemControllerLog(description = "更新HOST")
 	@ResponseBody
-	public Object doHostUpdate(HttpServletRequest request, @RequestBody NSHostUpdateParam params) {
+	public DeferredResult<Object> doHostUpdate(final HttpServletRequest request, @RequestBody final NSHostUpdateParam params) {
+		return this.execute("doHostUpdate", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doHostUpdateInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doHostUpdate} with the session borrowed for the request.
+	 */
+	private Object doHostUpdateInSession(HttpServletRequest request, NSHostUpdateParam params) {
 		printStart("HostUpdate");
 
 		EPPSession theSession = null;
@@ -514,7 +582,18 @@ public class NSHostController extends BaseNSController{
 	@RequestMapping(value = "/resellerid",method = RequestMethod.POST)
 	@SystemControllerLog(description = "resellerid")
 	@ResponseBody
-	public Object doResellerId(HttpServletRequest request, @RequestBody NSHostParam params) {
+	public DeferredResult<Object> doResellerId(final HttpServletRequest request, @RequestBody final NSHostParam params) {
+		return this.execute("doResellerId", new Callable<Object>() {
+			public Object call() throws Exception {
+				return doResellerIdInSession(request, params);
+			}
+		});
+	}
+
+	/**
+	 * Processes {@link #doResellerId} with the session borrowed for the request.
+	 */
+	private Object doResellerIdInSession(HttpServletRequest request, NSHostParam params) {
 		printStart("testResellerId");
 
 		EPPSession theSession = null;
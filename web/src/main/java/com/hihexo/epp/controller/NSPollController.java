@@ -21,18 +21,11 @@ package com.hihexo.epp.controller;
 
 import com.hihexo.epp.common.aspect.SystemControllerLog;
 import com.hihexo.epp.model.NSPollParam;
-import com.verisign.epp.codec.contact.EPPContactTransferResp;
-import com.verisign.epp.codec.domain.EPPDomainTransferResp;
-import com.verisign.epp.codec.gen.EPPResponse;
-import com.verisign.epp.codec.gen.EPPResult;
-import com.verisign.epp.codec.lowbalancepoll.EPPLowBalancePollResponse;
-import com.verisign.epp.codec.rgppoll.EPPRgpPollResponse;
-import com.verisign.epp.interfaces.EPPCommandException;
-import com.verisign.epp.interfaces.EPPSession;
+import com.hihexo.epp.service.NSPollDrainService;
 import com.verisign.epp.namestore.interfaces.NSDomain;
-import com.verisign.epp.util.InvalidateSessionException;
-import com.verisign.epp.util.TestUtil;
+import com.verisign.epp.pool.EPPPollDrainer;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -40,105 +33,53 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * handling of NameStore poll messages.  This
  * also functions as a sample for handling all of the possible
- * poll messages generated by NameStore.    
+ * poll messages generated by NameStore.<br>
+ * <br>
+ * The poll queues are drained in the background by the
+ * {@link NSPollDrainService}, so <code>/poll/send</code> only triggers an
+ * immediate poll and returns the drain status.
  * 
  * @see NSDomain
  * @see com.verisign.epp.interfaces.EPPDomain
+ * @see NSPollDrainService
  */
 @Controller
 @RequestMapping("/poll")
 public class NSPollController extends BaseNSController {
 	private static org.slf4j.Logger logger = LoggerFactory.getLogger(NSPollController.class);
+
+	@Autowired
+	private NSPollDrainService pollDrainService;
+
 	@RequestMapping(value = "/send", method= RequestMethod.POST)
 	@SystemControllerLog(description = "pollmessage")
 	@ResponseBody
 	public Object poll(HttpServletRequest request, @RequestBody NSPollParam params) {
 		printStart("Poll");
+		logger.debug("params="+params);
 
-		EPPSession theSession = null;
-		try {
-			theSession = this.borrowSession();
-			EPPResponse theResponse = null;
-			String domainName = params.getDomainName();
-			String authStr =  params.getAuthStr();
-			logger.debug("params="+params);
-			logger.debug("domainName="+domainName);
-			logger.debug("authStr="+authStr);
-			try {
-				NSDomain theDomain = new NSDomain(theSession);
-				theDomain.addDomainName(domainName);
-				theDomain.setAuthString(authStr);
-				theDomain.sendCreate();
-
-				theSession.setTransId(getClientTransId(request));
-				theSession.setPollOp(EPPSession.OP_REQ);
-				theResponse = theSession.sendPoll();
-
-				while (theResponse.getResult().getCode() == EPPResult.SUCCESS_POLL_MSG) {
-
-					// poll response
-					logger.debug("Poll: Poll Response = [" + theResponse
-							+ "]\n\n");
-
-					// Domain Transfer notification
-					if (theResponse instanceof EPPDomainTransferResp) {
-						logger.debug("Poll: Got domain transfer notification");
-
-						EPPDomainTransferResp theMsg = (EPPDomainTransferResp) theResponse;
-						String theStatus = theMsg.getTransferStatus();
-						return renderSuccess(theStatus);// FIXME: 2017/4/25 do something?
-					} // Contact transfer notification
-					else if (theResponse instanceof EPPContactTransferResp) {
-							logger.debug("Poll: Got contact transfer notification");
-							EPPContactTransferResp theMsg = (EPPContactTransferResp) theResponse;
-							String theStatus = theMsg.getTransferStatus();
-							return renderSuccess(theStatus); // FIXME: 2017/4/25 do something?
-					} // low balance notification
-					else if (theResponse instanceof EPPLowBalancePollResponse) {
-						logger.debug("Poll: Got low balance notification");// FIXME: 2017/4/25 do something?
-					} // RGP notification
-					else if (theResponse instanceof EPPRgpPollResponse) {
-						logger.debug("Poll: Got RGP notification");// FIXME: 2017/4/25 do something?
-					} // Domain pending action notification
-					else if (theResponse instanceof com.verisign.epp.codec.domain.EPPDomainPendActionMsg) {
-						logger.debug("Poll: Got domain pending action notification");// FIXME: 2017/4/25 do something?
-					} // Unknown general message
-					else {
-						logger.debug("Poll: Got general notification");
-					}
-
-					// Acknowledge the current message
-					theSession.setPollOp(EPPSession.OP_ACK);
-					theSession.setMsgID(theResponse.getMsgQueue().getId());
-					theResponse = theSession.sendPoll();
+		EPPPollDrainer theDrainer = this.pollDrainService.getDrainer();
+		if (theDrainer == null || !theDrainer.isRunning()) {
+			printEnd("Poll");
+			return renderError("Poll drainer is not running");
+		}
 
-					// Ack response
-					logger.debug("doPoll: Poll ACK Response = [" + theResponse
-							+ "]\n\n");
+		theDrainer.pollNow();
 
-					theSession.setPollOp(EPPSession.OP_REQ);
-					theResponse = theSession.sendPoll();
-					//sleep 定时任务？ // FIXME: 2017/4/25
-				}
-			}
-			catch (EPPCommandException ex) {
-				TestUtil.handleException(theSession, ex);
-			}
-		}
-		catch (InvalidateSessionException ex) {
-			this.invalidateSession(theSession);
-			theSession = null;
-		}
-		finally {
-			if (theSession != null) this.returnSession(theSession);
-		}
+		Map<String, Object> theStatus = new HashMap<String, Object>();
+		theStatus.put("queueCounts", theDrainer.getQueueCounts());
+		theStatus.put("drained", theDrainer.getDrainedCount());
+		theStatus.put("dispatched", theDrainer.getDispatchedCount());
+		theStatus.put("errors", theDrainer.getErrorCount());
 
 		printEnd("Poll");
-		return renderError("Unknown");
+		return renderSuccess(theStatus);
 	}
 
 
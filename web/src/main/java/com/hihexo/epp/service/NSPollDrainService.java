@@ -0,0 +1,138 @@
+package com.hihexo.epp.service;
+
+import com.hihexo.epp.controller.BaseNSController;
+import com.verisign.epp.codec.contact.EPPContactTransferResp;
+import com.verisign.epp.codec.domain.EPPDomainPendActionMsg;
+import com.verisign.epp.codec.domain.EPPDomainTransferResp;
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.codec.lowbalancepoll.EPPLowBalancePollResponse;
+import com.verisign.epp.codec.rgppoll.EPPRgpPollResponse;
+import com.verisign.epp.pool.EPPPollDrainer;
+import com.verisign.epp.pool.EPPSessionPool;
+import com.verisign.epp.util.Environment;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+/**
+ * Drains the poll queues of the systems in the
+ * <code>EPP.PollDrainer.systems</code> property in the background with an
+ * <code>EPPPollDrainer</code>.  This also functions as a sample for
+ * handling all of the possible poll messages generated by NameStore,
+ * which are passed to the handlers registered in {@link #startDrainer()}.
+ * The sessions are borrowed from the session pool of
+ * {@link BaseNSController}.
+ *
+ * @see EPPPollDrainer
+ */
+@Service
+public class NSPollDrainService {
+	private static org.slf4j.Logger logger = LoggerFactory.getLogger(NSPollDrainService.class);
+
+	/** Background drainer of the poll queues, <code>null</code> if disabled */
+	private EPPPollDrainer drainer = null;
+
+	/**
+	 * Starts draining the poll queues of the systems in the
+	 * <code>EPP.PollDrainer.systems</code> property.
+	 */
+	@PostConstruct
+	public void startDrainer() {
+		// Initializes the EPP Application and the session pool
+		EPPSessionPool thePool = BaseNSController.getSessionPool();
+
+		String theSystems = Environment.getProperty("EPP.PollDrainer.systems");
+		if (theSystems == null || theSystems.trim().length() == 0) {
+			logger.info("startDrainer: EPP.PollDrainer.systems not set, poll drainer disabled");
+			return;
+		}
+
+		try {
+			EPPPollDrainer theDrainer = new EPPPollDrainer(thePool,
+					theSystems.trim().split("\\s*,\\s*"));
+			theDrainer.init();
+
+			// Domain Transfer notification
+			theDrainer.addHandler(EPPDomainTransferResp.class, new EPPPollDrainer.Handler() {
+				public void handle(String aSystem, EPPResponse aMessage) {
+					EPPDomainTransferResp theMsg = (EPPDomainTransferResp) aMessage;
+					logger.info("Poll(" + aSystem + "): Got domain transfer notification, name = "
+							+ theMsg.getName() + ", status = " + theMsg.getTransferStatus());
+				}
+			});
+
+			// Contact transfer notification
+			theDrainer.addHandler(EPPContactTransferResp.class, new EPPPollDrainer.Handler() {
+				public void handle(String aSystem, EPPResponse aMessage) {
+					EPPContactTransferResp theMsg = (EPPContactTransferResp) aMessage;
+					logger.info("Poll(" + aSystem + "): Got contact transfer notification, id = "
+							+ theMsg.getId() + ", status = " + theMsg.getTransferStatus());
+				}
+			});
+
+			// low balance notification
+			theDrainer.addHandler(EPPLowBalancePollResponse.class, new EPPPollDrainer.Handler() {
+				public void handle(String aSystem, EPPResponse aMessage) {
+					logger.info("Poll(" + aSystem + "): Got low balance notification = [" + aMessage + "]");
+				}
+			});
+
+			// RGP notification
+			theDrainer.addHandler(EPPRgpPollResponse.class, new EPPPollDrainer.Handler() {
+				public void handle(String aSystem, EPPResponse aMessage) {
+					logger.info("Poll(" + aSystem + "): Got RGP notification = [" + aMessage + "]");
+				}
+			});
+
+			// Domain pending action notification
+			theDrainer.addHandler(EPPDomainPendActionMsg.class, new EPPPollDrainer.Handler() {
+				public void handle(String aSystem, EPPResponse aMessage) {
+					EPPDomainPendActionMsg theMsg = (EPPDomainPendActionMsg) aMessage;
+					logger.info("Poll(" + aSystem + "): Got domain pending action notification, name = "
+							+ theMsg.getName() + ", success = " + theMsg.isPASuccess());
+				}
+			});
+
+			// Unknown general message
+			theDrainer.addHandler(EPPResponse.class, new EPPPollDrainer.Handler() {
+				public void handle(String aSystem, EPPResponse aMessage) {
+					logger.info("Poll(" + aSystem + "): Got general notification = [" + aMessage + "]");
+				}
+			});
+
+			theDrainer.start();
+			this.drainer = theDrainer;
+		}
+		catch (Exception ex) {
+			logger.error("startDrainer: Error starting poll drainer", ex);
+		}
+	}
+
+	/**
+	 * Stops the background drainer, which returns its sessions to the pool.
+	 */
+	@PreDestroy
+	public void stopDrainer() {
+		if (this.drainer != null) {
+			try {
+				this.drainer.stop(10000);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			this.drainer = null;
+		}
+	}
+
+	/**
+	 * Gets the background drainer.
+	 *
+	 * @return Drainer if started; <code>null</code> if disabled.
+	 */
+	public EPPPollDrainer getDrainer() {
+		return this.drainer;
+	}
+
+} // End class NSPollDrainService
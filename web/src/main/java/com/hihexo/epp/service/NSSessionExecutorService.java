@@ -0,0 +1,121 @@
+package com.hihexo.epp.service;
+
+import com.hihexo.epp.controller.BaseNSController;
+import com.verisign.epp.util.EPPExecutors;
+import com.verisign.epp.util.Environment;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor of the blocking EPP calls of the controllers, which borrows the
+ * sessions from the session pool of {@link BaseNSController} and sends the
+ * commands, so that the servlet container threads are released while a
+ * request waits for a session or for the registry.  The executor is
+ * configured with the <code>EPP.AsyncController</code> properties.
+ *
+ * @see BaseNSController#execute(String, java.util.concurrent.Callable)
+ */
+@Service
+public class NSSessionExecutorService {
+	private static org.slf4j.Logger logger = LoggerFactory.getLogger(NSSessionExecutorService.class);
+
+	/** Default maximum number of executor threads */
+	public static final int DEFAULT_IO_THREADS = 50;
+
+	/** Default maximum number of commands waiting for a thread */
+	public static final int DEFAULT_IO_QUEUE_SIZE = 1000;
+
+	/** Default request timeout in milliseconds */
+	public static final long DEFAULT_TIMEOUT = 120000;
+
+	/** Executor of the EPP calls, <code>null</code> if stopped */
+	private ExecutorService executor = null;
+
+	/** Request timeout in milliseconds */
+	private long timeout = DEFAULT_TIMEOUT;
+
+	/**
+	 * Starts the executor with the <code>EPP.AsyncController.ioThreads</code>
+	 * and <code>EPP.AsyncController.ioQueueSize</code> properties.
+	 */
+	@PostConstruct
+	public void startExecutor() {
+		// Initializes the EPP Application and the session pool
+		BaseNSController.getSessionPool();
+
+		int theThreads = getIntProperty("ioThreads", DEFAULT_IO_THREADS);
+		int theQueueSize = getIntProperty("ioQueueSize", DEFAULT_IO_QUEUE_SIZE);
+		this.timeout = getIntProperty("timeout", (int) DEFAULT_TIMEOUT);
+
+		this.executor = EPPExecutors.newExecutor("NSSessionIO", theThreads, theQueueSize);
+		logger.info("startExecutor: ioThreads = " + theThreads + ", ioQueueSize = "
+				+ theQueueSize + ", timeout = " + this.timeout + " ms");
+	}
+
+	/**
+	 * Stops the executor, waiting for the running commands to complete.
+	 */
+	@PreDestroy
+	public void stopExecutor() {
+		if (this.executor != null) {
+			this.executor.shutdown();
+			try {
+				if (!this.executor.awaitTermination(10, TimeUnit.SECONDS)) {
+					this.executor.shutdownNow();
+				}
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			this.executor = null;
+		}
+	}
+
+	/**
+	 * Gets an <code>EPP.AsyncController</code> integer property.
+	 *
+	 * @param aName Property name without the prefix
+	 * @param aDefault Default value
+	 *
+	 * @return Property value if defined and valid; <code>aDefault</code> otherwise.
+	 */
+	private static int getIntProperty(String aName, int aDefault) {
+		String theValue = Environment.getProperty("EPP.AsyncController." + aName);
+		if (theValue == null || theValue.trim().length() == 0) {
+			return aDefault;
+		}
+
+		try {
+			return Integer.parseInt(theValue.trim());
+		}
+		catch (NumberFormatException ex) {
+			logger.error("getIntProperty: Invalid EPP.AsyncController." + aName
+					+ " = " + theValue + ", using " + aDefault);
+			return aDefault;
+		}
+	}
+
+	/**
+	 * Gets the executor of the EPP calls.
+	 *
+	 * @return Executor if started; <code>null</code> otherwise.
+	 */
+	public ExecutorService getExecutor() {
+		return this.executor;
+	}
+
+	/**
+	 * Gets the request timeout.
+	 *
+	 * @return Milliseconds before a request is answered with an error
+	 */
+	public long getTimeout() {
+		return this.timeout;
+	}
+
+} // End class NSSessionExecutorService